@@ -204,6 +204,15 @@ public class ImportPipeline {
     ValueProvider<RpcPriority> getSpannerPriority();
 
     void setSpannerPriority(ValueProvider<RpcPriority> value);
+
+    @TemplateCreationParameter(value = "4")
+    @Description(
+        "The number of lanes that tables are imported in. Every interleave tree is imported in one"
+            + " lane, and a child table only waits for the parent tables of its own lane.")
+    @Default.Integer(4)
+    int getImportLanes();
+
+    void setImportLanes(int value);
   }
 
   public static void main(String[] args) {
@@ -239,7 +248,8 @@ public class ImportPipeline {
             options.getWaitForChangeStreams(),
             options.getWaitForSequences(),
             options.getEarlyIndexCreateFlag(),
-            options.getDdlCreationTimeoutInMinutes()));
+            options.getDdlCreationTimeoutInMinutes(),
+            options.getImportLanes()));
 
     PipelineResult result = p.run();
 
@@ -49,7 +49,10 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -114,6 +117,10 @@ public class ImportTransform extends PTransform<PBegin, PDone> {
   private final ValueProvider<Boolean> waitForSequences;
   private final ValueProvider<Boolean> earlyIndexCreateFlag;
   private final ValueProvider<Integer> ddlCreationTimeoutInMinutes;
+  // Tables are imported in independent lanes. Every interleave tree is assigned to one lane, and
+  // a level of a lane only waits for the previous level of the same lane, so a large table does
+  // not hold back the children of other trees.
+  private final int importLanes;
 
   public ImportTransform(
       SpannerConfig spannerConfig,
@@ -124,6 +131,29 @@ public class ImportTransform extends PTransform<PBegin, PDone> {
       ValueProvider<Boolean> waitForSequences,
       ValueProvider<Boolean> earlyIndexCreateFlag,
       ValueProvider<Integer> ddlCreationTimeoutInMinutes) {
+    this(
+        spannerConfig,
+        importDirectory,
+        waitForIndexes,
+        waitForForeignKeys,
+        waitForChangeStreams,
+        waitForSequences,
+        earlyIndexCreateFlag,
+        ddlCreationTimeoutInMinutes,
+        1);
+  }
+
+  public ImportTransform(
+      SpannerConfig spannerConfig,
+      ValueProvider<String> importDirectory,
+      ValueProvider<Boolean> waitForIndexes,
+      ValueProvider<Boolean> waitForForeignKeys,
+      ValueProvider<Boolean> waitForChangeStreams,
+      ValueProvider<Boolean> waitForSequences,
+      ValueProvider<Boolean> earlyIndexCreateFlag,
+      ValueProvider<Integer> ddlCreationTimeoutInMinutes,
+      int importLanes) {
+    Verify.verify(importLanes > 0, "importLanes must be positive, got %s", importLanes);
     this.spannerConfig = spannerConfig;
     this.importDirectory = importDirectory;
     this.waitForIndexes = waitForIndexes;
@@ -132,6 +162,7 @@ public class ImportTransform extends PTransform<PBegin, PDone> {
     this.waitForSequences = waitForSequences;
     this.earlyIndexCreateFlag = earlyIndexCreateFlag;
     this.ddlCreationTimeoutInMinutes = ddlCreationTimeoutInMinutes;
+    this.importLanes = importLanes;
   }
 
   @Override
@@ -241,48 +272,75 @@ public class ImportTransform extends PTransform<PBegin, PDone> {
                       }
                     }));
 
-    PCollection<?> previousComputation = ddl;
-    for (int i = 0; i < MAX_DEPTH; i++) {
-      final int depth = i;
-      PCollection<KV<String, String>> levelFiles =
-          acc.apply(
-                  "Get Avro filenames depth " + depth,
-                  ParDo.of(
-                          new DoFn<HashMultimap<String, String>, KV<String, String>>() {
-
-                            @ProcessElement
-                            public void processElement(ProcessContext c) {
-                              HashMultimap<String, String> allFiles = c.element();
-                              HashMultimap<Integer, String> levels = c.sideInput(levelsView);
-
-                              Set<String> tables = levels.get(depth);
-                              for (String table : tables) {
-                                for (String file : allFiles.get(table)) {
-                                  c.output(KV.of(file, table));
+    final PCollectionView<HashMultimap<String, String>> filesView =
+        acc.apply("Table files as view", View.asSingleton());
+    final int lanes = importLanes;
+    PCollectionView<Map<String, Integer>> lanesView =
+        ddl.apply(
+                "Assign tables to lanes",
+                ParDo.of(
+                        new DoFn<Ddl, Map<String, Integer>>() {
+
+                          @ProcessElement
+                          public void processElement(ProcessContext c) {
+                            c.output(assignLanes(c.element(), c.sideInput(filesView), lanes));
+                          }
+                        })
+                    .withSideInputs(filesView))
+            .apply("Lanes as view", View.asSingleton());
+
+    List<PCollection<?>> lastComputations = new ArrayList<>();
+    for (int l = 0; l < importLanes; l++) {
+      final int lane = l;
+      PCollection<?> previousComputation = ddl;
+      for (int i = 0; i < MAX_DEPTH; i++) {
+        final int depth = i;
+        String suffix = importLanes == 1 ? " " + depth : " lane " + lane + " depth " + depth;
+        PCollection<KV<String, String>> levelFiles =
+            acc.apply(
+                    "Get Avro filenames depth" + suffix,
+                    ParDo.of(
+                            new DoFn<HashMultimap<String, String>, KV<String, String>>() {
+
+                              @ProcessElement
+                              public void processElement(ProcessContext c) {
+                                HashMultimap<String, String> allFiles = c.element();
+                                HashMultimap<Integer, String> levels = c.sideInput(levelsView);
+                                Map<String, Integer> tableLanes = c.sideInput(lanesView);
+
+                                Set<String> tables = levels.get(depth);
+                                for (String table : tables) {
+                                  if (tableLanes.get(table.toLowerCase()) != lane) {
+                                    continue;
+                                  }
+                                  for (String file : allFiles.get(table)) {
+                                    c.output(KV.of(file, table));
+                                  }
                                 }
                               }
-                            }
-                          })
-                      .withSideInputs(levelsView))
-              .apply("Wait for previous depth " + depth, Wait.on(previousComputation));
-      PCollection<Mutation> mutations =
-          levelFiles.apply(
-              "Avro files as mutations " + depth, new AvroTableFileAsMutations(ddlView));
-
-      SpannerWriteResult result =
-          mutations.apply(
-              "Write mutations " + depth,
-              LocalSpannerIO.write()
-                  .withSchemaReadySignal(ddl)
-                  .withSpannerConfig(spannerConfig)
-                  .withCommitDeadline(Duration.standardMinutes(1))
-                  .withMaxCumulativeBackoff(Duration.standardHours(2))
-                  .withMaxNumMutations(10000)
-                  .withGroupingFactor(100)
-                  .withDialectView(dialectView));
-      previousComputation = result.getOutput();
+                            })
+                        .withSideInputs(levelsView, lanesView))
+                .apply("Wait for previous depth" + suffix, Wait.on(previousComputation));
+        PCollection<Mutation> mutations =
+            levelFiles.apply(
+                "Avro files as mutations" + suffix, new AvroTableFileAsMutations(ddlView));
+
+        SpannerWriteResult result =
+            mutations.apply(
+                "Write mutations" + suffix,
+                LocalSpannerIO.write()
+                    .withSchemaReadySignal(ddl)
+                    .withSpannerConfig(spannerConfig)
+                    .withCommitDeadline(Duration.standardMinutes(1))
+                    .withMaxCumulativeBackoff(Duration.standardHours(2))
+                    .withMaxNumMutations(10000)
+                    .withGroupingFactor(100)
+                    .withDialectView(dialectView));
+        previousComputation = result.getOutput();
+      }
+      lastComputations.add(previousComputation);
     }
-    ddl.apply(Wait.on(previousComputation))
+    ddl.apply("Wait for all lanes", Wait.on(lastComputations.toArray(new PCollection<?>[0])))
         .apply(
             "Create Indexes", new ApplyDDLTransform(spannerConfig, pendingIndexes, waitForIndexes))
         .apply(
@@ -294,6 +352,54 @@ public class ImportTransform extends PTransform<PBegin, PDone> {
     return PDone.in(begin.getPipeline());
   }
 
+  /**
+   * Assigns every interleave tree of the {@link Ddl} to one of {@code lanes} import lanes.
+   *
+   * <p>Trees are weighted by the number of files of their tables and assigned greedily, heaviest
+   * first, to the least loaded lane. Child tables always share the lane of their root table.
+   *
+   * @return the lane of every table, keyed by the lower case table name.
+   */
+  @VisibleForTesting
+  static Map<String, Integer> assignLanes(
+      Ddl ddl, HashMultimap<String, String> tableFiles, int lanes) {
+    Map<String, String> roots = new HashMap<>();
+    Map<String, Integer> rootWeights = new HashMap<>();
+    for (String name : ddl.perLevelView().values()) {
+      Table table = ddl.table(name);
+      while (table.interleaveInParent() != null) {
+        table = ddl.table(table.interleaveInParent());
+      }
+      String root = table.name().toLowerCase();
+      roots.put(name.toLowerCase(), root);
+      rootWeights.merge(root, tableFiles.get(name.toLowerCase()).size(), Integer::sum);
+    }
+
+    List<String> sortedRoots = new ArrayList<>(rootWeights.keySet());
+    sortedRoots.sort(
+        Comparator.comparing((String root) -> rootWeights.get(root))
+            .reversed()
+            .thenComparing(Comparator.naturalOrder()));
+    long[] load = new long[lanes];
+    Map<String, Integer> rootLanes = new HashMap<>();
+    for (String root : sortedRoots) {
+      int lane = 0;
+      for (int i = 1; i < lanes; i++) {
+        if (load[i] < load[lane]) {
+          lane = i;
+        }
+      }
+      load[lane] += rootWeights.get(root);
+      rootLanes.put(root, lane);
+    }
+
+    Map<String, Integer> result = new HashMap<>();
+    for (Map.Entry<String, String> entry : roots.entrySet()) {
+      result.put(entry.getKey(), rootLanes.get(entry.getValue()));
+    }
+    return result;
+  }
+
   /** Read contents of the top-level manifest file. */
   @VisibleForTesting
   static class ReadExportManifestFile extends PTransform<PBegin, PCollection<Export>> {
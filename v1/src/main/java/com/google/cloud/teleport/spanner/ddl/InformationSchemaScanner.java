@@ -25,6 +25,7 @@ import static com.google.common.base.Strings.isNullOrEmpty;
 import com.google.cloud.ByteArray;
 import com.google.cloud.spanner.Dialect;
 import com.google.cloud.spanner.ReadContext;
+import com.google.cloud.spanner.ReadOnlyTransaction;
 import com.google.cloud.spanner.ResultSet;
 import com.google.cloud.spanner.Statement;
 import com.google.cloud.teleport.spanner.ddl.ForeignKey.ReferentialAction;
@@ -50,6 +51,7 @@ import java.util.NavigableMap;
 import java.util.Queue;
 import java.util.Set;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.apache.beam.sdk.values.KV;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -63,6 +65,9 @@ public class InformationSchemaScanner {
 
   private final Dialect dialect;
 
+  /** The queries started ahead of the current scan, if any. */
+  @Nullable private ConcurrentQueries queries;
+
   public InformationSchemaScanner(ReadContext context) {
     this.context = context;
     this.dialect = Dialect.GOOGLE_STANDARD_SQL;
@@ -73,7 +78,38 @@ public class InformationSchemaScanner {
     this.dialect = dialect;
   }
 
+  /**
+   * Scans the information schema. In a read-only transaction, the queries that do not depend on the
+   * result of another one are issued concurrently up front; other contexts run every query in turn.
+   */
   public Ddl scan() {
+    if (!(context instanceof ReadOnlyTransaction)) {
+      return scanInOrder();
+    }
+    ImmutableList.Builder<Statement> independentQueries =
+        ImmutableList.<Statement>builder()
+            .add(
+                databaseOptionsSQL(),
+                listSchemasSQL(),
+                listColumnsSQL(),
+                listColumnOptionsSQL(),
+                listIndexesSQL(),
+                listIndexColumnsSQL(),
+                listForeignKeysSQL(),
+                listCheckConstraintsSQL());
+    if (dialect == Dialect.GOOGLE_STANDARD_SQL) {
+      independentQueries.add(listIndexOptionsSQL());
+    }
+    try (ConcurrentQueries concurrentQueries =
+        new ConcurrentQueries(context, independentQueries.build())) {
+      queries = concurrentQueries;
+      return scanInOrder();
+    } finally {
+      queries = null;
+    }
+  }
+
+  private Ddl scanInOrder() {
     Ddl.Builder builder = Ddl.builder(dialect);
     listDatabaseOptions(builder);
     addProtoBundleAndDescriptor(builder);
@@ -152,10 +188,14 @@ public class InformationSchemaScanner {
     return builder.build();
   }
 
+  private ResultSet executeQuery(Statement statement) {
+    return queries != null ? queries.executeQuery(statement) : context.executeQuery(statement);
+  }
+
   private void listDatabaseOptions(Ddl.Builder builder) {
     Statement statement = databaseOptionsSQL();
 
-    ResultSet resultSet = context.executeQuery(statement);
+    ResultSet resultSet = executeQuery(statement);
 
     ImmutableList.Builder<Export.DatabaseOption> options = ImmutableList.builder();
     while (resultSet.next()) {
@@ -194,11 +234,7 @@ public class InformationSchemaScanner {
   }
 
   private void listSchemas(Ddl.Builder builder) {
-    Statement.Builder queryBuilder =
-        Statement.newBuilder(
-            "SELECT s.schema_name FROM"
-                + " information_schema.schemata AS s WHERE s.effective_timestamp IS NOT NULL");
-    ResultSet resultSet = context.executeQuery(queryBuilder.build());
+    ResultSet resultSet = executeQuery(listSchemasSQL());
     while (resultSet.next()) {
       String schemaName = resultSet.getString(0);
       if (schemaName.isEmpty() || schemaName.equals("public")) {
@@ -208,6 +244,13 @@ public class InformationSchemaScanner {
     }
   }
 
+  @VisibleForTesting
+  Statement listSchemasSQL() {
+    return Statement.of(
+        "SELECT s.schema_name FROM"
+            + " information_schema.schemata AS s WHERE s.effective_timestamp IS NOT NULL");
+  }
+
   private void listTables(Ddl.Builder builder) {
     Statement.Builder queryBuilder;
 
@@ -293,7 +336,7 @@ public class InformationSchemaScanner {
   private void listColumns(Ddl.Builder builder) {
     Statement statement = listColumnsSQL();
 
-    ResultSet resultSet = context.executeQuery(statement);
+    ResultSet resultSet = executeQuery(statement);
     while (resultSet.next()) {
       String tableSchema = resultSet.getString(0);
       String tableName = getQualifiedName(tableSchema, resultSet.getString(1));
@@ -379,7 +422,7 @@ public class InformationSchemaScanner {
   private void listIndexes(Map<String, NavigableMap<String, Index.Builder>> indexes) {
     Statement statement = listIndexesSQL();
 
-    ResultSet resultSet = context.executeQuery(statement);
+    ResultSet resultSet = executeQuery(statement);
     while (resultSet.next()) {
       String tableName = getQualifiedName(resultSet.getString(0), resultSet.getString(1));
       // For PostgreSQL, the syntax does not support fully qualified name.
@@ -468,7 +511,7 @@ public class InformationSchemaScanner {
       Ddl.Builder builder, Map<String, NavigableMap<String, Index.Builder>> indexes) {
     Statement statement = listIndexColumnsSQL();
 
-    ResultSet resultSet = context.executeQuery(statement);
+    ResultSet resultSet = executeQuery(statement);
     while (resultSet.next()) {
       String tableName = getQualifiedName(resultSet.getString(0), resultSet.getString(1));
       String columnName = resultSet.getString(2);
@@ -577,7 +620,7 @@ public class InformationSchemaScanner {
       Ddl.Builder builder, Map<String, NavigableMap<String, Index.Builder>> indexes) {
     Statement statement = listIndexOptionsSQL();
 
-    ResultSet resultSet = context.executeQuery(statement);
+    ResultSet resultSet = executeQuery(statement);
 
     Map<KV<String, String>, ImmutableList.Builder<String>> allOptions = Maps.newHashMap();
     while (resultSet.next()) {
@@ -640,7 +683,7 @@ public class InformationSchemaScanner {
   private void listColumnOptions(Ddl.Builder builder) {
     Statement statement = listColumnOptionsSQL();
 
-    ResultSet resultSet = context.executeQuery(statement);
+    ResultSet resultSet = executeQuery(statement);
 
     Map<KV<String, String>, ImmutableList.Builder<String>> allOptions = Maps.newHashMap();
     while (resultSet.next()) {
@@ -704,68 +747,7 @@ public class InformationSchemaScanner {
   }
 
   private void listForeignKeys(Map<String, NavigableMap<String, ForeignKey.Builder>> foreignKeys) {
-    Statement statement;
-
-    switch (dialect) {
-      case GOOGLE_STANDARD_SQL:
-        statement =
-            Statement.of(
-                "SELECT rc.constraint_name,"
-                    + " kcu1.table_schema,"
-                    + " kcu1.table_name,"
-                    + " kcu1.column_name,"
-                    + " kcu2.table_schema,"
-                    + " kcu2.table_name,"
-                    + " kcu2.column_name,"
-                    + " rc.delete_rule"
-                    + " FROM information_schema.referential_constraints as rc"
-                    + " INNER JOIN information_schema.key_column_usage as kcu1"
-                    + " ON kcu1.constraint_catalog = rc.constraint_catalog"
-                    + " AND kcu1.constraint_schema = rc.constraint_schema"
-                    + " AND kcu1.constraint_name = rc.constraint_name"
-                    + " INNER JOIN information_schema.key_column_usage as kcu2"
-                    + " ON kcu2.constraint_catalog = rc.unique_constraint_catalog"
-                    + " AND kcu2.constraint_schema = rc.unique_constraint_schema"
-                    + " AND kcu2.constraint_name = rc.unique_constraint_name"
-                    + " AND kcu2.ordinal_position = kcu1.position_in_unique_constraint"
-                    + " WHERE rc.constraint_catalog = kcu1.constraint_catalog"
-                    + " AND rc.constraint_catalog = kcu2.constraint_catalog"
-                    + " AND rc.constraint_schema NOT IN "
-                    + " ('INFORMATION_SCHEMA', 'SPANNER_SYS')"
-                    + " ORDER BY rc.constraint_name, kcu1.ordinal_position;");
-        break;
-      case POSTGRESQL:
-        statement =
-            Statement.of(
-                "SELECT rc.constraint_name,"
-                    + " kcu1.table_schema,"
-                    + " kcu1.table_name,"
-                    + " kcu1.column_name,"
-                    + " kcu2.table_schema,"
-                    + " kcu2.table_name,"
-                    + " kcu2.column_name,"
-                    + " rc.delete_rule"
-                    + " FROM information_schema.referential_constraints as rc"
-                    + " INNER JOIN information_schema.key_column_usage as kcu1"
-                    + " ON kcu1.constraint_catalog = rc.constraint_catalog"
-                    + " AND kcu1.constraint_schema = rc.constraint_schema"
-                    + " AND kcu1.constraint_name = rc.constraint_name"
-                    + " INNER JOIN information_schema.key_column_usage as kcu2"
-                    + " ON kcu2.constraint_catalog = rc.unique_constraint_catalog"
-                    + " AND kcu2.constraint_schema = rc.unique_constraint_schema"
-                    + " AND kcu2.constraint_name = rc.unique_constraint_name"
-                    + " AND kcu2.ordinal_position = kcu1.position_in_unique_constraint"
-                    + " WHERE rc.constraint_catalog = kcu1.constraint_catalog"
-                    + " AND rc.constraint_catalog = kcu2.constraint_catalog"
-                    + " AND rc.constraint_schema NOT IN "
-                    + " ('information_schema', 'spanner_sys', 'pg_catalog')"
-                    + " ORDER BY rc.constraint_name, kcu1.ordinal_position;");
-        break;
-      default:
-        throw new IllegalArgumentException("Unrecognized dialect: " + dialect);
-    }
-
-    ResultSet resultSet = context.executeQuery(statement);
+    ResultSet resultSet = executeQuery(listForeignKeysSQL());
     while (resultSet.next()) {
       String name = resultSet.getString(0);
       String table = getQualifiedName(resultSet.getString(1), resultSet.getString(2));
@@ -792,51 +774,68 @@ public class InformationSchemaScanner {
     }
   }
 
-  private Map<String, NavigableMap<String, CheckConstraint>> listCheckConstraints() {
-    Map<String, NavigableMap<String, CheckConstraint>> checkConstraints = Maps.newHashMap();
-
-    Statement statement;
-
+  @VisibleForTesting
+  Statement listForeignKeysSQL() {
     switch (dialect) {
       case GOOGLE_STANDARD_SQL:
-        statement =
-            Statement.of(
-                "SELECT ctu.TABLE_SCHEMA,"
-                    + "ctu.TABLE_NAME,"
-                    + " cc.CONSTRAINT_NAME,"
-                    + " cc.CHECK_CLAUSE"
-                    + " FROM INFORMATION_SCHEMA.CONSTRAINT_TABLE_USAGE as ctu"
-                    + " INNER JOIN INFORMATION_SCHEMA.CHECK_CONSTRAINTS as cc"
-                    + " ON ctu.constraint_catalog = cc.constraint_catalog"
-                    + " AND ctu.constraint_schema = cc.constraint_schema"
-                    + " AND ctu.CONSTRAINT_NAME = cc.CONSTRAINT_NAME"
-                    + " WHERE NOT STARTS_WITH(cc.CONSTRAINT_NAME, 'CK_IS_NOT_NULL_')"
-                    + " AND ctu.table_schema NOT IN"
-                    + " ('INFORMATION_SCHEMA', 'SPANNER_SYS')"
-                    + " AND cc.SPANNER_STATE = 'COMMITTED';");
-        break;
+        return Statement.of(
+            "SELECT rc.constraint_name,"
+                + " kcu1.table_schema,"
+                + " kcu1.table_name,"
+                + " kcu1.column_name,"
+                + " kcu2.table_schema,"
+                + " kcu2.table_name,"
+                + " kcu2.column_name,"
+                + " rc.delete_rule"
+                + " FROM information_schema.referential_constraints as rc"
+                + " INNER JOIN information_schema.key_column_usage as kcu1"
+                + " ON kcu1.constraint_catalog = rc.constraint_catalog"
+                + " AND kcu1.constraint_schema = rc.constraint_schema"
+                + " AND kcu1.constraint_name = rc.constraint_name"
+                + " INNER JOIN information_schema.key_column_usage as kcu2"
+                + " ON kcu2.constraint_catalog = rc.unique_constraint_catalog"
+                + " AND kcu2.constraint_schema = rc.unique_constraint_schema"
+                + " AND kcu2.constraint_name = rc.unique_constraint_name"
+                + " AND kcu2.ordinal_position = kcu1.position_in_unique_constraint"
+                + " WHERE rc.constraint_catalog = kcu1.constraint_catalog"
+                + " AND rc.constraint_catalog = kcu2.constraint_catalog"
+                + " AND rc.constraint_schema NOT IN "
+                + " ('INFORMATION_SCHEMA', 'SPANNER_SYS')"
+                + " ORDER BY rc.constraint_name, kcu1.ordinal_position;");
       case POSTGRESQL:
-        statement =
-            Statement.of(
-                "SELECT ctu.TABLE_SCHEMA,"
-                    + "ctu.TABLE_NAME,"
-                    + " cc.CONSTRAINT_NAME,"
-                    + " cc.CHECK_CLAUSE"
-                    + " FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS as ctu"
-                    + " INNER JOIN INFORMATION_SCHEMA.CHECK_CONSTRAINTS as cc"
-                    + " ON ctu.constraint_catalog = cc.constraint_catalog"
-                    + " AND ctu.constraint_schema = cc.constraint_schema"
-                    + " AND ctu.CONSTRAINT_NAME = cc.CONSTRAINT_NAME"
-                    + " WHERE NOT STARTS_WITH(cc.CONSTRAINT_NAME, 'CK_IS_NOT_NULL_')"
-                    + " AND ctu.table_schema NOT IN"
-                    + "('information_schema', 'spanner_sys', 'pg_catalog')"
-                    + " AND cc.SPANNER_STATE = 'COMMITTED';");
-        break;
+        return Statement.of(
+            "SELECT rc.constraint_name,"
+                + " kcu1.table_schema,"
+                + " kcu1.table_name,"
+                + " kcu1.column_name,"
+                + " kcu2.table_schema,"
+                + " kcu2.table_name,"
+                + " kcu2.column_name,"
+                + " rc.delete_rule"
+                + " FROM information_schema.referential_constraints as rc"
+                + " INNER JOIN information_schema.key_column_usage as kcu1"
+                + " ON kcu1.constraint_catalog = rc.constraint_catalog"
+                + " AND kcu1.constraint_schema = rc.constraint_schema"
+                + " AND kcu1.constraint_name = rc.constraint_name"
+                + " INNER JOIN information_schema.key_column_usage as kcu2"
+                + " ON kcu2.constraint_catalog = rc.unique_constraint_catalog"
+                + " AND kcu2.constraint_schema = rc.unique_constraint_schema"
+                + " AND kcu2.constraint_name = rc.unique_constraint_name"
+                + " AND kcu2.ordinal_position = kcu1.position_in_unique_constraint"
+                + " WHERE rc.constraint_catalog = kcu1.constraint_catalog"
+                + " AND rc.constraint_catalog = kcu2.constraint_catalog"
+                + " AND rc.constraint_schema NOT IN "
+                + " ('information_schema', 'spanner_sys', 'pg_catalog')"
+                + " ORDER BY rc.constraint_name, kcu1.ordinal_position;");
       default:
         throw new IllegalArgumentException("Unrecognized dialect: " + dialect);
     }
+  }
 
-    ResultSet resultSet = context.executeQuery(statement);
+  private Map<String, NavigableMap<String, CheckConstraint>> listCheckConstraints() {
+    Map<String, NavigableMap<String, CheckConstraint>> checkConstraints = Maps.newHashMap();
+
+    ResultSet resultSet = executeQuery(listCheckConstraintsSQL());
     while (resultSet.next()) {
       String table = getQualifiedName(resultSet.getString(0), resultSet.getString(1));
       String name = resultSet.getString(2);
@@ -849,6 +848,44 @@ public class InformationSchemaScanner {
     return checkConstraints;
   }
 
+  @VisibleForTesting
+  Statement listCheckConstraintsSQL() {
+    switch (dialect) {
+      case GOOGLE_STANDARD_SQL:
+        return Statement.of(
+            "SELECT ctu.TABLE_SCHEMA,"
+                + "ctu.TABLE_NAME,"
+                + " cc.CONSTRAINT_NAME,"
+                + " cc.CHECK_CLAUSE"
+                + " FROM INFORMATION_SCHEMA.CONSTRAINT_TABLE_USAGE as ctu"
+                + " INNER JOIN INFORMATION_SCHEMA.CHECK_CONSTRAINTS as cc"
+                + " ON ctu.constraint_catalog = cc.constraint_catalog"
+                + " AND ctu.constraint_schema = cc.constraint_schema"
+                + " AND ctu.CONSTRAINT_NAME = cc.CONSTRAINT_NAME"
+                + " WHERE NOT STARTS_WITH(cc.CONSTRAINT_NAME, 'CK_IS_NOT_NULL_')"
+                + " AND ctu.table_schema NOT IN"
+                + " ('INFORMATION_SCHEMA', 'SPANNER_SYS')"
+                + " AND cc.SPANNER_STATE = 'COMMITTED';");
+      case POSTGRESQL:
+        return Statement.of(
+            "SELECT ctu.TABLE_SCHEMA,"
+                + "ctu.TABLE_NAME,"
+                + " cc.CONSTRAINT_NAME,"
+                + " cc.CHECK_CLAUSE"
+                + " FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS as ctu"
+                + " INNER JOIN INFORMATION_SCHEMA.CHECK_CONSTRAINTS as cc"
+                + " ON ctu.constraint_catalog = cc.constraint_catalog"
+                + " AND ctu.constraint_schema = cc.constraint_schema"
+                + " AND ctu.CONSTRAINT_NAME = cc.CONSTRAINT_NAME"
+                + " WHERE NOT STARTS_WITH(cc.CONSTRAINT_NAME, 'CK_IS_NOT_NULL_')"
+                + " AND ctu.table_schema NOT IN"
+                + "('information_schema', 'spanner_sys', 'pg_catalog')"
+                + " AND cc.SPANNER_STATE = 'COMMITTED';");
+      default:
+        throw new IllegalArgumentException("Unrecognized dialect: " + dialect);
+    }
+  }
+
   private void listViews(Ddl.Builder builder) {
     Statement queryStatement;
     Statement preconditionStatement;
@@ -15,6 +15,7 @@
  */
 package com.google.cloud.teleport.splunk;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.api.client.http.ByteArrayContent;
@@ -114,6 +115,9 @@ public abstract class HttpEventPublisher {
 
   abstract Boolean enableGzipHttpCompression();
 
+  @Nullable
+  abstract Integer maxConnections();
+
   /**
    * Executes a POST for the list of {@link SplunkEvent} objects into Splunk's Http Event Collector
    * endpoint.
@@ -231,6 +235,10 @@ public abstract class HttpEventPublisher {
 
     abstract Builder setEnableGzipHttpCompression(Boolean enableGzipHttpCompression);
 
+    abstract Builder setMaxConnections(Integer maxConnections);
+
+    abstract Integer maxConnections();
+
     abstract Builder setRootCaCertificate(byte[] certificate);
 
     abstract byte[] rootCaCertificate();
@@ -314,6 +322,20 @@ public abstract class HttpEventPublisher {
       return setMaxElapsedMillis(maxElapsedMillis);
     }
 
+    /**
+     * Method to set the size of the keep-alive connection pool to the Splunk HEC endpoint, which
+     * bounds how many requests can be executed concurrently. When not set, the pool has at most
+     * {@value DEFAULT_MAX_CONNECTIONS} connection and its per-route limit is left unchanged.
+     *
+     * @param maxConnections max number of pooled connections.
+     * @return {@link Builder}
+     */
+    public Builder withMaxConnections(Integer maxConnections) {
+      checkNotNull(maxConnections, "withMaxConnections(maxConnections) called with null input.");
+      checkArgument(maxConnections > 0, "maxConnections must be positive.");
+      return setMaxConnections(maxConnections);
+    }
+
     /**
      * Validates and builds a {@link HttpEventPublisher} object.
      *
@@ -342,8 +364,7 @@ public abstract class HttpEventPublisher {
       }
 
       CloseableHttpClient httpClient =
-          getHttpClient(
-              DEFAULT_MAX_CONNECTIONS, disableCertificateValidation(), rootCaCertificate());
+          getHttpClient(maxConnections(), disableCertificateValidation(), rootCaCertificate());
 
       setTransport(new ApacheHttpTransport(httpClient));
       setRequestFactory(transport().createRequestFactory());
@@ -367,11 +388,13 @@ public abstract class HttpEventPublisher {
      * Utility method to create a {@link CloseableHttpClient} to make http POSTs against Splunk's
      * HEC.
      *
-     * @param maxConnections max number of parallel connections.
+     * @param maxConnections max number of parallel connections, or null for the default pool.
      * @param disableCertificateValidation should disable certificate validation.
      */
     private CloseableHttpClient getHttpClient(
-        int maxConnections, boolean disableCertificateValidation, byte[] rootCaCertificate)
+        @Nullable Integer maxConnections,
+        boolean disableCertificateValidation,
+        byte[] rootCaCertificate)
         throws NoSuchAlgorithmException,
             KeyStoreException,
             KeyManagementException,
@@ -409,7 +432,13 @@ public abstract class HttpEventPublisher {
         builder.setSSLSocketFactory(connectionSocketFactory);
       }
 
-      builder.setMaxConnTotal(maxConnections);
+      if (maxConnections == null) {
+        builder.setMaxConnTotal(DEFAULT_MAX_CONNECTIONS);
+      } else {
+        // All requests go to the same HEC route, so the per-route limit must match the total.
+        builder.setMaxConnTotal(maxConnections);
+        builder.setMaxConnPerRoute(maxConnections);
+      }
       builder.setDefaultRequestConfig(
           RequestConfig.custom().setCookieSpec(CookieSpecs.STANDARD).build());
 
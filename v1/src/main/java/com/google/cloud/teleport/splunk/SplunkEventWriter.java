@@ -27,6 +27,7 @@ import com.google.common.base.MoreObjects;
 import com.google.common.collect.Lists;
 import com.google.common.net.InetAddresses;
 import com.google.common.net.InternetDomainName;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import java.io.IOException;
@@ -34,7 +35,15 @@ import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.annotation.Nullable;
@@ -54,6 +63,7 @@ import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
 import org.apache.beam.sdk.values.KV;
 import org.joda.time.Duration;
+import org.joda.time.Instant;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -65,6 +75,7 @@ public abstract class SplunkEventWriter extends DoFn<KV<Integer, SplunkEvent>, S
   private static final Boolean DEFAULT_DISABLE_CERTIFICATE_VALIDATION = false;
   private static final Boolean DEFAULT_ENABLE_BATCH_LOGS = true;
   private static final Boolean DEFAULT_ENABLE_GZIP_HTTP_COMPRESSION = true;
+  private static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 1;
   private static final Logger LOG = LoggerFactory.getLogger(SplunkEventWriter.class);
   private static final long DEFAULT_FLUSH_DELAY = 2;
   private static final Counter INPUT_COUNTER =
@@ -108,8 +119,15 @@ public abstract class SplunkEventWriter extends DoFn<KV<Integer, SplunkEvent>, S
   private Boolean disableValidation;
   private Boolean enableBatchLogs;
   private Boolean enableGzipHttpCompression;
+  private Integer maxInFlightRequests;
   private HttpEventPublisher publisher;
 
+  // Only used when more than one request may be in flight. Requests are pipelined over the
+  // publisher's keep-alive connection pool and their outcome is reported in @FinishBundle.
+  private transient ExecutorService executor;
+  private transient Semaphore inFlightRequests;
+  private transient List<PendingRequest> pendingRequests;
+
   private static final Gson GSON =
       new GsonBuilder().setFieldNamingStrategy(f -> f.getName().toLowerCase()).create();
 
@@ -138,6 +156,9 @@ public abstract class SplunkEventWriter extends DoFn<KV<Integer, SplunkEvent>, S
   @Nullable
   abstract ValueProvider<Integer> inputBatchCount();
 
+  @Nullable
+  abstract ValueProvider<Integer> maxInFlightRequests();
+
   @Setup
   public void setup() {
 
@@ -189,6 +210,31 @@ public abstract class SplunkEventWriter extends DoFn<KV<Integer, SplunkEvent>, S
       LOG.info("Disable certificate validation set to: {}", disableValidation);
     }
 
+    // Either user supplied or default maxInFlightRequests.
+    if (maxInFlightRequests == null) {
+
+      if (maxInFlightRequests() != null) {
+        maxInFlightRequests = maxInFlightRequests().get();
+      }
+
+      maxInFlightRequests =
+          MoreObjects.firstNonNull(maxInFlightRequests, DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+      checkArgument(maxInFlightRequests > 0, "maxInFlightRequests must be positive.");
+      LOG.info("Max in-flight requests set to: {}", maxInFlightRequests);
+    }
+
+    if (maxInFlightRequests > 1) {
+      executor =
+          Executors.newFixedThreadPool(
+              maxInFlightRequests,
+              new ThreadFactoryBuilder()
+                  .setNameFormat("splunk-hec-publisher-%d")
+                  .setDaemon(true)
+                  .build());
+      inFlightRequests = new Semaphore(maxInFlightRequests);
+      pendingRequests = new ArrayList<>();
+    }
+
     try {
       HttpEventPublisher.Builder builder =
           HttpEventPublisher.newBuilder()
@@ -197,6 +243,12 @@ public abstract class SplunkEventWriter extends DoFn<KV<Integer, SplunkEvent>, S
               .withDisableCertificateValidation(disableValidation)
               .withEnableGzipHttpCompression(enableGzipHttpCompression);
 
+      // The connection pool is only sized for pipelined requests, so that the default
+      // synchronous writer keeps the pool it always had.
+      if (maxInFlightRequests > 1) {
+        builder.withMaxConnections(maxInFlightRequests);
+      }
+
       if (rootCaCertificatePath() != null && rootCaCertificatePath().get() != null) {
         builder.withRootCaCertificate(GCSUtils.getGcsFileAsBytes(rootCaCertificatePath().get()));
       }
@@ -217,12 +269,12 @@ public abstract class SplunkEventWriter extends DoFn<KV<Integer, SplunkEvent>, S
   @ProcessElement
   public void processElement(
       @Element KV<Integer, SplunkEvent> input,
+      @Timestamp Instant timestamp,
       OutputReceiver<SplunkWriteError> receiver,
       BoundedWindow window,
       @StateId(BUFFER_STATE_NAME) BagState<SplunkEvent> bufferState,
       @StateId(COUNT_STATE_NAME) ValueState<Long> countState,
-      @TimerId(TIME_ID_NAME) Timer timer)
-      throws IOException {
+      @TimerId(TIME_ID_NAME) Timer timer) {
 
     Long count = MoreObjects.<Long>firstNonNull(countState.read(), 0L);
     SplunkEvent event = input.getValue();
@@ -236,27 +288,56 @@ public abstract class SplunkEventWriter extends DoFn<KV<Integer, SplunkEvent>, S
       if (enableBatchLogs) {
         LOG.info("Flushing batch of {} events", count);
       }
-      flush(receiver, bufferState, countState);
+      flush(receiver, bufferState, countState, timestamp, window);
     }
   }
 
   @OnTimer(TIME_ID_NAME)
   public void onExpiry(
+      @Timestamp Instant timestamp,
       OutputReceiver<SplunkWriteError> receiver,
+      BoundedWindow window,
       @StateId(BUFFER_STATE_NAME) BagState<SplunkEvent> bufferState,
-      @StateId(COUNT_STATE_NAME) ValueState<Long> countState)
-      throws IOException {
+      @StateId(COUNT_STATE_NAME) ValueState<Long> countState) {
 
     if (MoreObjects.<Long>firstNonNull(countState.read(), 0L) > 0) {
       if (enableBatchLogs) {
         LOG.info("Flushing window with {} events", countState.read());
       }
-      flush(receiver, bufferState, countState);
+      flush(receiver, bufferState, countState, timestamp, window);
+    }
+  }
+
+  /**
+   * Waits for the batches published asynchronously in this bundle and reports their failures, so
+   * the bundle only commits once HEC acknowledged or rejected every batch.
+   */
+  @FinishBundle
+  public void finishBundle(FinishBundleContext context) {
+    if (pendingRequests == null || pendingRequests.isEmpty()) {
+      return;
+    }
+    try {
+      for (PendingRequest pending : pendingRequests) {
+        handlePublishResult(
+            pending.result.get(),
+            error -> context.output(error, pending.timestamp, pending.window));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for in-flight requests", e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Error publishing events to Splunk", e.getCause());
+    } finally {
+      pendingRequests.clear();
     }
   }
 
   @Teardown
   public void tearDown() {
+    if (this.executor != null) {
+      this.executor.shutdownNow();
+    }
     if (this.publisher != null) {
       try {
         this.publisher.close();
@@ -269,108 +350,168 @@ public abstract class SplunkEventWriter extends DoFn<KV<Integer, SplunkEvent>, S
   }
 
   /**
-   * Utility method to flush a batch of events via {@link HttpEventPublisher}.
+   * Utility method to flush a batch of events via {@link HttpEventPublisher}. With more than one
+   * in-flight request allowed, the batch is handed to the publishing pool and its outcome is
+   * reported when the bundle finishes.
    *
    * @param receiver Receiver to write {@link SplunkWriteError}s to
+   * @param timestamp Timestamp of the {@link SplunkWriteError}s reported asynchronously
+   * @param window Window of the {@link SplunkWriteError}s reported asynchronously
    */
   private void flush(
       OutputReceiver<SplunkWriteError> receiver,
       @StateId(BUFFER_STATE_NAME) BagState<SplunkEvent> bufferState,
-      @StateId(COUNT_STATE_NAME) ValueState<Long> countState)
-      throws IOException {
+      @StateId(COUNT_STATE_NAME) ValueState<Long> countState,
+      Instant timestamp,
+      BoundedWindow window) {
 
     if (!bufferState.isEmpty().read()) {
 
-      HttpResponse response = null;
       List<SplunkEvent> events = Lists.newArrayList(bufferState.read());
-      long startTime = System.nanoTime();
+
+      // States are cleared regardless of write success or failure since we
+      // write failed events to an output PCollection.
+      bufferState.clear();
+      countState.clear();
+
+      if (inFlightRequests == null) {
+        handlePublishResult(publish(events), receiver::output);
+      } else {
+        publishAsync(events, timestamp, window);
+      }
+    }
+  }
+
+  /**
+   * Hands a batch of events to the publishing pool. Blocks while {@code maxInFlightRequests}
+   * requests are outstanding, so a slow HEC endpoint slows down the consumption of input rather
+   * than queueing batches in memory.
+   */
+  private void publishAsync(List<SplunkEvent> events, Instant timestamp, BoundedWindow window) {
+    try {
+      inFlightRequests.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for an in-flight request slot", e);
+    }
+
+    Future<PublishResult> result;
+    try {
+      result =
+          executor.submit(
+              () -> {
+                try {
+                  return publish(events);
+                } finally {
+                  inFlightRequests.release();
+                }
+              });
+    } catch (RejectedExecutionException e) {
+      inFlightRequests.release();
+      throw e;
+    }
+    pendingRequests.add(new PendingRequest(result, timestamp, window));
+  }
+
+  /**
+   * Executes a POST for a batch of events. This only talks to HEC and may run on any thread;
+   * metrics and {@link SplunkWriteError}s are produced from the result by {@link
+   * #handlePublishResult}.
+   */
+  private PublishResult publish(List<SplunkEvent> events) {
+    HttpResponse response = null;
+    long startTime = System.nanoTime();
+    try {
+      // Important to close this response to avoid connection leak.
+      response = publisher.execute(events);
+      if (!response.isSuccessStatusCode()) {
+        return PublishResult.failure(
+            events,
+            nanosToMillis(System.nanoTime() - startTime),
+            response.getStatusCode(),
+            response.parseAsString(),
+            response.getStatusMessage());
+      }
+      return PublishResult.success(events.size(), nanosToMillis(System.nanoTime() - startTime));
+
+    } catch (HttpResponseException e) {
+      return PublishResult.failure(
+          events,
+          nanosToMillis(System.nanoTime() - startTime),
+          e.getStatusCode(),
+          e.getContent(),
+          e.getStatusMessage());
+
+    } catch (IOException ioe) {
+      return PublishResult.failure(
+          events, nanosToMillis(System.nanoTime() - startTime), null, ioe.toString(), null);
+
+    } finally {
+      // We've observed cases where errors at this point can cause the pipeline to keep retrying
+      // the same events over and over (e.g. from Dataflow Runner's Pub/Sub implementation). Since
+      // the events have either been published or wrapped for error handling, we can safely
+      // ignore this error, though there may or may not be a leak of some type depending on
+      // HttpResponse's implementation. However, any potential leak would still happen if we let
+      // the exception fall through, so this isn't considered a major issue.
       try {
-        // Important to close this response to avoid connection leak.
-        response = publisher.execute(events);
-        if (!response.isSuccessStatusCode()) {
-          UNSUCCESSFUL_WRITE_LATENCY_MS.update(nanosToMillis(System.nanoTime() - startTime));
-          FAILED_WRITES.inc(countState.read());
-          int statusCode = response.getStatusCode();
-          if (statusCode >= 400 && statusCode < 500) {
-            INVALID_REQUESTS.inc();
-          } else if (statusCode >= 500 && statusCode < 600) {
-            SERVER_ERROR_REQUESTS.inc();
-          }
-
-          logWriteFailures(
-              countState,
-              response.getStatusCode(),
-              response.parseAsString(),
-              response.getStatusMessage());
-          flushWriteFailures(
-              events, response.getStatusMessage(), response.getStatusCode(), receiver);
-
-        } else {
-          SUCCESSFUL_WRITE_LATENCY_MS.update(nanosToMillis(System.nanoTime() - startTime));
-          SUCCESS_WRITES.inc(countState.read());
-          VALID_REQUESTS.inc();
-          SUCCESSFUL_WRITE_BATCH_SIZE.update(countState.read());
-
-          if (enableBatchLogs) {
-            LOG.info("Successfully wrote {} events", countState.read());
-          }
+        if (response != null) {
+          response.ignore();
         }
+      } catch (IOException e) {
+        LOG.warn(
+            "Error ignoring response from Splunk. Messages should still have published, but there"
+                + " might be a connection leak.",
+            e);
+      }
+    }
+  }
 
-      } catch (HttpResponseException e) {
-        UNSUCCESSFUL_WRITE_LATENCY_MS.update(nanosToMillis(System.nanoTime() - startTime));
-        FAILED_WRITES.inc(countState.read());
-        int statusCode = e.getStatusCode();
-        if (statusCode >= 400 && statusCode < 500) {
-          INVALID_REQUESTS.inc();
-        } else if (statusCode >= 500 && statusCode < 600) {
-          SERVER_ERROR_REQUESTS.inc();
-        }
+  /**
+   * Updates the write metrics for a published batch and un-batches failed events into {@link
+   * SplunkWriteError}s.
+   *
+   * @param result outcome of the POST
+   * @param errors Consumer of the {@link SplunkWriteError}s
+   */
+  private void handlePublishResult(PublishResult result, Consumer<SplunkWriteError> errors) {
+    if (result.success) {
+      SUCCESSFUL_WRITE_LATENCY_MS.update(result.latencyMillis);
+      SUCCESS_WRITES.inc(result.eventCount);
+      VALID_REQUESTS.inc();
+      SUCCESSFUL_WRITE_BATCH_SIZE.update(result.eventCount);
 
-        logWriteFailures(countState, e.getStatusCode(), e.getContent(), e.getStatusMessage());
-        flushWriteFailures(events, e.getStatusMessage(), e.getStatusCode(), receiver);
-
-      } catch (IOException ioe) {
-        UNSUCCESSFUL_WRITE_LATENCY_MS.update(nanosToMillis(System.nanoTime() - startTime));
-        FAILED_WRITES.inc(countState.read());
-        INVALID_REQUESTS.inc();
-
-        logWriteFailures(countState, 0, ioe.toString(), null);
-        flushWriteFailures(events, ioe.toString(), null, receiver);
-
-      } finally {
-        // States are cleared regardless of write success or failure since we
-        // write failed events to an output PCollection.
-        bufferState.clear();
-        countState.clear();
-
-        // We've observed cases where errors at this point can cause the pipeline to keep retrying
-        // the same events over and over (e.g. from Dataflow Runner's Pub/Sub implementation). Since
-        // the events have either been published or wrapped for error handling, we can safely
-        // ignore this error, though there may or may not be a leak of some type depending on
-        // HttpResponse's implementation. However, any potential leak would still happen if we let
-        // the exception fall through, so this isn't considered a major issue.
-        try {
-          if (response != null) {
-            response.ignore();
-          }
-        } catch (IOException e) {
-          LOG.warn(
-              "Error ignoring response from Splunk. Messages should still have published, but there"
-                  + " might be a connection leak.",
-              e);
-        }
+      if (enableBatchLogs) {
+        LOG.info("Successfully wrote {} events", result.eventCount);
       }
+      return;
+    }
+
+    UNSUCCESSFUL_WRITE_LATENCY_MS.update(result.latencyMillis);
+    FAILED_WRITES.inc(result.eventCount);
+    if (result.statusCode == null) {
+      // The request did not get a response.
+      INVALID_REQUESTS.inc();
+      logWriteFailures(result.eventCount, 0, result.content, null);
+      flushWriteFailures(result.failedEvents, result.content, null, errors);
+      return;
     }
+
+    int statusCode = result.statusCode;
+    if (statusCode >= 400 && statusCode < 500) {
+      INVALID_REQUESTS.inc();
+    } else if (statusCode >= 500 && statusCode < 600) {
+      SERVER_ERROR_REQUESTS.inc();
+    }
+
+    logWriteFailures(result.eventCount, statusCode, result.content, result.statusMessage);
+    flushWriteFailures(result.failedEvents, result.statusMessage, statusCode, errors);
   }
 
   /** Utility method to log write failures. */
   private void logWriteFailures(
-      @StateId(COUNT_STATE_NAME) ValueState<Long> countState,
-      int statusCode,
-      String content,
-      String statusMessage) {
+      long eventCount, int statusCode, String content, String statusMessage) {
     if (enableBatchLogs) {
-      LOG.error("Failed to write {} events", countState.read());
+      LOG.error("Failed to write {} events", eventCount);
     }
     LOG.error(
         "Error writing to Splunk. StatusCode: {}, content: {}, StatusMessage: {}",
@@ -385,13 +526,13 @@ public abstract class SplunkEventWriter extends DoFn<KV<Integer, SplunkEvent>, S
    * @param events List of {@link SplunkEvent}s to un-batch
    * @param statusMessage Status message to be added to {@link SplunkWriteError}
    * @param statusCode Status code to be added to {@link SplunkWriteError}
-   * @param receiver Receiver to write {@link SplunkWriteError}s to
+   * @param errors Consumer of the {@link SplunkWriteError}s
    */
   private static void flushWriteFailures(
       List<SplunkEvent> events,
       String statusMessage,
       Integer statusCode,
-      OutputReceiver<SplunkWriteError> receiver) {
+      Consumer<SplunkWriteError> errors) {
 
     checkNotNull(events, "SplunkEvents cannot be null.");
 
@@ -409,7 +550,7 @@ public abstract class SplunkEventWriter extends DoFn<KV<Integer, SplunkEvent>, S
       String payload = GSON.toJson(event);
       SplunkWriteError error = builder.withPayload(payload).build();
 
-      receiver.output(error);
+      errors.accept(error);
     }
   }
 
@@ -438,6 +579,68 @@ public abstract class SplunkEventWriter extends DoFn<KV<Integer, SplunkEvent>, S
     return Math.round(((double) ns) / 1e6);
   }
 
+  /** Outcome of a POST to HEC. Only failed batches keep their events, to report them. */
+  private static final class PublishResult {
+    private final boolean success;
+    private final long eventCount;
+    private final long latencyMillis;
+    @Nullable private final Integer statusCode;
+    @Nullable private final String content;
+    @Nullable private final String statusMessage;
+    @Nullable private final List<SplunkEvent> failedEvents;
+
+    private PublishResult(
+        boolean success,
+        long eventCount,
+        long latencyMillis,
+        @Nullable Integer statusCode,
+        @Nullable String content,
+        @Nullable String statusMessage,
+        @Nullable List<SplunkEvent> failedEvents) {
+      this.success = success;
+      this.eventCount = eventCount;
+      this.latencyMillis = latencyMillis;
+      this.statusCode = statusCode;
+      this.content = content;
+      this.statusMessage = statusMessage;
+      this.failedEvents = failedEvents;
+    }
+
+    static PublishResult success(long eventCount, long latencyMillis) {
+      return new PublishResult(true, eventCount, latencyMillis, null, null, null, null);
+    }
+
+    /** A null status code means the request failed without a response. */
+    static PublishResult failure(
+        List<SplunkEvent> events,
+        long latencyMillis,
+        @Nullable Integer statusCode,
+        String content,
+        @Nullable String statusMessage) {
+      return new PublishResult(
+          false,
+          events.size(),
+          latencyMillis,
+          statusCode,
+          content,
+          statusCode == null ? content : statusMessage,
+          events);
+    }
+  }
+
+  /** A batch handed to the publishing pool, along with where to report its failures. */
+  private static final class PendingRequest {
+    private final Future<PublishResult> result;
+    private final Instant timestamp;
+    private final BoundedWindow window;
+
+    private PendingRequest(Future<PublishResult> result, Instant timestamp, BoundedWindow window) {
+      this.result = result;
+      this.timestamp = timestamp;
+      this.window = window;
+    }
+  }
+
   @AutoValue.Builder
   abstract static class Builder {
 
@@ -460,6 +663,8 @@ public abstract class SplunkEventWriter extends DoFn<KV<Integer, SplunkEvent>, S
 
     abstract Builder setInputBatchCount(ValueProvider<Integer> inputBatchCount);
 
+    abstract Builder setMaxInFlightRequests(ValueProvider<Integer> maxInFlightRequests);
+
     abstract SplunkEventWriter autoBuild();
 
     /**
@@ -520,6 +725,19 @@ public abstract class SplunkEventWriter extends DoFn<KV<Integer, SplunkEvent>, S
       return setInputBatchCount(inputBatchCount);
     }
 
+    /**
+     * Method to set the maximum number of concurrent requests to HEC per writer. With a value above
+     * 1, batches are published asynchronously over a pool of keep-alive connections of that size.
+     * Defaults to {@value DEFAULT_MAX_IN_FLIGHT_REQUESTS}, which publishes each batch
+     * synchronously.
+     *
+     * @param maxInFlightRequests for pipelining post requests.
+     * @return {@link Builder}
+     */
+    public Builder withMaxInFlightRequests(ValueProvider<Integer> maxInFlightRequests) {
+      return setMaxInFlightRequests(maxInFlightRequests);
+    }
+
     /**
      * Method to disable certificate validation.
      *
@@ -15,29 +15,35 @@
  */
 package com.google.cloud.teleport.templates;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import com.google.cloud.teleport.metadata.Template;
 import com.google.cloud.teleport.metadata.TemplateCategory;
 import com.google.cloud.teleport.metadata.TemplateParameter;
 import com.google.cloud.teleport.metadata.TemplateParameter.TemplateEnumOption;
 import com.google.cloud.teleport.templates.BulkCompressor.Options;
+import com.google.cloud.teleport.templates.common.BlockCompression;
+import com.google.cloud.teleport.templates.common.BlockCompression.BlockExecutor;
+import com.google.cloud.teleport.templates.common.BlockCompression.Codec;
 import com.google.common.collect.ImmutableList;
-import com.google.common.io.ByteStreams;
 import java.io.IOException;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import javax.annotation.Nullable;
 import org.apache.beam.sdk.Pipeline;
 import org.apache.beam.sdk.PipelineResult;
-import org.apache.beam.sdk.io.Compression;
 import org.apache.beam.sdk.io.FileIO;
 import org.apache.beam.sdk.io.FileSystems;
 import org.apache.beam.sdk.io.TextIO;
 import org.apache.beam.sdk.io.fs.MatchResult;
 import org.apache.beam.sdk.io.fs.ResolveOptions.StandardResolveOptions;
 import org.apache.beam.sdk.io.fs.ResourceId;
+import org.apache.beam.sdk.options.Default;
 import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.options.PipelineOptionsFactory;
 import org.apache.beam.sdk.options.Validation.Required;
 import org.apache.beam.sdk.options.ValueProvider;
+import org.apache.beam.sdk.options.ValueProvider.StaticValueProvider;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.MapElements;
 import org.apache.beam.sdk.transforms.ParDo;
@@ -54,10 +60,16 @@ import org.slf4j.LoggerFactory;
  * The {@link BulkCompressor} is a batch pipeline that compresses files on matched by an input file
  * pattern and outputs them to a specified file location. This pipeline can be useful when you need
  * to compress large batches of files as part of a periodic archival process. The supported
- * compression modes are: <code>BZIP2</code>, <code>DEFLATE</code>, <code>GZIP</code>. Files output
- * to the destination location will follow a naming schema of original filename appended with the
- * compression mode extension. The extensions appended will be one of: <code>.bzip2</code>, <code>
- * .deflate</code>, <code>.gz</code> as determined by the compression type.
+ * compression modes are: <code>BZIP2</code>, <code>DEFLATE</code>, <code>GZIP</code>, <code>ZSTD
+ * </code>, <code>LZ4</code>. Files output to the destination location will follow a naming schema
+ * of original filename appended with the compression mode extension. The extensions appended will
+ * be one of: <code>.bz2</code>, <code>.deflate</code>, <code>.gz</code>, <code>.zst</code>, <code>
+ * .lz4
+ * </code> as determined by the compression type.
+ *
+ * <p>Large files can be compressed in parallel by setting a block size. Each block is compressed on
+ * its own thread into a complete gzip member, bzip2 stream, zstd frame or lz4 frame, which standard
+ * tools read back as a single stream. See {@link BlockCompression}.
  *
  * <p>Any errors which occur during the compression process will be output to the failure file in
  * CSV format of filename, error message. If no failures occur during execution, the error file will
@@ -67,7 +79,7 @@ import org.slf4j.LoggerFactory;
  *
  * <ul>
  *   <li>The compression must be in one of the following formats: <code>BZIP2</code>, <code>DEFLATE
- *       </code>, <code>GZIP</code>, <code>ZIP</code>.
+ *       </code>, <code>GZIP</code>, <code>ZSTD</code>, <code>LZ4</code>.
  *   <li>The output directory must exist prior to pipeline execution.
  * </ul>
  *
@@ -82,7 +94,7 @@ import org.slf4j.LoggerFactory;
     description = {
       "The Bulk Compress Cloud Storage Files template is a batch pipeline that compresses files on Cloud Storage to a specified location. "
           + "This template can be useful when you need to compress large batches of files as part of a periodic archival process. "
-          + "The supported compression modes are: BZIP2, DEFLATE, GZIP. Files output to the destination location will follow a naming schema of original filename appended with the compression mode extension. The extensions appended will be one of: .bzip2, .deflate, .gz.",
+          + "The supported compression modes are: BZIP2, DEFLATE, GZIP, ZSTD, LZ4. Files output to the destination location will follow a naming schema of original filename appended with the compression mode extension. The extensions appended will be one of: .bz2, .deflate, .gz, .zst, .lz4.",
       "Any errors which occur during the compression process will be output to the failure file in CSV format of filename, error message. "
           + "If no failures occur while running the pipeline, the error file will still be created but will contain no error records."
     },
@@ -91,7 +103,7 @@ import org.slf4j.LoggerFactory;
         "https://cloud.google.com/dataflow/docs/guides/templates/provided/bulk-compress-cloud-storage",
     contactInformation = "https://cloud.google.com/support",
     requirements = {
-      "The compression must be in one of the following formats: `BZIP2`, `DEFLATE`, `GZIP`.",
+      "The compression must be in one of the following formats: `BZIP2`, `DEFLATE`, `GZIP`, `ZSTD`, `LZ4`.",
       "The output directory must exist prior to running the pipeline."
     })
 public class BulkCompressor {
@@ -153,15 +165,17 @@ public class BulkCompressor {
         enumOptions = {
           @TemplateEnumOption("BZIP2"),
           @TemplateEnumOption("DEFLATE"),
-          @TemplateEnumOption("GZIP")
+          @TemplateEnumOption("GZIP"),
+          @TemplateEnumOption("ZSTD"),
+          @TemplateEnumOption("LZ4")
         },
         description = "Compression",
         helpText =
-            "The compression algorithm used to compress the matched files. Valid algorithms: BZIP2, DEFLATE, GZIP")
+            "The compression algorithm used to compress the matched files. Valid algorithms: BZIP2, DEFLATE, GZIP, ZSTD, LZ4")
     @Required
-    ValueProvider<Compression> getCompression();
+    ValueProvider<Codec> getCompression();
 
-    void setCompression(ValueProvider<Compression> value);
+    void setCompression(ValueProvider<Codec> value);
 
     @TemplateParameter.Text(
         order = 5,
@@ -170,11 +184,38 @@ public class BulkCompressor {
         regexes = {"^[A-Za-z_0-9.]*"},
         description = "Output filename suffix",
         helpText =
-            "Output filename suffix of the files to write. Defaults to .bzip2, .deflate or .gz depending on the compression algorithm.")
+            "Output filename suffix of the files to write. Defaults to .bz2, .deflate, .gz, .zst or .lz4 depending on the compression algorithm.")
     @Required
     ValueProvider<String> getOutputFilenameSuffix();
 
     void setOutputFilenameSuffix(ValueProvider<String> value);
+
+    @TemplateParameter.Integer(
+        order = 6,
+        optional = true,
+        description = "Parallel compression block size in MB",
+        helpText =
+            "When greater than 0, files are split into blocks of this many megabytes, at most 2047, which are compressed in parallel, "
+                + "and written as concatenated gzip members, bzip2 streams, zstd frames or lz4 frames that standard tools "
+                + "read as a single stream. DEFLATE output is always written as a single stream. Defaults to 0, which "
+                + "compresses each file as a single stream.",
+        example = "16")
+    @Default.Integer(0)
+    ValueProvider<Integer> getBlockSizeMb();
+
+    void setBlockSizeMb(ValueProvider<Integer> value);
+
+    @TemplateParameter.Integer(
+        order = 7,
+        optional = true,
+        description = "Compression threads",
+        helpText =
+            "The number of threads on each worker compressing the blocks of files when `blockSizeMb` is set, shared by "
+                + "all of the files compressed on the worker. Defaults to the number of available processors.")
+    @Default.Integer(0)
+    ValueProvider<Integer> getCompressionThreads();
+
+    void setCompressionThreads(ValueProvider<Integer> value);
   }
 
   /**
@@ -201,6 +242,10 @@ public class BulkCompressor {
    * @return The pipeline result.
    */
   public static PipelineResult run(Options options) {
+    // Fail at launch rather than on the workers when the block size is already known.
+    if (options.getBlockSizeMb() != null && options.getBlockSizeMb().isAccessible()) {
+      Compressor.blockSizeBytes(options.getBlockSizeMb().get());
+    }
 
     // Create the pipeline
     Pipeline pipeline = Pipeline.create(options);
@@ -216,7 +261,12 @@ public class BulkCompressor {
             .apply("Match File(s)", FileIO.match().filepattern(options.getInputFilePattern()))
             .apply(
                 "Compress File(s)",
-                ParDo.of(new Compressor(options.getOutputDirectory(), options.getCompression()))
+                ParDo.of(
+                        new Compressor(
+                            options.getOutputDirectory(),
+                            options.getCompression(),
+                            options.getBlockSizeMb(),
+                            options.getCompressionThreads()))
                     .withOutputTags(COMPRESSOR_MAIN_OUT, TupleTagList.of(DEADLETTER_TAG)));
 
     compressOut
@@ -239,22 +289,70 @@ public class BulkCompressor {
    * The {@link Compressor} accepts {@link MatchResult.Metadata} from the FileSystems API and
    * compresses each file to an output location. Any compression failures which occur during
    * execution will be output to a separate output for further processing.
+   *
+   * <p>When a block size is set, the blocks of each file are compressed in parallel on a thread
+   * pool shared by all of the {@link DoFn} instances of the worker.
    */
   @SuppressWarnings("serial")
   public static class Compressor extends DoFn<MatchResult.Metadata, String> {
 
+    private static final int BYTES_PER_MB = 1024 * 1024;
+
+    /** The largest block size in megabytes whose blocks fit in a byte array. */
+    static final int MAX_BLOCK_SIZE_MB = Integer.MAX_VALUE / BYTES_PER_MB;
+
     private final ValueProvider<String> destinationLocation;
-    private final ValueProvider<Compression> compressionValue;
+    private final ValueProvider<Codec> compressionValue;
+    private final ValueProvider<Integer> blockSizeMb;
+    private final ValueProvider<Integer> compressionThreads;
+
+    private transient BlockExecutor executor;
+    private transient int blockSize;
 
-    Compressor(ValueProvider<String> destinationLocation, ValueProvider<Compression> compression) {
+    Compressor(ValueProvider<String> destinationLocation, ValueProvider<Codec> compression) {
+      this(destinationLocation, compression, StaticValueProvider.of(0), StaticValueProvider.of(0));
+    }
+
+    Compressor(
+        ValueProvider<String> destinationLocation,
+        ValueProvider<Codec> compression,
+        ValueProvider<Integer> blockSizeMb,
+        ValueProvider<Integer> compressionThreads) {
       this.destinationLocation = destinationLocation;
       this.compressionValue = compression;
+      this.blockSizeMb = blockSizeMb;
+      this.compressionThreads = compressionThreads;
+    }
+
+    @Setup
+    public void setup() {
+      blockSize = blockSizeBytes(blockSizeMb.get());
+      executor =
+          BlockCompression.sharedExecutor(BlockCompression.threadCount(compressionThreads.get()));
+    }
+
+    /**
+     * Returns the block size in bytes for a block size in megabytes, or 0 to compress each file as
+     * a single stream.
+     *
+     * @throws IllegalArgumentException if the blocks would not fit in a byte array
+     */
+    static int blockSizeBytes(@Nullable Integer blockSizeMb) {
+      if (blockSizeMb == null || blockSizeMb <= 0) {
+        return 0;
+      }
+      checkArgument(
+          blockSizeMb <= MAX_BLOCK_SIZE_MB,
+          "blockSizeMb must be at most %s, but was %s",
+          MAX_BLOCK_SIZE_MB,
+          blockSizeMb);
+      return blockSizeMb * BYTES_PER_MB;
     }
 
     @ProcessElement
     public void processElement(ProcessContext context) {
       ResourceId inputFile = context.element().resourceId();
-      Compression compression = compressionValue.get();
+      Codec compression = compressionValue.get();
       Options options = context.getPipelineOptions().as(Options.class);
       String outputFilename;
 
@@ -278,11 +376,10 @@ public class BulkCompressor {
 
       // Perform the copy of the compressed channel to the destination.
       try (ReadableByteChannel readerChannel = FileSystems.open(inputFile)) {
-        try (WritableByteChannel writerChannel =
-            compression.writeCompressed(FileSystems.create(tempFile, MimeTypes.BINARY))) {
+        try (WritableByteChannel writerChannel = FileSystems.create(tempFile, MimeTypes.BINARY)) {
 
-          // Execute the copy to the temporary file
-          ByteStreams.copy(readerChannel, writerChannel);
+          // Execute the compression to the temporary file
+          BlockCompression.compress(compression, readerChannel, writerChannel, blockSize, executor);
         }
 
         // Rename the temporary file to the output file
@@ -19,6 +19,9 @@ import com.google.cloud.teleport.metadata.Template;
 import com.google.cloud.teleport.metadata.TemplateCategory;
 import com.google.cloud.teleport.metadata.TemplateParameter;
 import com.google.cloud.teleport.templates.BulkDecompressor.Options;
+import com.google.cloud.teleport.templates.common.BlockCompression;
+import com.google.cloud.teleport.templates.common.BlockCompression.BlockExecutor;
+import com.google.cloud.teleport.templates.common.BlockCompression.Codec;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.io.ByteStreams;
@@ -28,6 +31,7 @@ import java.io.StringWriter;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
@@ -41,10 +45,12 @@ import org.apache.beam.sdk.io.fs.MatchResult;
 import org.apache.beam.sdk.io.fs.MoveOptions;
 import org.apache.beam.sdk.io.fs.ResolveOptions.StandardResolveOptions;
 import org.apache.beam.sdk.io.fs.ResourceId;
+import org.apache.beam.sdk.options.Default;
 import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.options.PipelineOptionsFactory;
 import org.apache.beam.sdk.options.Validation.Required;
 import org.apache.beam.sdk.options.ValueProvider;
+import org.apache.beam.sdk.options.ValueProvider.StaticValueProvider;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.MapElements;
 import org.apache.beam.sdk.transforms.ParDo;
@@ -100,6 +106,9 @@ import org.slf4j.LoggerFactory;
  * gs://docs-demo/compressedFile.gz, File is malformed or not compressed in BZIP2 format.
  * </pre>
  *
+ * <p>zstd and lz4 files, and gzip files written in blocks by {@link BulkCompressor}, are
+ * decompressed in parallel, one frame per thread. See {@link BlockCompression}.
+ *
  * <p>Check out <a
  * href="https://github.com/GoogleCloudPlatform/DataflowTemplates/blob/main/v1/README_Bulk_Decompress_GCS_Files.md">README</a>
  * for instructions on how to use or modify this template.
@@ -111,7 +120,7 @@ import org.slf4j.LoggerFactory;
     description = {
       "The Bulk Decompress Cloud Storage Files template is a batch pipeline that decompresses files on Cloud Storage to a specified location. "
           + "This functionality is useful when you want to use compressed data to minimize network bandwidth costs during a migration, but would like to maximize analytical processing speed by operating on uncompressed data after migration. "
-          + "The pipeline automatically handles multiple compression modes during a single run and determines the decompression mode to use based on the file extension (.bzip2, .deflate, .gz, .zip).",
+          + "The pipeline automatically handles multiple compression modes during a single run and determines the decompression mode to use based on the file extension (.bzip2, .deflate, .gz, .zip, .zst, .lz4).",
       "Note: The Bulk Decompress Cloud Storage Files template is intended for single compressed files and not compressed folders."
     },
     optionsClass = Options.class,
@@ -128,14 +137,17 @@ public class BulkDecompressor {
   private static final Logger LOG = LoggerFactory.getLogger(BulkDecompressor.class);
 
   /**
-   * A list of the {@link Compression} values excluding {@link Compression#AUTO} and {@link
-   * Compression#UNCOMPRESSED}.
+   * The names of the {@link Compression} values excluding {@link Compression#AUTO} and {@link
+   * Compression#UNCOMPRESSED}, and of the {@link Codec} values.
    */
   @VisibleForTesting
-  static final Set<Compression> SUPPORTED_COMPRESSIONS =
-      Stream.of(Compression.values())
-          .filter(value -> value != Compression.AUTO && value != Compression.UNCOMPRESSED)
-          .collect(Collectors.toSet());
+  static final Set<String> SUPPORTED_COMPRESSIONS =
+      Stream.concat(
+              Stream.of(Compression.values())
+                  .filter(value -> value != Compression.AUTO && value != Compression.UNCOMPRESSED)
+                  .map(Compression::name),
+              Stream.of(Codec.values()).map(Codec::name))
+          .collect(Collectors.toCollection(TreeSet::new));
 
   /** The error msg given when the pipeline matches a file but cannot determine the compression. */
   @VisibleForTesting
@@ -192,6 +204,19 @@ public class BulkDecompressor {
     ValueProvider<String> getOutputFailureFile();
 
     void setOutputFailureFile(ValueProvider<String> value);
+
+    @TemplateParameter.Integer(
+        order = 4,
+        optional = true,
+        description = "Decompression threads",
+        helpText =
+            "The number of threads on each worker decompressing the frames of zstd, lz4 or block gzip files in "
+                + "parallel, shared by all of the files decompressed on the worker. Defaults to the number of available "
+                + "processors.")
+    @Default.Integer(0)
+    ValueProvider<Integer> getDecompressionThreads();
+
+    void setDecompressionThreads(ValueProvider<Integer> value);
   }
 
   /**
@@ -236,7 +261,9 @@ public class BulkDecompressor {
             .apply("MatchFile(s)", FileIO.match().filepattern(options.getInputFilePattern()))
             .apply(
                 "DecompressFile(s)",
-                ParDo.of(new Decompress(options.getOutputDirectory()))
+                ParDo.of(
+                        new Decompress(
+                            options.getOutputDirectory(), options.getDecompressionThreads()))
                     .withOutputTags(DECOMPRESS_MAIN_OUT_TAG, TupleTagList.of(DEADLETTER_TAG)));
 
     decompressOut
@@ -277,15 +304,31 @@ public class BulkDecompressor {
 
   /**
    * Performs the decompression of an object on Google Cloud Storage and uploads the decompressed
-   * object back to a specified destination location.
+   * object back to a specified destination location. Splittable inputs are decompressed in parallel
+   * on a thread pool shared by all of the {@link DoFn} instances of the worker.
    */
   @SuppressWarnings("serial")
   public static class Decompress extends DoFn<MatchResult.Metadata, String> {
 
     private final ValueProvider<String> destinationLocation;
+    private final ValueProvider<Integer> decompressionThreads;
+
+    private transient BlockExecutor executor;
 
     Decompress(ValueProvider<String> destinationLocation) {
+      this(destinationLocation, StaticValueProvider.of(0));
+    }
+
+    Decompress(
+        ValueProvider<String> destinationLocation, ValueProvider<Integer> decompressionThreads) {
       this.destinationLocation = destinationLocation;
+      this.decompressionThreads = decompressionThreads;
+    }
+
+    @Setup
+    public void setup() {
+      executor =
+          BlockCompression.sharedExecutor(BlockCompression.threadCount(decompressionThreads.get()));
     }
 
     @ProcessElement
@@ -293,7 +336,8 @@ public class BulkDecompressor {
       ResourceId inputFile = context.element().resourceId();
 
       // Output a record to the failure file if the file doesn't match a known compression.
-      if (!Compression.AUTO.isCompressed(inputFile.toString())) {
+      if (!Compression.AUTO.isCompressed(inputFile.toString())
+          && Codec.detect(inputFile.toString()) == null) {
         String errorMsg =
             String.format(UNCOMPRESSED_ERROR_MSG, inputFile.toString(), SUPPORTED_COMPRESSIONS);
 
@@ -331,14 +375,19 @@ public class BulkDecompressor {
               Files.getFileExtension(inputFile.toString()) + "-temp-" + outputFilename,
               StandardResolveOptions.RESOLVE_FILE);
 
-      // Resolve the compression
+      // Resolve the compression, preferring the codecs which can be decompressed in parallel.
+      Codec codec = Codec.detect(inputFile.toString());
       Compression compression = Compression.detect(inputFile.toString());
+      String compressionName = codec != null ? codec.name() : compression.name();
 
       // Perform the copy of the decompressed channel into the destination.
-      try (ReadableByteChannel readerChannel =
-          compression.readDecompressed(FileSystems.open(inputFile))) {
+      try (ReadableByteChannel readerChannel = FileSystems.open(inputFile)) {
         try (WritableByteChannel writerChannel = FileSystems.create(tempFile, MimeTypes.TEXT)) {
-          ByteStreams.copy(readerChannel, writerChannel);
+          if (codec != null) {
+            BlockCompression.decompress(codec, readerChannel, writerChannel, executor);
+          } else {
+            ByteStreams.copy(compression.readDecompressed(readerChannel), writerChannel);
+          }
         }
 
         // Rename the temp file to the output file.
@@ -350,7 +399,7 @@ public class BulkDecompressor {
         String msg = e.getMessage();
 
         LOG.error("Error occurred during decompression of {}", inputFile.toString(), e);
-        throw new IOException(sanitizeDecompressionErrorMsg(msg, inputFile, compression));
+        throw new IOException(sanitizeDecompressionErrorMsg(msg, inputFile, compressionName));
       }
 
       return outputFile;
@@ -365,17 +414,17 @@ public class BulkDecompressor {
      *
      * @param errorMsg The error message thrown during decompression.
      * @param inputFile The input file which failed decompression.
-     * @param compression The compression mode used during decompression.
+     * @param compressionName The name of the compression mode used during decompression.
      * @return The sanitized error message. If the error was not from a malformed file, the same
      *     error message passed will be returned (if not null) or an empty string will be returned
      *     (if null).
      */
     private String sanitizeDecompressionErrorMsg(
-        @Nullable String errorMsg, ResourceId inputFile, Compression compression) {
+        @Nullable String errorMsg, ResourceId inputFile, String compressionName) {
       if (errorMsg != null
           && (errorMsg.contains("not in the BZip2 format")
               || errorMsg.contains("incorrect header check"))) {
-        errorMsg = String.format(MALFORMED_ERROR_MSG, inputFile.toString(), compression);
+        errorMsg = String.format(MALFORMED_ERROR_MSG, inputFile.toString(), compressionName);
       }
 
       return errorMsg == null ? "" : errorMsg;
@@ -252,6 +252,7 @@ public class PubSubToSplunk {
                     .withRootCaCertificatePath(options.getRootCaCertificatePath())
                     .withEnableBatchLogs(options.getEnableBatchLogs())
                     .withEnableGzipHttpCompression(options.getEnableGzipHttpCompression())
+                    .withMaxInFlightRequests(options.getMaxInFlightRequests())
                     .build());
 
     // 5a) Wrap write failures into a FailsafeElement.
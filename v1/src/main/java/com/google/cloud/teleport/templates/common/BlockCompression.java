@@ -0,0 +1,701 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.templates.common;
+
+import com.github.luben.zstd.Zstd;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
+import org.apache.beam.sdk.io.Compression;
+import org.apache.commons.codec.digest.XXHash32;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+
+/**
+ * Block-parallel compression and decompression for the bulk compression templates.
+ *
+ * <p>When compressing, the input is split into fixed-size blocks which are compressed independently
+ * on a thread pool and written in order. Each block becomes a complete gzip member, bzip2 stream,
+ * zstd frame or lz4 frame, and the concatenation of those is read as a single stream by gzip,
+ * bzip2, zstd and lz4 alike. DEFLATE output is zlib-wrapped, which cannot be concatenated, so it is
+ * always written as a single stream.
+ *
+ * <p>When decompressing, zstd and lz4 inputs are split on frame boundaries by walking the frame and
+ * block headers, and the frames are decompressed in parallel. Each frame is held in memory while it
+ * is decompressed, so only frames which declare a content size of at most {@link
+ * #MAX_PARALLEL_FRAME_SIZE} are; the input is streamed from the first frame which does not. The
+ * frames written here declare their content size. A gzip member does not record its compressed
+ * length, so the gzip members written here carry it in a {@value #GZIP_SUBFIELD_ID} extra subfield;
+ * gzip inputs without it, and bzip2 and DEFLATE inputs, are decompressed on the calling thread.
+ */
+public final class BlockCompression {
+
+  /** The compression codecs supported by the bulk compression templates. */
+  public enum Codec {
+    BZIP2(Compression.BZIP2, true),
+    DEFLATE(Compression.DEFLATE, false),
+    GZIP(Compression.GZIP, true),
+    ZSTD(Compression.ZSTD, true),
+    LZ4(null, true);
+
+    /** The Beam compression implementing this codec, or null if it is implemented here. */
+    @Nullable private final Compression compression;
+
+    /** Whether concatenated outputs of this codec are read back as a single stream. */
+    private final boolean concatenable;
+
+    Codec(@Nullable Compression compression, boolean concatenable) {
+      this.compression = compression;
+      this.concatenable = concatenable;
+    }
+
+    /** Returns the file extension of this codec, including the leading dot. */
+    public String getSuggestedSuffix() {
+      return compression == null ? ".lz4" : compression.getSuggestedSuffix();
+    }
+
+    /** Returns whether outputs of this codec can be compressed in independent blocks. */
+    public boolean supportsBlocks() {
+      return concatenable;
+    }
+
+    /** Returns a channel which compresses the bytes written to it into {@code channel}. */
+    public WritableByteChannel writeCompressed(WritableByteChannel channel) throws IOException {
+      if (compression == null) {
+        return Channels.newChannel(
+            new FramedLZ4CompressorOutputStream(Channels.newOutputStream(channel)));
+      }
+      return compression.writeCompressed(channel);
+    }
+
+    /** Returns a channel which decompresses the bytes read from {@code channel}. */
+    public ReadableByteChannel readDecompressed(ReadableByteChannel channel) throws IOException {
+      if (compression == null) {
+        return Channels.newChannel(
+            new FramedLZ4CompressorInputStream(Channels.newInputStream(channel), true));
+      }
+      return compression.readDecompressed(channel);
+    }
+
+    /** Returns the codec matching the extension of {@code filename}, or null if none does. */
+    @Nullable
+    public static Codec detect(String filename) {
+      for (Codec codec : values()) {
+        if (filename.endsWith(codec.getSuggestedSuffix())) {
+          return codec;
+        }
+      }
+      return null;
+    }
+  }
+
+  /** The gzip extra subfield holding the total length of a member written by this class. */
+  static final String GZIP_SUBFIELD_ID = "BL";
+
+  private static final int GZIP_FEXTRA = 0x04;
+  private static final int GZIP_HEADER_LENGTH = 10;
+  private static final int GZIP_SUBFIELD_LENGTH = 8;
+
+  /** The largest content size of a zstd or lz4 frame which is decompressed in parallel. */
+  static final long MAX_PARALLEL_FRAME_SIZE = 64L << 20;
+
+  /** The longest zstd or lz4 frame header, from the magic number to the content size. */
+  private static final int MAX_FRAME_HEADER_LENGTH = 32;
+
+  private static final int LZ4_CONTENT_SIZE_FLAG = 0x08;
+
+  private static final int ZSTD_MAGIC = 0xFD2FB528;
+  private static final int LZ4_MAGIC = 0x184D2204;
+  private static final int SKIPPABLE_MAGIC = 0x184D2A50;
+  private static final int SKIPPABLE_MAGIC_MASK = 0xFFFFFFF0;
+
+  /** The number of blocks each thread may have in flight, bounding memory to a few blocks each. */
+  private static final int BLOCKS_PER_THREAD = 2;
+
+  private BlockCompression() {}
+
+  /**
+   * Returns the number of compression threads to use for a configured value, which defaults to one
+   * thread per available processor when null or not positive.
+   */
+  public static int threadCount(@Nullable Integer configured) {
+    return configured != null && configured > 0
+        ? configured
+        : Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * A pool of compression threads, along with a bound on the number of blocks held in memory at
+   * once by all of the files compressed or decompressed on it.
+   */
+  public static final class BlockExecutor {
+    private final ExecutorService executor;
+    private final Semaphore blocks;
+
+    private BlockExecutor(int threads) {
+      this.executor =
+          Executors.newFixedThreadPool(
+              threads,
+              new ThreadFactoryBuilder()
+                  .setNameFormat("block-compression-%d")
+                  .setDaemon(true)
+                  .build());
+      this.blocks = new Semaphore(threads * BLOCKS_PER_THREAD);
+    }
+
+    /** Stops the threads of the pool. */
+    public void shutdownNow() {
+      executor.shutdownNow();
+    }
+  }
+
+  /** The pool shared by every caller in the JVM, created on first use. */
+  @Nullable private static BlockExecutor sharedExecutor;
+
+  /** Creates a pool of {@code threads} daemon threads for compression work. */
+  public static BlockExecutor newExecutor(int threads) {
+    return new BlockExecutor(threads);
+  }
+
+  /**
+   * Returns the pool shared by every caller in the JVM, creating it with {@code threads} threads on
+   * first use. The pool is never shut down; its threads are daemon threads.
+   */
+  public static synchronized BlockExecutor sharedExecutor(int threads) {
+    if (sharedExecutor == null) {
+      sharedExecutor = newExecutor(threads);
+    }
+    return sharedExecutor;
+  }
+
+  /**
+   * Compresses {@code input} into {@code output} in blocks of {@code blockSize} bytes compressed in
+   * parallel on {@code executor}. Codecs which do not support blocks are compressed as a single
+   * stream on the calling thread.
+   */
+  public static void compress(
+      Codec codec,
+      ReadableByteChannel input,
+      WritableByteChannel output,
+      int blockSize,
+      BlockExecutor executor)
+      throws IOException {
+    if (!codec.supportsBlocks() || blockSize <= 0) {
+      try (WritableByteChannel compressed = codec.writeCompressed(output)) {
+        ByteStreams.copy(input, compressed);
+      }
+      return;
+    }
+
+    InputStream in = Channels.newInputStream(input);
+    BlockSource blocks =
+        new BlockSource() {
+          private boolean first = true;
+
+          @Override
+          public byte[] next() throws IOException {
+            byte[] block = new byte[blockSize];
+            int length = ByteStreams.read(in, block, 0, blockSize);
+            // An empty input still produces one empty block, so that the output is a valid stream.
+            if (length == 0 && !first) {
+              return null;
+            }
+            first = false;
+            return length == blockSize ? block : Arrays.copyOf(block, length);
+          }
+        };
+    transformInOrder(blocks, block -> compressBlock(codec, block), output, executor);
+  }
+
+  /**
+   * Decompresses {@code input} into {@code output}. zstd and lz4 frames of a bounded content size,
+   * and gzip members written by {@link #compress}, are decompressed in parallel on {@code
+   * executor}; any other input is decompressed on the calling thread.
+   */
+  public static void decompress(
+      Codec codec, ReadableByteChannel input, WritableByteChannel output, BlockExecutor executor)
+      throws IOException {
+    decompress(codec, input, output, executor, MAX_PARALLEL_FRAME_SIZE);
+  }
+
+  static void decompress(
+      Codec codec,
+      ReadableByteChannel input,
+      WritableByteChannel output,
+      BlockExecutor executor,
+      long maxFrameSize)
+      throws IOException {
+    BufferedInputStream in = new BufferedInputStream(Channels.newInputStream(input));
+    BlockSource frames = frameReader(codec, in, maxFrameSize);
+    if (frames != null) {
+      transformInOrder(frames, frame -> decompressFrame(codec, frame), output, executor);
+      if (atEnd(in)) {
+        return;
+      }
+    }
+
+    // The rest of the input, from the first frame which cannot be held in memory, is streamed.
+    try (ReadableByteChannel decompressed = codec.readDecompressed(Channels.newChannel(in))) {
+      ByteStreams.copy(decompressed, output);
+    }
+  }
+
+  private static boolean atEnd(BufferedInputStream in) throws IOException {
+    in.mark(1);
+    boolean atEnd = in.read() < 0;
+    in.reset();
+    return atEnd;
+  }
+
+  /** Supplies the next block of input, or null once the input is exhausted. */
+  private interface BlockSource {
+    @Nullable
+    byte[] next() throws IOException;
+  }
+
+  /** Transforms one block of input. */
+  private interface BlockFunction {
+    byte[] apply(byte[] block) throws IOException;
+  }
+
+  /**
+   * Applies {@code function} to every block of {@code source} on {@code executor}, and writes the
+   * results to {@code output} in source order. A block is only read once one of the executor's
+   * {@link #BLOCKS_PER_THREAD} permits per thread is free, so the blocks in memory stay bounded
+   * however many files share the executor.
+   */
+  private static void transformInOrder(
+      BlockSource source,
+      BlockFunction function,
+      WritableByteChannel output,
+      BlockExecutor executor)
+      throws IOException {
+    Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    try {
+      while (true) {
+        // Write out this file's own blocks rather than wait for a permit while holding some, so
+        // that files sharing the executor never wait on each other.
+        while (!executor.blocks.tryAcquire()) {
+          if (pending.isEmpty()) {
+            acquire(executor.blocks);
+            break;
+          }
+          writeNext(pending, output, executor);
+        }
+        boolean submitted = false;
+        try {
+          byte[] block = source.next();
+          if (block == null) {
+            break;
+          }
+          pending.add(executor.executor.submit(() -> function.apply(block)));
+          submitted = true;
+        } finally {
+          if (!submitted) {
+            executor.blocks.release();
+          }
+        }
+      }
+      while (!pending.isEmpty()) {
+        writeNext(pending, output, executor);
+      }
+    } finally {
+      for (Future<byte[]> future : pending) {
+        future.cancel(true);
+      }
+      executor.blocks.release(pending.size());
+    }
+  }
+
+  private static void writeNext(
+      Deque<Future<byte[]>> pending, WritableByteChannel output, BlockExecutor executor)
+      throws IOException {
+    Future<byte[]> next = pending.poll();
+    try {
+      writeFully(output, await(next));
+    } finally {
+      executor.blocks.release();
+    }
+  }
+
+  private static void acquire(Semaphore permits) throws InterruptedIOException {
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to read a block");
+    }
+  }
+
+  private static byte[] await(Future<byte[]> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for a block");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private static void writeFully(WritableByteChannel output, byte[] bytes) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    while (buffer.hasRemaining()) {
+      output.write(buffer);
+    }
+  }
+
+  private static byte[] compressBlock(Codec codec, byte[] block) throws IOException {
+    if (codec == Codec.ZSTD) {
+      // Unlike the streaming encoder, this also writes a frame for an empty block.
+      return Zstd.compress(block);
+    }
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(block.length / 2 + 64);
+    if (codec == Codec.GZIP) {
+      try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+        gzip.write(block);
+      }
+      return withGzipMemberLength(compressed.toByteArray());
+    }
+    try (WritableByteChannel channel = codec.writeCompressed(Channels.newChannel(compressed))) {
+      writeFully(channel, block);
+    }
+    if (codec == Codec.LZ4) {
+      return withLz4ContentSize(compressed.toByteArray(), block.length);
+    }
+    return compressed.toByteArray();
+  }
+
+  private static byte[] decompressFrame(Codec codec, byte[] frame) throws IOException {
+    try (ReadableByteChannel channel =
+        codec.readDecompressed(Channels.newChannel(new ByteArrayInputStream(frame)))) {
+      return ByteStreams.toByteArray(Channels.newInputStream(channel));
+    }
+  }
+
+  /**
+   * Adds a {@link #GZIP_SUBFIELD_ID} extra subfield with the total member length to a gzip member
+   * written by {@link GZIPOutputStream}, which always writes a plain 10 byte header.
+   */
+  private static byte[] withGzipMemberLength(byte[] member) {
+    int extraLength = 2 + 4 + GZIP_SUBFIELD_LENGTH;
+    ByteBuffer withExtra =
+        ByteBuffer.allocate(member.length + extraLength).order(ByteOrder.LITTLE_ENDIAN);
+    withExtra.put(member, 0, GZIP_HEADER_LENGTH);
+    withExtra.put(3, (byte) (member[3] | GZIP_FEXTRA));
+    withExtra.putShort((short) (4 + GZIP_SUBFIELD_LENGTH));
+    withExtra.put((byte) GZIP_SUBFIELD_ID.charAt(0)).put((byte) GZIP_SUBFIELD_ID.charAt(1));
+    withExtra.putShort((short) GZIP_SUBFIELD_LENGTH);
+    withExtra.putLong(member.length + extraLength);
+    withExtra.put(member, GZIP_HEADER_LENGTH, member.length - GZIP_HEADER_LENGTH);
+    return withExtra.array();
+  }
+
+  /**
+   * Adds the content size to the header of an lz4 frame written by {@link
+   * FramedLZ4CompressorOutputStream}, which writes a header without content size or dictionary id.
+   */
+  private static byte[] withLz4ContentSize(byte[] frame, long contentSize) {
+    int descriptorLength = 2;
+    ByteBuffer withSize = ByteBuffer.allocate(frame.length + 8).order(ByteOrder.LITTLE_ENDIAN);
+    withSize.put(frame, 0, 4 + descriptorLength);
+    withSize.put(4, (byte) (frame[4] | LZ4_CONTENT_SIZE_FLAG));
+    withSize.putLong(contentSize);
+    // The header checksum is the second byte of the xxHash32 of the frame descriptor.
+    XXHash32 hash = new XXHash32();
+    hash.update(withSize.array(), 4, descriptorLength + 8);
+    withSize.put((byte) (hash.getValue() >>> 8));
+    withSize.put(frame, 4 + descriptorLength + 1, frame.length - (4 + descriptorLength + 1));
+    return withSize.array();
+  }
+
+  /**
+   * Returns a source of the frames of {@code codec} in {@code in}, each of which can be
+   * decompressed on its own, or null if the input cannot be split. zstd and lz4 frames are only
+   * returned while they declare a content size of at most {@code maxFrameSize}; {@code in} is left
+   * at the start of the first frame which does not. Only the start of gzip input is inspected, and
+   * {@code in} is reset to its start.
+   */
+  @Nullable
+  private static BlockSource frameReader(Codec codec, BufferedInputStream in, long maxFrameSize)
+      throws IOException {
+    switch (codec) {
+      case ZSTD:
+        return () -> readFrame(in, (frame, magic) -> readZstdFrame(frame, magic, maxFrameSize));
+      case LZ4:
+        return () -> readFrame(in, (frame, magic) -> readLz4Frame(frame, magic, maxFrameSize));
+      case GZIP:
+        in.mark(GZIP_HEADER_LENGTH + 2 + 0xFFFF);
+        boolean hasMemberLength;
+        try {
+          Frame frame = new Frame(in);
+          hasMemberLength = frame.readMagic() && gzipMemberLength(frame) >= 0;
+        } catch (EOFException e) {
+          hasMemberLength = false;
+        } finally {
+          in.reset();
+        }
+        return hasMemberLength ? () -> readFrame(in, BlockCompression::readGzipFrame) : null;
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Reads the body of a frame whose magic number has been read into {@code frame}, returning false
+   * without reading the body if the frame is too large to be held in memory.
+   */
+  private interface FrameBodyReader {
+    boolean read(Frame frame, int magic) throws IOException;
+  }
+
+  /**
+   * Reads the next frame of {@code in}, or returns null at the end of input, or at the start of a
+   * frame which {@code bodyReader} rejects.
+   */
+  @Nullable
+  private static byte[] readFrame(BufferedInputStream in, FrameBodyReader bodyReader)
+      throws IOException {
+    while (true) {
+      in.mark(MAX_FRAME_HEADER_LENGTH);
+      Frame frame = new Frame(in);
+      if (!frame.readMagic()) {
+        return null;
+      }
+      int magic = frame.int32(0);
+      if ((magic & SKIPPABLE_MAGIC_MASK) == SKIPPABLE_MAGIC) {
+        frame.skip(frame.readInt32());
+        continue;
+      }
+      if (!bodyReader.read(frame, magic)) {
+        in.reset();
+        return null;
+      }
+      return frame.toByteArray();
+    }
+  }
+
+  private static boolean readZstdFrame(Frame frame, int magic, long maxFrameSize)
+      throws IOException {
+    if (magic != ZSTD_MAGIC) {
+      throw new IOException("Input is not in the zstd format");
+    }
+    int descriptor = frame.readByte();
+    boolean singleSegment = (descriptor & 0x20) != 0;
+    boolean checksum = (descriptor & 0x04) != 0;
+    int dictionaryIdLength = new int[] {0, 1, 2, 4}[descriptor & 0x03];
+    int contentSizeLength = new int[] {singleSegment ? 1 : 0, 2, 4, 8}[(descriptor >>> 6) & 0x03];
+    int contentSizeOffset =
+        frame.read((singleSegment ? 0 : 1) + dictionaryIdLength + contentSizeLength)
+            + (singleSegment ? 0 : 1)
+            + dictionaryIdLength;
+    long contentSize;
+    switch (contentSizeLength) {
+      case 1:
+        contentSize = frame.byteAt(contentSizeOffset);
+        break;
+      case 2:
+        // Two byte sizes are stored minus 256.
+        contentSize = frame.int16(contentSizeOffset) + 256L;
+        break;
+      case 4:
+        contentSize = Integer.toUnsignedLong(frame.int32(contentSizeOffset));
+        break;
+      case 8:
+        contentSize = frame.int64(contentSizeOffset);
+        break;
+      default:
+        contentSize = -1;
+    }
+    if (contentSize < 0 || contentSize > maxFrameSize) {
+      return false;
+    }
+
+    boolean lastBlock;
+    do {
+      int offset = frame.read(3);
+      int header = frame.int24(offset);
+      lastBlock = (header & 0x01) != 0;
+      int blockType = (header >>> 1) & 0x03;
+      int blockSize = header >>> 3;
+      if (blockType == 3) {
+        throw new IOException("Input is not in the zstd format");
+      }
+      // RLE blocks hold a single byte repeated blockSize times.
+      frame.read(blockType == 1 ? 1 : blockSize);
+    } while (!lastBlock);
+    if (checksum) {
+      frame.read(4);
+    }
+    return true;
+  }
+
+  private static boolean readLz4Frame(Frame frame, int magic, long maxFrameSize)
+      throws IOException {
+    if (magic != LZ4_MAGIC) {
+      throw new IOException("Input is not in the lz4 frame format");
+    }
+    int flags = frame.readByte();
+    frame.readByte(); // Block maximum size
+    boolean blockChecksum = (flags & 0x10) != 0;
+    boolean hasContentSize = (flags & LZ4_CONTENT_SIZE_FLAG) != 0;
+    boolean contentChecksum = (flags & 0x04) != 0;
+    boolean dictionaryId = (flags & 0x01) != 0;
+    int contentSizeOffset = frame.read((hasContentSize ? 8 : 0) + (dictionaryId ? 4 : 0) + 1);
+    if (!hasContentSize) {
+      return false;
+    }
+    long contentSize = frame.int64(contentSizeOffset);
+    if (contentSize < 0 || contentSize > maxFrameSize) {
+      return false;
+    }
+
+    int blockSize;
+    while ((blockSize = frame.readInt32() & 0x7FFFFFFF) != 0) {
+      frame.read(blockSize + (blockChecksum ? 4 : 0));
+    }
+    if (contentChecksum) {
+      frame.read(4);
+    }
+    return true;
+  }
+
+  private static boolean readGzipFrame(Frame frame, int magic) throws IOException {
+    long memberLength = gzipMemberLength(frame);
+    if (memberLength < 0) {
+      throw new IOException(
+          "Gzip member without a length subfield; the input was not written in blocks");
+    }
+    frame.read((int) memberLength - frame.size());
+    return true;
+  }
+
+  /**
+   * Reads the header and extra field of a gzip member, whose first 4 bytes are in {@code frame},
+   * and returns the member length recorded in its {@link #GZIP_SUBFIELD_ID} subfield, or -1 if it
+   * has none.
+   */
+  private static long gzipMemberLength(Frame frame) throws IOException {
+    frame.read(GZIP_HEADER_LENGTH - 4 + 2);
+    if (frame.byteAt(0) != 0x1f
+        || frame.byteAt(1) != 0x8b
+        || (frame.byteAt(3) & GZIP_FEXTRA) == 0) {
+      return -1;
+    }
+    int extraLength = frame.int16(GZIP_HEADER_LENGTH);
+    int extraOffset = frame.read(extraLength);
+    long memberLength = -1;
+    for (int offset = extraOffset; offset + 4 <= extraOffset + extraLength; ) {
+      int subfieldLength = frame.int16(offset + 2);
+      if (frame.byteAt(offset) == GZIP_SUBFIELD_ID.charAt(0)
+          && frame.byteAt(offset + 1) == GZIP_SUBFIELD_ID.charAt(1)
+          && subfieldLength == GZIP_SUBFIELD_LENGTH) {
+        memberLength = frame.int64(offset + 4);
+      }
+      offset += 4 + subfieldLength;
+    }
+    return memberLength >= frame.size() && memberLength <= Integer.MAX_VALUE ? memberLength : -1;
+  }
+
+  /** A frame being read from an input, keeping every byte read so far. */
+  private static class Frame extends ByteArrayOutputStream {
+
+    private final InputStream in;
+
+    Frame(InputStream in) {
+      this.in = in;
+    }
+
+    /** Reads the 4 byte magic number of the next frame, returning false at the end of input. */
+    boolean readMagic() throws IOException {
+      byte[] magic = new byte[4];
+      int length = ByteStreams.read(in, magic, 0, magic.length);
+      if (length == 0) {
+        return false;
+      }
+      if (length < magic.length) {
+        throw new EOFException("Unexpected end of input in frame header");
+      }
+      write(magic, 0, length);
+      return true;
+    }
+
+    /** Reads {@code length} bytes into the frame and returns their offset. */
+    int read(int length) throws IOException {
+      int offset = count;
+      byte[] bytes = new byte[length];
+      ByteStreams.readFully(in, bytes);
+      write(bytes, 0, length);
+      return offset;
+    }
+
+    int readByte() throws IOException {
+      return byteAt(read(1));
+    }
+
+    int readInt32() throws IOException {
+      return int32(read(4));
+    }
+
+    void skip(int length) throws IOException {
+      ByteStreams.skipFully(in, Integer.toUnsignedLong(length));
+    }
+
+    int byteAt(int offset) {
+      return buf[offset] & 0xFF;
+    }
+
+    int int16(int offset) {
+      return byteAt(offset) | byteAt(offset + 1) << 8;
+    }
+
+    int int24(int offset) {
+      return int16(offset) | byteAt(offset + 2) << 16;
+    }
+
+    int int32(int offset) {
+      return int24(offset) | byteAt(offset + 3) << 24;
+    }
+
+    long int64(int offset) {
+      return Integer.toUnsignedLong(int32(offset)) | (long) int32(offset + 4) << 32;
+    }
+  }
+}
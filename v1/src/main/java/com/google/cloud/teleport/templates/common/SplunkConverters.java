@@ -225,6 +225,17 @@ public class SplunkConverters {
     ValueProvider<Boolean> getEnableGzipHttpCompression();
 
     void setEnableGzipHttpCompression(ValueProvider<Boolean> enableGzipHttpCompression);
+
+    @TemplateParameter.Integer(
+        order = 13,
+        optional = true,
+        description = "Maximum number of in-flight requests per parallel writer.",
+        helpText =
+            "The maximum number of concurrent requests each of the `parallelism` writers keeps in flight to Splunk HEC. Values above 1 publish batches asynchronously over pooled keep-alive connections. Default: `1` (synchronous).")
+    @Default.Integer(1)
+    ValueProvider<Integer> getMaxInFlightRequests();
+
+    void setMaxInFlightRequests(ValueProvider<Integer> maxInFlightRequests);
   }
 
   private static class FailsafeStringToSplunkEvent
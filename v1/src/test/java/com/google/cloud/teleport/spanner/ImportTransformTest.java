@@ -24,12 +24,15 @@ import com.google.cloud.teleport.spanner.ImportTransform.ReadExportManifestFile;
 import com.google.cloud.teleport.spanner.ImportTransform.ReadManifestFiles;
 import com.google.cloud.teleport.spanner.ImportTransform.ReadTableManifestFile;
 import com.google.cloud.teleport.spanner.ImportTransform.ValidateInputFiles;
+import com.google.cloud.teleport.spanner.ddl.Ddl;
 import com.google.cloud.teleport.spanner.proto.ExportProtos.Export;
 import com.google.cloud.teleport.spanner.proto.ExportProtos.TableManifest;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
@@ -313,4 +316,67 @@ public class ImportTransformTest {
             });
     pipeline.run();
   }
+
+  @Test
+  public void testAssignLanes() {
+    Ddl ddl =
+        Ddl.builder()
+            .createTable("Singers")
+            .column("id")
+            .int64()
+            .endColumn()
+            .primaryKey()
+            .asc("id")
+            .end()
+            .endTable()
+            .createTable("Albums")
+            .column("id")
+            .int64()
+            .endColumn()
+            .column("album_id")
+            .int64()
+            .endColumn()
+            .primaryKey()
+            .asc("id")
+            .asc("album_id")
+            .end()
+            .interleaveInParent("Singers")
+            .endTable()
+            .createTable("Venues")
+            .column("id")
+            .int64()
+            .endColumn()
+            .primaryKey()
+            .asc("id")
+            .end()
+            .endTable()
+            .createTable("Tickets")
+            .column("id")
+            .int64()
+            .endColumn()
+            .primaryKey()
+            .asc("id")
+            .end()
+            .endTable()
+            .build();
+    HashMultimap<String, String> files = HashMultimap.create();
+    files.putAll("singers", Arrays.asList("s1", "s2"));
+    files.putAll("albums", Arrays.asList("a1", "a2", "a3"));
+    files.putAll("venues", Arrays.asList("v1", "v2", "v3"));
+    files.putAll("tickets", Arrays.asList("t1"));
+
+    Map<String, Integer> lanes = ImportTransform.assignLanes(ddl, files, 2);
+
+    assertEquals(4, lanes.size());
+    // Albums always shares the lane of its parent, and the heaviest tree gets a lane of its own.
+    assertEquals(lanes.get("singers"), lanes.get("albums"));
+    assertEquals(0, (int) lanes.get("singers"));
+    assertEquals(1, (int) lanes.get("venues"));
+    assertEquals(1, (int) lanes.get("tickets"));
+
+    lanes = ImportTransform.assignLanes(ddl, files, 1);
+    for (int lane : lanes.values()) {
+      assertEquals(0, lane);
+    }
+  }
 }
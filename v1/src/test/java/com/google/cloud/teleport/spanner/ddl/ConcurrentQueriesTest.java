@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.spanner.ddl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.spanner.ErrorCode;
+import com.google.cloud.spanner.ReadOnlyTransaction;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.ResultSets;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.SpannerExceptionFactory;
+import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+/** Unit tests for {@link ConcurrentQueries}. */
+public class ConcurrentQueriesTest {
+
+  private static final Type TYPE = Type.struct(StructField.of("name", Type.string()));
+
+  private static ResultSet rows(String... names) {
+    ImmutableList.Builder<Struct> rows = ImmutableList.builder();
+    for (String name : names) {
+      rows.add(Struct.newBuilder().set("name").to(name).build());
+    }
+    return ResultSets.forRows(TYPE, rows.build());
+  }
+
+  @Test
+  public void testServesResultsInAnyOrder() {
+    Statement first = Statement.of("SELECT 1");
+    Statement second = Statement.of("SELECT 2");
+    ReadOnlyTransaction context = mock(ReadOnlyTransaction.class);
+    when(context.executeQuery(first)).thenReturn(rows("a", "b"));
+    when(context.executeQuery(second)).thenReturn(rows("c"));
+
+    try (ConcurrentQueries queries =
+        new ConcurrentQueries(context, ImmutableList.of(first, second))) {
+      ResultSet secondResult = queries.executeQuery(second);
+      assertTrue(secondResult.next());
+      assertEquals("c", secondResult.getString(0));
+      assertFalse(secondResult.next());
+
+      ResultSet firstResult = queries.executeQuery(first);
+      assertTrue(firstResult.next());
+      assertEquals("a", firstResult.getString(0));
+      assertTrue(firstResult.next());
+      assertEquals("b", firstResult.getString(0));
+      assertFalse(firstResult.next());
+    }
+    verify(context, times(1)).executeQuery(first);
+    verify(context, times(1)).executeQuery(second);
+  }
+
+  @Test
+  public void testRunsOtherStatementsOnTheContext() {
+    Statement started = Statement.of("SELECT 1");
+    Statement other = Statement.of("SELECT 2");
+    ReadOnlyTransaction context = mock(ReadOnlyTransaction.class);
+    when(context.executeQuery(started)).thenReturn(rows("a"));
+    when(context.executeQuery(other)).thenReturn(rows("b"));
+
+    try (ConcurrentQueries queries = new ConcurrentQueries(context, ImmutableList.of(started))) {
+      ResultSet result = queries.executeQuery(other);
+      assertTrue(result.next());
+      assertEquals("b", result.getString(0));
+    }
+  }
+
+  @Test
+  public void testPropagatesQueryErrors() {
+    Statement statement = Statement.of("SELECT 1");
+    ReadOnlyTransaction context = mock(ReadOnlyTransaction.class);
+    when(context.executeQuery(statement))
+        .thenThrow(SpannerExceptionFactory.newSpannerException(ErrorCode.NOT_FOUND, "missing"));
+
+    try (ConcurrentQueries queries = new ConcurrentQueries(context, ImmutableList.of(statement))) {
+      SpannerException e =
+          assertThrows(SpannerException.class, () -> queries.executeQuery(statement));
+      assertEquals(ErrorCode.NOT_FOUND, e.getErrorCode());
+    }
+  }
+}
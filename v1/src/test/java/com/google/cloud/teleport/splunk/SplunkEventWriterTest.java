@@ -0,0 +1,308 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.splunk;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.apache.beam.sdk.options.ValueProvider.StaticValueProvider;
+import org.apache.beam.sdk.state.BagState;
+import org.apache.beam.sdk.state.ReadableState;
+import org.apache.beam.sdk.state.Timer;
+import org.apache.beam.sdk.state.ValueState;
+import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
+import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
+import org.apache.beam.sdk.values.KV;
+import org.joda.time.Instant;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.Answers;
+
+/** Test cases for the {@link SplunkEventWriter} class. */
+@RunWith(JUnit4.class)
+public class SplunkEventWriterTest {
+
+  // Events whose text contains these markers are answered slowly or rejected by the fake HEC.
+  private static final String SLOW = "slow";
+  private static final String BAD = "bad";
+  private static final long SLOW_RESPONSE_MILLIS = 500;
+
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+  private final AtomicInteger activeRequests = new AtomicInteger();
+  private final AtomicInteger maxActiveRequests = new AtomicInteger();
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext(
+        "/" + HttpEventPublisher.HEC_URL_PATH,
+        exchange -> {
+          maxActiveRequests.accumulateAndGet(activeRequests.incrementAndGet(), Math::max);
+          try (InputStream in = exchange.getRequestBody()) {
+            String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            if (body.contains(SLOW)) {
+              Thread.sleep(SLOW_RESPONSE_MILLIS);
+            }
+            byte[] response = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(body.contains(BAD) ? 400 : 200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+              out.write(response);
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            activeRequests.decrementAndGet();
+            exchange.close();
+          }
+        });
+    serverExecutor = Executors.newFixedThreadPool(8);
+    server.setExecutor(serverExecutor);
+    server.start();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+    serverExecutor.shutdownNow();
+  }
+
+  /** Runs one bundle of single-event batches through the writer and collects its outputs. */
+  private static class Bundle {
+    final List<SplunkWriteError> processOutputs = Collections.synchronizedList(new ArrayList<>());
+    final List<SplunkWriteError> finishOutputs = new ArrayList<>();
+    final List<Instant> finishTimestamps = new ArrayList<>();
+    final List<BoundedWindow> finishWindows = new ArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    void run(SplunkEventWriter writer, List<String> events) {
+      InMemoryBagState buffer = new InMemoryBagState();
+      InMemoryValueState count = new InMemoryValueState();
+      Timer timer = mock(Timer.class, withSettings().defaultAnswer(Answers.RETURNS_SELF));
+      DoFn.OutputReceiver<SplunkWriteError> receiver = mock(DoFn.OutputReceiver.class);
+      doAnswer(invocation -> processOutputs.add(invocation.getArgument(0)))
+          .when(receiver)
+          .output(any());
+      DoFn<KV<Integer, SplunkEvent>, SplunkWriteError>.FinishBundleContext context =
+          mock(DoFn.FinishBundleContext.class);
+      doAnswer(
+              invocation -> {
+                finishOutputs.add(invocation.getArgument(0));
+                finishTimestamps.add(invocation.getArgument(1));
+                finishWindows.add(invocation.getArgument(2));
+                return null;
+              })
+          .when(context)
+          .output(any(), any(), any());
+
+      for (int i = 0; i < events.size(); i++) {
+        writer.processElement(
+            KV.of(1, SplunkEvent.newBuilder().withEvent(events.get(i)).build()),
+            new Instant(i),
+            receiver,
+            GlobalWindow.INSTANCE,
+            buffer,
+            count,
+            timer);
+      }
+      writer.finishBundle(context);
+    }
+
+    List<String> finishedEvents() {
+      return finishOutputs.stream().map(SplunkWriteError::payload).collect(Collectors.toList());
+    }
+  }
+
+  private SplunkEventWriter writer(Integer maxInFlightRequests) {
+    SplunkEventWriter.Builder builder =
+        SplunkEventWriter.newBuilder()
+            .withUrl("http://localhost:" + server.getAddress().getPort())
+            .withToken("test-token")
+            .withInputBatchCount(StaticValueProvider.of(1))
+            .withEnableBatchLogs(StaticValueProvider.of(false))
+            .withEnableGzipHttpCompression(StaticValueProvider.of(false));
+    if (maxInFlightRequests != null) {
+      builder.withMaxInFlightRequests(StaticValueProvider.of(maxInFlightRequests));
+    }
+    SplunkEventWriter writer = builder.build();
+    writer.setup();
+    return writer;
+  }
+
+  @Test
+  public void testSynchronousPublishOutputsErrorsWhileProcessing() {
+    SplunkEventWriter writer = writer(null);
+    Bundle bundle = new Bundle();
+
+    bundle.run(writer, List.of("ok-1", "bad-2", "ok-3"));
+    writer.tearDown();
+
+    assertThat(bundle.processOutputs).hasSize(1);
+    assertThat(bundle.processOutputs.get(0).payload()).contains("bad-2");
+    assertThat(bundle.processOutputs.get(0).statusCode()).isEqualTo(400);
+    assertThat(bundle.finishOutputs).isEmpty();
+    assertThat(maxActiveRequests.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void testAsyncPublishReportsErrorsInFlushOrder() {
+    SplunkEventWriter writer = writer(3);
+    Bundle bundle = new Bundle();
+
+    // The first batch is answered last, after the second batch has already been rejected.
+    bundle.run(writer, List.of("slow-bad-1", "bad-2", "ok-3"));
+    writer.tearDown();
+
+    assertThat(maxActiveRequests.get()).isGreaterThan(1);
+    assertThat(bundle.processOutputs).isEmpty();
+    assertThat(bundle.finishOutputs).hasSize(2);
+    assertThat(bundle.finishedEvents().get(0)).contains("slow-bad-1");
+    assertThat(bundle.finishedEvents().get(1)).contains("bad-2");
+    assertThat(bundle.finishOutputs.get(0).statusCode()).isEqualTo(400);
+    assertThat(bundle.finishOutputs.get(1).statusCode()).isEqualTo(400);
+    // Errors keep the timestamp and window of the element that flushed their batch.
+    assertThat(bundle.finishTimestamps).containsExactly(new Instant(0), new Instant(1)).inOrder();
+    assertThat(bundle.finishWindows).containsExactly(GlobalWindow.INSTANCE, GlobalWindow.INSTANCE);
+  }
+
+  @Test
+  public void testAsyncPublishRoutesOnlyFailedBatches() {
+    SplunkEventWriter writer = writer(4);
+    Bundle bundle = new Bundle();
+
+    bundle.run(writer, List.of("slow-ok-1", "slow-bad-2", "slow-ok-3", "slow-bad-4"));
+    writer.tearDown();
+
+    assertThat(maxActiveRequests.get()).isGreaterThan(1);
+    assertThat(bundle.finishOutputs).hasSize(2);
+    assertThat(bundle.finishedEvents().get(0)).contains("slow-bad-2");
+    assertThat(bundle.finishedEvents().get(1)).contains("slow-bad-4");
+  }
+
+  @Test
+  public void testAsyncPublishBoundsRequestsInFlight() {
+    SplunkEventWriter writer = writer(2);
+    Bundle bundle = new Bundle();
+
+    bundle.run(writer, List.of("slow-1", "slow-2", "slow-3", "slow-4", "slow-5"));
+    writer.tearDown();
+
+    assertThat(maxActiveRequests.get()).isEqualTo(2);
+    assertThat(bundle.finishOutputs).isEmpty();
+  }
+
+  @Test
+  public void testAsyncPublishBundlesAreIndependent() {
+    SplunkEventWriter writer = writer(2);
+    Bundle first = new Bundle();
+    Bundle second = new Bundle();
+
+    first.run(writer, List.of("bad-1"));
+    second.run(writer, List.of("ok-2", "bad-3"));
+    writer.tearDown();
+
+    assertThat(first.finishedEvents()).hasSize(1);
+    assertThat(first.finishedEvents().get(0)).contains("bad-1");
+    assertThat(second.finishedEvents()).hasSize(1);
+    assertThat(second.finishedEvents().get(0)).contains("bad-3");
+  }
+
+  /** A {@link BagState} held in memory. */
+  private static class InMemoryBagState implements BagState<SplunkEvent> {
+    private final List<SplunkEvent> events = new ArrayList<>();
+
+    @Override
+    public void add(SplunkEvent value) {
+      events.add(value);
+    }
+
+    @Override
+    public ReadableState<Boolean> isEmpty() {
+      boolean empty = events.isEmpty();
+      return new ReadableState<Boolean>() {
+        @Override
+        public Boolean read() {
+          return empty;
+        }
+
+        @Override
+        public ReadableState<Boolean> readLater() {
+          return this;
+        }
+      };
+    }
+
+    @Override
+    public Iterable<SplunkEvent> read() {
+      return new ArrayList<>(events);
+    }
+
+    @Override
+    public BagState<SplunkEvent> readLater() {
+      return this;
+    }
+
+    @Override
+    public void clear() {
+      events.clear();
+    }
+  }
+
+  /** A {@link ValueState} held in memory. */
+  private static class InMemoryValueState implements ValueState<Long> {
+    private Long value;
+
+    @Override
+    public void write(Long input) {
+      value = input;
+    }
+
+    @Override
+    public Long read() {
+      return value;
+    }
+
+    @Override
+    public ValueState<Long> readLater() {
+      return this;
+    }
+
+    @Override
+    public void clear() {
+      value = null;
+    }
+  }
+}
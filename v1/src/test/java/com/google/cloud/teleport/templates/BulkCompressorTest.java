@@ -15,7 +15,11 @@
  */
 package com.google.cloud.teleport.templates;
 
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
 import com.google.cloud.teleport.templates.BulkCompressor.Compressor;
+import com.google.cloud.teleport.templates.common.BlockCompression.Codec;
 import com.google.cloud.teleport.util.TestUtils;
 import com.google.common.collect.ImmutableList;
 import java.io.IOException;
@@ -76,12 +80,12 @@ public class BulkCompressorTest {
   @Test
   public void testCompressFile() throws Exception {
     // Setup test
-    final Compression compression = Compression.GZIP;
+    final Codec compression = Codec.GZIP;
 
     final ValueProvider<String> outputDirectoryProvider =
         pipeline.newProvider(tempFolderCompressedPath.toString());
 
-    final ValueProvider<Compression> compressionProvider = StaticValueProvider.of(compression);
+    final ValueProvider<Codec> compressionProvider = StaticValueProvider.of(compression);
 
     final Metadata metadata = FileSystems.matchSingleFileSpec(textFile.toString());
 
@@ -97,4 +101,42 @@ public class BulkCompressorTest {
     PAssert.that(lines).containsInAnyOrder(FILE_CONTENT);
     pipeline.run();
   }
+
+  /** Tests the {@link BulkCompressor.Compressor} compresses in parallel blocks with zstd. */
+  @Test
+  public void testCompressFileInBlocks() throws Exception {
+    final ValueProvider<String> outputDirectoryProvider =
+        pipeline.newProvider(tempFolderCompressedPath.toString());
+
+    final Metadata metadata = FileSystems.matchSingleFileSpec(textFile.toString());
+
+    // Execute the compressor
+    PCollection<String> lines =
+        pipeline
+            .apply("Create File Input", Create.of(metadata))
+            .apply(
+                "Compress",
+                ParDo.of(
+                    new Compressor(
+                        outputDirectoryProvider,
+                        StaticValueProvider.of(Codec.ZSTD),
+                        StaticValueProvider.of(1),
+                        StaticValueProvider.of(2))))
+            .apply("Read the Files", TextIO.readAll().withCompression(Compression.AUTO));
+
+    // Test the result
+    PAssert.that(lines).containsInAnyOrder(FILE_CONTENT);
+    pipeline.run();
+  }
+
+  /** Tests the block size is validated before it is converted to bytes. */
+  @Test
+  public void testBlockSizeBytes() {
+    assertThat(Compressor.blockSizeBytes(null)).isEqualTo(0);
+    assertThat(Compressor.blockSizeBytes(0)).isEqualTo(0);
+    assertThat(Compressor.blockSizeBytes(16)).isEqualTo(16 * 1024 * 1024);
+    assertThat(Compressor.blockSizeBytes(Compressor.MAX_BLOCK_SIZE_MB))
+        .isEqualTo(2047 * 1024 * 1024);
+    assertThrows(IllegalArgumentException.class, () -> Compressor.blockSizeBytes(2048));
+  }
 }
@@ -0,0 +1,274 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.templates.common;
+
+import static com.google.cloud.teleport.templates.common.BlockCompression.MAX_PARALLEL_FRAME_SIZE;
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.cloud.teleport.templates.common.BlockCompression.BlockExecutor;
+import com.google.cloud.teleport.templates.common.BlockCompression.Codec;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Test cases for the {@link BlockCompression} class. */
+@RunWith(JUnit4.class)
+public class BlockCompressionTest {
+
+  private static final int THREADS = 4;
+  private static final int BLOCK_SIZE = 10_000;
+
+  private BlockExecutor executor;
+
+  @Before
+  public void setUp() {
+    executor = BlockCompression.newExecutor(THREADS);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testRoundTripInBlocks() throws IOException {
+    byte[] data = testData(BLOCK_SIZE * 7 + 123);
+    for (Codec codec : Codec.values()) {
+      byte[] compressed = compress(codec, data, BLOCK_SIZE);
+
+      assertThat(decompress(codec, compressed)).isEqualTo(data);
+      // The output is a single stream to the sequential decoders as well.
+      assertThat(readSequentially(codec, compressed)).isEqualTo(data);
+    }
+  }
+
+  @Test
+  public void testRoundTripEmptyInput() throws IOException {
+    for (Codec codec : Codec.values()) {
+      byte[] compressed = compress(codec, new byte[0], BLOCK_SIZE);
+
+      assertThat(compressed).isNotEmpty();
+      assertThat(decompress(codec, compressed)).isEmpty();
+    }
+  }
+
+  @Test
+  public void testBlockGzipIsMultiMemberGzip() throws IOException {
+    byte[] data = testData(BLOCK_SIZE * 3);
+    byte[] compressed = compress(Codec.GZIP, data, BLOCK_SIZE);
+
+    byte[] decompressed =
+        ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed)));
+
+    assertThat(decompressed).isEqualTo(data);
+  }
+
+  @Test
+  public void testDecompressSingleStreamInputs() throws IOException {
+    byte[] data = testData(BLOCK_SIZE * 3);
+    for (Codec codec : Codec.values()) {
+      byte[] compressed = compress(codec, data, 0);
+
+      assertThat(decompress(codec, compressed)).isEqualTo(data);
+    }
+  }
+
+  @Test
+  public void testDecompressSkipsSkippableFrames() throws IOException {
+    byte[] data = testData(BLOCK_SIZE * 2);
+    byte[] compressed = compress(Codec.ZSTD, data, BLOCK_SIZE);
+    ByteArrayOutputStream withSkippable = new ByteArrayOutputStream();
+    withSkippable.write(new byte[] {0x50, 0x2A, 0x4D, 0x18, 3, 0, 0, 0, 1, 2, 3});
+    withSkippable.write(compressed);
+
+    assertThat(decompress(Codec.ZSTD, withSkippable.toByteArray())).isEqualTo(data);
+  }
+
+  @Test
+  public void testDecompressTruncatedInput() throws IOException {
+    byte[] compressed = compress(Codec.LZ4, testData(BLOCK_SIZE * 2), BLOCK_SIZE);
+    byte[] truncated = Arrays.copyOf(compressed, compressed.length - 10);
+
+    assertThrows(IOException.class, () -> decompress(Codec.LZ4, truncated));
+  }
+
+  @Test
+  public void testDecompressStreamsLargeSingleFrame() throws IOException {
+    byte[] data = testData(BLOCK_SIZE * 5);
+    BlockExecutor unused = BlockCompression.newExecutor(1);
+    unused.shutdownNow();
+    for (Codec codec : new Codec[] {Codec.ZSTD, Codec.LZ4}) {
+      // A single frame larger than the bound, with and without a declared content size.
+      for (int blockSize : new int[] {BLOCK_SIZE * 10, 0}) {
+        byte[] compressed = compress(codec, data, blockSize);
+
+        // The frame is streamed on the calling thread, without being submitted to the executor.
+        assertThat(decompress(codec, compressed, unused, BLOCK_SIZE)).isEqualTo(data);
+      }
+    }
+  }
+
+  @Test
+  public void testDecompressFramesWithinBoundInParallel() throws IOException {
+    BlockExecutor unused = BlockCompression.newExecutor(1);
+    unused.shutdownNow();
+    for (Codec codec : new Codec[] {Codec.ZSTD, Codec.LZ4}) {
+      byte[] compressed = compress(codec, testData(BLOCK_SIZE * 3), BLOCK_SIZE);
+
+      // The frames declare their size, so they are submitted to the executor.
+      assertThrows(
+          RejectedExecutionException.class,
+          () -> decompress(codec, compressed, unused, BLOCK_SIZE));
+    }
+  }
+
+  @Test
+  public void testDecompressStreamsFromFirstLargeFrame() throws IOException {
+    byte[] small = testData(BLOCK_SIZE * 3);
+    byte[] large = testData(BLOCK_SIZE * 4);
+    for (Codec codec : new Codec[] {Codec.ZSTD, Codec.LZ4}) {
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+      compressed.write(compress(codec, small, BLOCK_SIZE));
+      compressed.write(compress(codec, large, BLOCK_SIZE * 10));
+      compressed.write(compress(codec, small, BLOCK_SIZE));
+      ByteArrayOutputStream data = new ByteArrayOutputStream();
+      data.write(small);
+      data.write(large);
+      data.write(small);
+
+      assertThat(decompress(codec, compressed.toByteArray(), executor, BLOCK_SIZE))
+          .isEqualTo(data.toByteArray());
+    }
+  }
+
+  @Test
+  public void testConcurrentFilesShareExecutor() throws Exception {
+    BlockExecutor shared = BlockCompression.newExecutor(1);
+    ExecutorService files = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<byte[]>> roundTrips = new ArrayList<>();
+      for (int i = 0; i < THREADS; i++) {
+        byte[] data = testData(BLOCK_SIZE * 5 + i);
+        roundTrips.add(
+            files.submit(
+                () -> {
+                  ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                  BlockCompression.compress(
+                      Codec.ZSTD,
+                      Channels.newChannel(new ByteArrayInputStream(data)),
+                      Channels.newChannel(compressed),
+                      BLOCK_SIZE,
+                      shared);
+                  return decompress(
+                      Codec.ZSTD, compressed.toByteArray(), shared, MAX_PARALLEL_FRAME_SIZE);
+                }));
+      }
+
+      // More files than block permits are in flight at once, and none of them wait forever.
+      for (int i = 0; i < THREADS; i++) {
+        assertThat(roundTrips.get(i).get(1, TimeUnit.MINUTES))
+            .isEqualTo(testData(BLOCK_SIZE * 5 + i));
+      }
+    } finally {
+      files.shutdownNow();
+      shared.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testSharedExecutorIsCreatedOnce() {
+    assertThat(BlockCompression.sharedExecutor(2))
+        .isSameInstanceAs(BlockCompression.sharedExecutor(3));
+  }
+
+  @Test
+  public void testDetect() {
+    assertThat(Codec.detect("file.txt.gz")).isEqualTo(Codec.GZIP);
+    assertThat(Codec.detect("file.txt.zst")).isEqualTo(Codec.ZSTD);
+    assertThat(Codec.detect("file.txt.lz4")).isEqualTo(Codec.LZ4);
+    assertThat(Codec.detect("file.txt")).isNull();
+  }
+
+  /** Returns compressible test data: random words from a small vocabulary. */
+  private static byte[] testData(int length) {
+    String[] words = {"Sad ", "Trombone ", "Reflected ", "Optics ", "Quiet ", "Incline\n"};
+    Random random = new Random(length);
+    ByteArrayOutputStream data = new ByteArrayOutputStream(length);
+    while (data.size() < length) {
+      byte[] word = words[random.nextInt(words.length)].getBytes();
+      data.write(word, 0, Math.min(word.length, length - data.size()));
+    }
+    return data.toByteArray();
+  }
+
+  private byte[] compress(Codec codec, byte[] data, int blockSize) throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    BlockCompression.compress(
+        codec,
+        Channels.newChannel(new ByteArrayInputStream(data)),
+        Channels.newChannel(compressed),
+        blockSize,
+        executor);
+    return compressed.toByteArray();
+  }
+
+  private byte[] decompress(Codec codec, byte[] compressed) throws IOException {
+    ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+    BlockCompression.decompress(
+        codec,
+        Channels.newChannel(new ByteArrayInputStream(compressed)),
+        Channels.newChannel(decompressed),
+        executor);
+    return decompressed.toByteArray();
+  }
+
+  private static byte[] decompress(
+      Codec codec, byte[] compressed, BlockExecutor executor, long maxFrameSize)
+      throws IOException {
+    ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+    BlockCompression.decompress(
+        codec,
+        Channels.newChannel(new ByteArrayInputStream(compressed)),
+        Channels.newChannel(decompressed),
+        executor,
+        maxFrameSize);
+    return decompressed.toByteArray();
+  }
+
+  private static byte[] readSequentially(Codec codec, byte[] compressed) throws IOException {
+    return ByteStreams.toByteArray(
+        Channels.newInputStream(
+            codec.readDecompressed(Channels.newChannel(new ByteArrayInputStream(compressed)))));
+  }
+}
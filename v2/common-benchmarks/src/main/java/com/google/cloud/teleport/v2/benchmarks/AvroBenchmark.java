@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.benchmarks;
+
+import com.google.api.services.bigquery.model.TableRow;
+import com.google.cloud.teleport.v2.coders.GenericRecordCoder;
+import com.google.cloud.teleport.v2.transforms.BigQueryConverters;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.apache.avro.generic.GenericRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the Avro paths of v2/common: {@link GenericRecord} encoding and decoding with {@link
+ * GenericRecordCoder}, and {@link TableRow} to {@link GenericRecord} conversion with {@link
+ * BigQueryConverters.TableRowToGenericRecordFn}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvroBenchmark {
+
+  @Param({"NARROW", "WIDE"})
+  private Fixtures.Shape shape;
+
+  private final GenericRecordCoder coder = GenericRecordCoder.of();
+  private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+  private GenericRecord record;
+  private byte[] encoded;
+  private TableRow tableRow;
+  private BigQueryConverters.TableRowToGenericRecordFn tableRowToGenericRecord;
+
+  @Setup
+  public void setup() throws IOException {
+    record = Fixtures.avroRecord(shape);
+    coder.encode(record, output);
+    encoded = output.toByteArray();
+    tableRow = BigQueryConverters.convertJsonToTableRow(Fixtures.json(shape));
+    tableRowToGenericRecord =
+        BigQueryConverters.TableRowToGenericRecordFn.of(Fixtures.avroSchema(shape));
+  }
+
+  @Benchmark
+  public int encode() throws IOException {
+    output.reset();
+    coder.encode(record, output);
+    return output.size();
+  }
+
+  @Benchmark
+  public GenericRecord decode() throws IOException {
+    return coder.decode(new ByteArrayInputStream(encoded));
+  }
+
+  @Benchmark
+  public GenericRecord tableRowToGenericRecord() {
+    return tableRowToGenericRecord.apply(tableRow);
+  }
+}
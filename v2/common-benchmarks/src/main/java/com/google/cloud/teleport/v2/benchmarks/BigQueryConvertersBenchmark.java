@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.benchmarks;
+
+import com.google.api.services.bigquery.model.TableRow;
+import com.google.cloud.teleport.v2.transforms.BigQueryConverters;
+import com.google.cloud.teleport.v2.utils.TableRowJsonParser;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures JSON to {@link TableRow} conversion through {@link
+ * BigQueryConverters#convertJsonToTableRow(String)} and through a {@link TableRowJsonParser}
+ * compiled from the table schema.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BigQueryConvertersBenchmark {
+
+  @Param({"NARROW", "WIDE", "NESTED"})
+  private Fixtures.Shape shape;
+
+  private String json;
+  private TableRowJsonParser parser;
+
+  @Setup
+  public void setup() {
+    json = Fixtures.json(shape);
+    parser = TableRowJsonParser.of(Fixtures.tableSchema(shape));
+  }
+
+  @Benchmark
+  public TableRow convertJsonToTableRow() {
+    return BigQueryConverters.convertJsonToTableRow(json);
+  }
+
+  @Benchmark
+  public TableRow tableRowJsonParser() throws IOException {
+    return parser.parse(json);
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.benchmarks;
+
+import com.google.api.services.bigquery.model.TableRow;
+import com.google.cloud.bigquery.Field;
+import com.google.cloud.bigquery.FieldList;
+import com.google.cloud.teleport.v2.cdc.mappers.BigQueryTableRowCleaner;
+import com.google.cloud.teleport.v2.transforms.BigQueryConverters;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link BigQueryTableRowCleaner#cleanTableRowField} over every column of a row, as done
+ * by the DataStream to BigQuery merge path.
+ *
+ * <p>The cleaner rewrites the row in place, so each invocation cleans a copy; {@link #copy()}
+ * measures the copy alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BigQueryTableRowCleanerBenchmark {
+
+  @Param({"NARROW", "WIDE"})
+  private Fixtures.Shape shape;
+
+  private TableRow row;
+  private FieldList fields;
+
+  @Setup
+  public void setup() {
+    row = BigQueryConverters.convertJsonToTableRow(Fixtures.json(shape));
+    fields = Fixtures.fieldList(shape);
+  }
+
+  @Benchmark
+  public TableRow copy() {
+    return row.clone();
+  }
+
+  @Benchmark
+  public TableRow cleanTableRow() {
+    TableRow copy = row.clone();
+    for (Field field : fields) {
+      BigQueryTableRowCleaner.cleanTableRowField(copy, fields, field.getName());
+    }
+    return copy;
+  }
+}
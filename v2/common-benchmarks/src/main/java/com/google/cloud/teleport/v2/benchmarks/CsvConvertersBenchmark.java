@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.benchmarks;
+
+import com.google.cloud.teleport.v2.transforms.CsvConverters;
+import java.util.concurrent.TimeUnit;
+import org.apache.avro.generic.GenericRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures CSV line to {@link GenericRecord} conversion in {@link CsvConverters}. */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvConvertersBenchmark {
+
+  private static final String DELIMITER = ",";
+
+  @Param({"NARROW", "WIDE"})
+  private Fixtures.Shape shape;
+
+  private String line;
+  private CsvConverters.StringToGenericRecordFn fn;
+  private DirectProcessContext<String, GenericRecord> context;
+
+  @Setup
+  public void setup() {
+    line = Fixtures.csvLine(shape, DELIMITER);
+    fn =
+        new CsvConverters.StringToGenericRecordFn(DELIMITER)
+            .withSerializedSchema(Fixtures.avroSchema(shape).toString());
+    fn.setup();
+    context = new DirectProcessContext<>(fn);
+  }
+
+  @Benchmark
+  public GenericRecord stringToGenericRecord() {
+    fn.processElement(context.with(line));
+    return context.output();
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.benchmarks;
+
+import java.util.Collection;
+import org.apache.beam.sdk.options.PipelineOptions;
+import org.apache.beam.sdk.options.PipelineOptionsFactory;
+import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
+import org.apache.beam.sdk.transforms.windowing.PaneInfo;
+import org.apache.beam.sdk.values.PCollectionView;
+import org.apache.beam.sdk.values.TupleTag;
+import org.joda.time.Instant;
+
+/**
+ * A {@link DoFn.ProcessContext} that hands one element to a {@link DoFn} and keeps its last main
+ * output, so that a {@code processElement} method can be measured without any runner in between.
+ */
+final class DirectProcessContext<InputT, OutputT> {
+
+  private InputT element;
+  private OutputT output;
+  private final DoFn<InputT, OutputT>.ProcessContext context;
+
+  DirectProcessContext(DoFn<InputT, OutputT> fn) {
+    PipelineOptions options = PipelineOptionsFactory.create();
+    context =
+        fn.new ProcessContext() {
+          @Override
+          public InputT element() {
+            return element;
+          }
+
+          @Override
+          public <T> T sideInput(PCollectionView<T> view) {
+            throw new UnsupportedOperationException("Side inputs are not supported");
+          }
+
+          @Override
+          public Instant timestamp() {
+            return BoundedWindow.TIMESTAMP_MIN_VALUE;
+          }
+
+          @Override
+          public PaneInfo pane() {
+            return PaneInfo.NO_FIRING;
+          }
+
+          @Override
+          public PipelineOptions getPipelineOptions() {
+            return options;
+          }
+
+          @Override
+          public void output(OutputT value) {
+            output = value;
+          }
+
+          @Override
+          public void outputWithTimestamp(OutputT value, Instant timestamp) {
+            output = value;
+          }
+
+          @Override
+          public void outputWindowedValue(
+              OutputT value,
+              Instant timestamp,
+              Collection<? extends BoundedWindow> windows,
+              PaneInfo paneInfo) {
+            output = value;
+          }
+
+          @Override
+          public <T> void output(TupleTag<T> tag, T value) {}
+
+          @Override
+          public <T> void outputWithTimestamp(TupleTag<T> tag, T value, Instant timestamp) {}
+
+          @Override
+          public <T> void outputWindowedValue(
+              TupleTag<T> tag,
+              T value,
+              Instant timestamp,
+              Collection<? extends BoundedWindow> windows,
+              PaneInfo paneInfo) {}
+        };
+  }
+
+  /** Returns the context to pass to {@code processElement}, set up with {@code element}. */
+  DoFn<InputT, OutputT>.ProcessContext with(InputT element) {
+    this.element = element;
+    this.output = null;
+    return context;
+  }
+
+  /** Returns the last main output. */
+  OutputT output() {
+    return output;
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.benchmarks;
+
+import com.google.cloud.teleport.v2.coders.FailsafeElementCoder;
+import com.google.cloud.teleport.v2.values.FailsafeElement;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures encoding and decoding of {@link FailsafeElement}s carrying JSON payloads, as they are
+ * passed between the stages of the streaming-to-BigQuery templates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FailsafeElementCoderBenchmark {
+
+  @Param({"NARROW", "WIDE", "NESTED"})
+  private Fixtures.Shape shape;
+
+  private final FailsafeElementCoder<String, String> coder =
+      FailsafeElementCoder.of(StringUtf8Coder.of(), StringUtf8Coder.of());
+  private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+  private FailsafeElement<String, String> element;
+  private byte[] encoded;
+
+  @Setup
+  public void setup() throws IOException {
+    String json = Fixtures.json(shape);
+    element =
+        FailsafeElement.of(json, json)
+            .setErrorMessage("Failed to serialize json to table row: " + json)
+            .setStacktrace("java.lang.RuntimeException\n\tat benchmarks.Fixtures.json");
+    coder.encode(element, output);
+    encoded = output.toByteArray();
+  }
+
+  @Benchmark
+  public int encode() throws IOException {
+    output.reset();
+    coder.encode(element, output);
+    return output.size();
+  }
+
+  @Benchmark
+  public FailsafeElement<String, String> decode() throws IOException {
+    return coder.decode(new ByteArrayInputStream(encoded));
+  }
+}
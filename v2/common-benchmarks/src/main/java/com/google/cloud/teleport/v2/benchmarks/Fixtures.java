@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.services.bigquery.model.TableFieldSchema;
+import com.google.api.services.bigquery.model.TableSchema;
+import com.google.cloud.bigquery.Field;
+import com.google.cloud.bigquery.FieldList;
+import com.google.cloud.bigquery.StandardSQLTypeName;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+/**
+ * Payload fixtures shared by the benchmarks.
+ *
+ * <p>Values are generated from a fixed seed so that every run measures the same payloads.
+ */
+public final class Fixtures {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /** Shapes of the JSON and tabular payloads. */
+  public enum Shape {
+    /** 8 top-level scalar columns. */
+    NARROW(8),
+    /** 200 top-level scalar columns. */
+    WIDE(200),
+    /** A few scalar columns plus nested records and repeated fields. */
+    NESTED(4);
+
+    private final int scalarColumns;
+
+    Shape(int scalarColumns) {
+      this.scalarColumns = scalarColumns;
+    }
+  }
+
+  /** BigQuery and Avro types of the scalar columns, used in turn. */
+  private enum ColumnType {
+    STRING,
+    INT64,
+    FLOAT64,
+    BOOL,
+    TIMESTAMP,
+    DATE,
+    DATETIME
+  }
+
+  private Fixtures() {}
+
+  private static ColumnType columnType(int column) {
+    return ColumnType.values()[column % ColumnType.values().length];
+  }
+
+  private static Object columnValue(ColumnType type, Random random) {
+    switch (type) {
+      case STRING:
+        return "value-" + Long.toHexString(random.nextLong());
+      case INT64:
+        return random.nextInt(1_000_000);
+      case FLOAT64:
+        return random.nextDouble() * 1000;
+      case BOOL:
+        return random.nextBoolean();
+      case TIMESTAMP:
+        return String.format("2024-03-%02dT12:34:56.789Z", 1 + random.nextInt(28));
+      case DATE:
+        return String.format("2024-03-%02dT00:00:00Z", 1 + random.nextInt(28));
+      case DATETIME:
+        return String.format("2024-03-%02dT12:34:56Z", 1 + random.nextInt(28));
+      default:
+        throw new IllegalArgumentException("Unknown column type " + type);
+    }
+  }
+
+  /** Returns a JSON object of the given shape. */
+  static String json(Shape shape) {
+    Random random = new Random(shape.ordinal());
+    Map<String, Object> object = new LinkedHashMap<>();
+    for (int i = 0; i < shape.scalarColumns; i++) {
+      object.put("col" + i, columnValue(columnType(i), random));
+    }
+    if (shape == Shape.NESTED) {
+      Map<String, Object> address = new LinkedHashMap<>();
+      address.put("street", "1600 Amphitheatre Parkway");
+      address.put("city", "Mountain View");
+      address.put("zip", 94043);
+      Map<String, Object> customer = new LinkedHashMap<>();
+      customer.put("name", "customer-" + random.nextInt(1000));
+      customer.put("address", address);
+      object.put("customer", customer);
+
+      List<Object> items = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("color", i % 2 == 0 ? "red" : "blue");
+        attributes.put("size", i);
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("sku", "sku-" + random.nextInt(100_000));
+        item.put("quantity", 1 + random.nextInt(10));
+        item.put("price", random.nextDouble() * 100);
+        item.put("attributes", attributes);
+        items.add(item);
+      }
+      object.put("items", items);
+      object.put("tags", List.of("new", "priority", "gift"));
+    }
+    try {
+      return MAPPER.writeValueAsString(object);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** Returns the BigQuery schema of {@link #json(Shape)}. */
+  static TableSchema tableSchema(Shape shape) {
+    List<TableFieldSchema> fields = new ArrayList<>();
+    for (int i = 0; i < shape.scalarColumns; i++) {
+      fields.add(field("col" + i, columnType(i).name()));
+    }
+    if (shape == Shape.NESTED) {
+      fields.add(
+          field("customer", "RECORD")
+              .setFields(
+                  List.of(
+                      field("name", "STRING"),
+                      field("address", "RECORD")
+                          .setFields(
+                              List.of(
+                                  field("street", "STRING"),
+                                  field("city", "STRING"),
+                                  field("zip", "INT64"))))));
+      fields.add(
+          field("items", "RECORD")
+              .setMode("REPEATED")
+              .setFields(
+                  List.of(
+                      field("sku", "STRING"),
+                      field("quantity", "INT64"),
+                      field("price", "FLOAT64"),
+                      field("attributes", "RECORD")
+                          .setFields(List.of(field("color", "STRING"), field("size", "INT64"))))));
+      fields.add(field("tags", "STRING").setMode("REPEATED"));
+    }
+    return new TableSchema().setFields(fields);
+  }
+
+  /** Returns the scalar columns of {@link #tableSchema(Shape)} as a client library field list. */
+  static FieldList fieldList(Shape shape) {
+    List<Field> fields = new ArrayList<>();
+    for (int i = 0; i < shape.scalarColumns; i++) {
+      fields.add(Field.of("col" + i, StandardSQLTypeName.valueOf(columnType(i).name())));
+    }
+    return FieldList.of(fields);
+  }
+
+  private static TableFieldSchema field(String name, String type) {
+    return new TableFieldSchema().setName(name).setType(type).setMode("NULLABLE");
+  }
+
+  /**
+   * Returns an Avro record schema with the scalar columns of the given shape. Timestamps, dates and
+   * datetimes are strings, and every fourth column is nullable.
+   */
+  static Schema avroSchema(Shape shape) {
+    SchemaBuilder.FieldAssembler<Schema> fields =
+        SchemaBuilder.record("Benchmark" + shape.name()).namespace("benchmarks").fields();
+    for (int i = 0; i < shape.scalarColumns; i++) {
+      SchemaBuilder.BaseFieldTypeBuilder<Schema> type =
+          i % 4 == 3 ? fields.name("col" + i).type().nullable() : fields.name("col" + i).type();
+      switch (columnType(i)) {
+        case INT64:
+          fields = type.longType().noDefault();
+          break;
+        case FLOAT64:
+          fields = type.doubleType().noDefault();
+          break;
+        case BOOL:
+          fields = type.booleanType().noDefault();
+          break;
+        default:
+          fields = type.stringType().noDefault();
+      }
+    }
+    return fields.endRecord();
+  }
+
+  /** Returns a record of {@link #avroSchema(Shape)}. */
+  static GenericRecord avroRecord(Shape shape) {
+    Random random = new Random(shape.ordinal());
+    GenericRecord record = new GenericData.Record(avroSchema(shape));
+    for (int i = 0; i < shape.scalarColumns; i++) {
+      Object value = columnValue(columnType(i), random);
+      record.put("col" + i, value instanceof Integer ? Long.valueOf((Integer) value) : value);
+    }
+    return record;
+  }
+
+  /** Returns a CSV line with the values of {@link #avroRecord(Shape)}. */
+  static String csvLine(Shape shape, String delimiter) {
+    GenericRecord record = avroRecord(shape);
+    StringBuilder line = new StringBuilder();
+    for (int i = 0; i < shape.scalarColumns; i++) {
+      if (i > 0) {
+        line.append(delimiter);
+      }
+      line.append(record.get(i));
+    }
+    return line.toString();
+  }
+}
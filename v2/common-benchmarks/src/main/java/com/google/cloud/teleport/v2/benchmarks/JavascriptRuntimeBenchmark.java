@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.benchmarks;
+
+import com.google.cloud.teleport.v2.transforms.JavascriptTextTransformer.JavascriptRuntime;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import javax.script.ScriptException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link JavascriptRuntime#invoke(String)} with a typical UDF that parses the payload,
+ * adds a field and serializes it back. The UDF is written to a local file so no GCS access is
+ * needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JavascriptRuntimeBenchmark {
+
+  private static final String UDF =
+      "function transform(inJson) {\n"
+          + "  var obj = JSON.parse(inJson);\n"
+          + "  obj.processed = true;\n"
+          + "  return JSON.stringify(obj);\n"
+          + "}\n";
+
+  @Param({"NARROW", "WIDE", "NESTED"})
+  private Fixtures.Shape shape;
+
+  private String json;
+  private Path udfPath;
+  private JavascriptRuntime runtime;
+
+  @Setup
+  public void setup() throws IOException, ScriptException, NoSuchMethodException {
+    json = Fixtures.json(shape);
+    udfPath = Files.createTempFile("udf", ".js");
+    Files.write(udfPath, UDF.getBytes(StandardCharsets.UTF_8));
+    runtime =
+        JavascriptRuntime.newBuilder()
+            .setFileSystemPath(udfPath.toString())
+            .setFunctionName("transform")
+            .build();
+    // Loads the script outside of the measurement.
+    runtime.invoke(json);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(udfPath);
+  }
+
+  @Benchmark
+  public String invoke() throws ScriptException, IOException, NoSuchMethodException {
+    return runtime.invoke(json);
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.benchmarks;
+
+import com.github.vincentrussell.json.datagenerator.JsonDataGenerator;
+import com.github.vincentrussell.json.datagenerator.JsonDataGeneratorException;
+import com.github.vincentrussell.json.datagenerator.impl.JsonDataGeneratorImpl;
+import com.google.cloud.teleport.v2.templates.CompiledMessageTemplate;
+import com.google.cloud.teleport.v2.templates.StreamingDataGenerator.SchemaTemplate;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark of the messages generated per second by a single thread, comparing {@link
+ * CompiledMessageTemplate} with interpreting the schema template for every message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(1)
+@Fork(1)
+public class MessageGeneratorBenchmark {
+
+  @Param({"GAME_EVENT", "LOG_ENTRY"})
+  public SchemaTemplate schemaTemplate;
+
+  private JsonDataGenerator dataGenerator;
+  private CompiledMessageTemplate template;
+
+  @Setup
+  public void setup() {
+    dataGenerator = new JsonDataGeneratorImpl();
+    template = CompiledMessageTemplate.compile(schemaTemplate.getSchema());
+  }
+
+  @Benchmark
+  public byte[] interpreted() throws IOException, JsonDataGeneratorException {
+    try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+      dataGenerator.generateTestDataJson(schemaTemplate.getSchema(), outputStream);
+      return outputStream.toByteArray();
+    }
+  }
+
+  @Benchmark
+  public byte[] compiled() throws IOException, JsonDataGeneratorException {
+    return template.generate(dataGenerator);
+  }
+}
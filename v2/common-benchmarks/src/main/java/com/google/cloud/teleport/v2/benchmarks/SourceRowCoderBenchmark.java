@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.benchmarks;
+
+import com.google.cloud.teleport.v2.source.reader.io.jdbc.iowrapper.config.SQLDialect;
+import com.google.cloud.teleport.v2.source.reader.io.row.SourceRow;
+import com.google.cloud.teleport.v2.source.reader.io.row.SourceRowCoder;
+import com.google.cloud.teleport.v2.source.reader.io.schema.SourceSchema;
+import com.google.cloud.teleport.v2.source.reader.io.schema.SourceSchemaReference;
+import com.google.cloud.teleport.v2.source.reader.io.schema.SourceTableSchema;
+import com.google.cloud.teleport.v2.spanner.migrations.schema.SourceColumnType;
+import java.util.concurrent.TimeUnit;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.CoderException;
+import org.apache.beam.sdk.coders.SerializableCoder;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark comparing {@link SourceRowCoder} with the {@link SerializableCoder} that Beam
+ * infers for {@link SourceRow} otherwise. The encoded sizes are compared in {@code
+ * SourceRowCoderTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SourceRowCoderBenchmark {
+
+  /** Number of columns of the benchmarked table, on top of the first and last names. */
+  @Param({"2", "50"})
+  public int extraColumns;
+
+  private Coder<SourceRow> sourceRowCoder;
+  private Coder<SourceRow> serializableCoder;
+  private SourceRow sourceRow;
+  private byte[] sourceRowCoderBytes;
+  private byte[] serializableCoderBytes;
+
+  @Setup
+  public void setup() throws CoderException {
+    SourceSchemaReference schemaReference =
+        SourceSchemaReference.builder().setNamespace("public").setDbName("mydb").build();
+    SourceTableSchema.Builder tableSchemaBuilder =
+        SourceTableSchema.builder(SQLDialect.MYSQL)
+            .setTableName("benchmarkTable")
+            .addSourceColumnNameToSourceColumnType(
+                "firstName", new SourceColumnType("varchar", new Long[] {20L}, null))
+            .addSourceColumnNameToSourceColumnType(
+                "lastName", new SourceColumnType("varchar", new Long[] {20L}, null));
+    for (int i = 0; i < extraColumns; i++) {
+      tableSchemaBuilder.addSourceColumnNameToSourceColumnType(
+          "col" + i, new SourceColumnType("bigint", new Long[] {}, null));
+    }
+    SourceTableSchema tableSchema = tableSchemaBuilder.build();
+
+    SourceRow.Builder rowBuilder =
+        SourceRow.builder(schemaReference, tableSchema, null, 1712751118L)
+            .setField("firstName", "Albert")
+            .setField("lastName", "Einstein");
+    for (int i = 0; i < extraColumns; i++) {
+      rowBuilder.setField("col" + i, (long) i);
+    }
+    sourceRow = rowBuilder.build();
+
+    sourceRowCoder =
+        SourceRowCoder.of(
+            SourceSchema.builder()
+                .setSchemaReference(schemaReference)
+                .addTableSchema(tableSchema)
+                .build());
+    serializableCoder = SerializableCoder.of(SourceRow.class);
+    sourceRowCoderBytes = CoderUtils.encodeToByteArray(sourceRowCoder, sourceRow);
+    serializableCoderBytes = CoderUtils.encodeToByteArray(serializableCoder, sourceRow);
+  }
+
+  @Benchmark
+  public byte[] encodeWithSourceRowCoder() throws CoderException {
+    return CoderUtils.encodeToByteArray(sourceRowCoder, sourceRow);
+  }
+
+  @Benchmark
+  public byte[] encodeWithSerializableCoder() throws CoderException {
+    return CoderUtils.encodeToByteArray(serializableCoder, sourceRow);
+  }
+
+  @Benchmark
+  public SourceRow decodeWithSourceRowCoder() throws CoderException {
+    return CoderUtils.decodeFromByteArray(sourceRowCoder, sourceRowCoderBytes);
+  }
+
+  @Benchmark
+  public SourceRow decodeWithSerializableCoder() throws CoderException {
+    return CoderUtils.decodeFromByteArray(serializableCoder, serializableCoderBytes);
+  }
+}
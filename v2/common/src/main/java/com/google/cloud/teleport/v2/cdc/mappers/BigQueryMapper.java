@@ -28,15 +28,17 @@ import com.google.cloud.bigquery.TableId;
 import com.google.cloud.teleport.v2.transforms.BigQueryConverters;
 import com.google.cloud.teleport.v2.utils.BigQueryTableCache;
 import com.google.cloud.teleport.v2.utils.GCSUtils;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.Striped;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
 import org.apache.beam.sdk.transforms.MapElements;
 import org.apache.beam.sdk.transforms.PTransform;
 import org.apache.beam.sdk.transforms.SimpleFunction;
@@ -63,10 +65,12 @@ public class BigQueryMapper<InputT, OutputT>
   private Map<String, StandardSQLTypeName> defaultSchema;
   private Set<String> ignoreFields = new HashSet<String>();
   private int mapperRetries = 5;
+  private long schemaUpdateWindowMillis = 0;
   private final String projectId;
   private static BigQueryTableCache tableCache;
-  private static final Cache<String, TableId> tableLockMap =
-      CacheBuilder.newBuilder().expireAfterWrite(10, TimeUnit.MINUTES).<String, TableId>build();
+  private static final Striped<Lock> tableLocks = Striped.lock(64);
+  private static final Map<TableId, KnownFields> knownFields = new ConcurrentHashMap<>();
+  private static final Map<TableId, Map<String, Field>> pendingFields = new ConcurrentHashMap<>();
 
   public BigQueryMapper(String projectId) {
     this.projectId = projectId;
@@ -144,6 +148,20 @@ public class BigQueryMapper<InputT, OutputT>
     return this;
   }
 
+  /**
+   * This function sets how long a table update waits for other rows to add their new fields, so
+   * that a burst of new columns results in a single table update. The table lock is held while
+   * waiting, so other rows with new fields for the table wait as well.
+   *
+   * @param schemaUpdateWindowMillis The time to wait in milliseconds, 0 (the default) to update
+   *     immediately.
+   */
+  public BigQueryMapper<InputT, OutputT> withSchemaUpdateWindowMillis(
+      long schemaUpdateWindowMillis) {
+    this.schemaUpdateWindowMillis = schemaUpdateWindowMillis;
+    return this;
+  }
+
   /**
    * This function sets a list of fields to be ignored when mapping new columns to a BigQuery Table.
    *
@@ -178,6 +196,14 @@ public class BigQueryMapper<InputT, OutputT>
     }
   }
 
+  /** Uses the given BigQuery client and table cache instead of creating them in {@link #setUp}. */
+  @VisibleForTesting
+  BigQueryMapper<InputT, OutputT> withBigQuery(BigQuery bigquery, BigQueryTableCache cache) {
+    this.bigquery = bigquery;
+    tableCache = cache;
+    return this;
+  }
+
   /** Sets all objects needed during mapper execution. */
   public void setUp() {
     if (this.bqTableRowCleaner == null) {
@@ -287,47 +313,81 @@ public class BigQueryMapper<InputT, OutputT>
    * Extracts and applies new column information to BigQuery by comparing the TableRow against the
    * BigQuery Table.
    *
+   * <p>Rows whose fields are all known are checked against the cached table without locking.
+   *
    * @param tableId a TableId referencing the BigQuery table to be loaded to.
    * @param row a TableRow with the raw data to be loaded into BigQuery.
    */
-  private void updateTableIfRequired(TableId tableId, TableRow row) {
+  @VisibleForTesting
+  void updateTableIfRequired(TableId tableId, TableRow row) {
     Table table = this.tableCache.getOrCreateBigQueryTable(tableId, this.dayPartitioning);
+    if (getKnownFields(tableId, table).containsAll(row.keySet(), this.ignoreFields)) {
+      return;
+    }
 
-    Map<String, StandardSQLTypeName> inputSchema = new HashMap<String, StandardSQLTypeName>();
+    Map<String, StandardSQLTypeName> inputSchema = getObjectSchema(tableId, row);
     List<Field> newFieldList = getNewTableFields(row, table, inputSchema, this.ignoreFields);
 
     if (newFieldList.size() > 0) {
       LOG.info("Updating Table: {}", tableId.toString());
-      updateBigQueryTable(tableId, row, this.ignoreFields);
+      updateBigQueryTable(tableId, newFieldList);
     }
   }
 
-  private static TableId getTableLock(TableId tableId) {
-    TableId tableLock = tableLockMap.getIfPresent(tableId.toString());
-    if (tableLock != null) {
-      return tableLock;
+  /* Returns the known fields of the table, recomputed whenever the cached table changes. */
+  private static KnownFields getKnownFields(TableId tableId, Table table) {
+    KnownFields fields = knownFields.get(tableId);
+    if (fields == null || fields.table != table) {
+      fields = new KnownFields(table);
+      knownFields.put(tableId, fields);
     }
+    return fields;
+  }
 
-    synchronized (tableLockMap) {
-      tableLock = tableLockMap.getIfPresent(tableId.toString());
-      if (tableLock != null) {
-        return tableLock;
-      }
-
-      tableLockMap.put(tableId.toString(), tableId);
-      return tableId;
+  /*
+   * Update BigQuery Table Object Supplied.
+   *
+   * New fields are registered as pending for the table before its lock is taken. The thread that
+   * gets the lock waits for the update window, then adds every pending field in a single table
+   * update. Threads waiting on the lock find their fields known once they get it.
+   */
+  private void updateBigQueryTable(TableId tableId, List<Field> newFieldList) {
+    Map<String, Field> pending =
+        pendingFields.computeIfAbsent(tableId, k -> new ConcurrentHashMap<>());
+    for (Field field : newFieldList) {
+      pending.putIfAbsent(field.getName(), field);
     }
-  }
 
-  /* Update BigQuery Table Object Supplied */
-  private void updateBigQueryTable(TableId tableId, TableRow row, Set<String> ignoreFields) {
-    TableId tableLock = getTableLock(tableId);
-    synchronized (tableLock) {
+    Lock tableLock = tableLocks.get(tableId);
+    tableLock.lock();
+    try {
+      if (getKnownFields(tableId, this.tableCache.get(tableId)).containsAll(newFieldList)) {
+        return;
+      }
+      if (this.schemaUpdateWindowMillis > 0) {
+        try {
+          Thread.sleep(this.schemaUpdateWindowMillis);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
       Table table = this.tableCache.get(tableId);
-      Map<String, StandardSQLTypeName> inputSchema = getObjectSchema(tableId, row);
+      KnownFields tableFields = getKnownFields(tableId, table);
+      // The fields of this row come first, as an earlier failed update may have dropped them.
+      Map<String, Field> batch = new LinkedHashMap<>();
+      for (Field field : newFieldList) {
+        batch.put(field.getName(), field);
+      }
+      for (Field field : pending.values()) {
+        batch.putIfAbsent(field.getName(), field);
+      }
+      batch.keySet().removeIf(tableFields.names::contains);
+      if (batch.isEmpty()) {
+        return;
+      }
 
-      List<Field> newFieldList = getNewTableFields(row, table, inputSchema, ignoreFields);
-      if (newFieldList.size() > 0) {
+      try {
         // Add all current columns to the list
         List<Field> fieldList = new ArrayList<Field>();
         for (Field field : table.getDefinition().getSchema().getFields()) {
@@ -335,18 +395,20 @@ public class BigQueryMapper<InputT, OutputT>
         }
 
         // Add all new columns to the list
-        LOG.info("Mapping New Columns for: {} -> {}", tableId.toString(), newFieldList.toString());
-        for (Field field : newFieldList) {
-          fieldList.add(field);
-        }
+        LOG.info("Mapping New Columns for: {} -> {}", tableId.toString(), batch.values());
+        fieldList.addAll(batch.values());
 
         Schema newSchema = Schema.of(fieldList);
-        Table updatedTable =
-            table.toBuilder().setDefinition(StandardTableDefinition.of(newSchema)).build().update();
+        table.toBuilder().setDefinition(StandardTableDefinition.of(newSchema)).build().update();
         LOG.info("Updated Table: {}", tableId.toString());
 
         this.tableCache.reset(tableId, table);
+      } finally {
+        // Rows whose fields are still missing after a failed update register them again on retry.
+        pending.keySet().removeAll(batch.keySet());
       }
+    } finally {
+      tableLock.unlock();
     }
   }
 
@@ -384,4 +446,38 @@ public class BigQueryMapper<InputT, OutputT>
 
     newFieldList.add(newField);
   }
+
+  /** Field names of a cached table, so that known rows are checked without locking. */
+  private static class KnownFields {
+    private final Table table;
+    private final Set<String> names = new HashSet<>();
+
+    KnownFields(Table table) {
+      this.table = table;
+      Schema schema = table.getDefinition().getSchema();
+      if (schema != null) {
+        for (Field field : schema.getFields()) {
+          names.add(field.getName());
+        }
+      }
+    }
+
+    boolean containsAll(Set<String> rowKeys, Set<String> ignoreFields) {
+      for (String rowKey : rowKeys) {
+        if (!ignoreFields.contains(rowKey) && !names.contains(rowKey)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    boolean containsAll(List<Field> fields) {
+      for (Field field : fields) {
+        if (!names.contains(field.getName())) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
 }
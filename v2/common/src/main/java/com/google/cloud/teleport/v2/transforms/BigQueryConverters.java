@@ -20,6 +20,7 @@ import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Pr
 
 import com.google.api.client.json.JsonFactory;
 import com.google.api.services.bigquery.model.TableRow;
+import com.google.api.services.bigquery.model.TableSchema;
 import com.google.auto.value.AutoValue;
 import com.google.cloud.bigquery.Field;
 import com.google.cloud.bigquery.LegacySQLTypeName;
@@ -27,6 +28,7 @@ import com.google.cloud.teleport.metadata.TemplateParameter;
 import com.google.cloud.teleport.v2.options.BigQueryCommonOptions.WriteOptions;
 import com.google.cloud.teleport.v2.transforms.JavascriptTextTransformer.JavascriptTextTransformerOptions;
 import com.google.cloud.teleport.v2.utils.SerializableSchemaSupplier;
+import com.google.cloud.teleport.v2.utils.TableRowJsonParser;
 import com.google.cloud.teleport.v2.values.FailsafeElement;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
@@ -41,6 +43,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
+import javax.annotation.Nullable;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.beam.sdk.coders.Coder.Context;
@@ -248,19 +251,37 @@ public class BigQueryConverters {
 
     public abstract TupleTag<FailsafeElement<T, String>> failureTag();
 
+    /**
+     * Schema of the destination table as {@link TableSchema} JSON. When set, the payloads are read
+     * with a {@link TableRowJsonParser} compiled from it, and payloads that do not match the schema
+     * are sent to the failure tag.
+     */
+    @Nullable
+    public abstract String tableSchemaJson();
+
     @Override
     public PCollectionTuple expand(PCollection<FailsafeElement<T, String>> failsafeElements) {
       return failsafeElements.apply(
           "JsonToTableRow",
           ParDo.of(
                   new DoFn<FailsafeElement<T, String>, TableRow>() {
+                    private transient TableRowJsonParser parser;
+
+                    @Setup
+                    public void setup() {
+                      if (tableSchemaJson() != null) {
+                        parser = TableRowJsonParser.forSchemaJson(tableSchemaJson());
+                      }
+                    }
+
                     @ProcessElement
                     public void processElement(ProcessContext context) {
                       FailsafeElement<T, String> element = context.element();
                       String json = element.getPayload();
 
                       try {
-                        TableRow row = convertJsonToTableRow(json);
+                        TableRow row =
+                            parser == null ? convertJsonToTableRow(json) : parser.parse(json);
                         context.output(row);
                       } catch (Exception e) {
                         context.output(
@@ -282,6 +303,8 @@ public class BigQueryConverters {
 
       public abstract Builder<T> setFailureTag(TupleTag<FailsafeElement<T, String>> failureTag);
 
+      public abstract Builder<T> setTableSchemaJson(@Nullable String tableSchemaJson);
+
       public abstract FailsafeJsonToTableRow<T> build();
     }
   }
@@ -33,7 +33,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import javax.script.Invocable;
@@ -138,15 +141,28 @@ public abstract class JavascriptTextTransformer {
     @Nullable
     public abstract Integer reloadIntervalMinutes();
 
+    /**
+     * Maximum number of script engines kept per worker for this runtime. Defaults to the number of
+     * available processors when not set.
+     */
+    @Nullable
+    public abstract Integer enginePoolSize();
+
     private static final Distribution JAVASCRIPT_RELOAD_LATENCY_MS =
         Metrics.distribution(JavascriptTextTransformer.class, "javascript_reload_latency_ms");
 
-    private static LoadingCache<JavascriptRuntime, Invocable> cache =
+    private static final Distribution JAVASCRIPT_POOL_WAIT_TIME_US =
+        Metrics.distribution(JavascriptTextTransformer.class, "javascript_pool_wait_time_us");
+
+    private static final Distribution JAVASCRIPT_INVOKE_LATENCY_US =
+        Metrics.distribution(JavascriptTextTransformer.class, "javascript_invoke_latency_us");
+
+    private static LoadingCache<JavascriptRuntime, InvocablePool> cache =
         Caffeine.newBuilder()
             .expireAfter(
-                new Expiry<JavascriptRuntime, Invocable>() {
+                new Expiry<JavascriptRuntime, InvocablePool>() {
                   public long expireAfterCreate(
-                      JavascriptRuntime runtime, Invocable invocable, long currentTime) {
+                      JavascriptRuntime runtime, InvocablePool pool, long currentTime) {
                     // Do not expire if reload is disabled
                     if (runtime.reloadIntervalMinutes() == null
                         || runtime.reloadIntervalMinutes() <= 0) {
@@ -157,7 +173,7 @@ public abstract class JavascriptTextTransformer {
 
                   public long expireAfterUpdate(
                       JavascriptRuntime runtime,
-                      Invocable invocable,
+                      InvocablePool pool,
                       long currentTime,
                       long currentDuration) {
                     return currentDuration;
@@ -165,13 +181,13 @@ public abstract class JavascriptTextTransformer {
 
                   public long expireAfterRead(
                       JavascriptRuntime runtime,
-                      Invocable invocable,
+                      InvocablePool pool,
                       long currentTime,
                       long currentDuration) {
                     return currentDuration;
                   }
                 })
-            .build(runtime -> buildInvocable(runtime));
+            .build(runtime -> buildInvocablePool(runtime));
 
     private Instant lastRefreshCheck = Instant.now();
 
@@ -184,6 +200,8 @@ public abstract class JavascriptTextTransformer {
 
       public abstract Builder setReloadIntervalMinutes(@Nullable Integer value);
 
+      public abstract Builder setEnginePoolSize(@Nullable Integer value);
+
       public abstract JavascriptRuntime build();
     }
 
@@ -197,12 +215,23 @@ public abstract class JavascriptTextTransformer {
     }
 
     /**
-     * Gets a cached Javascript Invocable, if fileSystemPath() not set, returns null.
+     * Gets a cached Javascript Invocable, if fileSystemPath() not set, returns null. The returned
+     * engine is also handed out to {@link #invoke(String)} callers, so it should only be used to
+     * check that the UDF loads.
      *
      * @return a Javascript Invocable or null
      */
     @Nullable
     public Invocable getInvocable() throws ScriptException, IOException {
+      InvocablePool pool = getInvocablePool();
+      return pool == null ? null : pool.primary();
+    }
+
+    /**
+     * Gets the cached pool of engines for this runtime, if fileSystemPath() not set, returns null.
+     */
+    @Nullable
+    private InvocablePool getInvocablePool() {
 
       // return null if no UDF path specified.
       if (Strings.isNullOrEmpty(fileSystemPath())) {
@@ -227,11 +256,15 @@ public abstract class JavascriptTextTransformer {
       return (Invocable) engine;
     }
 
-    private static Invocable buildInvocable(JavascriptRuntime runtime)
+    private static InvocablePool buildInvocablePool(JavascriptRuntime runtime)
         throws IOException, ScriptException {
       // List of all scripts read from the filesystem
       Collection<String> scripts = getScripts(runtime.fileSystemPath());
-      return newInvocable(scripts);
+      int poolSize =
+          runtime.enginePoolSize() != null && runtime.enginePoolSize() > 0
+              ? runtime.enginePoolSize()
+              : Runtime.getRuntime().availableProcessors();
+      return new InvocablePool(scripts, poolSize);
     }
 
     private static ScriptEngine getJavaScriptEngine() {
@@ -265,15 +298,53 @@ public abstract class JavascriptTextTransformer {
      */
     @Nullable
     public String invoke(String data) throws ScriptException, IOException, NoSuchMethodException {
-      Invocable invocable = getInvocable();
-      if (invocable == null) {
+      InvocablePool pool = getInvocablePool();
+      if (pool == null) {
         throw new RuntimeException("No UDF was loaded");
       }
 
-      Object result;
-      synchronized (invocable) {
-        result = invocable.invokeFunction(functionName(), data);
+      Invocable invocable = pool.borrow();
+      try {
+        return invokeFunction(invocable, data);
+      } finally {
+        pool.release(invocable);
       }
+    }
+
+    /**
+     * Invokes the UDF with each element of a batch while holding a single engine, which avoids
+     * going back to the pool for every element.
+     *
+     * @param data data to pass to the invocable function, one call per element
+     * @return The data transformed by the UDF, in the same order as the input. Elements which the
+     *     UDF filtered out are null.
+     */
+    public List<String> invokeBatch(List<String> data)
+        throws ScriptException, IOException, NoSuchMethodException {
+      InvocablePool pool = getInvocablePool();
+      if (pool == null) {
+        throw new RuntimeException("No UDF was loaded");
+      }
+
+      List<String> results = new ArrayList<>(data.size());
+      Invocable invocable = pool.borrow();
+      try {
+        for (String element : data) {
+          results.add(invokeFunction(invocable, element));
+        }
+      } finally {
+        pool.release(invocable);
+      }
+      return results;
+    }
+
+    @Nullable
+    private String invokeFunction(Invocable invocable, String data)
+        throws ScriptException, NoSuchMethodException {
+      long startNanos = System.nanoTime();
+      Object result = invocable.invokeFunction(functionName(), data);
+      JAVASCRIPT_INVOKE_LATENCY_US.update(
+          TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
       if (result == null || ScriptObjectMirror.isUndefined(result)) {
         return null;
       } else if (result instanceof String) {
@@ -312,6 +383,67 @@ public abstract class JavascriptTextTransformer {
               })
           .collect(Collectors.toList());
     }
+
+    /**
+     * A bounded pool of script engines loaded with the same scripts. Nashorn engines are not safe
+     * for concurrent use, so each caller borrows an engine exclusively instead of locking a single
+     * shared one. Engines beyond the first are created lazily, so a worker only pays for as many
+     * engines as it has concurrent callers, up to {@code maxSize}.
+     */
+    private static class InvocablePool {
+      private final Collection<String> scripts;
+      private final int maxSize;
+      private final Invocable primary;
+      private final BlockingQueue<Invocable> idle = new LinkedBlockingQueue<>();
+      private final AtomicInteger created = new AtomicInteger(1);
+
+      InvocablePool(Collection<String> scripts, int maxSize) throws ScriptException {
+        this.scripts = scripts;
+        this.maxSize = maxSize;
+        this.primary = newInvocable(scripts);
+        idle.add(primary);
+      }
+
+      Invocable primary() {
+        return primary;
+      }
+
+      Invocable borrow() throws ScriptException {
+        Invocable invocable = idle.poll();
+        if (invocable != null) {
+          JAVASCRIPT_POOL_WAIT_TIME_US.update(0);
+          return invocable;
+        }
+
+        int count = created.get();
+        while (count < maxSize) {
+          if (created.compareAndSet(count, count + 1)) {
+            try {
+              return newInvocable(scripts);
+            } catch (ScriptException | RuntimeException e) {
+              created.decrementAndGet();
+              throw e;
+            }
+          }
+          count = created.get();
+        }
+
+        long startNanos = System.nanoTime();
+        try {
+          invocable = idle.take();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new RuntimeException("Interrupted while waiting for a JavaScript engine", e);
+        }
+        JAVASCRIPT_POOL_WAIT_TIME_US.update(
+            TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+        return invocable;
+      }
+
+      void release(Invocable invocable) {
+        idle.add(invocable);
+      }
+    }
   }
 
   /** Transforms Text Strings via a Javascript UDF. */
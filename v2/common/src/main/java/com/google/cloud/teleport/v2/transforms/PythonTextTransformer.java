@@ -21,23 +21,29 @@ import com.google.auto.value.AutoValue;
 import com.google.cloud.teleport.metadata.TemplateParameter;
 import com.google.cloud.teleport.v2.values.FailsafeElement;
 import com.google.common.base.Strings;
+import com.google.common.base.Utf8;
 import com.google.common.io.CharStreams;
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
+import com.google.common.io.Resources;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.Serializable;
 import java.io.UncheckedIOException;
 import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
@@ -58,6 +64,8 @@ import org.apache.beam.sdk.values.PCollection;
 import org.apache.beam.sdk.values.PCollectionTuple;
 import org.apache.beam.sdk.values.TupleTag;
 import org.apache.beam.sdk.values.TupleTagList;
+import org.joda.time.Instant;
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -131,15 +139,16 @@ public abstract class PythonTextTransformer implements Serializable {
     @Nullable
     public abstract Integer runtimeRetries();
 
-    private ProcessBuilder process;
-
-    private Process runtime;
-
     private Process installRuntime;
     private Boolean pythonWasBuilt = false;
     private final ReentrantLock pythonInstallLock = new ReentrantLock();
     private static String missingPythonErrorMessage = "Cannot run program \"python";
 
+    /** Maximum number of Python processes serving the same UDF in the worker JVM. */
+    static final int MAX_WORKER_PROCESSES = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    private PythonWorkerPool workerPool;
+
     /** Builder for {@link PythonTextTransformer}. */
     @AutoValue.Builder
     public abstract static class Builder {
@@ -164,45 +173,6 @@ public abstract class PythonTextTransformer implements Serializable {
       return new AutoValue_PythonTextTransformer_PythonRuntime.Builder();
     }
 
-    /**
-     * Gets a cached Javascript Invocable, if fileSystemPath() not set, returns null. NEED
-     * REPLACEMENT FOR INVOCABLE
-     *
-     * @return a python Invocable or null
-     */
-    @Nullable
-    public ProcessBuilder getProcessBuilder() throws IOException {
-
-      // return null if no UDF path specified.
-      if (Strings.isNullOrEmpty(fileSystemPath())) {
-        throw new IllegalArgumentException("Python UDF Transform: no file provided.");
-      }
-
-      if (process == null) {
-        Collection<String> scripts = getScripts(fileSystemPath());
-        FileWriter writer = new FileWriter(functionName());
-        if (scripts.size() == 0) {
-          throw new IllegalArgumentException(
-              String.format("Python UDF Transform: file %s not valid.", fileSystemPath()));
-        }
-        for (String str : scripts) {
-          writer.write(str + System.lineSeparator());
-        }
-        writer.close();
-
-        process = newProcess();
-      }
-      return process;
-    }
-
-    /** Factory method for making a new Invocable. */
-    @Nullable
-    private static ProcessBuilder newProcess() {
-      ProcessBuilder pb = new ProcessBuilder();
-
-      return pb;
-    }
-
     /**
      * Build Python Runtime Environment.
      *
@@ -238,83 +208,76 @@ public abstract class PythonTextTransformer implements Serializable {
     }
 
     /**
-     * Invokes the UDF with specified list of data.
+     * Applies the UDF to a micro-batch of payloads through a long-lived Python process. Results are
+     * correlated to the input by position, so the returned array always has one entry per payload.
+     * Each entry has a {@code status} of either {@code SUCCESS}, with the transformed {@code
+     * events}, or {@code FAILED}, with an {@code error_message}.
+     *
+     * <p>The processes are shared by every runtime of the worker JVM that serves the same UDF, and
+     * at most {@link #MAX_WORKER_PROCESSES} of them are started; a batch waits for a free process
+     * when they are all busy. If the process dies or the pipe breaks, it is replaced and the batch
+     * is retried up to {@link #runtimeRetries()} times.
      *
-     * @param data data to pass to the invocable function
-     * @return The data transformed by the UDF in String format
+     * @param payloads JSON payloads to pass to the UDF
+     * @return the UDF results, in the same order as the payloads
      */
-    @Nullable
-    public List<String> invoke(File file, Integer retries)
-        throws IOException, NoSuchMethodException, InterruptedException {
-      // Save Data in Temporary File
-      LOG.info("Applying runtime");
-
-      // Apply Python
-      List<String> results = applyRuntimeToFile(file, retries);
-
-      return results;
-    }
-
-    @Nullable
-    public List<String> applyRuntimeToFile(File dataFile, Integer retries)
+    public JSONArray invokeBatch(List<String> payloads)
         throws IOException, NoSuchMethodException, InterruptedException {
-      // Vars Required in function
-      Process runtime;
-      String pythonVersion = runtimeVersion();
-      Integer retriesRemaining = retries - 1;
-      String stderr;
-
-      // Apply Python
-      try {
-        LOG.info("Apply Python to File: " + dataFile.getAbsolutePath());
-        runtime =
-            getProcessBuilder()
-                .command(pythonVersion, functionName(), dataFile.getAbsolutePath())
-                .start();
-        LOG.info("Waiting For Results: " + dataFile.getAbsolutePath());
-        if (retriesRemaining > 0) {
-          if (runtime != null) {
-            runtime.destroyForcibly();
-          }
-          return applyRuntimeToFile(dataFile, retriesRemaining);
+      StringBuilder request = new StringBuilder("[");
+      for (int i = 0; i < payloads.size(); i++) {
+        if (i > 0) {
+          request.append(',');
         }
-      } catch (IOException e) {
-        LOG.info("IO Exception Seen");
-        if (e.getMessage().startsWith(missingPythonErrorMessage)) {
-          // Build Python and Retry
-          buildPythonExecutable(pythonVersion);
-          if (retriesRemaining > 0) {
-            return applyRuntimeToFile(dataFile, retriesRemaining);
-          } else {
+        request.append(JSONObject.quote(payloads.get(i)));
+      }
+      byte[] frame = request.append(']').toString().getBytes(StandardCharsets.UTF_8);
+
+      if (workerPool == null) {
+        workerPool = PythonWorkerPool.acquire(fileSystemPath(), functionName(), pythonCommand());
+      }
+      int attempts = runtimeRetries() != null && runtimeRetries() > 0 ? runtimeRetries() : 1;
+      while (true) {
+        PythonWorker worker = null;
+        boolean healthy = false;
+        try {
+          worker = workerPool.borrow();
+          JSONArray results = worker.invoke(frame, payloads.size());
+          healthy = true;
+          return results;
+        } catch (IOException e) {
+          if (--attempts <= 0) {
             throw e;
           }
-        } else {
-          throw e;
+          LOG.warn("Python UDF worker failed, restarting it: {}", e.getMessage());
+          if (e.getMessage() != null && e.getMessage().startsWith(missingPythonErrorMessage)) {
+            buildPythonExecutable(runtimeVersion());
+          }
+        } finally {
+          if (worker != null) {
+            workerPool.release(worker, healthy);
+          }
         }
-      } catch (Exception e) {
-        LOG.info("Non IO Exception Seen");
-        throw e;
       }
+    }
 
-      // Test Runtime Exists (should not be possible to hit this case)
-      if (runtime == null) {
-        throw new IOException("no runtime was provided");
-      }
+    /** Returns the number of Python processes serving this runtime's UDF in the worker JVM. */
+    int processCount() {
+      return workerPool == null ? 0 : workerPool.processCount();
+    }
 
-      // Process Python Results
-      LOG.info("Process Python Results: " + dataFile.getAbsolutePath());
-      List<String> results = new ArrayList<>();
-      try {
-        final BufferedReader reader =
-            new BufferedReader(new InputStreamReader(runtime.getInputStream()));
-        reader.lines().iterator().forEachRemaining(results::add);
-      } catch (Exception e) {
-        e.printStackTrace();
-      } finally {
-        runtime.destroy();
-      }
+    private String pythonCommand() {
+      return runtimeVersion() != null ? runtimeVersion() : DEFAULT_PYTHON_VERSION;
+    }
 
-      return results;
+    /**
+     * Releases this runtime's share of the Python processes. The processes and their temporary
+     * files are removed once no runtime of the worker JVM serves the UDF any more.
+     */
+    public void close() throws IOException {
+      if (workerPool != null) {
+        PythonWorkerPool.release(workerPool);
+        workerPool = null;
+      }
     }
 
     /**
@@ -350,6 +313,184 @@ public abstract class PythonTextTransformer implements Serializable {
     }
   }
 
+  /**
+   * The Python processes serving one UDF in the worker JVM, shared by all of its {@link
+   * PythonRuntime}s. Each process is used by one batch at a time.
+   */
+  private static class PythonWorkerPool {
+
+    /** Classpath location of the driver that serves the UDF from a long-lived process. */
+    private static final String WORKER_SCRIPT_RESOURCE = "python/udf_worker.py";
+
+    /** Pools by UDF path, function name and Python command. */
+    private static final Map<List<String>, PythonWorkerPool> POOLS = new HashMap<>();
+
+    private final List<String> key;
+    private final String functionName;
+    private final String pythonCommand;
+    private final Path udfScriptFile;
+    private final Path workerScriptFile;
+    private final Deque<PythonWorker> idleWorkers = new ArrayDeque<>();
+    private int processCount;
+    private int references;
+    private boolean closed;
+
+    private PythonWorkerPool(
+        List<String> key,
+        String functionName,
+        String pythonCommand,
+        Path udfScriptFile,
+        Path workerScriptFile) {
+      this.key = key;
+      this.functionName = functionName;
+      this.pythonCommand = pythonCommand;
+      this.udfScriptFile = udfScriptFile;
+      this.workerScriptFile = workerScriptFile;
+    }
+
+    static synchronized PythonWorkerPool acquire(
+        String fileSystemPath, String functionName, String pythonCommand) throws IOException {
+      if (Strings.isNullOrEmpty(fileSystemPath)) {
+        throw new IllegalArgumentException("Python UDF Transform: no file provided.");
+      }
+      List<String> key = Arrays.asList(fileSystemPath, functionName, pythonCommand);
+      PythonWorkerPool pool = POOLS.get(key);
+      if (pool == null) {
+        Collection<String> scripts = PythonRuntime.getScripts(fileSystemPath);
+        if (scripts.isEmpty()) {
+          throw new IllegalArgumentException(
+              String.format("Python UDF Transform: file %s not valid.", fileSystemPath));
+        }
+        Path udfScriptFile = Files.createTempFile("python_udf_", ".py");
+        Files.write(
+            udfScriptFile,
+            String.join(System.lineSeparator(), scripts).getBytes(StandardCharsets.UTF_8));
+        Path workerScriptFile = Files.createTempFile("python_udf_worker_", ".py");
+        Files.write(
+            workerScriptFile, Resources.toByteArray(Resources.getResource(WORKER_SCRIPT_RESOURCE)));
+        pool =
+            new PythonWorkerPool(key, functionName, pythonCommand, udfScriptFile, workerScriptFile);
+        POOLS.put(key, pool);
+      }
+      pool.references++;
+      return pool;
+    }
+
+    static synchronized void release(PythonWorkerPool pool) throws IOException {
+      if (--pool.references > 0) {
+        return;
+      }
+      POOLS.remove(pool.key);
+      synchronized (pool) {
+        pool.closed = true;
+        for (PythonWorker worker : pool.idleWorkers) {
+          worker.stop();
+        }
+        pool.processCount -= pool.idleWorkers.size();
+        pool.idleWorkers.clear();
+      }
+      Files.deleteIfExists(pool.udfScriptFile);
+      Files.deleteIfExists(pool.workerScriptFile);
+    }
+
+    /**
+     * Returns an idle process, starting a new one if fewer than {@link
+     * PythonRuntime#MAX_WORKER_PROCESSES} are running, or waits for one to be released.
+     */
+    synchronized PythonWorker borrow() throws IOException, InterruptedException {
+      while (true) {
+        PythonWorker idle = idleWorkers.poll();
+        if (idle != null) {
+          if (idle.isAlive()) {
+            return idle;
+          }
+          idle.stop();
+          processCount--;
+        } else if (processCount < PythonRuntime.MAX_WORKER_PROCESSES) {
+          processCount++;
+          try {
+            LOG.info("Starting Python UDF worker {} for {}", processCount, key.get(0));
+            return PythonWorker.start(pythonCommand, workerScriptFile, udfScriptFile, functionName);
+          } catch (IOException | RuntimeException e) {
+            processCount--;
+            throw e;
+          }
+        } else {
+          wait();
+        }
+      }
+    }
+
+    /** Returns a process to the pool, or stops it if it is no longer usable. */
+    synchronized void release(PythonWorker worker, boolean healthy) {
+      if (healthy && !closed && worker.isAlive()) {
+        idleWorkers.push(worker);
+      } else {
+        worker.stop();
+        processCount--;
+      }
+      notifyAll();
+    }
+
+    synchronized int processCount() {
+      return processCount;
+    }
+  }
+
+  /** A long-lived Python process serving one UDF over its stdin and stdout. */
+  private static class PythonWorker {
+    private final Process process;
+    private final DataOutputStream input;
+    private final DataInputStream output;
+
+    private PythonWorker(Process process) {
+      this.process = process;
+      this.input = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+      this.output = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+    }
+
+    static PythonWorker start(
+        String pythonCommand, Path workerScriptFile, Path udfScriptFile, String functionName)
+        throws IOException {
+      return new PythonWorker(
+          new ProcessBuilder()
+              .command(
+                  pythonCommand,
+                  "-u",
+                  workerScriptFile.toString(),
+                  udfScriptFile.toString(),
+                  functionName)
+              .redirectError(ProcessBuilder.Redirect.INHERIT)
+              .start());
+    }
+
+    /** Sends one request frame and returns the results, checking there is one per payload. */
+    JSONArray invoke(byte[] frame, int expectedResults) throws IOException {
+      input.writeInt(frame.length);
+      input.write(frame);
+      input.flush();
+
+      byte[] response = new byte[output.readInt()];
+      output.readFully(response);
+      JSONArray results = new JSONArray(new String(response, StandardCharsets.UTF_8));
+      if (results.length() != expectedResults) {
+        throw new IOException(
+            String.format(
+                "Python UDF worker returned %d results for %d events",
+                results.length(), expectedResults));
+      }
+      return results;
+    }
+
+    boolean isAlive() {
+      return process.isAlive();
+    }
+
+    void stop() {
+      process.destroyForcibly();
+    }
+  }
+
   /**
    * The {@link FailsafePythonUdf} class processes user-defined functions is a fail-safe manner by
    * maintaining the original payload post-transformation and outputting to a dead-letter on
@@ -367,6 +508,12 @@ public abstract class PythonTextTransformer implements Serializable {
 
     public abstract @Nullable Integer runtimeRetries();
 
+    /** Maximum number of events sent to the Python process at once. */
+    public abstract @Nullable Integer batchSize();
+
+    /** Maximum number of payload bytes sent to the Python process at once. */
+    public abstract @Nullable Integer batchBytes();
+
     public abstract TupleTag<FailsafeElement<T, String>> successTag();
 
     public abstract TupleTag<FailsafeElement<T, String>> failureTag();
@@ -375,6 +522,10 @@ public abstract class PythonTextTransformer implements Serializable {
       return new AutoValue_PythonTextTransformer_FailsafePythonUdf.Builder<>();
     }
 
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final int DEFAULT_BATCH_BYTES = 4 * 1024 * 1024;
+
     private Counter successCounter =
         Metrics.counter(FailsafePythonUdf.class, "udf-transform-success-count");
 
@@ -396,6 +547,10 @@ public abstract class PythonTextTransformer implements Serializable {
 
       public abstract Builder<T> setRuntimeRetries(@Nullable Integer runtimeRetries);
 
+      public abstract Builder<T> setBatchSize(@Nullable Integer batchSize);
+
+      public abstract Builder<T> setBatchBytes(@Nullable Integer batchBytes);
+
       public abstract Builder<T> setSuccessTag(TupleTag<FailsafeElement<T, String>> successTag);
 
       public abstract Builder<T> setFailureTag(TupleTag<FailsafeElement<T, String>> failureTag);
@@ -418,23 +573,24 @@ public abstract class PythonTextTransformer implements Serializable {
           ParDo.of(
                   new DoFn<FailsafeElement<T, String>, FailsafeElement<T, String>>() {
                     private PythonRuntime pythonRuntime;
-                    private Integer batchLimit;
-                    private Integer batchCounter;
-                    private HashMap<String, FailsafeElement<T, String>> futures;
-                    private String processUUID;
-                    private File manifestFile;
-                    private BufferedWriter dataWriter;
-                    private BoundedWindow window;
+                    private int batchLimit;
+                    private int batchBytesLimit;
+                    // Elements are buffered per window so results can be emitted into the window
+                    // of the element that produced them.
+                    private Map<BoundedWindow, PendingBatch<T>> pendingBatches;
 
                     @Setup
                     public void setup()
                         throws IOException, NoSuchMethodException, InterruptedException {
                       String runtimeVersion = getPythonVersion();
+                      batchLimit = batchSize() != null ? batchSize() : DEFAULT_BATCH_SIZE;
+                      batchBytesLimit = batchBytes() != null ? batchBytes() : DEFAULT_BATCH_BYTES;
 
                       if (fileSystemPath() != null && functionName() != null) {
                         LOG.info("getting runtime!");
                         pythonRuntime =
-                            getPythonRuntime(fileSystemPath(), functionName(), runtimeVersion);
+                            getPythonRuntime(
+                                fileSystemPath(), functionName(), runtimeVersion, runtimeRetries());
                         LOG.info("Build Python Env for version {}", runtimeVersion);
 
                         pythonRuntime.buildPythonExecutable(runtimeVersion);
@@ -449,93 +605,111 @@ public abstract class PythonTextTransformer implements Serializable {
                     }
 
                     @StartBundle
-                    public void startBundle(StartBundleContext context) throws IOException {
-                      batchCounter = 0;
-                      batchLimit = 1000;
-                      processUUID = UUID.randomUUID().toString();
-                      manifestFile =
-                          File.createTempFile(String.format("manifest_%s", processUUID), null);
-                      futures = new HashMap<String, FailsafeElement<T, String>>();
-                      dataWriter =
-                          new BufferedWriter(new FileWriter(manifestFile.getAbsolutePath()));
-                      LOG.info("file is at {}", manifestFile.getAbsolutePath());
-
-                      // initialize a temp file (non local) and a counter
-                      // TODO: createFile function
-
+                    public void startBundle() {
+                      pendingBatches = new HashMap<>();
                     }
 
                     @ProcessElement
                     public void processElement(ProcessContext context, BoundedWindow window)
-                        throws IOException {
-                      this.window = window;
+                        throws IOException, NoSuchMethodException, InterruptedException {
                       FailsafeElement<T, String> element = context.element();
-                      String payloadStr = element.getPayload();
-                      String eventId = UUID.randomUUID().toString();
-                      JSONObject originalPayload = new JSONObject(payloadStr);
-                      JSONObject json = new JSONObject();
-                      json.put("id", eventId);
-                      json.put("event", originalPayload);
-                      String wrappedPayload = json.toString();
-                      futures.put(eventId, element);
-                      // TODO: add a counter of sum of total bytes
-                      // 1) add event and increase counter
-                      // 2) if counter > X process all of the rows
-
-                      dataWriter.write(wrappedPayload);
-                      dataWriter.newLine();
-                      dataWriter.flush();
-                      batchCounter++;
-                    }
+                      if (pythonRuntime == null) {
+                        context.output(element);
+                        return;
+                      }
 
-                    // TODO: create an execute batch fn
+                      PendingBatch<T> batch =
+                          pendingBatches.computeIfAbsent(window, w -> new PendingBatch<>());
+                      batch.add(element);
+                      if (batch.size() >= batchLimit || batch.bytes() >= batchBytesLimit) {
+                        pendingBatches.remove(window);
+                        // All elements of the batch belong to the current window.
+                        emit(batch, (output, tag) -> context.output(tag, output));
+                      }
+                    }
 
                     @FinishBundle
                     public void finishBundle(FinishBundleContext context)
                         throws IOException, NoSuchMethodException, InterruptedException {
-                      LOG.info("closing batch at {} events", batchCounter);
-                      Integer retries = runtimeRetries();
-                      List<String> results = new ArrayList<>();
-                      LOG.info("executing the batch!!!");
-                      results = pythonRuntime.invoke(manifestFile, retries);
-                      LOG.info("processed {} number of records", results.size());
-                      for (int iter = 0; iter < results.size(); iter++) {
-                        String event = results.get(iter);
-                        JSONObject json = new JSONObject(event);
-                        String eventId = json.getString("id");
-                        FailsafeElement<T, String> originalEvent = futures.get(eventId);
-
-                        // FIX THIS
-                        if (json.getString("status").equals("SUCCESS")) {
-                          String transformedEvent = json.getJSONObject("event").toString();
-                          context.output(
-                              FailsafeElement.of(
-                                  originalEvent.getOriginalPayload(),
-                                  json.getJSONObject("event").toString()),
-                              window.maxTimestamp(),
-                              window);
-                          successCounter.inc();
-                        } else if (json.getString("status").equals("FAILED")) {
-                          context.output(
-                              originalEvent
-                                  .setErrorMessage(json.getString("error_message"))
-                                  .setStacktrace(json.getString("error_message")),
-                              window.maxTimestamp(),
-                              window);
+                      for (Map.Entry<BoundedWindow, PendingBatch<T>> entry :
+                          pendingBatches.entrySet()) {
+                        BoundedWindow window = entry.getKey();
+                        Instant timestamp = window.maxTimestamp();
+                        emit(
+                            entry.getValue(),
+                            (output, tag) -> context.output(tag, output, timestamp, window));
+                      }
+                      pendingBatches.clear();
+                    }
+
+                    @Teardown
+                    public void teardown() throws IOException {
+                      if (pythonRuntime != null) {
+                        pythonRuntime.close();
+                      }
+                    }
+
+                    private void emit(PendingBatch<T> batch, BatchOutput<T> output)
+                        throws IOException, NoSuchMethodException, InterruptedException {
+                      LOG.debug("Sending batch of {} events to the Python UDF", batch.size());
+                      JSONArray results = pythonRuntime.invokeBatch(batch.payloads);
+                      for (int i = 0; i < results.length(); i++) {
+                        FailsafeElement<T, String> originalEvent = batch.elements.get(i);
+                        JSONObject result = results.getJSONObject(i);
+
+                        if ("SUCCESS".equals(result.getString("status"))) {
+                          JSONArray events = result.getJSONArray("events");
+                          for (int j = 0; j < events.length(); j++) {
+                            Object event = events.get(j);
+                            output.output(
+                                FailsafeElement.of(
+                                    originalEvent.getOriginalPayload(), event.toString()),
+                                successTag());
+                            successCounter.inc();
+                          }
                         } else {
-                          LOG.info("Failed to emit an event");
-                          LOG.info("event status was {}", json.getString("status"));
+                          String errorMessage = result.optString("error_message");
+                          output.output(
+                              FailsafeElement.of(originalEvent)
+                                  .setErrorMessage(errorMessage)
+                                  .setStacktrace(errorMessage),
+                              failureTag());
+                          failedCounter.inc();
                         }
                       }
-                      futures.clear();
-                      dataWriter.close();
-                      manifestFile.delete();
                     }
                   })
               .withOutputTags(successTag(), TupleTagList.of(failureTag())));
     }
   }
 
+  /** Elements waiting to be sent to the Python process, along with their payloads. */
+  static class PendingBatch<T> {
+    private final List<FailsafeElement<T, String>> elements = new ArrayList<>();
+    private final List<String> payloads = new ArrayList<>();
+    private long bytes;
+
+    /** Returns the size of the payloads encoded as UTF-8, as they are sent to the process. */
+    long bytes() {
+      return bytes;
+    }
+
+    void add(FailsafeElement<T, String> element) {
+      elements.add(element);
+      payloads.add(element.getPayload());
+      bytes += Utf8.encodedLength(element.getPayload());
+    }
+
+    int size() {
+      return elements.size();
+    }
+  }
+
+  /** Emits a UDF result to either the success or failure output. */
+  private interface BatchOutput<T> {
+    void output(FailsafeElement<T, String> element, TupleTag<FailsafeElement<T, String>> tag);
+  }
+
   /**
    * Retrieves a {@link PythonRuntime} configured to invoke the specified function within the
    * script. If either the fileSystemPath or functionName is null or empty, this method will return
@@ -546,7 +720,7 @@ public abstract class PythonTextTransformer implements Serializable {
    * @return The {@link PythonRuntime} instance.
    */
   private static PythonRuntime getPythonRuntime(
-      String fileSystemPath, String functionName, String pythonVersion) {
+      String fileSystemPath, String functionName, String pythonVersion, Integer runtimeRetries) {
     PythonRuntime runtime = null;
 
     if (!Strings.isNullOrEmpty(fileSystemPath) && !Strings.isNullOrEmpty(functionName)) {
@@ -555,6 +729,7 @@ public abstract class PythonTextTransformer implements Serializable {
               .setFunctionName(functionName)
               .setRuntimeVersion(pythonVersion)
               .setFileSystemPath(fileSystemPath)
+              .setRuntimeRetries(runtimeRetries)
               .build();
     }
 
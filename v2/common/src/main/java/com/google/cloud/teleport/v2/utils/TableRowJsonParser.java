@@ -0,0 +1,506 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.api.services.bigquery.model.TableFieldSchema;
+import com.google.api.services.bigquery.model.TableRow;
+import com.google.api.services.bigquery.model.TableSchema;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.beam.sdk.io.gcp.bigquery.BigQueryHelpers;
+
+/**
+ * Parses JSON payloads into {@link TableRow}s with a parser compiled from the destination table
+ * schema.
+ *
+ * <p>The payload is read token by token and every value is converted to the type the BigQuery
+ * Storage Write API expects for its column, so {@code BigQueryIO} can copy the values into the
+ * protocol buffer rows as is. Values that cannot be converted, nulls in {@code REQUIRED} or
+ * repeated fields and missing {@code REQUIRED} fields fail the parse with an {@link
+ * IllegalArgumentException}, so the row is rejected before it reaches the sink. Fields that are not
+ * in the schema are read as generic JSON values, as {@link
+ * org.apache.beam.sdk.io.gcp.bigquery.TableRowJsonCoder} would.
+ */
+public final class TableRowJsonParser {
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  /** Parsers compiled in this JVM, by table schema JSON. */
+  private static final Map<String, TableRowJsonParser> PARSERS = new ConcurrentHashMap<>();
+
+  private final RecordParser root;
+
+  private TableRowJsonParser(RecordParser root) {
+    this.root = root;
+  }
+
+  /**
+   * Returns the parser for a table schema, compiling it on first use.
+   *
+   * @param tableSchemaJson the {@link TableSchema} of the destination table, as JSON.
+   */
+  public static TableRowJsonParser forSchemaJson(String tableSchemaJson) {
+    return PARSERS.computeIfAbsent(
+        tableSchemaJson, json -> of(BigQueryHelpers.fromJsonString(json, TableSchema.class)));
+  }
+
+  /** Compiles the parser for a table schema. */
+  public static TableRowJsonParser of(TableSchema tableSchema) {
+    return new TableRowJsonParser(new RecordParser("", tableSchema.getFields()));
+  }
+
+  /**
+   * Parses a JSON object into a {@link TableRow}.
+   *
+   * @throws IOException if the payload is not valid JSON.
+   * @throws IllegalArgumentException if the payload does not match the table schema.
+   */
+  public TableRow parse(String json) throws IOException {
+    try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+      JsonToken token = parser.nextToken();
+      if (token != JsonToken.START_OBJECT) {
+        throw new IllegalArgumentException(
+            "Expected a JSON object for the table row but found " + token);
+      }
+      TableRow row = root.parseRecord(parser);
+      if (parser.nextToken() != null) {
+        throw new JsonParseException(parser, "Unexpected content after the table row");
+      }
+      return row;
+    }
+  }
+
+  private static FieldParser compile(String parentPath, TableFieldSchema field) {
+    String path = parentPath.isEmpty() ? field.getName() : parentPath + "." + field.getName();
+    String mode = field.getMode() == null ? "NULLABLE" : field.getMode().toUpperCase(Locale.ROOT);
+    String type = field.getType().toUpperCase(Locale.ROOT);
+    FieldParser value;
+    switch (type) {
+      case "INTEGER":
+      case "INT64":
+        value = new Int64Parser(path, type);
+        break;
+      case "FLOAT":
+      case "FLOAT64":
+        value = new Float64Parser(path, type);
+        break;
+      case "BOOLEAN":
+      case "BOOL":
+        value = new BoolParser(path, type);
+        break;
+      case "NUMERIC":
+      case "BIGNUMERIC":
+        value = new NumericParser(path, type);
+        break;
+      case "STRING":
+        value = new StringParser(path, type, true, false);
+        break;
+      case "TIMESTAMP":
+        value = new StringParser(path, type, false, true);
+        break;
+      case "BYTES":
+      case "DATE":
+      case "TIME":
+      case "DATETIME":
+      case "GEOGRAPHY":
+        value = new StringParser(path, type, false, false);
+        break;
+      case "JSON":
+        value = new JsonTextParser(path, type);
+        break;
+      case "RECORD":
+      case "STRUCT":
+        value = new RecordParser(path, field.getFields());
+        break;
+      default:
+        value = new GenericParser(path, type);
+        break;
+    }
+    switch (mode) {
+      case "REPEATED":
+        return new RepeatedParser(path, value);
+      case "REQUIRED":
+        return new RequiredParser(value);
+      default:
+        return value;
+    }
+  }
+
+  private static IllegalArgumentException mismatch(String path, String type, JsonParser parser)
+      throws IOException {
+    JsonToken token = parser.currentToken();
+    String value =
+        token == JsonToken.START_OBJECT
+            ? "an object"
+            : token == JsonToken.START_ARRAY ? "an array" : parser.getText();
+    return new IllegalArgumentException(
+        String.format("Field %s of type %s cannot hold %s", path, type, value));
+  }
+
+  /** Reads a value of a field from the current token of a parser. */
+  private abstract static class FieldParser {
+
+    final String path;
+    final String type;
+
+    FieldParser(String path, String type) {
+      this.path = path;
+      this.type = type;
+    }
+
+    /** Reads the value at the current token. Nulls are returned as null. */
+    Object parse(JsonParser parser) throws IOException {
+      return parser.currentToken() == JsonToken.VALUE_NULL ? null : parseValue(parser);
+    }
+
+    /** Reads the non-null value at the current token. */
+    abstract Object parseValue(JsonParser parser) throws IOException;
+
+    boolean required() {
+      return false;
+    }
+  }
+
+  private static class RequiredParser extends FieldParser {
+
+    private final FieldParser value;
+
+    RequiredParser(FieldParser value) {
+      super(value.path, value.type);
+      this.value = value;
+    }
+
+    @Override
+    Object parse(JsonParser parser) throws IOException {
+      if (parser.currentToken() == JsonToken.VALUE_NULL) {
+        throw new IllegalArgumentException("Required field " + path + " is null");
+      }
+      return value.parseValue(parser);
+    }
+
+    @Override
+    Object parseValue(JsonParser parser) throws IOException {
+      return value.parseValue(parser);
+    }
+
+    @Override
+    boolean required() {
+      return true;
+    }
+  }
+
+  private static class RepeatedParser extends FieldParser {
+
+    private final FieldParser element;
+
+    RepeatedParser(String path, FieldParser element) {
+      super(path, "ARRAY<" + element.type + ">");
+      this.element = element;
+    }
+
+    @Override
+    Object parseValue(JsonParser parser) throws IOException {
+      if (parser.currentToken() != JsonToken.START_ARRAY) {
+        throw mismatch(path, type, parser);
+      }
+      List<Object> values = new ArrayList<>();
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+          throw new IllegalArgumentException("Repeated field " + path + " contains a null");
+        }
+        values.add(element.parseValue(parser));
+      }
+      return values;
+    }
+  }
+
+  private static class RecordParser extends FieldParser {
+
+    /** Field parsers by name, and by lower case name as BigQuery names are case-insensitive. */
+    private final Map<String, FieldParser> fields = new HashMap<>();
+
+    private final List<FieldParser> requiredFields = new ArrayList<>();
+
+    RecordParser(String path, List<TableFieldSchema> fieldSchemas) {
+      super(path, "RECORD");
+      if (fieldSchemas == null) {
+        return;
+      }
+      for (TableFieldSchema fieldSchema : fieldSchemas) {
+        FieldParser field = compile(path, fieldSchema);
+        fields.put(fieldSchema.getName(), field);
+        fields.putIfAbsent(fieldSchema.getName().toLowerCase(Locale.ROOT), field);
+        if (field.required()) {
+          requiredFields.add(field);
+        }
+      }
+    }
+
+    @Override
+    Object parseValue(JsonParser parser) throws IOException {
+      if (parser.currentToken() != JsonToken.START_OBJECT) {
+        throw mismatch(path, type, parser);
+      }
+      return parseRecord(parser);
+    }
+
+    TableRow parseRecord(JsonParser parser) throws IOException {
+      TableRow row = new TableRow();
+      boolean[] requiredSeen = requiredFields.isEmpty() ? null : new boolean[requiredFields.size()];
+      String name;
+      while ((name = parser.nextFieldName()) != null) {
+        FieldParser field = fields.get(name);
+        if (field == null) {
+          field = fields.get(name.toLowerCase(Locale.ROOT));
+        }
+        parser.nextToken();
+        if (field == null) {
+          row.set(name, readGeneric(parser));
+          continue;
+        }
+        if (field.required()) {
+          requiredSeen[requiredFields.indexOf(field)] = true;
+        }
+        row.set(name, field.parse(parser));
+      }
+      if (requiredSeen != null) {
+        for (int i = 0; i < requiredSeen.length; i++) {
+          if (!requiredSeen[i]) {
+            throw new IllegalArgumentException(
+                "Required field " + requiredFields.get(i).path + " is missing");
+          }
+        }
+      }
+      return row;
+    }
+  }
+
+  private static class Int64Parser extends FieldParser {
+
+    Int64Parser(String path, String type) {
+      super(path, type);
+    }
+
+    @Override
+    Object parseValue(JsonParser parser) throws IOException {
+      switch (parser.currentToken()) {
+        case VALUE_NUMBER_INT:
+          if (parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+            throw mismatch(path, type, parser);
+          }
+          return parser.getLongValue();
+        case VALUE_NUMBER_FLOAT:
+          try {
+            return parser.getDecimalValue().longValueExact();
+          } catch (ArithmeticException e) {
+            throw mismatch(path, type, parser);
+          }
+        case VALUE_STRING:
+          try {
+            return Long.parseLong(parser.getText().trim());
+          } catch (NumberFormatException e) {
+            throw mismatch(path, type, parser);
+          }
+        default:
+          throw mismatch(path, type, parser);
+      }
+    }
+  }
+
+  private static class Float64Parser extends FieldParser {
+
+    Float64Parser(String path, String type) {
+      super(path, type);
+    }
+
+    @Override
+    Object parseValue(JsonParser parser) throws IOException {
+      switch (parser.currentToken()) {
+        case VALUE_NUMBER_INT:
+        case VALUE_NUMBER_FLOAT:
+          return parser.getDoubleValue();
+        case VALUE_STRING:
+          try {
+            return Double.parseDouble(parser.getText().trim());
+          } catch (NumberFormatException e) {
+            throw mismatch(path, type, parser);
+          }
+        default:
+          throw mismatch(path, type, parser);
+      }
+    }
+  }
+
+  private static class BoolParser extends FieldParser {
+
+    BoolParser(String path, String type) {
+      super(path, type);
+    }
+
+    @Override
+    Object parseValue(JsonParser parser) throws IOException {
+      switch (parser.currentToken()) {
+        case VALUE_TRUE:
+          return Boolean.TRUE;
+        case VALUE_FALSE:
+          return Boolean.FALSE;
+        case VALUE_STRING:
+          String text = parser.getText().trim();
+          if ("true".equalsIgnoreCase(text)) {
+            return Boolean.TRUE;
+          }
+          if ("false".equalsIgnoreCase(text)) {
+            return Boolean.FALSE;
+          }
+          throw mismatch(path, type, parser);
+        default:
+          throw mismatch(path, type, parser);
+      }
+    }
+  }
+
+  /** Keeps decimals as text so that no precision is lost before the sink encodes them. */
+  private static class NumericParser extends FieldParser {
+
+    NumericParser(String path, String type) {
+      super(path, type);
+    }
+
+    @Override
+    Object parseValue(JsonParser parser) throws IOException {
+      switch (parser.currentToken()) {
+        case VALUE_NUMBER_INT:
+        case VALUE_NUMBER_FLOAT:
+          return parser.getText();
+        case VALUE_STRING:
+          String text = parser.getText().trim();
+          try {
+            new BigDecimal(text);
+          } catch (NumberFormatException e) {
+            throw mismatch(path, type, parser);
+          }
+          return text;
+        default:
+          throw mismatch(path, type, parser);
+      }
+    }
+  }
+
+  /** Reads the types written as JSON strings. */
+  private static class StringParser extends FieldParser {
+
+    private final boolean acceptScalars;
+    private final boolean acceptNumbers;
+
+    StringParser(String path, String type, boolean acceptScalars, boolean acceptNumbers) {
+      super(path, type);
+      this.acceptScalars = acceptScalars;
+      this.acceptNumbers = acceptNumbers;
+    }
+
+    @Override
+    Object parseValue(JsonParser parser) throws IOException {
+      JsonToken token = parser.currentToken();
+      if (token == JsonToken.VALUE_STRING) {
+        return parser.getText();
+      }
+      if (acceptNumbers && token.isNumeric()) {
+        return parser.getNumberValue();
+      }
+      if (acceptScalars && token.isScalarValue()) {
+        return parser.getText();
+      }
+      throw mismatch(path, type, parser);
+    }
+  }
+
+  /** Reads JSON columns, which are written as JSON text. */
+  private static class JsonTextParser extends FieldParser {
+
+    JsonTextParser(String path, String type) {
+      super(path, type);
+    }
+
+    @Override
+    Object parseValue(JsonParser parser) throws IOException {
+      if (parser.currentToken() == JsonToken.VALUE_STRING) {
+        return parser.getText();
+      }
+      StringWriter writer = new StringWriter();
+      try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+        generator.copyCurrentStructure(parser);
+      }
+      return writer.toString();
+    }
+  }
+
+  /** Reads columns of types without a specific conversion as generic values. */
+  private static class GenericParser extends FieldParser {
+
+    GenericParser(String path, String type) {
+      super(path, type);
+    }
+
+    @Override
+    Object parseValue(JsonParser parser) throws IOException {
+      return readGeneric(parser);
+    }
+  }
+
+  private static Object readGeneric(JsonParser parser) throws IOException {
+    switch (parser.currentToken()) {
+      case START_OBJECT:
+        Map<String, Object> map = new LinkedHashMap<>();
+        String name;
+        while ((name = parser.nextFieldName()) != null) {
+          parser.nextToken();
+          map.put(name, readGeneric(parser));
+        }
+        return map;
+      case START_ARRAY:
+        List<Object> list = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          list.add(readGeneric(parser));
+        }
+        return list;
+      case VALUE_STRING:
+        return parser.getText();
+      case VALUE_NUMBER_INT:
+        return parser.getNumberValue();
+      case VALUE_NUMBER_FLOAT:
+        return parser.getDoubleValue();
+      case VALUE_TRUE:
+        return Boolean.TRUE;
+      case VALUE_FALSE:
+        return Boolean.FALSE;
+      default:
+        return null;
+    }
+  }
+}
@@ -0,0 +1,89 @@
+"""
+Copyright (C) 2024 Google LLC
+
+Licensed under the Apache License, Version 2.0 (the "License"); you may not
+use this file except in compliance with the License. You may obtain a copy of
+the License at
+
+http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+License for the specific language governing permissions and limitations under
+the License.
+"""
+
+"""
+Long-lived Python UDF worker used by PythonTextTransformer.
+
+Loads the UDF module given as the first argument and serves the function named
+by the second argument over stdin/stdout. Every frame is a 4-byte big-endian
+length followed by that many bytes of UTF-8 JSON. A request frame is a JSON
+array of payload strings; the response frame is a JSON array of the same
+length, where each entry is either
+  {"status": "SUCCESS", "events": [...]} or
+  {"status": "FAILED", "error_message": "..."}.
+"""
+import importlib.util
+import json
+import struct
+import sys
+import traceback
+
+_HEADER = struct.Struct('>I')
+
+
+def _load_udf(path, function_name):
+  spec = importlib.util.spec_from_file_location('python_udf', path)
+  module = importlib.util.module_from_spec(spec)
+  spec.loader.exec_module(module)
+  return getattr(module, function_name)
+
+
+def _read_frame(stream):
+  header = stream.read(_HEADER.size)
+  if len(header) < _HEADER.size:
+    return None
+  (length,) = _HEADER.unpack(header)
+  return stream.read(length)
+
+
+def _write_frame(stream, payload):
+  stream.write(_HEADER.pack(len(payload)))
+  stream.write(payload)
+  stream.flush()
+
+
+def _apply(udf, raw_event):
+  try:
+    result = udf(json.loads(raw_event))
+    if result is None:
+      events = []
+    elif isinstance(result, list):
+      events = result
+    else:
+      events = [result]
+    return {'status': 'SUCCESS', 'events': events}
+  except Exception:
+    return {'status': 'FAILED', 'error_message': traceback.format_exc()}
+
+
+def main():
+  udf = _load_udf(sys.argv[1], sys.argv[2])
+  requests = sys.stdin.buffer
+  responses = sys.stdout.buffer
+  # Anything the UDF prints must not corrupt the framed protocol on stdout.
+  sys.stdout = sys.stderr
+
+  while True:
+    frame = _read_frame(requests)
+    if frame is None:
+      break
+    batch = json.loads(frame.decode('utf-8'))
+    results = [_apply(udf, raw_event) for raw_event in batch]
+    _write_frame(responses, json.dumps(results).encode('utf-8'))
+
+
+if __name__ == '__main__':
+  main()
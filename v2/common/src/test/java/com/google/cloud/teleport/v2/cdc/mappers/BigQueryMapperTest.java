@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.cdc.mappers;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.api.services.bigquery.model.TableRow;
+import com.google.cloud.bigquery.BigQuery;
+import com.google.cloud.bigquery.BigQueryException;
+import com.google.cloud.bigquery.Field;
+import com.google.cloud.bigquery.Schema;
+import com.google.cloud.bigquery.StandardSQLTypeName;
+import com.google.cloud.bigquery.StandardTableDefinition;
+import com.google.cloud.bigquery.Table;
+import com.google.cloud.bigquery.TableDefinition;
+import com.google.cloud.bigquery.TableId;
+import com.google.cloud.teleport.v2.utils.BigQueryTableCache;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Test cases for the {@link BigQueryMapper} class. */
+@RunWith(JUnit4.class)
+public class BigQueryMapperTest {
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  /** A BigQuery table whose schema updates are recorded, and can be blocked or failed. */
+  private static class FakeTable {
+    final TableId tableId;
+    final AtomicReference<Table> current = new AtomicReference<>();
+    final List<List<String>> updates = Collections.synchronizedList(new ArrayList<>());
+    final CountDownLatch updateStarted = new CountDownLatch(1);
+    final AtomicBoolean failUpdate = new AtomicBoolean();
+    CountDownLatch blockUpdate = new CountDownLatch(0);
+
+    FakeTable(String tableName, String... fields) {
+      this.tableId = TableId.of("dataset", tableName);
+      current.set(table(fields));
+    }
+
+    BigQuery bigquery() {
+      BigQuery bigquery = mock(BigQuery.class);
+      when(bigquery.getTable(any(TableId.class))).thenAnswer(invocation -> current.get());
+      return bigquery;
+    }
+
+    private Table table(String... fields) {
+      List<Field> schemaFields = new ArrayList<>();
+      for (String field : fields) {
+        schemaFields.add(Field.of(field, StandardSQLTypeName.STRING));
+      }
+      return table(StandardTableDefinition.of(Schema.of(schemaFields)));
+    }
+
+    private Table table(TableDefinition definition) {
+      Table table = mock(Table.class);
+      Table.Builder builder = mock(Table.Builder.class);
+      AtomicReference<TableDefinition> updated = new AtomicReference<>();
+      Table request = mock(Table.class);
+      when(table.getDefinition()).thenReturn(definition);
+      when(table.toBuilder()).thenReturn(builder);
+      when(builder.setDefinition(any()))
+          .thenAnswer(
+              invocation -> {
+                updated.set(invocation.getArgument(0));
+                return builder;
+              });
+      when(builder.build()).thenReturn(request);
+      when(request.update())
+          .thenAnswer(
+              invocation -> {
+                updateStarted.countDown();
+                blockUpdate.await();
+                if (failUpdate.get()) {
+                  throw new BigQueryException(400, "Update failed");
+                }
+                updates.add(
+                    updated.get().getSchema().getFields().stream()
+                        .map(Field::getName)
+                        .collect(Collectors.toList()));
+                Table result = table(updated.get());
+                current.set(result);
+                return result;
+              });
+      return table;
+    }
+
+    List<String> fields() {
+      return current.get().getDefinition().getSchema().getFields().stream()
+          .map(Field::getName)
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static BigQueryMapper<TableRow, TableRow> mapper(FakeTable table) {
+    BigQuery bigquery = table.bigquery();
+    return new BigQueryMapper<TableRow, TableRow>("project")
+        .withBigQuery(bigquery, new BigQueryTableCache(bigquery));
+  }
+
+  private static TableRow row(String... fields) {
+    TableRow row = new TableRow();
+    for (String field : fields) {
+      row.set(field, "value");
+    }
+    return row;
+  }
+
+  @Test
+  public void testKnownRowsSkipTheLock() throws Exception {
+    FakeTable table = new FakeTable("known_rows", "a", "b");
+    BigQueryMapper<TableRow, TableRow> mapper = mapper(table);
+    table.blockUpdate = new CountDownLatch(1);
+
+    // The update for the new field holds the table lock until it is released.
+    Future<?> update = executor.submit(() -> mapper.updateTableIfRequired(table.tableId, row("c")));
+    assertThat(table.updateStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+    Future<?> known = executor.submit(() -> mapper.updateTableIfRequired(table.tableId, row("a")));
+    known.get(10, TimeUnit.SECONDS);
+    assertThat(update.isDone()).isFalse();
+
+    table.blockUpdate.countDown();
+    update.get(10, TimeUnit.SECONDS);
+    assertThat(table.updates).containsExactly(List.of("a", "b", "c"));
+  }
+
+  @Test
+  public void testPendingFieldsOfSeveralRowsAreMerged() throws Exception {
+    FakeTable table = new FakeTable("merged_rows", "a");
+    BigQueryMapper<TableRow, TableRow> mapper =
+        mapper(table).withSchemaUpdateWindowMillis(TimeUnit.SECONDS.toMillis(1));
+
+    Future<?> first = executor.submit(() -> mapper.updateTableIfRequired(table.tableId, row("b")));
+    Future<?> second =
+        executor.submit(() -> mapper.updateTableIfRequired(table.tableId, row("a", "c")));
+    first.get(10, TimeUnit.SECONDS);
+    second.get(10, TimeUnit.SECONDS);
+
+    // Both rows add their fields in a single table update.
+    assertThat(table.updates).hasSize(1);
+    assertThat(table.updates.get(0)).containsExactly("a", "b", "c");
+  }
+
+  @Test
+  public void testFieldsAreRegisteredAgainAfterFailedUpdate() {
+    FakeTable table = new FakeTable("failed_update", "a");
+    BigQueryMapper<TableRow, TableRow> mapper = mapper(table);
+
+    table.failUpdate.set(true);
+    assertThrows(
+        BigQueryException.class, () -> mapper.updateTableIfRequired(table.tableId, row("b")));
+    table.failUpdate.set(false);
+
+    // The fields of the failed update are not left pending for other rows.
+    mapper.updateTableIfRequired(table.tableId, row("c"));
+    assertThat(table.fields()).containsExactly("a", "c").inOrder();
+
+    // A retry of the failed row registers its fields again.
+    mapper.updateTableIfRequired(table.tableId, row("b"));
+    assertThat(table.fields()).containsExactly("a", "c", "b").inOrder();
+    assertThat(table.updates).hasSize(2);
+  }
+}
@@ -207,6 +207,60 @@ public class BigQueryConvertersTest {
     pipeline.run();
   }
 
+  /**
+   * Tests the {@link BigQueryConverters.FailsafeJsonToTableRow} transform with a table schema,
+   * which converts matching payloads and rejects the others.
+   */
+  @Test
+  @Category(NeedsRunner.class)
+  public void testFailsafeJsonToTableRowWithTableSchema() {
+    final String schemaJson =
+        "{\"fields\":[{\"name\":\"ticker\",\"type\":\"STRING\",\"mode\":\"REQUIRED\"},"
+            + "{\"name\":\"price\",\"type\":\"FLOAT64\"}]}";
+    final String validPayload = "{\"ticker\": \"GOOGL\", \"price\": \"1006.94\"}";
+    final String invalidPayload = "{\"ticker\": \"GOOGL\", \"price\": \"high\"}";
+    final Map<String, String> attributes = ImmutableMap.of("id", "0xDb12", "type", "stock");
+
+    FailsafeElementCoder<PubsubMessage, String> coder =
+        FailsafeElementCoder.of(PubsubMessageWithAttributesCoder.of(), StringUtf8Coder.of());
+
+    CoderRegistry coderRegistry = pipeline.getCoderRegistry();
+    coderRegistry.registerCoderForType(coder.getEncodedTypeDescriptor(), coder);
+
+    PCollectionTuple output =
+        pipeline
+            .apply(
+                "CreateInput",
+                Create.of(
+                        FailsafeElement.of(
+                            new PubsubMessage(validPayload.getBytes(), attributes), validPayload),
+                        FailsafeElement.of(
+                            new PubsubMessage(invalidPayload.getBytes(), attributes),
+                            invalidPayload))
+                    .withCoder(coder))
+            .apply(
+                "JsonToTableRow",
+                FailsafeJsonToTableRow.<PubsubMessage>newBuilder()
+                    .setSuccessTag(TABLE_ROW_TAG)
+                    .setFailureTag(FAILSAFE_ELM_TAG)
+                    .setTableSchemaJson(schemaJson)
+                    .build());
+
+    PAssert.that(output.get(TABLE_ROW_TAG))
+        .containsInAnyOrder(new TableRow().set("ticker", "GOOGL").set("price", 1006.94));
+    PAssert.that(output.get(FAILSAFE_ELM_TAG))
+        .satisfies(
+            collection -> {
+              final FailsafeElement<PubsubMessage, String> result = collection.iterator().next();
+              assertThat(result.getPayload()).isEqualTo(invalidPayload);
+              assertThat(result.getErrorMessage())
+                  .isEqualTo("Field price of type FLOAT64 cannot hold high");
+              return null;
+            });
+
+    pipeline.run();
+  }
+
   /**
    * Tests the {@link BigQueryConverters.FailsafeJsonToTableRow} transform with invalid JSON input.
    */
@@ -33,10 +33,14 @@ import com.google.cloud.teleport.v2.values.FailsafeElement;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.Resources;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.beam.sdk.coders.CoderRegistry;
 import org.apache.beam.sdk.coders.StringUtf8Coder;
 import org.apache.beam.sdk.io.gcp.pubsub.PubsubMessage;
@@ -158,6 +162,53 @@ public class JavascriptTextTransformerTest {
     assertNull(data);
   }
 
+  /**
+   * Test {@link JavascriptRuntime#invokeBatch(List)} returns the transformed data in input order,
+   * with null for elements filtered out by the UDF.
+   */
+  @Test
+  public void testInvokeBatch() throws Exception {
+    JavascriptRuntime javascriptRuntime =
+        JavascriptRuntime.newBuilder()
+            .setFileSystemPath(TRANSFORM_FILE_PATH)
+            .setFunctionName("transformWithFilter")
+            .setReloadIntervalMinutes(0)
+            .build();
+    List<String> data =
+        javascriptRuntime.invokeBatch(
+            Arrays.asList("{\"answerToLife\": 42}", "{\"answerToLife\": 43}"));
+    assertEquals(Arrays.asList("{\"answerToLife\":42}", null), data);
+  }
+
+  /**
+   * Test {@link JavascriptRuntime#invoke(String)} returns correct results when called concurrently
+   * from more threads than there are engines in the pool.
+   */
+  @Test
+  public void testInvokeConcurrently() throws Exception {
+    JavascriptRuntime javascriptRuntime =
+        JavascriptRuntime.newBuilder()
+            .setFileSystemPath(TRANSFORM_FILE_PATH)
+            .setFunctionName("transform")
+            .setReloadIntervalMinutes(0)
+            .setEnginePoolSize(2)
+            .build();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < 64; i++) {
+        String input = "{\"answerToLife\": " + i + "}";
+        results.add(executor.submit(() -> javascriptRuntime.invoke(input)));
+      }
+      for (int i = 0; i < results.size(); i++) {
+        assertEquals(
+            "{\"answerToLife\":" + i + ",\"someProp\":\"someValue\"}", results.get(i).get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   /**
    * Test {@link TransformTextViaJavascript} returns transformed data when a good javascript
    * transform given.
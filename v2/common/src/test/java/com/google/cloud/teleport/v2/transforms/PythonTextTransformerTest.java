@@ -26,12 +26,13 @@ import com.google.cloud.teleport.v2.transforms.PythonTextTransformer.PythonRunti
 import com.google.cloud.teleport.v2.values.FailsafeElement;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.Resources;
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.beam.sdk.coders.CoderRegistry;
 import org.apache.beam.sdk.coders.StringUtf8Coder;
 import org.apache.beam.sdk.io.gcp.pubsub.PubsubMessage;
@@ -42,6 +43,7 @@ import org.apache.beam.sdk.testing.TestPipeline;
 import org.apache.beam.sdk.transforms.Create;
 import org.apache.beam.sdk.values.PCollectionTuple;
 import org.apache.beam.sdk.values.TupleTag;
+import org.json.JSONArray;
 import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Rule;
@@ -76,29 +78,90 @@ public class PythonTextTransformerTest {
       Resources.getResource(RESOURCES_DIR + "transform.py").getPath();
 
   /**
-   * Test {@link PythonRuntime#invoke} returns transformed data when a good python transform
-   * function given. Requires installed python3 on local worker.
+   * Test {@link PythonRuntime#invokeBatch} returns one result per payload, in order, from a
+   * long-lived Python process. Requires installed python3 on local worker.
    */
-  @Ignore
   @Test
-  public void testInvokeGood() throws Exception {
+  public void testInvokeBatchGood() throws Exception {
     PythonRuntime pythonRuntime =
         PythonRuntime.newBuilder()
             .setFileSystemPath(TRANSFORM_FILE_PATH)
             .setFunctionName("transform")
             .setRuntimeVersion(PYTHON_VERSION)
+            .setRuntimeRetries(1)
             .build();
 
-    File tempFile = File.createTempFile("temp_file.json", null);
-    BufferedWriter dataWriter = new BufferedWriter(new FileWriter(tempFile.getAbsolutePath()));
-    String sendData = "{\"answerToLife\": 42}";
-    dataWriter.write(sendData);
-    dataWriter.flush();
-    dataWriter.close();
-    List<String> expectedJson =
-        Arrays.asList("{\"answerToLife\": 42, \"someProp\": \"someValue\"}");
-    List<String> data = pythonRuntime.invoke(tempFile, 5);
-    Assert.assertEquals(expectedJson, data);
+    try {
+      JSONArray first =
+          pythonRuntime.invokeBatch(Arrays.asList("{\"answerToLife\": 42}", "not json"));
+      JSONArray second = pythonRuntime.invokeBatch(Arrays.asList("{\"answerToLife\": 43}"));
+
+      Assert.assertEquals(2, first.length());
+      Assert.assertEquals("SUCCESS", first.getJSONObject(0).getString("status"));
+      Assert.assertEquals(
+          "new_value",
+          first.getJSONObject(0).getJSONArray("events").getJSONObject(0).getString("new_key"));
+      Assert.assertEquals("FAILED", first.getJSONObject(1).getString("status"));
+      Assert.assertEquals(
+          43,
+          second.getJSONObject(0).getJSONArray("events").getJSONObject(0).getInt("answerToLife"));
+    } finally {
+      pythonRuntime.close();
+    }
+  }
+
+  /**
+   * Test {@link PythonRuntime}s serving the same UDF share the Python processes of the JVM, and
+   * never start more than {@link PythonRuntime#MAX_WORKER_PROCESSES}. Requires installed python3 on
+   * local worker.
+   */
+  @Test
+  public void testInvokeBatchSharesBoundedProcesses() throws Exception {
+    int runtimeCount = PythonRuntime.MAX_WORKER_PROCESSES + 2;
+    List<PythonRuntime> runtimes = new ArrayList<>();
+    for (int i = 0; i < runtimeCount; i++) {
+      runtimes.add(
+          PythonRuntime.newBuilder()
+              .setFileSystemPath(TRANSFORM_FILE_PATH)
+              .setFunctionName("transform")
+              .setRuntimeVersion(PYTHON_VERSION)
+              .setRuntimeRetries(1)
+              .build());
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(runtimeCount);
+    try {
+      List<Future<JSONArray>> results = new ArrayList<>();
+      for (PythonRuntime runtime : runtimes) {
+        results.add(
+            executor.submit(() -> runtime.invokeBatch(Arrays.asList("{\"answerToLife\": 42}"))));
+      }
+      for (Future<JSONArray> result : results) {
+        Assert.assertEquals("SUCCESS", result.get().getJSONObject(0).getString("status"));
+      }
+
+      int processCount = runtimes.get(0).processCount();
+      Assert.assertTrue(processCount >= 1);
+      Assert.assertTrue(processCount <= PythonRuntime.MAX_WORKER_PROCESSES);
+      for (PythonRuntime runtime : runtimes) {
+        Assert.assertEquals(processCount, runtime.processCount());
+      }
+    } finally {
+      executor.shutdownNow();
+      for (PythonRuntime runtime : runtimes) {
+        runtime.close();
+      }
+    }
+  }
+
+  /** Test the batch size limit counts the payloads' UTF-8 bytes rather than their characters. */
+  @Test
+  public void testPendingBatchCountsUtf8Bytes() {
+    PythonTextTransformer.PendingBatch<String> batch = new PythonTextTransformer.PendingBatch<>();
+
+    batch.add(FailsafeElement.of("original", "{\"name\": \"\u00e9\u20ac\"}"));
+
+    // The two characters of the name take two and three bytes in UTF-8.
+    Assert.assertEquals(12 + 2 + 3, batch.bytes());
   }
 
   /** Tests the {@link FailsafePythonUdf} when the input is valid. */
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.api.services.bigquery.model.TableFieldSchema;
+import com.google.api.services.bigquery.model.TableRow;
+import com.google.api.services.bigquery.model.TableSchema;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link TableRowJsonParser}. */
+@RunWith(JUnit4.class)
+public class TableRowJsonParserTest {
+
+  private static final TableRowJsonParser PARSER =
+      TableRowJsonParser.of(
+          new TableSchema()
+              .setFields(
+                  List.of(
+                      new TableFieldSchema().setName("id").setType("INT64").setMode("REQUIRED"),
+                      new TableFieldSchema().setName("price").setType("FLOAT"),
+                      new TableFieldSchema().setName("active").setType("BOOLEAN"),
+                      new TableFieldSchema().setName("amount").setType("NUMERIC"),
+                      new TableFieldSchema().setName("name").setType("STRING"),
+                      new TableFieldSchema().setName("created").setType("TIMESTAMP"),
+                      new TableFieldSchema().setName("payload").setType("JSON"),
+                      new TableFieldSchema().setName("tags").setType("STRING").setMode("REPEATED"),
+                      new TableFieldSchema()
+                          .setName("address")
+                          .setType("RECORD")
+                          .setFields(
+                              List.of(
+                                  new TableFieldSchema()
+                                      .setName("zip")
+                                      .setType("INTEGER")
+                                      .setMode("REQUIRED"))))));
+
+  @Test
+  public void testParseConvertsValuesToColumnTypes() throws IOException {
+    TableRow row =
+        PARSER.parse(
+            "{\"id\":\"42\",\"price\":3,\"active\":\"TRUE\",\"amount\":12345678901234567890.123,"
+                + "\"name\":7,\"created\":\"2024-01-01T00:00:00Z\",\"payload\":{\"a\":[1,2]},"
+                + "\"tags\":[\"x\",\"y\"],\"ADDRESS\":{\"zip\":94043.0},\"extra\":{\"b\":null}}");
+
+    assertThat(row.get("id")).isEqualTo(42L);
+    assertThat(row.get("price")).isEqualTo(3.0);
+    assertThat(row.get("active")).isEqualTo(true);
+    assertThat(row.get("amount")).isEqualTo("12345678901234567890.123");
+    assertThat(row.get("name")).isEqualTo("7");
+    assertThat(row.get("created")).isEqualTo("2024-01-01T00:00:00Z");
+    assertThat(row.get("payload")).isEqualTo("{\"a\":[1,2]}");
+    assertThat(row.get("tags")).isEqualTo(List.of("x", "y"));
+    assertThat(((TableRow) row.get("ADDRESS")).get("zip")).isEqualTo(94043L);
+    assertThat((Map<?, ?>) row.get("extra")).containsExactly("b", null);
+  }
+
+  @Test
+  public void testParseRejectsMismatches() {
+    assertMismatch("{\"id\":\"forty-two\"}", "Field id of type INT64 cannot hold forty-two");
+    assertMismatch("{\"id\":1.5}", "Field id of type INT64 cannot hold 1.5");
+    assertMismatch("{\"id\":1,\"price\":[1]}", "Field price of type FLOAT cannot hold an array");
+    assertMismatch("{\"id\":1,\"name\":{}}", "Field name of type STRING cannot hold an object");
+    assertMismatch("{\"id\":1,\"tags\":\"x\"}", "Field tags of type ARRAY<STRING> cannot hold x");
+    assertMismatch("{\"id\":1,\"tags\":[null]}", "Repeated field tags contains a null");
+    assertMismatch("{\"id\":null}", "Required field id is null");
+    assertMismatch("{\"price\":1}", "Required field id is missing");
+    assertMismatch("{\"id\":1,\"address\":{}}", "Required field address.zip is missing");
+    assertMismatch(
+        "[{\"id\":1}]", "Expected a JSON object for the table row but found START_ARRAY");
+  }
+
+  @Test
+  public void testParseRejectsInvalidJson() {
+    assertThrows(IOException.class, () -> PARSER.parse("{\"id\":1"));
+    assertThrows(IOException.class, () -> PARSER.parse("{\"id\":1} {\"id\":2}"));
+  }
+
+  @Test
+  public void testForSchemaJsonCachesParsers() {
+    String schemaJson = "{\"fields\":[{\"name\":\"id\",\"type\":\"INT64\"}]}";
+
+    assertThat(TableRowJsonParser.forSchemaJson(schemaJson))
+        .isSameInstanceAs(TableRowJsonParser.forSchemaJson(schemaJson));
+  }
+
+  private static void assertMismatch(String json, String message) {
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> PARSER.parse(json));
+    assertThat(e).hasMessageThat().isEqualTo(message);
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.datastream.sources;
+
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits the number of concurrent file reads in a JVM, adjusting the limit by hill climbing on the
+ * observed read throughput.
+ *
+ * <p>At the end of every measurement window the aggregate throughput is compared with the previous
+ * window. While it keeps improving the limit keeps moving in the same direction; once it drops the
+ * direction is reversed. This lets reads back off when the worker or the storage backend is
+ * saturated and fan out when there is headroom, instead of relying on a fixed number of permits.
+ */
+class AdaptiveConcurrencyLimiter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+  /** Relative throughput change that is treated as noise. */
+  private static final double TOLERANCE = 0.05;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final long windowNanos;
+
+  private int limit;
+  private int inFlight = 0;
+  private int direction = 1;
+  private boolean contended = false;
+  private long windowBytes = 0;
+  private long windowStartNanos;
+  private double lastThroughput = -1;
+
+  AdaptiveConcurrencyLimiter(int minLimit, int initialLimit, int maxLimit, long windowMillis) {
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.limit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+    this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    this.windowStartNanos = System.nanoTime();
+  }
+
+  /** Blocks until a read may start. */
+  synchronized void acquire() throws InterruptedException {
+    while (inFlight >= limit) {
+      contended = true;
+      wait();
+    }
+    inFlight++;
+  }
+
+  /** Records bytes read by a read that is still in progress. */
+  synchronized void recordBytes(long bytes) {
+    windowBytes += bytes;
+    maybeAdjust();
+  }
+
+  /** Ends a read that was started with {@link #acquire()}. */
+  synchronized void release() {
+    inFlight--;
+    maybeAdjust();
+    notifyAll();
+  }
+
+  synchronized int limit() {
+    return limit;
+  }
+
+  private void maybeAdjust() {
+    long now = System.nanoTime();
+    long elapsed = now - windowStartNanos;
+    if (elapsed < windowNanos) {
+      return;
+    }
+    double throughput = (double) windowBytes / elapsed;
+    windowBytes = 0;
+    windowStartNanos = now;
+    if (!contended) {
+      // Nobody waited for a permit, so the limit is not what bounds throughput in this window.
+      lastThroughput = -1;
+      return;
+    }
+    contended = false;
+    if (lastThroughput >= 0 && throughput < lastThroughput * (1 - TOLERANCE)) {
+      direction = -direction;
+    }
+    int newLimit = Math.max(minLimit, Math.min(limit + direction, maxLimit));
+    if (newLimit != limit) {
+      LOG.debug(
+          "Adjusting concurrent file reads from {} to {} at {} bytes/ms",
+          limit,
+          newLimit,
+          (long) (throughput * 1_000_000));
+      limit = newLimit;
+      notifyAll();
+    }
+    lastThroughput = throughput;
+  }
+}
@@ -227,7 +227,7 @@ public class DataStreamIO extends PTransform<PBegin, PCollection<FailsafeElement
   }
 
   private static class CreateParseSourceFn
-      implements SerializableFunction<String, FileBasedSource<FailsafeElement<String, String>>> {
+      implements SerializableFunction<Metadata, FileBasedSource<FailsafeElement<String, String>>> {
     private final SerializableFunction<GenericRecord, FailsafeElement<String, String>> parseFn;
     private final Coder<FailsafeElement<String, String>> coder;
 
@@ -239,7 +239,7 @@ public class DataStreamIO extends PTransform<PBegin, PCollection<FailsafeElement
     }
 
     @Override
-    public FileBasedSource<FailsafeElement<String, String>> apply(String input) {
+    public FileBasedSource<FailsafeElement<String, String>> apply(Metadata input) {
       return AvroSource.from(input).withParseFn(parseFn, coder);
     }
   }
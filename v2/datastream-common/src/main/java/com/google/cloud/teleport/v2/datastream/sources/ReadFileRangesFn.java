@@ -18,16 +18,24 @@ package com.google.cloud.teleport.v2.datastream.sources;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.Serializable;
-import java.util.concurrent.Semaphore;
+import org.apache.beam.sdk.io.BlockBasedSource;
 import org.apache.beam.sdk.io.BoundedSource;
 import org.apache.beam.sdk.io.CompressedSource;
+import org.apache.beam.sdk.io.Compression;
 import org.apache.beam.sdk.io.FileBasedSource;
 import org.apache.beam.sdk.io.FileIO;
 import org.apache.beam.sdk.io.FileIO.ReadableFile;
+import org.apache.beam.sdk.io.fs.MatchResult.Metadata;
 import org.apache.beam.sdk.io.fs.ResourceId;
 import org.apache.beam.sdk.io.range.OffsetRange;
+import org.apache.beam.sdk.metrics.Counter;
+import org.apache.beam.sdk.metrics.Metrics;
+import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.SerializableFunction;
+import org.apache.beam.sdk.transforms.splittabledofn.OffsetRangeTracker;
+import org.apache.beam.sdk.transforms.splittabledofn.RestrictionTracker;
+import org.apache.beam.sdk.transforms.splittabledofn.SplitResult;
 import org.apache.beam.sdk.values.PCollection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,71 +45,211 @@ import org.slf4j.LoggerFactory;
  * for splitting files into offset ranges and for creating a {@link FileBasedSource} for a file. The
  * input {@link PCollection} must not contain {@link ResourceId#isDirectory directories}.
  *
+ * <p>This is a splittable {@link DoFn}. Uncompressed files of a {@link BlockBasedSource}, such as
+ * Avro, are split into offset ranges of roughly {@code desiredBundleSizeBytes}, and each range
+ * reads the blocks whose sync marker starts inside it. Ranges can be further split by the runner
+ * while they are being read, and progress is reported in bytes so the runner sees the remaining
+ * backlog of large files. Compressed files and other sources are read whole.
+ *
+ * <p>Concurrent reads within a JVM are bounded by an {@link AdaptiveConcurrencyLimiter} that tunes
+ * the limit to the observed throughput.
+ *
  * <p>To obtain the collection of {@link ReadableFile} from a filepattern, use {@link
  * FileIO#readMatches()}.
  */
 public class ReadFileRangesFn<T> extends DoFn<ReadableFile, T> implements Serializable {
 
   private static final Logger LOG = LoggerFactory.getLogger(ReadFileRangesFn.class);
-  private final SerializableFunction<String, ? extends FileBasedSource<T>> createSource;
+
+  private static final long DEFAULT_DESIRED_BUNDLE_SIZE_BYTES = 64 * 1024 * 1024L;
+
+  /** Offset range used for files which cannot be split; its single offset stands for the file. */
+  private static final OffsetRange UNSPLITTABLE_RANGE = new OffsetRange(0, 1);
+
+  private static final AdaptiveConcurrencyLimiter jvmReads =
+      new AdaptiveConcurrencyLimiter(
+          1,
+          Runtime.getRuntime().availableProcessors(),
+          4 * Runtime.getRuntime().availableProcessors(),
+          10_000);
+
+  private final Counter bytesReadMetric = Metrics.counter(ReadFileRangesFn.class, "bytes_read");
+
+  private final SerializableFunction<Metadata, ? extends FileBasedSource<T>> createSource;
   private final ReadFileRangesFnExceptionHandler exceptionHandler;
-  private boolean acquiredPermit = false;
-  private static final Semaphore jvmThreads = new Semaphore(5, true);
+  private final long desiredBundleSizeBytes;
 
   public ReadFileRangesFn(
-      SerializableFunction<String, ? extends FileBasedSource<T>> createSource,
+      SerializableFunction<Metadata, ? extends FileBasedSource<T>> createSource,
       ReadFileRangesFnExceptionHandler exceptionHandler) {
+    this(createSource, exceptionHandler, DEFAULT_DESIRED_BUNDLE_SIZE_BYTES);
+  }
+
+  public ReadFileRangesFn(
+      SerializableFunction<Metadata, ? extends FileBasedSource<T>> createSource,
+      ReadFileRangesFnExceptionHandler exceptionHandler,
+      long desiredBundleSizeBytes) {
     this.createSource = createSource;
     this.exceptionHandler = exceptionHandler;
+    this.desiredBundleSizeBytes = desiredBundleSizeBytes;
   }
 
-  @StartBundle
-  public void startBundle() throws Exception {
-    try {
-      jvmThreads.acquire();
-    } catch (InterruptedException e) {
-      throw e;
+  private boolean isSplittable(ReadableFile file) {
+    return file.getCompression() == Compression.UNCOMPRESSED
+        && file.getMetadata().isReadSeekEfficient()
+        && createSource.apply(file.getMetadata()) instanceof BlockBasedSource;
+  }
+
+  @GetInitialRestriction
+  public OffsetRange getInitialRestriction(@Element ReadableFile file) {
+    if (!isSplittable(file)) {
+      return UNSPLITTABLE_RANGE;
+    }
+    return new OffsetRange(0, file.getMetadata().sizeBytes());
+  }
+
+  @SplitRestriction
+  public void splitRestriction(
+      @Element ReadableFile file,
+      @Restriction OffsetRange range,
+      OutputReceiver<OffsetRange> receiver) {
+    if (!isSplittable(file)) {
+      receiver.output(range);
+      return;
+    }
+    for (OffsetRange split : range.split(desiredBundleSizeBytes, desiredBundleSizeBytes / 4)) {
+      receiver.output(split);
     }
-    acquiredPermit = true;
-    LOG.info(String.format("StartBundle: %d", jvmThreads.availablePermits()));
   }
 
-  @FinishBundle
-  public void finishBundle() throws Exception {
-    jvmThreads.release();
-    acquiredPermit = false;
-    LOG.info(String.format("FinishBundle: %d", jvmThreads.availablePermits()));
+  @NewTracker
+  public RestrictionTracker<OffsetRange, Long> newTracker(
+      @Element ReadableFile file, @Restriction OffsetRange range) {
+    if (!isSplittable(file)) {
+      return new UnsplittableRangeTracker(range);
+    }
+    return new OffsetRangeTracker(range);
   }
 
-  @Teardown
-  public void tearDown() throws Exception {
-    if (acquiredPermit) {
-      jvmThreads.release();
+  @GetSize
+  public double getSize(@Element ReadableFile file, @Restriction OffsetRange range) {
+    if (!isSplittable(file)) {
+      return file.getMetadata().sizeBytes();
     }
+    return range.getTo() - range.getFrom();
   }
 
   @ProcessElement
-  public void process(ProcessContext c) throws IOException {
-    ReadableFile file = c.element();
+  public void process(
+      @Element ReadableFile file,
+      RestrictionTracker<OffsetRange, Long> tracker,
+      OutputReceiver<T> receiver,
+      PipelineOptions options)
+      throws IOException, InterruptedException {
     ResourceId resourceId = file.getMetadata().resourceId();
+    OffsetRange range = tracker.currentRestriction();
+    boolean claimFailed = false;
+    jvmReads.acquire();
     try {
-      FileBasedSource<T> source =
-          CompressedSource.from(createSource.apply(resourceId.toString()))
-              .withCompression(file.getCompression());
-      try (BoundedSource.BoundedReader<T> reader = source.createReader(c.getPipelineOptions())) {
-        for (boolean more = reader.start(); more; more = reader.advance()) {
-          c.output(reader.getCurrent());
-        }
-      } catch (RuntimeException e) {
-        if (exceptionHandler.apply(file, null, e)) {
-          throw new RuntimeException(
-              String.format(
-                  "Encountered an error while reading from file %s:", resourceId.getFilename()),
-              e);
-        }
+      if (isSplittable(file)) {
+        claimFailed = !readRange(file, range, tracker, receiver, options);
+      } else {
+        claimFailed = !readWholeFile(file, tracker, receiver, options);
       }
     } catch (FileNotFoundException e) {
       LOG.warn("Ignoring non-existent file {}", resourceId, e);
+    } catch (RuntimeException e) {
+      if (exceptionHandler.apply(file, range, e)) {
+        throw new RuntimeException(
+            String.format(
+                "Encountered an error while reading from file %s:", resourceId.getFilename()),
+            e);
+      }
+    } finally {
+      jvmReads.release();
+    }
+    if (!claimFailed) {
+      // Whatever was not claimed was either skipped or split off; mark the restriction as done.
+      tracker.tryClaim(Long.MAX_VALUE);
+    }
+  }
+
+  /** Reads the blocks of the range, returning false if a claim failed. */
+  private boolean readRange(
+      ReadableFile file,
+      OffsetRange range,
+      RestrictionTracker<OffsetRange, Long> tracker,
+      OutputReceiver<T> receiver,
+      PipelineOptions options)
+      throws IOException {
+    FileBasedSource<T> source =
+        createSource
+            .apply(file.getMetadata())
+            .createSourceForSubrange(range.getFrom(), range.getTo());
+    long lastOffset = range.getFrom();
+    try (BoundedSource.BoundedReader<T> reader = source.createReader(options)) {
+      BlockBasedSource.BlockBasedReader<T> blockReader =
+          (BlockBasedSource.BlockBasedReader<T>) reader;
+      for (boolean more = blockReader.start(); more; more = blockReader.advance()) {
+        // Only split points (the first record of a block) are claimed; the remaining records of
+        // the block belong to the same claim. A failed claim means the runner has split off the
+        // rest of the range.
+        if (blockReader.isAtSplitPoint()) {
+          long offset = blockReader.getCurrentBlockOffset();
+          if (!tracker.tryClaim(offset)) {
+            return false;
+          }
+          recordBytesRead(offset - lastOffset);
+          lastOffset = offset;
+        }
+        receiver.output(blockReader.getCurrent());
+      }
+    }
+    // Also account for the last block of the range.
+    recordBytesRead(Math.max(0, tracker.currentRestriction().getTo() - lastOffset));
+    return true;
+  }
+
+  /** Reads the whole file, returning false if the claim failed. */
+  private boolean readWholeFile(
+      ReadableFile file,
+      RestrictionTracker<OffsetRange, Long> tracker,
+      OutputReceiver<T> receiver,
+      PipelineOptions options)
+      throws IOException {
+    if (!tracker.tryClaim(tracker.currentRestriction().getFrom())) {
+      return false;
+    }
+    FileBasedSource<T> source =
+        CompressedSource.from(createSource.apply(file.getMetadata()))
+            .withCompression(file.getCompression());
+    try (BoundedSource.BoundedReader<T> reader = source.createReader(options)) {
+      for (boolean more = reader.start(); more; more = reader.advance()) {
+        receiver.output(reader.getCurrent());
+      }
+    }
+    recordBytesRead(file.getMetadata().sizeBytes());
+    return true;
+  }
+
+  private void recordBytesRead(long bytes) {
+    bytesReadMetric.inc(bytes);
+    jvmReads.recordBytes(bytes);
+  }
+
+  /**
+   * Tracker for files that have to be read in one go. The single offset is claimed up front and the
+   * restriction can never be split, so a file is never read twice.
+   */
+  private static class UnsplittableRangeTracker extends OffsetRangeTracker {
+
+    UnsplittableRangeTracker(OffsetRange range) {
+      super(range);
+    }
+
+    @Override
+    public SplitResult<OffsetRange> trySplit(double fractionOfRemainder) {
+      return null;
     }
   }
 
@@ -18,6 +18,7 @@ package com.google.cloud.teleport.v2.datastream.values;
 import com.google.auto.value.AutoValue;
 import java.io.Serializable;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.apache.beam.sdk.schemas.AutoValueSchema;
 import org.apache.beam.sdk.schemas.annotations.DefaultSchema;
 import org.apache.beam.sdk.schemas.annotations.SchemaCreate;
@@ -43,7 +44,22 @@ public abstract class DmlInfo implements Serializable {
 
   public abstract List<String> getOrderByValues();
 
-  @SchemaCreate
+  /**
+   * The DML as a parameterized statement, with a <code>{value_rows_sql}</code> placeholder for one
+   * or more comma separated copies of {@link #getPreparedRowSql()}, or null if the DML is only
+   * available as {@link #getDmlSql()}.
+   */
+  @Nullable
+  public abstract String getPreparedDmlTemplate();
+
+  /** The parameter markers of one row of {@link #getPreparedDmlTemplate()}, e.g. {@code (?,?)}. */
+  @Nullable
+  public abstract String getPreparedRowSql();
+
+  /** The values of the parameters of one row, each encoded as a JSON scalar. */
+  @Nullable
+  public abstract List<String> getPreparedValues();
+
   public static DmlInfo of(
       String failsafeValue,
       String dmlSql,
@@ -53,6 +69,33 @@ public abstract class DmlInfo implements Serializable {
       List<String> orderByFields,
       List<String> primaryKeyValues,
       List<String> orderByValues) {
+    return of(
+        failsafeValue,
+        dmlSql,
+        schemaName,
+        tableName,
+        allPkFields,
+        orderByFields,
+        primaryKeyValues,
+        orderByValues,
+        null,
+        null,
+        null);
+  }
+
+  @SchemaCreate
+  public static DmlInfo of(
+      String failsafeValue,
+      String dmlSql,
+      String schemaName,
+      String tableName,
+      List<String> allPkFields,
+      List<String> orderByFields,
+      List<String> primaryKeyValues,
+      List<String> orderByValues,
+      @Nullable String preparedDmlTemplate,
+      @Nullable String preparedRowSql,
+      @Nullable List<String> preparedValues) {
     return new AutoValue_DmlInfo(
         failsafeValue,
         dmlSql,
@@ -61,7 +104,15 @@ public abstract class DmlInfo implements Serializable {
         allPkFields,
         orderByFields,
         primaryKeyValues,
-        orderByValues);
+        orderByValues,
+        preparedDmlTemplate,
+        preparedRowSql,
+        preparedValues);
+  }
+
+  /** Returns whether the DML is available as a parameterized statement. */
+  public boolean isPrepared() {
+    return getPreparedDmlTemplate() != null;
   }
 
   public String getStateWindowKey() {
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.datastream.sources;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.extensions.avro.io.AvroSource;
+import org.apache.beam.sdk.io.FileIO;
+import org.apache.beam.sdk.testing.PAssert;
+import org.apache.beam.sdk.testing.TestPipeline;
+import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.values.PCollection;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ReadFileRangesFn}. */
+@RunWith(JUnit4.class)
+public class ReadFileRangesFnTest {
+
+  private static final Schema SCHEMA =
+      SchemaBuilder.record("row").fields().requiredString("id").endRecord();
+
+  private static final int RECORD_COUNT = 5000;
+
+  @Rule public final transient TestPipeline pipeline = TestPipeline.create();
+
+  @Rule public final transient TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void testSplitReadReturnsEveryRecordOnce() throws Exception {
+    File avroFile = tempFolder.newFile("records.avro");
+    List<String> expected = new ArrayList<>();
+    try (DataFileWriter<GenericRecord> writer =
+        new DataFileWriter<>(new GenericDatumWriter<GenericRecord>(SCHEMA))) {
+      // A small sync interval gives many blocks, so the file splits into many ranges.
+      writer.setSyncInterval(1024);
+      writer.create(SCHEMA, avroFile);
+      for (int i = 0; i < RECORD_COUNT; i++) {
+        GenericRecord record = new GenericData.Record(SCHEMA);
+        record.put("id", "id-" + i);
+        writer.append(record);
+        expected.add("id-" + i);
+      }
+    }
+    assertThat(avroFile.length()).isGreaterThan(8 * 1024L);
+
+    PCollection<String> ids =
+        pipeline
+            .apply(FileIO.match().filepattern(avroFile.getAbsolutePath()))
+            .apply(FileIO.readMatches())
+            .apply(
+                ParDo.of(
+                    new ReadFileRangesFn<String>(
+                        metadata ->
+                            AvroSource.from(metadata)
+                                .withParseFn(
+                                    record -> record.get("id").toString(), StringUtf8Coder.of()),
+                        new ReadFileRangesFn.ReadFileRangesFnExceptionHandler(),
+                        4 * 1024)))
+            .setCoder(StringUtf8Coder.of());
+
+    PAssert.that(ids).containsInAnyOrder(expected);
+    pipeline.run().waitUntilFinish();
+  }
+}
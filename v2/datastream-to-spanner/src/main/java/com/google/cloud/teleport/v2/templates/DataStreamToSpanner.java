@@ -468,6 +468,19 @@ public class DataStreamToSpanner {
     String getFilteredEventsDirectory();
 
     void setFilteredEventsDirectory(String value);
+
+    @TemplateParameter.Integer(
+        order = 29,
+        optional = true,
+        description = "Maximum mutations per Spanner transaction",
+        helpText =
+            "When greater than 0, the change events of a bundle are collapsed by primary key to the"
+                + " latest one and written together in transactions of up to this many mutations,"
+                + " instead of one transaction per change event. Defaults to: 0.")
+    @Default.Integer(0)
+    Integer getMaxMutationsPerTransaction();
+
+    void setMaxMutationsPerTransaction(Integer value);
   }
 
   private static void validateSourceType(Options options) {
@@ -699,7 +712,8 @@ public class DataStreamToSpanner {
                     ddlView,
                     options.getShadowTablePrefix(),
                     options.getDatastreamSourceType(),
-                    isRegularMode));
+                    isRegularMode,
+                    options.getMaxMutationsPerTransaction()));
     /*
      * Stage 5: Write failures to GCS Dead Letter Queue
      * a) Retryable errors are written to retry GCS Dead letter queue
@@ -41,7 +41,9 @@ import org.apache.beam.sdk.values.TupleTagList;
  * Takes an input of DataStream events as {@link FailsafeElement} objects and writes them to the
  * given Cloud Spanner database.
  *
- * <p>Each event will be written using a single Cloud Spanner Transaction.
+ * <p>Each event will be written using a single Cloud Spanner Transaction, unless a maximum number
+ * of mutations per transaction is set, in which case the events of a bundle are collapsed by
+ * primary key and written together in transactions of up to that many mutations.
  *
  * <p>The {@link Result} object contains two streams: the successfully written Mutation Group
  * objects with their commit timestamps, and the Mutation Group objects that failed to be written
@@ -66,18 +68,32 @@ public class SpannerTransactionWriter
   /* The run mode, whether it is regular or retry. */
   private final Boolean isRegularRunMode;
 
+  /* Maximum mutations per transaction. 0 writes every event in its own transaction. */
+  private final int maxMutationsPerTransaction;
+
   public SpannerTransactionWriter(
       SpannerConfig spannerConfig,
       PCollectionView<Ddl> ddlView,
       String shadowTablePrefix,
       String sourceType,
       Boolean isRegularRunMode) {
+    this(spannerConfig, ddlView, shadowTablePrefix, sourceType, isRegularRunMode, 0);
+  }
+
+  public SpannerTransactionWriter(
+      SpannerConfig spannerConfig,
+      PCollectionView<Ddl> ddlView,
+      String shadowTablePrefix,
+      String sourceType,
+      Boolean isRegularRunMode,
+      int maxMutationsPerTransaction) {
     Preconditions.checkNotNull(spannerConfig);
     this.spannerConfig = spannerConfig;
     this.ddlView = ddlView;
     this.shadowTablePrefix = shadowTablePrefix;
     this.sourceType = sourceType;
     this.isRegularRunMode = isRegularRunMode;
+    this.maxMutationsPerTransaction = maxMutationsPerTransaction;
   }
 
   @Override
@@ -88,7 +104,12 @@ public class SpannerTransactionWriter
             "Write Mutations",
             ParDo.of(
                     new SpannerTransactionWriterDoFn(
-                        spannerConfig, ddlView, shadowTablePrefix, sourceType, isRegularRunMode))
+                        spannerConfig,
+                        ddlView,
+                        shadowTablePrefix,
+                        sourceType,
+                        isRegularRunMode,
+                        maxMutationsPerTransaction))
                 .withSideInputs(ddlView)
                 .withOutputTags(
                     DatastreamToSpannerConstants.SUCCESSFUL_EVENT_TAG,
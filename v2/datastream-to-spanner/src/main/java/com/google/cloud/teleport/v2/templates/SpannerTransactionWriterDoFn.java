@@ -19,6 +19,9 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.ErrorCode;
+import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.Mutation.Op;
 import com.google.cloud.spanner.Options;
 import com.google.cloud.spanner.SpannerException;
 import com.google.cloud.spanner.TransactionRunner.TransactionCallable;
@@ -33,6 +36,11 @@ import com.google.cloud.teleport.v2.templates.datastream.ChangeEventSequenceFact
 import com.google.cloud.teleport.v2.values.FailsafeElement;
 import com.google.common.base.Preconditions;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import org.apache.beam.runners.dataflow.options.DataflowWorkerHarnessOptions;
 import org.apache.beam.sdk.io.gcp.spanner.SpannerAccessor;
 import org.apache.beam.sdk.io.gcp.spanner.SpannerConfig;
@@ -40,8 +48,10 @@ import org.apache.beam.sdk.metrics.Counter;
 import org.apache.beam.sdk.metrics.Metrics;
 import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
 import org.apache.beam.sdk.values.PCollectionView;
 import org.apache.beam.sdk.values.TupleTag;
+import org.joda.time.Instant;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,6 +62,13 @@ import org.slf4j.LoggerFactory;
  * specifies the commit order) for each primary key. Shadow tables are consulted before actual
  * writes to Cloud Spanner to preserve the correctness and consistency of data.
  *
+ * <p>When {@code maxMutationsPerTransaction} is positive, the change events of a bundle are
+ * buffered instead. Events for the same primary key are collapsed to the one with the highest
+ * {@link ChangeEventSequence}, and the remaining events are written with as few transactions as the
+ * mutation limit allows. Each transaction reads the shadow table sequences of all its keys at once
+ * and only applies the events that are newer than the recorded sequence. Collapsed events share the
+ * outcome of the event that replaced them.
+ *
  * <p>Change events written successfully will be pushed onto the primary output with their commit
  * timestamps.
  *
@@ -102,12 +119,45 @@ class SpannerTransactionWriterDoFn extends DoFn<FailsafeElement<String, String>,
   /* The run mode, whether it is regular or retry. */
   private final Boolean isRegularRunMode;
 
+  /* Maximum mutations per transaction. 0 writes every change event in its own transaction. */
+  private final int maxMutationsPerTransaction;
+
+  private final Counter collapsedEvents =
+      Metrics.counter(SpannerTransactionWriterDoFn.class, "Collapsed events");
+
+  private final Counter transactions =
+      Metrics.counter(SpannerTransactionWriterDoFn.class, "Transactions");
+
+  /* Change events of the current bundle by shadow table and primary key. */
+  private transient Map<String, Map<com.google.cloud.spanner.Key, BufferedEvent>> bufferedEvents;
+
+  /* Mutations of the buffered change events. */
+  private transient long bufferedMutations;
+
+  /* Outputs of the written change events, emitted when the bundle finishes. */
+  private transient List<BufferedOutput<?>> bufferedOutputs;
+
+  /* Schema of the buffered change events. */
+  private transient Ddl bufferedDdl;
+
+  private transient String txnTag;
+
   SpannerTransactionWriterDoFn(
       SpannerConfig spannerConfig,
       PCollectionView<Ddl> ddlView,
       String shadowTablePrefix,
       String sourceType,
       Boolean isRegularRunMode) {
+    this(spannerConfig, ddlView, shadowTablePrefix, sourceType, isRegularRunMode, 0);
+  }
+
+  SpannerTransactionWriterDoFn(
+      SpannerConfig spannerConfig,
+      PCollectionView<Ddl> ddlView,
+      String shadowTablePrefix,
+      String sourceType,
+      Boolean isRegularRunMode,
+      int maxMutationsPerTransaction) {
     Preconditions.checkNotNull(spannerConfig);
     this.spannerConfig = spannerConfig;
     this.ddlView = ddlView;
@@ -115,6 +165,7 @@ class SpannerTransactionWriterDoFn extends DoFn<FailsafeElement<String, String>,
         (shadowTablePrefix.endsWith("_")) ? shadowTablePrefix : shadowTablePrefix + "_";
     this.sourceType = sourceType;
     this.isRegularRunMode = isRegularRunMode;
+    this.maxMutationsPerTransaction = maxMutationsPerTransaction;
   }
 
   /** Setup function connects to Cloud Spanner. */
@@ -131,8 +182,28 @@ class SpannerTransactionWriterDoFn extends DoFn<FailsafeElement<String, String>,
     spannerAccessor.close();
   }
 
+  @StartBundle
+  public void startBundle() {
+    bufferedEvents = new LinkedHashMap<>();
+    bufferedMutations = 0;
+    bufferedOutputs = new ArrayList<>();
+  }
+
+  @FinishBundle
+  public void finishBundle(FinishBundleContext c) {
+    if (bufferedEvents == null) {
+      return;
+    }
+    flush();
+    for (BufferedOutput<?> output : bufferedOutputs) {
+      output.emit(c);
+    }
+    bufferedOutputs.clear();
+    bufferedDdl = null;
+  }
+
   @ProcessElement
-  public void processElement(ProcessContext c) {
+  public void processElement(ProcessContext c, BoundedWindow window) {
     FailsafeElement<String, String> msg = c.element();
     Ddl ddl = c.sideInput(ddlView);
 
@@ -160,6 +231,22 @@ class SpannerTransactionWriterDoFn extends DoFn<FailsafeElement<String, String>,
           ChangeEventSequenceFactory.createChangeEventSequenceFromChangeEventContext(
               changeEventContext);
 
+      if (maxMutationsPerTransaction > 0) {
+        if (txnTag == null) {
+          txnTag = getTxnTag(c.getPipelineOptions());
+        }
+        bufferedDdl = ddl;
+        buffer(
+            new BufferedEvent(
+                msg,
+                changeEventContext,
+                currentChangeEventSequence,
+                isRetryRecord,
+                c.timestamp(),
+                window));
+        return;
+      }
+
       // Start transaction
       spannerAccessor
           .getDatabaseClient()
@@ -233,10 +320,224 @@ class SpannerTransactionWriterDoFn extends DoFn<FailsafeElement<String, String>,
       FailsafeElement<String, String> changeEvent,
       Exception e,
       TupleTag<FailsafeElement<String, String>> errorTag) {
+    c.output(errorTag, withErrorMessage(changeEvent, e));
+  }
+
+  private static FailsafeElement<String, String> withErrorMessage(
+      FailsafeElement<String, String> changeEvent, Exception e) {
     // Making a copy, as the input must not be mutated.
     FailsafeElement<String, String> output = FailsafeElement.of(changeEvent);
     output.setErrorMessage(e.getMessage());
-    c.output(errorTag, output);
+    return output;
+  }
+
+  /** Buffers a change event, collapsing it with a buffered event for the same primary key. */
+  private void buffer(BufferedEvent event) {
+    Map<com.google.cloud.spanner.Key, BufferedEvent> tableEvents =
+        bufferedEvents.computeIfAbsent(
+            event.context.getShadowTable(), shadowTable -> new HashMap<>());
+    BufferedEvent buffered = tableEvents.get(event.context.getPrimaryKey());
+    if (buffered == null) {
+      tableEvents.put(event.context.getPrimaryKey(), event);
+      bufferedMutations += event.mutations;
+    } else if (event.sequence.compareTo(buffered.sequence) > 0) {
+      event.collapsed.addAll(buffered.collapsed);
+      event.collapsed.add(buffered);
+      buffered.collapsed.clear();
+      tableEvents.put(event.context.getPrimaryKey(), event);
+      bufferedMutations += event.mutations - buffered.mutations;
+      collapsedEvents.inc();
+    } else {
+      buffered.collapsed.add(event);
+      collapsedEvents.inc();
+    }
+    if (bufferedMutations >= maxMutationsPerTransaction) {
+      flush();
+    }
+  }
+
+  /** Writes the buffered change events, with as many keys per transaction as the limit allows. */
+  private void flush() {
+    List<BufferedEvent> events = new ArrayList<>();
+    for (Map<com.google.cloud.spanner.Key, BufferedEvent> tableEvents : bufferedEvents.values()) {
+      events.addAll(tableEvents.values());
+    }
+    bufferedEvents.clear();
+    bufferedMutations = 0;
+
+    int start = 0;
+    while (start < events.size()) {
+      long mutations = events.get(start).mutations;
+      int end = start + 1;
+      while (end < events.size()
+          && mutations + events.get(end).mutations <= maxMutationsPerTransaction) {
+        mutations += events.get(end).mutations;
+        end++;
+      }
+      write(events.subList(start, end));
+      start = end;
+    }
+  }
+
+  /**
+   * Writes change events for distinct primary keys in one transaction. If the transaction fails for
+   * any reason other than an abort, the events are written again one per transaction, so that only
+   * the failing events are routed to the error outputs.
+   */
+  private void write(List<BufferedEvent> events) {
+    List<ChangeEventContext> contexts = new ArrayList<>(events.size());
+    for (BufferedEvent event : events) {
+      contexts.add(event.context);
+    }
+    try {
+      spannerAccessor
+          .getDatabaseClient()
+          .readWriteTransaction(
+              Options.tag(txnTag), Options.priority(spannerConfig.getRpcPriority().get()))
+          .run(
+              (TransactionCallable<Void>)
+                  transaction -> {
+                    // Sequence information for the last change events.
+                    Map<ChangeEventContext, ChangeEventSequence> previousChangeEventSequences =
+                        ChangeEventSequenceFactory.createChangeEventSequencesFromShadowTables(
+                            transaction, bufferedDdl, contexts);
+
+                    for (BufferedEvent event : events) {
+                      ChangeEventSequence previousChangeEventSequence =
+                          previousChangeEventSequences.get(event.context);
+                      /* There was a previous event recorded with a greater sequence information
+                       * than current. Hence, skip the current event.
+                       */
+                      if (previousChangeEventSequence != null
+                          && previousChangeEventSequence.compareTo(event.sequence) >= 0) {
+                        continue;
+                      }
+                      // Apply shadow and data table mutations.
+                      transaction.buffer(event.context.getMutations());
+                    }
+                    return null;
+                  });
+    } catch (Exception e) {
+      if (events.size() > 1 && !isAborted(e)) {
+        LOG.warn(
+            "Failed to write {} change events in one transaction, writing them one at a time",
+            events.size(),
+            e);
+        for (BufferedEvent event : events) {
+          write(List.of(event));
+        }
+      } else {
+        outputErrors(events, e);
+      }
+      return;
+    }
+    transactions.inc();
+    com.google.cloud.Timestamp timestamp = com.google.cloud.Timestamp.now();
+    for (BufferedEvent event : events) {
+      for (BufferedEvent written : event.withCollapsed()) {
+        bufferedOutputs.add(
+            new BufferedOutput<>(
+                DatastreamToSpannerConstants.SUCCESSFUL_EVENT_TAG, timestamp, written));
+        successfulEvents.inc();
+        // decrement the retry error count if this was retry attempt
+        if (isRegularRunMode && written.isRetryRecord) {
+          retryableErrors.dec();
+        }
+      }
+    }
+  }
+
+  /** Returns whether a transaction failed because Spanner aborted it. */
+  private static boolean isAborted(Exception e) {
+    return e instanceof SpannerException
+        && ((SpannerException) e).getErrorCode() == ErrorCode.ABORTED;
+  }
+
+  /** Routes change events that failed to be written to the error outputs. */
+  private void outputErrors(List<BufferedEvent> events, Exception e) {
+    // Write errors are retryable, as for events written one at a time.
+    boolean retryable = e instanceof SpannerException || e instanceof IllegalStateException;
+    for (BufferedEvent event : events) {
+      for (BufferedEvent failed : event.withCollapsed()) {
+        if (retryable) {
+          bufferedOutputs.add(
+              new BufferedOutput<>(
+                  DatastreamToSpannerConstants.RETRYABLE_ERROR_TAG,
+                  withErrorMessage(failed.msg, e),
+                  failed));
+          // do not increment the retry error count if this was retry attempt
+          if (!failed.isRetryRecord) {
+            retryableErrors.inc();
+          }
+        } else {
+          bufferedOutputs.add(
+              new BufferedOutput<>(
+                  DatastreamToSpannerConstants.PERMANENT_ERROR_TAG,
+                  withErrorMessage(failed.msg, e),
+                  failed));
+          failedEvents.inc();
+        }
+      }
+    }
+  }
+
+  /** A change event waiting to be written, with the events collapsed into it. */
+  private static class BufferedEvent {
+
+    private final FailsafeElement<String, String> msg;
+    private final ChangeEventContext context;
+    private final ChangeEventSequence sequence;
+    private final boolean isRetryRecord;
+    private final Instant timestamp;
+    private final BoundedWindow window;
+    private final long mutations;
+    private final List<BufferedEvent> collapsed = new ArrayList<>();
+
+    BufferedEvent(
+        FailsafeElement<String, String> msg,
+        ChangeEventContext context,
+        ChangeEventSequence sequence,
+        boolean isRetryRecord,
+        Instant timestamp,
+        BoundedWindow window) {
+      this.msg = msg;
+      this.context = context;
+      this.sequence = sequence;
+      this.isRetryRecord = isRetryRecord;
+      this.timestamp = timestamp;
+      this.window = window;
+      long mutations = 0;
+      for (Mutation mutation : context.getMutations()) {
+        // Spanner counts a mutation per written column, and a single one per deleted row.
+        mutations += mutation.getOperation() == Op.DELETE ? 1 : mutation.asMap().size();
+      }
+      this.mutations = mutations;
+    }
+
+    List<BufferedEvent> withCollapsed() {
+      List<BufferedEvent> events = new ArrayList<>(collapsed.size() + 1);
+      events.add(this);
+      events.addAll(collapsed);
+      return events;
+    }
+  }
+
+  /** An output for a buffered change event, in the window of the input element. */
+  private static class BufferedOutput<T> {
+
+    private final TupleTag<T> tag;
+    private final T value;
+    private final BufferedEvent event;
+
+    BufferedOutput(TupleTag<T> tag, T value, BufferedEvent event) {
+      this.tag = tag;
+      this.value = value;
+      this.event = event;
+    }
+
+    void emit(FinishBundleContext c) {
+      c.output(tag, value, event.timestamp, event.window);
+    }
   }
 
   String getTxnTag(PipelineOptions options) {
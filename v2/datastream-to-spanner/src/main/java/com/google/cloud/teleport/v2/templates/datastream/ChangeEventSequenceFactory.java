@@ -16,9 +16,26 @@
 package com.google.cloud.teleport.v2.templates.datastream;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.google.cloud.spanner.Key;
+import com.google.cloud.spanner.KeySet;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.SpannerException;
+import com.google.cloud.spanner.Struct;
 import com.google.cloud.spanner.TransactionContext;
+import com.google.cloud.teleport.v2.spanner.ddl.Column;
+import com.google.cloud.teleport.v2.spanner.ddl.Ddl;
+import com.google.cloud.teleport.v2.spanner.ddl.IndexColumn;
+import com.google.cloud.teleport.v2.spanner.ddl.Table;
 import com.google.cloud.teleport.v2.spanner.migrations.exceptions.ChangeEventConvertorException;
 import com.google.cloud.teleport.v2.spanner.migrations.exceptions.InvalidChangeEventException;
+import com.google.cloud.teleport.v2.spanner.type.Type;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Factory classes for ChangeEventSequence classes which provides methods for 1) creating
@@ -85,4 +102,160 @@ public class ChangeEventSequenceFactory {
     }
     throw new InvalidChangeEventException("Unsupported source database: " + sourceType);
   }
+
+  /*
+   * Primary key column types whose values read back from Spanner are equal to the values converted
+   * from change events. Keys with other types, like timestamps that Spanner truncates to
+   * microseconds, are read one at a time.
+   */
+  private static final Set<Type.Code> EXACT_KEY_TYPES =
+      ImmutableSet.of(
+          Type.Code.BOOL,
+          Type.Code.PG_BOOL,
+          Type.Code.INT64,
+          Type.Code.PG_INT8,
+          Type.Code.STRING,
+          Type.Code.PG_VARCHAR,
+          Type.Code.PG_TEXT,
+          Type.Code.BYTES,
+          Type.Code.PG_BYTEA,
+          Type.Code.DATE,
+          Type.Code.PG_DATE);
+
+  /*
+   * Create ChangeEventSequence objects for the earlier events of several change events by reading
+   * from shadow tables. The keys of a shadow table are read with a single multi-key read. The
+   * returned map has a null sequence for change events without an earlier event.
+   */
+  public static Map<ChangeEventContext, ChangeEventSequence>
+      createChangeEventSequencesFromShadowTables(
+          final TransactionContext transactionContext,
+          Ddl ddl,
+          final List<ChangeEventContext> changeEventContexts)
+          throws ChangeEventSequenceCreationException, InvalidChangeEventException {
+
+    Map<String, List<ChangeEventContext>> contextsByShadowTable = new LinkedHashMap<>();
+    for (ChangeEventContext changeEventContext : changeEventContexts) {
+      contextsByShadowTable
+          .computeIfAbsent(changeEventContext.getShadowTable(), t -> new ArrayList<>())
+          .add(changeEventContext);
+    }
+
+    Map<ChangeEventContext, ChangeEventSequence> sequences = new HashMap<>();
+    for (Map.Entry<String, List<ChangeEventContext>> entry : contextsByShadowTable.entrySet()) {
+      String shadowTable = entry.getKey();
+      List<ChangeEventContext> contexts = entry.getValue();
+      List<String> keyColumns = getExactKeyColumns(ddl, shadowTable);
+      if (contexts.size() == 1 || keyColumns == null) {
+        for (ChangeEventContext changeEventContext : contexts) {
+          sequences.put(
+              changeEventContext,
+              createChangeEventSequenceFromShadowTable(transactionContext, changeEventContext));
+        }
+        continue;
+      }
+
+      String sourceType = getSourceType(contexts.get(0).getChangeEvent());
+      List<String> readColumnList = new ArrayList<>(keyColumns);
+      readColumnList.addAll(getShadowTableColumns(sourceType));
+      KeySet.Builder keySet = KeySet.newBuilder();
+      for (ChangeEventContext changeEventContext : contexts) {
+        keySet.addKey(changeEventContext.getPrimaryKey());
+      }
+
+      Map<Key, ChangeEventSequence> sequencesByKey = new HashMap<>();
+      try (ResultSet resultSet =
+          transactionContext.read(shadowTable, keySet.build(), readColumnList)) {
+        while (resultSet.next()) {
+          Struct row = resultSet.getCurrentRowAsStruct();
+          sequencesByKey.put(
+              toPrimaryKey(row, keyColumns), createFromShadowTableRow(sourceType, row));
+        }
+      } catch (SpannerException e) {
+        // Aborted reads must reach the transaction runner to retry the transaction.
+        throw e;
+      } catch (Exception e) {
+        throw new ChangeEventSequenceCreationException(e);
+      }
+      for (ChangeEventContext changeEventContext : contexts) {
+        sequences.put(changeEventContext, sequencesByKey.get(changeEventContext.getPrimaryKey()));
+      }
+    }
+    return sequences;
+  }
+
+  /*
+   * Returns the primary key columns of a shadow table, or null if a key column has a type that is
+   * not in EXACT_KEY_TYPES.
+   */
+  private static List<String> getExactKeyColumns(Ddl ddl, String shadowTable) {
+    Table table = ddl.table(shadowTable);
+    if (table == null) {
+      return null;
+    }
+    List<String> keyColumns = new ArrayList<>();
+    for (IndexColumn keyColumn : table.primaryKeys()) {
+      Column column = table.column(keyColumn.name());
+      if (column == null || !EXACT_KEY_TYPES.contains(column.type().getCode())) {
+        return null;
+      }
+      keyColumns.add(column.name());
+    }
+    return keyColumns;
+  }
+
+  private static Key toPrimaryKey(Struct row, List<String> keyColumns) {
+    Key.Builder key = Key.newBuilder();
+    for (String keyColumn : keyColumns) {
+      if (row.isNull(keyColumn)) {
+        key.appendObject(null);
+        continue;
+      }
+      switch (row.getColumnType(keyColumn).getCode()) {
+        case BOOL:
+          key.append(row.getBoolean(keyColumn));
+          break;
+        case INT64:
+          key.append(row.getLong(keyColumn));
+          break;
+        case STRING:
+          key.append(row.getString(keyColumn));
+          break;
+        case BYTES:
+          key.append(row.getBytes(keyColumn));
+          break;
+        case DATE:
+          key.append(row.getDate(keyColumn));
+          break;
+        default:
+          throw new IllegalArgumentException(
+              "Unsupported shadow table key column type: " + row.getColumnType(keyColumn));
+      }
+    }
+    return key.build();
+  }
+
+  private static List<String> getShadowTableColumns(String sourceType)
+      throws InvalidChangeEventException {
+    if (DatastreamConstants.MYSQL_SOURCE_TYPE.equals(sourceType)) {
+      return MySqlChangeEventSequence.getShadowTableColumns();
+    } else if (DatastreamConstants.ORACLE_SOURCE_TYPE.equals(sourceType)) {
+      return OracleChangeEventSequence.getShadowTableColumns();
+    } else if (DatastreamConstants.POSTGRES_SOURCE_TYPE.equals(sourceType)) {
+      return PostgresChangeEventSequence.getShadowTableColumns();
+    }
+    throw new InvalidChangeEventException("Unsupported source database: " + sourceType);
+  }
+
+  private static ChangeEventSequence createFromShadowTableRow(String sourceType, Struct row)
+      throws InvalidChangeEventException {
+    if (DatastreamConstants.MYSQL_SOURCE_TYPE.equals(sourceType)) {
+      return MySqlChangeEventSequence.createFromShadowTableRow(row);
+    } else if (DatastreamConstants.ORACLE_SOURCE_TYPE.equals(sourceType)) {
+      return OracleChangeEventSequence.createFromShadowTableRow(row);
+    } else if (DatastreamConstants.POSTGRES_SOURCE_TYPE.equals(sourceType)) {
+      return PostgresChangeEventSequence.createFromShadowTableRow(row);
+    }
+    throw new InvalidChangeEventException("Unsupported source database: " + sourceType);
+  }
 }
@@ -88,6 +88,25 @@ class MySqlChangeEventSequence extends ChangeEventSequence {
         logPosition);
   }
 
+  /*
+   * Shadow table columns that store the sequence information.
+   */
+  static List<String> getShadowTableColumns() {
+    return DatastreamConstants.MYSQL_SORT_ORDER.values().stream()
+        .map(p -> p.getLeft())
+        .collect(Collectors.toList());
+  }
+
+  /*
+   * Creates a MySqlChangeEventSequence from a shadow table row that has the
+   * getShadowTableColumns() columns.
+   */
+  static MySqlChangeEventSequence createFromShadowTableRow(Struct row) {
+    List<String> columns = getShadowTableColumns();
+    return new MySqlChangeEventSequence(
+        row.getLong(columns.get(0)), row.getString(columns.get(1)), row.getLong(columns.get(2)));
+  }
+
   /*
    * Creates a MySqlChangeEventSequence by reading from a shadow table.
    */
@@ -97,21 +116,14 @@ class MySqlChangeEventSequence extends ChangeEventSequence {
 
     try {
       // Read columns from shadow table
-      List<String> readColumnList =
-          DatastreamConstants.MYSQL_SORT_ORDER.values().stream()
-              .map(p -> p.getLeft())
-              .collect(Collectors.toList());
-      Struct row = transactionContext.readRow(shadowTable, primaryKey, readColumnList);
+      Struct row = transactionContext.readRow(shadowTable, primaryKey, getShadowTableColumns());
 
       // This is the first event for the primary key and hence the latest event.
       if (row == null) {
         return null;
       }
 
-      return new MySqlChangeEventSequence(
-          row.getLong(readColumnList.get(0)),
-          row.getString(readColumnList.get(1)),
-          row.getLong(readColumnList.get(2)));
+      return createFromShadowTableRow(row);
     } catch (Exception e) {
       throw new ChangeEventSequenceCreationException(e);
     }
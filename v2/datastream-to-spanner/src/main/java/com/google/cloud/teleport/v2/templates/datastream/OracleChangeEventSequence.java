@@ -69,6 +69,24 @@ class OracleChangeEventSequence extends ChangeEventSequence {
         scn);
   }
 
+  /*
+   * Shadow table columns that store the sequence information.
+   */
+  static List<String> getShadowTableColumns() {
+    return DatastreamConstants.ORACLE_SORT_ORDER.values().stream()
+        .map(p -> p.getLeft())
+        .collect(Collectors.toList());
+  }
+
+  /*
+   * Creates a OracleChangeEventSequence from a shadow table row that has the
+   * getShadowTableColumns() columns.
+   */
+  static OracleChangeEventSequence createFromShadowTableRow(Struct row) {
+    List<String> columns = getShadowTableColumns();
+    return new OracleChangeEventSequence(row.getLong(columns.get(0)), row.getLong(columns.get(1)));
+  }
+
   /*
    * Creates a OracleChangeEventSequence by reading from a shadow table.
    */
@@ -78,19 +96,14 @@ class OracleChangeEventSequence extends ChangeEventSequence {
 
     try {
       // Read columns from shadow table
-      List<String> readColumnList =
-          DatastreamConstants.ORACLE_SORT_ORDER.values().stream()
-              .map(p -> p.getLeft())
-              .collect(Collectors.toList());
-      Struct row = transactionContext.readRow(shadowTable, primaryKey, readColumnList);
+      Struct row = transactionContext.readRow(shadowTable, primaryKey, getShadowTableColumns());
 
       // This is the first event for the primary key and hence the latest event.
       if (row == null) {
         return null;
       }
 
-      return new OracleChangeEventSequence(
-          row.getLong(readColumnList.get(0)), row.getLong(readColumnList.get(1)));
+      return createFromShadowTableRow(row);
     } catch (Exception e) {
       throw new ChangeEventSequenceCreationException(e);
     }
@@ -69,6 +69,25 @@ class PostgresChangeEventSequence extends ChangeEventSequence {
         lsn);
   }
 
+  /*
+   * Shadow table columns that store the sequence information.
+   */
+  static List<String> getShadowTableColumns() {
+    return DatastreamConstants.POSTGRES_SORT_ORDER.values().stream()
+        .map(p -> p.getLeft())
+        .collect(Collectors.toList());
+  }
+
+  /*
+   * Creates a PostgresChangeEventSequence from a shadow table row that has the
+   * getShadowTableColumns() columns.
+   */
+  static PostgresChangeEventSequence createFromShadowTableRow(Struct row) {
+    List<String> columns = getShadowTableColumns();
+    return new PostgresChangeEventSequence(
+        row.getLong(columns.get(0)), row.getString(columns.get(1)));
+  }
+
   /*
    * Creates a PostgresChangeEventSequence by reading from a shadow table.
    */
@@ -78,19 +97,14 @@ class PostgresChangeEventSequence extends ChangeEventSequence {
 
     try {
       // Read columns from shadow table
-      List<String> readColumnList =
-          DatastreamConstants.POSTGRES_SORT_ORDER.values().stream()
-              .map(p -> p.getLeft())
-              .collect(Collectors.toList());
-      Struct row = transactionContext.readRow(shadowTable, primaryKey, readColumnList);
+      Struct row = transactionContext.readRow(shadowTable, primaryKey, getShadowTableColumns());
 
       // This is the first event for the primary key and hence the latest event.
       if (row == null) {
         return null;
       }
 
-      return new PostgresChangeEventSequence(
-          row.getLong(readColumnList.get(0)), row.getString(readColumnList.get(1)));
+      return createFromShadowTableRow(row);
     } catch (Exception e) {
       throw new ChangeEventSequenceCreationException(e);
     }
@@ -22,6 +22,7 @@ import com.google.cloud.spanner.DatabaseAdminClient;
 import com.google.cloud.spanner.Dialect;
 import com.google.cloud.spanner.TimestampBound;
 import com.google.cloud.teleport.v2.spanner.ddl.Ddl;
+import com.google.cloud.teleport.v2.spanner.ddl.DdlSnapshotCache;
 import com.google.cloud.teleport.v2.spanner.ddl.InformationSchemaScanner;
 import com.google.cloud.teleport.v2.spanner.ddl.Table;
 import com.google.spanner.admin.database.v1.UpdateDatabaseDdlMetadata;
@@ -123,11 +124,21 @@ public class ProcessInformationSchema extends PTransform<PBegin, PCollection<Ddl
     }
 
     Ddl getInformationSchemaAsDdl() {
-      BatchClient batchClient = spannerAccessor.getBatchClient();
-      BatchReadOnlyTransaction context =
-          batchClient.batchReadOnlyTransaction(TimestampBound.strong());
-      InformationSchemaScanner scanner = new InformationSchemaScanner(context, dialect);
-      return scanner.scan();
+      String instanceId = spannerConfig.getInstanceId().get();
+      String databaseId = spannerConfig.getDatabaseId().get();
+      // Creating shadow tables changes the schema version, so a stale snapshot is never reused.
+      return DdlSnapshotCache.inMemory()
+          .get(
+              instanceId + "/" + databaseId,
+              DdlSnapshotCache.schemaVersion(
+                  spannerAccessor.getDatabaseAdminClient(), instanceId, databaseId),
+              () -> {
+                BatchClient batchClient = spannerAccessor.getBatchClient();
+                BatchReadOnlyTransaction context =
+                    batchClient.batchReadOnlyTransaction(TimestampBound.strong());
+                InformationSchemaScanner scanner = new InformationSchemaScanner(context, dialect);
+                return scanner.scan();
+              });
     }
 
     void createShadowTablesInSpanner(Ddl informationSchema) {
@@ -16,9 +16,13 @@
 package com.google.cloud.teleport.v2.templates;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -27,10 +31,16 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.ErrorCode;
+import com.google.cloud.spanner.KeySet;
 import com.google.cloud.spanner.Mutation;
 import com.google.cloud.spanner.Options;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.SpannerExceptionFactory;
+import com.google.cloud.spanner.Struct;
 import com.google.cloud.spanner.TransactionContext;
 import com.google.cloud.spanner.TransactionRunner;
+import com.google.cloud.spanner.Value;
 import com.google.cloud.teleport.v2.spanner.ddl.Ddl;
 import com.google.cloud.teleport.v2.spanner.migrations.constants.Constants;
 import com.google.cloud.teleport.v2.spanner.migrations.schema.Schema;
@@ -38,13 +48,16 @@ import com.google.cloud.teleport.v2.templates.constants.DatastreamToSpannerConst
 import com.google.cloud.teleport.v2.templates.datastream.DatastreamConstants;
 import com.google.cloud.teleport.v2.values.FailsafeElement;
 import java.util.Iterator;
+import java.util.List;
 import org.apache.beam.runners.dataflow.options.DataflowWorkerHarnessOptions;
 import org.apache.beam.sdk.io.gcp.spanner.SpannerAccessor;
 import org.apache.beam.sdk.io.gcp.spanner.SpannerConfig;
 import org.apache.beam.sdk.options.PipelineOptionsFactory;
 import org.apache.beam.sdk.options.ValueProvider;
 import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
 import org.apache.beam.sdk.values.PCollectionView;
+import org.joda.time.Instant;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
@@ -151,7 +164,7 @@ public class SpannerTransactionWriterDoFnTest {
         new SpannerTransactionWriterDoFn(spannerConfig, ddlView, "shadow", "mysql", true);
     spannerTransactionWriterDoFn.setMapper(mapper);
     spannerTransactionWriterDoFn.setSpannerAccessor(spannerAccessor);
-    spannerTransactionWriterDoFn.processElement(processContextMock);
+    spannerTransactionWriterDoFn.processElement(processContextMock, GlobalWindow.INSTANCE);
     ArgumentCaptor<Iterable<Mutation>> argument = ArgumentCaptor.forClass(Iterable.class);
     verify(transactionContext, times(1)).buffer(argument.capture());
     Iterable<Mutation> capturedMutations = argument.getValue();
@@ -217,7 +230,7 @@ public class SpannerTransactionWriterDoFnTest {
         new SpannerTransactionWriterDoFn(spannerConfig, ddlView, "shadow", "mysql", true);
     spannerTransactionWriterDoFn.setMapper(mapper);
     spannerTransactionWriterDoFn.setSpannerAccessor(spannerAccessor);
-    spannerTransactionWriterDoFn.processElement(processContextMock);
+    spannerTransactionWriterDoFn.processElement(processContextMock, GlobalWindow.INSTANCE);
 
     ArgumentCaptor<FailsafeElement> argument = ArgumentCaptor.forClass(FailsafeElement.class);
     verify(processContextMock, times(1))
@@ -226,4 +239,256 @@ public class SpannerTransactionWriterDoFnTest {
         "Table from change event does not exist in Spanner. table=Users1",
         argument.getValue().getErrorMessage());
   }
+
+  @Test
+  public void testProcessElementsInBatches() {
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    SpannerConfig spannerConfig = mock(SpannerConfig.class);
+    SpannerAccessor spannerAccessor = mock(SpannerAccessor.class);
+    PCollectionView<Ddl> ddlView = mock(PCollectionView.class);
+    DoFn.ProcessContext processContextMock = mock(DoFn.ProcessContext.class);
+    DoFn.FinishBundleContext finishBundleContextMock = mock(DoFn.FinishBundleContext.class);
+    DatabaseClient databaseClientMock = mock(DatabaseClient.class);
+    TransactionRunner transactionCallableMock = mock(TransactionRunner.class);
+    TransactionContext transactionContext = mock(TransactionContext.class);
+    ResultSet resultSet = mock(ResultSet.class);
+    ValueProvider<Options.RpcPriority> rpcPriorityValueProviderMock = mock(ValueProvider.class);
+
+    String[] args = new String[] {"--jobId=123"};
+    DataflowWorkerHarnessOptions options =
+        PipelineOptionsFactory.fromArgs(args).as(DataflowWorkerHarnessOptions.class);
+
+    when(processContextMock.sideInput(any())).thenReturn(getTestDdl());
+    when(processContextMock.getPipelineOptions()).thenReturn(options);
+    when(processContextMock.timestamp()).thenReturn(Instant.EPOCH);
+    when(rpcPriorityValueProviderMock.get()).thenReturn(Options.RpcPriority.LOW);
+    when(spannerConfig.getRpcPriority()).thenReturn(rpcPriorityValueProviderMock);
+    when(spannerAccessor.getDatabaseClient()).thenReturn(databaseClientMock);
+    when(transactionCallableMock.run(any()))
+        .thenAnswer(
+            invocation -> {
+              TransactionRunner.TransactionCallable<Void> callable = invocation.getArgument(0);
+              return callable.run(transactionContext);
+            });
+    when(databaseClientMock.readWriteTransaction(any(), any())).thenReturn(transactionCallableMock);
+    // The shadow table already has a newer event for Tom Cruise.
+    when(transactionContext.read(eq("shadow_Users"), any(KeySet.class), any()))
+        .thenReturn(resultSet);
+    when(resultSet.next()).thenReturn(true, false);
+    when(resultSet.getCurrentRowAsStruct())
+        .thenReturn(
+            Struct.newBuilder()
+                .set("first_name")
+                .to("Tom")
+                .set("last_name")
+                .to("Cruise")
+                .set("timestamp")
+                .to(20000L)
+                .set("log_file")
+                .to("")
+                .set("log_position")
+                .to(-1L)
+                .build());
+
+    SpannerTransactionWriterDoFn spannerTransactionWriterDoFn =
+        new SpannerTransactionWriterDoFn(spannerConfig, ddlView, "shadow", "mysql", true, 1000);
+    spannerTransactionWriterDoFn.setMapper(mapper);
+    spannerTransactionWriterDoFn.setSpannerAccessor(spannerAccessor);
+    spannerTransactionWriterDoFn.startBundle();
+    for (FailsafeElement<String, String> element :
+        List.of(
+            getUsersChangeEvent(mapper, "Johnny", "Depp", 13, 12346),
+            getUsersChangeEvent(mapper, "Johnny", "Depp", 12, 12345),
+            getUsersChangeEvent(mapper, "Tom", "Cruise", 62, 12345))) {
+      when(processContextMock.element()).thenReturn(element);
+      spannerTransactionWriterDoFn.processElement(processContextMock, GlobalWindow.INSTANCE);
+    }
+    verify(databaseClientMock, never()).readWriteTransaction(any(), any());
+
+    spannerTransactionWriterDoFn.finishBundle(finishBundleContextMock);
+
+    // A single transaction reads both keys and only applies the latest Johnny Depp event.
+    verify(databaseClientMock, times(1)).readWriteTransaction(any(), any());
+    verify(transactionContext, never()).readRow(any(), any(), any());
+    ArgumentCaptor<Iterable<Mutation>> argument = ArgumentCaptor.forClass(Iterable.class);
+    verify(transactionContext, times(1)).buffer(argument.capture());
+    Mutation dataMutation = argument.getValue().iterator().next();
+    assertEquals(Value.string("Johnny"), dataMutation.asMap().get("first_name"));
+    assertEquals(Value.int64(13), dataMutation.asMap().get("age"));
+    verify(finishBundleContextMock, times(3))
+        .output(
+            eq(DatastreamToSpannerConstants.SUCCESSFUL_EVENT_TAG),
+            any(com.google.cloud.Timestamp.class),
+            eq(Instant.EPOCH),
+            eq(GlobalWindow.INSTANCE));
+  }
+
+  @Test
+  public void testFailedBatchRetriesEventsOneByOne() {
+    DatabaseClient databaseClientMock = mock(DatabaseClient.class);
+    TransactionContext transactionContext = mock(TransactionContext.class);
+    DoFn.FinishBundleContext finishBundleContextMock = mock(DoFn.FinishBundleContext.class);
+    // Only the Tom Cruise event violates a constraint.
+    doAnswer(
+            invocation -> {
+              Iterable<Mutation> mutations = invocation.getArgument(0);
+              if (Value.string("Tom")
+                  .equals(mutations.iterator().next().asMap().get("first_name"))) {
+                throw SpannerExceptionFactory.newSpannerException(
+                    ErrorCode.FAILED_PRECONDITION, "Foreign key constraint violated");
+              }
+              return null;
+            })
+        .when(transactionContext)
+        .buffer(any(Iterable.class));
+
+    writeBatch(databaseClientMock, transactionContext, finishBundleContextMock);
+
+    // One transaction for the batch, then one per event.
+    verify(databaseClientMock, times(4)).readWriteTransaction(any(), any());
+    verify(finishBundleContextMock, times(2))
+        .output(
+            eq(DatastreamToSpannerConstants.SUCCESSFUL_EVENT_TAG),
+            any(com.google.cloud.Timestamp.class),
+            eq(Instant.EPOCH),
+            eq(GlobalWindow.INSTANCE));
+    ArgumentCaptor<FailsafeElement<String, String>> argument =
+        ArgumentCaptor.forClass(FailsafeElement.class);
+    verify(finishBundleContextMock, times(1))
+        .output(
+            eq(DatastreamToSpannerConstants.RETRYABLE_ERROR_TAG),
+            argument.capture(),
+            eq(Instant.EPOCH),
+            eq(GlobalWindow.INSTANCE));
+    assertTrue(argument.getValue().getPayload().contains("Cruise"));
+    assertTrue(argument.getValue().getErrorMessage().contains("Foreign key constraint violated"));
+    verify(finishBundleContextMock, never())
+        .output(eq(DatastreamToSpannerConstants.PERMANENT_ERROR_TAG), any(), any(), any());
+  }
+
+  @Test
+  public void testFailedBatchRoutesPermanentErrorsOfSingleEvents() {
+    DatabaseClient databaseClientMock = mock(DatabaseClient.class);
+    TransactionContext transactionContext = mock(TransactionContext.class);
+    DoFn.FinishBundleContext finishBundleContextMock = mock(DoFn.FinishBundleContext.class);
+    doAnswer(
+            invocation -> {
+              Iterable<Mutation> mutations = invocation.getArgument(0);
+              if (Value.string("Tom")
+                  .equals(mutations.iterator().next().asMap().get("first_name"))) {
+                throw new IllegalArgumentException("Bad event");
+              }
+              return null;
+            })
+        .when(transactionContext)
+        .buffer(any(Iterable.class));
+
+    writeBatch(databaseClientMock, transactionContext, finishBundleContextMock);
+
+    verify(databaseClientMock, times(4)).readWriteTransaction(any(), any());
+    verify(finishBundleContextMock, times(2))
+        .output(
+            eq(DatastreamToSpannerConstants.SUCCESSFUL_EVENT_TAG),
+            any(com.google.cloud.Timestamp.class),
+            eq(Instant.EPOCH),
+            eq(GlobalWindow.INSTANCE));
+    ArgumentCaptor<FailsafeElement<String, String>> argument =
+        ArgumentCaptor.forClass(FailsafeElement.class);
+    verify(finishBundleContextMock, times(1))
+        .output(
+            eq(DatastreamToSpannerConstants.PERMANENT_ERROR_TAG),
+            argument.capture(),
+            eq(Instant.EPOCH),
+            eq(GlobalWindow.INSTANCE));
+    assertTrue(argument.getValue().getPayload().contains("Cruise"));
+    verify(finishBundleContextMock, never())
+        .output(eq(DatastreamToSpannerConstants.RETRYABLE_ERROR_TAG), any(), any(), any());
+  }
+
+  @Test
+  public void testAbortedBatchIsNotRetriedOneByOne() {
+    DatabaseClient databaseClientMock = mock(DatabaseClient.class);
+    TransactionContext transactionContext = mock(TransactionContext.class);
+    DoFn.FinishBundleContext finishBundleContextMock = mock(DoFn.FinishBundleContext.class);
+    doThrow(SpannerExceptionFactory.newSpannerException(ErrorCode.ABORTED, "Aborted"))
+        .when(transactionContext)
+        .buffer(any(Iterable.class));
+
+    writeBatch(databaseClientMock, transactionContext, finishBundleContextMock);
+
+    verify(databaseClientMock, times(1)).readWriteTransaction(any(), any());
+    verify(finishBundleContextMock, times(3))
+        .output(
+            eq(DatastreamToSpannerConstants.RETRYABLE_ERROR_TAG),
+            any(FailsafeElement.class),
+            eq(Instant.EPOCH),
+            eq(GlobalWindow.INSTANCE));
+    verify(finishBundleContextMock, never())
+        .output(eq(DatastreamToSpannerConstants.SUCCESSFUL_EVENT_TAG), any(), any(), any());
+  }
+
+  /** Writes a bundle of change events for three keys in batches, against an empty shadow table. */
+  private void writeBatch(
+      DatabaseClient databaseClientMock,
+      TransactionContext transactionContext,
+      DoFn.FinishBundleContext finishBundleContextMock) {
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    SpannerConfig spannerConfig = mock(SpannerConfig.class);
+    SpannerAccessor spannerAccessor = mock(SpannerAccessor.class);
+    PCollectionView<Ddl> ddlView = mock(PCollectionView.class);
+    DoFn.ProcessContext processContextMock = mock(DoFn.ProcessContext.class);
+    TransactionRunner transactionCallableMock = mock(TransactionRunner.class);
+    ResultSet resultSet = mock(ResultSet.class);
+    ValueProvider<Options.RpcPriority> rpcPriorityValueProviderMock = mock(ValueProvider.class);
+
+    String[] args = new String[] {"--jobId=123"};
+    DataflowWorkerHarnessOptions options =
+        PipelineOptionsFactory.fromArgs(args).as(DataflowWorkerHarnessOptions.class);
+
+    when(processContextMock.sideInput(any())).thenReturn(getTestDdl());
+    when(processContextMock.getPipelineOptions()).thenReturn(options);
+    when(processContextMock.timestamp()).thenReturn(Instant.EPOCH);
+    when(rpcPriorityValueProviderMock.get()).thenReturn(Options.RpcPriority.LOW);
+    when(spannerConfig.getRpcPriority()).thenReturn(rpcPriorityValueProviderMock);
+    when(spannerAccessor.getDatabaseClient()).thenReturn(databaseClientMock);
+    when(transactionCallableMock.run(any()))
+        .thenAnswer(
+            invocation -> {
+              TransactionRunner.TransactionCallable<Void> callable = invocation.getArgument(0);
+              return callable.run(transactionContext);
+            });
+    when(databaseClientMock.readWriteTransaction(any(), any())).thenReturn(transactionCallableMock);
+    when(transactionContext.read(eq("shadow_Users"), any(KeySet.class), any()))
+        .thenReturn(resultSet);
+    when(resultSet.next()).thenReturn(false);
+
+    SpannerTransactionWriterDoFn spannerTransactionWriterDoFn =
+        new SpannerTransactionWriterDoFn(spannerConfig, ddlView, "shadow", "mysql", true, 1000);
+    spannerTransactionWriterDoFn.setMapper(mapper);
+    spannerTransactionWriterDoFn.setSpannerAccessor(spannerAccessor);
+    spannerTransactionWriterDoFn.startBundle();
+    for (FailsafeElement<String, String> element :
+        List.of(
+            getUsersChangeEvent(mapper, "Johnny", "Depp", 13, 12345),
+            getUsersChangeEvent(mapper, "Tom", "Cruise", 62, 12345),
+            getUsersChangeEvent(mapper, "Brad", "Pitt", 60, 12345))) {
+      when(processContextMock.element()).thenReturn(element);
+      spannerTransactionWriterDoFn.processElement(processContextMock, GlobalWindow.INSTANCE);
+    }
+    spannerTransactionWriterDoFn.finishBundle(finishBundleContextMock);
+  }
+
+  private static FailsafeElement<String, String> getUsersChangeEvent(
+      ObjectMapper mapper, String firstName, String lastName, int age, long timestamp) {
+    ObjectNode outputObject = mapper.createObjectNode();
+    outputObject.put(DatastreamConstants.EVENT_SOURCE_TYPE_KEY, Constants.MYSQL_SOURCE_TYPE);
+    outputObject.put(DatastreamConstants.EVENT_TABLE_NAME_KEY, "Users");
+    outputObject.put("first_name", firstName);
+    outputObject.put("last_name", lastName);
+    outputObject.put("age", age);
+    outputObject.put(DatastreamConstants.MYSQL_TIMESTAMP_KEY, timestamp);
+    return FailsafeElement.of(outputObject.toString(), outputObject.toString());
+  }
 }
@@ -26,6 +26,7 @@ import com.google.cloud.teleport.v2.datastream.values.DmlInfo;
 import com.google.cloud.teleport.v2.templates.DataStreamToSQL.Options;
 import com.google.cloud.teleport.v2.transforms.CreateDml;
 import com.google.cloud.teleport.v2.transforms.ProcessDml;
+import com.google.cloud.teleport.v2.transforms.WriteCompactedDml;
 import com.google.cloud.teleport.v2.values.FailsafeElement;
 import com.google.common.base.Splitter;
 import java.sql.SQLException;
@@ -249,6 +250,40 @@ public class DataStreamToSQL {
     String getCustomConnectionString();
 
     void setCustomConnectionString(String value);
+
+    @TemplateParameter.Enum(
+        order = 15,
+        optional = true,
+        enumOptions = {
+          @TemplateEnumOption("statements"),
+          @TemplateEnumOption("prepared"),
+          @TemplateEnumOption("copy")
+        },
+        description = "How changes are written to the SQL database.",
+        helpText =
+            "How changes are written to the SQL database. `statements` executes one SQL statement"
+                + " per change. `prepared` keeps only the latest change of each primary key in a"
+                + " batch and writes the rest with multi-row prepared statements. `copy` also"
+                + " compacts batches, and loads them with COPY into a staging table before merging"
+                + " them into the target table; it is only supported for Postgres. Batches that"
+                + " keep failing, for example because of foreign keys between tables, are written"
+                + " one change at a time. The default value is `statements`.")
+    @Default.String("statements")
+    String getWriteMode();
+
+    void setWriteMode(String value);
+
+    @TemplateParameter.Long(
+        order = 16,
+        optional = true,
+        description = "Maximum number of changes per batch.",
+        helpText =
+            "The maximum number of changes in a batch written with the `prepared` or `copy` write"
+                + " modes, before compaction. The default value is `1000`.")
+    @Default.Long(1000)
+    Long getWriteBatchSize();
+
+    void setWriteBatchSize(Long value);
   }
 
   /**
@@ -318,6 +353,22 @@ public class DataStreamToSQL {
    */
   public static void validateOptions(
       Options options, CdcJdbcIO.DataSourceConfiguration dataSourceConfiguration) {
+    switch (options.getWriteMode()) {
+      case "statements":
+      case "prepared":
+        break;
+      case "copy":
+        if (!"postgres".equals(options.getDatabaseType())) {
+          throw new IllegalArgumentException(
+              String.format(
+                  "Write mode copy is not supported for Database Type %s.",
+                  options.getDatabaseType()));
+        }
+        break;
+      default:
+        throw new IllegalArgumentException(
+            String.format("Write Mode %s is not supported.", options.getWriteMode()));
+    }
     try {
       if (options.getDatabaseHost() != null) {
         dataSourceConfiguration.buildDatasource().getConnection().close();
@@ -379,25 +430,38 @@ public class DataStreamToSQL {
      *   a) Convert JSON String FailsafeElements to TableRow's (tableRowRecords)
      * Stage 3) Filter stale rows using stateful PK transform
      */
+    boolean preparedStatements = !options.getWriteMode().equals("statements");
     PCollection<KV<String, DmlInfo>> dmlStatements =
         datastreamJsonRecords
-            .apply("Format to DML", CreateDml.of(dataSourceConfiguration).withSchemaMap(schemaMap))
+            .apply(
+                "Format to DML",
+                CreateDml.of(dataSourceConfiguration)
+                    .withSchemaMap(schemaMap)
+                    .withPreparedStatements(preparedStatements))
             .apply("DML Stateful Processing", ProcessDml.statefulOrderByPK());
 
     /*
      * Stage 4: Write Inserts to CloudSQL
      */
-    dmlStatements.apply(
-        "Write to SQL",
-        CdcJdbcIO.<KV<String, DmlInfo>>write()
-            .withDataSourceConfiguration(dataSourceConfiguration)
-            .withStatementFormatter(
-                new CdcJdbcIO.StatementFormatter<KV<String, DmlInfo>>() {
-                  public String formatStatement(KV<String, DmlInfo> element) {
-                    LOG.debug("Executing SQL: {}", element.getValue().getDmlSql());
-                    return element.getValue().getDmlSql();
-                  }
-                }));
+    if (preparedStatements) {
+      dmlStatements.apply(
+          "Write to SQL",
+          WriteCompactedDml.of(dataSourceConfiguration)
+              .withBatchSize(options.getWriteBatchSize())
+              .withPostgresCopy(options.getWriteMode().equals("copy")));
+    } else {
+      dmlStatements.apply(
+          "Write to SQL",
+          CdcJdbcIO.<KV<String, DmlInfo>>write()
+              .withDataSourceConfiguration(dataSourceConfiguration)
+              .withStatementFormatter(
+                  new CdcJdbcIO.StatementFormatter<KV<String, DmlInfo>>() {
+                    public String formatStatement(KV<String, DmlInfo> element) {
+                      LOG.debug("Executing SQL: {}", element.getValue().getDmlSql());
+                      return element.getValue().getDmlSql();
+                    }
+                  }));
+    }
 
     // Execute the pipeline and return the result.
     return pipeline.run();
@@ -44,6 +44,7 @@ public class CreateDml
   private static final Integer NUM_THREADS = new Integer(100);
   private static DataSourceConfiguration dataSourceConfiguration;
   private static Map<String, String> schemaMap = new HashMap<String, String>();
+  private boolean preparedStatements = false;
 
   private CreateDml(DataSourceConfiguration dataSourceConfiguration) {
     this.dataSourceConfiguration = dataSourceConfiguration;
@@ -58,6 +59,12 @@ public class CreateDml
     return this;
   }
 
+  /** Builds parameterized statements for {@link WriteCompactedDml} rather than literal SQL. */
+  public CreateDml withPreparedStatements(boolean preparedStatements) {
+    this.preparedStatements = preparedStatements;
+    return this;
+  }
+
   public DatastreamToDML getDatastreamToDML() {
     DatastreamToDML datastreamToDML;
     String driverName = this.dataSourceConfiguration.getDriverClassName().get();
@@ -75,7 +82,7 @@ public class CreateDml
             String.format("Database Driver %s is not supported.", driverName));
     }
 
-    return datastreamToDML.withSchemaMap(schemaMap);
+    return datastreamToDML.withSchemaMap(schemaMap).withPreparedStatements(preparedStatements);
   }
 
   @Override
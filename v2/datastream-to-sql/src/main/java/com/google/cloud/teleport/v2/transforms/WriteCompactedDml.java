@@ -0,0 +1,402 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.transforms;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.teleport.v2.datastream.io.CdcJdbcIO.DataSourceConfiguration;
+import com.google.cloud.teleport.v2.datastream.io.CdcJdbcIO.DataSourceProviderFromDataSourceConfiguration;
+import com.google.cloud.teleport.v2.datastream.values.DmlInfo;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.apache.beam.sdk.metrics.Counter;
+import org.apache.beam.sdk.metrics.Distribution;
+import org.apache.beam.sdk.metrics.Metrics;
+import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.PTransform;
+import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.transforms.SerializableFunction;
+import org.apache.beam.sdk.util.BackOff;
+import org.apache.beam.sdk.util.BackOffUtils;
+import org.apache.beam.sdk.util.FluentBackoff;
+import org.apache.beam.sdk.util.Sleeper;
+import org.apache.beam.sdk.values.KV;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.commons.text.StringSubstitutor;
+import org.joda.time.Duration;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@code WriteCompactedDml} class writes prepared {@link DmlInfo} objects to a JDBC database in
+ * batches.
+ *
+ * <p>Each batch is compacted to the latest change of every primary key, ordered by the same sort
+ * keys as {@link ProcessDml}. The remaining changes are grouped by table and column shape, and each
+ * group is written with multi-row prepared statements. On PostgreSQL, groups can instead be copied
+ * into a temporary staging table with {@code COPY} and merged into the target table from there.
+ *
+ * <p>When a batch keeps failing, for example because of foreign keys between tables of the batch,
+ * its changes are applied one at a time in arrival order.
+ */
+public class WriteCompactedDml
+    extends PTransform<PCollection<KV<String, DmlInfo>>, PCollection<Void>> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(WriteCompactedDml.class);
+  private static final long DEFAULT_BATCH_SIZE = 1000L;
+
+  // Bind parameters per statement, within the limits of the PostgreSQL and MySQL drivers.
+  private static final int MAX_PARAMETERS = 32_767;
+  private static final String VALUES_PLACEHOLDER = "VALUES {value_rows_sql}";
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final DataSourceConfiguration dataSourceConfiguration;
+  private final long batchSize;
+  private final boolean postgresCopy;
+
+  private WriteCompactedDml(
+      DataSourceConfiguration dataSourceConfiguration, long batchSize, boolean postgresCopy) {
+    this.dataSourceConfiguration = dataSourceConfiguration;
+    this.batchSize = batchSize;
+    this.postgresCopy = postgresCopy;
+  }
+
+  public static WriteCompactedDml of(DataSourceConfiguration dataSourceConfiguration) {
+    return new WriteCompactedDml(dataSourceConfiguration, DEFAULT_BATCH_SIZE, false);
+  }
+
+  /** Sets the maximum number of changes per batch, before compaction. Default is 1000. */
+  public WriteCompactedDml withBatchSize(long batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batchSize must be > 0, but was " + batchSize);
+    }
+    return new WriteCompactedDml(dataSourceConfiguration, batchSize, postgresCopy);
+  }
+
+  /**
+   * Writes groups with {@code COPY} into a staging table followed by a merge, rather than with
+   * multi-row statements. Only supported for PostgreSQL.
+   */
+  public WriteCompactedDml withPostgresCopy(boolean postgresCopy) {
+    return new WriteCompactedDml(dataSourceConfiguration, batchSize, postgresCopy);
+  }
+
+  @Override
+  public PCollection<Void> expand(PCollection<KV<String, DmlInfo>> input) {
+    return input.apply(
+        ParDo.of(
+            new WriteCompactedDmlFn(
+                DataSourceProviderFromDataSourceConfiguration.of(dataSourceConfiguration),
+                batchSize,
+                postgresCopy)));
+  }
+
+  /**
+   * Returns the latest change of each primary key in {@code changes}, in the order the keys were
+   * first seen. Changes to tables without primary keys are all kept.
+   */
+  static List<DmlInfo> compact(List<DmlInfo> changes) {
+    List<DmlInfo> compacted = new ArrayList<>();
+    Map<String, DmlInfo> latestByKey = new LinkedHashMap<>();
+    for (DmlInfo change : changes) {
+      if (change.getAllPkFields().isEmpty()) {
+        compacted.add(change);
+        continue;
+      }
+      latestByKey.merge(
+          change.getStateWindowKey(),
+          change,
+          (previous, current) ->
+              current.getOrderByValueString().compareTo(previous.getOrderByValueString()) >= 0
+                  ? current
+                  : previous);
+    }
+    compacted.addAll(latestByKey.values());
+    return compacted;
+  }
+
+  /** Groups changes that share a statement and row shape, keeping the order of first sight. */
+  static Map<List<String>, List<DmlInfo>> groupByStatement(List<DmlInfo> changes) {
+    Map<List<String>, List<DmlInfo>> groups = new LinkedHashMap<>();
+    for (DmlInfo change : changes) {
+      groups
+          .computeIfAbsent(
+              Arrays.asList(change.getPreparedDmlTemplate(), change.getPreparedRowSql()),
+              k -> new ArrayList<>())
+          .add(change);
+    }
+    return groups;
+  }
+
+  /** Returns the statement of {@code template} for {@code rows} copies of {@code rowSql}. */
+  static String statementFor(String template, String rowSql, int rows) {
+    return StringSubstitutor.replace(
+        template,
+        Collections.singletonMap(
+            "value_rows_sql", String.join(",", Collections.nCopies(rows, rowSql))),
+        "{",
+        "}");
+  }
+
+  /** Renders the prepared values of {@code changes} as PostgreSQL CSV, one row per change. */
+  static String toCsv(List<DmlInfo> changes) throws IOException {
+    StringBuilder csv = new StringBuilder();
+    for (DmlInfo change : changes) {
+      List<String> values = change.getPreparedValues();
+      for (int i = 0; i < values.size(); i++) {
+        if (i > 0) {
+          csv.append(',');
+        }
+        JsonNode value = MAPPER.readTree(values.get(i));
+        if (value.isNull()) {
+          continue;
+        }
+        String text = value.isTextual() ? value.textValue() : value.toString();
+        if (value.isNumber() || value.isBoolean()) {
+          csv.append(text);
+        } else {
+          csv.append('"').append(text.replace("\"", "\"\"")).append('"');
+        }
+      }
+      csv.append('\n');
+    }
+    return csv.toString();
+  }
+
+  static void setParameter(PreparedStatement statement, int index, String jsonValue)
+      throws SQLException, IOException {
+    JsonNode value = MAPPER.readTree(jsonValue);
+    if (value.isNull()) {
+      statement.setNull(index, Types.VARCHAR);
+    } else if (value.isBoolean()) {
+      statement.setBoolean(index, value.booleanValue());
+    } else if (value.isIntegralNumber() && value.canConvertToLong()) {
+      statement.setLong(index, value.longValue());
+    } else if (value.isNumber()) {
+      statement.setBigDecimal(index, value.decimalValue());
+    } else if (value.isTextual()) {
+      statement.setString(index, value.textValue());
+    } else {
+      statement.setString(index, value.toString());
+    }
+  }
+
+  /** Writes batches of compacted changes with prepared statements or {@code COPY}. */
+  static class WriteCompactedDmlFn extends DoFn<KV<String, DmlInfo>, Void> {
+
+    private static final int MAX_RETRIES = 5;
+    private static final FluentBackoff BUNDLE_WRITE_BACKOFF =
+        FluentBackoff.DEFAULT
+            .withMaxRetries(MAX_RETRIES)
+            .withInitialBackoff(Duration.standardSeconds(5));
+
+    private final Counter compactedChanges =
+        Metrics.counter(WriteCompactedDmlFn.class, "compactedChanges");
+    private final Distribution rowsPerStatement =
+        Metrics.distribution(WriteCompactedDmlFn.class, "rowsPerStatement");
+
+    private final SerializableFunction<Void, DataSource> dataSourceProvider;
+    private final long batchSize;
+    private final boolean postgresCopy;
+    private FluentBackoff backoff = BUNDLE_WRITE_BACKOFF;
+
+    private DataSource dataSource;
+    private Connection connection;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+    private final List<DmlInfo> records = new ArrayList<>();
+
+    WriteCompactedDmlFn(
+        SerializableFunction<Void, DataSource> dataSourceProvider,
+        long batchSize,
+        boolean postgresCopy) {
+      this.dataSourceProvider = dataSourceProvider;
+      this.batchSize = batchSize;
+      this.postgresCopy = postgresCopy;
+    }
+
+    @VisibleForTesting
+    WriteCompactedDmlFn withBackoff(FluentBackoff backoff) {
+      this.backoff = backoff;
+      return this;
+    }
+
+    @Setup
+    public void setup() {
+      dataSource = dataSourceProvider.apply(null);
+    }
+
+    @StartBundle
+    public void startBundle() throws Exception {
+      connection = dataSource.getConnection();
+      connection.setAutoCommit(false);
+    }
+
+    @ProcessElement
+    public void processElement(ProcessContext context) throws Exception {
+      records.add(context.element().getValue());
+      if (records.size() >= batchSize) {
+        executeBatch();
+      }
+    }
+
+    @FinishBundle
+    public void finishBundle() throws Exception {
+      executeBatch();
+      try {
+        closeStatements();
+      } finally {
+        if (connection != null) {
+          connection.close();
+        }
+      }
+    }
+
+    private void executeBatch() throws SQLException, IOException, InterruptedException {
+      if (records.isEmpty()) {
+        return;
+      }
+      Sleeper sleeper = Sleeper.DEFAULT;
+      BackOff attempts = backoff.backoff();
+      while (true) {
+        try {
+          writeCompacted();
+          break;
+        } catch (SQLException exception) {
+          connection.rollback();
+          LOG.warn("SQLException Occurred: {}", exception.toString());
+          if (!BackOffUtils.next(sleeper, attempts)) {
+            // Attempt to apply one change at a time as a final attempt.
+            writeOneByOne();
+            break;
+          }
+        }
+      }
+      records.clear();
+    }
+
+    private void writeCompacted() throws SQLException, IOException {
+      List<DmlInfo> compacted = compact(records);
+      compactedChanges.inc(records.size() - compacted.size());
+      int group = 0;
+      for (Map.Entry<List<String>, List<DmlInfo>> entry : groupByStatement(compacted).entrySet()) {
+        String template = entry.getKey().get(0);
+        String rowSql = entry.getKey().get(1);
+        if (postgresCopy && template.contains(VALUES_PLACEHOLDER)) {
+          copyAndMerge(template, rowSql, entry.getValue(), group++);
+        } else {
+          writePrepared(template, rowSql, entry.getValue());
+        }
+      }
+      connection.commit();
+    }
+
+    private void writePrepared(String template, String rowSql, List<DmlInfo> changes)
+        throws SQLException, IOException {
+      int parametersPerRow = Math.max(1, changes.get(0).getPreparedValues().size());
+      int rowsPerChunk = Math.max(1, Math.min(changes.size(), MAX_PARAMETERS / parametersPerRow));
+      for (int start = 0; start < changes.size(); start += rowsPerChunk) {
+        List<DmlInfo> chunk =
+            changes.subList(start, Math.min(changes.size(), start + rowsPerChunk));
+        PreparedStatement statement = prepare(statementFor(template, rowSql, chunk.size()));
+        int index = 1;
+        for (DmlInfo change : chunk) {
+          for (String value : change.getPreparedValues()) {
+            setParameter(statement, index++, value);
+          }
+        }
+        statement.executeUpdate();
+        rowsPerStatement.update(chunk.size());
+      }
+    }
+
+    private void copyAndMerge(String template, String rowSql, List<DmlInfo> changes, int group)
+        throws SQLException, IOException {
+      String stagingTable = "dml_staging_" + group;
+      try (Statement statement = connection.createStatement()) {
+        // The casts of the row parameters give the staging table the types of the target columns.
+        statement.execute(
+            "CREATE TEMPORARY TABLE "
+                + stagingTable
+                + " ON COMMIT DROP AS VALUES "
+                + rowSql.replace("?", "NULL")
+                + " WITH NO DATA");
+      }
+      connection
+          .unwrap(PGConnection.class)
+          .getCopyAPI()
+          .copyIn(
+              "COPY " + stagingTable + " FROM STDIN WITH (FORMAT csv)",
+              new StringReader(toCsv(changes)));
+      try (Statement statement = connection.createStatement()) {
+        statement.executeUpdate(
+            template.replace(VALUES_PLACEHOLDER, "SELECT * FROM " + stagingTable));
+      }
+      rowsPerStatement.update(changes.size());
+    }
+
+    private void writeOneByOne() throws SQLException, IOException {
+      for (DmlInfo change : records) {
+        try {
+          writePrepared(
+              change.getPreparedDmlTemplate(),
+              change.getPreparedRowSql(),
+              Collections.singletonList(change));
+          connection.commit();
+        } catch (SQLException exception) {
+          LOG.error(
+              "SQLException Occurred: {} while executing statement: {}",
+              exception.toString(),
+              change.getPreparedDmlTemplate());
+          connection.rollback();
+        }
+      }
+    }
+
+    private PreparedStatement prepare(String sql) throws SQLException {
+      PreparedStatement statement = statements.get(sql);
+      if (statement == null) {
+        statement = connection.prepareStatement(sql);
+        statements.put(sql, statement);
+      }
+      return statement;
+    }
+
+    private void closeStatements() throws SQLException {
+      try {
+        for (PreparedStatement statement : statements.values()) {
+          statement.close();
+        }
+      } finally {
+        statements.clear();
+      }
+    }
+  }
+}
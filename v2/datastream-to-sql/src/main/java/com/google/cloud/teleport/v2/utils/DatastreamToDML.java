@@ -17,6 +17,8 @@ package com.google.cloud.teleport.v2.utils;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.TextNode;
 import com.google.cloud.teleport.v2.datastream.io.CdcJdbcIO;
 import com.google.cloud.teleport.v2.datastream.values.DatastreamRow;
 import com.google.cloud.teleport.v2.datastream.values.DmlInfo;
@@ -56,6 +58,7 @@ public abstract class DatastreamToDML
   private DataSource dataSource;
   public String quoteCharacter;
   protected Map<String, String> schemaMap = new HashMap<String, String>();
+  private boolean preparedStatements = false;
 
   public abstract String getDefaultQuoteCharacter();
 
@@ -65,6 +68,20 @@ public abstract class DatastreamToDML
 
   public abstract String getInsertDmlStatement();
 
+  /*
+   * Parameterized forms of the statements above, used when writing prepared statements. Each one
+   * has a {value_rows_sql} placeholder for a comma separated list of row tuples. Statements that
+   * list their rows as "VALUES {value_rows_sql}" can also be fed from a staging table.
+   */
+  public abstract String getBatchDeleteDmlStatement();
+
+  public abstract String getBatchUpsertDmlStatement();
+
+  public abstract String getBatchInsertDmlStatement();
+
+  /* The SQL assigning the proposed value of a column in an upsert, e.g. col=EXCLUDED.col. */
+  public abstract String getUpsertColumnSql(String quotedColumnName);
+
   public abstract String getTargetCatalogName(DatastreamRow row);
 
   public abstract String getTargetSchemaName(DatastreamRow row);
@@ -93,6 +110,15 @@ public abstract class DatastreamToDML
     return this;
   }
 
+  /**
+   * Builds parameterized statements and their values instead of SQL with literal values, for
+   * writers that batch rows into prepared statements.
+   */
+  public DatastreamToDML withPreparedStatements(boolean preparedStatements) {
+    this.preparedStatements = preparedStatements;
+    return this;
+  }
+
   @ProcessElement
   public void processElement(ProcessContext context) {
     FailsafeElement<String, String> element = context.element();
@@ -221,6 +247,20 @@ public abstract class DatastreamToDML
       List<String> primaryKeyValues = getFieldValues(rowObj, primaryKeys, tableSchema);
       List<String> orderByValues = getFieldValues(rowObj, orderByFields, tableSchema);
 
+      if (preparedStatements) {
+        return convertJsonToPreparedDmlInfo(
+            rowObj,
+            failsafeValue,
+            catalogName,
+            schemaName,
+            tableName,
+            primaryKeys,
+            tableSchema,
+            orderByFields,
+            primaryKeyValues,
+            orderByValues);
+      }
+
       String dmlSqlTemplate = getDmlTemplate(rowObj, primaryKeys);
       Map<String, String> sqlTemplateValues =
           getSqlTemplateValues(
@@ -246,6 +286,83 @@ public abstract class DatastreamToDML
     }
   }
 
+  private DmlInfo convertJsonToPreparedDmlInfo(
+      JsonNode rowObj,
+      String failsafeValue,
+      String catalogName,
+      String schemaName,
+      String tableName,
+      List<String> primaryKeys,
+      Map<String, String> tableSchema,
+      List<String> orderByFields,
+      List<String> primaryKeyValues,
+      List<String> orderByValues) {
+    // Rejects deletes without primary keys, as for SQL with literal values.
+    getDmlTemplate(rowObj, primaryKeys);
+    Boolean isDelete = rowObj.get("_metadata_deleted").asBoolean();
+    List<String> columnNames = new ArrayList<>();
+    if (isDelete) {
+      for (String primaryKey : primaryKeys) {
+        if (tableSchema.containsKey(primaryKey)) {
+          columnNames.add(primaryKey);
+        }
+      }
+    } else {
+      for (Iterator<String> fieldNames = rowObj.fieldNames(); fieldNames.hasNext(); ) {
+        String columnName = fieldNames.next();
+        if (tableSchema.containsKey(columnName)) {
+          columnNames.add(columnName);
+        }
+      }
+    }
+
+    List<String> quotedColumnNames = new ArrayList<>();
+    List<String> parameters = new ArrayList<>();
+    List<String> upsertColumns = new ArrayList<>();
+    List<String> values = new ArrayList<>();
+    for (String columnName : columnNames) {
+      quotedColumnNames.add(quote(columnName));
+      parameters.add(getParameterSql(columnName, tableSchema));
+      upsertColumns.add(getUpsertColumnSql(quote(columnName)));
+      values.add(getPreparedValue(rowObj, columnName, tableSchema));
+    }
+    List<String> quotedPrimaryKeys = new ArrayList<>();
+    for (String primaryKey : primaryKeys) {
+      quotedPrimaryKeys.add(quote(primaryKey));
+    }
+
+    Map<String, String> sqlTemplateValues = new HashMap<>();
+    sqlTemplateValues.put("quoted_catalog_name", quote(catalogName));
+    sqlTemplateValues.put("quoted_schema_name", quote(schemaName));
+    sqlTemplateValues.put("quoted_table_name", quote(tableName));
+    sqlTemplateValues.put("quoted_column_names", String.join(",", quotedColumnNames));
+    sqlTemplateValues.put("quoted_primary_key_names", String.join(",", quotedPrimaryKeys));
+    sqlTemplateValues.put("column_upsert_sql", String.join(",", upsertColumns));
+
+    String batchSqlTemplate;
+    if (isDelete) {
+      batchSqlTemplate = getBatchDeleteDmlStatement();
+    } else if (primaryKeys.isEmpty()) {
+      batchSqlTemplate = getBatchInsertDmlStatement();
+    } else {
+      batchSqlTemplate = getBatchUpsertDmlStatement();
+    }
+    String preparedDmlTemplate =
+        StringSubstitutor.replace(batchSqlTemplate, sqlTemplateValues, "{", "}");
+    return DmlInfo.of(
+        failsafeValue,
+        preparedDmlTemplate,
+        schemaName,
+        tableName,
+        primaryKeys,
+        orderByFields,
+        primaryKeyValues,
+        orderByValues,
+        preparedDmlTemplate,
+        "(" + String.join(",", parameters) + ")",
+        values);
+  }
+
   public String getDmlTemplate(JsonNode rowObj, List<String> primaryKeys) {
     Boolean isDelete = rowObj.get("_metadata_deleted").asBoolean();
     Boolean hasPrimaryKeys = primaryKeys.size() != 0;
@@ -308,6 +425,29 @@ public abstract class DatastreamToDML
     return "NULL";
   }
 
+  /** Returns the parameter marker of a column in a prepared statement. */
+  public String getParameterSql(String columnName, Map<String, String> tableSchema) {
+    return "?";
+  }
+
+  /**
+   * Returns the value of a column for a prepared statement, encoded as a JSON scalar. Values that
+   * {@link #getValueSql} cleans to NULL are null, and null bytes are removed from text.
+   */
+  public String getPreparedValue(
+      JsonNode rowObj, String columnName, Map<String, String> tableSchema) {
+    JsonNode columnObj = rowObj.get(columnName);
+    if (columnObj == null
+        || columnObj.isNull()
+        || getNullValueSql().equals(getValueSql(rowObj, columnName, tableSchema))) {
+      return NullNode.getInstance().toString();
+    }
+    if (columnObj.isTextual()) {
+      return TextNode.valueOf(StringUtils.replace(columnObj.textValue(), "\u0000", "")).toString();
+    }
+    return columnObj.toString();
+  }
+
   public static String cleanSql(String str) {
     if (str == null) {
       return null;
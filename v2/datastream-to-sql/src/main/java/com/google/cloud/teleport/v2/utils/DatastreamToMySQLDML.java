@@ -56,6 +56,30 @@ public class DatastreamToMySQLDML extends DatastreamToDML {
         + "({quoted_column_names}) VALUES ({column_value_sql});";
   }
 
+  @Override
+  public String getBatchDeleteDmlStatement() {
+    return "DELETE FROM {quoted_catalog_name}.{quoted_table_name} "
+        + "WHERE ({quoted_primary_key_names}) IN ({value_rows_sql})";
+  }
+
+  @Override
+  public String getBatchUpsertDmlStatement() {
+    return "INSERT INTO {quoted_catalog_name}.{quoted_table_name} "
+        + "({quoted_column_names}) VALUES {value_rows_sql} "
+        + "ON DUPLICATE KEY UPDATE {column_upsert_sql}";
+  }
+
+  @Override
+  public String getBatchInsertDmlStatement() {
+    return "INSERT INTO {quoted_catalog_name}.{quoted_table_name} "
+        + "({quoted_column_names}) VALUES {value_rows_sql}";
+  }
+
+  @Override
+  public String getUpsertColumnSql(String quotedColumnName) {
+    return quotedColumnName + "=VALUES(" + quotedColumnName + ")";
+  }
+
   @Override
   public String getTargetCatalogName(DatastreamRow row) {
     String schemaName = row.getSchemaName();
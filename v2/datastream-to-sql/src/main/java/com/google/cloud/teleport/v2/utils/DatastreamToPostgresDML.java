@@ -57,6 +57,74 @@ public class DatastreamToPostgresDML extends DatastreamToDML {
         + "({quoted_column_names}) VALUES ({column_value_sql});";
   }
 
+  @Override
+  public String getBatchDeleteDmlStatement() {
+    return "DELETE FROM {quoted_schema_name}.{quoted_table_name} "
+        + "WHERE ({quoted_primary_key_names}) IN (VALUES {value_rows_sql})";
+  }
+
+  @Override
+  public String getBatchUpsertDmlStatement() {
+    return "INSERT INTO {quoted_schema_name}.{quoted_table_name} "
+        + "({quoted_column_names}) VALUES {value_rows_sql} "
+        + "ON CONFLICT ({quoted_primary_key_names}) DO UPDATE SET {column_upsert_sql}";
+  }
+
+  @Override
+  public String getBatchInsertDmlStatement() {
+    return "INSERT INTO {quoted_schema_name}.{quoted_table_name} "
+        + "({quoted_column_names}) VALUES {value_rows_sql}";
+  }
+
+  @Override
+  public String getUpsertColumnSql(String quotedColumnName) {
+    return quotedColumnName + "=EXCLUDED." + quotedColumnName;
+  }
+
+  /**
+   * Casts each parameter to the type of its column, so that the values can be bound as text or
+   * numbers whatever the column type is.
+   */
+  @Override
+  public String getParameterSql(String columnName, Map<String, String> tableSchema) {
+    String dataType = tableSchema.get(columnName);
+    if (dataType == null) {
+      return "?";
+    }
+    return "CAST(? AS " + getCastTypeSql(dataType) + ")";
+  }
+
+  /**
+   * Returns the type to cast a parameter to for a column of {@code dataType}, as reported by the
+   * driver. Types outside of the search path are reported quoted and schema qualified and are used
+   * as they are. Other names are quoted, keeping the case of user defined types such as enums and
+   * domains. Bit strings are cast to {@code varbit}, since a cast to {@code bit} means {@code
+   * bit(1)} and truncates the value; the assignment to the column checks its length instead.
+   */
+  static String getCastTypeSql(String dataType) {
+    if (dataType.startsWith("\"")) {
+      return dataType;
+    }
+    switch (dataType.toLowerCase()) {
+      case "smallserial":
+        dataType = "int2";
+        break;
+      case "serial":
+        dataType = "int4";
+        break;
+      case "bigserial":
+        dataType = "int8";
+        break;
+      case "bit":
+        dataType = "varbit";
+        break;
+      case "_bit":
+        dataType = "_varbit";
+        break;
+    }
+    return "\"" + dataType.replace("\"", "\"\"") + "\"";
+  }
+
   @Override
   public String getTargetCatalogName(DatastreamRow row) {
     return "";
@@ -0,0 +1,303 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.transforms;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.teleport.v2.datastream.values.DmlInfo;
+import com.google.cloud.teleport.v2.transforms.WriteCompactedDml.WriteCompactedDmlFn;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.util.FluentBackoff;
+import org.apache.beam.sdk.values.KV;
+import org.junit.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+/** Test cases for the {@link WriteCompactedDml} class. */
+public class WriteCompactedDmlTest {
+
+  private static final String UPSERT =
+      "INSERT INTO \"s\".\"t\" (\"id\",\"name\") VALUES {value_rows_sql} "
+          + "ON CONFLICT (\"id\") DO UPDATE SET \"name\"=EXCLUDED.\"name\"";
+  private static final String DELETE =
+      "DELETE FROM \"s\".\"t\" WHERE (\"id\") IN (VALUES {value_rows_sql})";
+
+  private static final String TYPED_ROW = "(CAST(? AS \"int8\"),CAST(? AS \"varchar\"))";
+
+  private static DmlInfo change(
+      String template, String id, String orderBy, List<String> values, String... pkFields) {
+    return change(template, "(?,?)", id, orderBy, values, pkFields);
+  }
+
+  private static DmlInfo change(
+      String template,
+      String rowSql,
+      String id,
+      String orderBy,
+      List<String> values,
+      String... pkFields) {
+    List<String> pks = Arrays.asList(pkFields);
+    return DmlInfo.of(
+        "{}",
+        template,
+        "s",
+        "t",
+        pks,
+        Collections.singletonList("_metadata_timestamp"),
+        pks.isEmpty() ? Collections.emptyList() : Collections.singletonList(id),
+        Collections.singletonList(orderBy),
+        template,
+        rowSql,
+        values);
+  }
+
+  private static DmlInfo upsert(String id, String name) {
+    return upsert(id, "1", name);
+  }
+
+  private static DmlInfo upsert(String id, String orderBy, String name) {
+    return change(UPSERT, id, orderBy, Arrays.asList(id, "\"" + name + "\""), "id");
+  }
+
+  /**
+   * A database connection that records the statements it commits, with their parameters. Prepared
+   * statements whose parameters contain {@link #failing} fail.
+   */
+  private static class FakeDatabase {
+    final Connection connection = mock(Connection.class);
+    final List<String> pending = new ArrayList<>();
+    final List<String> committed = new ArrayList<>();
+    String failing = "\u0000";
+    int rollbacks;
+
+    FakeDatabase() throws SQLException {
+      when(connection.prepareStatement(anyString()))
+          .thenAnswer(invocation -> prepared(invocation.getArgument(0)));
+      when(connection.createStatement())
+          .thenAnswer(
+              invocation -> {
+                Statement statement = mock(Statement.class);
+                when(statement.execute(anyString()))
+                    .thenAnswer(execute -> pending.add(execute.getArgument(0)));
+                when(statement.executeUpdate(anyString()))
+                    .thenAnswer(execute -> pending.add(execute.getArgument(0)) ? 1 : 0);
+                return statement;
+              });
+      doAnswer(
+              invocation -> {
+                committed.addAll(pending);
+                pending.clear();
+                return null;
+              })
+          .when(connection)
+          .commit();
+      doAnswer(
+              invocation -> {
+                pending.clear();
+                rollbacks++;
+                return null;
+              })
+          .when(connection)
+          .rollback();
+    }
+
+    private PreparedStatement prepared(String sql) throws SQLException {
+      PreparedStatement statement = mock(PreparedStatement.class);
+      List<Object> parameters = new ArrayList<>();
+      doAnswer(invocation -> parameters.add(invocation.getArgument(1)))
+          .when(statement)
+          .setLong(anyInt(), anyLong());
+      doAnswer(invocation -> parameters.add(invocation.getArgument(1)))
+          .when(statement)
+          .setString(anyInt(), any());
+      when(statement.executeUpdate())
+          .thenAnswer(
+              invocation -> {
+                String entry = sql + " " + parameters;
+                parameters.clear();
+                if (entry.contains(failing)) {
+                  throw new SQLException("Failed: " + entry);
+                }
+                pending.add(entry);
+                return 1;
+              });
+      return statement;
+    }
+
+    /** Runs {@code changes} through a writer as one bundle. */
+    @SuppressWarnings("unchecked")
+    void write(long batchSize, boolean postgresCopy, DmlInfo... changes) throws Exception {
+      DataSource dataSource = mock(DataSource.class);
+      when(dataSource.getConnection()).thenReturn(connection);
+      WriteCompactedDmlFn fn =
+          new WriteCompactedDmlFn(unused -> dataSource, batchSize, postgresCopy)
+              .withBackoff(FluentBackoff.DEFAULT.withMaxRetries(0));
+      fn.setup();
+      fn.startBundle();
+      for (DmlInfo change : changes) {
+        DoFn<KV<String, DmlInfo>, Void>.ProcessContext context = mock(DoFn.ProcessContext.class);
+        when(context.element()).thenReturn(KV.of(change.getStateWindowKey(), change));
+        fn.processElement(context);
+      }
+      fn.finishBundle();
+    }
+  }
+
+  @Test
+  public void testCompactKeepsLatestChangePerKey() {
+    DmlInfo first = change(UPSERT, "1", "1", Arrays.asList("1", "\"a\""), "id");
+    DmlInfo other = change(UPSERT, "2", "1", Arrays.asList("2", "\"b\""), "id");
+    DmlInfo latest = change(DELETE, "1", "3", Collections.singletonList("1"), "id");
+    DmlInfo stale = change(UPSERT, "1", "2", Arrays.asList("1", "\"c\""), "id");
+
+    assertThat(WriteCompactedDml.compact(Arrays.asList(first, other, latest, stale)))
+        .containsExactly(latest, other)
+        .inOrder();
+  }
+
+  @Test
+  public void testCompactKeepsChangesWithoutPrimaryKeys() {
+    DmlInfo first = change(UPSERT, "1", "1", Arrays.asList("1", "\"a\""));
+    DmlInfo second = change(UPSERT, "1", "1", Arrays.asList("1", "\"a\""));
+
+    assertThat(WriteCompactedDml.compact(Arrays.asList(first, second))).hasSize(2);
+  }
+
+  @Test
+  public void testGroupByStatement() {
+    DmlInfo first = change(UPSERT, "1", "1", Arrays.asList("1", "\"a\""), "id");
+    DmlInfo delete = change(DELETE, "2", "1", Collections.singletonList("2"), "id");
+    DmlInfo second = change(UPSERT, "3", "1", Arrays.asList("3", "\"c\""), "id");
+
+    Map<List<String>, List<DmlInfo>> groups =
+        WriteCompactedDml.groupByStatement(Arrays.asList(first, delete, second));
+
+    assertThat(groups.values())
+        .containsExactly(Arrays.asList(first, second), Collections.singletonList(delete))
+        .inOrder();
+  }
+
+  @Test
+  public void testStatementFor() {
+    assertEquals(
+        "DELETE FROM \"s\".\"t\" WHERE (\"id\") IN (VALUES (?),(?),(?))",
+        WriteCompactedDml.statementFor(DELETE, "(?)", 3));
+  }
+
+  @Test
+  public void testToCsv() throws Exception {
+    DmlInfo row =
+        change(
+            UPSERT,
+            "1",
+            "1",
+            Arrays.asList("1.5", "null", "\"say \\\"hi\\\"\"", "true", "{\"a\":1}"),
+            "id");
+
+    assertEquals(
+        "1.5,,\"say \"\"hi\"\"\",true,\"{\"\"a\"\":1}\"\n",
+        WriteCompactedDml.toCsv(Collections.singletonList(row)));
+  }
+
+  @Test
+  public void testExecuteBatchWritesCompactedBatchesAsMultiRowStatements() throws Exception {
+    FakeDatabase database = new FakeDatabase();
+
+    database.write(
+        3, false, upsert("1", "a"), upsert("2", "b"), upsert("1", "2", "c"), upsert("3", "d"));
+
+    // The first batch is compacted to the latest change of key 1 and written in one statement.
+    assertThat(database.committed)
+        .containsExactly(
+            WriteCompactedDml.statementFor(UPSERT, "(?,?)", 2) + " [1, c, 2, b]",
+            WriteCompactedDml.statementFor(UPSERT, "(?,?)", 1) + " [3, d]")
+        .inOrder();
+    assertEquals(0, database.rollbacks);
+  }
+
+  @Test
+  public void testCopyAndMergeStagesGroupsThroughCopy() throws Exception {
+    FakeDatabase database = new FakeDatabase();
+    List<String> copied = new ArrayList<>();
+    CopyManager copyManager = mock(CopyManager.class);
+    when(copyManager.copyIn(anyString(), any(Reader.class)))
+        .thenAnswer(
+            invocation -> {
+              copied.add(invocation.getArgument(0));
+              StringWriter csv = new StringWriter();
+              ((Reader) invocation.getArgument(1)).transferTo(csv);
+              copied.add(csv.toString());
+              return 2L;
+            });
+    PGConnection pgConnection = mock(PGConnection.class);
+    when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+    when(database.connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+
+    database.write(
+        10,
+        true,
+        change(UPSERT, TYPED_ROW, "1", "1", Arrays.asList("1", "\"a\""), "id"),
+        change(UPSERT, TYPED_ROW, "2", "1", Arrays.asList("2", "null"), "id"));
+
+    assertThat(database.committed)
+        .containsExactly(
+            "CREATE TEMPORARY TABLE dml_staging_0 ON COMMIT DROP AS VALUES"
+                + " (CAST(NULL AS \"int8\"),CAST(NULL AS \"varchar\")) WITH NO DATA",
+            UPSERT.replace("VALUES {value_rows_sql}", "SELECT * FROM dml_staging_0"))
+        .inOrder();
+    assertThat(copied)
+        .containsExactly("COPY dml_staging_0 FROM STDIN WITH (FORMAT csv)", "1,\"a\"\n2,\n")
+        .inOrder();
+    verify(database.connection, never()).prepareStatement(anyString());
+  }
+
+  @Test
+  public void testFailingBatchIsWrittenOneChangeAtATime() throws Exception {
+    FakeDatabase database = new FakeDatabase();
+    database.failing = "bad";
+
+    database.write(10, false, upsert("1", "a"), upsert("2", "bad"), upsert("3", "c"));
+
+    // Only the failing change is lost, the others are committed on their own.
+    String single = WriteCompactedDml.statementFor(UPSERT, "(?,?)", 1);
+    assertThat(database.committed)
+        .containsExactly(single + " [1, a]", single + " [3, c]")
+        .inOrder();
+    assertEquals(2, database.rollbacks);
+  }
+}
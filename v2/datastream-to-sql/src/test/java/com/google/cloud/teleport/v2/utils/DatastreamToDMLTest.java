@@ -112,6 +112,61 @@ public class DatastreamToDMLTest {
     assertEquals(expectedTableName, tableName);
   }
 
+  /**
+   * Test whether {@link DatastreamToDML#getPreparedValue} encodes values as JSON scalars, with null
+   * bytes removed and cleaned NULLs as JSON nulls.
+   */
+  @Test
+  public void testGetPreparedValue() {
+    JsonNode rowObj = this.getRowObj();
+    DatastreamToDML datastreamToDML = DatastreamToPostgresDML.of(null);
+    Map<String, String> tableSchema = new HashMap<>();
+    tableSchema.put("text_column", "int4");
+
+    assertEquals(
+        "\"Test Values: '!@#$%^\"",
+        datastreamToDML.getPreparedValue(rowObj, "quoted_text_column", new HashMap<>()));
+    assertEquals(
+        "\"Test Values: Hes made\"",
+        datastreamToDML.getPreparedValue(rowObj, "null_byte_text_column", new HashMap<>()));
+    assertEquals("null", datastreamToDML.getPreparedValue(rowObj, "missing_column", tableSchema));
+  }
+
+  /**
+   * Test whether {@link DatastreamToPostgresDML#getParameterSql} casts parameters to the types of
+   * their columns.
+   */
+  @Test
+  public void testGetPostgresParameterSql() {
+    DatastreamToDML datastreamToDML = DatastreamToPostgresDML.of(null);
+    Map<String, String> tableSchema = new HashMap<>();
+    tableSchema.put("id", "bigserial");
+    tableSchema.put("name", "varchar");
+    tableSchema.put("flags", "bit");
+    tableSchema.put("mood", "Mood");
+    tableSchema.put("other_mood", "\"Other Schema\".\"Mood\"");
+
+    assertEquals("CAST(? AS \"int8\")", datastreamToDML.getParameterSql("id", tableSchema));
+    assertEquals("CAST(? AS \"varchar\")", datastreamToDML.getParameterSql("name", tableSchema));
+    assertEquals("CAST(? AS \"varbit\")", datastreamToDML.getParameterSql("flags", tableSchema));
+    assertEquals("CAST(? AS \"Mood\")", datastreamToDML.getParameterSql("mood", tableSchema));
+    assertEquals(
+        "CAST(? AS \"Other Schema\".\"Mood\")",
+        datastreamToDML.getParameterSql("other_mood", tableSchema));
+    assertEquals("?", datastreamToDML.getParameterSql("missing", tableSchema));
+    assertEquals("?", DatastreamToMySQLDML.of(null).getParameterSql("id", tableSchema));
+  }
+
+  /** Test the upsert assignments of the batch statements. */
+  @Test
+  public void testGetUpsertColumnSql() {
+    assertEquals(
+        "\"name\"=EXCLUDED.\"name\"",
+        DatastreamToPostgresDML.of(null).getUpsertColumnSql("\"name\""));
+    assertEquals(
+        "`name`=VALUES(`name`)", DatastreamToMySQLDML.of(null).getUpsertColumnSql("`name`"));
+  }
+
   /** Test cleaning schema map. */
   @Test
   public void testParseSchemaMap() {
@@ -325,4 +325,15 @@ public interface ElasticsearchWriteOptions extends PipelineOptions {
   Integer getSocketTimeout();
 
   void setSocketTimeout(Integer socketTimeout);
+
+  @TemplateParameter.Integer(
+      order = 28,
+      optional = true,
+      description = "Max in-flight bulk requests.",
+      helpText =
+          "The maximum number of bulk requests each worker thread keeps in flight to Elasticsearch. Values above 1 send batches asynchronously. Defaults to: 1.")
+  @Default.Integer(1)
+  Integer getMaxInFlightRequests();
+
+  void setMaxInFlightRequests(Integer maxInFlightRequests);
 }
@@ -25,6 +25,7 @@ import com.google.cloud.teleport.v2.elasticsearch.transforms.ValueExtractorTrans
 import com.google.cloud.teleport.v2.elasticsearch.utils.ConnectionInformation;
 import com.google.cloud.teleport.v2.elasticsearch.utils.ElasticsearchIO;
 import com.google.cloud.teleport.v2.elasticsearch.utils.ElasticsearchIO.Write.FieldValueExtractFn;
+import com.google.cloud.teleport.v2.elasticsearch.utils.ElasticsearchIO.Write.PropertyValueExtractFn;
 import com.google.cloud.teleport.v2.utils.KMSUtils;
 import com.google.cloud.teleport.v2.utils.SecretManagerUtils;
 import java.util.Optional;
@@ -65,10 +66,11 @@ public abstract class WriteToElasticsearch extends PTransform<PCollection<String
    * FieldValueExtractFn} to extract a property by name.
    */
   @AutoValue
-  abstract static class StringFieldValueExtractFn implements FieldValueExtractFn {
+  abstract static class StringFieldValueExtractFn implements PropertyValueExtractFn {
 
+    @Override
     @Nullable
-    abstract String propertyName();
+    public abstract String propertyName();
 
     public static Builder newBuilder() {
       return new AutoValue_WriteToElasticsearch_StringFieldValueExtractFn.Builder();
@@ -234,6 +236,11 @@ public abstract class WriteToElasticsearch extends PTransform<PCollection<String
           elasticsearchWriter.withBulkInsertMethod(options().getBulkInsertMethod());
     }
 
+    if (options().getMaxInFlightRequests() != null) {
+      elasticsearchWriter =
+          elasticsearchWriter.withMaxInFlightRequests(options().getMaxInFlightRequests());
+    }
+
     if (Optional.ofNullable(options().getMaxRetryAttempts()).isPresent()) {
       elasticsearchWriter =
           elasticsearchWriter.withRetryConfiguration(
@@ -18,14 +18,15 @@ package com.google.cloud.teleport.v2.elasticsearch.utils;
 import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkArgument;
 import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkState;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializerProvider;
-import com.fasterxml.jackson.databind.module.SimpleModule;
-import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.google.auto.value.AutoValue;
 import com.google.cloud.teleport.v2.elasticsearch.utils.BulkInsertMethod.BulkInsertMethodOptions;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -36,15 +37,19 @@ import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.security.KeyStore;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Predicate;
 import javax.annotation.Nonnull;
 import javax.net.ssl.SSLContext;
@@ -78,6 +83,7 @@ import org.apache.http.conn.ConnectTimeoutException;
 import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
 import org.apache.http.conn.ssl.TrustStrategy;
 import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.message.BasicHeader;
@@ -88,6 +94,7 @@ import org.apache.http.ssl.SSLContexts;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.elasticsearch.client.Request;
 import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseListener;
 import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestClientBuilder;
 import org.joda.time.Duration;
@@ -183,6 +190,7 @@ public class ElasticsearchIO {
         .setUsePartialUpdate(false) // default is document upsert
         .setBulkInsertMethod(
             BulkInsertMethodOptions.CREATE) // default to create (error on duplicate _id)
+        .setMaxInFlightRequests(1) // default to one synchronous bulk request at a time
         .build();
   }
 
@@ -1154,6 +1162,17 @@ public class ElasticsearchIO {
     /** BooleanFieldValueExtractFn class. */
     public interface BooleanFieldValueExtractFn extends SerializableFunction<JsonNode, Boolean> {}
 
+    /**
+     * A {@link FieldValueExtractFn} returning the text of a top-level property of the document.
+     * When all the configured extract functions are of this kind, the writer reads the properties
+     * with a streaming scan of the document instead of parsing it into a {@link JsonNode}.
+     */
+    public interface PropertyValueExtractFn extends FieldValueExtractFn {
+
+      /** Name of the top-level property whose text is returned, or null for the default. */
+      @Nullable String propertyName();
+    }
+
     abstract @Nullable ConnectionConfiguration getConnectionConfiguration();
 
     abstract long getMaxBatchSize();
@@ -1174,6 +1193,8 @@ public class ElasticsearchIO {
 
     abstract @Nullable BooleanFieldValueExtractFn getIsDeleteFn();
 
+    abstract int getMaxInFlightRequests();
+
     abstract Builder builder();
 
     @AutoValue.Builder
@@ -1198,6 +1219,8 @@ public class ElasticsearchIO {
 
       abstract Builder setIsDeleteFn(BooleanFieldValueExtractFn isDeleteFn);
 
+      abstract Builder setMaxInFlightRequests(int maxInFlightRequests);
+
       abstract Write build();
     }
 
@@ -1350,6 +1373,24 @@ public class ElasticsearchIO {
       return builder().setIsDeleteFn(isDeleteFn).build();
     }
 
+    /**
+     * Provide the maximum number of bulk requests each writer keeps in flight. Above 1, a batch is
+     * sent asynchronously and the writer carries on batching documents until that many requests are
+     * outstanding; responses are then checked, and retried under {@link
+     * #withRetryConfiguration(RetryConfiguration)}, in the order the requests were sent. Default is
+     * 1, which waits for each bulk request before batching the next documents.
+     *
+     * @param maxInFlightRequests maximum number of concurrent bulk requests per writer
+     * @return the {@link Write} with the in-flight request limit set
+     */
+    public Write withMaxInFlightRequests(int maxInFlightRequests) {
+      checkArgument(
+          maxInFlightRequests > 0,
+          "maxInFlightRequests must be > 0, but was %s",
+          maxInFlightRequests);
+      return builder().setMaxInFlightRequests(maxInFlightRequests).build();
+    }
+
     @Override
     public PDone expand(PCollection<String> input) {
       ConnectionConfiguration connectionConfiguration = getConnectionConfiguration();
@@ -1367,10 +1408,17 @@ public class ElasticsearchIO {
     @VisibleForTesting
     static class WriteFn extends DoFn<String, Void> {
       private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+      private static final JsonFactory JSON_FACTORY =
+          new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
       private static final int DEFAULT_RETRY_ON_CONFLICT = 5; // race conditions on updates
 
       private static final Duration RETRY_INITIAL_BACKOFF = Duration.standardSeconds(5);
 
+      private static final byte[] PARTIAL_UPDATE_DOC_PREFIX =
+          "{ \"doc\" : ".getBytes(StandardCharsets.UTF_8);
+      private static final byte[] PARTIAL_UPDATE_DOC_SUFFIX =
+          ", \"doc_as_upsert\" : true }".getBytes(StandardCharsets.UTF_8);
+
       @VisibleForTesting
       static final String RETRY_ATTEMPT_LOG = "Error writing to Elasticsearch. Retry attempt[%d]";
 
@@ -1383,11 +1431,17 @@ public class ElasticsearchIO {
       private int backendVersion;
       private final Write spec;
       private transient RestClient restClient;
-      private ArrayList<String> batch;
+
+      // The bulk request body, reused across batches.
+      private transient ByteArrayOutputStream bulkRequest;
+      private int batchSize;
       private long currentBatchSizeBytes;
 
+      // Bulk requests sent but not yet checked, in the order they were sent.
+      private transient Deque<PendingBulkRequest> pendingRequests;
+
       // Encapsulates the elements which form the metadata for an Elasticsearch bulk operation
-      private static class DocumentMetadata implements Serializable {
+      static class DocumentMetadata implements Serializable {
         final String index;
         final String type;
         final String id;
@@ -1401,6 +1455,20 @@ public class ElasticsearchIO {
         }
       }
 
+      // A bulk request in flight.
+      private static class PendingBulkRequest {
+        final String endPoint;
+        final HttpEntity requestBody;
+        final CompletableFuture<Response> response;
+
+        PendingBulkRequest(
+            String endPoint, HttpEntity requestBody, CompletableFuture<Response> response) {
+          this.endPoint = endPoint;
+          this.requestBody = requestBody;
+          this.response = response;
+        }
+      }
+
       @VisibleForTesting
       WriteFn(Write spec) {
         this.spec = spec;
@@ -1422,50 +1490,41 @@ public class ElasticsearchIO {
                   .withMaxRetries(spec.getRetryConfiguration().getMaxAttempts() - 1)
                   .withMaxCumulativeBackoff(spec.getRetryConfiguration().getMaxDuration());
         }
-        // configure a custom serializer for metadata to be able to change serialization based
-        // on ES version
-        SimpleModule module = new SimpleModule();
-        module.addSerializer(
-            DocumentMetadata.class, new DocumentMetadataSerializer((backendVersion >= 7)));
-        OBJECT_MAPPER.registerModule(module);
+        bulkRequest = new ByteArrayOutputStream();
+        pendingRequests = new ArrayDeque<>();
       }
 
       @StartBundle
       public void startBundle(StartBundleContext context) {
-        batch = new ArrayList<>();
+        bulkRequest.reset();
+        batchSize = 0;
         currentBatchSizeBytes = 0;
+        pendingRequests.clear();
       }
 
-      private class DocumentMetadataSerializer extends StdSerializer<DocumentMetadata> {
-        private boolean excludeType = false;
-
-        private DocumentMetadataSerializer(boolean excludeType) {
-          super(DocumentMetadata.class);
-          this.excludeType = excludeType;
+      /**
+       * Writes the metadata of a bulk operation as JSON. The type is left out for Elasticsearch 7
+       * and later, and retry_on_conflict is named according to the backend version.
+       */
+      private void writeDocumentMetadata(JsonGenerator gen, DocumentMetadata value)
+          throws IOException {
+        gen.writeStartObject();
+        if (value.index != null) {
+          gen.writeStringField("_index", value.index);
         }
-
-        @Override
-        public void serialize(
-            DocumentMetadata value, JsonGenerator gen, SerializerProvider provider)
-            throws IOException {
-          gen.writeStartObject();
-          if (value.index != null) {
-            gen.writeStringField("_index", value.index);
-          }
-          if (value.type != null && !this.excludeType) {
-            gen.writeStringField("_type", value.type);
-          }
-          if (value.id != null) {
-            gen.writeStringField("_id", value.id);
-          }
-          if (value.retryOnConflict != null && (backendVersion <= 6)) {
-            gen.writeNumberField("_retry_on_conflict", value.retryOnConflict);
-          }
-          if (value.retryOnConflict != null && backendVersion >= 7) {
-            gen.writeNumberField("retry_on_conflict", value.retryOnConflict);
-          }
-          gen.writeEndObject();
+        if (value.type != null && backendVersion < 7) {
+          gen.writeStringField("_type", value.type);
+        }
+        if (value.id != null) {
+          gen.writeStringField("_id", value.id);
+        }
+        if (value.retryOnConflict != null && (backendVersion <= 6)) {
+          gen.writeNumberField("_retry_on_conflict", value.retryOnConflict);
+        }
+        if (value.retryOnConflict != null && backendVersion >= 7) {
+          gen.writeNumberField("retry_on_conflict", value.retryOnConflict);
         }
+        gen.writeEndObject();
       }
 
       /**
@@ -1475,19 +1534,90 @@ public class ElasticsearchIO {
        * performed, automatically lower-casing the value as required by Elasticsearch.
        *
        * @param parsedDocument the json from which the index, type and id may be extracted
-       * @return the document address as JSON or the default
-       * @throws IOException if the document cannot be parsed as JSON
+       * @return the document address
        */
-      private String getDocumentMetadata(JsonNode parsedDocument) throws IOException {
-        DocumentMetadata metadata =
-            new DocumentMetadata(
-                spec.getIndexFn() != null
-                    ? lowerCaseOrNull(spec.getIndexFn().apply(parsedDocument))
-                    : null,
-                spec.getTypeFn() != null ? spec.getTypeFn().apply(parsedDocument) : null,
-                spec.getIdFn() != null ? spec.getIdFn().apply(parsedDocument) : null,
-                spec.getUsePartialUpdate() ? DEFAULT_RETRY_ON_CONFLICT : null);
-        return OBJECT_MAPPER.writeValueAsString(metadata);
+      private DocumentMetadata getDocumentMetadata(JsonNode parsedDocument) {
+        return new DocumentMetadata(
+            spec.getIndexFn() != null
+                ? lowerCaseOrNull(spec.getIndexFn().apply(parsedDocument))
+                : null,
+            spec.getTypeFn() != null ? spec.getTypeFn().apply(parsedDocument) : null,
+            spec.getIdFn() != null ? spec.getIdFn().apply(parsedDocument) : null,
+            spec.getUsePartialUpdate() ? DEFAULT_RETRY_ON_CONFLICT : null);
+      }
+
+      /**
+       * Same as {@link #getDocumentMetadata(JsonNode)} for extract functions that all read a
+       * top-level property, using a streaming scan of the document. Returns null when a property is
+       * missing or is not a string, so the caller can fall back to the parsed document and its
+       * exact semantics.
+       */
+      @VisibleForTesting
+      @Nullable DocumentMetadata scanDocumentMetadata(String document) throws IOException {
+        String indexProperty = propertyNameOrNull(spec.getIndexFn());
+        String typeProperty = propertyNameOrNull(spec.getTypeFn());
+        String idProperty = propertyNameOrNull(spec.getIdFn());
+        String index = null;
+        String type = null;
+        String id = null;
+        try (JsonParser parser = JSON_FACTORY.createParser(document)) {
+          if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+          }
+          while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            boolean wanted =
+                name.equals(indexProperty) || name.equals(typeProperty) || name.equals(idProperty);
+            if (!wanted) {
+              parser.skipChildren();
+              continue;
+            }
+            if (value != JsonToken.VALUE_STRING) {
+              return null;
+            }
+            String text = parser.getText();
+            // Like a parsed document, the last occurrence of a duplicate property wins.
+            if (name.equals(indexProperty)) {
+              index = text;
+            }
+            if (name.equals(typeProperty)) {
+              type = text;
+            }
+            if (name.equals(idProperty)) {
+              id = text;
+            }
+          }
+          if (parser.currentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+            return null;
+          }
+        }
+        if ((indexProperty != null && index == null)
+            || (typeProperty != null && type == null)
+            || (idProperty != null && id == null)) {
+          return null;
+        }
+        return new DocumentMetadata(
+            lowerCaseOrNull(index),
+            type,
+            id,
+            spec.getUsePartialUpdate() ? DEFAULT_RETRY_ON_CONFLICT : null);
+      }
+
+      /** Whether the document metadata can be read with {@link #scanDocumentMetadata(String)}. */
+      private boolean canScanDocumentMetadata() {
+        return spec.getIsDeleteFn() == null
+            && isPropertyFnOrNull(spec.getIndexFn())
+            && isPropertyFnOrNull(spec.getTypeFn())
+            && isPropertyFnOrNull(spec.getIdFn());
+      }
+
+      private static boolean isPropertyFnOrNull(FieldValueExtractFn fn) {
+        return fn == null || fn instanceof PropertyValueExtractFn;
+      }
+
+      private static String propertyNameOrNull(FieldValueExtractFn fn) {
+        return fn == null ? null : ((PropertyValueExtractFn) fn).propertyName();
       }
 
       private static String lowerCaseOrNull(String input) {
@@ -1497,17 +1627,23 @@ public class ElasticsearchIO {
       @ProcessElement
       public void processElement(ProcessContext context) throws Exception {
         String document = context.element(); // use configuration and auto-generated document IDs
-        String documentMetadata = "{}";
+        DocumentMetadata documentMetadata = null;
         boolean isDelete = false;
         if (spec.getIndexFn() != null || spec.getTypeFn() != null || spec.getIdFn() != null) {
-          // parse once and reused for efficiency
-          JsonNode parsedDocument = OBJECT_MAPPER.readTree(document);
-          documentMetadata = getDocumentMetadata(parsedDocument);
-          if (spec.getIsDeleteFn() != null) {
-            isDelete = spec.getIsDeleteFn().apply(parsedDocument);
+          if (canScanDocumentMetadata()) {
+            documentMetadata = scanDocumentMetadata(document);
+          }
+          if (documentMetadata == null) {
+            // parse once and reused for efficiency
+            JsonNode parsedDocument = OBJECT_MAPPER.readTree(document);
+            documentMetadata = getDocumentMetadata(parsedDocument);
+            if (spec.getIsDeleteFn() != null) {
+              isDelete = spec.getIsDeleteFn().apply(parsedDocument);
+            }
           }
         }
-        long docSizeBytes = document.getBytes(StandardCharsets.UTF_8).length;
+        byte[] documentBytes = document.getBytes(StandardCharsets.UTF_8);
+        long docSizeBytes = documentBytes.length;
         long newBatchSizeBytes = currentBatchSizeBytes + docSizeBytes;
         if (newBatchSizeBytes > spec.getMaxBatchSizeBytes()) {
           flushBatch();
@@ -1515,37 +1651,61 @@ public class ElasticsearchIO {
 
         if (isDelete) {
           // delete request used for deleting a document.
-          batch.add(String.format("{ \"delete\" : %s }%n", documentMetadata));
+          writeAction("delete", documentMetadata);
         } else {
           // index is an insert/upsert and update is a partial update (or insert if not existing)
           if (spec.getUsePartialUpdate()) {
-            batch.add(
-                String.format(
-                    "{ \"update\" : %s }%n{ \"doc\" : %s, \"doc_as_upsert\" : true }%n",
-                    documentMetadata, document));
+            writeAction("update", documentMetadata);
+            bulkRequest.write(PARTIAL_UPDATE_DOC_PREFIX);
+            bulkRequest.write(documentBytes);
+            bulkRequest.write(PARTIAL_UPDATE_DOC_SUFFIX);
+            bulkRequest.write('\n');
           } else {
             if (spec.getBulkInsertMethod() == BulkInsertMethodOptions.INDEX) {
               // index allows upsert of document with same _id as existing document
-              batch.add(String.format("{ \"index\" : %s }%n%s%n", documentMetadata, document));
+              writeAction("index", documentMetadata);
             } else {
               // create will error if document with same _id already exists
-              batch.add(String.format("{ \"create\" : %s }%n%s%n", documentMetadata, document));
+              writeAction("create", documentMetadata);
             }
+            bulkRequest.write(documentBytes);
+            bulkRequest.write('\n');
           }
         }
+        batchSize++;
 
         currentBatchSizeBytes += docSizeBytes;
 
-        if (batch.size() >= spec.getMaxBatchSize()
+        if (batchSize >= spec.getMaxBatchSize()
             || currentBatchSizeBytes >= spec.getMaxBatchSizeBytes()) {
           flushBatch();
         }
       }
 
+      /** Appends the action line of a bulk operation to the bulk request. */
+      private void writeAction(String action, @Nullable DocumentMetadata documentMetadata)
+          throws IOException {
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(bulkRequest)) {
+          gen.writeStartObject();
+          gen.writeFieldName(action);
+          if (documentMetadata == null) {
+            gen.writeStartObject();
+            gen.writeEndObject();
+          } else {
+            writeDocumentMetadata(gen, documentMetadata);
+          }
+          gen.writeEndObject();
+        }
+        bulkRequest.write('\n');
+      }
+
       @FinishBundle
       public void finishBundle(FinishBundleContext context)
           throws IOException, InterruptedException {
         flushBatch();
+        while (!pendingRequests.isEmpty()) {
+          completeBulkRequest(pendingRequests.remove());
+        }
       }
 
       private boolean isRetryableClientException(Throwable t) {
@@ -1558,18 +1718,19 @@ public class ElasticsearchIO {
             || t.getCause() instanceof ConnectException;
       }
 
+      /**
+       * Sends the current batch as a bulk request. Once {@link Write#getMaxInFlightRequests()}
+       * requests are outstanding, waits for the oldest ones and checks their responses.
+       */
       private void flushBatch() throws IOException, InterruptedException {
-        if (batch.isEmpty()) {
+        if (batchSize == 0) {
           return;
         }
-        StringBuilder bulkRequest = new StringBuilder();
-        for (String json : batch) {
-          bulkRequest.append(json);
-        }
-        batch.clear();
+        HttpEntity requestBody =
+            new ByteArrayEntity(bulkRequest.toByteArray(), ContentType.APPLICATION_JSON);
+        bulkRequest.reset();
+        batchSize = 0;
         currentBatchSizeBytes = 0;
-        Response response = null;
-        HttpEntity responseEntity = null;
         // Elasticsearch will default to the index/type provided here if none are set in the
         // document meta (i.e. using ElasticsearchIO$Write#withIndexFn and
         // ElasticsearchIO$Write#withTypeFn options)
@@ -1583,16 +1744,42 @@ public class ElasticsearchIO {
         } else {
           endPoint = String.format("/%s/_bulk", spec.getConnectionConfiguration().getIndex());
         }
-        HttpEntity requestBody =
-            new NStringEntity(bulkRequest.toString(), ContentType.APPLICATION_JSON);
+        Request request = new Request("POST", endPoint);
+        request.addParameters(Collections.emptyMap());
+        request.setEntity(requestBody);
+        CompletableFuture<Response> response = new CompletableFuture<>();
+        restClient.performRequestAsync(
+            request,
+            new ResponseListener() {
+              @Override
+              public void onSuccess(Response r) {
+                response.complete(r);
+              }
+
+              @Override
+              public void onFailure(Exception e) {
+                response.completeExceptionally(e);
+              }
+            });
+        pendingRequests.add(new PendingBulkRequest(endPoint, requestBody, response));
+        while (pendingRequests.size() >= spec.getMaxInFlightRequests()) {
+          completeBulkRequest(pendingRequests.remove());
+        }
+      }
+
+      /** Waits for a bulk request, retrying it as configured, and checks its response. */
+      private void completeBulkRequest(PendingBulkRequest pending)
+          throws IOException, InterruptedException {
+        Response response = null;
+        HttpEntity responseEntity = null;
         try {
-          Request request = new Request("POST", endPoint);
-          request.addParameters(Collections.emptyMap());
-          request.setEntity(requestBody);
-          response = restClient.performRequest(request);
+          response = pending.response.get();
           responseEntity = new BufferedHttpEntity(response.getEntity());
-        } catch (IOException ex) {
-          if (spec.getRetryConfiguration() == null || !isRetryableClientException(ex)) {
+        } catch (ExecutionException e) {
+          IOException ex = asIOException(e.getCause());
+          // Unlike RestClient#performRequest, the async client does not wrap the client exception.
+          if (spec.getRetryConfiguration() == null
+              || !isRetryableClientException(new IOException(ex.getMessage(), ex))) {
             throw ex;
           }
           LOG.error("Caught ES timeout, retrying", ex);
@@ -1605,11 +1792,22 @@ public class ElasticsearchIO {
               && spec.getRetryConfiguration().getRetryPredicate().test(responseEntity)) {
             LOG.warn("ES Cluster is responding with HTP 429 - TOO_MANY_REQUESTS.");
           }
-          responseEntity = handleRetry("POST", endPoint, Collections.emptyMap(), requestBody);
+          responseEntity =
+              handleRetry("POST", pending.endPoint, Collections.emptyMap(), pending.requestBody);
         }
         checkForErrors(responseEntity, backendVersion, spec.getUsePartialUpdate());
       }
 
+      private static IOException asIOException(Throwable t) {
+        if (t instanceof IOException) {
+          return (IOException) t;
+        }
+        if (t instanceof RuntimeException) {
+          throw (RuntimeException) t;
+        }
+        return new IOException(t);
+      }
+
       /** retry request based on retry configuration policy. */
       private HttpEntity handleRetry(
           String method, String endpoint, Map<String, String> params, HttpEntity requestBody)
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.elasticsearch.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.cloud.teleport.v2.elasticsearch.utils.ElasticsearchIO.Write.PropertyValueExtractFn;
+import com.google.cloud.teleport.v2.elasticsearch.utils.ElasticsearchIO.Write.WriteFn;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import org.apache.beam.sdk.Pipeline.PipelineExecutionException;
+import org.apache.beam.sdk.testing.TestPipeline;
+import org.apache.beam.sdk.transforms.Create;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ElasticsearchIO.Write}. */
+@RunWith(JUnit4.class)
+public class ElasticsearchIOTest {
+
+  @Rule public final transient TestPipeline pipeline = TestPipeline.create();
+
+  private HttpServer server;
+  private final ConcurrentLinkedQueue<String> bulkRequests = new ConcurrentLinkedQueue<>();
+  private volatile String bulkResponse = "{\"errors\":false,\"items\":[]}";
+
+  /** Reads a top-level property, like the templates' propertyAsId and propertyAsIndex options. */
+  private static class PropertyFn implements PropertyValueExtractFn {
+    private final String propertyName;
+
+    PropertyFn(String propertyName) {
+      this.propertyName = propertyName;
+    }
+
+    @Override
+    public String propertyName() {
+      return propertyName;
+    }
+
+    @Override
+    public String apply(JsonNode input) {
+      return input.get(propertyName).asText();
+    }
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext(
+        "/",
+        exchange -> {
+          String body =
+              new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+          if ("POST".equals(exchange.getRequestMethod())) {
+            bulkRequests.add(body);
+            respond(exchange, bulkResponse);
+          } else {
+            respond(exchange, "{\"version\":{\"number\":\"8.11.0\"}}");
+          }
+        });
+    server.setExecutor(Executors.newFixedThreadPool(4));
+    server.start();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  private static void respond(HttpExchange exchange, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (OutputStream os = exchange.getResponseBody()) {
+      os.write(bytes);
+    }
+  }
+
+  private ElasticsearchIO.Write write() {
+    return ElasticsearchIO.write()
+        .withConnectionConfiguration(
+            ElasticsearchIO.ConnectionConfiguration.create(
+                new String[] {"http://localhost:" + server.getAddress().getPort()},
+                "test-index",
+                "_doc",
+                "test"));
+  }
+
+  @Test
+  public void testScanDocumentMetadata() throws IOException {
+    WriteFn fn =
+        new WriteFn(write().withIdFn(new PropertyFn("id")).withIndexFn(new PropertyFn("target")));
+
+    WriteFn.DocumentMetadata metadata =
+        fn.scanDocumentMetadata(
+            "{\"nested\":{\"id\":\"inner\"},\"id\":\"doc-1\",\"list\":[1,{\"a\":2}],"
+                + "\"target\":\"Logs\"}");
+    assertEquals("doc-1", metadata.id);
+    assertEquals("logs", metadata.index);
+    assertNull(metadata.type);
+
+    // The last occurrence of a duplicate property wins, as in a parsed document.
+    metadata = fn.scanDocumentMetadata("{\"id\":\"a\",\"target\":\"t\",\"id\":\"b\"}");
+    assertEquals("b", metadata.id);
+
+    // Anything the scan does not reproduce exactly is left to the parsed document.
+    assertNull(fn.scanDocumentMetadata("{\"id\":1,\"target\":\"t\"}"));
+    assertNull(fn.scanDocumentMetadata("{\"target\":\"t\"}"));
+    assertNull(fn.scanDocumentMetadata("[{\"id\":\"a\"}]"));
+  }
+
+  @Test
+  public void testWriteWithInFlightRequests() {
+    List<String> documents = new ArrayList<>();
+    for (int i = 0; i < 25; i++) {
+      documents.add("{\"id\":\"doc-" + i + "\",\"value\":" + i + "}");
+    }
+
+    pipeline
+        .apply(Create.of(documents))
+        .apply(
+            write().withIdFn(new PropertyFn("id")).withMaxBatchSize(4).withMaxInFlightRequests(3));
+    pipeline.run().waitUntilFinish();
+
+    List<String> lines = new ArrayList<>();
+    for (String bulkRequest : bulkRequests) {
+      assertTrue(bulkRequest.endsWith("\n"));
+      lines.addAll(List.of(bulkRequest.split("\n")));
+    }
+    assertEquals(2 * documents.size(), lines.size());
+    for (int i = 0; i < 25; i++) {
+      int line = lines.indexOf("{\"id\":\"doc-" + i + "\",\"value\":" + i + "}");
+      assertTrue(line > 0);
+      assertEquals("{\"create\":{\"_id\":\"doc-" + i + "\"}}", lines.get(line - 1));
+    }
+  }
+
+  @Test
+  public void testWriteFailsOnItemErrors() {
+    bulkResponse =
+        "{\"errors\":true,\"items\":[{\"create\":{\"_id\":\"doc-1\",\"error\":"
+            + "{\"type\":\"version_conflict_engine_exception\",\"reason\":\"exists\"}}}]}";
+
+    pipeline
+        .apply(Create.of("{\"id\":\"doc-1\"}", "{\"id\":\"doc-2\"}"))
+        .apply(write().withIdFn(new PropertyFn("id")).withMaxInFlightRequests(2));
+
+    PipelineExecutionException e =
+        assertThrows(PipelineExecutionException.class, () -> pipeline.run().waitUntilFinish());
+    assertTrue(e.getMessage().contains("Document id doc-1: exists"));
+  }
+}
@@ -21,11 +21,13 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
+import java.util.concurrent.Callable;
 import org.apache.beam.sdk.metrics.Metrics;
 import org.apache.commons.dbcp2.ConnectionFactory;
 import org.apache.commons.dbcp2.DriverManagerConnectionFactory;
 import org.apache.commons.dbcp2.PoolableConnectionFactory;
 import org.apache.commons.dbcp2.PoolingDriver;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.commons.pool2.ObjectPool;
 import org.apache.commons.pool2.impl.GenericObjectPool;
 import org.slf4j.Logger;
@@ -41,6 +43,10 @@ public class MySqlDao implements Serializable {
   private String fullPoolName = "";
   private String shardId = "";
 
+  /* The connection of the current inTransaction call, opened by its first batchWrite. */
+  private transient boolean inTransaction;
+  private transient Connection transactionConnection;
+
   public MySqlDao(String sqlUrl, String sqlUser, String sqlPasswd, String shardId) {
     sqlUrl = sqlUrl + "?rewriteBatchedStatements=true";
     try {
@@ -75,80 +81,123 @@ public class MySqlDao implements Serializable {
 
   // writes to database in a batch
   public void batchWrite(List<String> batchStatements) throws SQLException {
-    Connection connObj = null;
-    Statement statement = null;
+    if (inTransaction) {
+      // Retrying a single batch would lose the earlier ones, so inTransaction retries the whole
+      // transaction instead.
+      if (transactionConnection == null) {
+        transactionConnection = getConnection();
+        transactionConnection.setAutoCommit(false);
+      }
+      executeBatch(transactionConnection, batchStatements);
+      return;
+    }
     boolean status = false;
     while (!status) {
-      try {
-        connObj = DriverManager.getConnection(this.fullPoolName);
-
-        statement = connObj.createStatement();
-        for (String stmt : batchStatements) {
-          statement.addBatch(stmt);
-        }
-        statement.executeBatch();
+      try (Connection connObj = getConnection()) {
+        executeBatch(connObj, batchStatements);
         status = true;
-      } catch (com.mysql.cj.jdbc.exceptions.CommunicationsException e) {
-        // TODO: retry handling is configurable with retry count
-        LOG.warn(
-            "Connection exception while executing SQL for shard : "
-                + shardId
-                + ", will retry : "
-                + e.getMessage());
-        // gives indication that the shard is being retried
-        Metrics.counter(MySqlDao.class, "mySQL_retry_" + shardId).inc();
-        try {
-          Thread.sleep(1000);
-        } catch (java.lang.InterruptedException ex) {
-          throw new RuntimeException(ex);
-        }
-      } catch (java.sql.SQLNonTransientConnectionException e) {
-        if (e.getMessage().contains("Server shutdown in progress")) {
-          LOG.warn(
-              "Connection exception while executing SQL for shard : "
-                  + shardId
-                  + ", will retry : "
-                  + e.getMessage());
-          // gives indication that the shard is being retried
-          Metrics.counter(MySqlDao.class, "mySQL_retry_" + shardId).inc();
-          try {
-            Thread.sleep(1000);
-          } catch (java.lang.InterruptedException ex) {
-            throw new RuntimeException(ex);
-          }
-        } else {
+      } catch (SQLException e) {
+        if (!isRetryable(e)) {
           throw e;
         }
-      } catch (java.sql.SQLException e) {
-        // This exception happens when the DB is shutting down
-        if (e.getMessage().contains("No operations allowed after statement closed")) {
-          LOG.warn(
-              "Connection exception while executing SQL for shard : "
-                  + shardId
-                  + ", will retry : "
-                  + e.getMessage());
-          // gives indication that the shard is being retried
-          Metrics.counter(MySqlDao.class, "mySQL_retry_" + shardId).inc();
-          try {
-            Thread.sleep(1000);
-          } catch (java.lang.InterruptedException ex) {
-            throw new RuntimeException(ex);
-          }
-        } else {
+        waitBeforeRetry(e);
+      }
+    }
+  }
+
+  /**
+   * Runs {@code work} in a single transaction, so that the statements of every {@link #batchWrite}
+   * call made by it are committed together or not at all. If the connection is lost, the
+   * transaction is rolled back and {@code work} is run again from the start.
+   */
+  public <T> T inTransaction(Callable<T> work) throws Exception {
+    while (true) {
+      inTransaction = true;
+      boolean committed = false;
+      try {
+        T result = work.call();
+        if (transactionConnection != null) {
+          transactionConnection.commit();
+        }
+        committed = true;
+        return result;
+      } catch (Exception e) {
+        SQLException sqlException = ExceptionUtils.throwableOfType(e, SQLException.class);
+        if (sqlException == null || !isRetryable(sqlException)) {
           throw e;
         }
+        waitBeforeRetry(sqlException);
       } finally {
-
-        if (statement != null) {
-          statement.close();
-        }
-        if (connObj != null) {
-          connObj.close();
+        inTransaction = false;
+        if (transactionConnection != null) {
+          closeTransactionConnection(committed);
         }
       }
     }
   }
 
+  // package-private to be overridden by unit tests
+  Connection getConnection() throws SQLException {
+    return DriverManager.getConnection(this.fullPoolName);
+  }
+
+  private static void executeBatch(Connection connection, List<String> batchStatements)
+      throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      for (String stmt : batchStatements) {
+        statement.addBatch(stmt);
+      }
+      statement.executeBatch();
+    }
+  }
+
+  private void closeTransactionConnection(boolean committed) {
+    Connection connection = transactionConnection;
+    transactionConnection = null;
+    try {
+      if (!committed) {
+        connection.rollback();
+      }
+      connection.setAutoCommit(true);
+    } catch (SQLException e) {
+      LOG.warn("Failed to roll back the transaction for shard : " + shardId, e);
+    } finally {
+      try {
+        connection.close();
+      } catch (SQLException e) {
+        LOG.warn("Failed to close the connection for shard : " + shardId, e);
+      }
+    }
+  }
+
+  private static boolean isRetryable(SQLException e) {
+    if (e instanceof com.mysql.cj.jdbc.exceptions.CommunicationsException) {
+      return true;
+    }
+    String message = e.getMessage() == null ? "" : e.getMessage();
+    if (e instanceof java.sql.SQLNonTransientConnectionException) {
+      return message.contains("Server shutdown in progress");
+    }
+    // This exception happens when the DB is shutting down
+    return message.contains("No operations allowed after statement closed");
+  }
+
+  private void waitBeforeRetry(SQLException e) {
+    // TODO: retry handling is configurable with retry count
+    LOG.warn(
+        "Connection exception while executing SQL for shard : "
+            + shardId
+            + ", will retry : "
+            + e.getMessage());
+    // gives indication that the shard is being retried
+    Metrics.counter(MySqlDao.class, "mySQL_retry_" + shardId).inc();
+    try {
+      Thread.sleep(1000);
+    } catch (java.lang.InterruptedException ex) {
+      throw new RuntimeException(ex);
+    }
+  }
+
   // frees up the pooling resources
   public void cleanup() throws Exception {
     driver.closePool(this.poolName);
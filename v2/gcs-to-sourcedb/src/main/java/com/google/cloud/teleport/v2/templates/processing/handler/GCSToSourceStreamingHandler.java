@@ -27,10 +27,15 @@ import com.google.cloud.teleport.v2.templates.dao.MySqlDao;
 import com.google.cloud.teleport.v2.templates.dao.SpannerDao;
 import com.google.cloud.teleport.v2.templates.utils.GCSReader;
 import com.google.cloud.teleport.v2.templates.utils.ShardProgressTracker;
+import com.google.cloud.teleport.v2.templates.utils.SortedChangeRecords;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import org.apache.beam.sdk.metrics.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +46,9 @@ public class GCSToSourceStreamingHandler {
   private static final Logger LOG = LoggerFactory.getLogger(GCSToSourceStreamingHandler.class);
   private static final String GCS_INPUT_DIRECTORY_REGEX = "gs://(.*?)/(.*)";
 
+  /** Maximum number of change records converted and written to the source in one batch. */
+  static final int DML_CHUNK_SIZE = 1000;
+
   private static org.joda.time.Instant currentIntervalStart;
 
   public static String process(
@@ -52,21 +60,20 @@ public class GCSToSourceStreamingHandler {
     String shardId = taskContext.getShard().getLogicalShardId();
     GCSReader inputFileReader = new GCSReader(taskContext, spannerDao);
     String fileProcessedStartInterval = taskContext.getStartTimestamp();
-    try {
-      Instant readStartTime = Instant.now();
-      List<TrimmedShardedDataChangeRecord> records = inputFileReader.getRecords();
+    Instant readStartTime = Instant.now();
+    try (SortedChangeRecords records = inputFileReader.getRecords()) {
       Instant readEndTime = Instant.now();
       LOG.info(
           "Shard "
               + shardId
-              + ": read "
+              + ": read and sorted "
               + records.size()
               + " records from the buffer in "
               + ChronoUnit.MILLIS.between(readStartTime, readEndTime)
               + " milliseconds");
       // This may have changed in case the interval did not have data
       fileProcessedStartInterval = inputFileReader.getCurrentIntervalStart();
-      if (records.isEmpty()) {
+      if (!records.hasNext()) {
         markShardSuccess(taskContext, spannerDao, fileProcessedStartInterval);
         return fileProcessedStartInterval;
       }
@@ -86,15 +93,31 @@ public class GCSToSourceStreamingHandler {
                   taskContext.getShard().getPassword())
               .getMySqlDao(shardId);
 
-      InputRecordProcessor.processRecords(
-          records,
-          taskContext.getSchema(),
-          dao,
-          shardId,
-          taskContext.getSourceDbTimezoneOffset(),
-          spannerToSourceTransformer);
+      // The chunks of a file are committed in one transaction, so a file that fails part way is
+      // not partially applied when it is processed again. A retried transaction reads the file
+      // again, since the sorted records can only be iterated once.
+      AtomicReference<SortedChangeRecords> unreadRecords = new AtomicReference<>(records);
       List<TrimmedShardedDataChangeRecord> filteredEvents =
-          InputRecordProcessor.getFilteredEvents();
+          dao.inTransaction(
+              () -> {
+                SortedChangeRecords attemptRecords = unreadRecords.getAndSet(null);
+                try (SortedChangeRecords fileRecords =
+                    attemptRecords != null ? attemptRecords : inputFileReader.getRecords()) {
+                  return applyInChunks(
+                      fileRecords,
+                      DML_CHUNK_SIZE,
+                      chunk -> {
+                        InputRecordProcessor.processRecords(
+                            chunk,
+                            taskContext.getSchema(),
+                            dao,
+                            shardId,
+                            taskContext.getSourceDbTimezoneOffset(),
+                            spannerToSourceTransformer);
+                        return InputRecordProcessor.getFilteredEvents();
+                      });
+                }
+              });
       if (writeFilteredEventsToGcs && !filteredEvents.isEmpty()) {
         writeFilteredEventsToGcs(taskContext, storage, filteredEvents);
       }
@@ -110,6 +133,32 @@ public class GCSToSourceStreamingHandler {
     return fileProcessedStartInterval;
   }
 
+  /**
+   * Applies the sorted records in chunks of at most {@code chunkSize}, so that each JDBC batch and
+   * the DML strings built for it stay bounded regardless of the file size. The caller commits the
+   * chunks of a file together. Returns the events filtered out by {@code applyChunk} across all of
+   * the chunks.
+   */
+  static List<TrimmedShardedDataChangeRecord> applyInChunks(
+      Iterator<TrimmedShardedDataChangeRecord> records,
+      int chunkSize,
+      Function<List<TrimmedShardedDataChangeRecord>, List<TrimmedShardedDataChangeRecord>>
+          applyChunk) {
+    List<TrimmedShardedDataChangeRecord> filteredEvents = new ArrayList<>();
+    List<TrimmedShardedDataChangeRecord> chunk = new ArrayList<>(chunkSize);
+    while (records.hasNext()) {
+      chunk.add(records.next());
+      if (chunk.size() == chunkSize || !records.hasNext()) {
+        List<TrimmedShardedDataChangeRecord> filtered = applyChunk.apply(chunk);
+        if (filtered != null) {
+          filteredEvents.addAll(filtered);
+        }
+        chunk = new ArrayList<>(chunkSize);
+      }
+    }
+    return filteredEvents;
+  }
+
   public static void writeFilteredEventsToGcs(
       ProcessingContext taskContext,
       Storage storage,
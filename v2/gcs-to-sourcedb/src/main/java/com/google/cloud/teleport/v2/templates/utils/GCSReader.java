@@ -20,18 +20,18 @@ import com.google.cloud.teleport.v2.templates.common.ProcessingContext;
 import com.google.cloud.teleport.v2.templates.common.TrimmedShardedDataChangeRecord;
 import com.google.cloud.teleport.v2.templates.dao.SpannerDao;
 import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
-import java.util.List;
 import org.apache.beam.sdk.io.FileSystems;
+import org.apache.beam.sdk.io.fs.EmptyMatchTreatment;
 import org.apache.beam.sdk.metrics.Metrics;
 import org.joda.time.Duration;
 import org.joda.time.Instant;
@@ -51,6 +51,20 @@ public class GCSReader {
 
   private static final Logger LOG = LoggerFactory.getLogger(GCSReader.class);
 
+  /** Gson instances are thread-safe, so a single parser is shared by all readers. */
+  static final Gson GSON =
+      new GsonBuilder().setFieldNamingPolicy(FieldNamingPolicy.IDENTITY).create();
+
+  static final Comparator<TrimmedShardedDataChangeRecord> RECORD_ORDER =
+      Comparator.comparing(TrimmedShardedDataChangeRecord::getCommitTimestamp)
+          .thenComparing(TrimmedShardedDataChangeRecord::getServerTransactionId)
+          .thenComparing(TrimmedShardedDataChangeRecord::getRecordSequence);
+
+  private static final int READ_BUFFER_SIZE = 1 << 16;
+
+  /** Maximum number of change records sorted in memory before they are spilled to local disk. */
+  static final int SORT_RUN_SIZE = 100_000;
+
   public GCSReader(ProcessingContext taskContext, SpannerDao spannerDao) {
 
     String fileStartTime = taskContext.getStartTimestamp();
@@ -76,48 +90,22 @@ public class GCSReader {
     this.gcsPath = taskContext.getGCSPath();
   }
 
-  public List<TrimmedShardedDataChangeRecord> getRecords() {
+  /**
+   * Returns the change records of the current file in commit order. The caller must close the
+   * returned records once they are consumed.
+   */
+  public SortedChangeRecords getRecords() {
     /*
     Call TextIO - read the file into PCollection
     Get a JSON transform of the PCollection
     Sort the Collection on commitTs,serverTrxId and record sequence
      */
-    List<TrimmedShardedDataChangeRecord> changeStreamList = new ArrayList<>();
     LOG.info("Reading from file, {}", fileName);
-    try (InputStream stream =
-        Channels.newInputStream(FileSystems.open(FileSystems.matchNewResource(fileName, false)))) {
-
-      BufferedReader reader =
-          new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
-      while (reader.ready()) {
-        String line = reader.readLine();
-        TrimmedShardedDataChangeRecord chrec =
-            new GsonBuilder()
-                .setFieldNamingPolicy(FieldNamingPolicy.IDENTITY)
-                .create()
-                .fromJson(line, TrimmedShardedDataChangeRecord.class);
-
-        changeStreamList.add(chrec);
-      }
-
-      Collections.sort(
-          changeStreamList,
-          Comparator.comparing(TrimmedShardedDataChangeRecord::getCommitTimestamp)
-              .thenComparing(TrimmedShardedDataChangeRecord::getServerTransactionId)
-              .thenComparing(TrimmedShardedDataChangeRecord::getRecordSequence));
-
-      Metrics.counter(shardId, "file_read_" + shardId).inc();
-
-    } catch (com.fasterxml.jackson.core.JsonProcessingException ex) {
-      throw new RuntimeException("Failed in processing the record ", ex);
-    } catch (IOException e) {
+    if (!fileExists()) {
       LOG.warn("File not found : " + fileName);
       return checkAndReturnIfFileExists();
-    } catch (Exception e) {
-      throw new RuntimeException("Failed in GcsReader ", e);
     }
-
-    return changeStreamList;
+    return readSortedRecords();
   }
 
   /**
@@ -137,7 +125,7 @@ public class GCSReader {
    * incrementally looking in data_seen for the next window unitl we find data and then return the
    * file contents
    */
-  private List<TrimmedShardedDataChangeRecord> checkAndReturnIfFileExists() {
+  private SortedChangeRecords checkAndReturnIfFileExists() {
     try {
       Timestamp firstPipelineProgress =
           shardFileCreationTracker.getShardFileCreationProgressTimestamp();
@@ -208,57 +196,66 @@ public class GCSReader {
           }
         }
       }
-      // File should exist now, so wait until found the file and return records
-      return waitTillFileCreatedAndReturn();
     } catch (Exception e) {
       throw new RuntimeException(
           " Cannot determine file creation progress for shard : " + shardId, e);
     }
+    // File should exist now, so wait until found the file and return records
+    return waitTillFileCreatedAndReturn();
   }
 
-  private List<TrimmedShardedDataChangeRecord> waitTillFileCreatedAndReturn() {
-    boolean found = false;
-    List<TrimmedShardedDataChangeRecord> changeStreamList = new ArrayList<>();
-    while (!found) {
-      try (InputStream stream =
-          Channels.newInputStream(
-              FileSystems.open(FileSystems.matchNewResource(fileName, false)))) {
-
-        BufferedReader reader =
-            new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
-        while (reader.ready()) {
-          String line = reader.readLine();
-          TrimmedShardedDataChangeRecord chrec =
-              new GsonBuilder()
-                  .setFieldNamingPolicy(FieldNamingPolicy.IDENTITY)
-                  .create()
-                  .fromJson(line, TrimmedShardedDataChangeRecord.class);
-
-          changeStreamList.add(chrec);
-        }
+  private SortedChangeRecords waitTillFileCreatedAndReturn() {
+    while (!fileExists()) {
+      LOG.warn("Waiting for file : " + fileName);
+      try {
+        Thread.sleep(2000);
+      } catch (InterruptedException ex) {
+        continue;
+      }
+    }
+    return readSortedRecords();
+  }
 
-        Collections.sort(
-            changeStreamList,
-            Comparator.comparing(TrimmedShardedDataChangeRecord::getCommitTimestamp)
-                .thenComparing(TrimmedShardedDataChangeRecord::getServerTransactionId)
-                .thenComparing(TrimmedShardedDataChangeRecord::getRecordSequence));
+  /**
+   * Returns whether the current file exists. A failed lookup is treated as the file not being
+   * written yet, so that it is looked up again.
+   */
+  private boolean fileExists() {
+    try {
+      return !FileSystems.match(fileName, EmptyMatchTreatment.ALLOW).metadata().isEmpty();
+    } catch (IOException e) {
+      LOG.warn("Failed to look up file : " + fileName, e);
+      return false;
+    }
+  }
 
-        Metrics.counter(shardId, "file_read_" + shardId).inc();
-        found = true;
-      } catch (com.fasterxml.jackson.core.JsonProcessingException ex) {
-        throw new RuntimeException("Failed in processing the record ", ex);
-      } catch (IOException e) {
-        LOG.warn("Waiting for file : " + fileName);
-        try {
-          Thread.sleep(2000);
-        } catch (InterruptedException ex) {
-          continue;
-        }
-      } catch (Exception e) {
-        throw new RuntimeException("Failed in GcsReader ", e);
-      }
+  /**
+   * Streams the current file line by line, parsing each change record with the shared {@link #GSON}
+   * instance, and returns the records ordered by commit timestamp, server transaction id and record
+   * sequence. The writer does not order records within a file, so large files are sorted in runs
+   * spilled to local disk rather than in memory.
+   *
+   * <p>The file is only read once it is known to exist, so a failure to read it or to spill its
+   * runs fails the shard instead of waiting for the file.
+   */
+  private SortedChangeRecords readSortedRecords() {
+    SortedChangeRecords records;
+    try (BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(
+                Channels.newInputStream(
+                    FileSystems.open(FileSystems.matchNewResource(fileName, false))),
+                StandardCharsets.UTF_8),
+            READ_BUFFER_SIZE)) {
+      records = SortedChangeRecords.sort(reader, GSON, RECORD_ORDER, SORT_RUN_SIZE);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read and sort the records of " + fileName, e);
+    } catch (JsonParseException e) {
+      throw new RuntimeException("Failed in processing the record ", e);
     }
-    return changeStreamList;
+
+    Metrics.counter(shardId, "file_read_" + shardId).inc();
+    return records;
   }
 
   public String getCurrentIntervalStart() {
@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.templates.utils;
+
+import com.google.cloud.teleport.v2.templates.common.TrimmedShardedDataChangeRecord;
+import com.google.gson.Gson;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The change records of a shard file in sorted order, read with bounded memory.
+ *
+ * <p>The lines of the file are parsed and sorted in runs of at most a fixed number of records. When
+ * the whole file fits in one run it is kept in memory. Otherwise every run is spilled to a local
+ * temporary file, and the runs are merged as the records are read, so that at most one run is held
+ * while sorting and one record per run while merging.
+ */
+public class SortedChangeRecords implements Iterator<TrimmedShardedDataChangeRecord>, Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SortedChangeRecords.class);
+
+  private final List<Run> runs;
+  private final PriorityQueue<Run> heads;
+  private final long size;
+
+  private SortedChangeRecords(
+      Comparator<TrimmedShardedDataChangeRecord> order, List<Run> runs, long size)
+      throws IOException {
+    this.runs = runs;
+    this.size = size;
+    this.heads =
+        new PriorityQueue<>(Math.max(1, runs.size()), (a, b) -> order.compare(a.head, b.head));
+    for (Run run : runs) {
+      if (run.advance()) {
+        heads.add(run);
+      }
+    }
+  }
+
+  /**
+   * Reads the change records of {@code lines}, one JSON record per line, and returns them sorted by
+   * {@code order}, holding at most {@code runSize} records in memory at a time.
+   */
+  public static SortedChangeRecords sort(
+      BufferedReader lines,
+      Gson gson,
+      Comparator<TrimmedShardedDataChangeRecord> order,
+      int runSize)
+      throws IOException {
+    List<Run> runs = new ArrayList<>();
+    long size = 0;
+    try {
+      List<TrimmedShardedDataChangeRecord> buffer = new ArrayList<>();
+      String line;
+      while ((line = lines.readLine()) != null) {
+        if (line.isEmpty()) {
+          continue;
+        }
+        buffer.add(gson.fromJson(line, TrimmedShardedDataChangeRecord.class));
+        size++;
+        if (buffer.size() >= runSize) {
+          runs.add(FileRun.spill(buffer, gson, order));
+          buffer = new ArrayList<>();
+        }
+      }
+      if (!buffer.isEmpty()) {
+        buffer.sort(order);
+        // A file that fits in one run is never spilled.
+        runs.add(runs.isEmpty() ? new MemoryRun(buffer) : FileRun.spill(buffer, gson, order));
+      }
+      if (runs.size() > 1) {
+        LOG.info("Merging {} change records from {} sorted runs", size, runs.size());
+      }
+      return new SortedChangeRecords(order, runs, size);
+    } catch (IOException | RuntimeException e) {
+      for (Run run : runs) {
+        try {
+          run.close();
+        } catch (IOException closeException) {
+          e.addSuppressed(closeException);
+        }
+      }
+      throw e;
+    }
+  }
+
+  /** Returns the number of records. */
+  public long size() {
+    return size;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return !heads.isEmpty();
+  }
+
+  @Override
+  public TrimmedShardedDataChangeRecord next() {
+    Run run = heads.poll();
+    if (run == null) {
+      throw new NoSuchElementException();
+    }
+    TrimmedShardedDataChangeRecord record = run.head;
+    try {
+      if (run.advance()) {
+        heads.add(run);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return record;
+  }
+
+  /** Deletes the spilled runs. */
+  @Override
+  public void close() throws IOException {
+    heads.clear();
+    IOException failure = null;
+    for (Run run : runs) {
+      try {
+        run.close();
+      } catch (IOException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /** A sorted run of records, read one record at a time. */
+  private abstract static class Run implements Closeable {
+    TrimmedShardedDataChangeRecord head;
+
+    /** Moves {@link #head} to the next record of the run, returning false at its end. */
+    abstract boolean advance() throws IOException;
+  }
+
+  private static class MemoryRun extends Run {
+    private final Iterator<TrimmedShardedDataChangeRecord> records;
+
+    MemoryRun(List<TrimmedShardedDataChangeRecord> records) {
+      this.records = records.iterator();
+    }
+
+    @Override
+    boolean advance() {
+      head = records.hasNext() ? records.next() : null;
+      return head != null;
+    }
+
+    @Override
+    public void close() {}
+  }
+
+  private static class FileRun extends Run {
+    private final Path file;
+    private final Gson gson;
+    private BufferedReader reader;
+
+    private FileRun(Path file, Gson gson) {
+      this.file = file;
+      this.gson = gson;
+    }
+
+    static FileRun spill(
+        List<TrimmedShardedDataChangeRecord> records,
+        Gson gson,
+        Comparator<TrimmedShardedDataChangeRecord> order)
+        throws IOException {
+      records.sort(order);
+      Path file = Files.createTempFile("change-records-", ".json");
+      try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+        for (TrimmedShardedDataChangeRecord record : records) {
+          writer.write(gson.toJson(record));
+          writer.newLine();
+        }
+      } catch (IOException | RuntimeException e) {
+        Files.deleteIfExists(file);
+        throw e;
+      }
+      return new FileRun(file, gson);
+    }
+
+    @Override
+    boolean advance() throws IOException {
+      if (reader == null) {
+        reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+      }
+      String line = reader.readLine();
+      head = line == null ? null : gson.fromJson(line, TrimmedShardedDataChangeRecord.class);
+      return head != null;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        if (reader != null) {
+          reader.close();
+        }
+      } finally {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+}
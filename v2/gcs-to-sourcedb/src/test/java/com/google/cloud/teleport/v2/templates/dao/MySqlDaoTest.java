@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.templates.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class MySqlDaoTest {
+
+  /** A dao that hands out the given connections instead of pooled ones. */
+  private static MySqlDao daoWithConnections(Connection... connections) {
+    Deque<Connection> available = new ArrayDeque<>(Arrays.asList(connections));
+    return new MySqlDao("jdbc:mysql://localhost:3306/db", "user", "password", "shard-test") {
+      @Override
+      Connection getConnection() {
+        return available.remove();
+      }
+    };
+  }
+
+  private static Connection connection(Statement statement) throws SQLException {
+    Connection connection = mock(Connection.class);
+    when(connection.createStatement()).thenReturn(statement);
+    return connection;
+  }
+
+  @Test
+  public void testInTransactionCommitsAllBatchesTogether() throws Exception {
+    Statement statement = mock(Statement.class);
+    Connection connection = connection(statement);
+    MySqlDao dao = daoWithConnections(connection);
+
+    String result =
+        dao.inTransaction(
+            () -> {
+              dao.batchWrite(List.of("DELETE FROM t WHERE id = 1"));
+              dao.batchWrite(List.of("DELETE FROM t WHERE id = 2"));
+              return "done";
+            });
+
+    assertEquals("done", result);
+    verify(connection).setAutoCommit(false);
+    verify(statement, times(2)).executeBatch();
+    verify(connection).commit();
+    verify(connection, never()).rollback();
+    verify(connection).close();
+  }
+
+  @Test
+  public void testInTransactionRollsBackAndFailsOnError() throws Exception {
+    Statement statement = mock(Statement.class);
+    when(statement.executeBatch())
+        .thenReturn(new int[] {1})
+        .thenThrow(new SQLException("Duplicate entry '1' for key 'PRIMARY'"));
+    Connection connection = connection(statement);
+    MySqlDao dao = daoWithConnections(connection);
+
+    assertThrows(
+        RuntimeException.class,
+        () ->
+            dao.inTransaction(
+                () -> {
+                  dao.batchWrite(List.of("INSERT INTO t(id) VALUES (1)"));
+                  try {
+                    dao.batchWrite(List.of("INSERT INTO t(id) VALUES (1)"));
+                  } catch (SQLException e) {
+                    // The record processor wraps the failures of a chunk.
+                    throw new RuntimeException("Failed to process records: ", e);
+                  }
+                  return null;
+                }));
+
+    verify(connection, never()).commit();
+    verify(connection).rollback();
+    verify(connection).close();
+  }
+
+  @Test
+  public void testInTransactionRetriesWholeTransactionAfterLostConnection() throws Exception {
+    Statement lostStatement = mock(Statement.class);
+    when(lostStatement.executeBatch())
+        .thenReturn(new int[] {1})
+        .thenThrow(new SQLException("No operations allowed after statement closed."));
+    Connection lostConnection = connection(lostStatement);
+    Statement statement = mock(Statement.class);
+    Connection connection = connection(statement);
+    MySqlDao dao = daoWithConnections(lostConnection, connection);
+    int[] attempts = {0};
+
+    dao.inTransaction(
+        () -> {
+          attempts[0]++;
+          dao.batchWrite(List.of("DELETE FROM t WHERE id = 1"));
+          dao.batchWrite(List.of("DELETE FROM t WHERE id = 2"));
+          return null;
+        });
+
+    assertEquals(2, attempts[0]);
+    verify(lostConnection, never()).commit();
+    verify(lostConnection).rollback();
+    verify(statement, times(2)).executeBatch();
+    verify(connection).commit();
+  }
+}
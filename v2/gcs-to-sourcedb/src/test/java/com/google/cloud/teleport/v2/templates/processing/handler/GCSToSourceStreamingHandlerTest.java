@@ -16,6 +16,7 @@
 package com.google.cloud.teleport.v2.templates.processing.handler;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
@@ -31,6 +32,8 @@ import com.google.cloud.teleport.v2.templates.common.ProcessingContext;
 import com.google.cloud.teleport.v2.templates.common.TrimmedShardedDataChangeRecord;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import org.apache.beam.sdk.io.gcp.spanner.changestreams.model.Mod;
 import org.apache.beam.sdk.io.gcp.spanner.changestreams.model.ModType;
@@ -115,4 +118,53 @@ public class GCSToSourceStreamingHandlerTest {
 
     GCSToSourceStreamingHandler.writeFilteredEventsToGcs(taskContext, mockStorage, filteredEvents);
   }
+
+  @Test
+  public void testApplyInChunks() {
+    List<TrimmedShardedDataChangeRecord> records = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      records.add(
+          new TrimmedShardedDataChangeRecord(
+              Timestamp.ofTimeSecondsAndNanos(i, 0),
+              "serverTxnId-" + i,
+              "0",
+              "tableName",
+              new ArrayList<>(),
+              ModType.INSERT,
+              1L,
+              ""));
+    }
+    List<List<TrimmedShardedDataChangeRecord>> chunks = new ArrayList<>();
+
+    List<TrimmedShardedDataChangeRecord> filteredEvents =
+        GCSToSourceStreamingHandler.applyInChunks(
+            records.iterator(),
+            2,
+            chunk -> {
+              chunks.add(chunk);
+              // Filters out the first record of every chunk.
+              return chunk.subList(0, 1);
+            });
+
+    assertEquals(
+        Arrays.asList(records.subList(0, 2), records.subList(2, 4), records.subList(4, 5)), chunks);
+    assertEquals(Arrays.asList(records.get(0), records.get(2), records.get(4)), filteredEvents);
+  }
+
+  @Test
+  public void testApplyInChunksWithoutRecords() {
+    List<List<TrimmedShardedDataChangeRecord>> chunks = new ArrayList<>();
+
+    List<TrimmedShardedDataChangeRecord> filteredEvents =
+        GCSToSourceStreamingHandler.applyInChunks(
+            Collections.emptyIterator(),
+            2,
+            chunk -> {
+              chunks.add(chunk);
+              return null;
+            });
+
+    assertTrue(chunks.isEmpty());
+    assertTrue(filteredEvents.isEmpty());
+  }
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.templates.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.teleport.v2.spanner.migrations.shard.Shard;
+import com.google.cloud.teleport.v2.templates.common.ProcessingContext;
+import com.google.cloud.teleport.v2.templates.common.TrimmedShardedDataChangeRecord;
+import com.google.cloud.teleport.v2.templates.dao.SpannerDao;
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.beam.sdk.io.gcp.spanner.changestreams.model.Mod;
+import org.apache.beam.sdk.io.gcp.spanner.changestreams.model.ModType;
+import org.joda.time.Duration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class GCSReaderTest {
+
+  private static final String FILE_NAME =
+      "2024-01-01T00:00:00.000Z-2024-01-01T00:00:10.000Z-pane-0-last-0-of-1.txt";
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private ProcessingContext taskContext;
+  private SpannerDao spannerDao;
+  private File shardDirectory;
+
+  @Before
+  public void setUp() throws Exception {
+    Shard shard = mock(Shard.class);
+    when(shard.getLogicalShardId()).thenReturn("shard1");
+    taskContext = mock(ProcessingContext.class);
+    when(taskContext.getShard()).thenReturn(shard);
+    when(taskContext.getStartTimestamp()).thenReturn("2024-01-01T00:00:00Z");
+    when(taskContext.getWindowDuration()).thenReturn(Duration.standardSeconds(10));
+    when(taskContext.getGCSPath()).thenReturn(tempFolder.getRoot().getPath());
+    when(taskContext.getRunId()).thenReturn("run1");
+    spannerDao = mock(SpannerDao.class);
+    shardDirectory = tempFolder.newFolder("shard1");
+  }
+
+  private static TrimmedShardedDataChangeRecord record(int seconds) {
+    return new TrimmedShardedDataChangeRecord(
+        Timestamp.ofTimeSecondsAndNanos(seconds, 0),
+        "txn-" + seconds,
+        "0",
+        "Singers",
+        Collections.singletonList(new Mod("{\"SingerId\":\"" + seconds + "\"}", "{}", "{}")),
+        ModType.INSERT,
+        1,
+        "");
+  }
+
+  @Test
+  public void testGetRecordsReadsExistingFileInOrder() throws Exception {
+    List<String> lines = new ArrayList<>();
+    for (int seconds : Arrays.asList(3, 1, 2)) {
+      lines.add(GCSReader.GSON.toJson(record(seconds)));
+    }
+    Files.write(new File(shardDirectory, FILE_NAME).toPath(), lines, StandardCharsets.UTF_8);
+
+    List<String> transactionIds = new ArrayList<>();
+    try (SortedChangeRecords records = new GCSReader(taskContext, spannerDao).getRecords()) {
+      records.forEachRemaining(r -> transactionIds.add(r.getServerTransactionId()));
+    }
+
+    assertEquals(Arrays.asList("txn-1", "txn-2", "txn-3"), transactionIds);
+    verifyNoInteractions(spannerDao);
+  }
+
+  @Test
+  public void testGetRecordsFailsWhenExistingFileCannotBeRead() throws Exception {
+    // A directory in place of the file is found but cannot be opened for reading.
+    new File(shardDirectory, FILE_NAME).mkdir();
+
+    GCSReader reader = new GCSReader(taskContext, spannerDao);
+
+    assertThrows(UncheckedIOException.class, reader::getRecords);
+    verifyNoInteractions(spannerDao);
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.templates.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.teleport.v2.templates.common.TrimmedShardedDataChangeRecord;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.apache.beam.sdk.io.gcp.spanner.changestreams.model.Mod;
+import org.apache.beam.sdk.io.gcp.spanner.changestreams.model.ModType;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class SortedChangeRecordsTest {
+
+  private static TrimmedShardedDataChangeRecord record(int seconds, String sequence) {
+    return new TrimmedShardedDataChangeRecord(
+        Timestamp.ofTimeSecondsAndNanos(seconds, 0),
+        "txn-" + seconds,
+        sequence,
+        "Singers",
+        Collections.singletonList(
+            new Mod("{\"SingerId\":\"" + seconds + "\"}", "{}", "{\"FirstName\":\"kk\"}")),
+        ModType.INSERT,
+        1,
+        "");
+  }
+
+  /** Returns the records in a random order, one JSON record per line with blank lines. */
+  private static BufferedReader shuffledLines(List<TrimmedShardedDataChangeRecord> records) {
+    List<String> lines =
+        records.stream()
+            .map(GCSReader.GSON::toJson)
+            .collect(Collectors.toCollection(ArrayList::new));
+    Collections.shuffle(lines, new Random(42));
+    lines.add(3, "");
+    return new BufferedReader(new StringReader(String.join("\n", lines) + "\n"));
+  }
+
+  private static List<String> keys(List<TrimmedShardedDataChangeRecord> records) {
+    return records.stream()
+        .map(r -> r.getCommitTimestamp() + "/" + r.getRecordSequence())
+        .collect(Collectors.toList());
+  }
+
+  private static List<TrimmedShardedDataChangeRecord> records() {
+    List<TrimmedShardedDataChangeRecord> records = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      records.add(record(i, "1"));
+      records.add(record(i, "0"));
+    }
+    return records;
+  }
+
+  private static List<TrimmedShardedDataChangeRecord> readAll(SortedChangeRecords sorted) {
+    List<TrimmedShardedDataChangeRecord> read = new ArrayList<>();
+    sorted.forEachRemaining(read::add);
+    return read;
+  }
+
+  @Test
+  public void sortsInMemoryWhenTheFileFitsInOneRun() throws Exception {
+    List<TrimmedShardedDataChangeRecord> expected = records();
+    expected.sort(GCSReader.RECORD_ORDER);
+
+    try (SortedChangeRecords sorted =
+        SortedChangeRecords.sort(
+            shuffledLines(records()), GCSReader.GSON, GCSReader.RECORD_ORDER, 100)) {
+      assertEquals(20, sorted.size());
+      assertEquals(keys(expected), keys(readAll(sorted)));
+    }
+  }
+
+  @Test
+  public void mergesSpilledRuns() throws Exception {
+    List<TrimmedShardedDataChangeRecord> expected = records();
+    expected.sort(GCSReader.RECORD_ORDER);
+
+    try (SortedChangeRecords sorted =
+        SortedChangeRecords.sort(
+            shuffledLines(records()), GCSReader.GSON, GCSReader.RECORD_ORDER, 3)) {
+      List<TrimmedShardedDataChangeRecord> read = readAll(sorted);
+      assertEquals(20, sorted.size());
+      assertEquals(keys(expected), keys(read));
+      // Spilled records are read back as they were written.
+      assertEquals("{\"SingerId\":\"0\"}", read.get(0).getMods().get(0).getKeysJson());
+      assertEquals("txn-0", read.get(0).getServerTransactionId());
+      assertEquals(ModType.INSERT, read.get(0).getModType());
+    }
+  }
+
+  @Test
+  public void emptyFile() throws Exception {
+    try (SortedChangeRecords sorted =
+        SortedChangeRecords.sort(
+            new BufferedReader(new StringReader("")), GCSReader.GSON, GCSReader.RECORD_ORDER, 3)) {
+      assertEquals(0, sorted.size());
+      assertFalse(sorted.hasNext());
+    }
+  }
+}
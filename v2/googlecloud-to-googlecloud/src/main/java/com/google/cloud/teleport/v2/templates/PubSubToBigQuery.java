@@ -17,7 +17,10 @@ package com.google.cloud.teleport.v2.templates;
 
 import static com.google.cloud.teleport.v2.templates.TextToBigQueryStreaming.wrapBigQueryInsertError;
 
+import com.google.api.services.bigquery.model.Table;
+import com.google.api.services.bigquery.model.TableReference;
 import com.google.api.services.bigquery.model.TableRow;
+import com.google.api.services.bigquery.model.TableSchema;
 import com.google.cloud.teleport.metadata.MultiTemplate;
 import com.google.cloud.teleport.metadata.Template;
 import com.google.cloud.teleport.metadata.TemplateCategory;
@@ -36,17 +39,23 @@ import com.google.cloud.teleport.v2.utils.BigQueryIOUtils;
 import com.google.cloud.teleport.v2.utils.ResourceUtils;
 import com.google.cloud.teleport.v2.values.FailsafeElement;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import java.nio.charset.StandardCharsets;
+import javax.annotation.Nullable;
 import org.apache.beam.runners.dataflow.options.DataflowPipelineWorkerPoolOptions;
 import org.apache.beam.sdk.Pipeline;
 import org.apache.beam.sdk.PipelineResult;
 import org.apache.beam.sdk.coders.CoderRegistry;
 import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.io.gcp.bigquery.BigQueryHelpers;
 import org.apache.beam.sdk.io.gcp.bigquery.BigQueryIO;
 import org.apache.beam.sdk.io.gcp.bigquery.BigQueryIO.Write.CreateDisposition;
 import org.apache.beam.sdk.io.gcp.bigquery.BigQueryIO.Write.WriteDisposition;
 import org.apache.beam.sdk.io.gcp.bigquery.BigQueryInsertError;
+import org.apache.beam.sdk.io.gcp.bigquery.BigQueryOptions;
+import org.apache.beam.sdk.io.gcp.bigquery.BigQueryServices.DatasetService;
+import org.apache.beam.sdk.io.gcp.bigquery.BigQueryServicesImpl;
 import org.apache.beam.sdk.io.gcp.bigquery.InsertRetryPolicy;
 import org.apache.beam.sdk.io.gcp.bigquery.WriteResult;
 import org.apache.beam.sdk.io.gcp.pubsub.PubsubIO;
@@ -245,6 +254,20 @@ public class PubSubToBigQuery {
     Boolean getUseStorageWriteApiAtLeastOnce();
 
     void setUseStorageWriteApiAtLeastOnce(Boolean value);
+
+    @TemplateParameter.Boolean(
+        order = 6,
+        optional = true,
+        description = "Convert JSON with the output table schema",
+        helpText =
+            "If `true`, the output table schema is read when the pipeline is launched, and the JSON "
+                + "messages are converted to table rows with a parser compiled from it. Messages "
+                + "with values that don't match their column type are sent to the dead-letter table "
+                + "instead of failing the insert. The default value is `false`.")
+    @Default.Boolean(false)
+    Boolean getUseTableSchemaJsonParser();
+
+    void setUseTableSchemaJsonParser(Boolean value);
   }
 
   /**
@@ -324,7 +347,11 @@ public class PubSubToBigQuery {
             /*
              * Step #2: Transform the PubsubMessages into TableRows
              */
-            .apply("ConvertMessageToTableRow", new PubsubMessageToTableRow(options));
+            .apply(
+            "ConvertMessageToTableRow",
+            new PubsubMessageToTableRow(
+                options,
+                options.getUseTableSchemaJsonParser() ? getOutputTableSchemaJson(options) : null));
 
     /*
      * Step #3: Write the successful records out to BigQuery
@@ -387,6 +414,27 @@ public class PubSubToBigQuery {
     return pipeline.run();
   }
 
+  /** Reads the schema of the output table, as {@link TableSchema} JSON. */
+  private static String getOutputTableSchemaJson(Options options) {
+    TableReference tableReference = BigQueryHelpers.parseTableSpec(options.getOutputTableSpec());
+    try (DatasetService datasetService =
+        new BigQueryServicesImpl().getDatasetService(options.as(BigQueryOptions.class))) {
+      Table table = datasetService.getTable(tableReference);
+      if (table == null) {
+        throw new IllegalArgumentException(
+            "Output table " + options.getOutputTableSpec() + " does not exist");
+      }
+      return BigQueryHelpers.toJsonString(table.getSchema());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (Exception e) {
+      Throwables.throwIfUnchecked(e);
+      throw new RuntimeException(
+          "Failed to read the schema of output table " + options.getOutputTableSpec(), e);
+    }
+  }
+
   /**
    * The {@link PubsubMessageToTableRow} class is a {@link PTransform} which transforms incoming
    * {@link PubsubMessage} objects into {@link TableRow} objects for insertion into BigQuery while
@@ -413,9 +461,19 @@ public class PubSubToBigQuery {
       extends PTransform<PCollection<PubsubMessage>, PCollectionTuple> {
 
     private final Options options;
+    private final @Nullable String tableSchemaJson;
 
     PubsubMessageToTableRow(Options options) {
+      this(options, null);
+    }
+
+    /**
+     * @param tableSchemaJson schema of the output table as {@link TableSchema} JSON, used to
+     *     convert the messages. If null, the messages are converted without a schema.
+     */
+    PubsubMessageToTableRow(Options options, @Nullable String tableSchemaJson) {
       this.options = options;
+      this.tableSchemaJson = tableSchemaJson;
     }
 
     @Override
@@ -477,6 +535,7 @@ public class PubSubToBigQuery {
                   FailsafeJsonToTableRow.<PubsubMessage>newBuilder()
                       .setSuccessTag(TRANSFORM_OUT)
                       .setFailureTag(TRANSFORM_DEADLETTER_OUT)
+                      .setTableSchemaJson(tableSchemaJson)
                       .build());
 
       // Re-wrap the PCollections so we can return a single PCollectionTuple
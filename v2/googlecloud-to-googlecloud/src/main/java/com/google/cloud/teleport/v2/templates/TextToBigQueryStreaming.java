@@ -385,6 +385,8 @@ public class TextToBigQueryStreaming {
                       .build());
     }
 
+    String tableSchemaJson = GCSUtils.getGcsFileAsString(options.getJSONPath());
+
     PCollectionTuple convertedTableRows =
         transformedOutput
 
@@ -395,6 +397,8 @@ public class TextToBigQueryStreaming {
                 FailsafeJsonToTableRow.<String>newBuilder()
                     .setSuccessTag(TRANSFORM_OUT)
                     .setFailureTag(TRANSFORM_DEADLETTER_OUT)
+                    .setTableSchemaJson(
+                        options.getUseTableSchemaJsonParser() ? tableSchemaJson : null)
                     .build());
 
     WriteResult writeResult =
@@ -405,7 +409,7 @@ public class TextToBigQueryStreaming {
             .apply(
                 "InsertIntoBigQuery",
                 BigQueryIO.writeTableRows()
-                    .withJsonSchema(GCSUtils.getGcsFileAsString(options.getJSONPath()))
+                    .withJsonSchema(tableSchemaJson)
                     .to(options.getOutputTable())
                     .withExtendedErrorInfo()
                     .withoutValidation()
@@ -504,5 +508,19 @@ public class TextToBigQueryStreaming {
     Boolean getUseStorageWriteApiAtLeastOnce();
 
     void setUseStorageWriteApiAtLeastOnce(Boolean value);
+
+    @TemplateParameter.Boolean(
+        order = 3,
+        optional = true,
+        description = "Convert JSON with the BigQuery schema",
+        helpText =
+            "If `true`, the records are converted to table rows with a parser compiled from the "
+                + "schema in `JSONPath`. Records with values that don't match their column type are "
+                + "sent to the dead-letter table instead of failing the insert. The default value is "
+                + "`false`.")
+    @Default.Boolean(false)
+    Boolean getUseTableSchemaJsonParser();
+
+    void setUseTableSchemaJsonParser(Boolean value);
   }
 }
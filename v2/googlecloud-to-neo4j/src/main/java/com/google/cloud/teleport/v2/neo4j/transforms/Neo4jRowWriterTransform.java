@@ -24,13 +24,22 @@ import com.google.cloud.teleport.v2.neo4j.telemetry.ReportedSourceType;
 import com.google.cloud.teleport.v2.neo4j.utils.DataCastingUtils;
 import com.google.cloud.teleport.v2.neo4j.utils.SerializableSupplier;
 import com.google.common.annotations.VisibleForTesting;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import org.apache.beam.sdk.coders.BigEndianIntegerCoder;
+import org.apache.beam.sdk.coders.KvCoder;
+import org.apache.beam.sdk.transforms.Flatten;
 import org.apache.beam.sdk.transforms.GroupIntoBatches;
 import org.apache.beam.sdk.transforms.PTransform;
 import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.transforms.Partition;
 import org.apache.beam.sdk.transforms.SerializableFunction;
+import org.apache.beam.sdk.transforms.Wait;
+import org.apache.beam.sdk.transforms.WithKeys;
 import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.PCollectionList;
 import org.apache.beam.sdk.values.Row;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.neo4j.driver.TransactionConfig;
@@ -39,6 +48,7 @@ import org.neo4j.importer.v1.ImportSpecification;
 import org.neo4j.importer.v1.sources.Source;
 import org.neo4j.importer.v1.targets.CustomQueryTarget;
 import org.neo4j.importer.v1.targets.EntityTarget;
+import org.neo4j.importer.v1.targets.RelationshipTarget;
 import org.neo4j.importer.v1.targets.Target;
 import org.neo4j.importer.v1.targets.TargetType;
 import org.slf4j.Logger;
@@ -65,6 +75,8 @@ public class Neo4jRowWriterTransform extends PTransform<PCollection<Row>, PColle
   private static final String QUERY_PARALLELISM_SETTING = "query_target_parallelism";
   private static final String LEGACY_QUERY_PARALLELISM_SETTING = "custom_query_parallelism";
   private static final Integer DEFAULT_QUERY_PARALLELISM_FACTOR = 1;
+  private static final String RELATIONSHIP_PARTITION_BY_NODES_SETTING =
+      "relationship_target_partition_by_nodes";
 
   private static final Logger LOG = LoggerFactory.getLogger(Neo4jRowWriterTransform.class);
   private final ImportSpecification importSpecification;
@@ -118,8 +130,19 @@ public class Neo4jRowWriterTransform extends PTransform<PCollection<Row>, PColle
             getRowCastingFunction(),
             connectionSupplier);
 
+    int parallelism = parallelismFactor(targetType, config);
+    if (targetType == TargetType.RELATIONSHIP && parallelism > 1 && partitionByNodes(config)) {
+      RelationshipPartitioning partitioning =
+          RelationshipPartitioning.of(
+              importSpecification, (RelationshipTarget) target, parallelism);
+      if (partitioning != null) {
+        return expandPartitioned(input, partitioning, batchSize(targetType, config), neo4jUnwindFn);
+      }
+      parallelism = DEFAULT_RELATIONSHIP_PARALLELISM_FACTOR;
+    }
+
     return input
-        .apply("Create KV pairs", CreateKvTransform.of(parallelismFactor(targetType, config)))
+        .apply("Create KV pairs", CreateKvTransform.of(parallelism))
         .apply("Group into batches", GroupIntoBatches.ofSize(batchSize(targetType, config)))
         .apply(
             targetSequence.getSequenceNumber(target) + ": Neo4j write " + target.getName(),
@@ -127,6 +150,50 @@ public class Neo4jRowWriterTransform extends PTransform<PCollection<Row>, PColle
         .setRowSchema(input.getSchema());
   }
 
+  /**
+   * Writes relationships in rounds of concurrent batches that lock disjoint nodes, see {@link
+   * RelationshipPartitioning}. Each round waits for the previous one to be written.
+   */
+  private PCollection<Row> expandPartitioned(
+      PCollection<Row> input,
+      RelationshipPartitioning partitioning,
+      int batchSize,
+      Neo4jBlockingUnwindFn neo4jUnwindFn) {
+    int rounds = partitioning.rounds();
+    LOG.info(
+        "Writing relationship target {} in {} rounds of non-overlapping partitions",
+        target.getName(),
+        rounds);
+    PCollectionList<Row> roundInputs =
+        input.apply("Partition by nodes", Partition.of(rounds, partitioning));
+
+    String writeName =
+        targetSequence.getSequenceNumber(target) + ": Neo4j write " + target.getName();
+    List<PCollection<Row>> roundOutputs = new ArrayList<>(rounds);
+    PCollection<Row> previousRound = null;
+    for (int round = 0; round < rounds; round++) {
+      PCollection<Row> roundInput = roundInputs.get(round);
+      if (previousRound != null) {
+        roundInput =
+            roundInput
+                .apply("Wait on round " + (round - 1), Wait.on(previousRound))
+                .setCoder(input.getCoder());
+      }
+      PCollection<Row> roundOutput =
+          roundInput
+              .apply("Key round " + round, WithKeys.of(partitioning::slot))
+              .setCoder(KvCoder.of(BigEndianIntegerCoder.of(), input.getCoder()))
+              .apply("Group round " + round + " into batches", GroupIntoBatches.ofSize(batchSize))
+              .apply(writeName + " (round " + round + ")", ParDo.of(neo4jUnwindFn))
+              .setRowSchema(input.getSchema());
+      roundOutputs.add(roundOutput);
+      previousRound = roundOutput;
+    }
+    return PCollectionList.of(roundOutputs)
+        .apply("Flatten rounds", Flatten.pCollections())
+        .setRowSchema(input.getSchema());
+  }
+
   private ReportedSourceType determineReportedSourceType() {
     Source source = importSpecification.findSourceByName(target.getSource());
     return ReportedSourceType.reportedSourceTypeOf(source);
@@ -204,6 +271,10 @@ public class Neo4jRowWriterTransform extends PTransform<PCollection<Row>, PColle
     }
   }
 
+  private static boolean partitionByNodes(Configuration config) {
+    return config.get(Boolean.class, RELATIONSHIP_PARTITION_BY_NODES_SETTING).orElse(false);
+  }
+
   private static int parallelismFactor(TargetType targetType, Configuration config) {
     switch (targetType) {
       case NODE:
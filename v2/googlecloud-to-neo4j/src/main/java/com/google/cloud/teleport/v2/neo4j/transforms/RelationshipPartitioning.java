@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.neo4j.transforms;
+
+import com.google.common.hash.Hashing;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import org.apache.beam.sdk.transforms.Partition.PartitionFn;
+import org.apache.beam.sdk.values.Row;
+import org.neo4j.importer.v1.ImportSpecification;
+import org.neo4j.importer.v1.targets.NodeTarget;
+import org.neo4j.importer.v1.targets.PropertyMapping;
+import org.neo4j.importer.v1.targets.RelationshipTarget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Schedules relationship rows so that concurrent write transactions never lock the same node.
+ *
+ * <p>The start and end node keys of every row are hashed into blocks and every row is assigned to a
+ * round and to a slot within that round. Rounds are written one after the other, and the slots of a
+ * round are written concurrently. Two slots of the same round never share a node block, so their
+ * transactions cannot deadlock on each other.
+ *
+ * <p>When the start and end nodes are distinct node sets, the rows form a {@code parallelism x
+ * parallelism} grid of (start block, end block) cells and round {@code r} writes the cells {@code
+ * (s, s + r)}. When both ends can be the same node (for example {@code (:Person)-[:KNOWS]->
+ * (:Person)}), both ends are hashed into {@code 2 x parallelism} shared blocks and the rounds
+ * follow a round-robin tournament over the blocks, plus a last round for rows whose ends fall in
+ * the same block.
+ */
+class RelationshipPartitioning implements PartitionFn<Row> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RelationshipPartitioning.class);
+
+  private final List<String> startKeyFields;
+  private final List<String> endKeyFields;
+  private final int parallelism;
+  private final boolean sharedNodes;
+
+  private RelationshipPartitioning(
+      List<String> startKeyFields,
+      List<String> endKeyFields,
+      int parallelism,
+      boolean sharedNodes) {
+    this.startKeyFields = startKeyFields;
+    this.endKeyFields = endKeyFields;
+    this.parallelism = parallelism;
+    this.sharedNodes = sharedNodes;
+  }
+
+  /**
+   * Creates the partitioning of a relationship target.
+   *
+   * @return the partitioning, or null if a start or end node has no key to partition on.
+   */
+  static RelationshipPartitioning of(
+      ImportSpecification importSpecification, RelationshipTarget target, int parallelism) {
+    NodeTarget startNode = resolveNode(importSpecification, target.getStartNodeReference());
+    NodeTarget endNode = resolveNode(importSpecification, target.getEndNodeReference());
+    List<String> startKeyFields = keyFields(startNode);
+    List<String> endKeyFields = keyFields(endNode);
+    if (startKeyFields.isEmpty() || endKeyFields.isEmpty()) {
+      LOG.warn(
+          "Relationship target {} cannot be partitioned by nodes as its start or end node has no"
+              + " key",
+          target.getName());
+      return null;
+    }
+    boolean sharedNodes =
+        startNode.getName().equals(endNode.getName())
+            || !Collections.disjoint(startNode.getLabels(), endNode.getLabels());
+    return new RelationshipPartitioning(startKeyFields, endKeyFields, parallelism, sharedNodes);
+  }
+
+  /** Number of rounds, which are written one after the other. */
+  int rounds() {
+    return sharedNodes ? blocks() : parallelism;
+  }
+
+  /** Slot of a row within its round. Slots of the same round touch disjoint nodes. */
+  int slot(Row row) {
+    int start = block(row, startKeyFields);
+    int end = block(row, endKeyFields);
+    if (!sharedNodes) {
+      return start;
+    }
+    if (start == end) {
+      return start % parallelism;
+    }
+    int n = blocks() - 1;
+    if (start == n || end == n) {
+      return 0;
+    }
+    int k = Math.floorMod(start - tournamentRound(start, end), n);
+    return Math.min(k, n - k);
+  }
+
+  @Override
+  public int partitionFor(Row row, int numPartitions) {
+    int start = block(row, startKeyFields);
+    int end = block(row, endKeyFields);
+    if (!sharedNodes) {
+      return Math.floorMod(end - start, parallelism);
+    }
+    if (start == end) {
+      return blocks() - 1;
+    }
+    return tournamentRound(start, end);
+  }
+
+  /**
+   * Round of the pair of distinct blocks {a, b} in the circle method over {@code blocks()} blocks:
+   * block {@code n = blocks() - 1} meets block {@code r} in round {@code r}, and the other blocks
+   * meet when {@code a + b = 2r (mod n)}.
+   */
+  private int tournamentRound(int a, int b) {
+    int n = blocks() - 1;
+    if (a == n) {
+      return b;
+    }
+    if (b == n) {
+      return a;
+    }
+    // n is odd, so the inverse of 2 modulo n is (n + 1) / 2.
+    return (int) (((long) (a + b) * ((n + 1) / 2)) % n);
+  }
+
+  private int blocks() {
+    return sharedNodes ? 2 * parallelism : parallelism;
+  }
+
+  private int block(Row row, List<String> keyFields) {
+    int hash = 1;
+    for (String field : keyFields) {
+      Object value = row.getValue(field);
+      hash =
+          31 * hash
+              + (value instanceof byte[]
+                  ? Arrays.hashCode((byte[]) value)
+                  : Objects.hashCode(value));
+    }
+    return Math.floorMod(Hashing.murmur3_32_fixed().hashInt(hash).asInt(), blocks());
+  }
+
+  private static List<String> keyFields(NodeTarget node) {
+    List<String> fields = new ArrayList<>(node.getKeyProperties().size());
+    for (String property : node.getKeyProperties()) {
+      for (PropertyMapping mapping : node.getProperties()) {
+        if (property.equals(mapping.getTargetProperty())) {
+          fields.add(mapping.getSourceField());
+          break;
+        }
+      }
+    }
+    return fields;
+  }
+
+  private static NodeTarget resolveNode(ImportSpecification importSpecification, String reference) {
+    return importSpecification.getTargets().getNodes().stream()
+        .filter(target -> reference.equals(target.getName()))
+        .findFirst()
+        .orElseThrow(
+            () ->
+                new IllegalArgumentException(
+                    String.format("Could not resolve node target reference %s", reference)));
+  }
+}
@@ -15,6 +15,7 @@
  */
 package com.google.cloud.teleport.v2.neo4j.transforms;
 
+import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
@@ -26,17 +27,24 @@ import com.google.cloud.teleport.v2.neo4j.database.Neo4jConnection;
 import com.google.cloud.teleport.v2.neo4j.model.helpers.TargetSequence;
 import com.google.cloud.teleport.v2.neo4j.model.sources.InlineTextSource;
 import com.google.cloud.teleport.v2.neo4j.utils.BeamUtils;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import org.apache.beam.sdk.Pipeline.PipelineVisitor;
+import org.apache.beam.sdk.runners.TransformHierarchy;
 import org.apache.beam.sdk.testing.TestPipeline;
 import org.apache.beam.sdk.transforms.Create;
 import org.junit.Test;
 import org.neo4j.driver.TransactionConfig;
 import org.neo4j.importer.v1.ImportSpecification;
 import org.neo4j.importer.v1.targets.NodeKeyConstraint;
+import org.neo4j.importer.v1.targets.NodeMatchMode;
 import org.neo4j.importer.v1.targets.NodeSchema;
 import org.neo4j.importer.v1.targets.NodeTarget;
 import org.neo4j.importer.v1.targets.PropertyMapping;
+import org.neo4j.importer.v1.targets.RelationshipSchema;
+import org.neo4j.importer.v1.targets.RelationshipTarget;
 import org.neo4j.importer.v1.targets.Targets;
 import org.neo4j.importer.v1.targets.WriteMode;
 
@@ -96,4 +104,78 @@ public class Neo4jRowWriterTransformTest {
             .build();
     verify(connection).runAutocommit(any(), eq(expectedTransactionConfig));
   }
+
+  @Test
+  public void writes_relationships_in_rounds_when_partitioned_by_nodes() {
+    var connection = mock(Neo4jConnection.class);
+    when(connection.capabilities()).thenReturn(new Neo4jCapabilities("5.20", "enterprise"));
+    var header = List.of("source_id", "target_id");
+    var startNode = keyedNode("persons", "Person", "source_id");
+    var endNode = keyedNode("movies", "Movie", "target_id");
+    var target =
+        new RelationshipTarget(
+            true,
+            "a-relationship",
+            "a-source",
+            null,
+            "RATED",
+            WriteMode.CREATE,
+            NodeMatchMode.MATCH,
+            null,
+            "persons",
+            "movies",
+            List.of(),
+            new RelationshipSchema(null, null, null, null, null, null, null, null, null));
+    var spec =
+        new ImportSpecification(
+            "test-version",
+            Map.of(
+                "relationship_target_parallelism",
+                3,
+                "relationship_target_partition_by_nodes",
+                true),
+            List.of(new InlineTextSource("a-source", List.of(List.of("1", "2")), header)),
+            new Targets(List.of(startNode, endNode), List.of(target), null),
+            null);
+    var transform =
+        new Neo4jRowWriterTransform(spec, new TargetSequence(), target, () -> connection);
+    var pipeline = TestPipeline.create();
+
+    pipeline.apply(Create.empty(BeamUtils.textToBeamSchema(header))).apply(transform);
+
+    Set<String> writes = new HashSet<>();
+    pipeline.traverseTopologically(
+        new PipelineVisitor.Defaults() {
+          @Override
+          public CompositeBehavior enterCompositeTransform(TransformHierarchy.Node node) {
+            if (node.getFullName().contains("Neo4j write a-relationship")) {
+              writes.add(node.getFullName());
+            }
+            return CompositeBehavior.ENTER_TRANSFORM;
+          }
+        });
+    assertThat(writes).hasSize(3);
+  }
+
+  private static NodeTarget keyedNode(String name, String label, String keyField) {
+    return new NodeTarget(
+        true,
+        name,
+        "a-source",
+        null,
+        WriteMode.MERGE,
+        null,
+        List.of(label),
+        List.of(new PropertyMapping(keyField, "id", null)),
+        new NodeSchema(
+            null,
+            List.of(new NodeKeyConstraint(name + "-key", label, List.of("id"), null)),
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null));
+  }
 }
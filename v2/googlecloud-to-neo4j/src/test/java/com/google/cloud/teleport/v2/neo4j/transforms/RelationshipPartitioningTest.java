@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.neo4j.transforms;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.values.Row;
+import org.junit.Test;
+import org.neo4j.importer.v1.ImportSpecification;
+import org.neo4j.importer.v1.targets.NodeKeyConstraint;
+import org.neo4j.importer.v1.targets.NodeMatchMode;
+import org.neo4j.importer.v1.targets.NodeSchema;
+import org.neo4j.importer.v1.targets.NodeTarget;
+import org.neo4j.importer.v1.targets.PropertyMapping;
+import org.neo4j.importer.v1.targets.RelationshipTarget;
+import org.neo4j.importer.v1.targets.Targets;
+import org.neo4j.importer.v1.targets.WriteMode;
+
+public class RelationshipPartitioningTest {
+
+  private static final Schema SCHEMA =
+      Schema.builder().addInt64Field("source_id").addInt64Field("target_id").build();
+
+  @Test
+  public void distinct_node_sets_are_written_in_a_grid_of_rounds() {
+    var partitioning =
+        partitioning(node("persons", "Person", "source_id"), node("movies", "Movie", "target_id"));
+
+    assertThat(partitioning.rounds()).isEqualTo(4);
+    assertNonOverlappingSlots(partitioning, false);
+  }
+
+  @Test
+  public void shared_node_set_is_written_in_tournament_rounds() {
+    var partitioning =
+        partitioning(
+            node("persons", "Person", "source_id"), node("friends", "Person", "target_id"));
+
+    assertThat(partitioning.rounds()).isEqualTo(8);
+    assertNonOverlappingSlots(partitioning, true);
+  }
+
+  @Test
+  public void nodes_without_keys_cannot_be_partitioned() {
+    var startNode =
+        new NodeTarget(
+            true,
+            "persons",
+            "a-source",
+            null,
+            WriteMode.MERGE,
+            null,
+            List.of("Person"),
+            List.of(new PropertyMapping("source_id", "id", null)),
+            new NodeSchema(null, null, null, null, null, null, null, null, null));
+
+    assertThat(
+            RelationshipPartitioning.of(
+                spec(startNode, node("movies", "Movie", "target_id")),
+                relationship(startNode.getName(), "movies"),
+                4))
+        .isNull();
+  }
+
+  private static void assertNonOverlappingSlots(
+      RelationshipPartitioning partitioning, boolean sharedNodes) {
+    // Round -> node id -> slot writing relationships of that node in the round.
+    Map<Integer, Map<String, Integer>> lockedNodes = new HashMap<>();
+    Set<Integer> slots = new HashSet<>();
+    for (long source = 0; source < 50; source++) {
+      for (long target = 0; target < 50; target++) {
+        Row row = Row.withSchema(SCHEMA).addValues(source, target).build();
+        int round = partitioning.partitionFor(row, partitioning.rounds());
+        int slot = partitioning.slot(row);
+        assertThat(round).isIn(range(partitioning.rounds()));
+        assertThat(slot).isIn(range(4));
+        slots.add(slot);
+
+        Map<String, Integer> roundNodes = lockedNodes.computeIfAbsent(round, r -> new HashMap<>());
+        for (String node :
+            List.of((sharedNodes ? "" : "start-") + source, (sharedNodes ? "" : "end-") + target)) {
+          Integer previousSlot = roundNodes.putIfAbsent(node, slot);
+          assertThat(previousSlot == null || previousSlot == slot).isTrue();
+        }
+      }
+    }
+    assertThat(slots).containsExactlyElementsIn(range(4));
+  }
+
+  private static List<Integer> range(int n) {
+    List<Integer> range = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      range.add(i);
+    }
+    return range;
+  }
+
+  private static RelationshipPartitioning partitioning(NodeTarget startNode, NodeTarget endNode) {
+    return RelationshipPartitioning.of(
+        spec(startNode, endNode), relationship(startNode.getName(), endNode.getName()), 4);
+  }
+
+  private static NodeTarget node(String name, String label, String keyField) {
+    return new NodeTarget(
+        true,
+        name,
+        "a-source",
+        null,
+        WriteMode.MERGE,
+        null,
+        List.of(label),
+        List.of(new PropertyMapping(keyField, "id", null)),
+        new NodeSchema(
+            null,
+            List.of(new NodeKeyConstraint(name + "-key", label, List.of("id"), null)),
+            null,
+            null,
+            null,
+            null,
+            null,
+            null,
+            null));
+  }
+
+  private static RelationshipTarget relationship(String startNode, String endNode) {
+    return new RelationshipTarget(
+        true,
+        "a-relationship",
+        "a-source",
+        null,
+        "LINKED_TO",
+        WriteMode.CREATE,
+        NodeMatchMode.MATCH,
+        null,
+        startNode,
+        endNode,
+        List.of(),
+        null);
+  }
+
+  private static ImportSpecification spec(NodeTarget startNode, NodeTarget endNode) {
+    return new ImportSpecification(
+        "test-version",
+        null,
+        List.of(),
+        new Targets(List.of(startNode, endNode), null, null),
+        null);
+  }
+}
@@ -235,4 +235,18 @@ public interface KafkaToBigQueryFlexOptions
   Boolean getUseStorageWriteApiAtLeastOnce();
 
   void setUseStorageWriteApiAtLeastOnce(Boolean value);
+
+  @TemplateParameter.Boolean(
+      order = 14,
+      groupName = "Destination",
+      optional = true,
+      description = "Write Avro records directly to the Storage Write API",
+      helpText =
+          "Only applies to Avro messages. If true, Avro records are encoded straight into Storage"
+              + " Write API protobuf messages, without an intermediate TableRow. The default value"
+              + " is `false`.")
+  @Default.Boolean(false)
+  Boolean getUseDirectAvroWrite();
+
+  void setUseDirectAvroWrite(Boolean value);
 }
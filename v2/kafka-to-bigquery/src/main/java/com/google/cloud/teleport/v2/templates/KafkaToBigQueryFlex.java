@@ -327,6 +327,7 @@ public class KafkaToBigQueryFlex {
               options.getPersistKafkaKey(),
               options.getUseAutoSharding());
     }
+    bigQueryWrite.withDirectAvroWrite(options.getUseDirectAvroWrite());
     writeResult =
         kafkaRecords
             .apply(
@@ -383,6 +384,7 @@ public class KafkaToBigQueryFlex {
               options.getPersistKafkaKey(),
               options.getUseAutoSharding());
     }
+    bigQueryWrite.withDirectAvroWrite(options.getUseDirectAvroWrite());
     writeResult =
         kafkaRecords
             .apply(
@@ -429,6 +431,11 @@ public class KafkaToBigQueryFlex {
               options.getPersistKafkaKey(),
               options.getUseAutoSharding());
     }
+    bigQueryWrite
+        .withDirectAvroWrite(options.getUseDirectAvroWrite())
+        .withSchemaRegistry(
+            options.getSchemaRegistryConnectionUrl(),
+            KafkaConfig.fromSchemaRegistryOptions(options));
     writeResult =
         kafkaRecords
             .apply(
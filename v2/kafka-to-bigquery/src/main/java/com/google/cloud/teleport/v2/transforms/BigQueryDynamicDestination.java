@@ -19,6 +19,7 @@ import com.google.api.services.bigquery.model.TableRow;
 import com.google.api.services.bigquery.model.TableSchema;
 import com.google.cloud.teleport.v2.coders.GenericRecordCoder;
 import com.google.cloud.teleport.v2.utils.BigQueryAvroUtils;
+import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.io.gcp.bigquery.DynamicDestinations;
@@ -58,17 +59,22 @@ public class BigQueryDynamicDestination
 
   @Override
   public TableDestination getTable(GenericRecord element) {
-    String sanitizedNamespace =
-        BigQueryAvroUtils.sanitizeString(element.getSchema().getNamespace());
-    String sanitizedName = BigQueryAvroUtils.sanitizeString(element.getSchema().getName());
+    return new TableDestination(
+        tableSpec(projectName, datasetName, tableNamePrefix, element.getSchema()), null);
+  }
+
+  /** Table spec of the records with the given Avro schema, named after the schema full name. */
+  static String tableSpec(
+      String projectName, String datasetName, String tableNamePrefix, Schema schema) {
+    String sanitizedNamespace = BigQueryAvroUtils.sanitizeString(schema.getNamespace());
+    String sanitizedName = BigQueryAvroUtils.sanitizeString(schema.getName());
 
     String bqQualifiedFullName =
         sanitizedNamespace + (sanitizedNamespace.isBlank() ? "" : "-") + sanitizedName;
 
     String tableName =
-        this.tableNamePrefix + (this.tableNamePrefix.isBlank() ? "" : "-") + bqQualifiedFullName;
-    String tableSpec = this.projectName + ":" + this.datasetName + "." + tableName;
-    return new TableDestination(tableSpec, null);
+        tableNamePrefix + (tableNamePrefix.isBlank() ? "" : "-") + bqQualifiedFullName;
+    return projectName + ":" + datasetName + "." + tableName;
   }
 
   @Override
@@ -23,11 +23,17 @@ import com.google.cloud.teleport.v2.utils.BigQueryAvroUtils;
 import com.google.cloud.teleport.v2.utils.BigQueryConstants;
 import com.google.cloud.teleport.v2.values.FailsafeElement;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
 import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.beam.sdk.coders.ByteArrayCoder;
 import org.apache.beam.sdk.coders.KvCoder;
 import org.apache.beam.sdk.coders.NullableCoder;
+import org.apache.beam.sdk.coders.VarIntCoder;
+import org.apache.beam.sdk.extensions.avro.coders.AvroCoder;
 import org.apache.beam.sdk.extensions.avro.schemas.utils.AvroUtils;
 import org.apache.beam.sdk.io.gcp.bigquery.BigQueryIO;
 import org.apache.beam.sdk.io.gcp.bigquery.BigQueryUtils;
@@ -71,6 +77,8 @@ public class BigQueryWriteUtils {
     private Boolean useAutoSharding;
     private Schema avroSchema;
 
+    private boolean directAvroWrite;
+
     // Dead letter queue params
     private ErrorHandler<BadRecord, ?> errorHandler;
 
@@ -158,6 +166,15 @@ public class BigQueryWriteUtils {
           errorHandler);
     }
 
+    /**
+     * Encodes the Avro records straight into Storage Write API messages instead of converting them
+     * to {@link TableRow}s first.
+     */
+    public BigQueryWriteUtils.BigQueryWrite withDirectAvroWrite(boolean directAvroWrite) {
+      this.directAvroWrite = directAvroWrite;
+      return this;
+    }
+
     private static class GenericRecordToTableRowFn
         extends DoFn<
             FailsafeElement<KafkaRecord<byte[], byte[]>, GenericRecord>,
@@ -196,6 +213,9 @@ public class BigQueryWriteUtils {
 
     public WriteResult expand(
         PCollection<FailsafeElement<KafkaRecord<byte[], byte[]>, GenericRecord>> input) {
+      if (this.directAvroWrite) {
+        return expandDirect(input);
+      }
       BigQueryIO.Write<TableRow> writeToBigQuery =
           BigQueryIO.<TableRow>write()
               .withSchema(
@@ -239,6 +259,45 @@ public class BigQueryWriteUtils {
               .apply(writeToBigQuery);
       return writeResult;
     }
+
+    private WriteResult expandDirect(
+        PCollection<FailsafeElement<KafkaRecord<byte[], byte[]>, GenericRecord>> input) {
+      Schema writeSchema =
+          this.persistKafkaKey ? BigQueryAvroUtils.addKafkaKeyField(avroSchema) : avroSchema;
+      BigQueryIO.Write<GenericRecord> writeToBigQuery =
+          BigQueryIO.<GenericRecord>write()
+              .withSchema(
+                  BigQueryAvroUtils.convertAvroSchemaToTableSchema(
+                      avroSchema, this.persistKafkaKey))
+              .withAvroFormatFunction(StorageApiAvroFormatFunction.of())
+              .withWriteDisposition(
+                  BigQueryIO.Write.WriteDisposition.valueOf(this.writeDisposition))
+              .withCreateDisposition(
+                  BigQueryIO.Write.CreateDisposition.valueOf(this.createDisposition))
+              .withExtendedErrorInfo()
+              .withMethod(BigQueryIO.Write.Method.STORAGE_WRITE_API)
+              .withNumStorageWriteApiStreams(this.numStorageWriteApiStreams)
+              .withTriggeringFrequency(
+                  Duration.standardSeconds(this.storageWriteApiTriggeringFrequencySec.longValue()));
+
+      if (!(errorHandler instanceof ErrorHandler.DefaultErrorHandler)) {
+        writeToBigQuery = writeToBigQuery.withErrorHandler(errorHandler);
+      }
+
+      if (this.useAutoSharding) {
+        writeToBigQuery = writeToBigQuery.withAutoSharding();
+      }
+
+      if (this.outputTableSpec != null) {
+        writeToBigQuery = writeToBigQuery.to(this.outputTableSpec);
+      }
+      return input
+          .apply(
+              "ExtractGenericRecord",
+              ParDo.of(new FailsafeElementGetRecordFn(this.persistKafkaKey)))
+          .setCoder(AvroCoder.of(writeSchema))
+          .apply(writeToBigQuery);
+    }
   }
 
   // Write to BigQuery when schema is unknown during runtime.
@@ -264,6 +323,12 @@ public class BigQueryWriteUtils {
 
     private Boolean useAutoSharding;
 
+    private boolean directAvroWrite;
+
+    private String schemaRegistryConnectionUrl;
+
+    private Map<String, Object> schemaRegistryAuthenticationConfig;
+
     private ErrorHandler<BadRecord, ?> errorHandler;
 
     public BigQueryDynamicWrite(
@@ -357,8 +422,32 @@ public class BigQueryWriteUtils {
           errorHandler);
     }
 
+    /**
+     * Encodes the Avro records straight into Storage Write API messages instead of converting them
+     * to {@link TableRow}s first.
+     */
+    public BigQueryDynamicWrite withDirectAvroWrite(boolean directAvroWrite) {
+      this.directAvroWrite = directAvroWrite;
+      return this;
+    }
+
+    /**
+     * Schema registry the records were deserialized with, which the direct Avro write looks the
+     * schemas of its destinations up from.
+     */
+    public BigQueryDynamicWrite withSchemaRegistry(
+        String schemaRegistryConnectionUrl,
+        Map<String, Object> schemaRegistryAuthenticationConfig) {
+      this.schemaRegistryConnectionUrl = schemaRegistryConnectionUrl;
+      this.schemaRegistryAuthenticationConfig = schemaRegistryAuthenticationConfig;
+      return this;
+    }
+
     public WriteResult expand(
         PCollection<FailsafeElement<KafkaRecord<byte[], byte[]>, GenericRecord>> input) {
+      if (this.directAvroWrite) {
+        return expandDirect(input);
+      }
       WriteResult writeResult;
       BigQueryIO.Write<KV<GenericRecord, TableRow>> writeToBigQuery =
           BigQueryIO.<KV<GenericRecord, TableRow>>write()
@@ -402,6 +491,48 @@ public class BigQueryWriteUtils {
       return writeResult;
     }
 
+    private WriteResult expandDirect(
+        PCollection<FailsafeElement<KafkaRecord<byte[], byte[]>, GenericRecord>> input) {
+      if (this.schemaRegistryConnectionUrl == null) {
+        throw new IllegalArgumentException(
+            "The direct Avro write of records with dynamic schemas requires a schema registry.");
+      }
+      BigQueryIO.Write<KV<Integer, GenericRecord>> writeToBigQuery =
+          BigQueryIO.<KV<Integer, GenericRecord>>write()
+              .to(
+                  GenericRecordDynamicDestination.of(
+                      this.outputProject,
+                      this.outputDataset,
+                      this.outputTableNamePrefix,
+                      this.persistKafkaKey,
+                      this.schemaRegistryConnectionUrl,
+                      this.schemaRegistryAuthenticationConfig))
+              .withAvroFormatFunction(StorageApiAvroFormatFunction.ofValues())
+              .withWriteDisposition(
+                  BigQueryIO.Write.WriteDisposition.valueOf(this.writeDisposition))
+              .withCreateDisposition(
+                  BigQueryIO.Write.CreateDisposition.valueOf(this.createDisposition))
+              .withExtendedErrorInfo()
+              .withMethod(BigQueryIO.Write.Method.STORAGE_WRITE_API)
+              .withNumStorageWriteApiStreams(this.numStorageWriteApiStreams)
+              .withTriggeringFrequency(
+                  Duration.standardSeconds(this.storageWriteApiTriggeringFrequencySec.longValue()));
+
+      if (!(errorHandler instanceof ErrorHandler.DefaultErrorHandler)) {
+        writeToBigQuery = writeToBigQuery.withErrorHandler(errorHandler);
+      }
+
+      if (this.useAutoSharding) {
+        writeToBigQuery = writeToBigQuery.withAutoSharding();
+      }
+      return input
+          .apply(
+              "ExtractGenericRecord",
+              ParDo.of(new FailsafeElementGetSchemaIdAndRecordFn(this.persistKafkaKey)))
+          .setCoder(KvCoder.of(VarIntCoder.of(), GenericRecordCoder.of()))
+          .apply(writeToBigQuery);
+    }
+
     private static class GenericRecordToTableRowFn
         extends DoFn<
             FailsafeElement<KafkaRecord<byte[], byte[]>, GenericRecord>,
@@ -441,4 +572,100 @@ public class BigQueryWriteUtils {
       }
     }
   }
+
+  /**
+   * Unwraps the Avro record of a Kafka message, appending the Kafka key as an extra field when it
+   * is persisted.
+   */
+  static class FailsafeElementGetRecordFn
+      extends DoFn<FailsafeElement<KafkaRecord<byte[], byte[]>, GenericRecord>, GenericRecord> {
+
+    private final boolean persistKafkaKey;
+
+    private transient Map<Schema, Schema> schemasWithKey;
+
+    FailsafeElementGetRecordFn(boolean persistKafkaKey) {
+      this.persistKafkaKey = persistKafkaKey;
+    }
+
+    @Setup
+    public void setup() {
+      schemasWithKey = new HashMap<>();
+    }
+
+    @ProcessElement
+    public void processElement(
+        @Element FailsafeElement<KafkaRecord<byte[], byte[]>, GenericRecord> element,
+        OutputReceiver<GenericRecord> out) {
+      out.output(record(element, persistKafkaKey, schemasWithKey));
+    }
+  }
+
+  /**
+   * Unwraps the Avro record of a Kafka message like {@link FailsafeElementGetRecordFn}, keyed by
+   * the schema registry id of its writer schema.
+   */
+  static class FailsafeElementGetSchemaIdAndRecordFn
+      extends DoFn<
+          FailsafeElement<KafkaRecord<byte[], byte[]>, GenericRecord>, KV<Integer, GenericRecord>> {
+
+    private final boolean persistKafkaKey;
+
+    private transient Map<Schema, Schema> schemasWithKey;
+
+    FailsafeElementGetSchemaIdAndRecordFn(boolean persistKafkaKey) {
+      this.persistKafkaKey = persistKafkaKey;
+    }
+
+    @Setup
+    public void setup() {
+      schemasWithKey = new HashMap<>();
+    }
+
+    @ProcessElement
+    public void processElement(
+        @Element FailsafeElement<KafkaRecord<byte[], byte[]>, GenericRecord> element,
+        OutputReceiver<KV<Integer, GenericRecord>> out) {
+      out.output(
+          KV.of(
+              schemaId(element.getOriginalPayload().getKV().getValue()),
+              record(element, persistKafkaKey, schemasWithKey)));
+    }
+  }
+
+  /**
+   * Returns the schema registry id of the writer schema of a message serialized in the schema
+   * registry wire format: a zero magic byte followed by the id as a 4-byte big-endian integer.
+   */
+  static int schemaId(byte[] message) {
+    if (message == null || message.length < 5 || message[0] != 0) {
+      throw new IllegalArgumentException(
+          "Message is not serialized in the schema registry wire format.");
+    }
+    return ByteBuffer.wrap(message, 1, 4).getInt();
+  }
+
+  /**
+   * Returns the record of an element, with the Kafka key appended when it is persisted. Schemas
+   * with the key field are derived once per writer schema.
+   */
+  private static GenericRecord record(
+      FailsafeElement<KafkaRecord<byte[], byte[]>, GenericRecord> element,
+      boolean persistKafkaKey,
+      Map<Schema, Schema> schemasWithKey) {
+    GenericRecord record = element.getPayload();
+    if (!persistKafkaKey) {
+      return record;
+    }
+    Schema schema =
+        schemasWithKey.computeIfAbsent(record.getSchema(), BigQueryAvroUtils::addKafkaKeyField);
+    GenericData.Record recordWithKey = new GenericData.Record(schema);
+    int fieldCount = record.getSchema().getFields().size();
+    for (int i = 0; i < fieldCount; i++) {
+      recordWithKey.put(i, record.get(i));
+    }
+    byte[] key = element.getOriginalPayload().getKV().getKey();
+    recordWithKey.put(fieldCount, key == null ? null : ByteBuffer.wrap(key));
+    return recordWithKey;
+  }
 }
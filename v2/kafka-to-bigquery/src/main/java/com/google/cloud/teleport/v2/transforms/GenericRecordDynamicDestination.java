@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.transforms;
+
+import com.google.api.services.bigquery.model.TableSchema;
+import com.google.cloud.teleport.v2.kafka.utils.FileAwareSchemaRegistryFactoryFn;
+import com.google.cloud.teleport.v2.utils.BigQueryAvroUtils;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.CachedSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.VarIntCoder;
+import org.apache.beam.sdk.io.gcp.bigquery.DynamicDestinations;
+import org.apache.beam.sdk.io.gcp.bigquery.TableDestination;
+import org.apache.beam.sdk.values.KV;
+import org.apache.beam.sdk.values.ValueInSingleWindow;
+
+/**
+ * Routes Avro records to a table named after their schema, for records written directly to the
+ * Storage Write API.
+ *
+ * <p>Records come keyed by the schema registry id of their writer schema, which is used as the
+ * destination. The Storage Write API message descriptor is therefore compiled once per schema, and
+ * again when the schema evolves in the schema registry, while each element only carries a small
+ * integer. The schema of a destination is looked up from the schema registry by its id.
+ */
+public class GenericRecordDynamicDestination
+    extends DynamicDestinations<KV<Integer, GenericRecord>, Integer> {
+
+  private static final int DEFAULT_CACHE_CAPACITY = 1000;
+
+  private final String projectName;
+
+  private final String datasetName;
+
+  private final String tableNamePrefix;
+
+  private final boolean persistKafkaKey;
+
+  private final SchemaLookup schemaLookup;
+
+  private transient Map<Integer, Schema> schemas;
+
+  /** Looks up a writer schema by its schema registry id. */
+  interface SchemaLookup extends Serializable {
+    Schema getSchema(int schemaId) throws IOException, RestClientException;
+  }
+
+  public static GenericRecordDynamicDestination of(
+      String projectName,
+      String datasetName,
+      String tableNamePrefix,
+      boolean persistKafkaKey,
+      String schemaRegistryConnectionUrl,
+      Map<String, Object> schemaRegistryAuthenticationConfig) {
+    return new GenericRecordDynamicDestination(
+        projectName,
+        datasetName,
+        tableNamePrefix,
+        persistKafkaKey,
+        new SchemaRegistryLookup(schemaRegistryConnectionUrl, schemaRegistryAuthenticationConfig));
+  }
+
+  static GenericRecordDynamicDestination of(
+      String projectName,
+      String datasetName,
+      String tableNamePrefix,
+      boolean persistKafkaKey,
+      SchemaLookup schemaLookup) {
+    return new GenericRecordDynamicDestination(
+        projectName, datasetName, tableNamePrefix, persistKafkaKey, schemaLookup);
+  }
+
+  private GenericRecordDynamicDestination(
+      String projectName,
+      String datasetName,
+      String tableNamePrefix,
+      boolean persistKafkaKey,
+      SchemaLookup schemaLookup) {
+    this.projectName = projectName;
+    this.datasetName = datasetName;
+    this.tableNamePrefix = tableNamePrefix;
+    this.persistKafkaKey = persistKafkaKey;
+    this.schemaLookup = schemaLookup;
+  }
+
+  @Override
+  public Integer getDestination(ValueInSingleWindow<KV<Integer, GenericRecord>> element) {
+    return element.getValue().getKey();
+  }
+
+  @Override
+  public TableDestination getTable(Integer schemaId) {
+    return new TableDestination(
+        BigQueryDynamicDestination.tableSpec(
+            projectName, datasetName, tableNamePrefix, schema(schemaId)),
+        null);
+  }
+
+  @Override
+  public TableSchema getSchema(Integer schemaId) {
+    // The Kafka key, if persisted, is appended to the records but not to the registry schema.
+    return BigQueryAvroUtils.convertAvroSchemaToTableSchema(schema(schemaId), persistKafkaKey);
+  }
+
+  @Override
+  public Coder<Integer> getDestinationCoder() {
+    return VarIntCoder.of();
+  }
+
+  private Schema schema(int schemaId) {
+    if (schemas == null) {
+      schemas = new ConcurrentHashMap<>();
+    }
+    return schemas.computeIfAbsent(
+        schemaId,
+        id -> {
+          try {
+            return schemaLookup.getSchema(id);
+          } catch (IOException | RestClientException e) {
+            throw new RuntimeException("Failed to look up Avro schema with id " + id, e);
+          }
+        });
+  }
+
+  /** Looks up schemas from the schema registry the records were deserialized with. */
+  private static class SchemaRegistryLookup implements SchemaLookup {
+
+    private final String schemaRegistryConnectionUrl;
+
+    private final Map<String, Object> schemaRegistryAuthenticationConfig;
+
+    private transient SchemaRegistryClient schemaRegistryClient;
+
+    SchemaRegistryLookup(
+        String schemaRegistryConnectionUrl,
+        Map<String, Object> schemaRegistryAuthenticationConfig) {
+      this.schemaRegistryConnectionUrl = schemaRegistryConnectionUrl;
+      this.schemaRegistryAuthenticationConfig = schemaRegistryAuthenticationConfig;
+    }
+
+    @Override
+    public synchronized Schema getSchema(int schemaId) throws IOException, RestClientException {
+      if (schemaRegistryClient == null) {
+        schemaRegistryClient =
+            new CachedSchemaRegistryClient(
+                schemaRegistryConnectionUrl,
+                DEFAULT_CACHE_CAPACITY,
+                new FileAwareSchemaRegistryFactoryFn("bigquery-destination")
+                    .apply(schemaRegistryAuthenticationConfig));
+      }
+      return ((AvroSchema) schemaRegistryClient.getSchemaById(schemaId)).rawSchema();
+    }
+  }
+}
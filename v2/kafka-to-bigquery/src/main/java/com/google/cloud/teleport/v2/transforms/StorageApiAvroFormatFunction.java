@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.transforms;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.beam.sdk.io.gcp.bigquery.AvroWriteRequest;
+import org.apache.beam.sdk.transforms.SerializableFunction;
+import org.apache.beam.sdk.values.KV;
+
+/**
+ * Avro format function for records written directly to the Storage Write API.
+ *
+ * <p>The Storage Write API encoder of {@code BigQueryIO} expects {@code byte[]} values for Avro
+ * {@code bytes} fields, while Avro decoders produce {@link ByteBuffer}s. Records whose schema has
+ * {@code bytes} fields are passed as a view that exposes those values as arrays. Records of any
+ * other schema are passed through untouched.
+ */
+class StorageApiAvroFormatFunction<T>
+    implements SerializableFunction<AvroWriteRequest<T>, GenericRecord> {
+
+  private final SerializableFunction<T, GenericRecord> getRecord;
+
+  private transient Map<Schema, Boolean> hasBytes;
+
+  private StorageApiAvroFormatFunction(SerializableFunction<T, GenericRecord> getRecord) {
+    this.getRecord = getRecord;
+  }
+
+  /** Formats elements that are the records themselves. */
+  static StorageApiAvroFormatFunction<GenericRecord> of() {
+    return new StorageApiAvroFormatFunction<>(record -> record);
+  }
+
+  /** Formats the records of elements keyed by their destination. */
+  static <K> StorageApiAvroFormatFunction<KV<K, GenericRecord>> ofValues() {
+    return new StorageApiAvroFormatFunction<>(KV::getValue);
+  }
+
+  @Override
+  public GenericRecord apply(AvroWriteRequest<T> request) {
+    GenericRecord record = getRecord.apply(request.getElement());
+    return hasBytes(record.getSchema()) ? new BytesAsArrayRecord(record) : record;
+  }
+
+  private boolean hasBytes(Schema schema) {
+    if (hasBytes == null) {
+      hasBytes = new ConcurrentHashMap<>();
+    }
+    Boolean cached = hasBytes.get(schema);
+    if (cached == null) {
+      cached = hasBytes(schema, new HashSet<>());
+      hasBytes.put(schema, cached);
+    }
+    return cached;
+  }
+
+  private static boolean hasBytes(Schema schema, Set<String> visitedRecords) {
+    switch (schema.getType()) {
+      case BYTES:
+        return !(schema.getLogicalType() instanceof LogicalTypes.Decimal);
+      case RECORD:
+        if (!visitedRecords.add(schema.getFullName())) {
+          return false;
+        }
+        for (Schema.Field field : schema.getFields()) {
+          if (hasBytes(field.schema(), visitedRecords)) {
+            return true;
+          }
+        }
+        return false;
+      case ARRAY:
+        return hasBytes(schema.getElementType(), visitedRecords);
+      case MAP:
+        return hasBytes(schema.getValueType(), visitedRecords);
+      case UNION:
+        for (Schema type : schema.getTypes()) {
+          if (hasBytes(type, visitedRecords)) {
+            return true;
+          }
+        }
+        return false;
+      default:
+        return false;
+    }
+  }
+
+  private static Object convert(Schema schema, Object value) {
+    if (value == null) {
+      return null;
+    }
+    switch (schema.getType()) {
+      case BYTES:
+        if (value instanceof ByteBuffer
+            && !(schema.getLogicalType() instanceof LogicalTypes.Decimal)) {
+          ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+          byte[] bytes = new byte[buffer.remaining()];
+          buffer.get(bytes);
+          return bytes;
+        }
+        return value;
+      case RECORD:
+        return new BytesAsArrayRecord((GenericRecord) value);
+      case ARRAY:
+        List<Object> elements = new ArrayList<>();
+        for (Object element : (Iterable<?>) value) {
+          elements.add(convert(schema.getElementType(), element));
+        }
+        return elements;
+      case MAP:
+        Map<Object, Object> entries = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+          entries.put(entry.getKey(), convert(schema.getValueType(), entry.getValue()));
+        }
+        return entries;
+      case UNION:
+        return convert(schema.getTypes().get(GenericData.get().resolveUnion(schema, value)), value);
+      default:
+        return value;
+    }
+  }
+
+  /** Read-only view of a record with {@code bytes} values as arrays. */
+  private static class BytesAsArrayRecord implements GenericRecord {
+
+    private final GenericRecord record;
+
+    BytesAsArrayRecord(GenericRecord record) {
+      this.record = record;
+    }
+
+    @Override
+    public Schema getSchema() {
+      return record.getSchema();
+    }
+
+    @Override
+    public Object get(int i) {
+      return convert(record.getSchema().getFields().get(i).schema(), record.get(i));
+    }
+
+    @Override
+    public Object get(String key) {
+      Schema.Field field = record.getSchema().getField(key);
+      return field == null ? null : get(field.pos());
+    }
+
+    @Override
+    public void put(int i, Object v) {
+      throw new UnsupportedOperationException("Read-only record view");
+    }
+
+    @Override
+    public void put(String key, Object v) {
+      throw new UnsupportedOperationException("Read-only record view");
+    }
+  }
+}
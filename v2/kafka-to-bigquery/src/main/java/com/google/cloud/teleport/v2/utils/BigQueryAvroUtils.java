@@ -546,6 +546,25 @@ public class BigQueryAvroUtils {
     return tableSchema;
   }
 
+  /**
+   * Returns a copy of a record schema with the Kafka key as an extra nullable {@code BYTES} field,
+   * matching the table schema from {@link #convertAvroSchemaToTableSchema(Schema, Boolean)}.
+   */
+  public static Schema addKafkaKeyField(Schema schema) {
+    List<Field> fields = new ArrayList<>(schema.getFields().size() + 1);
+    for (Field field : schema.getFields()) {
+      fields.add(new Field(field, field.schema()));
+    }
+    fields.add(
+        new Field(
+            BigQueryConstants.KAFKA_KEY_FIELD,
+            Schema.createUnion(Schema.create(Type.NULL), Schema.create(Type.BYTES)),
+            null,
+            Field.NULL_DEFAULT_VALUE));
+    return Schema.createRecord(
+        schema.getName(), schema.getDoc(), schema.getNamespace(), schema.isError(), fields);
+  }
+
   public static String sanitizeString(String value) {
     return SANITIZE_PATTERN.matcher(value).replaceAll("-");
   }
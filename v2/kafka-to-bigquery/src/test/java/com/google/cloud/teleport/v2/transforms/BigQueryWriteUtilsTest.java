@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.transforms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import com.google.cloud.teleport.v2.transforms.BigQueryWriteUtils.FailsafeElementGetRecordFn;
+import com.google.cloud.teleport.v2.transforms.BigQueryWriteUtils.FailsafeElementGetSchemaIdAndRecordFn;
+import com.google.cloud.teleport.v2.utils.BigQueryConstants;
+import com.google.cloud.teleport.v2.values.FailsafeElement;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.beam.sdk.io.kafka.KafkaRecord;
+import org.apache.beam.sdk.io.kafka.KafkaTimestampType;
+import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.values.KV;
+import org.joda.time.Instant;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Test cases for the {@link BigQueryWriteUtils} class. */
+@RunWith(JUnit4.class)
+public class BigQueryWriteUtilsTest {
+
+  private static final Schema SCHEMA =
+      SchemaBuilder.record("Order").fields().requiredLong("id").endRecord();
+
+  private static GenericRecord record(long id) {
+    GenericRecord record = new GenericData.Record(SCHEMA);
+    record.put("id", id);
+    return record;
+  }
+
+  /** A message in the schema registry wire format, with the given schema id. */
+  private static byte[] message(int schemaId) {
+    return ByteBuffer.allocate(6).put((byte) 0).putInt(schemaId).put((byte) 2).array();
+  }
+
+  private static FailsafeElement<KafkaRecord<byte[], byte[]>, GenericRecord> element(
+      byte[] key, byte[] value, GenericRecord record) {
+    return FailsafeElement.of(
+        new KafkaRecord<>(
+            "topic", 0, 0L, 0L, KafkaTimestampType.CREATE_TIME, null, KV.of(key, value)),
+        record);
+  }
+
+  /** Collects the outputs of a {@link DoFn}. */
+  private static class ListReceiver<T> implements DoFn.OutputReceiver<T> {
+    final List<T> outputs = new ArrayList<>();
+
+    @Override
+    public void output(T output) {
+      outputs.add(output);
+    }
+
+    @Override
+    public void outputWithTimestamp(T output, Instant timestamp) {
+      outputs.add(output);
+    }
+  }
+
+  @Test
+  public void testGetRecordWithoutKafkaKey() {
+    FailsafeElementGetRecordFn fn = new FailsafeElementGetRecordFn(false);
+    fn.setup();
+    ListReceiver<GenericRecord> receiver = new ListReceiver<>();
+    GenericRecord record = record(1L);
+
+    fn.processElement(element(bytes("k"), message(1), record), receiver);
+
+    assertEquals(1, receiver.outputs.size());
+    assertSame(record, receiver.outputs.get(0));
+  }
+
+  @Test
+  public void testGetRecordWithKafkaKey() {
+    FailsafeElementGetRecordFn fn = new FailsafeElementGetRecordFn(true);
+    fn.setup();
+    ListReceiver<GenericRecord> receiver = new ListReceiver<>();
+
+    fn.processElement(element(bytes("k1"), message(1), record(1L)), receiver);
+    fn.processElement(element(null, message(1), record(2L)), receiver);
+
+    GenericRecord first = receiver.outputs.get(0);
+    GenericRecord second = receiver.outputs.get(1);
+    assertEquals(1L, first.get("id"));
+    assertEquals(ByteBuffer.wrap(bytes("k1")), first.get(BigQueryConstants.KAFKA_KEY_FIELD));
+    assertEquals(2L, second.get("id"));
+    assertNull(second.get(BigQueryConstants.KAFKA_KEY_FIELD));
+    // The schema with the key field is derived once per writer schema.
+    assertSame(first.getSchema(), second.getSchema());
+  }
+
+  @Test
+  public void testGetSchemaIdAndRecord() {
+    FailsafeElementGetSchemaIdAndRecordFn fn = new FailsafeElementGetSchemaIdAndRecordFn(true);
+    fn.setup();
+    ListReceiver<KV<Integer, GenericRecord>> receiver = new ListReceiver<>();
+
+    fn.processElement(element(bytes("k"), message(258), record(1L)), receiver);
+
+    KV<Integer, GenericRecord> output = receiver.outputs.get(0);
+    assertEquals(Integer.valueOf(258), output.getKey());
+    assertEquals(1L, output.getValue().get("id"));
+    assertEquals(
+        ByteBuffer.wrap(bytes("k")), output.getValue().get(BigQueryConstants.KAFKA_KEY_FIELD));
+  }
+
+  @Test
+  public void testSchemaIdOfInvalidMessage() {
+    assertThrows(IllegalArgumentException.class, () -> BigQueryWriteUtils.schemaId(null));
+    assertThrows(IllegalArgumentException.class, () -> BigQueryWriteUtils.schemaId(new byte[4]));
+    assertThrows(IllegalArgumentException.class, () -> BigQueryWriteUtils.schemaId(bytes("abcde")));
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.transforms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import com.google.api.services.bigquery.model.TableFieldSchema;
+import com.google.api.services.bigquery.model.TableSchema;
+import com.google.cloud.teleport.v2.utils.BigQueryConstants;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.beam.sdk.coders.VarIntCoder;
+import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
+import org.apache.beam.sdk.transforms.windowing.PaneInfo;
+import org.apache.beam.sdk.util.SerializableUtils;
+import org.apache.beam.sdk.values.KV;
+import org.apache.beam.sdk.values.ValueInSingleWindow;
+import org.joda.time.Instant;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Test cases for the {@link GenericRecordDynamicDestination} class. */
+@RunWith(JUnit4.class)
+public class GenericRecordDynamicDestinationTest {
+
+  private static final Schema ORDER_SCHEMA =
+      SchemaBuilder.record("Order")
+          .namespace("com.example")
+          .fields()
+          .requiredLong("id")
+          .endRecord();
+
+  private static final Schema ORDER_V2_SCHEMA =
+      SchemaBuilder.record("Order")
+          .namespace("com.example")
+          .fields()
+          .requiredLong("id")
+          .optionalString("note")
+          .endRecord();
+
+  // Schemas and lookup counts by id, as the lookup is serialized with the destinations.
+  private static final Map<Integer, Schema> REGISTRY = Map.of(1, ORDER_SCHEMA, 2, ORDER_V2_SCHEMA);
+  private static final Map<Integer, AtomicInteger> LOOKUPS = new ConcurrentHashMap<>();
+
+  @After
+  public void tearDown() {
+    LOOKUPS.clear();
+  }
+
+  private static GenericRecordDynamicDestination destinations(boolean persistKafkaKey) {
+    return GenericRecordDynamicDestination.of(
+        "project",
+        "dataset",
+        "prefix",
+        persistKafkaKey,
+        schemaId -> {
+          LOOKUPS.computeIfAbsent(schemaId, id -> new AtomicInteger()).incrementAndGet();
+          Schema schema = REGISTRY.get(schemaId);
+          if (schema == null) {
+            throw new RestClientException("Schema not found", 404, 40403);
+          }
+          return schema;
+        });
+  }
+
+  private static List<String> fieldNames(TableSchema schema) {
+    return schema.getFields().stream().map(TableFieldSchema::getName).collect(Collectors.toList());
+  }
+
+  @Test
+  public void testDestinationIsSchemaId() {
+    GenericRecord record = new GenericData.Record(ORDER_SCHEMA);
+    record.put("id", 1L);
+
+    Integer destination =
+        destinations(false)
+            .getDestination(
+                ValueInSingleWindow.of(
+                    KV.of(1, record), Instant.EPOCH, GlobalWindow.INSTANCE, PaneInfo.NO_FIRING));
+
+    assertEquals(Integer.valueOf(1), destination);
+    assertEquals(VarIntCoder.of(), destinations(false).getDestinationCoder());
+    // The destination does not need its schema.
+    assertEquals(null, LOOKUPS.get(1));
+  }
+
+  @Test
+  public void testSchemaVersionsShareTable() {
+    GenericRecordDynamicDestination destinations = destinations(false);
+
+    assertEquals(
+        "project:dataset.prefix-com-example-Order", destinations.getTable(1).getTableSpec());
+    assertEquals(
+        "project:dataset.prefix-com-example-Order", destinations.getTable(2).getTableSpec());
+    assertEquals(List.of("id"), fieldNames(destinations.getSchema(1)));
+    assertEquals(List.of("id", "note"), fieldNames(destinations.getSchema(2)));
+  }
+
+  @Test
+  public void testSchemaWithKafkaKey() {
+    assertEquals(
+        List.of("id", BigQueryConstants.KAFKA_KEY_FIELD),
+        fieldNames(destinations(true).getSchema(1)));
+  }
+
+  @Test
+  public void testSchemaIsLookedUpOnce() {
+    GenericRecordDynamicDestination destinations = SerializableUtils.clone(destinations(false));
+
+    destinations.getTable(1);
+    destinations.getSchema(1);
+    destinations.getSchema(1);
+
+    assertEquals(1, LOOKUPS.get(1).get());
+  }
+
+  @Test
+  public void testUnknownSchemaId() {
+    RuntimeException e =
+        assertThrows(RuntimeException.class, () -> destinations(false).getSchema(3));
+
+    assertEquals("Failed to look up Avro schema with id 3", e.getMessage());
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.transforms;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.beam.sdk.io.gcp.bigquery.AvroWriteRequest;
+import org.apache.beam.sdk.values.KV;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Test cases for the {@link StorageApiAvroFormatFunction} class. */
+@RunWith(JUnit4.class)
+public class StorageApiAvroFormatFunctionTest {
+
+  private static final Schema INNER_SCHEMA =
+      SchemaBuilder.record("Inner").fields().requiredBytes("payload").endRecord();
+
+  private static final Schema SCHEMA =
+      SchemaBuilder.record("Outer")
+          .fields()
+          .requiredString("name")
+          .optionalBytes("key")
+          .name("inner")
+          .type()
+          .optional()
+          .type(INNER_SCHEMA)
+          .name("chunks")
+          .type()
+          .array()
+          .items()
+          .bytesType()
+          .noDefault()
+          .name("attributes")
+          .type()
+          .map()
+          .values()
+          .bytesType()
+          .noDefault()
+          .endRecord();
+
+  private static ByteBuffer bytes(String value) {
+    return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static byte[] array(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static GenericRecord record() {
+    GenericRecord inner = new GenericData.Record(INNER_SCHEMA);
+    inner.put("payload", bytes("p"));
+    GenericRecord record = new GenericData.Record(SCHEMA);
+    record.put("name", "n");
+    record.put("key", bytes("k"));
+    record.put("inner", inner);
+    record.put("chunks", List.of(bytes("c1"), bytes("c2")));
+    record.put("attributes", Map.of("a", bytes("v")));
+    return record;
+  }
+
+  @Test
+  public void testBytesFieldsAreArrays() {
+    GenericRecord formatted =
+        StorageApiAvroFormatFunction.of().apply(new AvroWriteRequest<>(record(), SCHEMA));
+
+    assertEquals(SCHEMA, formatted.getSchema());
+    assertEquals("n", formatted.get("name"));
+    assertArrayEquals(array("k"), (byte[]) formatted.get("key"));
+    assertArrayEquals(array("p"), (byte[]) ((GenericRecord) formatted.get("inner")).get(0));
+    List<?> chunks = (List<?>) formatted.get("chunks");
+    assertArrayEquals(array("c1"), (byte[]) chunks.get(0));
+    assertArrayEquals(array("c2"), (byte[]) chunks.get(1));
+    assertArrayEquals(array("v"), (byte[]) ((Map<?, ?>) formatted.get("attributes")).get("a"));
+    assertThrows(UnsupportedOperationException.class, () -> formatted.put("name", "m"));
+  }
+
+  @Test
+  public void testBytesFieldsKeepTheirBuffers() {
+    GenericRecord record = record();
+    ByteBuffer key = (ByteBuffer) record.get("key");
+    key.get();
+
+    GenericRecord formatted =
+        StorageApiAvroFormatFunction.of().apply(new AvroWriteRequest<>(record, SCHEMA));
+
+    // Only the remaining bytes are read, and the buffer of the record is not consumed.
+    assertArrayEquals(new byte[0], (byte[]) formatted.get("key"));
+    assertEquals(1, key.position());
+  }
+
+  @Test
+  public void testNullBytesField() {
+    GenericRecord record = record();
+    record.put("key", null);
+    record.put("inner", null);
+
+    GenericRecord formatted =
+        StorageApiAvroFormatFunction.of().apply(new AvroWriteRequest<>(record, SCHEMA));
+
+    assertEquals(null, formatted.get("key"));
+    assertEquals(null, formatted.get("inner"));
+  }
+
+  @Test
+  public void testRecordsWithoutBytesArePassedThrough() {
+    Schema schema =
+        SchemaBuilder.record("Plain")
+            .fields()
+            .requiredString("name")
+            .name("amount")
+            .type(LogicalTypes.decimal(10, 2).addToSchema(Schema.create(Schema.Type.BYTES)))
+            .noDefault()
+            .endRecord();
+    GenericRecord record = new GenericData.Record(schema);
+    record.put("name", "n");
+    record.put("amount", bytes("1"));
+
+    GenericRecord formatted =
+        StorageApiAvroFormatFunction.of().apply(new AvroWriteRequest<>(record, schema));
+
+    assertSame(record, formatted);
+  }
+
+  @Test
+  public void testValuesOfKeyedElements() {
+    GenericRecord formatted =
+        StorageApiAvroFormatFunction.<Integer>ofValues()
+            .apply(new AvroWriteRequest<>(KV.of(7, record()), SCHEMA));
+
+    assertTrue(formatted.get("key") instanceof byte[]);
+    assertEquals("n", formatted.get("name"));
+  }
+}
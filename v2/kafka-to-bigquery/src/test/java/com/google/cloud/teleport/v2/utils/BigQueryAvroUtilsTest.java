@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.google.api.services.bigquery.model.TableFieldSchema;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.avro.JsonProperties;
+import org.apache.avro.Schema;
+import org.apache.avro.Schema.Field;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Test cases for the {@link BigQueryAvroUtils} class. */
+@RunWith(JUnit4.class)
+public class BigQueryAvroUtilsTest {
+
+  private static final Schema SCHEMA =
+      SchemaBuilder.record("Order")
+          .namespace("com.example")
+          .doc("An order")
+          .fields()
+          .requiredLong("id")
+          .name("note")
+          .doc("A note")
+          .type()
+          .stringType()
+          .stringDefault("none")
+          .endRecord();
+
+  @Test
+  public void testAddKafkaKeyField() {
+    Schema schema = BigQueryAvroUtils.addKafkaKeyField(SCHEMA);
+
+    assertEquals("com.example.Order", schema.getFullName());
+    assertEquals("An order", schema.getDoc());
+    assertEquals(3, schema.getFields().size());
+    assertEquals(SCHEMA.getField("id"), schema.getField("id"));
+    assertEquals(SCHEMA.getField("note"), schema.getField("note"));
+    Field key = schema.getFields().get(2);
+    assertEquals(BigQueryConstants.KAFKA_KEY_FIELD, key.name());
+    assertEquals(
+        Schema.createUnion(Schema.create(Schema.Type.NULL), Schema.create(Schema.Type.BYTES)),
+        key.schema());
+    assertEquals(JsonProperties.NULL_VALUE, key.defaultVal());
+    // The original schema is left unchanged.
+    assertEquals(2, SCHEMA.getFields().size());
+  }
+
+  @Test
+  public void testAddKafkaKeyFieldDefaultsToNull() {
+    GenericRecord record = new GenericData.Record(BigQueryAvroUtils.addKafkaKeyField(SCHEMA));
+
+    assertNull(record.get(BigQueryConstants.KAFKA_KEY_FIELD));
+  }
+
+  @Test
+  public void testAddKafkaKeyFieldMatchesTableSchema() {
+    List<String> tableFields =
+        BigQueryAvroUtils.convertAvroSchemaToTableSchema(SCHEMA, true).getFields().stream()
+            .map(TableFieldSchema::getName)
+            .collect(Collectors.toList());
+
+    assertEquals(
+        tableFields,
+        BigQueryAvroUtils.addKafkaKeyField(SCHEMA).getFields().stream()
+            .map(Field::name)
+            .collect(Collectors.toList()));
+  }
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.mongodb.templates;
+
+import static com.google.cloud.teleport.v2.mongodb.templates.MongoDbUtils.GSON;
+
+import com.google.api.services.bigquery.model.TableRow;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.Document;
+import org.bson.codecs.BsonTypeClassMap;
+import org.bson.codecs.BsonTypeCodecMap;
+import org.bson.codecs.BsonValueCodecProvider;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodecProvider;
+import org.bson.codecs.ValueCodecProvider;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.json.JsonReader;
+
+/**
+ * Converts MongoDB documents into the <code>id</code> and <code>source_data</code> columns of the
+ * {@code JSON} and {@code NONE} user options in a single walk over the document.
+ *
+ * <p>The values written are the same as when the document is serialized with {@link
+ * MongoDbUtils#GSON} and, for {@code JSON}, read back into a {@code Map<String, Object>}: nulls in
+ * documents are dropped, numbers are doubles in {@code JSON}, and values other than documents,
+ * arrays, strings, booleans and numbers are still serialized by Gson. Only the intermediate Gson
+ * trees and maps are avoided. Documents can be walked as a {@link Document}, or straight from
+ * MongoDB extended JSON without decoding them into a {@link Document} first.
+ */
+final class BsonToTableRow {
+
+  private static final String ID = "_id";
+
+  // The registry, type map and UUID handling of Document.parse and the default DocumentCodec.
+  private static final CodecRegistry REGISTRY =
+      CodecRegistries.fromProviders(
+          new ValueCodecProvider(), new BsonValueCodecProvider(), new DocumentCodecProvider());
+  private static final BsonTypeCodecMap CODECS =
+      new BsonTypeCodecMap(new BsonTypeClassMap(), REGISTRY);
+  private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+
+  private BsonToTableRow() {}
+
+  /**
+   * Returns the row of {@code document}, with <code>source_data</code> as a JSON value if {@code
+   * json} is set, or as a JSON string otherwise.
+   */
+  static TableRow toTableRow(Document document, boolean json, String timestamp) {
+    Object sourceData;
+    if (json) {
+      sourceData = toJsonValue(document);
+    } else {
+      StringWriter sourceJson = new StringWriter();
+      try (JsonWriter out = GSON.newJsonWriter(sourceJson)) {
+        writeJson(document, out);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      sourceData = sourceJson.toString();
+    }
+    return new TableRow()
+        .set("id", document.get(ID).toString())
+        .set("source_data", sourceData)
+        .set("timestamp", timestamp);
+  }
+
+  /**
+   * Returns the row of a document in MongoDB extended JSON, as parsed by {@link Document#parse},
+   * without decoding it into a {@link Document}.
+   */
+  static TableRow toTableRow(String extendedJson, boolean json, String timestamp) {
+    try (JsonReader reader = new JsonReader(extendedJson)) {
+      return toTableRow(reader, json, timestamp);
+    }
+  }
+
+  private static TableRow toTableRow(BsonReader reader, boolean json, String timestamp) {
+    Object id = null;
+    Object sourceData;
+    if (json) {
+      Map<String, Object> sourceMap = new LinkedHashMap<>();
+      reader.readStartDocument();
+      while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+        String name = reader.readName();
+        if (ID.equals(name)) {
+          id = decode(reader);
+          putIfNotNull(sourceMap, name, toJsonValue(id));
+        } else {
+          putIfNotNull(sourceMap, name, readJsonValue(reader));
+        }
+      }
+      reader.readEndDocument();
+      sourceData = sourceMap;
+    } else {
+      StringWriter sourceJson = new StringWriter();
+      try (JsonWriter out = GSON.newJsonWriter(sourceJson)) {
+        reader.readStartDocument();
+        out.beginObject();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+          String name = reader.readName();
+          out.name(name);
+          if (ID.equals(name)) {
+            id = decode(reader);
+            writeJson(id, out);
+          } else {
+            writeJson(reader, out);
+          }
+        }
+        out.endObject();
+        reader.readEndDocument();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      sourceData = sourceJson.toString();
+    }
+    if (id == null) {
+      throw new IllegalArgumentException("Document has no " + ID + " field.");
+    }
+    return new TableRow()
+        .set("id", id.toString())
+        .set("source_data", sourceData)
+        .set("timestamp", timestamp);
+  }
+
+  /** Returns the JSON value of a decoded document value, as Gson reads it into an Object. */
+  private static Object toJsonValue(Object value) {
+    if (value == null) {
+      return null;
+    } else if (value instanceof Map) {
+      Map<String, Object> map = new LinkedHashMap<>();
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        putIfNotNull(map, String.valueOf(entry.getKey()), toJsonValue(entry.getValue()));
+      }
+      return map;
+    } else if (value instanceof Collection) {
+      List<Object> list = new ArrayList<>();
+      for (Object element : (Collection<?>) value) {
+        list.add(toJsonValue(element));
+      }
+      return list;
+    }
+    Class<?> valueClass = value.getClass();
+    if (valueClass == String.class || valueClass == Boolean.class) {
+      return value;
+    } else if (valueClass == Integer.class
+        || valueClass == Long.class
+        || valueClass == Double.class) {
+      return checkFinite(((Number) value).doubleValue());
+    }
+    return GSON.fromJson(GSON.toJsonTree(value), Object.class);
+  }
+
+  /** Returns the JSON value of the current BSON value of {@code reader}. */
+  private static Object readJsonValue(BsonReader reader) {
+    switch (reader.getCurrentBsonType()) {
+      case DOCUMENT:
+        Map<String, Object> map = new LinkedHashMap<>();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+          String name = reader.readName();
+          putIfNotNull(map, name, readJsonValue(reader));
+        }
+        reader.readEndDocument();
+        return map;
+      case ARRAY:
+        List<Object> list = new ArrayList<>();
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+          list.add(readJsonValue(reader));
+        }
+        reader.readEndArray();
+        return list;
+      case STRING:
+        return reader.readString();
+      case BOOLEAN:
+        return reader.readBoolean();
+      case INT32:
+        return (double) reader.readInt32();
+      case INT64:
+        return (double) reader.readInt64();
+      case DOUBLE:
+        return checkFinite(reader.readDouble());
+      case NULL:
+        reader.readNull();
+        return null;
+      default:
+        return toJsonValue(decode(reader));
+    }
+  }
+
+  /** Writes a decoded document value as Gson serializes it. */
+  private static void writeJson(Object value, JsonWriter out) throws IOException {
+    if (value == null) {
+      out.nullValue();
+    } else if (value instanceof Map) {
+      out.beginObject();
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        out.name(String.valueOf(entry.getKey()));
+        writeJson(entry.getValue(), out);
+      }
+      out.endObject();
+    } else if (value instanceof Collection) {
+      out.beginArray();
+      for (Object element : (Collection<?>) value) {
+        writeJson(element, out);
+      }
+      out.endArray();
+    } else if (value.getClass() == String.class) {
+      out.value((String) value);
+    } else if (value.getClass() == Boolean.class) {
+      out.value((Boolean) value);
+    } else if (value.getClass() == Integer.class || value.getClass() == Long.class) {
+      out.value(((Number) value).longValue());
+    } else if (value.getClass() == Double.class) {
+      out.value(((Double) value).doubleValue());
+    } else {
+      GSON.toJson(value, value.getClass(), out);
+    }
+  }
+
+  /** Writes the current BSON value of {@code reader} as Gson serializes its decoded value. */
+  private static void writeJson(BsonReader reader, JsonWriter out) throws IOException {
+    switch (reader.getCurrentBsonType()) {
+      case DOCUMENT:
+        reader.readStartDocument();
+        out.beginObject();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+          out.name(reader.readName());
+          writeJson(reader, out);
+        }
+        out.endObject();
+        reader.readEndDocument();
+        break;
+      case ARRAY:
+        reader.readStartArray();
+        out.beginArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+          writeJson(reader, out);
+        }
+        out.endArray();
+        reader.readEndArray();
+        break;
+      case STRING:
+        out.value(reader.readString());
+        break;
+      case BOOLEAN:
+        out.value(reader.readBoolean());
+        break;
+      case INT32:
+        out.value(reader.readInt32());
+        break;
+      case INT64:
+        out.value(reader.readInt64());
+        break;
+      case DOUBLE:
+        out.value(reader.readDouble());
+        break;
+      case NULL:
+        reader.readNull();
+        out.nullValue();
+        break;
+      default:
+        writeJson(decode(reader), out);
+    }
+  }
+
+  /** Decodes the current BSON value of {@code reader} as the default DocumentCodec does. */
+  private static Object decode(BsonReader reader) {
+    BsonType type = reader.getCurrentBsonType();
+    if (type == BsonType.NULL) {
+      reader.readNull();
+      return null;
+    } else if (type == BsonType.ARRAY) {
+      List<Object> list = new ArrayList<>();
+      reader.readStartArray();
+      while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+        list.add(decode(reader));
+      }
+      reader.readEndArray();
+      return list;
+    }
+    Codec<?> codec = CODECS.get(type);
+    if (type == BsonType.BINARY
+        && reader.peekBinarySize() == 16
+        && (reader.peekBinarySubType() == 3 || reader.peekBinarySubType() == 4)) {
+      codec = REGISTRY.get(UUID.class);
+    }
+    return codec.decode(reader, DECODER_CONTEXT);
+  }
+
+  private static double checkFinite(double value) {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      throw new IllegalArgumentException(
+          value
+              + " is not a valid double value as per JSON specification. To override this"
+              + " behavior, use GsonBuilder.serializeSpecialFloatingPointValues() method.");
+    }
+    return value;
+  }
+
+  private static void putIfNotNull(Map<String, Object> map, String name, Object value) {
+    if (value != null) {
+      map.put(name, value);
+    }
+  }
+}
@@ -41,6 +41,7 @@ import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.options.PipelineOptionsFactory;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.values.PCollection;
 import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -159,41 +160,61 @@ public class MongoDbCdcToBigQuery {
               mongoDbUri, options.getDatabase(), options.getCollection(), options.getUserOption());
     }
 
-    pipeline
-        .apply("Read PubSub Messages", PubsubIO.readStrings().fromTopic(inputOption))
-        .apply(
-            "RTransform string to document",
-            ParDo.of(
-                new DoFn<String, Document>() {
-                  @ProcessElement
-                  public void process(ProcessContext c) {
-                    Document document = Document.parse(c.element());
-                    c.output(document);
-                  }
-                }))
-        .apply(
-            "UDF",
-            TransformDocumentViaJavascript.newBuilder()
-                .setFileSystemPath(options.getJavascriptDocumentTransformGcsPath())
-                .setFunctionName(options.getJavascriptDocumentTransformFunctionName())
-                .build())
-        .apply(
-            "Read and transform data",
-            ParDo.of(
-                new DoFn<Document, TableRow>() {
-                  @ProcessElement
-                  public void process(ProcessContext c) {
-                    Document document = c.element();
-                    TableRow row = MongoDbUtils.getTableSchema(document, userOption);
-                    c.output(row);
-                  }
-                }))
-        .apply(
-            BigQueryIO.writeTableRows()
-                .to(options.getOutputTableSpec())
-                .withSchema(bigquerySchema)
-                .withCreateDisposition(BigQueryIO.Write.CreateDisposition.CREATE_IF_NEEDED)
-                .withWriteDisposition(BigQueryIO.Write.WriteDisposition.WRITE_APPEND));
+    PCollection<String> messages =
+        pipeline.apply("Read PubSub Messages", PubsubIO.readStrings().fromTopic(inputOption));
+
+    PCollection<TableRow> rows;
+    if (options.getJavascriptDocumentTransformFunctionName() != null
+        && options.getJavascriptDocumentTransformGcsPath() != null) {
+      rows =
+          messages
+              .apply(
+                  "RTransform string to document",
+                  ParDo.of(
+                      new DoFn<String, Document>() {
+                        @ProcessElement
+                        public void process(ProcessContext c) {
+                          Document document = Document.parse(c.element());
+                          c.output(document);
+                        }
+                      }))
+              .apply(
+                  "UDF",
+                  TransformDocumentViaJavascript.newBuilder()
+                      .setFileSystemPath(options.getJavascriptDocumentTransformGcsPath())
+                      .setFunctionName(options.getJavascriptDocumentTransformFunctionName())
+                      .build())
+              .apply(
+                  "Read and transform data",
+                  ParDo.of(
+                      new DoFn<Document, TableRow>() {
+                        @ProcessElement
+                        public void process(ProcessContext c) {
+                          Document document = c.element();
+                          TableRow row = MongoDbUtils.getTableSchema(document, userOption);
+                          c.output(row);
+                        }
+                      }));
+    } else {
+      // Without a UDF, rows are written straight from the JSON of the messages.
+      rows =
+          messages.apply(
+              "Read and transform data",
+              ParDo.of(
+                  new DoFn<String, TableRow>() {
+                    @ProcessElement
+                    public void process(ProcessContext c) {
+                      c.output(MongoDbUtils.getTableSchema(c.element(), userOption));
+                    }
+                  }));
+    }
+
+    rows.apply(
+        BigQueryIO.writeTableRows()
+            .to(options.getOutputTableSpec())
+            .withSchema(bigquerySchema)
+            .withCreateDisposition(BigQueryIO.Write.CreateDisposition.CREATE_IF_NEEDED)
+            .withWriteDisposition(BigQueryIO.Write.WriteDisposition.WRITE_APPEND));
     pipeline.run();
     return true;
   }
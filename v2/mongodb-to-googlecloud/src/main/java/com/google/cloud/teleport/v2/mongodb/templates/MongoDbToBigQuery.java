@@ -23,6 +23,7 @@ import com.google.api.services.bigquery.model.TableRow;
 import com.google.api.services.bigquery.model.TableSchema;
 import com.google.cloud.teleport.metadata.Template;
 import com.google.cloud.teleport.metadata.TemplateCategory;
+import com.google.cloud.teleport.metadata.TemplateParameter;
 import com.google.cloud.teleport.v2.common.UncaughtExceptionLogger;
 import com.google.cloud.teleport.v2.mongodb.options.MongoDbToBigQueryOptions.BigQueryWriteOptions;
 import com.google.cloud.teleport.v2.mongodb.options.MongoDbToBigQueryOptions.JavascriptDocumentTransformerOptions;
@@ -39,6 +40,7 @@ import org.apache.beam.sdk.io.FileSystems;
 import org.apache.beam.sdk.io.gcp.bigquery.BigQueryIO;
 import org.apache.beam.sdk.io.mongodb.FindQuery;
 import org.apache.beam.sdk.io.mongodb.MongoDbIO;
+import org.apache.beam.sdk.options.Default;
 import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.options.PipelineOptionsFactory;
 import org.apache.beam.sdk.transforms.DoFn;
@@ -82,7 +84,36 @@ public class MongoDbToBigQuery {
           MongoDbOptions,
           BigQueryWriteOptions,
           BigQueryStorageApiBatchOptions,
-          JavascriptDocumentTransformerOptions {}
+          JavascriptDocumentTransformerOptions {
+
+    @TemplateParameter.Integer(
+        order = 1,
+        groupName = "Source",
+        optional = true,
+        description = "Number of read splits",
+        helpText =
+            "The number of splits to read the collection in, as ranges of `_id`. Leave as `0` to"
+                + " size the splits from the bundle size chosen by the runner. The default value is"
+                + " `0`.")
+    @Default.Integer(0)
+    Integer getNumSplits();
+
+    void setNumSplits(Integer numSplits);
+
+    @TemplateParameter.Boolean(
+        order = 2,
+        groupName = "Source",
+        optional = true,
+        description = "Split with $bucketAuto",
+        helpText =
+            "Whether to compute the `_id` ranges of the splits with the `$bucketAuto` aggregation"
+                + " stage rather than the `splitVector` command, which is not available on MongoDB"
+                + " Atlas. The default value is `false`.")
+    @Default.Boolean(false)
+    Boolean getBucketAuto();
+
+    void setBucketAuto(Boolean bucketAuto);
+  }
 
   private static class ParseAsDocumentsFn extends DoFn<String, Document> {
     @ProcessElement
@@ -138,7 +169,11 @@ public class MongoDbToBigQuery {
         MongoDbIO.read()
             .withUri(mongoDbUri)
             .withDatabase(options.getDatabase())
-            .withCollection(options.getCollection());
+            .withCollection(options.getCollection())
+            .withBucketAuto(options.getBucketAuto());
+    if (options.getNumSplits() > 0) {
+      readDocuments = readDocuments.withNumSplits(options.getNumSplits());
+    }
 
     String filterJson = options.getFilter();
     BsonDocument filter;
@@ -21,8 +21,6 @@ import com.google.api.services.bigquery.model.TableFieldSchema;
 import com.google.api.services.bigquery.model.TableRow;
 import com.google.api.services.bigquery.model.TableSchema;
 import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-import com.google.gson.reflect.TypeToken;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoCollection;
@@ -39,7 +37,6 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import javax.script.Invocable;
@@ -148,26 +145,26 @@ public class MongoDbUtils implements Serializable {
             }
           });
       row.set("timestamp", localDate.format(TIMEFORMAT));
-    } else if (userOption.equals("JSON")) {
-      JsonObject sourceDataJsonObject = GSON.toJsonTree(document).getAsJsonObject();
-
-      // Convert to a Map
-      Map<String, Object> sourceDataMap =
-          GSON.fromJson(sourceDataJsonObject, new TypeToken<Map<String, Object>>() {}.getType());
-
-      row.set("id", document.get("_id").toString())
-          .set("source_data", sourceDataMap)
-          .set("timestamp", localDate.format(TIMEFORMAT));
     } else {
-      String sourceData = GSON.toJson(document);
-
-      row.set("id", document.get("_id").toString())
-          .set("source_data", sourceData)
-          .set("timestamp", localDate.format(TIMEFORMAT));
+      return BsonToTableRow.toTableRow(
+          document, userOption.equals("JSON"), localDate.format(TIMEFORMAT));
     }
     return row;
   }
 
+  /**
+   * Returns the row of a document in MongoDB extended JSON. Except for {@code FLATTEN}, the row is
+   * written straight from the JSON, without parsing it into a {@link Document} first.
+   */
+  public static TableRow getTableSchema(String documentJson, String userOption) {
+    if (userOption.equals("FLATTEN")) {
+      return getTableSchema(Document.parse(documentJson), userOption);
+    }
+    LocalDateTime localDate = LocalDateTime.now(ZoneId.of("UTC"));
+    return BsonToTableRow.toTableRow(
+        documentJson, userOption.equals("JSON"), localDate.format(TIMEFORMAT));
+  }
+
   public static TableSchema getTableFieldSchemaForUDF(
       String uri,
       String database,
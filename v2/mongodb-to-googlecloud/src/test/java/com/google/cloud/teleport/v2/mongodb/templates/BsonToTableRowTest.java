@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.mongodb.templates;
+
+import static com.google.cloud.teleport.v2.mongodb.templates.MongoDbUtils.GSON;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import com.google.api.services.bigquery.model.TableRow;
+import com.google.gson.reflect.TypeToken;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import org.bson.BsonBinary;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Test cases for the {@link BsonToTableRow} class. */
+@RunWith(JUnit4.class)
+public class BsonToTableRowTest {
+
+  private static final String TIMESTAMP = "2024-01-01 00:00:00.000";
+
+  private static Document document() {
+    return new Document("_id", new ObjectId("65a1b2c3d4e5f60718293a4b"))
+        .append("name", "<b>Ada</b> & \"Bob\"")
+        .append("count", 42)
+        .append("big", 1234567890123L)
+        .append("ratio", 0.25)
+        .append("active", true)
+        .append("missing", null)
+        .append("created", new Date(1700000000000L))
+        .append("price", Decimal128.parse("12.50"))
+        .append("uuid", new BsonBinary(UUID.fromString("01234567-89ab-cdef-0123-456789abcdef")))
+        .append("bytes", new BsonBinary(new byte[] {1, 2, 3}))
+        .append("ts", new BsonTimestamp(1700000000, 7))
+        .append(
+            "nested",
+            new Document("tags", Arrays.asList("a", null, 3, new Document("deep", 1.5)))
+                .append("empty", new Document())
+                .append("none", null));
+  }
+
+  /** The conversion of the JSON and NONE user options before the converter was introduced. */
+  private static TableRow legacyRow(Document document, boolean json) {
+    Object sourceData;
+    if (json) {
+      sourceData =
+          GSON.fromJson(
+              GSON.toJsonTree(document).getAsJsonObject(),
+              new TypeToken<Map<String, Object>>() {}.getType());
+    } else {
+      sourceData = GSON.toJson(document);
+    }
+    return new TableRow()
+        .set("id", document.get("_id").toString())
+        .set("source_data", sourceData)
+        .set("timestamp", TIMESTAMP);
+  }
+
+  /** Round trips {@code document} through BSON, as MongoDB would return it. */
+  private static Document decoded(Document document) {
+    return new RawBsonDocument(document, new DocumentCodec()).decode(new DocumentCodec());
+  }
+
+  @Test
+  public void testDocumentMatchesGson() {
+    Document document = decoded(document());
+    for (boolean json : new boolean[] {true, false}) {
+      assertEquals(legacyRow(document, json), BsonToTableRow.toTableRow(document, json, TIMESTAMP));
+    }
+  }
+
+  @Test
+  public void testExtendedJsonMatchesGson() {
+    String extendedJson = decoded(document()).toJson();
+    Document document = Document.parse(extendedJson);
+    for (boolean json : new boolean[] {true, false}) {
+      assertEquals(
+          legacyRow(document, json), BsonToTableRow.toTableRow(extendedJson, json, TIMESTAMP));
+    }
+  }
+
+  @Test
+  public void testNonObjectIdIds() {
+    String extendedJson = "{\"_id\": {\"tenant\": 1, \"key\": \"a\"}, \"value\": 2}";
+    Document document = Document.parse(extendedJson);
+    for (boolean json : new boolean[] {true, false}) {
+      assertEquals(
+          legacyRow(document, json), BsonToTableRow.toTableRow(extendedJson, json, TIMESTAMP));
+    }
+  }
+
+  @Test
+  public void testNonFiniteDoublesAreRejected() {
+    String extendedJson = "{\"_id\": 1, \"value\": {\"$numberDouble\": \"NaN\"}}";
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> BsonToTableRow.toTableRow(extendedJson, true, TIMESTAMP));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> BsonToTableRow.toTableRow(extendedJson, false, TIMESTAMP));
+  }
+
+  @Test
+  public void testDocumentWithoutIdIsRejected() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> BsonToTableRow.toTableRow("{\"value\": 1}", true, TIMESTAMP));
+  }
+}
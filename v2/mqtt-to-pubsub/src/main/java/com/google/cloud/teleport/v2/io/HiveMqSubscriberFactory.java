@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.io;
+
+import com.google.cloud.teleport.v2.io.MqttSharedSubscriptionSource.Message;
+import com.google.cloud.teleport.v2.io.MqttSharedSubscriptionSource.SubscriberFactory;
+import com.google.cloud.teleport.v2.io.MqttSharedSubscriptionSource.Subscription;
+import com.hivemq.client.mqtt.MqttClient;
+import com.hivemq.client.mqtt.datatypes.MqttQos;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5AsyncClient;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5ClientBuilder;
+import com.hivemq.client.mqtt.mqtt5.message.auth.Mqtt5SimpleAuth;
+import com.hivemq.client.mqtt.mqtt5.message.connect.Mqtt5Connect;
+import com.hivemq.client.mqtt.mqtt5.message.connect.Mqtt5ConnectBuilder;
+import com.hivemq.client.mqtt.mqtt5.message.connect.Mqtt5ConnectRestrictions;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Subscribes consumers to an MQTT 5 shared subscription, {@code $share/<group>/<topic>}, with the
+ * HiveMQ MQTT client.
+ *
+ * <p>Each consumer has its own client and clean session. The in-flight window of a consumer is
+ * advertised to the broker as its receive maximum, and messages are acknowledged manually.
+ */
+public class HiveMqSubscriberFactory implements SubscriberFactory {
+
+  private static final Logger LOG = LoggerFactory.getLogger(HiveMqSubscriberFactory.class);
+
+  // The receive maximum of MQTT 5 is a two byte integer.
+  private static final int MAX_RECEIVE_MAXIMUM = 65_535;
+  private static final long TIMEOUT_SECONDS = 60;
+
+  private final String serverUri;
+  private final String topic;
+  private final String group;
+  @Nullable private final String username;
+  @Nullable private final String password;
+
+  public HiveMqSubscriberFactory(
+      String serverUri,
+      String topic,
+      String group,
+      @Nullable String username,
+      @Nullable String password) {
+    this.serverUri = serverUri;
+    this.topic = topic;
+    this.group = group;
+    this.username = username;
+    this.password = password;
+  }
+
+  /** Returns the topic filter of the shared subscription. */
+  String getTopicFilter() {
+    return "$share/" + group + "/" + topic;
+  }
+
+  @Override
+  public Subscription subscribe(int consumerIndex, int maxInFlight, Consumer<Message> callback)
+      throws IOException {
+    URI uri = URI.create(serverUri);
+    boolean ssl = "ssl".equals(uri.getScheme()) || "tls".equals(uri.getScheme());
+    Mqtt5ClientBuilder clientBuilder =
+        MqttClient.builder()
+            .useMqttVersion5()
+            .identifier(group + "-" + consumerIndex + "-" + UUID.randomUUID())
+            .serverHost(uri.getHost())
+            .serverPort(uri.getPort() != -1 ? uri.getPort() : ssl ? 8883 : 1883);
+    if (ssl) {
+      clientBuilder = clientBuilder.sslWithDefaultConfig();
+    }
+    Mqtt5AsyncClient client = clientBuilder.buildAsync();
+
+    Mqtt5ConnectBuilder connect =
+        Mqtt5Connect.builder()
+            .cleanStart(true)
+            .restrictions(
+                Mqtt5ConnectRestrictions.builder()
+                    .receiveMaximum(Math.min(maxInFlight, MAX_RECEIVE_MAXIMUM))
+                    .build());
+    if (username != null && !username.isEmpty()) {
+      connect =
+          connect.simpleAuth(
+              Mqtt5SimpleAuth.builder()
+                  .username(username)
+                  .password(
+                      password == null ? new byte[0] : password.getBytes(StandardCharsets.UTF_8))
+                  .build());
+    }
+
+    try {
+      client.connect(connect.build()).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      client
+          .subscribeWith()
+          .topicFilter(getTopicFilter())
+          .qos(MqttQos.AT_LEAST_ONCE)
+          .callback(
+              publish ->
+                  callback.accept(new Message(publish.getPayloadAsBytes(), publish::acknowledge)))
+          .manualAcknowledgement(true)
+          .send()
+          .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (ExecutionException | TimeoutException e) {
+      client.disconnect();
+      throw new IOException(
+          String.format("Failed to subscribe consumer %d to %s", consumerIndex, getTopicFilter()),
+          e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      client.disconnect();
+      throw new IOException(e);
+    }
+    LOG.info("Subscribed consumer {} to {}", consumerIndex, getTopicFilter());
+
+    return () -> {
+      try {
+        client.disconnect().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      } catch (ExecutionException | TimeoutException e) {
+        LOG.warn("Failed to disconnect consumer {}: {}", consumerIndex, e.toString());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    };
+  }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.io;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import org.apache.beam.sdk.coders.ByteArrayCoder;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.SerializableCoder;
+import org.apache.beam.sdk.io.UnboundedSource;
+import org.apache.beam.sdk.metrics.Counter;
+import org.apache.beam.sdk.metrics.Gauge;
+import org.apache.beam.sdk.metrics.Metrics;
+import org.apache.beam.sdk.options.PipelineOptions;
+import org.joda.time.Instant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An unbounded source reading an MQTT topic through several consumers of one shared subscription.
+ *
+ * <p>The source splits into one source per consumer, so the consumers are spread across workers and
+ * the broker balances the messages of the topic between them. Messages are received with QoS 1 and
+ * acknowledged to the broker only when the checkpoint they were read in is finalized, so messages
+ * that are not committed are delivered again, possibly to another consumer. Each consumer holds at
+ * most a fixed number of messages that are read but not yet acknowledged.
+ */
+public class MqttSharedSubscriptionSource
+    extends UnboundedSource<byte[], MqttSharedSubscriptionSource.Checkpoint> {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MqttSharedSubscriptionSource.class);
+
+  private final SubscriberFactory subscriberFactory;
+  private final int numConsumers;
+  private final int maxInFlight;
+  private final int consumerIndex;
+
+  private MqttSharedSubscriptionSource(
+      SubscriberFactory subscriberFactory, int numConsumers, int maxInFlight, int consumerIndex) {
+    this.subscriberFactory = subscriberFactory;
+    this.numConsumers = numConsumers;
+    this.maxInFlight = maxInFlight;
+    this.consumerIndex = consumerIndex;
+  }
+
+  /**
+   * Returns a source reading with {@code numConsumers} consumers, each holding at most {@code
+   * maxInFlight} unacknowledged messages.
+   */
+  public static MqttSharedSubscriptionSource of(
+      SubscriberFactory subscriberFactory, int numConsumers, int maxInFlight) {
+    if (numConsumers <= 0) {
+      throw new IllegalArgumentException("numConsumers must be > 0, but was " + numConsumers);
+    }
+    if (maxInFlight <= 0) {
+      throw new IllegalArgumentException("maxInFlight must be > 0, but was " + maxInFlight);
+    }
+    return new MqttSharedSubscriptionSource(subscriberFactory, numConsumers, maxInFlight, 0);
+  }
+
+  int getConsumerIndex() {
+    return consumerIndex;
+  }
+
+  /** Splits into one source per consumer, whatever the desired number of splits is. */
+  @Override
+  public List<MqttSharedSubscriptionSource> split(int desiredNumSplits, PipelineOptions options) {
+    List<MqttSharedSubscriptionSource> sources = new ArrayList<>(numConsumers);
+    for (int i = 0; i < numConsumers; i++) {
+      sources.add(
+          new MqttSharedSubscriptionSource(subscriberFactory, numConsumers, maxInFlight, i));
+    }
+    return sources;
+  }
+
+  /**
+   * Creates a reader of this consumer. The messages of a restored checkpoint are not acknowledged
+   * again: the broker delivers them again to the subscription.
+   */
+  @Override
+  public Reader createReader(PipelineOptions options, @Nullable Checkpoint checkpointMark) {
+    return new Reader(this);
+  }
+
+  @Override
+  public Coder<Checkpoint> getCheckpointMarkCoder() {
+    return SerializableCoder.of(Checkpoint.class);
+  }
+
+  @Override
+  public Coder<byte[]> getOutputCoder() {
+    return ByteArrayCoder.of();
+  }
+
+  /** A message received from the broker, with the action acknowledging it. */
+  public static final class Message {
+    private final byte[] payload;
+    private final Runnable acknowledge;
+
+    public Message(byte[] payload, Runnable acknowledge) {
+      this.payload = payload;
+      this.acknowledge = acknowledge;
+    }
+
+    byte[] getPayload() {
+      return payload;
+    }
+
+    void acknowledge() {
+      acknowledge.run();
+    }
+  }
+
+  /** Subscribes consumers to the shared subscription. */
+  public interface SubscriberFactory extends Serializable {
+
+    /**
+     * Subscribes consumer {@code consumerIndex}, which must pass received messages to {@code
+     * callback} and should not be sent more than {@code maxInFlight} unacknowledged messages.
+     */
+    Subscription subscribe(int consumerIndex, int maxInFlight, Consumer<Message> callback)
+        throws IOException;
+  }
+
+  /** The subscription of one consumer. */
+  public interface Subscription {
+
+    /** Disconnects the consumer. Unacknowledged messages are delivered again by the broker. */
+    void close();
+  }
+
+  /** The messages read since the previous checkpoint, acknowledged once finalized. */
+  public static class Checkpoint implements UnboundedSource.CheckpointMark, Serializable {
+
+    // Both are only available on the worker that read the messages.
+    @Nullable private transient List<Message> messages;
+    @Nullable private transient AtomicInteger inFlight;
+
+    Checkpoint(List<Message> messages, AtomicInteger inFlight) {
+      this.messages = messages;
+      this.inFlight = inFlight;
+    }
+
+    @Override
+    public void finalizeCheckpoint() {
+      if (messages == null) {
+        return;
+      }
+      for (Message message : messages) {
+        try {
+          message.acknowledge();
+        } catch (RuntimeException e) {
+          // The broker delivers the message again to the subscription.
+          LOG.warn("Failed to acknowledge an MQTT message: {}", e.toString());
+        }
+      }
+      inFlight.addAndGet(-messages.size());
+      messages = null;
+    }
+  }
+
+  /** Reads the messages of one consumer. */
+  static class Reader extends UnboundedSource.UnboundedReader<byte[]> {
+
+    private final MqttSharedSubscriptionSource source;
+    private final ConcurrentLinkedQueue<Message> received = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter messagesRead;
+    private final Counter bytesRead;
+    private final Gauge messagesInFlight;
+
+    private Subscription subscription;
+    private List<Message> uncheckpointed = new ArrayList<>();
+    private Message current;
+    private Instant currentTimestamp;
+
+    Reader(MqttSharedSubscriptionSource source) {
+      this.source = source;
+      String consumer = "consumer" + source.consumerIndex;
+      this.messagesRead =
+          Metrics.counter(MqttSharedSubscriptionSource.class, consumer + "-messagesRead");
+      this.bytesRead = Metrics.counter(MqttSharedSubscriptionSource.class, consumer + "-bytesRead");
+      this.messagesInFlight =
+          Metrics.gauge(MqttSharedSubscriptionSource.class, consumer + "-messagesInFlight");
+    }
+
+    @Override
+    public boolean start() throws IOException {
+      subscription =
+          source.subscriberFactory.subscribe(
+              source.consumerIndex, source.maxInFlight, received::add);
+      return advance();
+    }
+
+    @Override
+    public boolean advance() {
+      // Wait for checkpoints to be finalized once the in-flight window is full.
+      if (inFlight.get() >= source.maxInFlight) {
+        messagesInFlight.set(inFlight.get());
+        return false;
+      }
+      Message message = received.poll();
+      if (message == null) {
+        return false;
+      }
+      messagesInFlight.set(inFlight.incrementAndGet());
+      uncheckpointed.add(message);
+      current = message;
+      currentTimestamp = Instant.now();
+      messagesRead.inc();
+      bytesRead.inc(message.getPayload().length);
+      return true;
+    }
+
+    @Override
+    public byte[] getCurrent() {
+      if (current == null) {
+        throw new NoSuchElementException();
+      }
+      return current.getPayload();
+    }
+
+    @Override
+    public Instant getCurrentTimestamp() {
+      if (current == null) {
+        throw new NoSuchElementException();
+      }
+      return currentTimestamp;
+    }
+
+    @Override
+    public Instant getWatermark() {
+      // Messages are timestamped when they are read.
+      return Instant.now();
+    }
+
+    @Override
+    public Checkpoint getCheckpointMark() {
+      Checkpoint checkpoint = new Checkpoint(uncheckpointed, inFlight);
+      uncheckpointed = new ArrayList<>();
+      return checkpoint;
+    }
+
+    @Override
+    public MqttSharedSubscriptionSource getCurrentSource() {
+      return source;
+    }
+
+    @Override
+    public void close() {
+      if (subscription != null) {
+        subscription.close();
+      }
+    }
+  }
+}
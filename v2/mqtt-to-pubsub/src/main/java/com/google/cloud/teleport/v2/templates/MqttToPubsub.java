@@ -18,16 +18,21 @@ package com.google.cloud.teleport.v2.templates;
 import com.google.cloud.teleport.metadata.Template;
 import com.google.cloud.teleport.metadata.TemplateCategory;
 import com.google.cloud.teleport.metadata.TemplateParameter;
+import com.google.cloud.teleport.v2.io.HiveMqSubscriberFactory;
+import com.google.cloud.teleport.v2.io.MqttSharedSubscriptionSource;
 import java.nio.charset.StandardCharsets;
 import org.apache.beam.sdk.Pipeline;
 import org.apache.beam.sdk.PipelineResult;
+import org.apache.beam.sdk.io.Read;
 import org.apache.beam.sdk.io.gcp.pubsub.PubsubIO;
 import org.apache.beam.sdk.io.mqtt.MqttIO;
+import org.apache.beam.sdk.options.Default;
 import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.options.PipelineOptionsFactory;
 import org.apache.beam.sdk.options.Validation;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.values.PCollection;
 
 /**
  * Dataflow template which reads data from Mqtt Topic and writes it to Cloud PubSub.
@@ -76,31 +81,59 @@ public class MqttToPubsub {
         throw new IllegalArgumentException(
             "While username is provided, password is required for authentication");
       }
+      if (options.getSharedSubscriptionConsumers() != null
+          && options.getSharedSubscriptionConsumers() > 0) {
+        String group = options.getSharedSubscriptionGroup();
+        if (group == null || group.isEmpty() || group.matches(".*[/+#].*")) {
+          throw new IllegalArgumentException(
+              "sharedSubscriptionGroup must be a non-empty name without '/', '+' or '#'");
+        }
+        if (options.getMaxInFlightMessages() == null || options.getMaxInFlightMessages() <= 0) {
+          throw new IllegalArgumentException("maxInFlightMessages must be greater than 0");
+        }
+      }
     }
   }
 
   public static PipelineResult run(MqttToPubsubOptions options) {
     validate(options);
     Pipeline pipeline = Pipeline.create(options);
-    MqttIO.Read mqttIo;
-    if (!options.getUsername().isEmpty() || !options.getPassword().isBlank()) {
-      mqttIo =
-          MqttIO.read()
-              .withConnectionConfiguration(
-                  MqttIO.ConnectionConfiguration.create(
-                          options.getBrokerServer(), options.getInputTopic())
-                      .withUsername(options.getUsername())
-                      .withPassword(options.getPassword()));
+    PCollection<byte[]> messages;
+    if (options.getSharedSubscriptionConsumers() > 0) {
+      messages =
+          pipeline.apply(
+              "ReadFromMqttSharedSubscription",
+              Read.from(
+                  MqttSharedSubscriptionSource.of(
+                      new HiveMqSubscriberFactory(
+                          options.getBrokerServer(),
+                          options.getInputTopic(),
+                          options.getSharedSubscriptionGroup(),
+                          options.getUsername(),
+                          options.getPassword()),
+                      options.getSharedSubscriptionConsumers(),
+                      options.getMaxInFlightMessages())));
     } else {
-      mqttIo =
-          MqttIO.read()
-              .withConnectionConfiguration(
-                  MqttIO.ConnectionConfiguration.create(
-                      options.getBrokerServer(), options.getInputTopic()));
+      MqttIO.Read mqttIo;
+      if (!options.getUsername().isEmpty() || !options.getPassword().isBlank()) {
+        mqttIo =
+            MqttIO.read()
+                .withConnectionConfiguration(
+                    MqttIO.ConnectionConfiguration.create(
+                            options.getBrokerServer(), options.getInputTopic())
+                        .withUsername(options.getUsername())
+                        .withPassword(options.getPassword()));
+      } else {
+        mqttIo =
+            MqttIO.read()
+                .withConnectionConfiguration(
+                    MqttIO.ConnectionConfiguration.create(
+                        options.getBrokerServer(), options.getInputTopic()));
+      }
+      messages = pipeline.apply("ReadFromMqttTopic", mqttIo);
     }
 
-    return pipeline
-        .apply("ReadFromMqttTopic", mqttIo)
+    return messages
         .apply(ParDo.of(new ByteToStringTransform()))
         .apply("WriteToPubSubTopic", PubsubIO.writeStrings().to(options.getOutputTopic()))
         .getPipeline()
@@ -173,5 +206,48 @@ public class MqttToPubsub {
     String getPassword();
 
     void setPassword(String password);
+
+    @TemplateParameter.Integer(
+        order = 6,
+        groupName = "Source",
+        optional = true,
+        description = "Number of shared subscription consumers",
+        helpText =
+            "The number of consumers reading the topic through an MQTT 5 shared subscription,"
+                + " `$share/<sharedSubscriptionGroup>/<inputTopic>`. The consumers are spread"
+                + " across workers and messages are acknowledged once they are committed. The"
+                + " broker must support MQTT 5. Leave as `0` to read the topic with a single MQTT"
+                + " connection. The default value is `0`.")
+    @Default.Integer(0)
+    Integer getSharedSubscriptionConsumers();
+
+    void setSharedSubscriptionConsumers(Integer sharedSubscriptionConsumers);
+
+    @TemplateParameter.Text(
+        order = 7,
+        groupName = "Source",
+        optional = true,
+        regexes = {"[^/+#]+"},
+        description = "Shared subscription group",
+        helpText =
+            "The name of the shared subscription group of the consumers. The default value is"
+                + " `dataflow`.")
+    @Default.String("dataflow")
+    String getSharedSubscriptionGroup();
+
+    void setSharedSubscriptionGroup(String sharedSubscriptionGroup);
+
+    @TemplateParameter.Integer(
+        order = 8,
+        groupName = "Source",
+        optional = true,
+        description = "Maximum in-flight messages per consumer",
+        helpText =
+            "The maximum number of messages a shared subscription consumer holds without having"
+                + " acknowledged them. The default value is `1000`.")
+    @Default.Integer(1000)
+    Integer getMaxInFlightMessages();
+
+    void setMaxInFlightMessages(Integer maxInFlightMessages);
   }
 }
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.google.cloud.teleport.v2.io.MqttSharedSubscriptionSource.Checkpoint;
+import com.google.cloud.teleport.v2.io.MqttSharedSubscriptionSource.Message;
+import com.google.cloud.teleport.v2.io.MqttSharedSubscriptionSource.Reader;
+import com.google.cloud.teleport.v2.io.MqttSharedSubscriptionSource.SubscriberFactory;
+import com.google.cloud.teleport.v2.io.MqttSharedSubscriptionSource.Subscription;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.apache.beam.sdk.options.PipelineOptionsFactory;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Test cases for the {@link MqttSharedSubscriptionSource} class. */
+@RunWith(JUnit4.class)
+public class MqttSharedSubscriptionSourceTest {
+
+  // Subscribers by consumer index, as the factory is serialized with the source.
+  private static final Map<Integer, FakeSubscriber> SUBSCRIBERS = new ConcurrentHashMap<>();
+
+  @After
+  public void tearDown() {
+    SUBSCRIBERS.clear();
+  }
+
+  /** A subscriber that delivers the messages it is given and counts their acknowledgements. */
+  private static class FakeSubscriber implements Subscription {
+    private final Consumer<Message> callback;
+    private final AtomicInteger acknowledged = new AtomicInteger();
+    private boolean closed;
+
+    FakeSubscriber(Consumer<Message> callback) {
+      this.callback = callback;
+    }
+
+    void deliver(String payload) {
+      callback.accept(
+          new Message(payload.getBytes(StandardCharsets.UTF_8), acknowledged::incrementAndGet));
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+  private static class FakeSubscriberFactory implements SubscriberFactory {
+    @Override
+    public Subscription subscribe(int consumerIndex, int maxInFlight, Consumer<Message> callback) {
+      FakeSubscriber subscriber = new FakeSubscriber(callback);
+      SUBSCRIBERS.put(consumerIndex, subscriber);
+      return subscriber;
+    }
+  }
+
+  private static String current(Reader reader) {
+    return new String(reader.getCurrent(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testSplitsIntoOneSourcePerConsumer() {
+    MqttSharedSubscriptionSource source =
+        MqttSharedSubscriptionSource.of(new FakeSubscriberFactory(), 3, 10);
+
+    List<MqttSharedSubscriptionSource> splits = source.split(1, PipelineOptionsFactory.create());
+
+    assertEquals(
+        List.of(0, 1, 2),
+        splits.stream()
+            .map(MqttSharedSubscriptionSource::getConsumerIndex)
+            .collect(Collectors.toList()));
+  }
+
+  @Test
+  public void testAcknowledgesOnFinalization() throws Exception {
+    MqttSharedSubscriptionSource source =
+        MqttSharedSubscriptionSource.of(new FakeSubscriberFactory(), 2, 10)
+            .split(2, PipelineOptionsFactory.create())
+            .get(1);
+    Reader reader = source.createReader(PipelineOptionsFactory.create(), null);
+    assertFalse(reader.start());
+    FakeSubscriber subscriber = SUBSCRIBERS.get(1);
+
+    subscriber.deliver("a");
+    subscriber.deliver("b");
+    List<String> read = new ArrayList<>();
+    while (reader.advance()) {
+      read.add(current(reader));
+    }
+    Checkpoint checkpoint = reader.getCheckpointMark();
+
+    assertEquals(List.of("a", "b"), read);
+    assertEquals(0, subscriber.acknowledged.get());
+    checkpoint.finalizeCheckpoint();
+    assertEquals(2, subscriber.acknowledged.get());
+
+    reader.close();
+    assertTrue(subscriber.closed);
+  }
+
+  @Test
+  public void testInFlightWindowWaitsForFinalization() throws Exception {
+    MqttSharedSubscriptionSource source =
+        MqttSharedSubscriptionSource.of(new FakeSubscriberFactory(), 1, 2);
+    Reader reader = source.createReader(PipelineOptionsFactory.create(), null);
+    reader.start();
+    FakeSubscriber subscriber = SUBSCRIBERS.get(0);
+    subscriber.deliver("a");
+    subscriber.deliver("b");
+    subscriber.deliver("c");
+
+    assertTrue(reader.advance());
+    assertTrue(reader.advance());
+    assertFalse(reader.advance());
+
+    reader.getCheckpointMark().finalizeCheckpoint();
+    assertTrue(reader.advance());
+    assertEquals("c", current(reader));
+  }
+
+  @Test
+  public void testRestoredCheckpointDoesNotAcknowledge() throws Exception {
+    MqttSharedSubscriptionSource source =
+        MqttSharedSubscriptionSource.of(new FakeSubscriberFactory(), 1, 10);
+    Reader reader = source.createReader(PipelineOptionsFactory.create(), null);
+    reader.start();
+    FakeSubscriber subscriber = SUBSCRIBERS.get(0);
+    subscriber.deliver("a");
+    assertTrue(reader.advance());
+
+    Checkpoint restored =
+        CoderUtils.clone(source.getCheckpointMarkCoder(), reader.getCheckpointMark());
+    restored.finalizeCheckpoint();
+
+    assertEquals(0, subscriber.acknowledged.get());
+  }
+
+  @Test
+  public void testGetCurrentBeforeMessages() throws Exception {
+    MqttSharedSubscriptionSource source =
+        MqttSharedSubscriptionSource.of(new FakeSubscriberFactory(), 1, 10);
+    Reader reader = source.createReader(PipelineOptionsFactory.create(), null);
+    reader.start();
+
+    assertThrows(NoSuchElementException.class, reader::getCurrent);
+  }
+
+  @Test
+  public void testRejectsInvalidSettings() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> MqttSharedSubscriptionSource.of(new FakeSubscriberFactory(), 0, 10));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> MqttSharedSubscriptionSource.of(new FakeSubscriberFactory(), 1, 0));
+  }
+}
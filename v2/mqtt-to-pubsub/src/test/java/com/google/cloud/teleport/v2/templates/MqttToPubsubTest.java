@@ -69,4 +69,22 @@ public class MqttToPubsubTest {
     // Expected to not throw an exception:
     MqttToPubsub.validate(options);
   }
+
+  @Test
+  public void testValidationFailsForInvalidSharedSubscriptionGroup() {
+    MqttToPubsub.MqttToPubsubOptions options =
+        PipelineOptionsFactory.create().as(MqttToPubsub.MqttToPubsubOptions.class);
+    options.setSharedSubscriptionConsumers(4);
+    options.setSharedSubscriptionGroup("sensors/+");
+    assertThrows(IllegalArgumentException.class, () -> MqttToPubsub.validate(options));
+  }
+
+  @Test
+  public void testValidationFailsForEmptyInFlightWindow() {
+    MqttToPubsub.MqttToPubsubOptions options =
+        PipelineOptionsFactory.create().as(MqttToPubsub.MqttToPubsubOptions.class);
+    options.setSharedSubscriptionConsumers(4);
+    options.setMaxInFlightMessages(0);
+    assertThrows(IllegalArgumentException.class, () -> MqttToPubsub.validate(options));
+  }
 }
@@ -142,4 +142,58 @@ public class MqttToPubsubTestIT extends TemplateTestBase {
     // Assert
     assertThatResult(result).meetsConditions();
   }
+
+  @Test
+  public void testMqttToPubSubSharedSubscription() throws IOException {
+    // Arrange
+
+    String jobName = testName;
+    String inputTopic = testName + "input";
+    String psTopic = testName + "output";
+    TopicName topicName = pubsubClient.createTopic(psTopic);
+    SubscriptionName subscriptionName = pubsubClient.createSubscription(topicName, "subscription");
+    mqttClient
+        .publishWith()
+        .topic(inputTopic)
+        .qos(MqttQos.AT_LEAST_ONCE)
+        .payload("1".getBytes())
+        .send();
+
+    PipelineLauncher.LaunchConfig.Builder options =
+        PipelineLauncher.LaunchConfig.builder(jobName, specPath)
+            .addParameter(
+                "brokerServer",
+                "tcp://" + TestProperties.hostIp() + ":" + hiveMQContainer.getMqttPort())
+            .addParameter("inputTopic", inputTopic)
+            .addParameter("outputTopic", topicName.toString())
+            .addParameter("username", "")
+            .addParameter("password", "")
+            .addParameter("sharedSubscriptionConsumers", "2");
+
+    // Act
+    PipelineLauncher.LaunchInfo info = launchTemplate(options);
+    assertThatPipeline(info).isRunning();
+    PipelineOperator.Result result =
+        pipelineOperator()
+            .waitForConditionAndFinish(
+                createConfig(info),
+                () -> {
+                  mqttClient
+                      .publishWith()
+                      .topic(inputTopic)
+                      .qos(MqttQos.AT_LEAST_ONCE)
+                      .payload("1".getBytes())
+                      .send();
+                  return pubsubClient
+                      .pull(subscriptionName, 1)
+                      .getReceivedMessages(0)
+                      .getMessage()
+                      .getData()
+                      .toString(StandardCharsets.UTF_8)
+                      .equalsIgnoreCase("1");
+                });
+
+    // Assert
+    assertThatResult(result).meetsConditions();
+  }
 }
@@ -44,6 +44,16 @@ public final class OptionsToConfigBuilder {
       List<String> tables,
       String shardId,
       Wait.OnSignal<?> waitOn) {
+    return getJdbcIOWrapperConfigWithDefaults(
+        options, tables, shardId, waitOn, options.getMaxConnections());
+  }
+
+  public static JdbcIOWrapperConfig getJdbcIOWrapperConfigWithDefaults(
+      SourceDbToSpannerOptions options,
+      List<String> tables,
+      String shardId,
+      Wait.OnSignal<?> waitOn,
+      long maxConnectionsPerTable) {
     SQLDialect sqlDialect = SQLDialect.valueOf(options.getSourceDbDialect());
     String sourceDbURL = options.getSourceConfigURL();
     String dbName = extractDbFromURL(sourceDbURL);
@@ -52,26 +62,44 @@ public final class OptionsToConfigBuilder {
 
     String jdbcDriverClassName = options.getJdbcDriverClassName();
     String jdbcDriverJars = options.getJdbcDriverJars();
-    long maxConnections =
-        options.getMaxConnections() > 0 ? (long) (options.getMaxConnections()) : 0;
+    long maxConnections = maxConnectionsPerTable > 0 ? maxConnectionsPerTable : 0;
     Integer numPartitions = options.getNumPartitions();
 
-    return getJdbcIOWrapperConfig(
-        sqlDialect,
-        tables,
-        sourceDbURL,
-        null,
-        null,
-        0,
-        username,
-        password,
-        dbName,
-        shardId,
-        jdbcDriverClassName,
-        jdbcDriverJars,
-        maxConnections,
-        numPartitions,
-        waitOn);
+    return withPartitioningOptions(
+        getJdbcIOWrapperConfig(
+            sqlDialect,
+            tables,
+            sourceDbURL,
+            null,
+            null,
+            0,
+            username,
+            password,
+            dbName,
+            shardId,
+            jdbcDriverClassName,
+            jdbcDriverJars,
+            maxConnections,
+            numPartitions,
+            waitOn),
+        options);
+  }
+
+  /**
+   * Applies the partitioning options of the template, other than the number of partitions, to
+   * {@code config}.
+   */
+  public static JdbcIOWrapperConfig withPartitioningOptions(
+      JdbcIOWrapperConfig config, SourceDbToSpannerOptions options) {
+    JdbcIOWrapperConfig.Builder builder = config.toBuilder();
+    Long maxRowsPerPartition = options.getMaxRowsPerPartition();
+    if (maxRowsPerPartition != null && maxRowsPerPartition > 0) {
+      builder.setMaxRowsPerPartition(maxRowsPerPartition);
+    }
+    if (options.getEstimateCountOnTimeout() != null) {
+      builder.setEstimateCountOnTimeout(options.getEstimateCountOnTimeout());
+    }
+    return builder.build();
   }
 
   public static JdbcIOWrapperConfig getJdbcIOWrapperConfig(
@@ -168,6 +168,23 @@ public interface SourceDbToSpannerOptions extends CommonTemplateOptions {
 
   void setMaxConnections(Integer value);
 
+  @TemplateParameter.Integer(
+      order = 19,
+      optional = true,
+      description =
+          "Maximum number of connections to Source database shared by all tables per worker",
+      helpText =
+          "Tables that do not depend on each other are migrated concurrently. When set, this budget"
+              + " is divided between the tables that can read from the source at the same time,"
+              + " and between the databases of all the shards for a sharded migration. Each table"
+              + " uses at most its share in addition to the maxConnections limit, and at least one"
+              + " connection. 0 disables the budget.",
+      example = "200")
+  @Default.Integer(0)
+  Integer getSourceConnectionBudget();
+
+  void setSourceConnectionBudget(Integer value);
+
   @TemplateParameter.GcsReadFile(
       order = 14,
       optional = true,
@@ -223,4 +240,47 @@ public interface SourceDbToSpannerOptions extends CommonTemplateOptions {
   String getTransformationCustomParameters();
 
   void setTransformationCustomParameters(String value);
+
+  @TemplateParameter.GcsWriteFolder(
+      order = 20,
+      optional = true,
+      description = "Cloud Storage path for Spanner schema snapshots",
+      helpText =
+          "Cloud Storage path where the Spanner schema read at launch is kept, along with the"
+              + " version of the schema it was read at. Later launches against an unchanged schema"
+              + " reuse the snapshot instead of reading the information schema again. Defaults"
+              + " to empty, which reads the information schema on every launch.",
+      example = "gs://your-bucket/schema-snapshots/")
+  @Default.String("")
+  String getSchemaSnapshotDirectory();
+
+  void setSchemaSnapshotDirectory(String value);
+
+  @TemplateParameter.Long(
+      order = 21,
+      optional = true,
+      description = "Maximum number of rows per read partition",
+      helpText =
+          "When set, the ranges of a table are split until each one has at most about this many"
+              + " rows, and merged only up to this many rows. Use it to bound the size of the"
+              + " largest partition of large or skewed tables. 0 leaves partition sizes to the"
+              + " number of partitions.",
+      example = "1000000")
+  @Default.Long(0)
+  Long getMaxRowsPerPartition();
+
+  void setMaxRowsPerPartition(Long value);
+
+  @TemplateParameter.Boolean(
+      order = 22,
+      optional = true,
+      description = "Estimate the size of ranges whose count times out",
+      helpText =
+          "If `true`, a range whose row count query times out is given an estimated count from"
+              + " the database, so that it can still be split. Estimates are approximate. The"
+              + " default value is `false`, which leaves such ranges unsplit.")
+  @Default.Boolean(false)
+  Boolean getEstimateCountOnTimeout();
+
+  void setEstimateCountOnTimeout(Boolean value);
 }
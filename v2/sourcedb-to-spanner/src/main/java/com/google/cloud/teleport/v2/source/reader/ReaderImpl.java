@@ -17,6 +17,7 @@ package com.google.cloud.teleport.v2.source.reader;
 
 import com.google.auto.value.AutoValue;
 import com.google.cloud.teleport.v2.source.reader.io.IoWrapper;
+import com.google.cloud.teleport.v2.source.reader.io.row.SourceRowCoder;
 import com.google.cloud.teleport.v2.source.reader.io.schema.SourceSchema;
 import com.google.cloud.teleport.v2.source.reader.io.transform.ReaderTransform;
 import java.io.Serializable;
@@ -35,6 +36,7 @@ public abstract class ReaderImpl implements Reader, Serializable {
         .getTableReaders()
         .entrySet()
         .forEach(entry -> readerTransformBuilder.withTableReader(entry.getKey(), entry.getValue()));
+    readerTransformBuilder.withSourceRowCoder(SourceRowCoder.of(sourceSchema));
 
     return ReaderImpl.create(sourceSchema, readerTransformBuilder.build());
   }
@@ -603,6 +603,23 @@ public final class MysqlDialectAdapter implements DialectAdapter {
         partitionColumns);
   }
 
+  /**
+   * Get query for the prepared statement to estimate the number of rows in a given range. The
+   * {@code rows} column of {@code EXPLAIN} is derived from index dives on the range, so it tracks
+   * skewed keys without scanning the range. {@code EXPLAIN} does not execute the query, so it needs
+   * no execution time limit.
+   *
+   * @param tableName name of the table to read.
+   * @param partitionColumns partition columns.
+   * @param timeoutMillis unused.
+   * @return Query Statement.
+   */
+  @Override
+  public String getCountEstimateQuery(
+      String tableName, ImmutableList<String> partitionColumns, long timeoutMillis) {
+    return addWhereClause("explain select * from " + tableName, partitionColumns);
+  }
+
   /**
    * Get query for the prepared statement to get min and max of a given column, optionally in the
    * context of a parent range.
@@ -52,6 +52,9 @@ public class PostgreSQLDialectAdapter implements DialectAdapter {
 
   private static final Logger logger = LoggerFactory.getLogger(PostgreSQLDialectAdapter.class);
 
+  /** Percentage of table blocks sampled to estimate the row count of a range. */
+  private static final int COUNT_ESTIMATE_SAMPLE_PERCENT = 1;
+
   private static final String NO_PAD = "NO PAD";
   private static final int VARCHAR_MAX_LENGTH = 65535;
 
@@ -420,6 +423,32 @@ public class PostgreSQLDialectAdapter implements DialectAdapter {
         partitionColumns);
   }
 
+  /**
+   * Get query for the prepared statement to estimate the number of rows in a given range. The range
+   * is counted on a {@value #COUNT_ESTIMATE_SAMPLE_PERCENT} percent block sample of the table and
+   * scaled up.
+   *
+   * @param tableName name of the table to read.
+   * @param partitionColumns partition columns.
+   * @param timeoutMillis timeout of the estimate query in milliseconds. Set to 0 to disable
+   *     timeout.
+   * @return Query Statement.
+   */
+  @Override
+  public String getCountEstimateQuery(
+      String tableName, ImmutableList<String> partitionColumns, long timeoutMillis) {
+    return addWhereClause(
+        String.format(
+            "SET statement_timeout = %1$s; "
+                + "SELECT COUNT(*) * %2$s AS %3$s FROM %4$s TABLESAMPLE SYSTEM (%5$s)",
+            timeoutMillis,
+            100 / COUNT_ESTIMATE_SAMPLE_PERCENT,
+            COUNT_ESTIMATE_COLUMN,
+            tableName,
+            COUNT_ESTIMATE_SAMPLE_PERCENT),
+        partitionColumns);
+  }
+
   /**
    * Get query for the prepared statement to get min and max of a given column, optionally in the
    * context of a parent range.
@@ -383,6 +383,8 @@ public final class JdbcIoWrapper implements IoWrapper {
             .setSplitStageCountHint(0L)
             .setDbParallelizationForSplitProcess(config.dbParallelizationForSplitProcess())
             .setDbParallelizationForReads(config.dbParallelizationForReads())
+            .setMaxRowsPerPartition(config.maxRowsPerPartition())
+            .setEstimateCountOnTimeout(config.estimateCountOnTimeout())
             .setAdditionalOperationsOnRanges(config.additionalOperationsOnRanges());
 
     if (tableConfig.maxPartitions() != null) {
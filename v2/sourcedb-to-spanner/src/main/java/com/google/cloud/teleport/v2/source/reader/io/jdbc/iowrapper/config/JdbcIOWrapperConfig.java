@@ -149,6 +149,21 @@ public abstract class JdbcIOWrapperConfig {
   @Nullable
   public abstract Integer dbParallelizationForReads();
 
+  /**
+   * If not null, ranges are split until each range has at most about this many rows. Ignored if
+   * {@link JdbcIOWrapperConfig#readWithUniformPartitionsFeatureEnabled()} is false. Defaults to
+   * null.
+   */
+  @Nullable
+  public abstract Long maxRowsPerPartition();
+
+  /**
+   * If true, ranges whose count query times out are given an estimated count so that they can be
+   * split. Ignored if {@link JdbcIOWrapperConfig#readWithUniformPartitionsFeatureEnabled()} is
+   * false. Defaults to false.
+   */
+  public abstract Boolean estimateCountOnTimeout();
+
   /**
    * A transform that can be injected to make use of the discovered splits for additional use case
    * like creating split points on spanner before the actual read. Ignored if {@link
@@ -245,6 +260,8 @@ public abstract class JdbcIOWrapperConfig {
         .setMaxFetchSize(null)
         .setDbParallelizationForReads(null)
         .setDbParallelizationForSplitProcess(DEFAULT_PARALLELIZATION_FOR_SLIT_PROCESS)
+        .setMaxRowsPerPartition(null)
+        .setEstimateCountOnTimeout(false)
         .setReadWithUniformPartitionsFeatureEnabled(true)
         .setTestOnBorrow(DEFAULT_TEST_ON_BORROW)
         .setTestOnCreate(DEFAULT_TEST_ON_CREATE)
@@ -273,6 +290,8 @@ public abstract class JdbcIOWrapperConfig {
         .setMaxFetchSize(null)
         .setDbParallelizationForReads(null)
         .setDbParallelizationForSplitProcess(DEFAULT_PARALLELIZATION_FOR_SLIT_PROCESS)
+        .setMaxRowsPerPartition(null)
+        .setEstimateCountOnTimeout(false)
         .setReadWithUniformPartitionsFeatureEnabled(true)
         .setTestOnBorrow(DEFAULT_TEST_ON_BORROW)
         .setTestOnCreate(DEFAULT_TEST_ON_CREATE)
@@ -326,6 +345,10 @@ public abstract class JdbcIOWrapperConfig {
 
     public abstract Builder setDbParallelizationForReads(@Nullable Integer value);
 
+    public abstract Builder setMaxRowsPerPartition(@Nullable Long value);
+
+    public abstract Builder setEstimateCountOnTimeout(Boolean value);
+
     public abstract Builder setAdditionalOperationsOnRanges(
         @Nullable PTransform<PCollection<ImmutableList<Range>>, ?> value);
 
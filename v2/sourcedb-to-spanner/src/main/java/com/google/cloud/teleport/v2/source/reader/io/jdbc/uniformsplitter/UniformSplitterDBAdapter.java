@@ -23,6 +23,9 @@ import java.sql.SQLException;
 /** Helper Interface to help uniform splitter adapt to the source database. */
 public interface UniformSplitterDBAdapter extends Serializable {
 
+  /** Label of the column that carries the row estimate returned by the count estimate query. */
+  String COUNT_ESTIMATE_COLUMN = "rows";
+
   /**
    * Get query for the prepared statement to read columns within a range.
    *
@@ -43,6 +46,21 @@ public interface UniformSplitterDBAdapter extends Serializable {
   String getCountQuery(
       String tableName, ImmutableList<String> partitionColumns, long timeoutMillis);
 
+  /**
+   * Get query for the prepared statement to estimate the number of rows in a given range from
+   * optimizer statistics or sampling, without counting every row of the range. The query must
+   * return the estimate in a column labelled {@link #COUNT_ESTIMATE_COLUMN}. The estimate is used
+   * when the exact count of a range times out.
+   *
+   * @param tableName name of the table to read.
+   * @param partitionColumns partition columns.
+   * @param timeoutMillis timeout of the estimate query in milliseconds. Set to 0 to disable
+   *     timeout.
+   * @return Query Statement.
+   */
+  String getCountEstimateQuery(
+      String tableName, ImmutableList<String> partitionColumns, long timeoutMillis);
+
   /**
    * Get query for the prepared statement to get min and max of a given column, optionally in the
    * context of a parent range.
@@ -18,6 +18,7 @@ package com.google.cloud.teleport.v2.source.reader.io.jdbc.uniformsplitter.trans
 import com.google.auto.value.AutoValue;
 import com.google.cloud.teleport.v2.source.reader.io.jdbc.uniformsplitter.range.Range;
 import com.google.common.collect.ImmutableList;
+import javax.annotation.Nullable;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +43,10 @@ public abstract class MergeRangesDoFn extends DoFn<ImmutableList<Range>, Immutab
   /** Name of the table. */
   abstract String tableName();
 
+  /** If not null, ranges are not merged beyond this many rows. */
+  @Nullable
+  abstract Long maxRowsPerPartition();
+
   /**
    * Merge the ranges to get closer to the mean if possible. This DoFn applied at the end of the
    * split process tries to give number of ranges closer to maxPartitions, to avoid unintented
@@ -62,7 +67,7 @@ public abstract class MergeRangesDoFn extends DoFn<ImmutableList<Range>, Immutab
   }
 
   public static Builder builder() {
-    return new AutoValue_MergeRangesDoFn.Builder();
+    return new AutoValue_MergeRangesDoFn.Builder().setMaxRowsPerPartition(null);
   }
 
   private ImmutableList<Range> mergeRanges(ImmutableList<Range> input, ProcessContext c) {
@@ -93,6 +98,9 @@ public abstract class MergeRangesDoFn extends DoFn<ImmutableList<Range>, Immutab
       maxPartitions = ReadWithUniformPartitions.inferMaxPartitions(totalCount);
     }
     mean = Math.max(1, totalCount / maxPartitions);
+    if (maxRowsPerPartition() != null) {
+      mean = Math.max(1, Math.min(mean, maxRowsPerPartition()));
+    }
 
     ImmutableList.Builder<Range> mergedRanges = ImmutableList.builder();
     Range lastMergedRange = null; // Store the last merged range
@@ -137,6 +145,8 @@ public abstract class MergeRangesDoFn extends DoFn<ImmutableList<Range>, Immutab
 
     public abstract Builder setTableName(String value);
 
+    public abstract Builder setMaxRowsPerPartition(@Nullable Long value);
+
     public abstract MergeRangesDoFn build();
   }
 }
@@ -21,6 +21,7 @@ import com.google.cloud.teleport.v2.source.reader.io.jdbc.uniformsplitter.range.
 import com.google.cloud.teleport.v2.source.reader.io.jdbc.uniformsplitter.range.Range;
 import com.google.common.collect.ImmutableList;
 import java.io.Serializable;
+import javax.annotation.Nullable;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.values.TupleTag;
 import org.apache.commons.lang3.tuple.Pair;
@@ -71,6 +72,20 @@ public abstract class RangeClassifierDoFn extends DoFn<ImmutableList<Range>, Ran
   /** Stage Index. */
   abstract Long stageIdx();
 
+  /**
+   * If not null, caps the mean size of a range so that ranges are split until they fit this many
+   * rows, even if that gives more ranges than the max partitions hint.
+   */
+  @Nullable
+  abstract Long maxRowsPerPartition();
+
+  /**
+   * Maximum number of times a range is halved in a single stage. A range that is k times larger
+   * than the mean is halved log2(k) times (up to this limit) so that skewed ranges converge in
+   * fewer stages. Defaults to 1.
+   */
+  abstract Long maxSplitHeightPerStage();
+
   @ProcessElement
   public void processElement(@Element ImmutableList<Range> input, ProcessContext c) {
 
@@ -98,6 +113,9 @@ public abstract class RangeClassifierDoFn extends DoFn<ImmutableList<Range>, Ran
       maxPartitions = ReadWithUniformPartitions.inferMaxPartitions(totalCount);
     }
     mean = Math.max(1, totalCount / maxPartitions);
+    if (maxRowsPerPartition() != null) {
+      mean = Math.max(1, Math.min(mean, maxRowsPerPartition()));
+    }
 
     for (Range range : input) {
       if (range.isUncounted()
@@ -107,14 +125,11 @@ public abstract class RangeClassifierDoFn extends DoFn<ImmutableList<Range>, Ran
           // For the first stage, we have an initial split without the counts.
           c.output(TO_COUNT_TAG, range);
         } else if (range.isSplittable(c)) {
-          Pair<Range, Range> splitPair = range.split(c);
-          logger.debug(
-              "Counting range {} and {} for stage {}.",
-              splitPair.getLeft(),
-              splitPair.getRight(),
-              stageIdx());
-          c.output(TO_COUNT_TAG, splitPair.getLeft());
-          c.output(TO_COUNT_TAG, splitPair.getRight());
+          ImmutableList<Range> splitRanges = splitRange(range, getSplitHeight(range, mean), c);
+          logger.debug("Counting ranges {} for stage {}.", splitRanges, stageIdx());
+          for (Range splitRange : splitRanges) {
+            c.output(TO_COUNT_TAG, splitRange);
+          }
         } else {
           if (range.height() + 1 < partitionColumns().size()) {
             PartitionColumn newColumn = partitionColumns().get((int) (range.height() + 1));
@@ -137,8 +152,33 @@ public abstract class RangeClassifierDoFn extends DoFn<ImmutableList<Range>, Ran
     }
   }
 
+  /**
+   * Number of times a range needs to be halved to get close to the mean. Uncounted ranges are
+   * halved once.
+   */
+  private long getSplitHeight(Range range, long mean) {
+    if (range.isUncounted()) {
+      return 1;
+    }
+    long height = ReadWithUniformPartitions.logToBaseTwo((range.count() + mean - 1) / mean);
+    return Math.max(1, Math.min(height, maxSplitHeightPerStage()));
+  }
+
+  private ImmutableList<Range> splitRange(Range range, long height, ProcessContext c) {
+    if (height == 0 || !range.isSplittable(c)) {
+      return ImmutableList.of(range);
+    }
+    Pair<Range, Range> splitPair = range.split(c);
+    return ImmutableList.<Range>builder()
+        .addAll(splitRange(splitPair.getLeft(), height - 1, c))
+        .addAll(splitRange(splitPair.getRight(), height - 1, c))
+        .build();
+  }
+
   public static Builder builder() {
-    return new AutoValue_RangeClassifierDoFn.Builder();
+    return new AutoValue_RangeClassifierDoFn.Builder()
+        .setMaxRowsPerPartition(null)
+        .setMaxSplitHeightPerStage(1L);
   }
 
   @AutoValue.Builder
@@ -153,6 +193,10 @@ public abstract class RangeClassifierDoFn extends DoFn<ImmutableList<Range>, Ran
 
     public abstract Builder setStageIdx(Long value);
 
+    public abstract Builder setMaxRowsPerPartition(@Nullable Long value);
+
+    public abstract Builder setMaxSplitHeightPerStage(Long value);
+
     public abstract RangeClassifierDoFn build();
   }
 }
@@ -56,6 +56,9 @@ final class RangeCountDoFn extends DoFn<Range, Range> implements Serializable {
 
   private final String countQuery;
 
+  /** Query to estimate the count of a range on timeout. Null if estimation is disabled. */
+  @Nullable private final String countEstimateQuery;
+
   private final long numColumns;
 
   @JsonIgnore private transient @Nullable DataSource dataSource;
@@ -66,10 +69,24 @@ final class RangeCountDoFn extends DoFn<Range, Range> implements Serializable {
       UniformSplitterDBAdapter dbAdapter,
       String tableNme,
       ImmutableList<String> partitionColumns) {
+    this(dataSourceProviderFn, timeoutMillis, dbAdapter, tableNme, partitionColumns, false);
+  }
+
+  RangeCountDoFn(
+      SerializableFunction<Void, DataSource> dataSourceProviderFn,
+      long timeoutMillis,
+      UniformSplitterDBAdapter dbAdapter,
+      String tableNme,
+      ImmutableList<String> partitionColumns,
+      boolean estimateCountOnTimeout) {
     this.dataSourceProviderFn = dataSourceProviderFn;
     this.timeoutMillis = timeoutMillis;
     this.dbAdapter = dbAdapter;
     this.countQuery = dbAdapter.getCountQuery(tableNme, partitionColumns, timeoutMillis);
+    this.countEstimateQuery =
+        estimateCountOnTimeout
+            ? dbAdapter.getCountEstimateQuery(tableNme, partitionColumns, timeoutMillis)
+            : null;
     this.numColumns = partitionColumns.size();
     this.dataSource = null;
   }
@@ -84,8 +101,8 @@ final class RangeCountDoFn extends DoFn<Range, Range> implements Serializable {
   }
 
   /**
-   * Count a Range with timeout. In case of timeout, the count of range is set as {@link
-   * Range#INDETERMINATE_COUNT}.
+   * Count a Range with timeout. In case of timeout, the count of range is estimated if estimation
+   * is enabled, and set as {@link Range#INDETERMINATE_COUNT} otherwise.
    *
    * @param input range.
    * @param out output receiver to get counted range.
@@ -132,6 +149,9 @@ final class RangeCountDoFn extends DoFn<Range, Range> implements Serializable {
             e,
             e.getSQLState(),
             e.getErrorCode());
+        if (countEstimateQuery != null) {
+          count = estimateCount(input);
+        }
       } else {
         logger.error(
             "Non-timeout SQL Exception while counting Range = {}, Query = {}, DataSource = {}, timeoutMillis = {}, exception {}, sqlState {}, errorCode {}",
@@ -164,6 +184,57 @@ final class RangeCountDoFn extends DoFn<Range, Range> implements Serializable {
     out.output(output); // Output the counted Range.
   }
 
+  /**
+   * Estimate the count of a range whose exact count timed out. A range skewed enough to time out is
+   * the one that most needs further splitting, which an indeterminate count would prevent.
+   *
+   * @param input range.
+   * @return estimated count, or {@link Range#INDETERMINATE_COUNT} if no positive estimate is
+   *     available.
+   */
+  private long estimateCount(Range input) {
+    try (Connection conn = acquireConnection()) {
+      PreparedStatement stmt =
+          conn.prepareStatement(
+              this.countEstimateQuery, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      stmt.setQueryTimeout((int) ((this.timeoutMillis + TIMEOUT_GRACE_MILLIS) / 1000));
+      new RangePreparedStatementSetter(numColumns).setParameters(input, stmt);
+      ResultSet rs = stmt.executeQuery();
+      if (rs.next()) {
+        long estimate = rs.getLong(UniformSplitterDBAdapter.COUNT_ESTIMATE_COLUMN);
+        // A range whose count timed out is not empty. A sample can still miss all of its rows when
+        // they are clustered in a few pages, and a zero estimate would let the range be merged as
+        // if it were empty, so it is treated as no estimate.
+        if (!rs.wasNull() && estimate > 0) {
+          logger.info(
+              "Estimated count of Range = {} as {} after count timeout, Query = {}",
+              input,
+              estimate,
+              countEstimateQuery);
+          return estimate;
+        }
+      }
+      logger.warn(
+          "Got empty, null or zero count estimate. Range = {}, Query = {}, DataSource = {}",
+          input,
+          countEstimateQuery,
+          dataSource);
+    } catch (SQLException e) {
+      logger.warn(
+          "SQL Exception while estimating count of Range = {}, Query = {}, DataSource = {}, exception {}, sqlState {}, errorCode {}",
+          input,
+          countEstimateQuery,
+          dataSource,
+          e,
+          e.getSQLState(),
+          e.getErrorCode());
+    } catch (Exception e) {
+      // As with the count query, this indicates a programming error in preparing the statement.
+      throw new RuntimeException(e);
+    }
+    return Range.INDETERMINATE_COUNT;
+  }
+
   private boolean checkTimeout(SQLException e) {
     if (e instanceof SQLTimeoutException) {
       return true;
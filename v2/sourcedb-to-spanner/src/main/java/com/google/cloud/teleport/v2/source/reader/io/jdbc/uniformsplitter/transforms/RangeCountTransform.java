@@ -46,6 +46,9 @@ public abstract class RangeCountTransform extends PTransform<PCollection<Range>,
   /** Timeout of the count query in milliseconds. */
   abstract long timeoutMillis();
 
+  /** If true, a range whose count times out is given an estimated count. */
+  abstract boolean estimateCountOnTimeout();
+
   /** Name of the table. */
   abstract String tableName();
 
@@ -65,7 +68,8 @@ public abstract class RangeCountTransform extends PTransform<PCollection<Range>,
                 timeoutMillis(),
                 dbAdapter(),
                 tableName(),
-                partitionColumns()));
+                partitionColumns(),
+                estimateCountOnTimeout()));
 
     if (boundaryTypeMapper() != null) {
       parDo = parDo.withSideInputs(boundaryTypeMapper().getCollationMapperView());
@@ -74,7 +78,7 @@ public abstract class RangeCountTransform extends PTransform<PCollection<Range>,
   }
 
   public static Builder builder() {
-    return new AutoValue_RangeCountTransform.Builder();
+    return new AutoValue_RangeCountTransform.Builder().setEstimateCountOnTimeout(false);
   }
 
   @AutoValue.Builder
@@ -86,6 +90,8 @@ public abstract class RangeCountTransform extends PTransform<PCollection<Range>,
 
     public abstract Builder setTimeoutMillis(long value);
 
+    public abstract Builder setEstimateCountOnTimeout(boolean value);
+
     public abstract Builder setTableName(String value);
 
     public abstract Builder setPartitionColumns(ImmutableList<String> value);
@@ -61,6 +61,9 @@ public abstract class ReadWithUniformPartitions<T> extends PTransform<PBegin, PC
   public static final long SPLITTER_MAX_RELATIVE_DEVIATION = 1;
   private static final long SPLITTER_DEFAULT_COUNT_QUERY_TIMEOUT_MILLIS = 5 * 1000;
 
+  /* A range that is 8 or more times the mean gets split into 8 ranges in a single stage. */
+  private static final long SPLITTER_DEFAULT_MAX_SPLIT_HEIGHT_PER_STAGE = 3;
+
   /**
    * Auto Inference of max partitions similar to <a
    * href=https://github.com/apache/beam/blob/b50ad0fe8fc168eaded62efb08f19cf2aea341e2/sdks/java/io/jdbc/src/main/java/org/apache/beam/sdk/io/jdbc/JdbcIO.java#L1398>JDBCIO#readWithPartitions</a>
@@ -125,6 +128,29 @@ public abstract class ReadWithUniformPartitions<T> extends PTransform<PBegin, PC
    */
   abstract long countQueryTimeoutMillis();
 
+  /**
+   * If true, a range whose count query times out is given an estimated count from {@link
+   * UniformSplitterDBAdapter#getCountEstimateQuery(String, ImmutableList, long)}, so that it can
+   * still be split. Estimates are approximate, so this is off unless enabled. Defaults to false.
+   */
+  abstract Boolean estimateCountOnTimeout();
+
+  /**
+   * If not null, ranges are split until each range has at most about this many rows, and merged
+   * only up to this many rows. This bounds the size of the largest partition for tables where the
+   * max partitions hint alone gives partitions that are too large. Defaults to null.
+   */
+  @Nullable
+  abstract Long maxRowsPerPartition();
+
+  /**
+   * Maximum number of times a range is halved in a single split stage. Ranges much larger than the
+   * mean, as seen with skewed or clustered keys, are split into up to 2^maxSplitHeightPerStage
+   * ranges per stage instead of 2. Defaults to {@link
+   * ReadWithUniformPartitions#SPLITTER_DEFAULT_MAX_SPLIT_HEIGHT_PER_STAGE}.
+   */
+  abstract Long maxSplitHeightPerStage();
+
   /**
    * Hint for number of initial split of ranges. Defaults to {@link
    * ReadWithUniformPartitions#maxPartitionsHint()}.
@@ -208,6 +234,7 @@ public abstract class ReadWithUniformPartitions<T> extends PTransform<PBegin, PC
                         .setMaxPartitionHint(maxPartitionsHint())
                         .setAutoAdjustMaxPartitions(autoAdjustMaxPartitions())
                         .setTableName(tableName())
+                        .setMaxRowsPerPartition(maxRowsPerPartition())
                         .build())
                 .withSideInputs(typeMapper.getCollationMapperView()));
     PCollection<Range> rangesToRead =
@@ -232,6 +259,9 @@ public abstract class ReadWithUniformPartitions<T> extends PTransform<PBegin, PC
   public static <T> Builder<T> builder() {
     return new AutoValue_ReadWithUniformPartitions.Builder<T>()
         .setCountQueryTimeoutMillis(SPLITTER_DEFAULT_COUNT_QUERY_TIMEOUT_MILLIS)
+        .setEstimateCountOnTimeout(false)
+        .setMaxRowsPerPartition(null)
+        .setMaxSplitHeightPerStage(SPLITTER_DEFAULT_MAX_SPLIT_HEIGHT_PER_STAGE)
         .setDbParallelizationForSplitProcess(null)
         .setDbParallelizationForReads(null)
         .setAutoAdjustMaxPartitions(true);
@@ -309,6 +339,8 @@ public abstract class ReadWithUniformPartitions<T> extends PTransform<PBegin, PC
             .setAutoAdjustMaxPartitions(autoAdjustMaxPartitions())
             .setPartitionColumns(partitionColumns())
             .setStageIdx(stageIdx)
+            .setMaxRowsPerPartition(maxRowsPerPartition())
+            .setMaxSplitHeightPerStage(maxSplitHeightPerStage())
             .build();
 
     RangeCountTransform rangeCountTransform =
@@ -322,6 +354,7 @@ public abstract class ReadWithUniformPartitions<T> extends PTransform<PBegin, PC
             .setBoundaryTypeMapper(typeMapper)
             .setTableName(tableName())
             .setTimeoutMillis(countQueryTimeoutMillis())
+            .setEstimateCountOnTimeout(estimateCountOnTimeout())
             .build();
 
     RangeBoundaryTransform rangeBoundaryTransform =
@@ -423,6 +456,15 @@ public abstract class ReadWithUniformPartitions<T> extends PTransform<PBegin, PC
 
     public abstract Builder<T> setCountQueryTimeoutMillis(long value);
 
+    public abstract Builder<T> setEstimateCountOnTimeout(Boolean value);
+
+    public abstract Builder<T> setMaxRowsPerPartition(@Nullable Long value);
+
+    @Nullable
+    abstract Long maxRowsPerPartition();
+
+    public abstract Builder<T> setMaxSplitHeightPerStage(Long value);
+
     public abstract Builder<T> setTableName(String value);
 
     public abstract Builder<T> setPartitionColumns(ImmutableList<PartitionColumn> value);
@@ -485,10 +527,16 @@ public abstract class ReadWithUniformPartitions<T> extends PTransform<PBegin, PC
        * Current benchmarking suggests that reducing stages is better from overhead pov.
        */
       if (!splitStageCountHint().isPresent()) {
+        long targetPartitions = maxPartitionsHint;
+        if (maxRowsPerPartition() != null) {
+          // Provision enough stages to reach the row cap on every partition.
+          targetPartitions =
+              Math.max(
+                  targetPartitions,
+                  (approxTotalRowCount() + maxRowsPerPartition() - 1) / maxRowsPerPartition());
+        }
         Long splitHeightHint =
-            logToBaseTwo(maxPartitionsHint)
-                + partitionColumns().size()
-                + 1 /* For initial counts */;
+            logToBaseTwo(targetPartitions) + partitionColumns().size() + 1 /* For initial counts */;
         setSplitStageCountHint(splitHeightHint);
       }
 
@@ -38,14 +38,13 @@ import org.apache.avro.io.EncoderFactory;
  * <p><b>Note:</b>
  *
  * <ol>
- *   <li>Based on benchmarking results, this can be further enhanced to have a singleton schema
- *       registry and encode only the hash of the schema in the serialization.
+ *   <li>Java serialization has no shared context to resolve a schema from, so the schema is still
+ *       written with every record. PCollections of {@link SourceRow} should use {@link
+ *       SourceRowCoder}, which encodes only the fingerprint of the schema.
  *   <li>This can't be made as an {@link com.google.auto.value.AutoValue} class, as they are not
  *       mutable and do not support custom serializations.
  * </ol>
  */
-// TODO(vardhanvthigle): Explore using a coder instead and avoid having an extra encapsulating
-// class.
 class SerializableGenericRecord implements Serializable {
   private GenericRecord record;
 
@@ -79,10 +78,11 @@ class SerializableGenericRecord implements Serializable {
    * @throws IOException exception due to any problem with OutputStream.
    */
   private void writeObject(java.io.ObjectOutputStream out) throws IOException {
-    out.writeObject(this.getRecord().getSchema());
-    // TODO: Check if reuse can help with performance.
+    SourceRowSchemaRegistry.Entry entry =
+        SourceRowSchemaRegistry.register(this.getRecord().getSchema());
+    out.writeObject(entry.schema());
     BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
-    new GenericDatumWriter<>(this.getRecord().getSchema()).write(this.getRecord(), encoder);
+    entry.writer().write(this.getRecord(), encoder);
     encoder.flush();
   }
 
@@ -95,10 +95,10 @@ class SerializableGenericRecord implements Serializable {
    * @throws ClassNotFoundException Corrupted input, probably missing schema.
    */
   private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
-    Schema schema = (Schema) in.readObject();
-    // TODO: Check if reuse can help with performance.
+    SourceRowSchemaRegistry.Entry entry =
+        SourceRowSchemaRegistry.register((Schema) in.readObject());
     BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(in, null);
-    GenericRecord record = (new GenericDatumReader<GenericRecord>(schema)).read(null, decoder);
+    GenericRecord record = entry.reader().read(null, decoder);
     this.setRecord(record);
   }
 
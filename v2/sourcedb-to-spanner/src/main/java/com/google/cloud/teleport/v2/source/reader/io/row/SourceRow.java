@@ -111,6 +111,25 @@ public abstract class SourceRow implements Serializable {
     return builder;
   }
 
+  /**
+   * Create a {@link SourceRow} from an already built record. Used by {@link SourceRowCoder} while
+   * decoding.
+   */
+  static SourceRow create(
+      SourceSchemaReference sourceSchemaReference,
+      String tableSchemaUUID,
+      String tableName,
+      String shardId,
+      GenericRecord record) {
+    return new AutoValue_SourceRow.Builder()
+        .setSourceSchemaReference(sourceSchemaReference)
+        .setTableSchemaUUID(tableSchemaUUID)
+        .setTableName(tableName)
+        .setShardId(shardId)
+        .setRecord(new SerializableGenericRecord(record))
+        .autoBuild();
+  }
+
   @AutoValue.Builder
   public abstract static class Builder {
     @SuppressWarnings("CheckReturnValue")
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.source.reader.io.row;
+
+import com.google.cloud.teleport.v2.source.reader.io.schema.SourceSchema;
+import com.google.cloud.teleport.v2.source.reader.io.schema.SourceSchemaReference;
+import com.google.cloud.teleport.v2.source.reader.io.schema.SourceTableSchema;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.beam.sdk.coders.ByteCoder;
+import org.apache.beam.sdk.coders.CoderException;
+import org.apache.beam.sdk.coders.CustomCoder;
+import org.apache.beam.sdk.coders.NullableCoder;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.coders.VarLongCoder;
+
+/**
+ * A {@link org.apache.beam.sdk.coders.Coder} for {@link SourceRow} that avoids encoding the Avro
+ * schema with every row.
+ *
+ * <p>The coder is constructed with the table schemas discovered at pipeline construction. For rows
+ * of those tables, only the 64-bit fingerprint of the Avro schema is encoded, followed by the
+ * binary Avro payload. The schema itself is resolved through {@link SourceRowSchemaRegistry}, which
+ * also caches the datum reader and writer for the schema on every worker. Rows with a schema the
+ * coder was not constructed with still encode correctly, by carrying the schema inline.
+ */
+public class SourceRowCoder extends CustomCoder<SourceRow> {
+
+  private static final byte FINGERPRINT_ONLY = 0;
+  private static final byte INLINE_SCHEMA = 1;
+
+  private static final StringUtf8Coder STRING_CODER = StringUtf8Coder.of();
+  private static final NullableCoder<String> NULLABLE_STRING_CODER =
+      NullableCoder.of(StringUtf8Coder.of());
+  private static final VarLongCoder FINGERPRINT_CODER = VarLongCoder.of();
+  private static final ByteCoder TAG_CODER = ByteCoder.of();
+
+  private final ImmutableList<String> knownSchemas;
+
+  // Derived from knownSchemas on first use on every worker.
+  private transient volatile Set<Long> knownFingerprints;
+
+  private SourceRowCoder(ImmutableList<String> knownSchemas) {
+    this.knownSchemas = knownSchemas;
+  }
+
+  /**
+   * Create a {@link SourceRowCoder} for the rows of the tables in a {@link SourceSchema}.
+   *
+   * @param sourceSchema schema of the tables being read.
+   * @return coder.
+   */
+  public static SourceRowCoder of(SourceSchema sourceSchema) {
+    return new SourceRowCoder(
+        sourceSchema.tableSchemas().stream()
+            .map(SourceTableSchema::avroSchema)
+            .map(Schema::toString)
+            .collect(ImmutableList.toImmutableList()));
+  }
+
+  @Override
+  public void encode(SourceRow value, OutputStream outStream) throws IOException {
+    SourceSchemaReference schemaReference = value.sourceSchemaReference();
+    STRING_CODER.encode(schemaReference.dbName(), outStream);
+    NULLABLE_STRING_CODER.encode(schemaReference.namespace(), outStream);
+    STRING_CODER.encode(value.tableSchemaUUID(), outStream);
+    STRING_CODER.encode(value.tableName(), outStream);
+    NULLABLE_STRING_CODER.encode(value.shardId(), outStream);
+
+    GenericRecord record = value.record().getRecord();
+    SourceRowSchemaRegistry.Entry entry = SourceRowSchemaRegistry.register(record.getSchema());
+    if (getKnownFingerprints().contains(entry.fingerprint())) {
+      TAG_CODER.encode(FINGERPRINT_ONLY, outStream);
+      FINGERPRINT_CODER.encode(entry.fingerprint(), outStream);
+    } else {
+      TAG_CODER.encode(INLINE_SCHEMA, outStream);
+      STRING_CODER.encode(entry.schema().toString(), outStream);
+    }
+    BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(outStream, null);
+    entry.writer().write(record, encoder);
+    encoder.flush();
+  }
+
+  @Override
+  public SourceRow decode(InputStream inStream) throws IOException {
+    SourceSchemaReference schemaReference =
+        SourceSchemaReference.builder()
+            .setDbName(STRING_CODER.decode(inStream))
+            .setNamespace(NULLABLE_STRING_CODER.decode(inStream))
+            .build();
+    String tableSchemaUUID = STRING_CODER.decode(inStream);
+    String tableName = STRING_CODER.decode(inStream);
+    String shardId = NULLABLE_STRING_CODER.decode(inStream);
+
+    SourceRowSchemaRegistry.Entry entry;
+    byte tag = TAG_CODER.decode(inStream);
+    if (tag == FINGERPRINT_ONLY) {
+      long fingerprint = FINGERPRINT_CODER.decode(inStream);
+      // Make sure the schemas this coder carries are registered on this worker.
+      getKnownFingerprints();
+      entry = SourceRowSchemaRegistry.lookup(fingerprint);
+      if (entry == null) {
+        throw new CoderException(
+            String.format("Unknown schema fingerprint %d for table %s", fingerprint, tableName));
+      }
+    } else if (tag == INLINE_SCHEMA) {
+      entry =
+          SourceRowSchemaRegistry.register(
+              new Schema.Parser().parse(STRING_CODER.decode(inStream)));
+    } else {
+      throw new CoderException(String.format("Unknown schema tag %d for table %s", tag, tableName));
+    }
+    BinaryDecoder decoder = DecoderFactory.get().directBinaryDecoder(inStream, null);
+    GenericRecord record = entry.reader().read(null, decoder);
+
+    return SourceRow.create(schemaReference, tableSchemaUUID, tableName, shardId, record);
+  }
+
+  @Override
+  public void verifyDeterministic() throws NonDeterministicException {
+    throw new NonDeterministicException(
+        this, "Avro binary encoding of generic records is not guaranteed to be deterministic.");
+  }
+
+  /**
+   * Registers the schemas this coder was constructed with on the current worker and returns their
+   * fingerprints.
+   */
+  private Set<Long> getKnownFingerprints() {
+    Set<Long> fingerprints = knownFingerprints;
+    if (fingerprints == null) {
+      fingerprints =
+          knownSchemas.stream()
+              .map(schema -> SourceRowSchemaRegistry.register(new Schema.Parser().parse(schema)))
+              .map(SourceRowSchemaRegistry.Entry::fingerprint)
+              .collect(Collectors.toSet());
+      knownFingerprints = fingerprints;
+    }
+    return fingerprints;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof SourceRowCoder)) {
+      return false;
+    }
+    return knownSchemas.equals(((SourceRowCoder) o).knownSchemas);
+  }
+
+  @Override
+  public int hashCode() {
+    return knownSchemas.hashCode();
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.source.reader.io.row;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+
+/**
+ * Per-worker registry of the Avro schemas carried by {@link SourceRow}, keyed by a 64-bit
+ * fingerprint of their full JSON form. Unlike the parsing fingerprint, this keeps schemas that
+ * differ only in logical types or properties apart.
+ *
+ * <p>The registry also caches a {@link GenericDatumWriter} and {@link GenericDatumReader} for every
+ * schema, so that encoding and decoding a row does not have to build them again. Both are safe to
+ * share across threads.
+ */
+final class SourceRowSchemaRegistry {
+
+  private static final ConcurrentHashMap<Schema, Entry> BY_SCHEMA = new ConcurrentHashMap<>();
+  private static final ConcurrentHashMap<Long, Entry> BY_FINGERPRINT = new ConcurrentHashMap<>();
+
+  private SourceRowSchemaRegistry() {}
+
+  /**
+   * Registers a schema, if not already registered.
+   *
+   * @param schema avro schema of the row.
+   * @return registry entry for the schema.
+   */
+  static Entry register(Schema schema) {
+    Entry entry = BY_SCHEMA.get(schema);
+    if (entry != null) {
+      return entry;
+    }
+    return BY_SCHEMA.computeIfAbsent(
+        schema,
+        s ->
+            BY_FINGERPRINT.computeIfAbsent(
+                SchemaNormalization.fingerprint64(s.toString().getBytes(StandardCharsets.UTF_8)),
+                f -> new Entry(s, f)));
+  }
+
+  /**
+   * Looks up a previously registered schema by its fingerprint.
+   *
+   * @param fingerprint fingerprint of the schema.
+   * @return registry entry for the schema, or null if the schema is not known on this worker.
+   */
+  @Nullable
+  static Entry lookup(long fingerprint) {
+    return BY_FINGERPRINT.get(fingerprint);
+  }
+
+  /** A registered schema along with its fingerprint and cached datum reader and writer. */
+  static final class Entry {
+    private final Schema schema;
+    private final long fingerprint;
+    private final GenericDatumWriter<GenericRecord> writer;
+    private final GenericDatumReader<GenericRecord> reader;
+
+    private Entry(Schema schema, long fingerprint) {
+      this.schema = schema;
+      this.fingerprint = fingerprint;
+      this.writer = new GenericDatumWriter<>(schema);
+      this.reader = new GenericDatumReader<>(schema);
+    }
+
+    Schema schema() {
+      return schema;
+    }
+
+    long fingerprint() {
+      return fingerprint;
+    }
+
+    GenericDatumWriter<GenericRecord> writer() {
+      return writer;
+    }
+
+    GenericDatumReader<GenericRecord> reader() {
+      return reader;
+    }
+  }
+}
@@ -21,6 +21,8 @@ import com.google.cloud.teleport.v2.source.reader.io.schema.SourceTableReference
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import java.util.Map.Entry;
+import javax.annotation.Nullable;
+import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.transforms.Count;
 import org.apache.beam.sdk.transforms.Flatten;
 import org.apache.beam.sdk.transforms.MapElements;
@@ -46,6 +48,9 @@ abstract class AccumulatingTableReader extends PTransform<PBegin, PCollectionTup
 
   public abstract TupleTag<SourceTableReference> sourceTableReferenceTag();
 
+  @Nullable
+  public abstract Coder<SourceRow> sourceRowCoder();
+
   @Override
   public PCollectionTuple expand(PBegin input) {
     ImmutableMap<SourceTableReference, PCollection<SourceRow>> tablePCollections =
@@ -53,11 +58,14 @@ abstract class AccumulatingTableReader extends PTransform<PBegin, PCollectionTup
             .collect(
                 ImmutableMap.toImmutableMap(
                     Entry::getKey,
-                    e -> input.apply("SourceRowReader." + e.getKey().getName(), e.getValue())));
+                    e ->
+                        withSourceRowCoder(
+                            input.apply("SourceRowReader." + e.getKey().getName(), e.getValue()))));
     PCollection<SourceRow> sourceRowPCollection =
-        PCollectionList.of(tablePCollections.values())
-            /* Flatten SourceRows read from all the tables into a single PCollection */
-            .apply("SourceRowCollector", Flatten.<SourceRow>pCollections());
+        withSourceRowCoder(
+            PCollectionList.of(tablePCollections.values())
+                /* Flatten SourceRows read from all the tables into a single PCollection */
+                .apply("SourceRowCollector", Flatten.<SourceRow>pCollections()));
 
     PCollection<SourceTableReference> tableCompletions =
         PCollectionList.of(
@@ -83,6 +91,18 @@ abstract class AccumulatingTableReader extends PTransform<PBegin, PCollectionTup
         .and(this.sourceTableReferenceTag(), tableCompletions);
   }
 
+  /**
+   * Set the {@link #sourceRowCoder()}, if one is provided, on a collection of source rows. Without
+   * it, Beam infers a {@link org.apache.beam.sdk.coders.SerializableCoder} which writes the Avro
+   * schema along with every row.
+   */
+  private PCollection<SourceRow> withSourceRowCoder(PCollection<SourceRow> sourceRows) {
+    if (this.sourceRowCoder() != null) {
+      sourceRows.setCoder(this.sourceRowCoder());
+    }
+    return sourceRows;
+  }
+
   static Builder builder(
       TupleTag<SourceRow> sourceRowTag, TupleTag<SourceTableReference> sourceTableReferenceTag) {
     Builder builder = new AutoValue_AccumulatingTableReader.Builder();
@@ -99,6 +119,8 @@ abstract class AccumulatingTableReader extends PTransform<PBegin, PCollectionTup
 
     abstract Builder setSourceTableReferenceTag(TupleTag<SourceTableReference> sourceRowTag);
 
+    abstract Builder setSourceRowCoder(Coder<SourceRow> sourceRowCoder);
+
     Builder withTableReader(
         SourceTableReference sourceTableReference,
         PTransform<PBegin, PCollection<SourceRow>> tableReader) {
@@ -22,6 +22,7 @@ import com.google.cloud.teleport.v2.source.reader.ReaderImpl;
 import com.google.cloud.teleport.v2.source.reader.io.jdbc.iowrapper.JdbcIoWrapper;
 import com.google.cloud.teleport.v2.source.reader.io.jdbc.iowrapper.config.SQLDialect;
 import com.google.cloud.teleport.v2.spanner.ddl.Ddl;
+import com.google.cloud.teleport.v2.spanner.ddl.DdlSnapshotCache;
 import com.google.cloud.teleport.v2.spanner.migrations.exceptions.InvalidOptionsException;
 import com.google.cloud.teleport.v2.spanner.migrations.schema.ISchemaMapper;
 import com.google.cloud.teleport.v2.spanner.migrations.schema.IdentityMapper;
@@ -36,7 +37,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.Set;
 import java.util.stream.Collectors;
 import org.apache.beam.repackaged.core.org.apache.commons.lang3.StringUtils;
 import org.apache.beam.sdk.Pipeline;
@@ -61,65 +61,29 @@ public class PipelineController {
   static PipelineResult executeSingleInstanceMigration(
       SourceDbToSpannerOptions options, Pipeline pipeline, SpannerConfig spannerConfig) {
 
-    Ddl ddl = SpannerSchema.getInformationSchemaAsDdl(spannerConfig);
+    Ddl ddl =
+        SpannerSchema.getInformationSchemaAsDdl(
+            spannerConfig, DdlSnapshotCache.inDirectory(options.getSchemaSnapshotDirectory()));
     ISchemaMapper schemaMapper = PipelineController.getSchemaMapper(options, ddl);
 
     List<String> tablesToMigrate =
         PipelineController.listTablesToMigrate(options.getTables(), schemaMapper, ddl);
-    Set<String> tablesToMigrateSet = new HashSet<>(tablesToMigrate);
-
-    // This list is all Spanner tables topologically ordered.
-    List<String> orderedSpTables = ddl.getTablesOrderedByReference();
+    TableDependencyGraph dependencyGraph =
+        TableDependencyGraph.of(ddl, schemaMapper, new HashSet<>(tablesToMigrate));
+    long maxConnections =
+        dependencyGraph.connectionsPerTable(
+            options.getMaxConnections(), options.getSourceConnectionBudget(), 1);
 
     Map<String, PCollection<Void>> outputs = new HashMap<>();
 
-    for (String spTable : orderedSpTables) {
-      String srcTable = schemaMapper.getSourceTableName("", spTable);
-      if (!tablesToMigrateSet.contains(srcTable)) {
-        continue;
-      }
-      List<PCollection<?>> parentOutputs = new ArrayList<>();
-      for (String parentSpTable : ddl.tablesReferenced(spTable)) {
-        String parentSrcName;
-        try {
-          parentSrcName = schemaMapper.getSourceTableName("", parentSpTable);
-        } catch (NoSuchElementException e) {
-          // This will occur when the spanner table name does not exist in source for
-          // sessionBasedMapper.
-          LOG.warn(
-              spTable
-                  + " references table "
-                  + parentSpTable
-                  + " which does not have an equivalent source table. Writes to "
-                  + spTable
-                  + " could fail, check DLQ for failed records.");
-          continue;
-        }
-        // This parent is not in tables selected for migration.
-        if (!tablesToMigrateSet.contains(parentSrcName)) {
-          LOG.warn(
-              spTable
-                  + " references table "
-                  + parentSpTable
-                  + " which is not selected for migration (Provide the source table name "
-                  + parentSrcName
-                  + " via the 'tables' option if this is a mistake!). Writes to "
-                  + spTable
-                  + " could fail, check DLQ for failed records.");
-          continue;
-        }
-        PCollection<Void> parentOutputPcollection = outputs.get(parentSrcName);
-        // Since we are iterating the tables topologically, all parents should have been processed.
-        Preconditions.checkState(
-            parentOutputPcollection != null,
-            "Output PCollection for parent table should not be null.");
-        parentOutputs.add(parentOutputPcollection);
-      }
+    // Each table waits only on the tables it directly references.
+    for (String srcTable : dependencyGraph.orderedTables()) {
+      List<PCollection<?>> parentOutputs = getParentOutputs(dependencyGraph, srcTable, outputs);
       ReaderImpl reader =
           ReaderImpl.of(
               JdbcIoWrapper.of(
                   OptionsToConfigBuilder.getJdbcIOWrapperConfigWithDefaults(
-                      options, List.of(srcTable), null, Wait.on(parentOutputs))));
+                      options, List.of(srcTable), null, Wait.on(parentOutputs), maxConnections)));
       String suffix = generateSuffix("", srcTable);
       String shardIdColumn = "";
       PCollection<Void> output =
@@ -139,6 +103,25 @@ public class PipelineController {
     return pipeline.run();
   }
 
+  /**
+   * Outputs of the migrations of the tables directly referenced by a table. Since tables are
+   * iterated in the dependency order, all the parents should have been processed.
+   */
+  private static List<PCollection<?>> getParentOutputs(
+      TableDependencyGraph dependencyGraph,
+      String srcTable,
+      Map<String, PCollection<Void>> outputs) {
+    List<PCollection<?>> parentOutputs = new ArrayList<>();
+    for (String parentSrcName : dependencyGraph.parents(srcTable)) {
+      PCollection<Void> parentOutputPcollection = outputs.get(parentSrcName);
+      Preconditions.checkState(
+          parentOutputPcollection != null,
+          "Output PCollection for parent table should not be null.");
+      parentOutputs.add(parentOutputPcollection);
+    }
+    return parentOutputs;
+  }
+
   private static String generateSuffix(String shardId, String tableName) {
     String suffix = "";
     if (!StringUtils.isEmpty(shardId)) {
@@ -162,14 +145,21 @@ public class PipelineController {
     // Write to common DLQ ?
 
     SQLDialect sqlDialect = SQLDialect.valueOf(options.getSourceDbDialect());
-    Ddl ddl = SpannerSchema.getInformationSchemaAsDdl(spannerConfig);
+    Ddl ddl =
+        SpannerSchema.getInformationSchemaAsDdl(
+            spannerConfig, DdlSnapshotCache.inDirectory(options.getSchemaSnapshotDirectory()));
     ISchemaMapper schemaMapper = PipelineController.getSchemaMapper(options, ddl);
 
     List<String> tablesToMigrate =
         PipelineController.listTablesToMigrate(options.getTables(), schemaMapper, ddl);
-    Set<String> tablesToMigrateSet = new HashSet<>(tablesToMigrate);
-    // This list is all Spanner tables topologically ordered.
-    List<String> orderedSpTables = ddl.getTablesOrderedByReference();
+    TableDependencyGraph dependencyGraph =
+        TableDependencyGraph.of(ddl, schemaMapper, new HashSet<>(tablesToMigrate));
+    // Every database of every shard is read at the same time, so they share the budget.
+    int numSources =
+        shards.stream().mapToInt(shard -> shard.getDbNameToLogicalShardIdMap().size()).sum();
+    long maxConnections =
+        dependencyGraph.connectionsPerTable(
+            options.getMaxConnections(), options.getSourceConnectionBudget(), numSources);
 
     LOG.info(
         "running migration for shards: {}",
@@ -179,52 +169,29 @@ public class PipelineController {
         // Read data from source
         String shardId = entry.getValue();
         Map<String, PCollection<Void>> outputs = new HashMap<>();
-        for (String spTable : orderedSpTables) {
-          String srcTable = schemaMapper.getSourceTableName("", spTable);
-          if (!tablesToMigrateSet.contains(srcTable)) {
-            continue;
-          }
-          List<PCollection<?>> parentOutputs = new ArrayList<>();
-          for (String parentSpTable : ddl.tablesReferenced(spTable)) {
-            String parentSrcName;
-            try {
-              parentSrcName = schemaMapper.getSourceTableName("", parentSpTable);
-            } catch (NoSuchElementException e) {
-              // This will occur when the spanner table name does not exist in source for
-              // sessionBasedMapper.
-              continue;
-            }
-            // This parent is not in tables selected for migration.
-            if (!tablesToMigrateSet.contains(parentSrcName)) {
-              continue;
-            }
-            PCollection<Void> parentOutputPcollection = outputs.get(parentSrcName);
-            // Since we are iterating the tables topologically, all parents should have been
-            // processed.
-            Preconditions.checkState(
-                parentOutputPcollection != null,
-                "Output PCollection for parent table should not be null.");
-            parentOutputs.add(parentOutputPcollection);
-          }
+        for (String srcTable : dependencyGraph.orderedTables()) {
+          List<PCollection<?>> parentOutputs = getParentOutputs(dependencyGraph, srcTable, outputs);
           ReaderImpl reader =
               ReaderImpl.of(
                   JdbcIoWrapper.of(
-                      OptionsToConfigBuilder.getJdbcIOWrapperConfig(
-                          sqlDialect,
-                          List.of(srcTable),
-                          null,
-                          shard.getHost(),
-                          shard.getConnectionProperties(),
-                          Integer.parseInt(shard.getPort()),
-                          shard.getUserName(),
-                          shard.getPassword(),
-                          entry.getKey(),
-                          shardId,
-                          options.getJdbcDriverClassName(),
-                          options.getJdbcDriverJars(),
-                          options.getMaxConnections(),
-                          options.getNumPartitions(),
-                          Wait.on(parentOutputs))));
+                      OptionsToConfigBuilder.withPartitioningOptions(
+                          OptionsToConfigBuilder.getJdbcIOWrapperConfig(
+                              sqlDialect,
+                              List.of(srcTable),
+                              null,
+                              shard.getHost(),
+                              shard.getConnectionProperties(),
+                              Integer.parseInt(shard.getPort()),
+                              shard.getUserName(),
+                              shard.getPassword(),
+                              entry.getKey(),
+                              shardId,
+                              options.getJdbcDriverClassName(),
+                              options.getJdbcDriverJars(),
+                              maxConnections,
+                              options.getNumPartitions(),
+                              Wait.on(parentOutputs)),
+                          options)));
           String suffix = generateSuffix(shardId, srcTable);
           String shardIdColumn =
               schemaMapper.getShardIdColumnName(
@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.templates;
+
+import com.google.cloud.teleport.v2.spanner.ddl.Ddl;
+import com.google.cloud.teleport.v2.spanner.migrations.schema.ISchemaMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dependency DAG of the source tables selected for migration, derived from the interleaving and
+ * foreign keys of the Spanner schema.
+ *
+ * <p>A table only has to wait for the tables it directly references. Any set of tables none of
+ * which depends on another, directly or not, can read from the source at the same time, whatever
+ * their depth. The largest such set bounds the number of concurrent table readers, which is used to
+ * split a shared connection budget.
+ */
+final class TableDependencyGraph {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TableDependencyGraph.class);
+
+  /** Source tables in an order where every table comes after the tables it references. */
+  private final ImmutableList<String> orderedTables;
+
+  /** Source tables directly referenced by each source table, restricted to migrated tables. */
+  private final ImmutableMap<String, ImmutableList<String>> parents;
+
+  /** Length of the longest dependency chain above each source table. */
+  private final ImmutableMap<String, Integer> depths;
+
+  /** Largest number of tables none of which depends on another. */
+  private final int maxConcurrentTables;
+
+  private TableDependencyGraph(
+      ImmutableList<String> orderedTables,
+      ImmutableMap<String, ImmutableList<String>> parents,
+      ImmutableMap<String, Integer> depths,
+      int maxConcurrentTables) {
+    this.orderedTables = orderedTables;
+    this.parents = parents;
+    this.depths = depths;
+    this.maxConcurrentTables = maxConcurrentTables;
+  }
+
+  /**
+   * Build the dependency graph for the given source tables.
+   *
+   * @param ddl Spanner schema.
+   * @param schemaMapper mapper between source and Spanner table names.
+   * @param tablesToMigrate source tables selected for migration.
+   * @return dependency graph.
+   */
+  static TableDependencyGraph of(Ddl ddl, ISchemaMapper schemaMapper, Set<String> tablesToMigrate) {
+    ImmutableList.Builder<String> orderedTables = ImmutableList.builder();
+    Map<String, ImmutableList<String>> parents = new HashMap<>();
+    Map<String, Integer> depths = new HashMap<>();
+
+    // Spanner tables are topologically ordered, so every parent is visited before its children.
+    for (String spTable : ddl.getTablesOrderedByReference()) {
+      String srcTable = schemaMapper.getSourceTableName("", spTable);
+      if (!tablesToMigrate.contains(srcTable)) {
+        continue;
+      }
+      Set<String> srcParents = new LinkedHashSet<>();
+      for (String parentSpTable : ddl.tablesReferenced(spTable)) {
+        String parentSrcName;
+        try {
+          parentSrcName = schemaMapper.getSourceTableName("", parentSpTable);
+        } catch (NoSuchElementException e) {
+          // This will occur when the spanner table name does not exist in source for
+          // sessionBasedMapper.
+          LOG.warn(
+              spTable
+                  + " references table "
+                  + parentSpTable
+                  + " which does not have an equivalent source table. Writes to "
+                  + spTable
+                  + " could fail, check DLQ for failed records.");
+          continue;
+        }
+        // This parent is not in tables selected for migration.
+        if (!tablesToMigrate.contains(parentSrcName)) {
+          LOG.warn(
+              spTable
+                  + " references table "
+                  + parentSpTable
+                  + " which is not selected for migration (Provide the source table name "
+                  + parentSrcName
+                  + " via the 'tables' option if this is a mistake!). Writes to "
+                  + spTable
+                  + " could fail, check DLQ for failed records.");
+          continue;
+        }
+        srcParents.add(parentSrcName);
+      }
+      int depth = 0;
+      for (String parent : srcParents) {
+        Integer parentDepth = depths.get(parent);
+        if (parentDepth == null) {
+          throw new IllegalStateException(
+              "Parent table " + parent + " of " + srcTable + " should have been visited first.");
+        }
+        depth = Math.max(depth, parentDepth + 1);
+      }
+      orderedTables.add(srcTable);
+      parents.put(srcTable, ImmutableList.copyOf(srcParents));
+      depths.put(srcTable, depth);
+    }
+
+    ImmutableList<String> ordered = orderedTables.build();
+    int maxConcurrentTables = maxConcurrentTables(ordered, parents);
+    LOG.info(
+        "Table dependency graph has {} tables, at most {} of which can be migrated concurrently",
+        ordered.size(),
+        maxConcurrentTables);
+    return new TableDependencyGraph(
+        ordered, ImmutableMap.copyOf(parents), ImmutableMap.copyOf(depths), maxConcurrentTables);
+  }
+
+  /**
+   * Size of the largest set of tables none of which depends on another, directly or not.
+   *
+   * <p>By Dilworth's theorem this is the smallest number of dependency chains covering all the
+   * tables, which is the number of tables less a maximum matching between each table and the tables
+   * that depend on it.
+   */
+  private static int maxConcurrentTables(
+      ImmutableList<String> orderedTables, Map<String, ImmutableList<String>> parents) {
+    int n = orderedTables.size();
+    Map<String, Integer> index = new HashMap<>();
+    for (int i = 0; i < n; i++) {
+      index.put(orderedTables.get(i), i);
+    }
+    // descendants[i] holds every table that depends on table i, directly or not. Children come
+    // after their parents in the order, so visiting it backwards completes children first.
+    BitSet[] descendants = new BitSet[n];
+    for (int i = 0; i < n; i++) {
+      descendants[i] = new BitSet(n);
+    }
+    for (int i = n - 1; i >= 0; i--) {
+      for (String parent : parents.get(orderedTables.get(i))) {
+        int p = index.get(parent);
+        descendants[p].set(i);
+        descendants[p].or(descendants[i]);
+      }
+    }
+    int[] matchedParent = new int[n];
+    Arrays.fill(matchedParent, -1);
+    int matching = 0;
+    for (int i = 0; i < n; i++) {
+      if (augment(i, descendants, matchedParent, new BitSet(n))) {
+        matching++;
+      }
+    }
+    return n - matching;
+  }
+
+  /** Looks for an augmenting path from table {@code i} in the matching of Kuhn's algorithm. */
+  private static boolean augment(int i, BitSet[] descendants, int[] matchedParent, BitSet visited) {
+    for (int j = descendants[i].nextSetBit(0); j >= 0; j = descendants[i].nextSetBit(j + 1)) {
+      if (visited.get(j)) {
+        continue;
+      }
+      visited.set(j);
+      if (matchedParent[j] < 0 || augment(matchedParent[j], descendants, matchedParent, visited)) {
+        matchedParent[j] = i;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Source tables ordered such that every table comes after the tables it references. */
+  ImmutableList<String> orderedTables() {
+    return orderedTables;
+  }
+
+  /** Migrated source tables directly referenced by a source table. */
+  ImmutableList<String> parents(String srcTable) {
+    return parents.getOrDefault(srcTable, ImmutableList.of());
+  }
+
+  /** Length of the longest dependency chain above a source table. Root tables have depth 0. */
+  int depth(String srcTable) {
+    return depths.get(srcTable);
+  }
+
+  /** Largest number of tables that may read from the source concurrently. */
+  int maxConcurrentTables() {
+    return maxConcurrentTables;
+  }
+
+  /**
+   * Maximum connections for the connection pool of each table reader.
+   *
+   * @param maxConnectionsPerTable connections configured per table. 0 takes the dialect default and
+   *     a negative value means no limit.
+   * @param connectionBudget connections shared by all the tables. 0 or less disables the budget.
+   * @param numSources number of source databases migrated at the same time, each with its own
+   *     readers for every table.
+   * @return connections for each table, with the same conventions as {@code
+   *     maxConnectionsPerTable}. Every reader gets at least one connection, so the budget is
+   *     exceeded when there are more concurrent readers than connections in it.
+   */
+  long connectionsPerTable(long maxConnectionsPerTable, long connectionBudget, int numSources) {
+    if (connectionBudget <= 0) {
+      return maxConnectionsPerTable;
+    }
+    long concurrentReaders = (long) Math.max(1, maxConcurrentTables) * Math.max(1, numSources);
+    long share = Math.max(1, connectionBudget / concurrentReaders);
+    return maxConnectionsPerTable > 0 ? Math.min(maxConnectionsPerTable, share) : share;
+  }
+
+  @Override
+  public String toString() {
+    List<String> edges = new ArrayList<>();
+    for (String table : orderedTables) {
+      edges.add(table + "<-" + parents(table));
+    }
+    return "TableDependencyGraph" + edges;
+  }
+}
@@ -17,7 +17,6 @@ package com.google.cloud.teleport.v2.transformer;
 
 import com.google.auto.value.AutoValue;
 import com.google.cloud.spanner.Mutation;
-import com.google.cloud.spanner.Value;
 import com.google.cloud.teleport.v2.constants.MetricCounters;
 import com.google.cloud.teleport.v2.constants.SourceDbToSpannerConstants;
 import com.google.cloud.teleport.v2.source.reader.io.row.SourceRow;
@@ -28,6 +27,7 @@ import com.google.cloud.teleport.v2.spanner.migrations.utils.CustomTransformatio
 import com.google.cloud.teleport.v2.spanner.utils.ISpannerMigrationTransformer;
 import com.google.cloud.teleport.v2.templates.RowContext;
 import java.io.Serializable;
+import java.util.HashMap;
 import java.util.Map;
 import javax.annotation.Nullable;
 import org.apache.avro.generic.GenericRecord;
@@ -52,8 +52,15 @@ public abstract class SourceRowToMutationDoFn extends DoFn<SourceRow, RowContext
   public void setSourceDbToSpannerTransformer(
       ISpannerMigrationTransformer sourceDbToSpannerTransformer) {
     this.sourceDbToSpannerTransformer = sourceDbToSpannerTransformer;
+    this.convertors = null;
   }
 
+  /**
+   * Convertors keyed by shard id. Each convertor caches the conversion plan of the tables it has
+   * seen, so the schema mapper is only consulted once per table rather than once per row.
+   */
+  private transient Map<String, GenericRecordTypeConvertor> convertors;
+
   private final Counter transformerErrors =
       Metrics.counter(SourceRowToMutationDoFn.class, MetricCounters.TRANSFORMER_ERRORS);
 
@@ -73,8 +80,8 @@ public abstract class SourceRowToMutationDoFn extends DoFn<SourceRow, RowContext
   /** Setup function to load custom transformation jars. */
   @Setup
   public void setup() {
-    sourceDbToSpannerTransformer =
-        CustomTransformationImplFetcher.getCustomTransformationLogicImpl(customTransformation());
+    setSourceDbToSpannerTransformer(
+        CustomTransformationImplFetcher.getCustomTransformationLogicImpl(customTransformation()));
   }
 
   @ProcessElement
@@ -86,12 +93,9 @@ public abstract class SourceRowToMutationDoFn extends DoFn<SourceRow, RowContext
       // TODO: update namespace in constructor when Spanner namespace support is added.
       GenericRecord record = sourceRow.getPayload();
       String srcTableName = sourceRow.tableName();
-      GenericRecordTypeConvertor genericRecordTypeConvertor =
-          new GenericRecordTypeConvertor(
-              iSchemaMapper(), "", sourceRow.shardId(), sourceDbToSpannerTransformer);
-      Map<String, Value> values =
-          genericRecordTypeConvertor.transformChangeEvent(record, srcTableName);
-      if (values == null) {
+      Mutation mutation =
+          getConvertor(sourceRow.shardId()).transformChangeEventToMutation(record, srcTableName);
+      if (mutation == null) {
         filteredEvents.inc();
         output
             .get(SourceDbToSpannerConstants.FILTERED_EVENT_TAG)
@@ -99,9 +103,6 @@ public abstract class SourceRowToMutationDoFn extends DoFn<SourceRow, RowContext
         return;
       }
 
-      String spannerTableName = iSchemaMapper().getSpannerTableName("", srcTableName);
-      // TODO: Move the mutation generation to writer. Create generic record here instead
-      Mutation mutation = mutationFromMap(spannerTableName, values);
       output
           .get(SourceDbToSpannerConstants.ROW_TRANSFORMATION_SUCCESS)
           .output(RowContext.builder().setRow(sourceRow).setMutation(mutation).build());
@@ -114,14 +115,13 @@ public abstract class SourceRowToMutationDoFn extends DoFn<SourceRow, RowContext
     }
   }
 
-  private Mutation mutationFromMap(String spannerTableName, Map<String, Value> values) {
-    Mutation.WriteBuilder builder = Mutation.newInsertOrUpdateBuilder(spannerTableName);
-    for (String spannerColName : values.keySet()) {
-      Value value = values.get(spannerColName);
-      if (value != null) {
-        builder.set(spannerColName).to(value);
-      }
+  private GenericRecordTypeConvertor getConvertor(String shardId) {
+    if (convertors == null) {
+      convertors = new HashMap<>();
     }
-    return builder.build();
+    return convertors.computeIfAbsent(
+        shardId,
+        id ->
+            new GenericRecordTypeConvertor(iSchemaMapper(), "", id, sourceDbToSpannerTransformer));
   }
 }
@@ -66,6 +66,23 @@ public class OptionsToConfigBuilderTest {
     assertThat(config.dbAuth().getUserName().get()).isEqualTo(testUser);
     assertThat(config.dbAuth().getPassword().get()).isEqualTo(testPassword);
     assertThat(config.waitOn()).isNotNull();
+    assertThat(config.maxRowsPerPartition()).isNull();
+    assertThat(config.estimateCountOnTimeout()).isFalse();
+  }
+
+  @Test
+  public void testConfigWithPartitioningOptions() {
+    SourceDbToSpannerOptions sourceDbToSpannerOptions =
+        PipelineOptionsFactory.as(SourceDbToSpannerOptions.class);
+    sourceDbToSpannerOptions.setSourceDbDialect(SQLDialect.POSTGRESQL.name());
+    sourceDbToSpannerOptions.setSourceConfigURL("jdbc:postgresql://localhost:5432/testDB");
+    sourceDbToSpannerOptions.setMaxRowsPerPartition(1_000_000L);
+    sourceDbToSpannerOptions.setEstimateCountOnTimeout(true);
+    JdbcIOWrapperConfig config =
+        OptionsToConfigBuilder.getJdbcIOWrapperConfigWithDefaults(
+            sourceDbToSpannerOptions, List.of("table1"), null, null);
+    assertThat(config.maxRowsPerPartition()).isEqualTo(1_000_000L);
+    assertThat(config.estimateCountOnTimeout()).isTrue();
   }
 
   @Test
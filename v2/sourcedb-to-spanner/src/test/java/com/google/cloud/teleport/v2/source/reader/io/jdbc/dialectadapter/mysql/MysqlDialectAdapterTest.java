@@ -632,6 +632,17 @@ public class MysqlDialectAdapterTest {
             "select /*+ MAX_EXECUTION_TIME(42) */ COUNT(*) from testTable WHERE ((? = FALSE) OR (col_1 >= ? AND (col_1 < ? OR (? = TRUE AND col_1 = ?)))) AND ((? = FALSE) OR (col_2 >= ? AND (col_2 < ? OR (? = TRUE AND col_2 = ?))))");
   }
 
+  @Test
+  public void testGetCountEstimateQuery() {
+    String testTable = "testTable";
+    ImmutableList<String> cols = ImmutableList.of("col_1", "col_2");
+    assertThat(
+            new MysqlDialectAdapter(MySqlVersion.DEFAULT)
+                .getCountEstimateQuery(testTable, cols, 42L))
+        .isEqualTo(
+            "explain select * from testTable WHERE ((? = FALSE) OR (col_1 >= ? AND (col_1 < ? OR (? = TRUE AND col_1 = ?)))) AND ((? = FALSE) OR (col_2 >= ? AND (col_2 < ? OR (? = TRUE AND col_2 = ?))))");
+  }
+
   @Test
   public void testGetBoundaryQuery() {
     String testTable = "testTable";
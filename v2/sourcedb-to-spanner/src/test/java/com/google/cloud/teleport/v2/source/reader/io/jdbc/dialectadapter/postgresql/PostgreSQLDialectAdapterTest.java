@@ -325,6 +325,14 @@ public class PostgreSQLDialectAdapterTest {
                 + "AND ((? = FALSE) OR (col2 >= ? AND (col2 < ? OR (? = TRUE AND col2 = ?))))");
   }
 
+  @Test
+  public void testCountEstimateQuery() {
+    assertThat(adapter.getCountEstimateQuery("my_schema.table1", ImmutableList.of("col1"), 1000L))
+        .isEqualTo(
+            "SET statement_timeout = 1000; SELECT COUNT(*) * 100 AS rows FROM my_schema.table1 TABLESAMPLE SYSTEM (1) "
+                + "WHERE ((? = FALSE) OR (col1 >= ? AND (col1 < ? OR (? = TRUE AND col1 = ?))))");
+  }
+
   @Test
   public void testCheckForTimeout() {
     assertThat(adapter.checkForTimeout(new SQLException("Expected test non-timeout error")))
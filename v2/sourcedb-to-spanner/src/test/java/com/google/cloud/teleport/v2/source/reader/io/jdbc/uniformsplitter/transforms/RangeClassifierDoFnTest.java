@@ -225,6 +225,61 @@ public class RangeClassifierDoFnTest {
     assertThat(taggedOutputCaptor.toAddColumnAccumulator.build()).isEqualTo(ImmutableList.of());
   }
 
+  @Test
+  public void testRangeClassifierMultiLevelSplit() {
+    TaggedOutputCaptor taggedOutputCaptor = new TaggedOutputCaptor();
+    Mockito.doAnswer(
+            invocationOnMock ->
+                taggedOutputCaptor.out(
+                    invocationOnMock.getArgument(0), invocationOnMock.getArgument(1)))
+        .when(mockProcessContext)
+        .output(any(), any());
+    Range rangeToRetainDueToCount =
+        Range.builder()
+            .setColName("col1")
+            .setColClass(Integer.class)
+            .setBoundarySplitter(BoundarySplitterFactory.create(Integer.class))
+            .setStart(0)
+            .setEnd(1000)
+            .setCount(10L)
+            .build();
+    Range skewedRange =
+        rangeToRetainDueToCount.toBuilder().setStart(1000).setEnd(2000).setCount(1000L).build();
+    RangeClassifierDoFn rangeClassifierDoFn =
+        RangeClassifierDoFn.builder()
+            .setApproxTotalRowCount(1010L)
+            .setStageIdx(1L)
+            .setMaxPartitionHint(10L)
+            .setAutoAdjustMaxPartitions(false)
+            .setMaxRowsPerPartition(50L)
+            .setMaxSplitHeightPerStage(2L)
+            .setPartitionColumns(
+                ImmutableList.of(
+                    PartitionColumn.builder()
+                        .setColumnName("col1")
+                        .setColumnClass(Integer.class)
+                        .build()))
+            .build();
+
+    Pair<Range, Range> firstSplit = skewedRange.split(mockProcessContext);
+    Pair<Range, Range> leftSplit = firstSplit.getLeft().split(mockProcessContext);
+    Pair<Range, Range> rightSplit = firstSplit.getRight().split(mockProcessContext);
+
+    rangeClassifierDoFn.processElement(
+        ImmutableList.of(rangeToRetainDueToCount, skewedRange), mockProcessContext);
+    assertThat(taggedOutputCaptor.toRetainAccumulator.build())
+        .isEqualTo(ImmutableList.of(rangeToRetainDueToCount));
+    // The skewed range is 20 times the capped mean, so it is split 2 levels deep in one stage.
+    assertThat(taggedOutputCaptor.toCountAccumulator.build())
+        .isEqualTo(
+            ImmutableList.of(
+                leftSplit.getLeft(),
+                leftSplit.getRight(),
+                rightSplit.getLeft(),
+                rightSplit.getRight()));
+    assertThat(taggedOutputCaptor.toAddColumnAccumulator.build()).isEmpty();
+  }
+
   @Test
   public void testRangeClassifierStage0() {
     TaggedOutputCaptor taggedOutputCaptor = new TaggedOutputCaptor();
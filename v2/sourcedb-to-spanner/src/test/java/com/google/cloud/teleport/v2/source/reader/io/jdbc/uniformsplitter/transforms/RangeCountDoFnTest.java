@@ -20,6 +20,7 @@ import static org.junit.Assert.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -28,6 +29,9 @@ import static org.mockito.Mockito.withSettings;
 
 import com.google.cloud.teleport.v2.source.reader.io.jdbc.dialectadapter.mysql.MysqlDialectAdapter;
 import com.google.cloud.teleport.v2.source.reader.io.jdbc.dialectadapter.mysql.MysqlDialectAdapter.MySqlVersion;
+import com.google.cloud.teleport.v2.source.reader.io.jdbc.dialectadapter.postgresql.PostgreSQLDialectAdapter;
+import com.google.cloud.teleport.v2.source.reader.io.jdbc.dialectadapter.postgresql.PostgreSQLDialectAdapter.PostgreSQLVersion;
+import com.google.cloud.teleport.v2.source.reader.io.jdbc.uniformsplitter.UniformSplitterDBAdapter;
 import com.google.cloud.teleport.v2.source.reader.io.jdbc.uniformsplitter.range.BoundarySplitterFactory;
 import com.google.cloud.teleport.v2.source.reader.io.jdbc.uniformsplitter.range.Range;
 import com.google.common.collect.ImmutableList;
@@ -144,6 +148,90 @@ public class RangeCountDoFnTest {
     assertThat(outputRangesAreUncounted).isEqualTo(ImmutableList.of(true, true));
   }
 
+  @Test
+  public void testRangeCountDoFnEstimatesOnTimeout() throws Exception {
+
+    when(mockDataSourceProviderFn.apply(any())).thenReturn(mockDataSource);
+    when(mockDataSource.getConnection()).thenReturn(mockConnection);
+    when(mockConnection.prepareStatement(anyString(), anyInt(), anyInt()))
+        .thenReturn(mockPreparedStatemet);
+    doNothing().when(mockPreparedStatemet).setQueryTimeout(anyInt());
+    doNothing().when(mockPreparedStatemet).setObject(anyInt(), any());
+    when(mockPreparedStatemet.executeQuery())
+        .thenThrow(new SQLTimeoutException("test"))
+        .thenReturn(mockResultSet);
+    when(mockResultSet.next()).thenReturn(true);
+    when(mockResultSet.getLong(UniformSplitterDBAdapter.COUNT_ESTIMATE_COLUMN)).thenReturn(4200L);
+    RangeCountDoFn rangeCountDoFn =
+        new RangeCountDoFn(
+            mockDataSourceProviderFn,
+            2000L,
+            new MysqlDialectAdapter(MySqlVersion.DEFAULT),
+            "testTable",
+            ImmutableList.of("col1"),
+            true);
+    Range input =
+        Range.<Integer>builder()
+            .setColName("col1")
+            .setColClass(Integer.class)
+            .setBoundarySplitter(BoundarySplitterFactory.create(Integer.class))
+            .setStart(0)
+            .setEnd(100)
+            .build();
+    rangeCountDoFn.setup();
+    rangeCountDoFn.processElement(input, mockOut, mockProcessContext);
+
+    verify(mockConnection)
+        .prepareStatement(
+            eq(
+                new MysqlDialectAdapter(MySqlVersion.DEFAULT)
+                    .getCountEstimateQuery("testTable", ImmutableList.of("col1"), 2000L)),
+            anyInt(),
+            anyInt());
+    // Both the count and the estimate are bounded by the count query timeout.
+    verify(mockPreparedStatemet, times(2)).setQueryTimeout(anyInt());
+    verify(mockOut).output(rangeCaptor.capture());
+    assertThat(rangeCaptor.getValue()).isEqualTo(input.withCount(4200L, mockProcessContext));
+  }
+
+  @Test
+  public void testRangeCountDoFnZeroEstimateIsIndeterminate() throws Exception {
+
+    when(mockDataSourceProviderFn.apply(any())).thenReturn(mockDataSource);
+    when(mockDataSource.getConnection()).thenReturn(mockConnection);
+    when(mockConnection.prepareStatement(anyString(), anyInt(), anyInt()))
+        .thenReturn(mockPreparedStatemet);
+    doNothing().when(mockPreparedStatemet).setQueryTimeout(anyInt());
+    doNothing().when(mockPreparedStatemet).setObject(anyInt(), any());
+    when(mockPreparedStatemet.executeQuery())
+        .thenThrow(new SQLTimeoutException("test"))
+        .thenReturn(mockResultSet);
+    when(mockResultSet.next()).thenReturn(true);
+    // A block sample that missed every row of a clustered range.
+    when(mockResultSet.getLong(UniformSplitterDBAdapter.COUNT_ESTIMATE_COLUMN)).thenReturn(0L);
+    RangeCountDoFn rangeCountDoFn =
+        new RangeCountDoFn(
+            mockDataSourceProviderFn,
+            2000L,
+            new PostgreSQLDialectAdapter(PostgreSQLVersion.DEFAULT),
+            "testTable",
+            ImmutableList.of("col1"),
+            true);
+    Range input =
+        Range.<Integer>builder()
+            .setColName("col1")
+            .setColClass(Integer.class)
+            .setBoundarySplitter(BoundarySplitterFactory.create(Integer.class))
+            .setStart(0)
+            .setEnd(100)
+            .build();
+    rangeCountDoFn.setup();
+    rangeCountDoFn.processElement(input, mockOut, mockProcessContext);
+
+    verify(mockOut).output(rangeCaptor.capture());
+    assertThat(rangeCaptor.getValue().isUncounted()).isTrue();
+  }
+
   @Test
   public void testRangeCountDoFnOtherException() throws Exception {
 
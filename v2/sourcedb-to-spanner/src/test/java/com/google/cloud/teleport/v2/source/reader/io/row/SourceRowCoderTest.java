@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.source.reader.io.row;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.cloud.teleport.v2.source.reader.io.jdbc.iowrapper.config.SQLDialect;
+import com.google.cloud.teleport.v2.source.reader.io.schema.SchemaTestUtils;
+import com.google.cloud.teleport.v2.source.reader.io.schema.SourceSchema;
+import com.google.cloud.teleport.v2.source.reader.io.schema.SourceSchemaReference;
+import com.google.cloud.teleport.v2.source.reader.io.schema.SourceTableSchema;
+import com.google.cloud.teleport.v2.spanner.migrations.schema.SourceColumnType;
+import org.apache.beam.sdk.coders.SerializableCoder;
+import org.apache.beam.sdk.testing.CoderProperties;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.apache.beam.sdk.util.SerializableUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.junit.MockitoJUnitRunner;
+
+/** Test class for {@link SourceRowCoder}. */
+@RunWith(MockitoJUnitRunner.class)
+public class SourceRowCoderTest {
+
+  private static final SourceSchemaReference SCHEMA_REFERENCE =
+      SchemaTestUtils.generateSchemaReference("public", "mydb");
+
+  private static final SourceTableSchema TABLE_SCHEMA =
+      SchemaTestUtils.generateTestTableSchema("testTable");
+
+  private static final SourceRowCoder CODER =
+      SourceRowCoder.of(
+          SourceSchema.builder()
+              .setSchemaReference(SCHEMA_REFERENCE)
+              .addTableSchema(TABLE_SCHEMA)
+              .build());
+
+  @Test
+  public void testRoundTrip() throws Exception {
+    SourceRow sourceRow =
+        SourceRow.builder(SCHEMA_REFERENCE, TABLE_SCHEMA, "shard1", 1712751118L)
+            .setField("firstName", "abc")
+            .setField("lastName", "def")
+            .build();
+
+    CoderProperties.coderDecodeEncodeEqual(CODER, sourceRow);
+  }
+
+  @Test
+  public void testRoundTripWithNulls() throws Exception {
+    SourceRow sourceRow =
+        SourceRow.builder(
+                SchemaTestUtils.generateSchemaReference(null, "mydb"), TABLE_SCHEMA, null, 0L)
+            .setField("firstName", null)
+            .setField("lastName", "def")
+            .build();
+
+    CoderProperties.coderDecodeEncodeEqual(CODER, sourceRow);
+  }
+
+  @Test
+  public void testRoundTripWithUnknownSchema() throws Exception {
+    SourceTableSchema otherTableSchema =
+        SourceTableSchema.builder(SQLDialect.MYSQL)
+            .setTableName("otherTable")
+            .addSourceColumnNameToSourceColumnType(
+                "id", new SourceColumnType("bigint", new Long[] {}, null))
+            .build();
+    SourceRow sourceRow =
+        SourceRow.builder(SCHEMA_REFERENCE, otherTableSchema, null, 1712751118L)
+            .setField("id", 42L)
+            .build();
+
+    CoderProperties.coderDecodeEncodeEqual(CODER, sourceRow);
+  }
+
+  @Test
+  public void testEncodesFingerprintInsteadOfSchema() throws Exception {
+    SourceRow sourceRow =
+        SourceRow.builder(SCHEMA_REFERENCE, TABLE_SCHEMA, null, 1712751118L)
+            .setField("firstName", "abc")
+            .setField("lastName", "def")
+            .build();
+
+    byte[] encoded = CoderUtils.encodeToByteArray(CODER, sourceRow);
+    byte[] serialized =
+        CoderUtils.encodeToByteArray(SerializableCoder.of(SourceRow.class), sourceRow);
+
+    assertThat(encoded.length).isLessThan(TABLE_SCHEMA.avroSchema().toString().length());
+    assertThat(encoded.length).isLessThan(serialized.length);
+  }
+
+  @Test
+  public void testCoderSerializable() {
+    CoderProperties.coderSerializable(CODER);
+    assertThat(SerializableUtils.clone(CODER)).isEqualTo(CODER);
+    assertThat(SerializableUtils.clone(CODER).hashCode()).isEqualTo(CODER.hashCode());
+  }
+}
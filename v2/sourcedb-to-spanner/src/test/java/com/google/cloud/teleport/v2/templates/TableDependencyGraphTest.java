@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.templates;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.cloud.teleport.v2.spanner.ddl.Ddl;
+import com.google.cloud.teleport.v2.spanner.ddl.ForeignKey;
+import com.google.cloud.teleport.v2.spanner.migrations.schema.IdentityMapper;
+import com.google.common.collect.ImmutableList;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Test class for {@link TableDependencyGraph}. */
+@RunWith(JUnit4.class)
+public class TableDependencyGraphTest {
+
+  private Ddl ddl;
+
+  @Before
+  public void setup() {
+    ddl =
+        Ddl.builder()
+            .createTable("singers")
+            .column("singer_id")
+            .int64()
+            .notNull()
+            .endColumn()
+            .primaryKey()
+            .asc("singer_id")
+            .end()
+            .endTable()
+            .createTable("albums")
+            .column("singer_id")
+            .int64()
+            .notNull()
+            .endColumn()
+            .column("album_id")
+            .int64()
+            .notNull()
+            .endColumn()
+            .primaryKey()
+            .asc("singer_id")
+            .asc("album_id")
+            .end()
+            .interleaveInParent("singers")
+            .endTable()
+            .createTable("songs")
+            .column("singer_id")
+            .int64()
+            .notNull()
+            .endColumn()
+            .column("album_id")
+            .int64()
+            .notNull()
+            .endColumn()
+            .column("song_id")
+            .int64()
+            .notNull()
+            .endColumn()
+            .primaryKey()
+            .asc("singer_id")
+            .asc("album_id")
+            .asc("song_id")
+            .end()
+            .interleaveInParent("albums")
+            .endTable()
+            .createTable("concerts")
+            .column("singer_id")
+            .int64()
+            .notNull()
+            .endColumn()
+            .column("concert_id")
+            .int64()
+            .notNull()
+            .endColumn()
+            .primaryKey()
+            .asc("singer_id")
+            .asc("concert_id")
+            .end()
+            .interleaveInParent("singers")
+            .endTable()
+            .createTable("venues")
+            .column("venue_id")
+            .int64()
+            .notNull()
+            .endColumn()
+            .primaryKey()
+            .asc("venue_id")
+            .end()
+            .endTable()
+            .build();
+  }
+
+  @Test
+  public void testDependencyGraph() {
+    TableDependencyGraph graph =
+        TableDependencyGraph.of(
+            ddl,
+            new IdentityMapper(ddl),
+            Set.of("singers", "albums", "songs", "concerts", "venues"));
+
+    assertThat(graph.orderedTables())
+        .containsExactly("singers", "albums", "songs", "concerts", "venues");
+    assertThat(graph.orderedTables().indexOf("songs"))
+        .isGreaterThan(graph.orderedTables().indexOf("albums"));
+    assertThat(graph.parents("singers")).isEmpty();
+    assertThat(graph.parents("albums")).containsExactly("singers");
+    assertThat(graph.parents("songs")).containsExactly("albums");
+    assertThat(graph.parents("concerts")).containsExactly("singers");
+    assertThat(graph.depth("venues")).isEqualTo(0);
+    assertThat(graph.depth("concerts")).isEqualTo(1);
+    assertThat(graph.depth("songs")).isEqualTo(2);
+    // songs, concerts and venues can read together though they are at different depths.
+    assertThat(graph.maxConcurrentTables()).isEqualTo(3);
+  }
+
+  @Test
+  public void testDependencyGraphSkipsTablesNotMigrated() {
+    TableDependencyGraph graph =
+        TableDependencyGraph.of(ddl, new IdentityMapper(ddl), Set.of("songs", "venues"));
+
+    assertThat(graph.orderedTables()).containsExactly("songs", "venues");
+    assertThat(graph.parents("songs")).isEmpty();
+    assertThat(graph.depth("songs")).isEqualTo(0);
+    assertThat(graph.maxConcurrentTables()).isEqualTo(2);
+  }
+
+  @Test
+  public void testConnectionsPerTable() {
+    TableDependencyGraph graph =
+        TableDependencyGraph.of(
+            ddl,
+            new IdentityMapper(ddl),
+            Set.of("singers", "albums", "songs", "concerts", "venues"));
+
+    // Budget disabled.
+    assertThat(graph.connectionsPerTable(0, 0, 1)).isEqualTo(0);
+    assertThat(graph.connectionsPerTable(-1, 0, 1)).isEqualTo(-1);
+    assertThat(graph.connectionsPerTable(10, 0, 1)).isEqualTo(10);
+    // Budget shared by the 3 tables that can read together.
+    assertThat(graph.connectionsPerTable(0, 100, 1)).isEqualTo(33);
+    assertThat(graph.connectionsPerTable(-1, 100, 1)).isEqualTo(33);
+    assertThat(graph.connectionsPerTable(10, 100, 1)).isEqualTo(10);
+    assertThat(graph.connectionsPerTable(0, 1, 1)).isEqualTo(1);
+    // Budget shared by the readers of 4 shard databases.
+    assertThat(graph.connectionsPerTable(0, 120, 4)).isEqualTo(10);
+  }
+
+  @Test
+  public void testMaxConcurrentTablesOfChain() {
+    TableDependencyGraph graph =
+        TableDependencyGraph.of(ddl, new IdentityMapper(ddl), Set.of("singers", "albums", "songs"));
+
+    assertThat(graph.maxConcurrentTables()).isEqualTo(1);
+    assertThat(graph.connectionsPerTable(0, 100, 1)).isEqualTo(100);
+  }
+
+  @Test
+  public void testMaxConcurrentTablesOfSharedChild() {
+    // albums_venues depends on albums and on venues, which can read together with concerts.
+    ForeignKey.Builder venueForeignKey =
+        ForeignKey.builder().name("fk_venue").table("albums_venues").referencedTable("venues");
+    venueForeignKey.columnsBuilder().add("venue_id");
+    venueForeignKey.referencedColumnsBuilder().add("venue_id");
+    Ddl withSharedChild =
+        ddl.toBuilder()
+            .createTable("albums_venues")
+            .column("singer_id")
+            .int64()
+            .notNull()
+            .endColumn()
+            .column("album_id")
+            .int64()
+            .notNull()
+            .endColumn()
+            .column("venue_id")
+            .int64()
+            .notNull()
+            .endColumn()
+            .primaryKey()
+            .asc("singer_id")
+            .asc("album_id")
+            .asc("venue_id")
+            .end()
+            .interleaveInParent("albums")
+            .foreignKeys(ImmutableList.of(venueForeignKey.build()))
+            .endTable()
+            .build();
+    TableDependencyGraph graph =
+        TableDependencyGraph.of(
+            withSharedChild,
+            new IdentityMapper(withSharedChild),
+            Set.of("singers", "albums", "concerts", "venues", "albums_venues"));
+
+    assertThat(graph.parents("albums_venues")).containsExactly("albums", "venues");
+    assertThat(graph.maxConcurrentTables()).isEqualTo(3);
+  }
+}
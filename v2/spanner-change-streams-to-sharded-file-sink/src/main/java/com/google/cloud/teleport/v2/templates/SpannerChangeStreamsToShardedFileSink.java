@@ -324,6 +324,35 @@ public class SpannerChangeStreamsToShardedFileSink {
     String getShardingCustomParameters();
 
     void setShardingCustomParameters(String value);
+
+    @TemplateParameter.Long(
+        order = 21,
+        optional = true,
+        description = "Shard id cache size",
+        helpText =
+            "The maximum number of primary keys per worker whose logical shard id, computed from"
+                + " INSERT and UPDATE records, is cached so that a later DELETE of the key does"
+                + " not need a stale read from Spanner. Cached entries are never invalidated, so"
+                + " only enable the cache when the logical shard id of a primary key never changes,"
+                + " for example when it is derived from the key columns only. Defaults to 0, which"
+                + " disables the cache.")
+    @Default.Long(0)
+    Long getShardIdCacheSize();
+
+    void setShardIdCacheSize(Long value);
+
+    @TemplateParameter.Integer(
+        order = 22,
+        optional = true,
+        description = "DELETE lookup batch size",
+        helpText =
+            "The maximum number of DELETE records whose rows are read from Spanner together, with"
+                + " one read per table and commit timestamp. Set to 1 to read each row on its own."
+                + " Defaults to 100.")
+    @Default.Integer(100)
+    Integer getDeleteLookupBatchSize();
+
+    void setDeleteLookupBatchSize(Integer value);
   }
 
   /**
@@ -447,7 +476,9 @@ public class SpannerChangeStreamsToShardedFileSink {
                     options.getSkipDirectoryName(),
                     options.getShardingCustomJarPath(),
                     options.getShardingCustomClassName(),
-                    options.getShardingCustomParameters())))
+                    options.getShardingCustomParameters(),
+                    options.getShardIdCacheSize(),
+                    options.getDeleteLookupBatchSize())))
         .apply(
             "Creating " + options.getWindowDuration() + " Window",
             Window.into(
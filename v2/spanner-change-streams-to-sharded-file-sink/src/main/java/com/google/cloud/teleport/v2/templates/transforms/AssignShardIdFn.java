@@ -18,6 +18,8 @@ package com.google.cloud.teleport.v2.templates.transforms;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.spanner.KeySet;
+import com.google.cloud.spanner.ResultSet;
 import com.google.cloud.spanner.SpannerException;
 import com.google.cloud.spanner.Struct;
 import com.google.cloud.spanner.TimestampBound;
@@ -36,30 +38,63 @@ import com.google.cloud.teleport.v2.templates.changestream.DataChangeRecordTypeC
 import com.google.cloud.teleport.v2.templates.common.TrimmedShardedDataChangeRecord;
 import com.google.cloud.teleport.v2.templates.constants.Constants;
 import com.google.cloud.teleport.v2.templates.utils.ShardingLogicImplFetcher;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import org.apache.beam.sdk.io.gcp.spanner.SpannerAccessor;
 import org.apache.beam.sdk.io.gcp.spanner.SpannerConfig;
 import org.apache.beam.sdk.io.gcp.spanner.changestreams.model.ModType;
+import org.apache.beam.sdk.metrics.Counter;
 import org.apache.beam.sdk.metrics.Distribution;
 import org.apache.beam.sdk.metrics.Metrics;
 import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
 import org.joda.time.Duration;
 import org.joda.time.Instant;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** This DoFn assigns the shardId as key to the record. */
+/**
+ * This DoFn assigns the shardId as key to the record.
+ *
+ * <p>In multi-shard mode a DELETE carries only the primary key, so the shard id has to be derived
+ * from a stale read of the deleted row. To avoid that read, the logical shard ids computed for
+ * INSERT and UPDATE records can be kept in a bounded per-worker cache keyed by table and primary
+ * key, and a DELETE of a cached key observed at an earlier commit timestamp reuses it. Nothing
+ * invalidates a cached entry when another worker sees the key move to a different shard, so the
+ * cache is disabled unless {@code shardIdCacheSize} is positive, which is only correct when the
+ * logical shard id of a primary key never changes. The remaining DELETEs are looked up in batches,
+ * with one multi-key stale read per table and commit timestamp; their records are emitted with
+ * their original timestamps when the bundle finishes.
+ */
 public class AssignShardIdFn
     extends DoFn<TrimmedShardedDataChangeRecord, TrimmedShardedDataChangeRecord> {
   private static final Logger LOG = LoggerFactory.getLogger(AssignShardIdFn.class);
 
+  /* Logical shard ids by table and primary key, shared by all instances on the worker. */
+  private static Cache<String, CachedShardId> shardIdCache;
+
+  private final Counter cacheHitMetric =
+      Metrics.counter(AssignShardIdFn.class, "shard_id_cache_hit");
+
+  private final Counter cacheMissMetric =
+      Metrics.counter(AssignShardIdFn.class, "shard_id_cache_miss");
+
+  private final Distribution staleReadLatencyMetric =
+      Metrics.distribution(AssignShardIdFn.class, "delete_stale_read_latency_ms");
+
+  private final Distribution staleReadBatchSizeMetric =
+      Metrics.distribution(AssignShardIdFn.class, "delete_stale_read_batch_size");
+
   private final SpannerConfig spannerConfig;
 
   /* SpannerAccessor must be transient so that its value is not serialized at runtime. */
@@ -87,6 +122,15 @@ public class AssignShardIdFn
 
   private IShardIdFetcher shardIdFetcher;
 
+  private final long shardIdCacheSize;
+
+  private final int deleteLookupBatchSize;
+
+  /* DELETE records waiting for a stale read, and records ready to be emitted at finish bundle. */
+  private transient List<PendingRecord> pendingDeletes;
+
+  private transient List<PendingRecord> resolvedDeletes;
+
   public AssignShardIdFn(
       SpannerConfig spannerConfig,
       Schema schema,
@@ -97,6 +141,32 @@ public class AssignShardIdFn
       String customJarPath,
       String shardingCustomClassName,
       String shardingCustomParameters) {
+    this(
+        spannerConfig,
+        schema,
+        ddl,
+        shardingMode,
+        shardName,
+        skipDirName,
+        customJarPath,
+        shardingCustomClassName,
+        shardingCustomParameters,
+        0,
+        1);
+  }
+
+  public AssignShardIdFn(
+      SpannerConfig spannerConfig,
+      Schema schema,
+      Ddl ddl,
+      String shardingMode,
+      String shardName,
+      String skipDirName,
+      String customJarPath,
+      String shardingCustomClassName,
+      String shardingCustomParameters,
+      long shardIdCacheSize,
+      int deleteLookupBatchSize) {
     this.spannerConfig = spannerConfig;
     this.schema = schema;
     this.ddl = ddl;
@@ -106,6 +176,8 @@ public class AssignShardIdFn
     this.customJarPath = customJarPath;
     this.shardingCustomClassName = shardingCustomClassName;
     this.shardingCustomParameters = shardingCustomParameters;
+    this.shardIdCacheSize = shardIdCacheSize;
+    this.deleteLookupBatchSize = deleteLookupBatchSize;
   }
 
   // setSpannerAccessor is added to be used by unit tests
@@ -123,6 +195,18 @@ public class AssignShardIdFn
     this.shardIdFetcher = shardIdFetcher;
   }
 
+  // clearShardIdCache is added to be used by unit tests
+  static synchronized void clearShardIdCache() {
+    shardIdCache = null;
+  }
+
+  private static synchronized Cache<String, CachedShardId> getShardIdCache(long maximumSize) {
+    if (shardIdCache == null) {
+      shardIdCache = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    }
+    return shardIdCache;
+  }
+
   /** Setup function connects to Cloud Spanner. */
   @Setup
   public void setup() {
@@ -165,13 +249,19 @@ public class AssignShardIdFn
     }
   }
 
+  @StartBundle
+  public void startBundle() {
+    pendingDeletes = new ArrayList<>();
+    resolvedDeletes = new ArrayList<>();
+  }
+
   /**
    * Assigns shard id to each spanner record. If custom jar path is specified, loads the custom
    * class locally and then fetches the shard id and if not specified relies on default
    * ShardIdFetcherImpl to fetch the shard id.
    */
   @ProcessElement
-  public void processElement(ProcessContext c) throws Exception {
+  public void processElement(ProcessContext c, BoundedWindow window) throws Exception {
     TrimmedShardedDataChangeRecord record = new TrimmedShardedDataChangeRecord(c.element());
 
     try {
@@ -192,59 +282,51 @@ public class AssignShardIdFn
           c.output(record);
           return;
         }
-        String keysJsonStr = record.getMods().get(0).getKeysJson();
-        JsonNode keysJson = mapper.readTree(keysJsonStr);
-
-        String newValueJsonStr = record.getMods().get(0).getNewValuesJson();
-        JsonNode newValueJson = mapper.readTree(newValueJsonStr);
-        Map<String, Object> spannerRecord = new HashMap<>();
-        // Query the spanner database in case of a DELETE event
+        JsonNode keysJson = mapper.readTree(record.getMods().get(0).getKeysJson());
+        String cacheKey = tableName + keysJson;
         if (record.getModType() == ModType.DELETE) {
-          spannerRecord =
+          String cachedShardId = getCachedShardIdForDelete(cacheKey, record);
+          if (cachedShardId != null) {
+            record.setShard(cachedShardId);
+            c.output(record);
+            return;
+          }
+          if (deleteLookupBatchSize > 1) {
+            if (pendingDeletes == null) {
+              startBundle();
+            }
+            pendingDeletes.add(new PendingRecord(record, keysJson, c.timestamp(), window));
+            if (pendingDeletes.size() >= deleteLookupBatchSize) {
+              resolvePendingDeletes();
+            }
+            return;
+          }
+          Map<String, Object> spannerRecord =
               fetchSpannerRecord(
                   record.getTableName(),
                   record.getCommitTimestamp(),
                   record.getServerTransactionId(),
                   keysJson);
+          record.setShard(getLogicalShardId(record.getTableName(), spannerRecord));
         } else {
           Table table = ddl.table(record.getTableName());
+          JsonNode newValueJson = mapper.readTree(record.getMods().get(0).getNewValuesJson());
+          Map<String, Object> spannerRecord =
+              new HashMap<>(2 * (keysJson.size() + newValueJson.size()));
 
           // Add all fields from keysJson and valuesJson to spannerRecord
-          for (Iterator<String> it = keysJson.fieldNames(); it.hasNext(); ) {
-            String key = it.next();
-            Column column = table.column(key);
-            spannerRecord.put(key, getColumnValueFromJson(column, keysJson));
+          for (Iterator<Map.Entry<String, JsonNode>> it = keysJson.fields(); it.hasNext(); ) {
+            String key = it.next().getKey();
+            spannerRecord.put(key, getColumnValueFromJson(table.column(key), keysJson));
           }
-          for (Iterator<String> it = newValueJson.fieldNames(); it.hasNext(); ) {
-            String key = it.next();
-            Column column = table.column(key);
-            spannerRecord.put(key, getColumnValueFromJson(column, newValueJson));
+          for (Iterator<Map.Entry<String, JsonNode>> it = newValueJson.fields(); it.hasNext(); ) {
+            String key = it.next().getKey();
+            spannerRecord.put(key, getColumnValueFromJson(table.column(key), newValueJson));
           }
+          String logicalShardId = getLogicalShardId(record.getTableName(), spannerRecord);
+          record.setShard(logicalShardId);
+          cacheShardId(cacheKey, logicalShardId, record.getCommitTimestamp());
         }
-        ShardIdRequest shardIdRequest = new ShardIdRequest(record.getTableName(), spannerRecord);
-
-        ShardIdResponse shardIdResponse;
-        if (!customJarPath.isEmpty() && !shardingCustomClassName.isEmpty()) {
-          Distribution getShardIdResponseTimeMetric =
-              Metrics.distribution(AssignShardIdFn.class, "custom_shard_id_impl_latency_ms");
-          Instant startTimestamp = Instant.now();
-          shardIdResponse = shardIdFetcher.getShardId(shardIdRequest);
-          Instant endTimestamp = Instant.now();
-          getShardIdResponseTimeMetric.update(
-              new Duration(startTimestamp, endTimestamp).getMillis());
-        } else {
-          shardIdResponse = shardIdFetcher.getShardId(shardIdRequest);
-        }
-
-        String logicalShardId = shardIdResponse.getLogicalShardId();
-        if (logicalShardId == null || logicalShardId.isEmpty() || logicalShardId.contains("/")) {
-          throw new IllegalArgumentException(
-              "Invalid logical shard id value: "
-                  + logicalShardId
-                  + " for spanner table: "
-                  + record.getTableName());
-        }
-        record.setShard(logicalShardId);
         c.output(record);
       }
 
@@ -256,6 +338,154 @@ public class AssignShardIdFn
     }
   }
 
+  @FinishBundle
+  public void finishBundle(FinishBundleContext c) throws Exception {
+    if (pendingDeletes == null) {
+      return;
+    }
+    try {
+      resolvePendingDeletes();
+    } catch (Exception e) {
+      StringWriter errors = new StringWriter();
+      e.printStackTrace(new PrintWriter(errors));
+      LOG.error("Error fetching shard Id column: " + e.getMessage() + ": " + errors.toString());
+      throw e;
+    }
+    for (PendingRecord pending : resolvedDeletes) {
+      c.output(pending.record, pending.timestamp, pending.window);
+    }
+    resolvedDeletes.clear();
+  }
+
+  private String getLogicalShardId(String tableName, Map<String, Object> spannerRecord)
+      throws Exception {
+    ShardIdRequest shardIdRequest = new ShardIdRequest(tableName, spannerRecord);
+
+    ShardIdResponse shardIdResponse;
+    if (!customJarPath.isEmpty() && !shardingCustomClassName.isEmpty()) {
+      Distribution getShardIdResponseTimeMetric =
+          Metrics.distribution(AssignShardIdFn.class, "custom_shard_id_impl_latency_ms");
+      Instant startTimestamp = Instant.now();
+      shardIdResponse = shardIdFetcher.getShardId(shardIdRequest);
+      Instant endTimestamp = Instant.now();
+      getShardIdResponseTimeMetric.update(new Duration(startTimestamp, endTimestamp).getMillis());
+    } else {
+      shardIdResponse = shardIdFetcher.getShardId(shardIdRequest);
+    }
+
+    String logicalShardId = shardIdResponse.getLogicalShardId();
+    if (logicalShardId == null || logicalShardId.isEmpty() || logicalShardId.contains("/")) {
+      throw new IllegalArgumentException(
+          "Invalid logical shard id value: " + logicalShardId + " for spanner table: " + tableName);
+    }
+    return logicalShardId;
+  }
+
+  private void cacheShardId(
+      String cacheKey, String logicalShardId, com.google.cloud.Timestamp commitTimestamp) {
+    if (shardIdCacheSize <= 0) {
+      return;
+    }
+    getShardIdCache(shardIdCacheSize)
+        .asMap()
+        .merge(
+            cacheKey,
+            new CachedShardId(logicalShardId, commitTimestamp),
+            (existing, update) ->
+                update.commitTimestamp.compareTo(existing.commitTimestamp) >= 0
+                    ? update
+                    : existing);
+  }
+
+  /**
+   * Returns the cached shard id for the deleted key if it was observed before the DELETE, and
+   * removes the entry since the row no longer exists.
+   */
+  private String getCachedShardIdForDelete(String cacheKey, TrimmedShardedDataChangeRecord record) {
+    if (shardIdCacheSize <= 0) {
+      return null;
+    }
+    CachedShardId cached = getShardIdCache(shardIdCacheSize).asMap().remove(cacheKey);
+    if (cached != null && cached.commitTimestamp.compareTo(record.getCommitTimestamp()) < 0) {
+      cacheHitMetric.inc();
+      return cached.logicalShardId;
+    }
+    cacheMissMetric.inc();
+    return null;
+  }
+
+  /**
+   * Resolves the shard ids of the pending DELETE records, issuing one multi-key stale read per
+   * table and commit timestamp.
+   */
+  private void resolvePendingDeletes() throws Exception {
+    Map<String, List<PendingRecord>> groups = new LinkedHashMap<>();
+    for (PendingRecord pending : pendingDeletes) {
+      groups
+          .computeIfAbsent(
+              pending.record.getTableName() + "@" + pending.record.getCommitTimestamp(),
+              k -> new ArrayList<>())
+          .add(pending);
+    }
+    for (List<PendingRecord> group : groups.values()) {
+      TrimmedShardedDataChangeRecord first = group.get(0).record;
+      Map<com.google.cloud.spanner.Key, Map<String, Object>> rows =
+          fetchSpannerRecords(first.getTableName(), first.getCommitTimestamp(), group);
+      for (PendingRecord pending : group) {
+        TrimmedShardedDataChangeRecord record = pending.record;
+        Map<String, Object> spannerRecord = rows.get(pending.key);
+        if (spannerRecord == null) {
+          // Either the row is missing or its key did not map back, e.g. a NUMERIC key returned
+          // with a different scale. The point read distinguishes the two.
+          spannerRecord =
+              fetchSpannerRecord(
+                  record.getTableName(),
+                  record.getCommitTimestamp(),
+                  record.getServerTransactionId(),
+                  pending.keysJson);
+        }
+        record.setShard(getLogicalShardId(record.getTableName(), spannerRecord));
+        resolvedDeletes.add(pending);
+      }
+    }
+    pendingDeletes.clear();
+  }
+
+  private Map<com.google.cloud.spanner.Key, Map<String, Object>> fetchSpannerRecords(
+      String tableName, com.google.cloud.Timestamp commitTimestamp, List<PendingRecord> group)
+      throws Exception {
+    com.google.cloud.Timestamp staleReadTs =
+        com.google.cloud.Timestamp.ofTimeSecondsAndNanos(
+            commitTimestamp.getSeconds() - 1, commitTimestamp.getNanos());
+    Table table = ddl.table(tableName);
+    List<String> columns = table.columns().stream().map(Column::name).collect(Collectors.toList());
+    KeySet.Builder keySet = KeySet.newBuilder();
+    for (PendingRecord pending : group) {
+      pending.key = generateKey(tableName, pending.keysJson);
+      keySet.addKey(pending.key);
+    }
+    staleReadBatchSizeMetric.update(group.size());
+    Map<com.google.cloud.spanner.Key, Map<String, Object>> rows = new HashMap<>();
+    Instant startTimestamp = Instant.now();
+    try (ResultSet resultSet =
+        spannerAccessor
+            .getDatabaseClient()
+            .singleUse(TimestampBound.ofReadTimestamp(staleReadTs))
+            .read(tableName, keySet.build(), columns)) {
+      while (resultSet.next()) {
+        Struct row = resultSet.getCurrentRowAsStruct();
+        Map<String, Object> rowAsMap = getRowAsMap(row, columns, tableName);
+        com.google.cloud.spanner.Key.Builder key = com.google.cloud.spanner.Key.newBuilder();
+        for (IndexColumn keyColumn : table.primaryKeys()) {
+          key.appendObject(rowAsMap.get(keyColumn.name()));
+        }
+        rows.put(key.build(), rowAsMap);
+      }
+    }
+    staleReadLatencyMetric.update(new Duration(startTimestamp, Instant.now()).getMillis());
+    return rows;
+  }
+
   private Map<String, Object> fetchSpannerRecord(
       String tableName,
       com.google.cloud.Timestamp commitTimestamp,
@@ -269,11 +499,13 @@ public class AssignShardIdFn
         ddl.table(tableName).columns().stream().map(Column::name).collect(Collectors.toList());
     // Stale read the spanner row for all the columns for timestamp 1 second less than the DELETE
     // event
+    Instant startTimestamp = Instant.now();
     Struct row =
         spannerAccessor
             .getDatabaseClient()
             .singleUse(TimestampBound.ofReadTimestamp(staleReadTs))
             .readRow(tableName, generateKey(tableName, keysJson), columns);
+    staleReadLatencyMetric.update(new Duration(startTimestamp, Instant.now()).getMillis());
     if (row == null) {
       throw new Exception(
           "stale read on Spanner returned null for table: "
@@ -484,4 +716,35 @@ public class AssignShardIdFn
     }
     return spTable.getColDefs().get(shardColId).getName();
   }
+
+  /** A logical shard id together with the commit timestamp of the record it was computed from. */
+  private static class CachedShardId {
+    private final String logicalShardId;
+    private final com.google.cloud.Timestamp commitTimestamp;
+
+    CachedShardId(String logicalShardId, com.google.cloud.Timestamp commitTimestamp) {
+      this.logicalShardId = logicalShardId;
+      this.commitTimestamp = commitTimestamp;
+    }
+  }
+
+  /** A DELETE record buffered for a batched stale read. */
+  private static class PendingRecord {
+    private final TrimmedShardedDataChangeRecord record;
+    private final JsonNode keysJson;
+    private final Instant timestamp;
+    private final BoundedWindow window;
+    private com.google.cloud.spanner.Key key;
+
+    PendingRecord(
+        TrimmedShardedDataChangeRecord record,
+        JsonNode keysJson,
+        Instant timestamp,
+        BoundedWindow window) {
+      this.record = record;
+      this.keysJson = keysJson;
+      this.timestamp = timestamp;
+      this.window = window;
+    }
+  }
 }
@@ -19,6 +19,8 @@ import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -27,7 +29,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.cloud.Timestamp;
 import com.google.cloud.spanner.DatabaseClient;
 import com.google.cloud.spanner.Key;
+import com.google.cloud.spanner.KeySet;
 import com.google.cloud.spanner.ReadOnlyTransaction;
+import com.google.cloud.spanner.ResultSet;
 import com.google.cloud.spanner.Struct;
 import com.google.cloud.spanner.TimestampBound;
 import com.google.cloud.spanner.Value;
@@ -53,6 +57,8 @@ import org.apache.beam.sdk.io.gcp.spanner.changestreams.model.Mod;
 import org.apache.beam.sdk.io.gcp.spanner.changestreams.model.ModType;
 import org.apache.beam.sdk.testing.TestPipeline;
 import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
+import org.joda.time.Instant;
 import org.junit.Before;
 import org.junit.FixMethodOrder;
 import org.junit.Rule;
@@ -76,6 +82,8 @@ public class AssignShardIdFnTest {
 
   @Mock private DoFn.ProcessContext processContext;
 
+  @Mock private DoFn.FinishBundleContext finishBundleContext;
+
   Struct mockRow = mock(Struct.class);
 
   @Before
@@ -165,7 +173,7 @@ public class AssignShardIdFnTest {
     assignShardIdFn.setShardIdFetcher(
         ShardingLogicImplFetcher.getShardingLogicImpl("", "", "", getSchemaObject(), "skip"));
 
-    assignShardIdFn.processElement(processContext);
+    assignShardIdFn.processElement(processContext, GlobalWindow.INSTANCE);
     verify(processContext).output(eq(record));
   }
 
@@ -193,7 +201,7 @@ public class AssignShardIdFnTest {
     assignShardIdFn.setShardIdFetcher(
         ShardingLogicImplFetcher.getShardingLogicImpl("", "", "", getSchemaObject(), "skip"));
 
-    assignShardIdFn.processElement(processContext);
+    assignShardIdFn.processElement(processContext, GlobalWindow.INSTANCE);
     verify(processContext).output(eq(record));
   }
 
@@ -215,10 +223,112 @@ public class AssignShardIdFnTest {
 
     record.setShard("test");
 
-    assignShardIdFn.processElement(processContext);
+    assignShardIdFn.processElement(processContext, GlobalWindow.INSTANCE);
     verify(processContext).output(eq(record));
   }
 
+  @Test
+  public void testProcessElementDeleteModUsesCachedShardId() throws Exception {
+    AssignShardIdFn.clearShardIdCache();
+    AssignShardIdFn assignShardIdFn = getAssignShardIdFnWithCache(1000, 1);
+    TrimmedShardedDataChangeRecord insertRecord = getInsertTrimmedDataChangeRecord("shard2");
+    TrimmedShardedDataChangeRecord deleteRecord =
+        new TrimmedShardedDataChangeRecord(
+            Timestamp.parseTimestamp("2020-12-01T10:16:30.000Z"),
+            "serverTxnId",
+            "recordSeq",
+            "tableName",
+            Collections.singletonList(new Mod("{\"accountId\": \"Id1\"}", "{}", "{}")),
+            ModType.valueOf("DELETE"),
+            1,
+            "");
+    when(processContext.element()).thenReturn(insertRecord).thenReturn(deleteRecord);
+
+    assignShardIdFn.processElement(processContext, GlobalWindow.INSTANCE);
+    assignShardIdFn.processElement(processContext, GlobalWindow.INSTANCE);
+
+    deleteRecord.setShard("shard2");
+    verify(processContext).output(eq(deleteRecord));
+    verify(mockReadOnlyTransaction, never()).readRow(any(), any(Key.class), any(Iterable.class));
+    AssignShardIdFn.clearShardIdCache();
+  }
+
+  @Test
+  public void testProcessElementDeleteModBatchesStaleReads() throws Exception {
+    AssignShardIdFn.clearShardIdCache();
+    AssignShardIdFn assignShardIdFn = getAssignShardIdFnWithCache(1000, 10);
+    ResultSet mockResultSet = mock(ResultSet.class);
+    when(mockResultSet.next()).thenReturn(true).thenReturn(false);
+    when(mockResultSet.getCurrentRowAsStruct()).thenReturn(mockRow);
+    when(mockReadOnlyTransaction.read(eq("tableName"), any(KeySet.class), any(Iterable.class)))
+        .thenReturn(mockResultSet);
+    TrimmedShardedDataChangeRecord record = getDeleteTrimmedDataChangeRecord("shard1");
+    when(processContext.element()).thenReturn(record);
+    Instant timestamp = Instant.now();
+    when(processContext.timestamp()).thenReturn(timestamp);
+
+    assignShardIdFn.startBundle();
+    assignShardIdFn.processElement(processContext, GlobalWindow.INSTANCE);
+    verify(processContext, never()).output(any());
+
+    assignShardIdFn.finishBundle(finishBundleContext);
+    record.setShard("shard1");
+    verify(mockReadOnlyTransaction, times(1))
+        .read(eq("tableName"), any(KeySet.class), any(Iterable.class));
+    verify(mockReadOnlyTransaction, never()).readRow(any(), any(Key.class), any(Iterable.class));
+    verify(finishBundleContext).output(eq(record), eq(timestamp), eq(GlobalWindow.INSTANCE));
+  }
+
+  @Test
+  public void testProcessElementDeleteModReadsRowWhenCacheDisabled() throws Exception {
+    AssignShardIdFn.clearShardIdCache();
+    AssignShardIdFn assignShardIdFn = getAssignShardIdFnWithCache(0, 1);
+    TrimmedShardedDataChangeRecord insertRecord = getInsertTrimmedDataChangeRecord("shard2");
+    TrimmedShardedDataChangeRecord deleteRecord =
+        new TrimmedShardedDataChangeRecord(
+            Timestamp.parseTimestamp("2020-12-01T10:16:30.000Z"),
+            "serverTxnId",
+            "recordSeq",
+            "tableName",
+            Collections.singletonList(new Mod("{\"accountId\": \"Id1\"}", "{}", "{}")),
+            ModType.valueOf("DELETE"),
+            1,
+            "");
+    when(processContext.element()).thenReturn(insertRecord).thenReturn(deleteRecord);
+
+    assignShardIdFn.processElement(processContext, GlobalWindow.INSTANCE);
+    assignShardIdFn.processElement(processContext, GlobalWindow.INSTANCE);
+
+    deleteRecord.setShard("shard1");
+    verify(processContext).output(eq(deleteRecord));
+    verify(mockReadOnlyTransaction, times(1))
+        .readRow(eq("tableName"), any(Key.class), any(Iterable.class));
+  }
+
+  private AssignShardIdFn getAssignShardIdFnWithCache(
+      long shardIdCacheSize, int deleteLookupBatchSize) {
+    AssignShardIdFn assignShardIdFn =
+        new AssignShardIdFn(
+            SpannerConfig.create(),
+            getSchemaObject(),
+            getTestDdl(),
+            Constants.SHARDING_MODE_MULTI_SHARD,
+            "test",
+            "skip",
+            "",
+            "",
+            "",
+            shardIdCacheSize,
+            deleteLookupBatchSize);
+    assignShardIdFn.setSpannerAccessor(spannerAccessor);
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    assignShardIdFn.setMapper(mapper);
+    assignShardIdFn.setShardIdFetcher(
+        ShardingLogicImplFetcher.getShardingLogicImpl("", "", "", getSchemaObject(), "skip"));
+    return assignShardIdFn;
+  }
+
   @Test(expected = RuntimeException.class)
   public void testGetShardIdFetcherImplWithIncorrectCustomJarPath() throws Exception {
     TrimmedShardedDataChangeRecord record = getInsertTrimmedDataChangeRecord("shard1");
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.spanner.ddl;
+
+import com.google.cloud.spanner.ReadContext;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.ResultSets;
+import com.google.cloud.spanner.SpannerExceptionFactory;
+import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.Struct;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs independent queries concurrently in one multi-use read context, and hands out their results
+ * in whatever order they are asked for. Each result is read in full on a pool thread and served
+ * from memory, which suits information schema queries.
+ *
+ * <p>The context must allow concurrent queries, as a {@link
+ * com.google.cloud.spanner.ReadOnlyTransaction} does.
+ */
+class ConcurrentQueries implements AutoCloseable {
+
+  private final ReadContext context;
+  private final ExecutorService executor;
+  private final Map<Statement, Future<ResultSet>> results = new HashMap<>();
+
+  ConcurrentQueries(ReadContext context, List<Statement> statements) {
+    this.context = context;
+    this.executor =
+        Executors.newFixedThreadPool(
+            Math.max(1, statements.size()),
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("information-schema-query-%d")
+                .build());
+    for (Statement statement : statements) {
+      results.put(statement, executor.submit(() -> readFully(statement)));
+    }
+  }
+
+  /**
+   * Returns the result of {@code statement}, waiting for it if it was started by this instance or
+   * running it on the context otherwise.
+   */
+  ResultSet executeQuery(Statement statement) {
+    Future<ResultSet> result = results.remove(statement);
+    if (result == null) {
+      return context.executeQuery(statement);
+    }
+    try {
+      return result.get();
+    } catch (InterruptedException e) {
+      throw SpannerExceptionFactory.propagateInterrupt(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw SpannerExceptionFactory.newSpannerException(e.getCause());
+    }
+  }
+
+  private ResultSet readFully(Statement statement) {
+    try (ResultSet resultSet = context.executeQuery(statement)) {
+      List<Struct> rows = new ArrayList<>();
+      while (resultSet.next()) {
+        rows.add(resultSet.getCurrentRowAsStruct());
+      }
+      return ResultSets.forRows(resultSet.getType(), rows);
+    }
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+}
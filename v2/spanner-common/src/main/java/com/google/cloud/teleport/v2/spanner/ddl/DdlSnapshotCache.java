@@ -0,0 +1,389 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.spanner.ddl;
+
+import com.google.cloud.spanner.DatabaseAdminClient;
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.Options;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.longrunning.Operation;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Timestamp;
+import com.google.protobuf.util.Timestamps;
+import com.google.spanner.admin.database.v1.UpdateDatabaseDdlMetadata;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.apache.beam.sdk.io.FileSystems;
+import org.apache.beam.sdk.io.fs.ResolveOptions.StandardResolveOptions;
+import org.apache.beam.sdk.io.fs.ResourceId;
+import org.apache.beam.sdk.util.MimeTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches {@link Ddl} snapshots of Spanner databases so that the information schema is not scanned
+ * again while the schema has not changed.
+ *
+ * <p>Snapshots are keyed by database and schema version, as returned by {@link
+ * #schemaVersion(DatabaseAdminClient, String, String)}. They are kept in memory for the lifetime of
+ * the JVM and, optionally, written to a directory on any Beam file system so that later launches of
+ * a template can reuse them.
+ *
+ * <p>Snapshots in a directory are JSON documents rebuilt through the {@link Ddl} builders, never
+ * Java-serialized objects, and their file names carry {@link #SNAPSHOT_FORMAT}. A snapshot written
+ * by a template version with another format is not read, and one that cannot be rebuilt is scanned
+ * again.
+ */
+public class DdlSnapshotCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DdlSnapshotCache.class);
+
+  /** The schema version of databases with no schema update operation left to look at. */
+  static final String NO_RETAINED_UPDATES = "none";
+
+  /**
+   * How long a snapshot of a database with no retained schema update operations is trusted. Spanner
+   * keeps completed operations for seven days, so a schema change made after the snapshot was
+   * written is still listed when the snapshot is this old.
+   */
+  static final Duration NO_RETAINED_UPDATES_MAX_AGE = Duration.ofDays(1);
+
+  /**
+   * The format of snapshots written to a directory. It must be increased whenever the snapshot
+   * layout changes or the {@link Ddl} model gains an attribute, so that older snapshots, which lack
+   * it, are not used.
+   */
+  static final int SNAPSHOT_FORMAT = 1;
+
+  private static final Gson GSON = new Gson();
+
+  private static final String UPDATE_DDL_METADATA_TYPE =
+      "type.googleapis.com/google.spanner.admin.database.v1.UpdateDatabaseDdlMetadata";
+
+  private static final Map<String, Snapshot> IN_MEMORY = new ConcurrentHashMap<>();
+
+  @Nullable private final String directory;
+  private final Clock clock;
+
+  DdlSnapshotCache(@Nullable String directory, Clock clock) {
+    this.directory = Strings.emptyToNull(directory);
+    this.clock = clock;
+  }
+
+  /** Returns a cache that only keeps snapshots in memory. */
+  public static DdlSnapshotCache inMemory() {
+    return new DdlSnapshotCache(null, Clock.systemUTC());
+  }
+
+  /**
+   * Returns a cache that also keeps snapshots in {@code directory}, or only in memory if {@code
+   * directory} is null or empty.
+   */
+  public static DdlSnapshotCache inDirectory(@Nullable String directory) {
+    return new DdlSnapshotCache(directory, Clock.systemUTC());
+  }
+
+  /**
+   * Returns the snapshot of {@code database} at {@code schemaVersion}, or scans it with {@code
+   * scan} and caches the result. A null {@code schemaVersion} always scans and caches nothing.
+   */
+  public Ddl get(String database, @Nullable String schemaVersion, Supplier<Ddl> scan) {
+    if (schemaVersion == null) {
+      return scan.get();
+    }
+    Snapshot snapshot = IN_MEMORY.get(database);
+    if (!isUsable(snapshot, schemaVersion) && directory != null) {
+      snapshot = read(database);
+      if (isUsable(snapshot, schemaVersion)) {
+        IN_MEMORY.put(database, snapshot);
+      }
+    }
+    if (isUsable(snapshot, schemaVersion)) {
+      LOG.info("Using the cached schema of {} at version {}", database, schemaVersion);
+      return snapshot.ddl;
+    }
+
+    Ddl ddl = scan.get();
+    snapshot = new Snapshot(schemaVersion, clock.millis(), ddl);
+    IN_MEMORY.put(database, snapshot);
+    if (directory != null) {
+      write(database, snapshot);
+    }
+    return ddl;
+  }
+
+  private boolean isUsable(@Nullable Snapshot snapshot, String schemaVersion) {
+    if (snapshot == null || !snapshot.schemaVersion.equals(schemaVersion)) {
+      return false;
+    }
+    return !NO_RETAINED_UPDATES.equals(schemaVersion)
+        || clock.millis() - snapshot.createdMillis < NO_RETAINED_UPDATES_MAX_AGE.toMillis();
+  }
+
+  @Nullable
+  private Snapshot read(String database) {
+    ResourceId resource = resourceOf(database);
+    try (Reader reader =
+        Channels.newReader(FileSystems.open(resource), StandardCharsets.UTF_8.name())) {
+      SnapshotFile file = GSON.fromJson(reader, SnapshotFile.class);
+      if (file == null || file.format != SNAPSHOT_FORMAT || file.schemaVersion == null) {
+        LOG.info("Ignoring the schema snapshot at {} written in another format", resource);
+        return null;
+      }
+      return new Snapshot(file.schemaVersion, file.createdMillis, file.toDdl());
+    } catch (IOException | RuntimeException e) {
+      LOG.info("No usable schema snapshot at {}: {}", resource, e.toString());
+      return null;
+    }
+  }
+
+  private void write(String database, Snapshot snapshot) {
+    ResourceId resource = resourceOf(database);
+    try (Writer writer =
+        Channels.newWriter(
+            FileSystems.create(resource, MimeTypes.TEXT), StandardCharsets.UTF_8.name())) {
+      GSON.toJson(SnapshotFile.of(snapshot), writer);
+    } catch (IOException | JsonParseException e) {
+      LOG.warn("Could not write the schema snapshot to {}", resource, e);
+    }
+  }
+
+  @VisibleForTesting
+  static void clearInMemory() {
+    IN_MEMORY.clear();
+  }
+
+  private ResourceId resourceOf(String database) {
+    return FileSystems.matchNewResource(directory, true)
+        .resolve(
+            database.replaceAll("[^A-Za-z0-9_-]", "_") + ".ddl-v" + SNAPSHOT_FORMAT + ".json",
+            StandardResolveOptions.RESOLVE_FILE);
+  }
+
+  /**
+   * Returns the schema version of a database: the latest commit timestamp of its schema update
+   * operations, {@link #NO_RETAINED_UPDATES} if none are retained, or null if the version cannot be
+   * told, because an update is still running or the operations cannot be listed.
+   */
+  @Nullable
+  public static String schemaVersion(
+      DatabaseAdminClient databaseAdminClient, String instanceId, String databaseId) {
+    String filter =
+        String.format(
+            "(metadata.@type:%s) AND (name:databases/%s/operations/)",
+            UPDATE_DDL_METADATA_TYPE, databaseId);
+    try {
+      Timestamp latest = null;
+      for (Operation operation :
+          databaseAdminClient
+              .listDatabaseOperations(instanceId, Options.filter(filter))
+              .iterateAll()) {
+        if (!operation.getDone()) {
+          LOG.info("Schema update {} is still running", operation.getName());
+          return null;
+        }
+        UpdateDatabaseDdlMetadata metadata =
+            operation.getMetadata().unpack(UpdateDatabaseDdlMetadata.class);
+        for (Timestamp commitTimestamp : metadata.getCommitTimestampsList()) {
+          if (latest == null || Timestamps.compare(commitTimestamp, latest) > 0) {
+            latest = commitTimestamp;
+          }
+        }
+      }
+      return latest == null ? NO_RETAINED_UPDATES : Timestamps.toString(latest);
+    } catch (RuntimeException | InvalidProtocolBufferException e) {
+      LOG.warn("Could not read the schema version of {}", databaseId, e);
+      return null;
+    }
+  }
+
+  private static class Snapshot {
+    private final String schemaVersion;
+    private final long createdMillis;
+    private final Ddl ddl;
+
+    Snapshot(String schemaVersion, long createdMillis, Ddl ddl) {
+      this.schemaVersion = schemaVersion;
+      this.createdMillis = createdMillis;
+      this.ddl = ddl;
+    }
+  }
+
+  /** The JSON document of a snapshot written to a directory. */
+  private static class SnapshotFile {
+    int format;
+    String schemaVersion;
+    long createdMillis;
+    Dialect dialect;
+    List<TableJson> tables;
+
+    static SnapshotFile of(Snapshot snapshot) {
+      SnapshotFile file = new SnapshotFile();
+      file.format = SNAPSHOT_FORMAT;
+      file.schemaVersion = snapshot.schemaVersion;
+      file.createdMillis = snapshot.createdMillis;
+      file.dialect = snapshot.ddl.dialect();
+      file.tables = new ArrayList<>();
+      for (Table table : snapshot.ddl.allTables()) {
+        file.tables.add(TableJson.of(table));
+      }
+      return file;
+    }
+
+    Ddl toDdl() {
+      Ddl.Builder builder = Ddl.builder(dialect);
+      for (TableJson table : tables) {
+        table.addTo(builder);
+      }
+      return builder.build();
+    }
+  }
+
+  private static class TableJson {
+    String name;
+    String interleaveInParent;
+    boolean onDeleteCascade;
+    List<String> primaryKeys;
+    List<IndexColumn.Order> primaryKeyOrders;
+    List<ColumnJson> columns;
+    List<String> indexes;
+    List<ForeignKeyJson> foreignKeys;
+    List<String> checkConstraints;
+
+    static TableJson of(Table table) {
+      TableJson json = new TableJson();
+      json.name = table.name();
+      json.interleaveInParent = table.interleaveInParent();
+      json.onDeleteCascade = table.onDeleteCascade();
+      json.primaryKeys = new ArrayList<>();
+      json.primaryKeyOrders = new ArrayList<>();
+      for (IndexColumn primaryKey : table.primaryKeys()) {
+        json.primaryKeys.add(primaryKey.name());
+        json.primaryKeyOrders.add(primaryKey.order());
+      }
+      json.columns = new ArrayList<>();
+      for (Column column : table.columns()) {
+        json.columns.add(ColumnJson.of(column));
+      }
+      json.indexes = table.indexes();
+      json.foreignKeys = new ArrayList<>();
+      for (ForeignKey foreignKey : table.foreignKeys()) {
+        json.foreignKeys.add(ForeignKeyJson.of(foreignKey));
+      }
+      json.checkConstraints = table.checkConstraints();
+      return json;
+    }
+
+    void addTo(Ddl.Builder ddlBuilder) {
+      Table.Builder builder =
+          ddlBuilder
+              .createTable(name)
+              .interleaveInParent(interleaveInParent)
+              .onDeleteCascade(onDeleteCascade)
+              .indexes(ImmutableList.copyOf(indexes))
+              .checkConstraints(ImmutableList.copyOf(checkConstraints));
+      for (int i = 0; i < primaryKeys.size(); i++) {
+        builder
+            .primaryKey()
+            .set(
+                IndexColumn.create(primaryKeys.get(i), primaryKeyOrders.get(i), builder.dialect()));
+      }
+      for (ColumnJson column : columns) {
+        column.addTo(builder);
+      }
+      ImmutableList.Builder<ForeignKey> tableForeignKeys = ImmutableList.builder();
+      for (ForeignKeyJson foreignKey : foreignKeys) {
+        tableForeignKeys.add(foreignKey.toForeignKey(builder.dialect()));
+      }
+      builder.foreignKeys(tableForeignKeys.build()).endTable();
+    }
+  }
+
+  private static class ColumnJson {
+    String name;
+    String type;
+    boolean notNull;
+    boolean isGenerated;
+    String generationExpression;
+    boolean isStored;
+    List<String> columnOptions;
+
+    static ColumnJson of(Column column) {
+      ColumnJson json = new ColumnJson();
+      json.name = column.name();
+      json.type = column.typeString();
+      json.notNull = column.notNull();
+      json.isGenerated = column.isGenerated();
+      json.generationExpression = column.generationExpression();
+      json.isStored = column.isStored();
+      json.columnOptions = column.columnOptions();
+      return json;
+    }
+
+    void addTo(Table.Builder builder) {
+      builder
+          .column(name)
+          .parseType(type)
+          .notNull(notNull)
+          .isGenerated(isGenerated)
+          .generationExpression(generationExpression)
+          .isStored(isStored)
+          .columnOptions(ImmutableList.copyOf(columnOptions))
+          .endColumn();
+    }
+  }
+
+  private static class ForeignKeyJson {
+    String name;
+    String table;
+    String referencedTable;
+    List<String> columns;
+    List<String> referencedColumns;
+
+    static ForeignKeyJson of(ForeignKey foreignKey) {
+      ForeignKeyJson json = new ForeignKeyJson();
+      json.name = foreignKey.name();
+      json.table = foreignKey.table();
+      json.referencedTable = foreignKey.referencedTable();
+      json.columns = foreignKey.columns();
+      json.referencedColumns = foreignKey.referencedColumns();
+      return json;
+    }
+
+    ForeignKey toForeignKey(Dialect dialect) {
+      ForeignKey.Builder builder =
+          ForeignKey.builder(dialect).name(name).table(table).referencedTable(referencedTable);
+      builder.columnsBuilder().addAll(columns);
+      builder.referencedColumnsBuilder().addAll(referencedColumns);
+      return builder.build();
+    }
+  }
+}
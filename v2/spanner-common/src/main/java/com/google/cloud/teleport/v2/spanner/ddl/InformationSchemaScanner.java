@@ -17,6 +17,7 @@ package com.google.cloud.teleport.v2.spanner.ddl;
 
 import com.google.cloud.spanner.Dialect;
 import com.google.cloud.spanner.ReadContext;
+import com.google.cloud.spanner.ReadOnlyTransaction;
 import com.google.cloud.spanner.ResultSet;
 import com.google.cloud.spanner.Statement;
 import com.google.common.base.Strings;
@@ -26,6 +27,7 @@ import com.google.common.escape.Escaper;
 import com.google.common.escape.Escapers;
 import java.util.Map;
 import java.util.NavigableMap;
+import javax.annotation.Nullable;
 import org.apache.beam.sdk.values.KV;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,6 +47,9 @@ public class InformationSchemaScanner {
   private final ReadContext context;
   private final Dialect dialect;
 
+  /** The queries started ahead of the current scan, if any. */
+  @Nullable private ConcurrentQueries queries;
+
   public InformationSchemaScanner(ReadContext context) {
     this.context = context;
     this.dialect = Dialect.GOOGLE_STANDARD_SQL;
@@ -55,7 +60,33 @@ public class InformationSchemaScanner {
     this.dialect = dialect;
   }
 
+  /**
+   * Scans the information schema. In a read-only transaction, the independent queries are issued
+   * concurrently and their results consumed in order; other contexts run them one by one.
+   */
   public Ddl scan() {
+    if (!(context instanceof ReadOnlyTransaction)) {
+      return scanInOrder();
+    }
+    try (ConcurrentQueries concurrentQueries =
+        new ConcurrentQueries(
+            context,
+            ImmutableList.of(
+                listTablesSQL(),
+                listColumnsSQL(),
+                listColumnOptionsSQL(),
+                listIndexesSQL(),
+                listIndexColumnsSQL(),
+                listForeignKeysSQL(),
+                listCheckConstraintsSQL()))) {
+      queries = concurrentQueries;
+      return scanInOrder();
+    } finally {
+      queries = null;
+    }
+  }
+
+  private Ddl scanInOrder() {
     Ddl.Builder builder = Ddl.builder(dialect);
     listTables(builder);
 
@@ -117,30 +148,12 @@ public class InformationSchemaScanner {
     return ddl;
   }
 
+  private ResultSet executeQuery(Statement statement) {
+    return queries != null ? queries.executeQuery(statement) : context.executeQuery(statement);
+  }
+
   private void listTables(Ddl.Builder builder) {
-    Statement query;
-    switch (dialect) {
-      case GOOGLE_STANDARD_SQL:
-        query =
-            Statement.of(
-                "SELECT t.table_name, t.parent_table_name, t.on_delete_action"
-                    + " FROM information_schema.tables AS t"
-                    + " WHERE t.table_catalog = '' AND t.table_schema = ''"
-                    + " AND t.table_type='BASE TABLE'");
-        break;
-      case POSTGRESQL:
-        query =
-            Statement.of(
-                "SELECT t.table_name, t.parent_table_name, t.on_delete_action FROM"
-                    + " information_schema.tables AS t"
-                    + " WHERE t.table_schema NOT IN "
-                    + "('information_schema', 'spanner_sys', 'pg_catalog')"
-                    + " AND t.table_type='BASE TABLE'");
-        break;
-      default:
-        throw new IllegalArgumentException("Unrecognized dialect: " + dialect);
-    }
-    ResultSet resultSet = context.executeQuery(query);
+    ResultSet resultSet = executeQuery(listTablesSQL());
     while (resultSet.next()) {
       String tableName = resultSet.getString(0);
       String parentTableName = resultSet.isNull(1) ? null : resultSet.getString(1);
@@ -173,10 +186,30 @@ public class InformationSchemaScanner {
     }
   }
 
+  Statement listTablesSQL() {
+    switch (dialect) {
+      case GOOGLE_STANDARD_SQL:
+        return Statement.of(
+            "SELECT t.table_name, t.parent_table_name, t.on_delete_action"
+                + " FROM information_schema.tables AS t"
+                + " WHERE t.table_catalog = '' AND t.table_schema = ''"
+                + " AND t.table_type='BASE TABLE'");
+      case POSTGRESQL:
+        return Statement.of(
+            "SELECT t.table_name, t.parent_table_name, t.on_delete_action FROM"
+                + " information_schema.tables AS t"
+                + " WHERE t.table_schema NOT IN "
+                + "('information_schema', 'spanner_sys', 'pg_catalog')"
+                + " AND t.table_type='BASE TABLE'");
+      default:
+        throw new IllegalArgumentException("Unrecognized dialect: " + dialect);
+    }
+  }
+
   private void listColumns(Ddl.Builder builder) {
     Statement statement = listColumnsSQL();
 
-    ResultSet resultSet = context.executeQuery(statement);
+    ResultSet resultSet = executeQuery(statement);
     while (resultSet.next()) {
       String tableName = resultSet.getString(0);
       String columnName = resultSet.getString(1);
@@ -231,7 +264,7 @@ public class InformationSchemaScanner {
   private void listIndexes(Map<String, NavigableMap<String, Index.Builder>> indexes) {
     Statement statement = listIndexesSQL();
 
-    ResultSet resultSet = context.executeQuery(statement);
+    ResultSet resultSet = executeQuery(statement);
     while (resultSet.next()) {
       String tableName = resultSet.getString(0);
       String indexName = resultSet.getString(1);
@@ -296,7 +329,7 @@ public class InformationSchemaScanner {
       Ddl.Builder builder, Map<String, NavigableMap<String, Index.Builder>> indexes) {
     Statement statement = listIndexColumnsSQL();
 
-    ResultSet resultSet = context.executeQuery(statement);
+    ResultSet resultSet = executeQuery(statement);
     while (resultSet.next()) {
       String tableName = resultSet.getString(0);
       String columnName = resultSet.getString(1);
@@ -359,7 +392,7 @@ public class InformationSchemaScanner {
   private void listColumnOptions(Ddl.Builder builder) {
     Statement statement = listColumnOptionsSQL();
 
-    ResultSet resultSet = context.executeQuery(statement);
+    ResultSet resultSet = executeQuery(statement);
 
     Map<KV<String, String>, ImmutableList.Builder<String>> allOptions = Maps.newHashMap();
     while (resultSet.next()) {
@@ -422,66 +455,7 @@ public class InformationSchemaScanner {
   }
 
   private void listForeignKeys(Map<String, NavigableMap<String, ForeignKey.Builder>> foreignKeys) {
-    Statement statement;
-
-    switch (dialect) {
-      case GOOGLE_STANDARD_SQL:
-        statement =
-            Statement.of(
-                "SELECT rc.constraint_name,"
-                    + " kcu1.table_name,"
-                    + " kcu1.column_name,"
-                    + " kcu2.table_name,"
-                    + " kcu2.column_name"
-                    + " FROM information_schema.referential_constraints as rc"
-                    + " INNER JOIN information_schema.key_column_usage as kcu1"
-                    + " ON kcu1.constraint_catalog = rc.constraint_catalog"
-                    + " AND kcu1.constraint_schema = rc.constraint_schema"
-                    + " AND kcu1.constraint_name = rc.constraint_name"
-                    + " INNER JOIN information_schema.key_column_usage as kcu2"
-                    + " ON kcu2.constraint_catalog = rc.unique_constraint_catalog"
-                    + " AND kcu2.constraint_schema = rc.unique_constraint_schema"
-                    + " AND kcu2.constraint_name = rc.unique_constraint_name"
-                    + " AND kcu2.ordinal_position = kcu1.position_in_unique_constraint"
-                    + " WHERE rc.constraint_catalog = ''"
-                    + " AND rc.constraint_schema = ''"
-                    + " AND kcu1.constraint_catalog = ''"
-                    + " AND kcu1.constraint_schema = ''"
-                    + " AND kcu2.constraint_catalog = ''"
-                    + " AND kcu2.constraint_schema = ''"
-                    + " ORDER BY rc.constraint_name, kcu1.ordinal_position;");
-        break;
-      case POSTGRESQL:
-        statement =
-            Statement.of(
-                "SELECT rc.constraint_name,"
-                    + " kcu1.table_name,"
-                    + " kcu1.column_name,"
-                    + " kcu2.table_name,"
-                    + " kcu2.column_name"
-                    + " FROM information_schema.referential_constraints as rc"
-                    + " INNER JOIN information_schema.key_column_usage as kcu1"
-                    + " ON kcu1.constraint_catalog = rc.constraint_catalog"
-                    + " AND kcu1.constraint_schema = rc.constraint_schema"
-                    + " AND kcu1.constraint_name = rc.constraint_name"
-                    + " INNER JOIN information_schema.key_column_usage as kcu2"
-                    + " ON kcu2.constraint_catalog = rc.unique_constraint_catalog"
-                    + " AND kcu2.constraint_schema = rc.unique_constraint_schema"
-                    + " AND kcu2.constraint_name = rc.unique_constraint_name"
-                    + " AND kcu2.ordinal_position = kcu1.position_in_unique_constraint"
-                    + " WHERE rc.constraint_catalog = kcu1.constraint_catalog"
-                    + " AND rc.constraint_catalog = kcu2.constraint_catalog"
-                    + " AND rc.constraint_schema NOT IN "
-                    + " ('information_schema', 'spanner_sys', 'pg_catalog')"
-                    + " AND rc.constraint_schema = kcu1.constraint_schema"
-                    + " AND rc.constraint_schema = kcu2.constraint_schema"
-                    + " ORDER BY rc.constraint_name, kcu1.ordinal_position;");
-        break;
-      default:
-        throw new IllegalArgumentException("Unrecognized dialect: " + dialect);
-    }
-
-    ResultSet resultSet = context.executeQuery(statement);
+    ResultSet resultSet = executeQuery(listForeignKeysSQL());
     while (resultSet.next()) {
       String name = resultSet.getString(0);
       String table = resultSet.getString(1);
@@ -503,52 +477,64 @@ public class InformationSchemaScanner {
     }
   }
 
-  private Map<String, NavigableMap<String, CheckConstraint>> listCheckConstraints() {
-    Map<String, NavigableMap<String, CheckConstraint>> checkConstraints = Maps.newHashMap();
-    Statement statement;
-
+  Statement listForeignKeysSQL() {
     switch (dialect) {
       case GOOGLE_STANDARD_SQL:
-        statement =
-            Statement.of(
-                "SELECT ctu.TABLE_NAME,"
-                    + " cc.CONSTRAINT_NAME,"
-                    + " cc.CHECK_CLAUSE"
-                    + " FROM INFORMATION_SCHEMA.CONSTRAINT_TABLE_USAGE as ctu"
-                    + " INNER JOIN INFORMATION_SCHEMA.CHECK_CONSTRAINTS as cc"
-                    + " ON ctu.constraint_catalog = cc.constraint_catalog"
-                    + " AND ctu.constraint_schema = cc.constraint_schema"
-                    + " AND ctu.CONSTRAINT_NAME = cc.CONSTRAINT_NAME"
-                    + " WHERE NOT STARTS_WITH(cc.CONSTRAINT_NAME, 'CK_IS_NOT_NULL_')"
-                    + " AND ctu.table_catalog = ''"
-                    + " AND ctu.table_schema = ''"
-                    + " AND ctu.constraint_catalog = ''"
-                    + " AND ctu.constraint_schema = ''"
-                    + " AND cc.SPANNER_STATE = 'COMMITTED';");
-        break;
+        return Statement.of(
+            "SELECT rc.constraint_name,"
+                + " kcu1.table_name,"
+                + " kcu1.column_name,"
+                + " kcu2.table_name,"
+                + " kcu2.column_name"
+                + " FROM information_schema.referential_constraints as rc"
+                + " INNER JOIN information_schema.key_column_usage as kcu1"
+                + " ON kcu1.constraint_catalog = rc.constraint_catalog"
+                + " AND kcu1.constraint_schema = rc.constraint_schema"
+                + " AND kcu1.constraint_name = rc.constraint_name"
+                + " INNER JOIN information_schema.key_column_usage as kcu2"
+                + " ON kcu2.constraint_catalog = rc.unique_constraint_catalog"
+                + " AND kcu2.constraint_schema = rc.unique_constraint_schema"
+                + " AND kcu2.constraint_name = rc.unique_constraint_name"
+                + " AND kcu2.ordinal_position = kcu1.position_in_unique_constraint"
+                + " WHERE rc.constraint_catalog = ''"
+                + " AND rc.constraint_schema = ''"
+                + " AND kcu1.constraint_catalog = ''"
+                + " AND kcu1.constraint_schema = ''"
+                + " AND kcu2.constraint_catalog = ''"
+                + " AND kcu2.constraint_schema = ''"
+                + " ORDER BY rc.constraint_name, kcu1.ordinal_position;");
       case POSTGRESQL:
-        statement =
-            Statement.of(
-                "SELECT ctu.TABLE_NAME,"
-                    + " cc.CONSTRAINT_NAME,"
-                    + " cc.CHECK_CLAUSE"
-                    + " FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS as ctu"
-                    + " INNER JOIN INFORMATION_SCHEMA.CHECK_CONSTRAINTS as cc"
-                    + " ON ctu.constraint_catalog = cc.constraint_catalog"
-                    + " AND ctu.constraint_schema = cc.constraint_schema"
-                    + " AND ctu.CONSTRAINT_NAME = cc.CONSTRAINT_NAME"
-                    + " WHERE NOT STARTS_WITH(cc.CONSTRAINT_NAME, 'CK_IS_NOT_NULL_')"
-                    + " AND ctu.table_catalog = ctu.constraint_catalog"
-                    + " AND ctu.table_schema NOT IN"
-                    + "('information_schema', 'spanner_sys', 'pg_catalog')"
-                    + " AND ctu.table_schema = ctu.constraint_schema"
-                    + " AND cc.SPANNER_STATE = 'COMMITTED';");
-        break;
+        return Statement.of(
+            "SELECT rc.constraint_name,"
+                + " kcu1.table_name,"
+                + " kcu1.column_name,"
+                + " kcu2.table_name,"
+                + " kcu2.column_name"
+                + " FROM information_schema.referential_constraints as rc"
+                + " INNER JOIN information_schema.key_column_usage as kcu1"
+                + " ON kcu1.constraint_catalog = rc.constraint_catalog"
+                + " AND kcu1.constraint_schema = rc.constraint_schema"
+                + " AND kcu1.constraint_name = rc.constraint_name"
+                + " INNER JOIN information_schema.key_column_usage as kcu2"
+                + " ON kcu2.constraint_catalog = rc.unique_constraint_catalog"
+                + " AND kcu2.constraint_schema = rc.unique_constraint_schema"
+                + " AND kcu2.constraint_name = rc.unique_constraint_name"
+                + " AND kcu2.ordinal_position = kcu1.position_in_unique_constraint"
+                + " WHERE rc.constraint_catalog = kcu1.constraint_catalog"
+                + " AND rc.constraint_catalog = kcu2.constraint_catalog"
+                + " AND rc.constraint_schema NOT IN "
+                + " ('information_schema', 'spanner_sys', 'pg_catalog')"
+                + " AND rc.constraint_schema = kcu1.constraint_schema"
+                + " AND rc.constraint_schema = kcu2.constraint_schema"
+                + " ORDER BY rc.constraint_name, kcu1.ordinal_position;");
       default:
         throw new IllegalArgumentException("Unrecognized dialect: " + dialect);
     }
+  }
 
-    ResultSet resultSet = context.executeQuery(statement);
+  private Map<String, NavigableMap<String, CheckConstraint>> listCheckConstraints() {
+    Map<String, NavigableMap<String, CheckConstraint>> checkConstraints = Maps.newHashMap();
+    ResultSet resultSet = executeQuery(listCheckConstraintsSQL());
     while (resultSet.next()) {
       String table = resultSet.getString(0);
       String name = resultSet.getString(1);
@@ -560,4 +546,43 @@ public class InformationSchemaScanner {
     }
     return checkConstraints;
   }
+
+  Statement listCheckConstraintsSQL() {
+    switch (dialect) {
+      case GOOGLE_STANDARD_SQL:
+        return Statement.of(
+            "SELECT ctu.TABLE_NAME,"
+                + " cc.CONSTRAINT_NAME,"
+                + " cc.CHECK_CLAUSE"
+                + " FROM INFORMATION_SCHEMA.CONSTRAINT_TABLE_USAGE as ctu"
+                + " INNER JOIN INFORMATION_SCHEMA.CHECK_CONSTRAINTS as cc"
+                + " ON ctu.constraint_catalog = cc.constraint_catalog"
+                + " AND ctu.constraint_schema = cc.constraint_schema"
+                + " AND ctu.CONSTRAINT_NAME = cc.CONSTRAINT_NAME"
+                + " WHERE NOT STARTS_WITH(cc.CONSTRAINT_NAME, 'CK_IS_NOT_NULL_')"
+                + " AND ctu.table_catalog = ''"
+                + " AND ctu.table_schema = ''"
+                + " AND ctu.constraint_catalog = ''"
+                + " AND ctu.constraint_schema = ''"
+                + " AND cc.SPANNER_STATE = 'COMMITTED';");
+      case POSTGRESQL:
+        return Statement.of(
+            "SELECT ctu.TABLE_NAME,"
+                + " cc.CONSTRAINT_NAME,"
+                + " cc.CHECK_CLAUSE"
+                + " FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS as ctu"
+                + " INNER JOIN INFORMATION_SCHEMA.CHECK_CONSTRAINTS as cc"
+                + " ON ctu.constraint_catalog = cc.constraint_catalog"
+                + " AND ctu.constraint_schema = cc.constraint_schema"
+                + " AND ctu.CONSTRAINT_NAME = cc.CONSTRAINT_NAME"
+                + " WHERE NOT STARTS_WITH(cc.CONSTRAINT_NAME, 'CK_IS_NOT_NULL_')"
+                + " AND ctu.table_catalog = ctu.constraint_catalog"
+                + " AND ctu.table_schema NOT IN"
+                + "('information_schema', 'spanner_sys', 'pg_catalog')"
+                + " AND ctu.table_schema = ctu.constraint_schema"
+                + " AND cc.SPANNER_STATE = 'COMMITTED';");
+      default:
+        throw new IllegalArgumentException("Unrecognized dialect: " + dialect);
+    }
+  }
 }
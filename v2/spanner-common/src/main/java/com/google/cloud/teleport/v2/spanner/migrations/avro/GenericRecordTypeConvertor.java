@@ -16,6 +16,7 @@
 package com.google.cloud.teleport.v2.spanner.migrations.avro;
 
 import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.Mutation;
 import com.google.cloud.spanner.Value;
 import com.google.cloud.teleport.v2.spanner.exceptions.InvalidTransformationException;
 import com.google.cloud.teleport.v2.spanner.migrations.schema.ISchemaMapper;
@@ -32,10 +33,13 @@ import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import org.apache.arrow.util.VisibleForTesting;
 import org.apache.avro.Conversions;
 import org.apache.avro.LogicalType;
@@ -68,6 +72,9 @@ public class GenericRecordTypeConvertor {
   private static final Schema CUSTOM_TRANSFORMATION_AVRO_SCHEMA =
       new LogicalType("custom_transform").addToSchema(SchemaBuilder.builder().stringType());
 
+  /** Conversion plans keyed by source table name, compiled on first use. */
+  private final Map<String, TableConversionPlan> conversionPlans = new HashMap<>();
+
   private final Distribution applyCustomTransformationResponseTimeMetric =
       Metrics.distribution(
           GenericRecordTypeConvertor.class, "apply_custom_transformation_impl_latency_ms");
@@ -138,6 +145,177 @@ public class GenericRecordTypeConvertor {
     return result;
   }
 
+  /**
+   * Converts a generic record to an insert-or-update {@link Mutation} on the mapped Spanner table.
+   * This gives the same values as {@link #transformChangeEvent(GenericRecord, String)}, but uses a
+   * conversion plan compiled once per source table, which resolves the schema mapper lookups, Avro
+   * field positions and value convertors up front. Values are written straight into the mutation
+   * without an intermediate map.
+   *
+   * <p>This method can return 'null' which indicates the change event needs to be skipped.
+   */
+  public Mutation transformChangeEventToMutation(GenericRecord record, String srcTableName)
+      throws InvalidTransformationException {
+    TableConversionPlan plan = conversionPlans.get(srcTableName);
+    if (plan == null || !plan.isCompiledFor(record.getSchema())) {
+      plan = compileConversionPlan(srcTableName, record.getSchema());
+      conversionPlans.put(srcTableName, plan);
+    }
+    Mutation.WriteBuilder builder = Mutation.newInsertOrUpdateBuilder(plan.spannerTableName);
+    if (customTransformer == null) {
+      for (ColumnConversion column : plan.columns) {
+        Value value = column.convert(record);
+        if (value != null) {
+          builder.set(column.spannerColName).to(value);
+        }
+      }
+      return builder.build();
+    }
+
+    Value[] values = new Value[plan.columns.length];
+    for (int i = 0; i < plan.columns.length; i++) {
+      values[i] = plan.columns[i].convert(record);
+    }
+    MigrationTransformationResponse migrationTransformationResponse =
+        getCustomTransformationResponse(genericRecordToMap(record), srcTableName, shardId);
+    if (migrationTransformationResponse.isEventFiltered()) {
+      return null;
+    }
+    Map<String, Value> additionalValues = new LinkedHashMap<>();
+    for (Map.Entry<String, Object> entry :
+        migrationTransformationResponse.getResponseRow().entrySet()) {
+      String spannerColName = entry.getKey();
+      Type spannerType =
+          schemaMapper.getSpannerColumnType(namespace, plan.spannerTableName, spannerColName);
+      Value val =
+          getSpannerValueFromObject(
+              entry.getValue(), CUSTOM_TRANSFORMATION_AVRO_SCHEMA, spannerColName, spannerType);
+      Integer idx = plan.columnIndex.get(spannerColName);
+      if (idx != null) {
+        values[idx] = val;
+      } else {
+        additionalValues.put(spannerColName, val);
+      }
+    }
+    for (int i = 0; i < plan.columns.length; i++) {
+      if (values[i] != null) {
+        builder.set(plan.columns[i].spannerColName).to(values[i]);
+      }
+    }
+    for (Map.Entry<String, Value> entry : additionalValues.entrySet()) {
+      if (entry.getValue() != null) {
+        builder.set(entry.getKey()).to(entry.getValue());
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Resolves the Spanner columns of a source table against the Avro schema of its records. Errors
+   * that {@link #transformChangeEvent(GenericRecord, String)} would raise for every record of the
+   * table, like unsupported types or unknown columns, are raised here.
+   */
+  private TableConversionPlan compileConversionPlan(String srcTableName, Schema recordSchema) {
+    String spannerTableName = schemaMapper.getSpannerTableName(namespace, srcTableName);
+    List<String> spannerColNames = schemaMapper.getSpannerColumns(namespace, spannerTableName);
+    // This is null/blank for identity/non-sharded cases.
+    String shardIdCol = schemaMapper.getShardIdColumnName(namespace, spannerTableName);
+    Dialect dialect = schemaMapper.getDialect();
+    if (dialect == null) {
+      throw new NullPointerException("schemaMapper returned null spanner dialect.");
+    }
+    List<ColumnConversion> columns = new ArrayList<>(spannerColNames.size());
+    for (String spannerColName : spannerColNames) {
+      if (spannerColName.equals(shardIdCol)) {
+        if (shardId != null && !shardId.isBlank()) {
+          Value shardIdValue = Value.string(shardId);
+          columns.add(new ColumnConversion(spannerColName, record -> shardIdValue));
+        }
+        continue;
+      }
+      try {
+        String srcColName =
+            schemaMapper.getSourceColumnName(namespace, spannerTableName, spannerColName);
+        Type spannerColumnType =
+            schemaMapper.getSpannerColumnType(namespace, spannerTableName, spannerColName);
+        Schema.Field field = recordSchema.getField(srcColName);
+        int pos = field.pos();
+        Schema fieldSchema = filterNullSchema(field.schema(), srcColName, null);
+        AvroToValueMapper.AvroToValueFunction convertor =
+            AvroToValueMapper.convertorMap().get(dialect).get(spannerColumnType);
+        if (convertor == null) {
+          throw new IllegalArgumentException(
+              "Found unsupported Spanner column type("
+                  + spannerColumnType.getCode()
+                  + ") for column "
+                  + srcColName);
+        }
+        columns.add(
+            new ColumnConversion(
+                spannerColName,
+                record -> {
+                  Object recordValue =
+                      handleNonPrimitiveAvroTypes(record.get(pos), fieldSchema, srcColName);
+                  return convertor.apply(recordValue, fieldSchema);
+                }));
+      } catch (NullPointerException | IllegalArgumentException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new RuntimeException(
+            String.format("Unable to convert spanner value for spanner col: %s", spannerColName),
+            e);
+      }
+    }
+    return new TableConversionPlan(
+        spannerTableName, recordSchema, columns.toArray(new ColumnConversion[0]));
+  }
+
+  /** Conversion of the records of one source table with a given Avro schema. */
+  private static final class TableConversionPlan {
+    private final String spannerTableName;
+    private final Schema recordSchema;
+    private final ColumnConversion[] columns;
+    private final Map<String, Integer> columnIndex;
+
+    private TableConversionPlan(
+        String spannerTableName, Schema recordSchema, ColumnConversion[] columns) {
+      this.spannerTableName = spannerTableName;
+      this.recordSchema = recordSchema;
+      this.columns = columns;
+      this.columnIndex = new HashMap<>();
+      for (int i = 0; i < columns.length; i++) {
+        columnIndex.put(columns[i].spannerColName, i);
+      }
+    }
+
+    private boolean isCompiledFor(Schema schema) {
+      return recordSchema == schema || recordSchema.equals(schema);
+    }
+  }
+
+  /** Conversion of a single Spanner column from a record. */
+  private static final class ColumnConversion {
+    private final String spannerColName;
+    private final Function<GenericRecord, Value> convertor;
+
+    private ColumnConversion(String spannerColName, Function<GenericRecord, Value> convertor) {
+      this.spannerColName = spannerColName;
+      this.convertor = convertor;
+    }
+
+    private Value convert(GenericRecord record) {
+      try {
+        return convertor.apply(record);
+      } catch (NullPointerException | IllegalArgumentException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new RuntimeException(
+            String.format("Unable to convert spanner value for spanner col: %s", spannerColName),
+            e);
+      }
+    }
+  }
+
   /**
    * Applies custom transformations to the source row (Generic Record) and returns a Map of Spanner
    * Columns to values to be overwritten.
@@ -21,6 +21,7 @@ import com.google.cloud.spanner.DatabaseAdminClient;
 import com.google.cloud.spanner.Dialect;
 import com.google.cloud.spanner.TimestampBound;
 import com.google.cloud.teleport.v2.spanner.ddl.Ddl;
+import com.google.cloud.teleport.v2.spanner.ddl.DdlSnapshotCache;
 import com.google.cloud.teleport.v2.spanner.ddl.InformationSchemaScanner;
 import org.apache.beam.sdk.io.gcp.spanner.SpannerAccessor;
 import org.apache.beam.sdk.io.gcp.spanner.SpannerConfig;
@@ -30,6 +31,32 @@ public class SpannerSchema {
 
   public static Ddl getInformationSchemaAsDdl(SpannerConfig spannerConfig) {
     SpannerAccessor spannerAccessor = SpannerAccessor.getOrCreate(spannerConfig);
+    Ddl ddl = scan(spannerAccessor, spannerConfig);
+    spannerAccessor.close();
+    return ddl;
+  }
+
+  /**
+   * Returns the information schema as a {@link Ddl}, reusing the snapshot in {@code cache} if the
+   * schema has not changed since it was taken.
+   */
+  public static Ddl getInformationSchemaAsDdl(SpannerConfig spannerConfig, DdlSnapshotCache cache) {
+    SpannerAccessor spannerAccessor = SpannerAccessor.getOrCreate(spannerConfig);
+    String instanceId = spannerConfig.getInstanceId().get();
+    String databaseId = spannerConfig.getDatabaseId().get();
+    String projectId =
+        spannerConfig.getProjectId() == null ? null : spannerConfig.getProjectId().get();
+    Ddl ddl =
+        cache.get(
+            String.format("%s/%s/%s", projectId, instanceId, databaseId),
+            DdlSnapshotCache.schemaVersion(
+                spannerAccessor.getDatabaseAdminClient(), instanceId, databaseId),
+            () -> scan(spannerAccessor, spannerConfig));
+    spannerAccessor.close();
+    return ddl;
+  }
+
+  private static Ddl scan(SpannerAccessor spannerAccessor, SpannerConfig spannerConfig) {
     DatabaseAdminClient databaseAdminClient = spannerAccessor.getDatabaseAdminClient();
     Dialect dialect =
         databaseAdminClient
@@ -39,8 +66,6 @@ public class SpannerSchema {
     BatchReadOnlyTransaction context =
         batchClient.batchReadOnlyTransaction(TimestampBound.strong());
     InformationSchemaScanner scanner = new InformationSchemaScanner(context, dialect);
-    Ddl ddl = scanner.scan();
-    spannerAccessor.close();
-    return ddl;
+    return scanner.scan();
   }
 }
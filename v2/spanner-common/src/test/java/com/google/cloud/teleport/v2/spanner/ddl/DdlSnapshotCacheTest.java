@@ -0,0 +1,303 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.spanner.ddl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.api.gax.paging.Page;
+import com.google.cloud.spanner.DatabaseAdminClient;
+import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.Options.ListOption;
+import com.google.cloud.spanner.SpannerException;
+import com.google.common.collect.ImmutableList;
+import com.google.longrunning.Operation;
+import com.google.protobuf.Any;
+import com.google.protobuf.util.Timestamps;
+import com.google.spanner.admin.database.v1.UpdateDatabaseDdlMetadata;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DdlSnapshotCacheTest {
+
+  private static final Instant NOW = Instant.parse("2024-06-01T00:00:00Z");
+
+  @Rule public final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+  private final AtomicInteger scans = new AtomicInteger();
+
+  @After
+  public void tearDown() {
+    DdlSnapshotCache.clearInMemory();
+  }
+
+  private Supplier<Ddl> scan(String table) {
+    return () -> {
+      scans.incrementAndGet();
+      return Ddl.builder(Dialect.GOOGLE_STANDARD_SQL)
+          .createTable(table)
+          .column("id")
+          .int64()
+          .endColumn()
+          .primaryKey()
+          .asc("id")
+          .end()
+          .endTable()
+          .build();
+    };
+  }
+
+  private static DdlSnapshotCache cacheAt(String directory, Instant instant) {
+    return new DdlSnapshotCache(directory, Clock.fixed(instant, ZoneOffset.UTC));
+  }
+
+  @Test
+  public void testInMemoryReusesSnapshotOfSameVersion() {
+    DdlSnapshotCache cache = cacheAt(null, NOW);
+
+    Ddl first = cache.get("db", "2024-05-01T00:00:00Z", scan("t1"));
+    Ddl second = cache.get("db", "2024-05-01T00:00:00Z", scan("t2"));
+
+    assertEquals(1, scans.get());
+    assertEquals(first.prettyPrint(), second.prettyPrint());
+  }
+
+  @Test
+  public void testNewVersionScansAgain() {
+    DdlSnapshotCache cache = cacheAt(null, NOW);
+
+    cache.get("db", "2024-05-01T00:00:00Z", scan("t1"));
+    Ddl ddl = cache.get("db", "2024-05-02T00:00:00Z", scan("t2"));
+
+    assertEquals(2, scans.get());
+    assertEquals(scan("t2").get().prettyPrint(), ddl.prettyPrint());
+  }
+
+  @Test
+  public void testUnknownVersionAlwaysScans() {
+    DdlSnapshotCache cache = cacheAt(null, NOW);
+
+    cache.get("db", null, scan("t1"));
+    cache.get("db", null, scan("t1"));
+
+    assertEquals(2, scans.get());
+  }
+
+  @Test
+  public void testDirectoryOutlivesMemory() throws Exception {
+    String directory = tmpFolder.newFolder("snapshots").getAbsolutePath();
+    Ddl written = cacheAt(directory, NOW).get("db", "v1", scan("t1"));
+    DdlSnapshotCache.clearInMemory();
+
+    Ddl read = cacheAt(directory, NOW).get("db", "v1", scan("t2"));
+
+    assertEquals(1, scans.get());
+    assertEquals(written.prettyPrint(), read.prettyPrint());
+
+    DdlSnapshotCache.clearInMemory();
+    cacheAt(directory, NOW).get("db", "v2", scan("t2"));
+    assertEquals(2, scans.get());
+  }
+
+  @Test
+  public void testDirectorySnapshotRebuildsEveryAttribute() throws Exception {
+    String directory = tmpFolder.newFolder("snapshots").getAbsolutePath();
+    for (Dialect dialect : Dialect.values()) {
+      Ddl ddl = fullDdl(dialect);
+      cacheAt(directory, NOW).get(dialect.name(), "v1", () -> ddl);
+      DdlSnapshotCache.clearInMemory();
+
+      Ddl read = cacheAt(directory, NOW).get(dialect.name(), "v1", scan("t2"));
+
+      assertEquals(ddl, read);
+      assertEquals(ddl.prettyPrint(), read.prettyPrint());
+    }
+    assertEquals(0, scans.get());
+  }
+
+  @Test
+  public void testDirectorySnapshotsAreVersionedJson() throws Exception {
+    File directory = tmpFolder.newFolder("snapshots");
+    cacheAt(directory.getAbsolutePath(), NOW).get("db", "v1", scan("t1"));
+
+    File snapshot = new File(directory, "db.ddl-v" + DdlSnapshotCache.SNAPSHOT_FORMAT + ".json");
+    String json = new String(Files.readAllBytes(snapshot.toPath()), StandardCharsets.UTF_8);
+    assertTrue(json.startsWith("{\"format\":" + DdlSnapshotCache.SNAPSHOT_FORMAT + ","));
+  }
+
+  @Test
+  public void testSnapshotOfOtherFormatIsScannedAgain() throws Exception {
+    File directory = tmpFolder.newFolder("snapshots");
+    cacheAt(directory.getAbsolutePath(), NOW).get("db", "v1", scan("t1"));
+    DdlSnapshotCache.clearInMemory();
+    File snapshot = new File(directory, "db.ddl-v" + DdlSnapshotCache.SNAPSHOT_FORMAT + ".json");
+    String json = new String(Files.readAllBytes(snapshot.toPath()), StandardCharsets.UTF_8);
+    Files.write(
+        snapshot.toPath(),
+        json.replaceFirst("\"format\":\\d+", "\"format\":0").getBytes(StandardCharsets.UTF_8));
+
+    Ddl ddl = cacheAt(directory.getAbsolutePath(), NOW).get("db", "v1", scan("t2"));
+
+    assertEquals(2, scans.get());
+    assertEquals(scan("t2").get().prettyPrint(), ddl.prettyPrint());
+  }
+
+  @Test
+  public void testUnreadableSnapshotIsScannedAgain() throws Exception {
+    File directory = tmpFolder.newFolder("snapshots");
+    File snapshot = new File(directory, "db.ddl-v" + DdlSnapshotCache.SNAPSHOT_FORMAT + ".json");
+    Files.write(snapshot.toPath(), new byte[] {(byte) 0xac, (byte) 0xed, 0, 5});
+
+    cacheAt(directory.getAbsolutePath(), NOW).get("db", "v1", scan("t1"));
+
+    assertEquals(1, scans.get());
+  }
+
+  @Test
+  public void testSnapshotWithoutRetainedUpdatesExpires() {
+    String version = DdlSnapshotCache.NO_RETAINED_UPDATES;
+    cacheAt(null, NOW).get("db", version, scan("t1"));
+
+    cacheAt(null, NOW.plus(Duration.ofHours(23))).get("db", version, scan("t1"));
+    assertEquals(1, scans.get());
+
+    cacheAt(null, NOW.plus(Duration.ofHours(25))).get("db", version, scan("t1"));
+    assertEquals(2, scans.get());
+  }
+
+  @Test
+  public void testSchemaVersionIsLatestCommitTimestamp() {
+    DatabaseAdminClient client =
+        clientListing(
+            List.of(
+                ddlOperation(true, "2024-05-01T00:00:00Z", "2024-05-03T00:00:00Z"),
+                ddlOperation(true, "2024-05-02T00:00:00Z")));
+
+    assertEquals(
+        "2024-05-03T00:00:00Z", DdlSnapshotCache.schemaVersion(client, "instance", "database"));
+  }
+
+  @Test
+  public void testSchemaVersionWithoutOperations() {
+    DatabaseAdminClient client = clientListing(List.of());
+
+    assertEquals(
+        DdlSnapshotCache.NO_RETAINED_UPDATES,
+        DdlSnapshotCache.schemaVersion(client, "instance", "database"));
+  }
+
+  @Test
+  public void testSchemaVersionUnknownWhileUpdateRuns() {
+    DatabaseAdminClient client =
+        clientListing(
+            List.of(
+                ddlOperation(true, "2024-05-01T00:00:00Z"),
+                ddlOperation(false, "2024-05-02T00:00:00Z")));
+
+    assertNull(DdlSnapshotCache.schemaVersion(client, "instance", "database"));
+  }
+
+  @Test
+  public void testSchemaVersionUnknownWhenListingFails() {
+    DatabaseAdminClient client = mock(DatabaseAdminClient.class);
+    when(client.listDatabaseOperations(eq("instance"), any(ListOption.class)))
+        .thenThrow(mock(SpannerException.class));
+
+    assertNull(DdlSnapshotCache.schemaVersion(client, "instance", "database"));
+  }
+
+  private static Ddl fullDdl(Dialect dialect) {
+    boolean pg = dialect == Dialect.POSTGRESQL;
+    Ddl.Builder builder = Ddl.builder(dialect);
+    Table.Builder parent = builder.createTable("Parent");
+    (pg ? parent.column("id").pgInt8() : parent.column("id").int64()).notNull().endColumn();
+    (pg ? parent.column("name").pgVarchar().size(10) : parent.column("name").string().size(10))
+        .columnOptions(pg ? ImmutableList.of() : ImmutableList.of("allow_commit_timestamp=TRUE"))
+        .endColumn();
+    (pg ? parent.column("upper").pgText() : parent.column("upper").string().max())
+        .generatedAs("UPPER(name)")
+        .stored()
+        .endColumn();
+    parent.column("tags").parseType(pg ? "text[]" : "ARRAY<STRING(MAX)>").endColumn();
+    parent
+        .checkConstraints(ImmutableList.of("CONSTRAINT ck CHECK (id > 0)"))
+        .indexes(ImmutableList.of("CREATE INDEX idx ON Parent (name)"))
+        .primaryKey()
+        .asc("id")
+        .end()
+        .endTable();
+    Table.Builder child = builder.createTable("Child");
+    (pg ? child.column("id").pgInt8() : child.column("id").int64()).endColumn();
+    (pg ? child.column("child_id").pgInt8() : child.column("child_id").int64()).endColumn();
+    ForeignKey.Builder foreignKey =
+        ForeignKey.builder(dialect).name("fk").table("Child").referencedTable("Parent");
+    foreignKey.columnsBuilder().add("child_id");
+    foreignKey.referencedColumnsBuilder().add("id");
+    child
+        .foreignKeys(ImmutableList.of(foreignKey.build()))
+        .primaryKey()
+        .asc("id")
+        .desc("child_id")
+        .end()
+        .interleaveInParent("Parent")
+        .onDeleteCascade()
+        .endTable();
+    return builder.build();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static DatabaseAdminClient clientListing(List<Operation> operations) {
+    Page<Operation> page = mock(Page.class);
+    when(page.iterateAll()).thenReturn(operations);
+    DatabaseAdminClient client = mock(DatabaseAdminClient.class);
+    when(client.listDatabaseOperations(eq("instance"), any(ListOption.class))).thenReturn(page);
+    return client;
+  }
+
+  private static Operation ddlOperation(boolean done, String... commitTimestamps) {
+    UpdateDatabaseDdlMetadata.Builder metadata = UpdateDatabaseDdlMetadata.newBuilder();
+    for (String commitTimestamp : commitTimestamps) {
+      try {
+        metadata.addCommitTimestamps(Timestamps.parse(commitTimestamp));
+      } catch (ParseException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+    return Operation.newBuilder()
+        .setName("operation-" + commitTimestamps[0])
+        .setDone(done)
+        .setMetadata(Any.pack(metadata.build()))
+        .build();
+  }
+}
@@ -16,13 +16,23 @@
 package com.google.cloud.teleport.v2.spanner.ddl;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.cloud.spanner.Dialect;
 import com.google.cloud.spanner.ReadContext;
+import com.google.cloud.spanner.ReadOnlyTransaction;
 import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.ResultSets;
 import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+import com.google.common.collect.ImmutableList;
 import org.junit.Test;
 
 public class InformationSchemaScannerTest {
@@ -431,4 +441,123 @@ public class InformationSchemaScannerTest {
         new InformationSchemaScanner(context, Dialect.fromName("xyz"));
     Ddl ddl = informationSchemaScanner.scan();
   }
+
+  @Test
+  public void testScanGSQLDdlConcurrently() {
+    ReadOnlyTransaction context = mock(ReadOnlyTransaction.class);
+    InformationSchemaScanner informationSchemaScanner =
+        new InformationSchemaScanner(context, Dialect.GOOGLE_STANDARD_SQL);
+    Type stringColumn = Type.struct(StructField.of("c0", Type.string()));
+    when(context.executeQuery(any(Statement.class)))
+        .thenAnswer(invocation -> ResultSets.forRows(stringColumn, ImmutableList.of()));
+    doAnswer(
+            invocation ->
+                ResultSets.forRows(
+                    Type.struct(
+                        StructField.of("table_name", Type.string()),
+                        StructField.of("parent_table_name", Type.string()),
+                        StructField.of("on_delete_action", Type.string())),
+                    ImmutableList.of(
+                        Struct.newBuilder()
+                            .set("table_name")
+                            .to("singer")
+                            .set("parent_table_name")
+                            .to((String) null)
+                            .set("on_delete_action")
+                            .to((String) null)
+                            .build(),
+                        Struct.newBuilder()
+                            .set("table_name")
+                            .to("album")
+                            .set("parent_table_name")
+                            .to("singer")
+                            .set("on_delete_action")
+                            .to("CASCADE")
+                            .build())))
+        .when(context)
+        .executeQuery(informationSchemaScanner.listTablesSQL());
+    doAnswer(
+            invocation ->
+                ResultSets.forRows(
+                    Type.struct(
+                        StructField.of("table_name", Type.string()),
+                        StructField.of("column_name", Type.string()),
+                        StructField.of("ordinal_position", Type.int64()),
+                        StructField.of("spanner_type", Type.string()),
+                        StructField.of("is_nullable", Type.string()),
+                        StructField.of("is_generated", Type.string()),
+                        StructField.of("generation_expression", Type.string()),
+                        StructField.of("is_stored", Type.string())),
+                    ImmutableList.of(
+                        column("singer", "singerId", 1, "INT64"),
+                        column("album", "singerId", 1, "INT64"),
+                        column("album", "albumId", 2, "INT64"))))
+        .when(context)
+        .executeQuery(informationSchemaScanner.listColumnsSQL());
+    doAnswer(
+            invocation ->
+                ResultSets.forRows(
+                    Type.struct(
+                        StructField.of("table_name", Type.string()),
+                        StructField.of("column_name", Type.string()),
+                        StructField.of("column_ordering", Type.string()),
+                        StructField.of("index_name", Type.string())),
+                    ImmutableList.of(
+                        primaryKeyColumn("singer", "singerId"),
+                        primaryKeyColumn("album", "singerId"),
+                        primaryKeyColumn("album", "albumId"))))
+        .when(context)
+        .executeQuery(informationSchemaScanner.listIndexColumnsSQL());
+
+    Ddl ddl = informationSchemaScanner.scan();
+
+    String expectedDdl =
+        "CREATE TABLE `singer` (\n"
+            + "\t`singerId`                              INT64 NOT NULL,\n"
+            + ") PRIMARY KEY (`singerId` ASC)\n"
+            + "\n"
+            + "\n"
+            + "CREATE TABLE `album` (\n"
+            + "\t`singerId`                              INT64 NOT NULL,\n"
+            + "\t`albumId`                               INT64 NOT NULL,\n"
+            + ") PRIMARY KEY (`singerId` ASC, `albumId` ASC),\n"
+            + "INTERLEAVE IN PARENT `singer` ON DELETE CASCADE\n"
+            + "\n";
+    assertEquals(expectedDdl, ddl.prettyPrint());
+    verify(context, times(7)).executeQuery(any(Statement.class));
+  }
+
+  private static Struct column(String table, String name, long position, String type) {
+    return Struct.newBuilder()
+        .set("table_name")
+        .to(table)
+        .set("column_name")
+        .to(name)
+        .set("ordinal_position")
+        .to(position)
+        .set("spanner_type")
+        .to(type)
+        .set("is_nullable")
+        .to("NO")
+        .set("is_generated")
+        .to("NEVER")
+        .set("generation_expression")
+        .to((String) null)
+        .set("is_stored")
+        .to((String) null)
+        .build();
+  }
+
+  private static Struct primaryKeyColumn(String table, String name) {
+    return Struct.newBuilder()
+        .set("table_name")
+        .to(table)
+        .set("column_name")
+        .to(name)
+        .set("column_ordering")
+        .to("ASC")
+        .set("index_name")
+        .to("PRIMARY_KEY")
+        .build();
+  }
 }
@@ -25,6 +25,7 @@ import static org.mockito.Mockito.when;
 import com.google.cloud.ByteArray;
 import com.google.cloud.Timestamp;
 import com.google.cloud.spanner.Dialect;
+import com.google.cloud.spanner.Mutation;
 import com.google.cloud.spanner.Value;
 import com.google.cloud.teleport.v2.spanner.ddl.Ddl;
 import com.google.cloud.teleport.v2.spanner.exceptions.InvalidTransformationException;
@@ -633,4 +634,102 @@ public class GenericRecordTypeConvertorTest {
     // Shard id should not be present.
     assertEquals(Map.of("new_name", Value.string("name1")), actual);
   }
+
+  @Test
+  public void transformChangeEventToMutationTest_identityMapper()
+      throws InvalidTransformationException {
+    GenericRecordTypeConvertor genericRecordTypeConvertor =
+        new GenericRecordTypeConvertor(new IdentityMapper(getIdentityDdl()), "", null, null);
+    GenericRecord genericRecord = new GenericData.Record(getAllSpannerTypesSchema());
+    genericRecord.put("bool_col", true);
+    genericRecord.put("int_col", 10);
+    genericRecord.put("float_col", 10.34);
+    genericRecord.put("string_col", "hello");
+    genericRecord.put(
+        "numeric_col", ByteBuffer.wrap(new BigDecimal("12.34").unscaledValue().toByteArray()));
+    genericRecord.put("bytes_col", ByteBuffer.wrap(new byte[] {10, 20, 30}));
+    genericRecord.put("timestamp_col", 1602599400056483L);
+    genericRecord.put("date_col", 738991);
+
+    Mutation actual =
+        genericRecordTypeConvertor.transformChangeEventToMutation(genericRecord, "all_types");
+    assertEquals("all_types", actual.getTable());
+    assertEquals(Mutation.Op.INSERT_OR_UPDATE, actual.getOperation());
+    assertEquals(
+        genericRecordTypeConvertor.transformChangeEvent(genericRecord, "all_types"),
+        actual.asMap());
+
+    // The conversion plan of the table is reused for the next record.
+    GenericRecord nullRecord = new GenericData.Record(getAllSpannerTypesSchema());
+    actual = genericRecordTypeConvertor.transformChangeEventToMutation(nullRecord, "all_types");
+    assertEquals(Value.int64(null), actual.asMap().get("int_col"));
+    assertEquals(
+        genericRecordTypeConvertor.transformChangeEvent(nullRecord, "all_types"), actual.asMap());
+  }
+
+  @Test
+  public void transformChangeEventToMutationTest_schemaChange()
+      throws InvalidTransformationException {
+    GenericRecordTypeConvertor genericRecordTypeConvertor =
+        new GenericRecordTypeConvertor(new IdentityMapper(getIdentityDdl()), "", null, null);
+    GenericRecord genericRecord = new GenericData.Record(getAllSpannerTypesSchema());
+    genericRecord.put("int_col", 10);
+    genericRecordTypeConvertor.transformChangeEventToMutation(genericRecord, "all_types");
+
+    // A record of the same table with a different field layout gets a new plan.
+    Schema reordered =
+        SchemaBuilder.record("all_types")
+            .namespace("com.test.schema")
+            .fields()
+            .name("string_col")
+            .type(unionNullType(Schema.create(Schema.Type.STRING)))
+            .noDefault()
+            .name("int_col")
+            .type(unionNullType(Schema.create(Schema.Type.LONG)))
+            .noDefault()
+            .name("bool_col")
+            .type(unionNullType(Schema.create(Schema.Type.BOOLEAN)))
+            .noDefault()
+            .name("float_col")
+            .type(unionNullType(Schema.create(Schema.Type.DOUBLE)))
+            .noDefault()
+            .name("numeric_col")
+            .type(unionNullType(Schema.create(Schema.Type.STRING)))
+            .noDefault()
+            .name("bytes_col")
+            .type(unionNullType(Schema.create(Schema.Type.BYTES)))
+            .noDefault()
+            .name("timestamp_col")
+            .type(unionNullType(Schema.create(Schema.Type.STRING)))
+            .noDefault()
+            .name("date_col")
+            .type(unionNullType(Schema.create(Schema.Type.STRING)))
+            .noDefault()
+            .endRecord();
+    GenericRecord reorderedRecord = new GenericData.Record(reordered);
+    reorderedRecord.put("string_col", "hello");
+    reorderedRecord.put("int_col", 20L);
+    Mutation actual =
+        genericRecordTypeConvertor.transformChangeEventToMutation(reorderedRecord, "all_types");
+    assertEquals(Value.string("hello"), actual.asMap().get("string_col"));
+    assertEquals(Value.int64(20), actual.asMap().get("int_col"));
+  }
+
+  @Test
+  public void transformChangeEventToMutationTest_unsupportedSpannerType() {
+    ISchemaMapper mapper = mock(ISchemaMapper.class);
+    when(mapper.getDialect()).thenReturn(Dialect.GOOGLE_STANDARD_SQL);
+    when(mapper.getSpannerTableName(anyString(), anyString())).thenReturn("test");
+    when(mapper.getSpannerColumns(anyString(), anyString())).thenReturn(List.of("bool_col"));
+    when(mapper.getSourceColumnName(anyString(), anyString(), anyString())).thenReturn("bool_col");
+    when(mapper.getSpannerColumnType(anyString(), anyString(), anyString()))
+        .thenReturn(Type.array(Type.bool()));
+    GenericRecord genericRecord = new GenericData.Record(getAllSpannerTypesSchema());
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            new GenericRecordTypeConvertor(mapper, "", null, null)
+                .transformChangeEventToMutation(genericRecord, "all_types"));
+  }
 }
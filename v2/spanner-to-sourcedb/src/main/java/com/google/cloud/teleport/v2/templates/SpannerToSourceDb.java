@@ -356,6 +356,20 @@ public class SpannerToSourceDb {
     Integer getDlqRetryMinutes();
 
     void setDlqRetryMinutes(Integer value);
+
+    @TemplateParameter.Integer(
+        order = 24,
+        optional = true,
+        description = "Maximum number of records written to a shard in one batch",
+        helpText =
+            "The maximum number of change records per shard that are written to the source"
+                + " database in a single transaction, with one shadow table read and one shadow"
+                + " table commit per batch. Records are never held across bundles. A value of 1"
+                + " writes every record on its own. Defaults to 1.")
+    @Default.Integer(1)
+    Integer getSourceWriteBatchSize();
+
+    void setSourceWriteBatchSize(Integer value);
   }
 
   /**
@@ -559,7 +573,8 @@ public class SpannerToSourceDb {
                     ddl,
                     options.getShadowTablePrefix(),
                     options.getSkipDirectoryName(),
-                    connectionPoolSizePerWorker));
+                    connectionPoolSizePerWorker,
+                    options.getSourceWriteBatchSize()));
 
     PCollection<FailsafeElement<String, String>> dlqPermErrorRecords =
         reconsumedElements
@@ -39,8 +39,12 @@ import com.google.cloud.teleport.v2.templates.utils.SpannerDao;
 import com.google.common.collect.ImmutableList;
 import com.google.gson.Gson;
 import java.io.Serializable;
+import java.sql.BatchUpdateException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -52,12 +56,21 @@ import org.apache.beam.sdk.metrics.Metrics;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.DoFn.ProcessContext;
 import org.apache.beam.sdk.transforms.DoFn.ProcessElement;
+import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
 import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.TupleTag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** This class writes to source based on commit timestamp captured in shadow table. */
+/**
+ * This class writes to source based on commit timestamp captured in shadow table.
+ *
+ * <p>When the batch size is greater than one, records are buffered per shard within a bundle. Each
+ * batch looks up the shadow table with one read per table, applies the records that are not behind
+ * the source in commit timestamp order in a single source transaction with parameterized
+ * statements, and then writes all of the shadow table updates in one commit. A batch that fails is
+ * written again one record at a time.
+ */
 public class SourceWriterFn extends DoFn<KV<Long, TrimmedShardedDataChangeRecord>, String>
     implements Serializable {
   private static final Logger LOG = LoggerFactory.getLogger(SourceWriterFn.class);
@@ -76,6 +89,9 @@ public class SourceWriterFn extends DoFn<KV<Long, TrimmedShardedDataChangeRecord
 
   private final Distribution lagMetric =
       Metrics.distribution(SourceWriterFn.class, "replication_lag_in_milli");
+
+  private final Distribution batchSizeMetric =
+      Metrics.distribution(SourceWriterFn.class, "source_write_batch_size");
   private transient Map<String, MySqlDao> mySqlDaoMap = new HashMap<>();
 
   private final Schema schema;
@@ -87,6 +103,11 @@ public class SourceWriterFn extends DoFn<KV<Long, TrimmedShardedDataChangeRecord
   private final String shadowTablePrefix;
   private final String skipDirName;
   private final int maxThreadPerDataflowWorker;
+  private final int batchSize;
+
+  /** Records buffered in the current bundle, by window and then by logical shard. */
+  private transient Map<BoundedWindow, Map<String, List<TrimmedShardedDataChangeRecord>>>
+      pendingRecords;
 
   public SourceWriterFn(
       List<Shard> shards,
@@ -97,6 +118,28 @@ public class SourceWriterFn extends DoFn<KV<Long, TrimmedShardedDataChangeRecord
       String shadowTablePrefix,
       String skipDirName,
       int maxThreadPerDataflowWorker) {
+    this(
+        shards,
+        schema,
+        spannerConfig,
+        sourceDbTimezoneOffset,
+        ddl,
+        shadowTablePrefix,
+        skipDirName,
+        maxThreadPerDataflowWorker,
+        1);
+  }
+
+  public SourceWriterFn(
+      List<Shard> shards,
+      Schema schema,
+      SpannerConfig spannerConfig,
+      String sourceDbTimezoneOffset,
+      Ddl ddl,
+      String shadowTablePrefix,
+      String skipDirName,
+      int maxThreadPerDataflowWorker,
+      int batchSize) {
 
     this.schema = schema;
     this.sourceDbTimezoneOffset = sourceDbTimezoneOffset;
@@ -106,6 +149,7 @@ public class SourceWriterFn extends DoFn<KV<Long, TrimmedShardedDataChangeRecord
     this.shadowTablePrefix = shadowTablePrefix;
     this.skipDirName = skipDirName;
     this.maxThreadPerDataflowWorker = maxThreadPerDataflowWorker;
+    this.batchSize = batchSize;
   }
 
   // for unit testing purposes
@@ -147,8 +191,13 @@ public class SourceWriterFn extends DoFn<KV<Long, TrimmedShardedDataChangeRecord
     mySqlDaoMap.clear();
   }
 
+  @StartBundle
+  public void startBundle() {
+    pendingRecords = new HashMap<>();
+  }
+
   @ProcessElement
-  public void processElement(ProcessContext c) {
+  public void processElement(ProcessContext c, BoundedWindow window) {
     KV<Long, TrimmedShardedDataChangeRecord> element = c.element();
     TrimmedShardedDataChangeRecord spannerRec = element.getValue();
     String shardId = spannerRec.getShard();
@@ -160,8 +209,58 @@ public class SourceWriterFn extends DoFn<KV<Long, TrimmedShardedDataChangeRecord
       // the record is skipped
       skippedRecordCountMetric.inc();
       outputWithTag(c, Constants.SKIPPED_TAG, Constants.SKIPPED_TAG_MESSAGE, spannerRec);
+    } else if (batchSize > 1) {
+      if (pendingRecords == null) {
+        pendingRecords = new HashMap<>();
+      }
+      List<TrimmedShardedDataChangeRecord> shardRecords =
+          pendingRecords
+              .computeIfAbsent(window, w -> new HashMap<>())
+              .computeIfAbsent(shardId, s -> new ArrayList<>());
+      shardRecords.add(spannerRec);
+      if (shardRecords.size() >= batchSize) {
+        pendingRecords.get(window).remove(shardId);
+        writeBatch(shardId, shardRecords, c::output);
+      }
     } else {
-      // Get the latest commit timestamp processed at source
+      writeRecord(shardId, spannerRec, c::output);
+    }
+  }
+
+  @FinishBundle
+  public void finishBundle(FinishBundleContext c) {
+    if (pendingRecords == null) {
+      return;
+    }
+    for (Map.Entry<BoundedWindow, Map<String, List<TrimmedShardedDataChangeRecord>>> windowEntry :
+        pendingRecords.entrySet()) {
+      BoundedWindow window = windowEntry.getKey();
+      for (Map.Entry<String, List<TrimmedShardedDataChangeRecord>> shardEntry :
+          windowEntry.getValue().entrySet()) {
+        writeBatch(
+            shardEntry.getKey(),
+            shardEntry.getValue(),
+            new RecordOutput() {
+              @Override
+              public void output(TupleTag<String> tag, String value) {
+                c.output(tag, value, window.maxTimestamp(), window);
+              }
+            });
+      }
+    }
+    pendingRecords.clear();
+  }
+
+  /**
+   * Writes a batch of records belonging to one shard. Records that cannot be keyed or whose shadow
+   * table cannot be read are routed to the error outputs individually. If writing to the source or
+   * the shadow table fails, the records that were part of the write are written one at a time.
+   */
+  private void writeBatch(
+      String shardId, List<TrimmedShardedDataChangeRecord> records, RecordOutput output) {
+    batchSizeMetric.update(records.size());
+    Map<String, List<PendingWrite>> writesByShadowTable = new LinkedHashMap<>();
+    for (TrimmedShardedDataChangeRecord spannerRec : records) {
       try {
         JsonNode keysJson = mapper.readTree(spannerRec.getMod().getKeysJson());
         String tableName = spannerRec.getTableName();
@@ -169,68 +268,200 @@ public class SourceWriterFn extends DoFn<KV<Long, TrimmedShardedDataChangeRecord
             ChangeEventSpannerConvertor.changeEventToPrimaryKey(
                 tableName, ddl, keysJson, /* convertNameToLowerCase= */ false);
         String shadowTableName = shadowTablePrefix + tableName;
-        boolean isSourceAhead = false;
-        ShadowTableRecord shadowTableRecord =
-            spannerDao.getShadowTableRecord(shadowTableName, primaryKey);
-        isSourceAhead =
-            shadowTableRecord != null
-                && ((shadowTableRecord
-                            .getProcessedCommitTimestamp()
-                            .compareTo(spannerRec.getCommitTimestamp())
-                        > 0) // either the source already has record with greater commit
-                    // timestamp
-                    || (shadowTableRecord // or the source has the same commit timestamp but
-                                // greater record sequence
-                                .getProcessedCommitTimestamp()
-                                .compareTo(spannerRec.getCommitTimestamp())
-                            == 0
-                        && shadowTableRecord.getRecordSequence()
-                            > Long.parseLong(spannerRec.getRecordSequence())));
-
-        if (!isSourceAhead) {
-          MySqlDao mySqlDao = mySqlDaoMap.get(shardId);
-
-          InputRecordProcessor.processRecord(
-              spannerRec, schema, mySqlDao, shardId, sourceDbTimezoneOffset);
-
-          spannerDao.updateShadowTable(
-              getShadowTableMutation(
-                  tableName,
-                  shadowTableName,
-                  keysJson,
-                  spannerRec.getCommitTimestamp(),
-                  spannerRec.getRecordSequence()));
+        writesByShadowTable
+            .computeIfAbsent(shadowTableName, t -> new ArrayList<>())
+            .add(new PendingWrite(spannerRec, keysJson, shadowTableName, primaryKey));
+      } catch (Exception ex) {
+        outputWithTag(output, errorTagFor(ex), ex.getMessage(), spannerRec);
+      }
+    }
+
+    // One multi-key read per shadow table gives the watermark of every key in the batch.
+    Map<String, Map<com.google.cloud.spanner.Key, ShadowTableRecord>> watermarks = new HashMap<>();
+    List<PendingWrite> pendingWrites = new ArrayList<>();
+    for (Map.Entry<String, List<PendingWrite>> entry : writesByShadowTable.entrySet()) {
+      List<PendingWrite> tableWrites = entry.getValue();
+      try {
+        List<String> keyColumnNames =
+            ddl.table(tableWrites.get(0).record.getTableName()).primaryKeys().stream()
+                .map(k -> k.name())
+                .collect(Collectors.toList());
+        Set<com.google.cloud.spanner.Key> keys = new HashSet<>();
+        tableWrites.forEach(w -> keys.add(w.primaryKey));
+        watermarks.put(
+            entry.getKey(), spannerDao.getShadowTableRecords(entry.getKey(), keyColumnNames, keys));
+        pendingWrites.addAll(tableWrites);
+      } catch (Exception ex) {
+        for (PendingWrite write : tableWrites) {
+          outputWithTag(output, errorTagFor(ex), ex.getMessage(), write.record);
+        }
+      }
+    }
+
+    // Apply in commit order so that several changes to the same key in one batch land in the same
+    // order as they would one at a time, and skip the ones the source is already ahead of.
+    pendingWrites.sort(
+        Comparator.comparing((PendingWrite w) -> w.record.getCommitTimestamp())
+            .thenComparingLong(w -> Long.parseLong(w.record.getRecordSequence())));
+    List<PendingWrite> sourceAhead = new ArrayList<>();
+    List<PendingWrite> toWrite = new ArrayList<>();
+    Map<String, Map<com.google.cloud.spanner.Key, Mutation>> shadowMutations =
+        new LinkedHashMap<>();
+    for (PendingWrite write : pendingWrites) {
+      Map<com.google.cloud.spanner.Key, ShadowTableRecord> tableWatermarks =
+          watermarks.get(write.shadowTableName);
+      TrimmedShardedDataChangeRecord spannerRec = write.record;
+      if (isSourceAhead(tableWatermarks.get(write.primaryKey), spannerRec)) {
+        sourceAhead.add(write);
+        continue;
+      }
+      try {
+        shadowMutations
+            .computeIfAbsent(write.shadowTableName, t -> new HashMap<>())
+            .put(
+                write.primaryKey,
+                getShadowTableMutation(
+                    spannerRec.getTableName(),
+                    write.shadowTableName,
+                    write.keysJson,
+                    spannerRec.getCommitTimestamp(),
+                    spannerRec.getRecordSequence()));
+      } catch (Exception ex) {
+        outputWithTag(output, errorTagFor(ex), ex.getMessage(), spannerRec);
+        continue;
+      }
+      tableWatermarks.put(
+          write.primaryKey,
+          new ShadowTableRecord(
+              spannerRec.getCommitTimestamp(), Long.parseLong(spannerRec.getRecordSequence())));
+      toWrite.add(write);
+    }
+
+    if (!toWrite.isEmpty()) {
+      try {
+        List<TrimmedShardedDataChangeRecord> toWriteRecords = new ArrayList<>(toWrite.size());
+        toWrite.forEach(w -> toWriteRecords.add(w.record));
+        InputRecordProcessor.processRecords(
+            toWriteRecords, schema, mySqlDaoMap.get(shardId), shardId, sourceDbTimezoneOffset);
+        List<Mutation> mutations = new ArrayList<>();
+        shadowMutations.values().forEach(m -> mutations.addAll(m.values()));
+        spannerDao.updateShadowTables(mutations);
+      } catch (Exception ex) {
+        // The failure may come from a single record, so the batch is written again one record at
+        // a time, and only the records that fail on their own are routed to the error outputs.
+        LOG.warn(
+            "Failed to write a batch of {} records to shard {}, writing them one at a time: {}",
+            toWrite.size(),
+            shardId,
+            ex.getMessage());
+        for (PendingWrite write : toWrite) {
+          writeRecord(shardId, write.record, output);
         }
+        toWrite.clear();
+      }
+    }
+
+    com.google.cloud.Timestamp timestamp = com.google.cloud.Timestamp.now();
+    for (List<PendingWrite> succeeded : List.of(sourceAhead, toWrite)) {
+      for (PendingWrite write : succeeded) {
         successRecordCountMetric.inc();
-        if (spannerRec.isRetryRecord()) {
+        if (write.record.isRetryRecord()) {
           retryableRecordCountMetric.dec();
         }
-        com.google.cloud.Timestamp timestamp = com.google.cloud.Timestamp.now();
-        c.output(Constants.SUCCESS_TAG, timestamp.toString());
-      } catch (ChangeEventConvertorException ex) {
-        outputWithTag(c, Constants.PERMANENT_ERROR_TAG, ex.getMessage(), spannerRec);
-      } catch (SpannerException
-          | IllegalStateException
-          | com.mysql.cj.jdbc.exceptions.CommunicationsException
-          | java.sql.SQLIntegrityConstraintViolationException
-          | java.sql.SQLTransientConnectionException
-          | ConnectionException ex) {
-        outputWithTag(c, Constants.RETRYABLE_ERROR_TAG, ex.getMessage(), spannerRec);
-      } catch (java.sql.SQLNonTransientConnectionException ex) {
-        // https://dev.mysql.com/doc/mysql-errors/8.0/en/server-error-reference.html
-        // error codes 1053,1161 and 1159 can be retried
-        if (ex.getErrorCode() == 1053 || ex.getErrorCode() == 1159 || ex.getErrorCode() == 1161) {
-          outputWithTag(c, Constants.RETRYABLE_ERROR_TAG, ex.getMessage(), spannerRec);
-        } else {
-          outputWithTag(c, Constants.PERMANENT_ERROR_TAG, ex.getMessage(), spannerRec);
-        }
-      } catch (Exception ex) {
-        LOG.error("Failed to write to source", ex);
-        outputWithTag(c, Constants.PERMANENT_ERROR_TAG, ex.getMessage(), spannerRec);
+        output.output(Constants.SUCCESS_TAG, timestamp.toString());
       }
     }
   }
 
+  /**
+   * Writes one record: reads its shadow table, applies it to the source unless the source is ahead,
+   * and updates the shadow table. A failure is routed to the error output it maps to.
+   */
+  private void writeRecord(
+      String shardId, TrimmedShardedDataChangeRecord spannerRec, RecordOutput output) {
+    // Get the latest commit timestamp processed at source
+    try {
+      JsonNode keysJson = mapper.readTree(spannerRec.getMod().getKeysJson());
+      String tableName = spannerRec.getTableName();
+      com.google.cloud.spanner.Key primaryKey =
+          ChangeEventSpannerConvertor.changeEventToPrimaryKey(
+              tableName, ddl, keysJson, /* convertNameToLowerCase= */ false);
+      String shadowTableName = shadowTablePrefix + tableName;
+      ShadowTableRecord shadowTableRecord =
+          spannerDao.getShadowTableRecord(shadowTableName, primaryKey);
+
+      if (!isSourceAhead(shadowTableRecord, spannerRec)) {
+        MySqlDao mySqlDao = mySqlDaoMap.get(shardId);
+
+        InputRecordProcessor.processRecord(
+            spannerRec, schema, mySqlDao, shardId, sourceDbTimezoneOffset);
+
+        spannerDao.updateShadowTable(
+            getShadowTableMutation(
+                tableName,
+                shadowTableName,
+                keysJson,
+                spannerRec.getCommitTimestamp(),
+                spannerRec.getRecordSequence()));
+      }
+      successRecordCountMetric.inc();
+      if (spannerRec.isRetryRecord()) {
+        retryableRecordCountMetric.dec();
+      }
+      com.google.cloud.Timestamp timestamp = com.google.cloud.Timestamp.now();
+      output.output(Constants.SUCCESS_TAG, timestamp.toString());
+    } catch (Exception ex) {
+      outputWithTag(output, errorTagFor(ex), ex.getMessage(), spannerRec);
+    }
+  }
+
+  /**
+   * The source is ahead when it already has the record with a greater commit timestamp, or with the
+   * same commit timestamp but a greater record sequence.
+   */
+  private static boolean isSourceAhead(
+      ShadowTableRecord shadowTableRecord, TrimmedShardedDataChangeRecord spannerRec) {
+    if (shadowTableRecord == null) {
+      return false;
+    }
+    int cmp =
+        shadowTableRecord.getProcessedCommitTimestamp().compareTo(spannerRec.getCommitTimestamp());
+    return cmp > 0
+        || (cmp == 0
+            && shadowTableRecord.getRecordSequence()
+                > Long.parseLong(spannerRec.getRecordSequence()));
+  }
+
+  /** Maps a failure to write a record to the output it should be routed to. */
+  private static TupleTag<String> errorTagFor(Exception ex) {
+    if (ex instanceof BatchUpdateException && ex.getCause() instanceof Exception) {
+      // A failed JDBC batch wraps the error of the statement that failed.
+      return errorTagFor((Exception) ex.getCause());
+    }
+    if (ex instanceof ChangeEventConvertorException) {
+      return Constants.PERMANENT_ERROR_TAG;
+    }
+    if (ex instanceof SpannerException
+        || ex instanceof IllegalStateException
+        || ex instanceof com.mysql.cj.jdbc.exceptions.CommunicationsException
+        || ex instanceof java.sql.SQLIntegrityConstraintViolationException
+        || ex instanceof java.sql.SQLTransientConnectionException
+        || ex instanceof ConnectionException) {
+      return Constants.RETRYABLE_ERROR_TAG;
+    }
+    if (ex instanceof java.sql.SQLNonTransientConnectionException) {
+      // https://dev.mysql.com/doc/mysql-errors/8.0/en/server-error-reference.html
+      // error codes 1053,1161 and 1159 can be retried
+      int errorCode = ((java.sql.SQLNonTransientConnectionException) ex).getErrorCode();
+      if (errorCode == 1053 || errorCode == 1159 || errorCode == 1161) {
+        return Constants.RETRYABLE_ERROR_TAG;
+      }
+      return Constants.PERMANENT_ERROR_TAG;
+    }
+    LOG.error("Failed to write to source", ex);
+    return Constants.PERMANENT_ERROR_TAG;
+  }
+
   private Mutation getShadowTableMutation(
       String tableName,
       String shadowTableName,
@@ -264,6 +495,14 @@ public class SourceWriterFn extends DoFn<KV<Long, TrimmedShardedDataChangeRecord
       TupleTag<String> tag,
       String message,
       TrimmedShardedDataChangeRecord record) {
+    outputWithTag(c::output, tag, message, record);
+  }
+
+  private void outputWithTag(
+      RecordOutput output,
+      TupleTag<String> tag,
+      String message,
+      TrimmedShardedDataChangeRecord record) {
     String jsonRec = gson.toJson(record, TrimmedShardedDataChangeRecord.class);
     ChangeStreamErrorRecord errorRecord = new ChangeStreamErrorRecord(jsonRec, message);
 
@@ -271,6 +510,30 @@ public class SourceWriterFn extends DoFn<KV<Long, TrimmedShardedDataChangeRecord
     if (!record.isRetryRecord() && tag.equals(Constants.RETRYABLE_ERROR_TAG)) {
       retryableRecordCountMetric.inc();
     }
-    c.output(tag, gson.toJson(errorRecord, ChangeStreamErrorRecord.class));
+    output.output(tag, gson.toJson(errorRecord, ChangeStreamErrorRecord.class));
+  }
+
+  /** Emits to one of the tagged outputs of either a process or a finish bundle context. */
+  private interface RecordOutput {
+    void output(TupleTag<String> tag, String value);
+  }
+
+  /** A buffered record together with the values derived from it for the shadow table. */
+  private static class PendingWrite {
+    private final TrimmedShardedDataChangeRecord record;
+    private final JsonNode keysJson;
+    private final String shadowTableName;
+    private final com.google.cloud.spanner.Key primaryKey;
+
+    PendingWrite(
+        TrimmedShardedDataChangeRecord record,
+        JsonNode keysJson,
+        String shadowTableName,
+        com.google.cloud.spanner.Key primaryKey) {
+      this.record = record;
+      this.keysJson = keysJson;
+      this.shadowTableName = shadowTableName;
+      this.primaryKey = primaryKey;
+    }
   }
 }
@@ -51,6 +51,7 @@ public class SourceWriterTransform
   private final String shadowTablePrefix;
   private final String skipDirName;
   private final int maxThreadPerDataflowWorker;
+  private final int batchSize;
 
   public SourceWriterTransform(
       List<Shard> shards,
@@ -61,6 +62,28 @@ public class SourceWriterTransform
       String shadowTablePrefix,
       String skipDirName,
       int maxThreadPerDataflowWorker) {
+    this(
+        shards,
+        schema,
+        spannerConfig,
+        sourceDbTimezoneOffset,
+        ddl,
+        shadowTablePrefix,
+        skipDirName,
+        maxThreadPerDataflowWorker,
+        1);
+  }
+
+  public SourceWriterTransform(
+      List<Shard> shards,
+      Schema schema,
+      SpannerConfig spannerConfig,
+      String sourceDbTimezoneOffset,
+      Ddl ddl,
+      String shadowTablePrefix,
+      String skipDirName,
+      int maxThreadPerDataflowWorker,
+      int batchSize) {
 
     this.schema = schema;
     this.sourceDbTimezoneOffset = sourceDbTimezoneOffset;
@@ -70,6 +93,7 @@ public class SourceWriterTransform
     this.shadowTablePrefix = shadowTablePrefix;
     this.skipDirName = skipDirName;
     this.maxThreadPerDataflowWorker = maxThreadPerDataflowWorker;
+    this.batchSize = batchSize;
   }
 
   @Override
@@ -87,7 +111,8 @@ public class SourceWriterTransform
                         this.ddl,
                         this.shadowTablePrefix,
                         this.skipDirName,
-                        this.maxThreadPerDataflowWorker))
+                        this.maxThreadPerDataflowWorker,
+                        this.batchSize))
                 .withOutputTags(
                     Constants.SUCCESS_TAG,
                     TupleTagList.of(Constants.PERMANENT_ERROR_TAG)
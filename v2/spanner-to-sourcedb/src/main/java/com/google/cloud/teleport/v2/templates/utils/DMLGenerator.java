@@ -21,7 +21,11 @@ import com.google.cloud.teleport.v2.spanner.migrations.schema.SourceColumnDefini
 import com.google.cloud.teleport.v2.spanner.migrations.schema.SourceTable;
 import com.google.cloud.teleport.v2.spanner.migrations.schema.SpannerColumnDefinition;
 import com.google.cloud.teleport.v2.spanner.migrations.schema.SpannerTable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -41,12 +45,54 @@ public class DMLGenerator {
       JSONObject newValuesJson,
       JSONObject keyValuesJson,
       String sourceDbTimezoneOffset) {
+    return getStatement(
+            modType,
+            spannerTableName,
+            schema,
+            newValuesJson,
+            keyValuesJson,
+            sourceDbTimezoneOffset,
+            /* prepared= */ false)
+        .getSql();
+  }
+
+  /**
+   * Returns the same statement as {@link #getDMLStatement} with the column values bound as
+   * parameters. Statements for the same table and set of columns have the same SQL, so that they
+   * can be executed as one JDBC batch. The SQL is empty when the record is dropped.
+   */
+  public static PreparedDMLStatement getPreparedDMLStatement(
+      String modType,
+      String spannerTableName,
+      Schema schema,
+      JSONObject newValuesJson,
+      JSONObject keyValuesJson,
+      String sourceDbTimezoneOffset) {
+    return getStatement(
+        modType,
+        spannerTableName,
+        schema,
+        newValuesJson,
+        keyValuesJson,
+        sourceDbTimezoneOffset,
+        /* prepared= */ true);
+  }
+
+  private static PreparedDMLStatement getStatement(
+      String modType,
+      String spannerTableName,
+      Schema schema,
+      JSONObject newValuesJson,
+      JSONObject keyValuesJson,
+      String sourceDbTimezoneOffset,
+      boolean prepared) {
+    PreparedDMLStatement empty = new PreparedDMLStatement("", Collections.emptyList());
 
     if (schema.getSpannerToID().get(spannerTableName) == null) {
       LOG.warn(
           "The spanner table {} was not found in session file, dropping the record",
           spannerTableName);
-      return "";
+      return empty;
     }
 
     String spannerTableId = schema.getSpannerToID().get(spannerTableName).getName();
@@ -56,71 +102,76 @@ public class DMLGenerator {
       LOG.warn(
           "The spanner table {} was not found in session file, dropping the record",
           spannerTableName);
-      return "";
+      return empty;
     }
 
     SourceTable sourceTable = schema.getSrcSchema().get(spannerTableId);
     if (sourceTable == null) {
       LOG.warn("The table {} was not found in source", spannerTableName);
-      return "";
+      return empty;
     }
 
     if (sourceTable.getPrimaryKeys() == null || sourceTable.getPrimaryKeys().length == 0) {
       LOG.warn(
           "Cannot reverse replicate for table {} without primary key, skipping the record",
           sourceTable.getName());
-      return "";
+      return empty;
     }
 
     if ("INSERT".equals(modType) || "UPDATE".equals(modType)) {
-      Map<String, String> pkcolumnNameValues =
+      Map<String, ColumnValue> pkcolumnNameValues =
           getPkColumnValues(
               spannerTable, sourceTable, newValuesJson, keyValuesJson, sourceDbTimezoneOffset);
       if (pkcolumnNameValues == null) {
         LOG.warn(
             "Cannot reverse replicate for table {} without primary key, skipping the record",
             sourceTable.getName());
-        return "";
+        return empty;
       }
-      Map<String, String> columnNameValues =
+      Map<String, ColumnValue> columnNameValues =
           getColumnValues(
               spannerTable, sourceTable, newValuesJson, keyValuesJson, sourceDbTimezoneOffset);
       return getUpsertStatement(
           sourceTable.getName(),
           sourceTable.getPrimaryKeySet(),
           columnNameValues,
-          pkcolumnNameValues);
+          pkcolumnNameValues,
+          prepared);
     } else if ("DELETE".equals(modType)) {
 
-      Map<String, String> pkcolumnNameValues =
+      Map<String, ColumnValue> pkcolumnNameValues =
           getPkColumnValues(
               spannerTable, sourceTable, newValuesJson, keyValuesJson, sourceDbTimezoneOffset);
       if (pkcolumnNameValues == null) {
         LOG.warn(
             "Cannot reverse replicate for table {} without primary key, skipping the record",
             sourceTable.getName());
-        return "";
+        return empty;
       }
-      return getDeleteStatement(sourceTable.getName(), pkcolumnNameValues);
+      return getDeleteStatement(sourceTable.getName(), pkcolumnNameValues, prepared);
     } else {
       LOG.warn("Unsupported modType: " + modType);
-      return "";
+      return empty;
     }
   }
 
-  private static String getUpsertStatement(
+  private static PreparedDMLStatement getUpsertStatement(
       String tableName,
       Set<String> primaryKeys,
-      Map<String, String> columnNameValues,
-      Map<String, String> pkcolumnNameValues) {
+      Map<String, ColumnValue> columnNameValues,
+      Map<String, ColumnValue> pkcolumnNameValues,
+      boolean prepared) {
 
     String allColumns = "";
     String allValues = "";
     String updateValues = "";
+    // The update clause follows the values, so its parameters are collected separately.
+    List<Object> valuesParameters = new ArrayList<>();
+    List<Object> updateParameters = new ArrayList<>();
 
-    for (Map.Entry<String, String> entry : pkcolumnNameValues.entrySet()) {
+    for (Map.Entry<String, ColumnValue> entry : pkcolumnNameValues.entrySet()) {
       String colName = entry.getKey();
-      String colValue = entry.getValue();
+      String colValue = entry.getValue().render(prepared, valuesParameters);
 
       allColumns += colName + ",";
       allValues += colValue + ",";
@@ -133,17 +184,16 @@ public class DMLGenerator {
 
       String returnVal =
           "INSERT INTO " + tableName + "(" + allColumns + ")" + " VALUES (" + allValues + ") ";
-      return returnVal;
+      return new PreparedDMLStatement(returnVal, valuesParameters);
     }
     int index = 0;
 
-    for (Map.Entry<String, String> entry : columnNameValues.entrySet()) {
+    for (Map.Entry<String, ColumnValue> entry : columnNameValues.entrySet()) {
       String colName = entry.getKey();
-      String colValue = entry.getValue();
       allColumns += colName;
-      allValues += colValue;
+      allValues += entry.getValue().render(prepared, valuesParameters);
       if (!primaryKeys.contains(colName)) {
-        updateValues += " " + colName + " = " + colValue;
+        updateValues += " " + colName + " = " + entry.getValue().render(prepared, updateParameters);
       }
 
       if (index + 1 < columnNameValues.size()) {
@@ -165,17 +215,19 @@ public class DMLGenerator {
             + "ON DUPLICATE KEY UPDATE "
             + updateValues;
 
-    return returnVal;
+    valuesParameters.addAll(updateParameters);
+    return new PreparedDMLStatement(returnVal, valuesParameters);
   }
 
-  private static String getDeleteStatement(
-      String tableName, Map<String, String> pkcolumnNameValues) {
+  private static PreparedDMLStatement getDeleteStatement(
+      String tableName, Map<String, ColumnValue> pkcolumnNameValues, boolean prepared) {
     String deleteValues = "";
+    List<Object> parameters = new ArrayList<>();
 
     int index = 0;
-    for (Map.Entry<String, String> entry : pkcolumnNameValues.entrySet()) {
+    for (Map.Entry<String, ColumnValue> entry : pkcolumnNameValues.entrySet()) {
       String colName = entry.getKey();
-      String colValue = entry.getValue();
+      String colValue = entry.getValue().render(prepared, parameters);
 
       deleteValues += " " + colName + " = " + colValue;
       if (index + 1 < pkcolumnNameValues.size()) {
@@ -185,16 +237,16 @@ public class DMLGenerator {
     }
     String returnVal = "DELETE FROM " + tableName + " WHERE " + deleteValues;
 
-    return returnVal;
+    return new PreparedDMLStatement(returnVal, parameters);
   }
 
-  private static Map<String, String> getColumnValues(
+  private static Map<String, ColumnValue> getColumnValues(
       SpannerTable spannerTable,
       SourceTable sourceTable,
       JSONObject newValuesJson,
       JSONObject keyValuesJson,
       String sourceDbTimezoneOffset) {
-    Map<String, String> response = new HashMap<>();
+    Map<String, ColumnValue> response = new HashMap<>();
 
     /*
     Get all non-primary key col ids from source table
@@ -224,11 +276,11 @@ public class DMLGenerator {
         continue;
       }
       String spannerColumnName = spannerColDef.getName();
-      String columnValue = "";
+      ColumnValue columnValue;
       if (keyValuesJson.has(spannerColumnName)) {
         // get the value based on Spanner and Source type
         if (keyValuesJson.isNull(spannerColumnName)) {
-          response.put(sourceColDef.getName(), "NULL");
+          response.put(sourceColDef.getName(), ColumnValue.NULL);
           continue;
         }
         columnValue =
@@ -237,7 +289,7 @@ public class DMLGenerator {
       } else if (newValuesJson.has(spannerColumnName)) {
         // get the value based on Spanner and Source type
         if (newValuesJson.isNull(spannerColumnName)) {
-          response.put(sourceColDef.getName(), "NULL");
+          response.put(sourceColDef.getName(), ColumnValue.NULL);
           continue;
         }
         columnValue =
@@ -253,13 +305,13 @@ public class DMLGenerator {
     return response;
   }
 
-  private static Map<String, String> getPkColumnValues(
+  private static Map<String, ColumnValue> getPkColumnValues(
       SpannerTable spannerTable,
       SourceTable sourceTable,
       JSONObject newValuesJson,
       JSONObject keyValuesJson,
       String sourceDbTimezoneOffset) {
-    Map<String, String> response = new HashMap<>();
+    Map<String, ColumnValue> response = new HashMap<>();
     /*
     Get all primary key col ids from source table
     For each - get the corresponding column name from spanner Schema
@@ -285,11 +337,11 @@ public class DMLGenerator {
         return null;
       }
       String spannerColumnName = spannerColDef.getName();
-      String columnValue = "";
+      ColumnValue columnValue;
       if (keyValuesJson.has(spannerColumnName)) {
         // get the value based on Spanner and Source type
         if (keyValuesJson.isNull(spannerColumnName)) {
-          response.put(sourceColDef.getName(), "NULL");
+          response.put(sourceColDef.getName(), ColumnValue.NULL);
           continue;
         }
         columnValue =
@@ -298,7 +350,7 @@ public class DMLGenerator {
       } else if (newValuesJson.has(spannerColumnName)) {
         // get the value based on Spanner and Source type
         if (newValuesJson.isNull(spannerColumnName)) {
-          response.put(sourceColDef.getName(), "NULL");
+          response.put(sourceColDef.getName(), ColumnValue.NULL);
           continue;
         }
         columnValue =
@@ -315,7 +367,7 @@ public class DMLGenerator {
     return response;
   }
 
-  private static String getMappedColumnValue(
+  private static ColumnValue getMappedColumnValue(
       SpannerColumnDefinition spannerColDef,
       SourceColumnDefinition sourceColDef,
       JSONObject valuesJson,
@@ -333,22 +385,19 @@ public class DMLGenerator {
           valuesJson.getJSONArray(colName).toList().stream()
               .map(String::valueOf)
               .collect(Collectors.joining(","));
-    } else if ("BYTES".equals(colType)) {
-      colInputValue = "FROM_BASE64('" + valuesJson.getString(colName) + "')";
     } else {
+      // BYTES are base64, decoded by the source with FROM_BASE64.
       colInputValue = valuesJson.getString(colName);
     }
-    String response =
+    ColumnValue response =
         getColumnValueByType(
             sourceColDef.getType().getName(), colInputValue, sourceDbTimezoneOffset, colType);
     return response;
   }
 
-  private static String getColumnValueByType(
+  private static ColumnValue getColumnValueByType(
       String columnType, String colValue, String sourceDbTimezoneOffset, String spannerColType) {
-    String response = "";
-    String cleanedNullBytes = "";
-    String decodedString = "";
+    ColumnValue response;
     switch (columnType) {
       case "varchar":
       case "char":
@@ -374,26 +423,42 @@ public class DMLGenerator {
       case "mediumblob":
       case "blob":
       case "longblob":
-        response = getQuotedEscapedString(colValue, spannerColType);
+        response = getStringValue(colValue, spannerColType);
         break;
       case "timestamp":
       case "datetime":
-        colValue = colValue.substring(0, colValue.length() - 1); // trim the Z for mysql
+        if ("BYTES".equals(spannerColType)) {
+          response = getStringValue(colValue, spannerColType);
+        } else {
+          // trim the Z for mysql
+          response = getStringValue(colValue.substring(0, colValue.length() - 1), spannerColType);
+        }
         response =
-            " CONVERT_TZ("
-                + getQuotedEscapedString(colValue, spannerColType)
-                + ",'+00:00','"
-                + sourceDbTimezoneOffset
-                + "')";
-
+            new ColumnValue(
+                " CONVERT_TZ(" + response.literal + ",'+00:00','" + sourceDbTimezoneOffset + "')",
+                "CONVERT_TZ(" + response.placeholder + ",'+00:00',?)",
+                response.parameters,
+                sourceDbTimezoneOffset);
         break;
       case "binary":
       case "varbinary":
       case "bit":
-        response = getBinaryString(colValue, spannerColType);
+        response = getStringValue(colValue, spannerColType);
+        response =
+            new ColumnValue(
+                "BINARY(" + response.literal + ")",
+                "BINARY(" + response.placeholder + ")",
+                response.parameters);
         break;
       default:
-        response = colValue;
+        if ("BYTES".equals(spannerColType)) {
+          response = getStringValue(colValue, spannerColType);
+        } else if ("BOOL".equals(spannerColType)) {
+          response = new ColumnValue(colValue, "?", Boolean.valueOf(colValue));
+        } else {
+          // The source converts the string to the type of the column, as it does the literal.
+          response = new ColumnValue(colValue, "?", colValue);
+        }
     }
     return response;
   }
@@ -407,15 +472,55 @@ public class DMLGenerator {
 
   private static String getQuotedEscapedString(String input, String spannerColType) {
     if ("BYTES".equals(spannerColType)) {
-      return input;
+      return "FROM_BASE64('" + input + "')";
     }
     String cleanedString = escapeString(input);
     String response = "\'" + cleanedString + "\'";
     return response;
   }
 
-  private static String getBinaryString(String input, String spannerColType) {
-    String response = "BINARY(" + getQuotedEscapedString(input, spannerColType) + ")";
-    return response;
+  /** Returns a string value, or the value of base64 bytes. */
+  private static ColumnValue getStringValue(String input, String spannerColType) {
+    if ("BYTES".equals(spannerColType)) {
+      return new ColumnValue(
+          getQuotedEscapedString(input, spannerColType), "FROM_BASE64(?)", input);
+    }
+    return new ColumnValue(
+        getQuotedEscapedString(input, spannerColType),
+        "?",
+        StringUtils.replace(input, "\u0000", ""));
+  }
+
+  /** A column value, either as a SQL literal or as SQL with placeholders and their parameters. */
+  private static class ColumnValue {
+    private static final ColumnValue NULL = new ColumnValue("NULL", "?", (Object) null);
+
+    private final String literal;
+    private final String placeholder;
+    private final List<Object> parameters;
+
+    ColumnValue(String literal, String placeholder, Object... parameters) {
+      this(literal, placeholder, Arrays.asList(parameters));
+    }
+
+    ColumnValue(String literal, String placeholder, List<Object> parameters, Object parameter) {
+      this(literal, placeholder, new ArrayList<>(parameters));
+      this.parameters.add(parameter);
+    }
+
+    ColumnValue(String literal, String placeholder, List<Object> parameters) {
+      this.literal = literal;
+      this.placeholder = placeholder;
+      this.parameters = parameters;
+    }
+
+    /** Returns the SQL of the value, adding its parameters to {@code out} if prepared. */
+    String render(boolean prepared, List<Object> out) {
+      if (!prepared) {
+        return literal;
+      }
+      out.addAll(parameters);
+      return placeholder;
+    }
   }
 }
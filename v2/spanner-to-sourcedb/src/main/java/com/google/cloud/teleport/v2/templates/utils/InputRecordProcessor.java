@@ -19,6 +19,8 @@ import com.google.cloud.teleport.v2.spanner.migrations.schema.Schema;
 import com.google.cloud.teleport.v2.templates.changestream.TrimmedShardedDataChangeRecord;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.beam.sdk.metrics.Counter;
 import org.apache.beam.sdk.metrics.Distribution;
 import org.apache.beam.sdk.metrics.Metrics;
@@ -80,4 +82,58 @@ public class InputRecordProcessor {
       throw e; // throw the original exception since it needs to go to DLQ
     }
   }
+
+  /**
+   * Applies the records to the source database in a single transaction, with parameterized
+   * statements. The records must already be in commit order; statements are executed in the order
+   * given.
+   */
+  public static void processRecords(
+      List<TrimmedShardedDataChangeRecord> spannerRecords,
+      Schema schema,
+      MySqlDao dao,
+      String shardId,
+      String sourceDbTimezoneOffset)
+      throws java.sql.SQLException, ConnectionException {
+
+    try {
+      List<PreparedDMLStatement> dmlStatements = new ArrayList<>(spannerRecords.size());
+      for (TrimmedShardedDataChangeRecord spannerRecord : spannerRecords) {
+        String tableName = spannerRecord.getTableName();
+        JSONObject newValuesJson = new JSONObject(spannerRecord.getMod().getNewValuesJson());
+        JSONObject keysJson = new JSONObject(spannerRecord.getMod().getKeysJson());
+        PreparedDMLStatement dmlStatement =
+            DMLGenerator.getPreparedDMLStatement(
+                spannerRecord.getModType().name(),
+                tableName,
+                schema,
+                newValuesJson,
+                keysJson,
+                sourceDbTimezoneOffset);
+        if (dmlStatement.getSql().isEmpty()) {
+          LOG.warn("DML statement is empty for table: " + tableName);
+          continue;
+        }
+        dmlStatements.add(dmlStatement);
+      }
+
+      dao.batchWrite(dmlStatements);
+
+      Metrics.counter(shardId, "records_written_to_source_" + shardId).inc(dmlStatements.size());
+      Distribution lagMetric =
+          Metrics.distribution(shardId, "replication_lag_in_seconds_" + shardId);
+      Instant instTime = Instant.now();
+      for (TrimmedShardedDataChangeRecord spannerRecord : spannerRecords) {
+        Instant commitTsInst = spannerRecord.getCommitTimestamp().toSqlTimestamp().toInstant();
+        lagMetric.update(ChronoUnit.SECONDS.between(commitTsInst, instTime));
+      }
+
+    } catch (Exception e) {
+      LOG.error(
+          "The exception while processing batch for shardId: {} is {} ",
+          shardId,
+          ExceptionUtils.getStackTrace(e));
+      throw e; // throw the original exception since it needs to go to DLQ
+    }
+  }
 }
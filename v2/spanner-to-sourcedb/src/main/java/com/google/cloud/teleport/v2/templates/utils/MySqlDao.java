@@ -17,8 +17,10 @@ package com.google.cloud.teleport.v2.templates.utils;
 
 import java.io.Serializable;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -67,4 +69,64 @@ public class MySqlDao implements Serializable {
       }
     }
   }
+
+  /**
+   * Writes all the statements on a single connection in one transaction, so that either all of them
+   * are applied or none are. Consecutive statements with the same SQL are executed as one JDBC
+   * batch of a prepared statement.
+   */
+  public void batchWrite(List<PreparedDMLStatement> dmlStatements)
+      throws SQLException, ConnectionException {
+    if (dmlStatements.isEmpty()) {
+      return;
+    }
+    Connection connObj = null;
+    PreparedStatement statement = null;
+
+    try {
+
+      connObj = ConnectionHelper.getConnection(this.sqlUrl, this.sqlUser, this.sqlPasswd);
+      if (connObj == null) {
+        throw new ConnectionException("Connection is null");
+      }
+      connObj.setAutoCommit(false);
+      String batchSql = null;
+      for (PreparedDMLStatement dmlStatement : dmlStatements) {
+        if (!dmlStatement.getSql().equals(batchSql)) {
+          if (statement != null) {
+            statement.executeBatch();
+            statement.close();
+          }
+          statement = connObj.prepareStatement(dmlStatement.getSql());
+          batchSql = dmlStatement.getSql();
+        }
+        List<Object> parameters = dmlStatement.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+          statement.setObject(i + 1, parameters.get(i));
+        }
+        statement.addBatch();
+      }
+      statement.executeBatch();
+      connObj.commit();
+
+    } catch (SQLException e) {
+      if (connObj != null) {
+        try {
+          connObj.rollback();
+        } catch (SQLException rollbackException) {
+          e.addSuppressed(rollbackException);
+        }
+      }
+      throw e;
+    } finally {
+
+      if (statement != null) {
+        statement.close();
+      }
+      if (connObj != null) {
+        // The pool restores auto-commit when the connection is returned.
+        connObj.close();
+      }
+    }
+  }
 }
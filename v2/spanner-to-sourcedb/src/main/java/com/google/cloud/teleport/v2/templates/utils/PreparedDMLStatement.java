@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.templates.utils;
+
+import java.util.List;
+
+/** A DML statement with placeholders and the parameters bound to them, in order. */
+public class PreparedDMLStatement {
+  private final String sql;
+  private final List<Object> parameters;
+
+  public PreparedDMLStatement(String sql, List<Object> parameters) {
+    this.sql = sql;
+    this.parameters = parameters;
+  }
+
+  public String getSql() {
+    return sql;
+  }
+
+  public List<Object> getParameters() {
+    return parameters;
+  }
+
+  @Override
+  public String toString() {
+    return sql;
+  }
+}
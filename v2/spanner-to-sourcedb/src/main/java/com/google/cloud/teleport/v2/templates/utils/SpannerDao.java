@@ -16,12 +16,20 @@
 package com.google.cloud.teleport.v2.templates.utils;
 
 import com.google.cloud.spanner.DatabaseClient;
+import com.google.cloud.spanner.Key;
+import com.google.cloud.spanner.KeySet;
 import com.google.cloud.spanner.Mutation;
+import com.google.cloud.spanner.ResultSet;
 import com.google.cloud.spanner.Struct;
 import com.google.cloud.teleport.v2.templates.constants.Constants;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.apache.beam.sdk.io.gcp.spanner.SpannerAccessor;
 import org.apache.beam.sdk.io.gcp.spanner.SpannerConfig;
 import org.slf4j.Logger;
@@ -76,6 +84,115 @@ public class SpannerDao {
     }
   }
 
+  /**
+   * Reads the shadow table records for all the given primary keys with a single read.
+   *
+   * <p>The key columns are read alongside the shadow columns so that each row can be mapped back to
+   * the key it belongs to. Keys that have no shadow table row are absent from the returned map.
+   *
+   * @param tableName name of the shadow table
+   * @param keyColumnNames primary key column names of the shadow table, in key order
+   * @param primaryKeys the keys to look up
+   */
+  public Map<Key, ShadowTableRecord> getShadowTableRecords(
+      String tableName, List<String> keyColumnNames, Collection<Key> primaryKeys) {
+    Map<Key, ShadowTableRecord> records = new HashMap<>();
+    if (primaryKeys.isEmpty()) {
+      return records;
+    }
+    Set<Key> pending = new LinkedHashSet<>(primaryKeys);
+    List<String> columns = new ArrayList<>(keyColumnNames);
+    columns.add(Constants.PROCESSED_COMMIT_TS_COLUMN_NAME);
+    columns.add(Constants.RECORD_SEQ_COLUMN_NAME);
+    int keyCount = keyColumnNames.size();
+    boolean unmatchedRow = false;
+    try {
+      KeySet.Builder keySet = KeySet.newBuilder();
+      pending.forEach(keySet::addKey);
+      DatabaseClient databaseClient = spannerAccessor.getDatabaseClient();
+      try (ResultSet resultSet =
+          databaseClient.singleUse().read(tableName, keySet.build(), columns)) {
+        while (resultSet.next()) {
+          Struct row = resultSet.getCurrentRowAsStruct();
+          Key key = keyFromRow(row, keyCount);
+          if (pending.remove(key)) {
+            records.put(
+                key, new ShadowTableRecord(row.getTimestamp(keyCount), row.getLong(keyCount + 1)));
+          } else {
+            unmatchedRow = true;
+          }
+        }
+      }
+    } catch (Exception e) {
+      LOG.warn("The " + tableName + " table could not be read. ", e);
+      throw e;
+    }
+    if (unmatchedRow) {
+      // A returned row could not be matched to a requested key, for example because a NUMERIC key
+      // came back with a different scale. Resolve the remaining keys one by one rather than
+      // treating them as absent, since that would let an older change overwrite a newer one.
+      for (Key key : pending) {
+        ShadowTableRecord record = getShadowTableRecord(tableName, key);
+        if (record != null) {
+          records.put(key, record);
+        }
+      }
+    }
+    return records;
+  }
+
+  private static Key keyFromRow(Struct row, int keyCount) {
+    Key.Builder key = Key.newBuilder();
+    for (int i = 0; i < keyCount; i++) {
+      if (row.isNull(i)) {
+        key.appendObject(null);
+        continue;
+      }
+      switch (row.getColumnType(i).getCode()) {
+        case BOOL:
+          key.append(row.getBoolean(i));
+          break;
+        case INT64:
+          key.append(row.getLong(i));
+          break;
+        case FLOAT64:
+          key.append(row.getDouble(i));
+          break;
+        case NUMERIC:
+          key.append(row.getBigDecimal(i));
+          break;
+        case STRING:
+          key.append(row.getString(i));
+          break;
+        case JSON:
+          key.append(row.getJson(i));
+          break;
+        case BYTES:
+          key.append(row.getBytes(i));
+          break;
+        case TIMESTAMP:
+          key.append(row.getTimestamp(i));
+          break;
+        case DATE:
+          key.append(row.getDate(i));
+          break;
+        default:
+          // Not a key type of the GoogleSQL dialect. The key will not match and is resolved with a
+          // point read instead.
+          key.append(row.getValue(i).toString());
+      }
+    }
+    return key.build();
+  }
+
+  /** Writes all the given shadow table mutations in a single commit. */
+  public void updateShadowTables(List<Mutation> mutations) {
+    if (mutations.isEmpty()) {
+      return;
+    }
+    spannerAccessor.getDatabaseClient().write(mutations);
+  }
+
   public void updateShadowTable(Mutation mutation) {
     List<Mutation> mutations = new ArrayList<>();
     mutations.add(mutation);
@@ -16,18 +16,22 @@
 package com.google.cloud.teleport.v2.templates.transforms;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.Key;
 import com.google.cloud.teleport.v2.spanner.ddl.Ddl;
 import com.google.cloud.teleport.v2.spanner.migrations.schema.Schema;
 import com.google.cloud.teleport.v2.spanner.migrations.shard.Shard;
@@ -40,12 +44,15 @@ import com.google.cloud.teleport.v2.templates.utils.ShadowTableRecord;
 import com.google.cloud.teleport.v2.templates.utils.SpannerDao;
 import com.google.common.collect.ImmutableList;
 import com.google.gson.Gson;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Map;
 import org.apache.beam.sdk.io.gcp.spanner.SpannerConfig;
 import org.apache.beam.sdk.io.gcp.spanner.changestreams.model.Mod;
 import org.apache.beam.sdk.io.gcp.spanner.changestreams.model.ModType;
 import org.apache.beam.sdk.testing.TestPipeline;
 import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
 import org.apache.beam.sdk.values.KV;
 import org.junit.Before;
 import org.junit.FixMethodOrder;
@@ -65,6 +72,7 @@ public class SourceWriterFnTest {
   @Mock HashMap<String, MySqlDao> mockMySqlDaoMap;
   @Mock private SpannerConfig mockSpannerConfig;
   @Mock private DoFn.ProcessContext processContext;
+  @Mock private DoFn.FinishBundleContext finishBundleContext;
   private static Gson gson = new Gson();
 
   private Shard testShard;
@@ -86,6 +94,26 @@ public class SourceWriterFnTest {
         .when(mockMySqlDao)
         .write(contains("child21"));
     doNothing().when(mockMySqlDao).write(contains("parent1"));
+    when(mockSpannerDao.getShadowTableRecords(eq("shadow_parent1"), any(), any()))
+        .thenReturn(new HashMap<>());
+    when(mockSpannerDao.getShadowTableRecords(eq("shadow_child21"), any(), any()))
+        .thenReturn(new HashMap<>());
+    when(mockSpannerDao.getShadowTableRecords(eq("shadow_child11"), any(), any()))
+        .thenAnswer(
+            invocation -> {
+              Map<Key, ShadowTableRecord> records = new HashMap<>();
+              for (Key key : invocation.<Collection<Key>>getArgument(2)) {
+                records.put(
+                    key,
+                    new ShadowTableRecord(Timestamp.parseTimestamp("2025-02-02T00:00:00Z"), 1));
+              }
+              return records;
+            });
+    doThrow(new java.sql.SQLIntegrityConstraintViolationException("a foreign key constraint fails"))
+        .when(mockMySqlDao)
+        .batchWrite(
+            argThat(
+                statements -> statements.stream().anyMatch(s -> s.getSql().contains("child21"))));
     testShard = new Shard();
     testShard.setLogicalShardId("shardA");
     testShard.setUser("test");
@@ -119,7 +147,7 @@ public class SourceWriterFnTest {
     sourceWriterFn.setObjectMapper(mapper);
     sourceWriterFn.setSpannerDao(mockSpannerDao);
     sourceWriterFn.setMySqlDaoMap(mockMySqlDaoMap);
-    sourceWriterFn.processElement(processContext);
+    sourceWriterFn.processElement(processContext, GlobalWindow.INSTANCE);
     verify(mockSpannerDao, atLeast(1)).getShadowTableRecord(any(), any());
     verify(mockMySqlDao, never()).write(any());
     verify(mockSpannerDao, never()).updateShadowTable(any());
@@ -146,7 +174,7 @@ public class SourceWriterFnTest {
     sourceWriterFn.setObjectMapper(mapper);
     sourceWriterFn.setSpannerDao(mockSpannerDao);
     sourceWriterFn.setMySqlDaoMap(mockMySqlDaoMap);
-    sourceWriterFn.processElement(processContext);
+    sourceWriterFn.processElement(processContext, GlobalWindow.INSTANCE);
     verify(mockSpannerDao, atLeast(1)).getShadowTableRecord(any(), any());
     verify(mockMySqlDao, never()).write(any());
     verify(mockSpannerDao, never()).updateShadowTable(any());
@@ -172,7 +200,7 @@ public class SourceWriterFnTest {
     sourceWriterFn.setObjectMapper(mapper);
     sourceWriterFn.setSpannerDao(mockSpannerDao);
     sourceWriterFn.setMySqlDaoMap(mockMySqlDaoMap);
-    sourceWriterFn.processElement(processContext);
+    sourceWriterFn.processElement(processContext, GlobalWindow.INSTANCE);
     verify(mockSpannerDao, atLeast(1)).getShadowTableRecord(any(), any());
     verify(mockMySqlDao, atLeast(1)).write(any());
     verify(mockSpannerDao, atLeast(1)).updateShadowTable(any());
@@ -197,7 +225,7 @@ public class SourceWriterFnTest {
     sourceWriterFn.setObjectMapper(mapper);
     sourceWriterFn.setSpannerDao(mockSpannerDao);
     sourceWriterFn.setMySqlDaoMap(mockMySqlDaoMap);
-    sourceWriterFn.processElement(processContext);
+    sourceWriterFn.processElement(processContext, GlobalWindow.INSTANCE);
     String jsonRec = gson.toJson(record, TrimmedShardedDataChangeRecord.class);
     ChangeStreamErrorRecord errorRecord =
         new ChangeStreamErrorRecord(jsonRec, Constants.SHARD_NOT_PRESENT_ERROR_MESSAGE);
@@ -227,7 +255,7 @@ public class SourceWriterFnTest {
     sourceWriterFn.setObjectMapper(mapper);
     sourceWriterFn.setSpannerDao(mockSpannerDao);
     sourceWriterFn.setMySqlDaoMap(mockMySqlDaoMap);
-    sourceWriterFn.processElement(processContext);
+    sourceWriterFn.processElement(processContext, GlobalWindow.INSTANCE);
     String jsonRec = gson.toJson(record, TrimmedShardedDataChangeRecord.class);
     ChangeStreamErrorRecord errorRecord =
         new ChangeStreamErrorRecord(jsonRec, Constants.SKIPPED_TAG_MESSAGE);
@@ -255,7 +283,7 @@ public class SourceWriterFnTest {
     sourceWriterFn.setObjectMapper(mapper);
     sourceWriterFn.setSpannerDao(mockSpannerDao);
     sourceWriterFn.setMySqlDaoMap(mockMySqlDaoMap);
-    sourceWriterFn.processElement(processContext);
+    sourceWriterFn.processElement(processContext, GlobalWindow.INSTANCE);
     String jsonRec = gson.toJson(record, TrimmedShardedDataChangeRecord.class);
     ChangeStreamErrorRecord errorRecord =
         new ChangeStreamErrorRecord(
@@ -287,7 +315,7 @@ public class SourceWriterFnTest {
     sourceWriterFn.setObjectMapper(mapper);
     sourceWriterFn.setSpannerDao(mockSpannerDao);
     sourceWriterFn.setMySqlDaoMap(mockMySqlDaoMap);
-    sourceWriterFn.processElement(processContext);
+    sourceWriterFn.processElement(processContext, GlobalWindow.INSTANCE);
     String jsonRec = gson.toJson(record, TrimmedShardedDataChangeRecord.class);
     ChangeStreamErrorRecord errorRecord = new ChangeStreamErrorRecord(jsonRec, "Test exception");
     verify(processContext, atLeast(1))
@@ -315,7 +343,7 @@ public class SourceWriterFnTest {
     sourceWriterFn.setObjectMapper(mapper);
     sourceWriterFn.setSpannerDao(mockSpannerDao);
     sourceWriterFn.setMySqlDaoMap(mockMySqlDaoMap);
-    sourceWriterFn.processElement(processContext);
+    sourceWriterFn.processElement(processContext, GlobalWindow.INSTANCE);
     String jsonRec = gson.toJson(record, TrimmedShardedDataChangeRecord.class);
     ChangeStreamErrorRecord errorRecord =
         new ChangeStreamErrorRecord(jsonRec, "a foreign key constraint fails");
@@ -324,6 +352,129 @@ public class SourceWriterFnTest {
             Constants.RETRYABLE_ERROR_TAG, gson.toJson(errorRecord, ChangeStreamErrorRecord.class));
   }
 
+  @Test
+  public void testBatchSkipsRecordsTheSourceIsAheadOf() throws Exception {
+    TrimmedShardedDataChangeRecord parentRecord = getParent1TrimmedDataChangeRecord("shardA");
+    parentRecord.setShard("shardA");
+    TrimmedShardedDataChangeRecord childRecord = getChild11TrimmedDataChangeRecord("shardA");
+    childRecord.setShard("shardA");
+    when(processContext.element())
+        .thenReturn(KV.of(1L, parentRecord))
+        .thenReturn(KV.of(1L, childRecord));
+    SourceWriterFn sourceWriterFn = getBatchingSourceWriterFn(10);
+    sourceWriterFn.startBundle();
+    sourceWriterFn.processElement(processContext, GlobalWindow.INSTANCE);
+    sourceWriterFn.processElement(processContext, GlobalWindow.INSTANCE);
+    verify(mockMySqlDao, never()).batchWrite(anyList());
+
+    sourceWriterFn.finishBundle(finishBundleContext);
+    verify(mockSpannerDao, never()).getShadowTableRecord(any(), any());
+    verify(mockSpannerDao, times(2)).getShadowTableRecords(any(), any(), any());
+    verify(mockMySqlDao, times(1))
+        .batchWrite(
+            argThat(
+                statements ->
+                    statements.size() == 1 && statements.get(0).getSql().contains("parent1")));
+    verify(mockMySqlDao, never()).write(any());
+    verify(mockSpannerDao, times(1))
+        .updateShadowTables(argThat(mutations -> mutations.size() == 1));
+    verify(finishBundleContext, times(2))
+        .output(eq(Constants.SUCCESS_TAG), any(), any(), eq(GlobalWindow.INSTANCE));
+  }
+
+  @Test
+  public void testBatchIsWrittenWhenFull() throws Exception {
+    TrimmedShardedDataChangeRecord record = getParent1TrimmedDataChangeRecord("shardA");
+    record.setShard("shardA");
+    when(processContext.element()).thenReturn(KV.of(1L, record));
+    SourceWriterFn sourceWriterFn = getBatchingSourceWriterFn(2);
+    sourceWriterFn.startBundle();
+    sourceWriterFn.processElement(processContext, GlobalWindow.INSTANCE);
+    sourceWriterFn.processElement(processContext, GlobalWindow.INSTANCE);
+    verify(mockMySqlDao, times(1)).batchWrite(argThat(statements -> statements.size() == 2));
+    verify(processContext, times(2)).output(eq(Constants.SUCCESS_TAG), any());
+
+    sourceWriterFn.finishBundle(finishBundleContext);
+    verify(mockMySqlDao, times(1)).batchWrite(anyList());
+  }
+
+  @Test
+  public void testBatchRetryableErrorForForeignKey() throws Exception {
+    TrimmedShardedDataChangeRecord record = getChild21TrimmedDataChangeRecord("shardA");
+    record.setShard("shardA");
+    when(processContext.element()).thenReturn(KV.of(1L, record));
+    SourceWriterFn sourceWriterFn = getBatchingSourceWriterFn(10);
+    sourceWriterFn.startBundle();
+    sourceWriterFn.processElement(processContext, GlobalWindow.INSTANCE);
+    sourceWriterFn.finishBundle(finishBundleContext);
+    String jsonRec = gson.toJson(record, TrimmedShardedDataChangeRecord.class);
+    ChangeStreamErrorRecord errorRecord =
+        new ChangeStreamErrorRecord(jsonRec, "a foreign key constraint fails");
+    verify(mockSpannerDao, never()).updateShadowTables(anyList());
+    verify(finishBundleContext, times(1))
+        .output(
+            eq(Constants.RETRYABLE_ERROR_TAG),
+            eq(gson.toJson(errorRecord, ChangeStreamErrorRecord.class)),
+            any(),
+            eq(GlobalWindow.INSTANCE));
+  }
+
+  @Test
+  public void testBatchFailureRoutesOnlyTheFailingRecord() throws Exception {
+    TrimmedShardedDataChangeRecord parentRecord = getParent1TrimmedDataChangeRecord("shardA");
+    parentRecord.setShard("shardA");
+    TrimmedShardedDataChangeRecord childRecord = getChild21TrimmedDataChangeRecord("shardA");
+    childRecord.setShard("shardA");
+    when(processContext.element())
+        .thenReturn(KV.of(1L, parentRecord))
+        .thenReturn(KV.of(1L, childRecord));
+    SourceWriterFn sourceWriterFn = getBatchingSourceWriterFn(10);
+    sourceWriterFn.startBundle();
+    sourceWriterFn.processElement(processContext, GlobalWindow.INSTANCE);
+    sourceWriterFn.processElement(processContext, GlobalWindow.INSTANCE);
+    sourceWriterFn.finishBundle(finishBundleContext);
+
+    // The batch fails as a whole, and is then written one record at a time.
+    verify(mockMySqlDao, times(1)).batchWrite(argThat(statements -> statements.size() == 2));
+    verify(mockMySqlDao, times(1)).write(contains("parent1"));
+    verify(mockMySqlDao, times(1)).write(contains("child21"));
+    verify(mockSpannerDao, never()).updateShadowTables(anyList());
+    verify(mockSpannerDao, times(1)).updateShadowTable(any());
+    String jsonRec = gson.toJson(childRecord, TrimmedShardedDataChangeRecord.class);
+    ChangeStreamErrorRecord errorRecord =
+        new ChangeStreamErrorRecord(jsonRec, "a foreign key constraint fails");
+    verify(finishBundleContext, times(1))
+        .output(
+            eq(Constants.RETRYABLE_ERROR_TAG),
+            eq(gson.toJson(errorRecord, ChangeStreamErrorRecord.class)),
+            any(),
+            eq(GlobalWindow.INSTANCE));
+    verify(finishBundleContext, never())
+        .output(eq(Constants.PERMANENT_ERROR_TAG), any(), any(), any());
+    verify(finishBundleContext, times(1))
+        .output(eq(Constants.SUCCESS_TAG), any(), any(), eq(GlobalWindow.INSTANCE));
+  }
+
+  private SourceWriterFn getBatchingSourceWriterFn(int batchSize) {
+    SourceWriterFn sourceWriterFn =
+        new SourceWriterFn(
+            ImmutableList.of(testShard),
+            testSchema,
+            mockSpannerConfig,
+            testSourceDbTimezoneOffset,
+            testDdl,
+            "shadow_",
+            "skip",
+            500,
+            batchSize);
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    sourceWriterFn.setObjectMapper(mapper);
+    sourceWriterFn.setSpannerDao(mockSpannerDao);
+    sourceWriterFn.setMySqlDaoMap(mockMySqlDaoMap);
+    return sourceWriterFn;
+  }
+
   static Ddl getTestDdl() {
     Ddl ddl =
         Ddl.builder()
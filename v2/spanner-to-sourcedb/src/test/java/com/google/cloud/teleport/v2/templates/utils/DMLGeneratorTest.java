@@ -15,6 +15,8 @@
  */
 package com.google.cloud.teleport.v2.templates.utils;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -27,6 +29,7 @@ import com.google.gson.GsonBuilder;
 import java.io.InputStream;
 import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import org.apache.beam.sdk.io.FileSystems;
 import org.apache.commons.io.IOUtils;
 import org.json.JSONObject;
@@ -675,4 +678,80 @@ public final class DMLGeneratorTest {
 
     assertTrue(sql.contains("LastName = BINARY(FROM_BASE64('YmlsX2NvbA=='))"));
   }
+
+  @Test
+  public void preparedUpsertBindsValues() {
+    Schema schema = SessionFileReader.read("src/test/resources/timeZoneSession.json");
+    String tableName = "Singers";
+    String newValuesString = "{\"Bday\":\"2023-05-18T12:01:13.088397258Z\"}";
+    JSONObject newValuesJson = new JSONObject(newValuesString);
+    String keyValueString = "{\"SingerId\":\"999\"}";
+    JSONObject keyValuesJson = new JSONObject(keyValueString);
+    String modType = "INSERT";
+
+    PreparedDMLStatement dml =
+        DMLGenerator.getPreparedDMLStatement(
+            modType, tableName, schema, newValuesJson, keyValuesJson, "+10:00");
+
+    assertEquals(
+        "INSERT INTO Singers(SingerId,Bday) VALUES (?,CONVERT_TZ(?,'+00:00',?)) ON DUPLICATE KEY"
+            + " UPDATE  Bday = CONVERT_TZ(?,'+00:00',?)",
+        dml.getSql());
+    assertEquals(
+        Arrays.asList(
+            "999",
+            "2023-05-18T12:01:13.088397258",
+            "+10:00",
+            "2023-05-18T12:01:13.088397258",
+            "+10:00"),
+        dml.getParameters());
+  }
+
+  @Test
+  public void preparedStatementsShareSql() {
+    Schema schema = SessionFileReader.read("src/test/resources/bitSession.json");
+    String tableName = "Singers";
+    JSONObject keyValuesJson = new JSONObject("{\"SingerId\":\"999\"}");
+
+    PreparedDMLStatement first =
+        DMLGenerator.getPreparedDMLStatement(
+            "INSERT",
+            tableName,
+            schema,
+            new JSONObject("{\"FirstName\":\"k'k\",\"LastName\":\"YmlsX2NvbA\u003d\u003d\"}"),
+            keyValuesJson,
+            "+00:00");
+    PreparedDMLStatement second =
+        DMLGenerator.getPreparedDMLStatement(
+            "INSERT",
+            tableName,
+            schema,
+            new JSONObject("{\"FirstName\":null,\"LastName\":\"AA\u003d\u003d\"}"),
+            keyValuesJson,
+            "+00:00");
+
+    assertEquals(first.getSql(), second.getSql());
+    assertTrue(first.getSql().contains("LastName = BINARY(FROM_BASE64(?))"));
+    assertFalse(first.getSql().contains("k'k"));
+    assertTrue(first.getParameters().containsAll(Arrays.asList("k'k", "YmlsX2NvbA==")));
+    assertTrue(second.getParameters().contains(null));
+  }
+
+  @Test
+  public void preparedDeleteMultiplePKColumns() {
+    Schema schema = SessionFileReader.read("src/test/resources/MultiColmPKSession.json");
+    String tableName = "Singers";
+    JSONObject newValuesJson = new JSONObject("{\"LastName\":null}");
+    JSONObject keyValuesJson = new JSONObject("{\"SingerId\":\"999\",\"FirstName\":\"kk\"}");
+
+    PreparedDMLStatement dml =
+        DMLGenerator.getPreparedDMLStatement(
+            "DELETE", tableName, schema, newValuesJson, keyValuesJson, "+00:00");
+
+    assertTrue(dml.getSql().startsWith("DELETE FROM Singers WHERE"));
+    assertTrue(dml.getSql().contains("FirstName = ?"));
+    assertTrue(dml.getSql().contains("SingerId = ?"));
+    assertEquals(2, dml.getParameters().size());
+    assertTrue(dml.getParameters().containsAll(Arrays.asList("kk", "999")));
+  }
 }
@@ -0,0 +1,402 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.templates;
+
+import com.github.vincentrussell.json.datagenerator.JsonDataGenerator;
+import com.github.vincentrussell.json.datagenerator.JsonDataGeneratorException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * A schema template compiled once into a list of field generators.
+ *
+ * <p>The text between the {@code {{...}}} expressions of the template is kept as UTF-8 bytes and
+ * written as is. The {@code uuid()}, {@code bool()}, {@code ipv4()}, {@code integer(min, max)},
+ * {@code long(min, max)} and {@code random(...)} functions with literal arguments are generated
+ * directly into the message buffer from {@link ThreadLocalRandom}. Any other expression is passed
+ * on its own to the {@link JsonDataGenerator}, so that every function of <a
+ * href="https://github.com/vincentrussell/json-data-generator">json-data-generator</a> keeps
+ * working.
+ *
+ * <p>Templates using {@code put}, {@code get}, {@code repeat} or {@code index} depend on state
+ * shared between expressions and are interpreted as a whole for every message, as before.
+ *
+ * <p>Instances reuse their message buffer and are not thread safe.
+ */
+public final class CompiledMessageTemplate {
+
+  private static final Pattern STATEFUL_FUNCTION =
+      Pattern.compile("\\b(put|get|repeat|index)\\s*\\(");
+  private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+  private final String schema;
+  private final List<FieldGenerator> generators;
+  private final MessageBuffer buffer = new MessageBuffer();
+
+  private CompiledMessageTemplate(String schema, List<FieldGenerator> generators) {
+    this.schema = schema;
+    this.generators = generators;
+  }
+
+  /** Compiles the schema template. */
+  public static CompiledMessageTemplate compile(String schema) {
+    List<FieldGenerator> generators = new ArrayList<>();
+    int position = 0;
+    while (position < schema.length()) {
+      int start = schema.indexOf("{{", position);
+      int end = start < 0 ? -1 : schema.indexOf("}}", start + 2);
+      if (end < 0) {
+        generators.add(new Literal(schema.substring(position)));
+        break;
+      }
+      if (start > position) {
+        generators.add(new Literal(schema.substring(position, start)));
+      }
+      String expression = schema.substring(start + 2, end);
+      if (STATEFUL_FUNCTION.matcher(expression).find()) {
+        return new CompiledMessageTemplate(schema, null);
+      }
+      generators.add(compileExpression(expression));
+      position = end + 2;
+    }
+    return new CompiledMessageTemplate(schema, generators);
+  }
+
+  /** Returns whether the template is generated from compiled expressions. */
+  boolean isCompiled() {
+    return generators != null;
+  }
+
+  /** Generates a message, using {@code dataGenerator} for expressions that are not compiled. */
+  public byte[] generate(JsonDataGenerator dataGenerator)
+      throws IOException, JsonDataGeneratorException {
+    buffer.reset();
+    if (generators == null) {
+      dataGenerator.generateTestDataJson(schema, buffer);
+    } else {
+      for (FieldGenerator generator : generators) {
+        generator.write(buffer, dataGenerator);
+      }
+    }
+    return buffer.toByteArray();
+  }
+
+  private static FieldGenerator compileExpression(String expression) {
+    FieldGenerator generator = null;
+    try {
+      FunctionCall call = FunctionCall.parse(expression.trim());
+      if (call != null) {
+        generator = compileFunction(call);
+      }
+    } catch (NumberFormatException e) {
+      // Left to the data generator, which reports invalid arguments itself.
+    }
+    return generator != null ? generator : new Interpreted(expression);
+  }
+
+  private static FieldGenerator compileFunction(FunctionCall call) {
+    List<String> args = call.args;
+    switch (call.name) {
+      case "uuid":
+        return args.isEmpty() ? new Uuid() : null;
+      case "bool":
+        return args.isEmpty() ? new Bool() : null;
+      case "ipv4":
+        return args.isEmpty() ? new Ipv4() : null;
+      case "integer":
+        return args.size() == 2 && !call.hasStringArgs
+            ? new LongRange(Integer.parseInt(args.get(0)), Integer.parseInt(args.get(1)))
+            : null;
+      case "long":
+        return args.size() == 2 && !call.hasStringArgs
+            ? new LongRange(Long.parseLong(args.get(0)), Long.parseLong(args.get(1)))
+            : null;
+      case "random":
+        return args.isEmpty() ? null : new RandomChoice(args);
+      default:
+        return null;
+    }
+  }
+
+  /** Writes one part of a message. */
+  interface FieldGenerator {
+    void write(MessageBuffer buffer, JsonDataGenerator dataGenerator)
+        throws IOException, JsonDataGeneratorException;
+  }
+
+  /** Text between expressions. */
+  private static class Literal implements FieldGenerator {
+    private final byte[] bytes;
+
+    Literal(String text) {
+      this.bytes = text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void write(MessageBuffer buffer, JsonDataGenerator dataGenerator) {
+      buffer.write(bytes, 0, bytes.length);
+    }
+  }
+
+  /** An expression that is not compiled, generated by the {@link JsonDataGenerator}. */
+  private static class Interpreted implements FieldGenerator {
+    private final String expression;
+
+    Interpreted(String expression) {
+      this.expression = "{{" + expression + "}}";
+    }
+
+    @Override
+    public void write(MessageBuffer buffer, JsonDataGenerator dataGenerator)
+        throws IOException, JsonDataGeneratorException {
+      dataGenerator.generateTestDataJson(expression, buffer);
+    }
+  }
+
+  /** {@code uuid()}, a random version 4 UUID. */
+  private static class Uuid implements FieldGenerator {
+    @Override
+    public void write(MessageBuffer buffer, JsonDataGenerator dataGenerator) {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      long msb = (random.nextLong() & ~0xF000L) | 0x4000L;
+      long lsb = (random.nextLong() & ~(0xC000L << 48)) | (0x8000L << 48);
+      buffer.writeHex(msb >>> 32, 8);
+      buffer.write('-');
+      buffer.writeHex(msb >>> 16, 4);
+      buffer.write('-');
+      buffer.writeHex(msb, 4);
+      buffer.write('-');
+      buffer.writeHex(lsb >>> 48, 4);
+      buffer.write('-');
+      buffer.writeHex(lsb, 12);
+    }
+  }
+
+  /** {@code bool()}. */
+  private static class Bool implements FieldGenerator {
+    @Override
+    public void write(MessageBuffer buffer, JsonDataGenerator dataGenerator) {
+      byte[] value = ThreadLocalRandom.current().nextBoolean() ? TRUE : FALSE;
+      buffer.write(value, 0, value.length);
+    }
+  }
+
+  /** {@code ipv4()}. */
+  private static class Ipv4 implements FieldGenerator {
+    @Override
+    public void write(MessageBuffer buffer, JsonDataGenerator dataGenerator) {
+      int address = ThreadLocalRandom.current().nextInt();
+      for (int shift = 24; shift >= 0; shift -= 8) {
+        buffer.writeLong((address >>> shift) & 0xFF);
+        if (shift > 0) {
+          buffer.write('.');
+        }
+      }
+    }
+  }
+
+  /** {@code integer(min, max)} and {@code long(min, max)}. */
+  private static class LongRange implements FieldGenerator {
+    private final long min;
+    private final long max;
+
+    LongRange(long min, long max) {
+      if (min > max) {
+        throw new NumberFormatException(String.format("min %d is greater than max %d", min, max));
+      }
+      this.min = min;
+      this.max = max;
+    }
+
+    @Override
+    public void write(MessageBuffer buffer, JsonDataGenerator dataGenerator) {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      buffer.writeLong(
+          max == Long.MAX_VALUE ? random.nextLong(min, max) : random.nextLong(min, max + 1));
+    }
+  }
+
+  /** {@code random(...)}, one of the literal arguments. */
+  private static class RandomChoice implements FieldGenerator {
+    private final byte[][] choices;
+
+    RandomChoice(List<String> args) {
+      choices = new byte[args.size()][];
+      for (int i = 0; i < choices.length; i++) {
+        choices[i] = args.get(i).getBytes(StandardCharsets.UTF_8);
+      }
+    }
+
+    @Override
+    public void write(MessageBuffer buffer, JsonDataGenerator dataGenerator) {
+      byte[] choice = choices[ThreadLocalRandom.current().nextInt(choices.length)];
+      buffer.write(choice, 0, choice.length);
+    }
+  }
+
+  /**
+   * A function call whose arguments are all literals, such as {@code random("a", "b")} or {@code
+   * integer(1, 10)}. String arguments are unquoted.
+   */
+  private static class FunctionCall {
+    private final String name;
+    private final List<String> args;
+    private final boolean hasStringArgs;
+
+    private FunctionCall(String name, List<String> args, boolean hasStringArgs) {
+      this.name = name;
+      this.args = args;
+      this.hasStringArgs = hasStringArgs;
+    }
+
+    /** Returns the call, or null if the expression is anything else. */
+    static FunctionCall parse(String expression) {
+      int open = expression.indexOf('(');
+      if (open <= 0 || !expression.endsWith(")")) {
+        return null;
+      }
+      String name = expression.substring(0, open).trim();
+      for (int i = 0; i < name.length(); i++) {
+        if (!Character.isJavaIdentifierPart(name.charAt(i))) {
+          return null;
+        }
+      }
+
+      List<String> args = new ArrayList<>();
+      boolean hasStringArgs = false;
+      String body = expression.substring(open + 1, expression.length() - 1).trim();
+      int i = 0;
+      while (i < body.length()) {
+        String arg;
+        if (body.charAt(i) == '"') {
+          int close = body.indexOf('"', i + 1);
+          if (close < 0) {
+            return null;
+          }
+          arg = body.substring(i + 1, close);
+          if (arg.indexOf('\\') >= 0) {
+            return null;
+          }
+          hasStringArgs = true;
+          i = close + 1;
+        } else {
+          int comma = body.indexOf(',', i);
+          int argEnd = comma < 0 ? body.length() : comma;
+          arg = body.substring(i, argEnd).trim();
+          if (!isNumber(arg)) {
+            return null;
+          }
+          i = argEnd;
+        }
+        args.add(arg);
+        while (i < body.length() && Character.isWhitespace(body.charAt(i))) {
+          i++;
+        }
+        if (i < body.length()) {
+          if (body.charAt(i) != ',') {
+            return null;
+          }
+          i++;
+          while (i < body.length() && Character.isWhitespace(body.charAt(i))) {
+            i++;
+          }
+          if (i == body.length()) {
+            return null;
+          }
+        }
+      }
+      return new FunctionCall(name, args, hasStringArgs);
+    }
+
+    private static boolean isNumber(String arg) {
+      if (arg.isEmpty()) {
+        return false;
+      }
+      for (int i = 0; i < arg.length(); i++) {
+        char c = arg.charAt(i);
+        if (!(Character.isDigit(c) || c == '-' || c == '.')) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /** Growable message buffer with allocation free number output. */
+  static class MessageBuffer extends ByteArrayOutputStream {
+
+    private final byte[] digits = new byte[20];
+
+    MessageBuffer() {
+      super(1024);
+    }
+
+    @Override
+    public void write(int b) {
+      ensureCapacity(count + 1);
+      buf[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      ensureCapacity(count + len);
+      System.arraycopy(b, off, buf, count, len);
+      count += len;
+    }
+
+    void writeLong(long value) {
+      if (value == Long.MIN_VALUE) {
+        byte[] bytes = Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+        write(bytes, 0, bytes.length);
+        return;
+      }
+      if (value < 0) {
+        write('-');
+        value = -value;
+      }
+      int position = digits.length;
+      do {
+        digits[--position] = (byte) ('0' + value % 10);
+        value /= 10;
+      } while (value != 0);
+      write(digits, position, digits.length - position);
+    }
+
+    /** Writes the lowest {@code length} hex digits of {@code value}. */
+    void writeHex(long value, int length) {
+      ensureCapacity(count + length);
+      for (int i = length - 1; i >= 0; i--) {
+        buf[count + i] = HEX[(int) (value & 0xF)];
+        value >>>= 4;
+      }
+      count += length;
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (capacity > buf.length) {
+        buf = Arrays.copyOf(buf, Math.max(capacity, 2 * buf.length));
+      }
+    }
+  }
+}
@@ -36,7 +36,6 @@ import com.google.cloud.teleport.v2.transforms.StreamingDataGeneratorWriteToSpan
 import com.google.cloud.teleport.v2.utils.DurationUtils;
 import com.google.cloud.teleport.v2.utils.GCSUtils;
 import com.google.cloud.teleport.v2.utils.MetadataValidator;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import javax.annotation.Nonnull;
 import org.apache.beam.sdk.Pipeline;
@@ -479,6 +478,19 @@ public class StreamingDataGenerator {
     String getKafkaTopic();
 
     void setKafkaTopic(String outputTopic);
+
+    @TemplateParameter.Integer(
+        order = 32,
+        optional = true,
+        description = "Number of precomputed messages",
+        helpText =
+            "When set, every worker generates this number of messages once and then publishes them"
+                + " in a loop instead of generating a new message each time. Use it to reach the"
+                + " maximum message rate. Defaults to 0, which generates every message.")
+    @Default.Integer(0)
+    Integer getMessageRingSize();
+
+    void setMessageRingSize(Integer value);
   }
 
   /** Allowed list of existing schema templates. */
@@ -621,7 +633,9 @@ public class StreamingDataGenerator {
     PCollection<byte[]> generatedMessages =
         pipeline
             .apply("Trigger", createTrigger(options))
-            .apply("Generate Fake Messages", ParDo.of(new MessageGeneratorFn(schema)));
+            .apply(
+                "Generate Fake Messages",
+                ParDo.of(new MessageGeneratorFn(schema, options.getMessageRingSize())));
 
     if (options.getSinkType().equals(SinkType.GCS)) {
       generatedMessages =
@@ -657,22 +671,40 @@ public class StreamingDataGenerator {
    * The {@link MessageGeneratorFn} class generates fake messages based on supplied schema
    *
    * <p>See <a href="https://github.com/vincentrussell/json-data-generator">json-data-generator</a>
-   * for instructions on how to construct the schema file.
+   * for instructions on how to construct the schema file. The schema is compiled once per instance
+   * by {@link CompiledMessageTemplate}. When {@code messageRingSize} is positive, that many
+   * messages are generated up front and output in a loop.
    */
   @VisibleForTesting
   static class MessageGeneratorFn extends DoFn<Long, byte[]> {
 
     // Not initialized inline or constructor because {@link JsonDataGenerator} is not serializable.
     private transient JsonDataGenerator dataGenerator;
+    private transient CompiledMessageTemplate template;
+    private transient byte[][] ring;
+    private transient int ringPosition;
     private final String schema;
+    private final int messageRingSize;
 
     MessageGeneratorFn(String schema) {
+      this(schema, 0);
+    }
+
+    MessageGeneratorFn(String schema, int messageRingSize) {
       this.schema = schema;
+      this.messageRingSize = messageRingSize;
     }
 
     @Setup
-    public void setup() {
+    public void setup() throws IOException, JsonDataGeneratorException {
       dataGenerator = new JsonDataGeneratorImpl();
+      template = CompiledMessageTemplate.compile(schema);
+      if (messageRingSize > 0) {
+        ring = new byte[messageRingSize][];
+        for (int i = 0; i < messageRingSize; i++) {
+          ring[i] = template.generate(dataGenerator);
+        }
+      }
     }
 
     @ProcessElement
@@ -683,15 +715,14 @@ public class StreamingDataGenerator {
         ProcessContext context)
         throws IOException, JsonDataGeneratorException {
 
-      byte[] payload;
-
-      // Generate the fake JSON according to the schema.
-      try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream()) {
-        dataGenerator.generateTestDataJson(schema, byteArrayOutputStream);
-        payload = byteArrayOutputStream.toByteArray();
+      if (ring != null) {
+        receiver.output(ring[ringPosition]);
+        ringPosition = (ringPosition + 1) % ring.length;
+        return;
       }
 
-      receiver.output(payload);
+      // Generate the fake JSON according to the schema.
+      receiver.output(template.generate(dataGenerator));
     }
   }
 
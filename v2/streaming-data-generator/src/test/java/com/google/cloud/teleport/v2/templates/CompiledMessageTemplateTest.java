@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2024 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.cloud.teleport.v2.templates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.vincentrussell.json.datagenerator.JsonDataGenerator;
+import com.github.vincentrussell.json.datagenerator.impl.JsonDataGeneratorImpl;
+import com.google.cloud.teleport.v2.templates.StreamingDataGenerator.SchemaTemplate;
+import java.util.UUID;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Test cases for the {@link CompiledMessageTemplate} class. */
+@RunWith(JUnit4.class)
+public class CompiledMessageTemplateTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final JsonDataGenerator dataGenerator = new JsonDataGeneratorImpl();
+
+  @Test
+  public void testCompiledFunctions() throws Exception {
+    CompiledMessageTemplate template =
+        CompiledMessageTemplate.compile(
+            "{\"id\": \"{{uuid()}}\", \"score\": {{ integer(1, 3) }}, \"big\": {{long(-5, -5)}},"
+                + " \"done\": {{bool()}}, \"quest\": \"{{random(\"Ghosts, of Perdition\", \"Ice\")}}\","
+                + " \"ip\": \"{{ipv4()}}\"}");
+    assertTrue(template.isCompiled());
+
+    for (int i = 0; i < 100; i++) {
+      JsonNode message = MAPPER.readTree(template.generate(dataGenerator));
+      UUID id = UUID.fromString(message.get("id").asText());
+      assertEquals(4, id.version());
+      assertEquals(2, id.variant());
+      assertTrue(message.get("score").isInt());
+      assertTrue(message.get("score").asInt() >= 1 && message.get("score").asInt() <= 3);
+      assertEquals(-5L, message.get("big").asLong());
+      assertTrue(message.get("done").isBoolean());
+      String quest = message.get("quest").asText();
+      assertTrue(quest.equals("Ghosts, of Perdition") || quest.equals("Ice"));
+      assertTrue(message.get("ip").asText().matches("\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}"));
+    }
+  }
+
+  @Test
+  public void testOtherFunctionsAreInterpreted() throws Exception {
+    CompiledMessageTemplate template =
+        CompiledMessageTemplate.compile(SchemaTemplate.LOG_ENTRY.getSchema());
+    assertTrue(template.isCompiled());
+
+    JsonNode message = MAPPER.readTree(template.generate(dataGenerator));
+    assertTrue(
+        message
+            .get("jsonPayload")
+            .get("dest_instance")
+            .get("project_id")
+            .asText()
+            .startsWith("PROJECT"));
+    assertFalse(message.toString().contains("{{"));
+  }
+
+  @Test
+  public void testStatefulTemplateIsInterpretedAsAWhole() throws Exception {
+    CompiledMessageTemplate template =
+        CompiledMessageTemplate.compile(
+            "{\"payload\": {\"id\": \"{{put(\"id\", uuid())}}\"},"
+                + " \"attributes\": {\"id\": \"{{get(\"id\")}}\"}}");
+    assertFalse(template.isCompiled());
+
+    JsonNode message = MAPPER.readTree(template.generate(dataGenerator));
+    assertEquals(
+        message.get("payload").get("id").asText(), message.get("attributes").get("id").asText());
+  }
+}